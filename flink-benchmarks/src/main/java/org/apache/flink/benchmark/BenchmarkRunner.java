@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ *
+ * <p>The runner accepts all the regular JMH command line options, for example a regular expression
+ * to select the benchmarks to run. Different from plain JMH, the results are always written in a
+ * machine-readable format: unless specified otherwise via {@code -rf} and {@code -rff}, the results
+ * are written as JSON to {@value #DEFAULT_RESULT_FILE}, so that they can be compared across runs.
+ *
+ * <p>The module is only built with the {@code include-benchmarks} profile, because JMH is not
+ * Apache licensed:
+ *
+ * <pre>
+ * mvn clean package -DskipTests -Dinclude-benchmarks -pl flink-benchmarks -am
+ * java -jar flink-benchmarks/target/benchmarks.jar "RecordWriterBenchmark|WindowOperatorBenchmark" -rf csv -rff results.csv
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+	static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+		if (commandLineOptions.shouldHelp()) {
+			commandLineOptions.showHelp();
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder()
+			.parent(commandLineOptions)
+			.shouldFailOnError(true);
+
+		if (!commandLineOptions.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLineOptions.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+
+		new Runner(options.build()).run();
+	}
+}
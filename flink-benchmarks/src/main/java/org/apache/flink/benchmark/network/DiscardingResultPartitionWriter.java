@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.network;
+
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+
+import javax.annotation.Nullable;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link ResultPartitionWriter} that drops all written data. It only keeps the last
+ * {@link BufferConsumer} of every subpartition, which is released as soon as the next one is added,
+ * so that the buffers go back to the {@link BufferProvider} without any consumer being involved.
+ */
+class DiscardingResultPartitionWriter implements ResultPartitionWriter {
+
+	private final BufferProvider bufferProvider;
+
+	private final ResultPartitionID partitionId = new ResultPartitionID();
+
+	private final BufferConsumer[] lastBufferConsumers;
+
+	DiscardingResultPartitionWriter(BufferProvider bufferProvider, int numberOfSubpartitions) {
+		this.bufferProvider = checkNotNull(bufferProvider);
+		this.lastBufferConsumers = new BufferConsumer[numberOfSubpartitions];
+	}
+
+	@Override
+	public void setup() {
+	}
+
+	@Override
+	public BufferProvider getBufferProvider() {
+		return bufferProvider;
+	}
+
+	@Override
+	public ResultPartitionID getPartitionId() {
+		return partitionId;
+	}
+
+	@Override
+	public int getNumberOfSubpartitions() {
+		return lastBufferConsumers.length;
+	}
+
+	@Override
+	public int getNumTargetKeyGroups() {
+		return lastBufferConsumers.length;
+	}
+
+	@Override
+	public void addBufferConsumer(BufferConsumer bufferConsumer, int subpartitionIndex) {
+		// the previous buffer consumer of the subpartition is finished at this point
+		releaseBufferConsumer(subpartitionIndex);
+		lastBufferConsumers[subpartitionIndex] = bufferConsumer;
+	}
+
+	@Override
+	public void flushAll() {
+	}
+
+	@Override
+	public void flush(int subpartitionIndex) {
+	}
+
+	@Override
+	public void fail(@Nullable Throwable throwable) {
+		close();
+	}
+
+	@Override
+	public void finish() {
+	}
+
+	@Override
+	public void close() {
+		for (int i = 0; i < lastBufferConsumers.length; i++) {
+			releaseBufferConsumer(i);
+		}
+	}
+
+	private void releaseBufferConsumer(int subpartitionIndex) {
+		BufferConsumer bufferConsumer = lastBufferConsumers[subpartitionIndex];
+		if (bufferConsumer != null) {
+			bufferConsumer.close();
+			lastBufferConsumers[subpartitionIndex] = null;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.network;
+
+import org.apache.flink.api.common.typeutils.base.array.BytePrimitiveArraySerializer;
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
+import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer.SerializationResult;
+import org.apache.flink.runtime.io.network.api.serialization.SpanningRecordSerializer;
+import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark for the record (de)serialization of the network stack, i.e. the
+ * {@link SpanningRecordSerializer} on the sending side and the
+ * {@link SpillingAdaptiveSpanningRecordDeserializer} on the receiving side.
+ *
+ * <p>The record sizes cover records that share a buffer with many others as well as records
+ * spanning several buffers.
+ */
+@OperationsPerInvocation(RecordSerializationBenchmark.RECORDS_PER_INVOCATION)
+public class RecordSerializationBenchmark extends BenchmarkBase {
+
+	static final int RECORDS_PER_INVOCATION = 10_000;
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	/** Buffers are handed over synchronously, so the single memory segment can simply be reused. */
+	private static final BufferRecycler NO_OP_RECYCLER = memorySegment -> {};
+
+	@Param({"16", "512", "65536"})
+	public int recordSize;
+
+	private MemorySegment memorySegment;
+
+	private StreamRecord<byte[]> record;
+
+	private SerializationDelegate<StreamElement> serializationDelegate;
+
+	private NonReusingDeserializationDelegate<StreamElement> deserializationDelegate;
+
+	private SpanningRecordSerializer<SerializationDelegate<StreamElement>> serializer;
+
+	private SpillingAdaptiveSpanningRecordDeserializer<NonReusingDeserializationDelegate<StreamElement>> deserializer;
+
+	@Setup
+	public void setUp() {
+		byte[] payload = new byte[recordSize];
+		ThreadLocalRandom.current().nextBytes(payload);
+		record = new StreamRecord<>(payload, 42L);
+
+		StreamElementSerializer<byte[]> elementSerializer =
+			new StreamElementSerializer<>(BytePrimitiveArraySerializer.INSTANCE);
+		serializationDelegate = new SerializationDelegate<>(elementSerializer);
+		deserializationDelegate = new NonReusingDeserializationDelegate<>(elementSerializer);
+
+		memorySegment = MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE);
+		serializer = new SpanningRecordSerializer<>();
+		deserializer = new SpillingAdaptiveSpanningRecordDeserializer<>(
+			new String[] {System.getProperty("java.io.tmpdir")});
+	}
+
+	@Benchmark
+	public void serializeRecords() throws IOException {
+		BufferBuilder bufferBuilder = null;
+		for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			serializationDelegate.setInstance(record);
+			serializer.serializeRecord(serializationDelegate);
+
+			if (bufferBuilder == null) {
+				bufferBuilder = new BufferBuilder(memorySegment, NO_OP_RECYCLER);
+			}
+			SerializationResult result = serializer.copyToBufferBuilder(bufferBuilder);
+			while (result.isFullBuffer()) {
+				bufferBuilder.finish();
+				if (result.isFullRecord()) {
+					bufferBuilder = null;
+					break;
+				}
+				bufferBuilder = new BufferBuilder(memorySegment, NO_OP_RECYCLER);
+				result = serializer.copyToBufferBuilder(bufferBuilder);
+			}
+			serializer.prune();
+		}
+	}
+
+	@Benchmark
+	public void serializeAndDeserializeRecords(Blackhole blackhole) throws IOException {
+		BufferBuilder bufferBuilder = null;
+		BufferConsumer bufferConsumer = null;
+		for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			serializationDelegate.setInstance(record);
+			serializer.serializeRecord(serializationDelegate);
+
+			if (bufferBuilder == null) {
+				bufferBuilder = new BufferBuilder(memorySegment, NO_OP_RECYCLER);
+				bufferConsumer = bufferBuilder.createBufferConsumer();
+			}
+			SerializationResult result = serializer.copyToBufferBuilder(bufferBuilder);
+			while (result.isFullBuffer()) {
+				bufferBuilder.finish();
+				deserializeBuffer(bufferConsumer, blackhole);
+
+				if (result.isFullRecord()) {
+					bufferBuilder = null;
+					break;
+				}
+				bufferBuilder = new BufferBuilder(memorySegment, NO_OP_RECYCLER);
+				bufferConsumer = bufferBuilder.createBufferConsumer();
+				result = serializer.copyToBufferBuilder(bufferBuilder);
+			}
+			serializer.prune();
+		}
+
+		if (bufferBuilder != null) {
+			bufferBuilder.finish();
+			deserializeBuffer(bufferConsumer, blackhole);
+		}
+	}
+
+	private void deserializeBuffer(BufferConsumer bufferConsumer, Blackhole blackhole) throws IOException {
+		Buffer buffer = bufferConsumer.build();
+		bufferConsumer.close();
+
+		deserializer.setNextBuffer(buffer);
+		while (true) {
+			DeserializationResult result = deserializer.getNextRecord(deserializationDelegate);
+			if (result.isFullRecord()) {
+				blackhole.consume(deserializationDelegate.getInstance());
+			}
+			if (result.isBufferConsumed()) {
+				buffer.recycleBuffer();
+				return;
+			}
+		}
+	}
+}
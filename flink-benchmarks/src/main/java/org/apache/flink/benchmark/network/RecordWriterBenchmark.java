@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.network;
+
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriterBuilder;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.streaming.runtime.partitioner.KeyGroupStreamPartitioner;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark for the sending side of a keyed exchange: the {@link KeyGroupStreamPartitioner}
+ * selects the channel of every record and the {@link RecordWriter} serializes it into the buffer
+ * of that channel. The written buffers are discarded, see {@link DiscardingResultPartitionWriter}.
+ */
+@OperationsPerInvocation(RecordWriterBenchmark.RECORDS_PER_INVOCATION)
+public class RecordWriterBenchmark extends BenchmarkBase {
+
+	static final int RECORDS_PER_INVOCATION = 100_000;
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	private static final int MAX_PARALLELISM = 128;
+
+	@Param({"1", "8", "100"})
+	public int numberOfChannels;
+
+	/** Flush after every record, which is what the output flusher with a timeout of 0 does. */
+	@Param({"false", "true"})
+	public boolean flushAlways;
+
+	private NetworkBufferPool networkBufferPool;
+
+	private BufferPool bufferPool;
+
+	private DiscardingResultPartitionWriter partitionWriter;
+
+	private KeyGroupStreamPartitioner<Long, Long> partitioner;
+
+	private RecordWriter<SerializationDelegate<StreamElement>> recordWriter;
+
+	private SerializationDelegate<StreamElement> serializationDelegate;
+
+	/** The partitioner only accesses the record, no serializer is needed for the channel selection. */
+	private SerializationDelegate<StreamRecord<Long>> channelSelectionDelegate;
+
+	private StreamRecord<Long> record;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		// one buffer per channel is held by the record writer, one more is held by the partition writer
+		int numberOfBuffers = 2 * numberOfChannels;
+		networkBufferPool = new NetworkBufferPool(numberOfBuffers, BUFFER_SIZE, 1);
+		bufferPool = networkBufferPool.createBufferPool(numberOfBuffers, numberOfBuffers);
+		partitionWriter = new DiscardingResultPartitionWriter(bufferPool, numberOfChannels);
+
+		partitioner = new KeyGroupStreamPartitioner<>(new IdentityKeySelector(), MAX_PARALLELISM);
+
+		recordWriter = new RecordWriterBuilder()
+			.setChannelSelector(partitioner)
+			.setTimeout(flushAlways ? 0 : -1)
+			.build(partitionWriter);
+
+		serializationDelegate = new SerializationDelegate<>(new StreamElementSerializer<>(LongSerializer.INSTANCE));
+		channelSelectionDelegate = new SerializationDelegate<>(null);
+		record = new StreamRecord<>(0L);
+	}
+
+	@TearDown
+	public void tearDown() {
+		recordWriter.clearBuffers();
+		recordWriter.close();
+		partitionWriter.close();
+		bufferPool.lazyDestroy();
+		networkBufferPool.destroyAllBufferPools();
+		networkBufferPool.destroy();
+	}
+
+	@Benchmark
+	public void emitKeyedRecords() throws Exception {
+		for (long i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			record.replace(i);
+			serializationDelegate.setInstance(record);
+			recordWriter.emit(serializationDelegate);
+		}
+	}
+
+	@Benchmark
+	public int selectChannels() {
+		int channel = 0;
+		for (long i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			record.replace(i);
+			channelSelectionDelegate.setInstance(record);
+			channel ^= partitioner.selectChannel(channelSelectionDelegate);
+		}
+		return channel;
+	}
+
+	private static final class IdentityKeySelector implements KeySelector<Long, Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long getKey(Long value) {
+			return value;
+		}
+	}
+}
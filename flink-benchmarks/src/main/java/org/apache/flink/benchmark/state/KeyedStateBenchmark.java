@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.state;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.contrib.streaming.state.RocksDBStateBackend;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.FileUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark for the accesses to {@link ValueState} and {@link MapState} of a keyed state backend.
+ * The benchmark is mainly meant for the {@link RocksDBStateBackend}, where every access goes
+ * through JNI and (de)serializes the key, namespace and state. The heap backend serves as a
+ * baseline.
+ */
+@OperationsPerInvocation(KeyedStateBenchmark.ACCESSES_PER_INVOCATION)
+public class KeyedStateBenchmark extends BenchmarkBase {
+
+	static final int ACCESSES_PER_INVOCATION = 10_000;
+
+	private static final int MAX_PARALLELISM = 128;
+
+	private static final int NUMBER_OF_KEYS = 100_000;
+
+	private static final int MAP_ENTRIES_PER_KEY = 16;
+
+	@Param({"rocksdb", "heap"})
+	public String backendType;
+
+	private File tempDirectory;
+
+	private AbstractKeyedStateBackend<Long> keyedStateBackend;
+
+	private ValueState<Long> valueState;
+
+	private MapState<Long, Long> mapState;
+
+	private long[] keys;
+
+	private long[] userKeys;
+
+	@Setup
+	public void setUp() throws Exception {
+		tempDirectory = Files.createTempDirectory("flink-state-benchmark").toFile();
+		keyedStateBackend = createKeyedStateBackend();
+
+		valueState = keyedStateBackend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new ValueStateDescriptor<>("value", LongSerializer.INSTANCE));
+		mapState = keyedStateBackend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new MapStateDescriptor<>("map", LongSerializer.INSTANCE, LongSerializer.INSTANCE));
+
+		for (long key = 0; key < NUMBER_OF_KEYS; key++) {
+			keyedStateBackend.setCurrentKey(key);
+			valueState.update(key);
+			for (long userKey = 0; userKey < MAP_ENTRIES_PER_KEY; userKey++) {
+				mapState.put(userKey, key);
+			}
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		keys = new long[ACCESSES_PER_INVOCATION];
+		userKeys = new long[ACCESSES_PER_INVOCATION];
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			keys[i] = random.nextInt(NUMBER_OF_KEYS);
+			userKeys[i] = random.nextInt(MAP_ENTRIES_PER_KEY);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		try {
+			keyedStateBackend.dispose();
+		} finally {
+			FileUtils.deleteDirectory(tempDirectory);
+		}
+	}
+
+	@Benchmark
+	public void valueGet(Blackhole blackhole) throws Exception {
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			keyedStateBackend.setCurrentKey(keys[i]);
+			blackhole.consume(valueState.value());
+		}
+	}
+
+	@Benchmark
+	public void valueUpdate() throws Exception {
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			keyedStateBackend.setCurrentKey(keys[i]);
+			valueState.update(keys[i]);
+		}
+	}
+
+	@Benchmark
+	public void mapGet(Blackhole blackhole) throws Exception {
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			keyedStateBackend.setCurrentKey(keys[i]);
+			blackhole.consume(mapState.get(userKeys[i]));
+		}
+	}
+
+	@Benchmark
+	public void mapPut() throws Exception {
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			keyedStateBackend.setCurrentKey(keys[i]);
+			mapState.put(userKeys[i], keys[i]);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ACCESSES_PER_INVOCATION * MAP_ENTRIES_PER_KEY)
+	public void mapIterate(Blackhole blackhole) throws Exception {
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			keyedStateBackend.setCurrentKey(keys[i]);
+			for (Map.Entry<Long, Long> entry : mapState.entries()) {
+				blackhole.consume(entry.getValue());
+			}
+		}
+	}
+
+	private AbstractKeyedStateBackend<Long> createKeyedStateBackend() throws Exception {
+		AbstractStateBackend stateBackend;
+		switch (backendType) {
+			case "heap":
+				stateBackend = new MemoryStateBackend();
+				break;
+			case "rocksdb":
+				RocksDBStateBackend rocksDBStateBackend = new RocksDBStateBackend(tempDirectory.toURI());
+				rocksDBStateBackend.setDbStoragePath(new File(tempDirectory, "db").getAbsolutePath());
+				stateBackend = rocksDBStateBackend;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown state backend: " + backendType);
+		}
+
+		DummyEnvironment environment = new DummyEnvironment();
+		KeyGroupRange keyGroupRange = KeyGroupRange.of(0, MAX_PARALLELISM - 1);
+
+		return stateBackend.createKeyedStateBackend(
+			environment,
+			new JobID(),
+			"benchmark-operator",
+			LongSerializer.INSTANCE,
+			MAX_PARALLELISM,
+			keyGroupRange,
+			environment.getTaskKvStateRegistry(),
+			TtlTimeProvider.DEFAULT,
+			new UnregisteredMetricsGroup(),
+			Collections.emptyList(),
+			new CloseableRegistry());
+	}
+}
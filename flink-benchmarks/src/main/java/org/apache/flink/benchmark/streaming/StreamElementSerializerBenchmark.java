@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.streaming;
+
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+/**
+ * Benchmark for the {@link StreamElementSerializer} which wraps the user serializer of every
+ * record that is sent over the network, measured for small records with and without timestamp
+ * and for watermarks.
+ */
+@OperationsPerInvocation(StreamElementSerializerBenchmark.ELEMENTS_PER_INVOCATION)
+public class StreamElementSerializerBenchmark extends BenchmarkBase {
+
+	static final int ELEMENTS_PER_INVOCATION = 10_000;
+
+	private final StreamElementSerializer<Long> longSerializer =
+		new StreamElementSerializer<>(LongSerializer.INSTANCE);
+
+	private final StreamElementSerializer<String> stringSerializer =
+		new StreamElementSerializer<>(StringSerializer.INSTANCE);
+
+	private final DataOutputSerializer outputView = new DataOutputSerializer(64 * 1024);
+
+	private final DataInputDeserializer inputView = new DataInputDeserializer();
+
+	private StreamRecord<Long> longRecord;
+
+	private StreamRecord<Long> timestampedLongRecord;
+
+	private StreamRecord<String> timestampedStringRecord;
+
+	private Watermark watermark;
+
+	@Setup
+	public void setUp() {
+		longRecord = new StreamRecord<>(42L);
+		timestampedLongRecord = new StreamRecord<>(42L, 1_000L);
+		timestampedStringRecord = new StreamRecord<>("The quick brown fox jumps over the lazy dog", 1_000L);
+		watermark = new Watermark(1_000L);
+	}
+
+	@Benchmark
+	public void serializeRecord() throws IOException {
+		serialize(longSerializer, longRecord);
+	}
+
+	@Benchmark
+	public void serializeTimestampedRecord() throws IOException {
+		serialize(longSerializer, timestampedLongRecord);
+	}
+
+	@Benchmark
+	public void serializeTimestampedStringRecord() throws IOException {
+		serialize(stringSerializer, timestampedStringRecord);
+	}
+
+	@Benchmark
+	public void serializeWatermark() throws IOException {
+		serialize(longSerializer, watermark);
+	}
+
+	@Benchmark
+	public void deserializeTimestampedRecord(Blackhole blackhole) throws IOException {
+		deserialize(longSerializer, timestampedLongRecord, blackhole);
+	}
+
+	@Benchmark
+	public void deserializeTimestampedStringRecord(Blackhole blackhole) throws IOException {
+		deserialize(stringSerializer, timestampedStringRecord, blackhole);
+	}
+
+	@Benchmark
+	public void deserializeWatermark(Blackhole blackhole) throws IOException {
+		deserialize(longSerializer, watermark, blackhole);
+	}
+
+	private void serialize(StreamElementSerializer<?> serializer, StreamElement element) throws IOException {
+		for (int i = 0; i < ELEMENTS_PER_INVOCATION; i++) {
+			outputView.clear();
+			serializer.serialize(element, outputView);
+		}
+	}
+
+	private void deserialize(
+		StreamElementSerializer<?> serializer,
+		StreamElement element,
+		Blackhole blackhole) throws IOException {
+
+		outputView.clear();
+		serializer.serialize(element, outputView);
+		byte[] bytes = outputView.getCopyOfBuffer();
+
+		for (int i = 0; i < ELEMENTS_PER_INVOCATION; i++) {
+			inputView.setBuffer(bytes);
+			blackhole.consume(serializer.deserialize(inputView));
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.streaming;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.streaming.api.functions.windowing.PassThroughWindowFunction;
+import org.apache.flink.streaming.api.windowing.assigners.EventTimeSessionWindows;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.WindowOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalSingleValueWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark for the event time {@link WindowOperator} with an incremental (reducing) aggregation
+ * for tumbling, sliding and session windows on the heap state backend.
+ *
+ * <p>The records of an invocation are spread over {@value #EVENT_TIME_PER_INVOCATION} ms of event time
+ * and distributed round-robin over the keys. A watermark follows after every
+ * {@value #WATERMARK_INTERVAL} records, so that windows are fired and cleaned up continuously.
+ */
+@OperationsPerInvocation(WindowOperatorBenchmark.RECORDS_PER_INVOCATION)
+public class WindowOperatorBenchmark extends BenchmarkBase {
+
+	static final int RECORDS_PER_INVOCATION = 10_000;
+
+	private static final long EVENT_TIME_PER_INVOCATION = 10_000L;
+
+	private static final int WATERMARK_INTERVAL = 1_000;
+
+	@Param({"tumbling", "sliding", "session"})
+	public String windowType;
+
+	@Param({"100", "10000"})
+	public int numberOfKeys;
+
+	private KeyedOneInputStreamOperatorTestHarness<Long, Long, Long> testHarness;
+
+	private StreamRecord<Long> record;
+
+	private long currentTime;
+
+	@Setup
+	public void setUp() throws Exception {
+		ReducingStateDescriptor<Long> stateDescriptor = new ReducingStateDescriptor<>(
+			"window-contents",
+			new SumReducer(),
+			LongSerializer.INSTANCE);
+
+		WindowOperator<Long, Long, Long, Long, TimeWindow> operator = new WindowOperator<>(
+			createWindowAssigner(),
+			new TimeWindow.Serializer(),
+			new ModuloKeySelector(numberOfKeys),
+			BasicTypeInfo.LONG_TYPE_INFO.createSerializer(new ExecutionConfig()),
+			stateDescriptor,
+			new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<Long, TimeWindow, Long>()),
+			EventTimeTrigger.create(),
+			0,
+			null /* late data output tag */);
+
+		testHarness = new KeyedOneInputStreamOperatorTestHarness<>(
+			operator, new ModuloKeySelector(numberOfKeys), BasicTypeInfo.LONG_TYPE_INFO);
+		testHarness.open();
+
+		record = new StreamRecord<>(0L);
+		currentTime = 0L;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		testHarness.close();
+	}
+
+	@Benchmark
+	public void processRecords() throws Exception {
+		long timeStep = EVENT_TIME_PER_INVOCATION / RECORDS_PER_INVOCATION;
+		for (long i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			record.replace(i, currentTime);
+			testHarness.processElement(record);
+			currentTime += timeStep;
+
+			if (i % WATERMARK_INTERVAL == WATERMARK_INTERVAL - 1) {
+				testHarness.processWatermark(currentTime - 1);
+			}
+		}
+
+		// the emitted windows are not of interest, they would only pile up in the harness
+		testHarness.getOutput().clear();
+	}
+
+	private WindowAssigner<Object, TimeWindow> createWindowAssigner() {
+		switch (windowType) {
+			case "tumbling":
+				return TumblingEventTimeWindows.of(Time.seconds(1));
+			case "sliding":
+				return SlidingEventTimeWindows.of(Time.seconds(10), Time.seconds(1));
+			case "session":
+				return EventTimeSessionWindows.withGap(Time.seconds(2));
+			default:
+				throw new IllegalArgumentException("Unknown window type: " + windowType);
+		}
+	}
+
+	private static final class SumReducer implements ReduceFunction<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long reduce(Long value1, Long value2) {
+			return value1 + value2;
+		}
+	}
+
+	private static final class ModuloKeySelector implements KeySelector<Long, Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int numberOfKeys;
+
+		private ModuloKeySelector(int numberOfKeys) {
+			this.numberOfKeys = numberOfKeys;
+		}
+
+		@Override
+		public Long getKey(Long value) {
+			return value % numberOfKeys;
+		}
+	}
+}
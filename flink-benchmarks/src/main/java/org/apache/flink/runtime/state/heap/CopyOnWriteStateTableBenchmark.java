@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark for the accesses of the heap keyed state backend to its {@link CopyOnWriteStateTable}.
+ *
+ * <p>With an active snapshot, every entry that is written for the first time after the snapshot
+ * was taken has to be copied. The snapshot is taken once per iteration, so these copies are
+ * amortized over all invocations of the iteration, similar to a running asynchronous checkpoint.
+ *
+ * <p>The benchmark lives in the package of the state table because the table is not public.
+ */
+@OperationsPerInvocation(CopyOnWriteStateTableBenchmark.ACCESSES_PER_INVOCATION)
+public class CopyOnWriteStateTableBenchmark extends BenchmarkBase {
+
+	static final int ACCESSES_PER_INVOCATION = 10_000;
+
+	private static final int MAX_PARALLELISM = 128;
+
+	private static final StateTransformationFunction<Long, Long> SUM =
+		(previousState, value) -> previousState == null ? value : previousState + value;
+
+	@Param({"10000", "1000000"})
+	public int numberOfKeys;
+
+	@Param({"false", "true"})
+	public boolean activeSnapshot;
+
+	private InternalKeyContext<Long> keyContext;
+
+	private CopyOnWriteStateTable<Long, VoidNamespace, Long> stateTable;
+
+	private CopyOnWriteStateTableSnapshot<Long, VoidNamespace, Long> snapshot;
+
+	private long[] keys;
+
+	private int[] keyGroups;
+
+	@Setup
+	public void setUp() {
+		KeyGroupRange keyGroupRange = KeyGroupRange.of(0, MAX_PARALLELISM - 1);
+		keyContext = new InternalKeyContextImpl<>(keyGroupRange, MAX_PARALLELISM);
+
+		RegisteredKeyValueStateBackendMetaInfo<VoidNamespace, Long> metaInfo =
+			new RegisteredKeyValueStateBackendMetaInfo<>(
+				StateDescriptor.Type.VALUE,
+				"benchmark-state",
+				VoidNamespaceSerializer.INSTANCE,
+				LongSerializer.INSTANCE);
+		stateTable = new CopyOnWriteStateTable<>(keyContext, metaInfo, LongSerializer.INSTANCE);
+
+		for (long key = 0; key < numberOfKeys; key++) {
+			stateTable.put(
+				key,
+				KeyGroupRangeAssignment.assignToKeyGroup(key, MAX_PARALLELISM),
+				VoidNamespace.INSTANCE,
+				key);
+		}
+
+		// random access pattern over all keys, the key groups are computed by the key context in practice
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		keys = new long[ACCESSES_PER_INVOCATION];
+		keyGroups = new int[ACCESSES_PER_INVOCATION];
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			keys[i] = random.nextInt(numberOfKeys);
+			keyGroups[i] = KeyGroupRangeAssignment.assignToKeyGroup(keys[i], MAX_PARALLELISM);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void takeSnapshot() {
+		if (activeSnapshot) {
+			snapshot = stateTable.stateSnapshot();
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void releaseSnapshot() {
+		if (snapshot != null) {
+			snapshot.release();
+			snapshot = null;
+		}
+	}
+
+	@Benchmark
+	public long get() {
+		long sum = 0;
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			setCurrentKey(i);
+			sum += stateTable.get(VoidNamespace.INSTANCE);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public void put() {
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			setCurrentKey(i);
+			stateTable.put(VoidNamespace.INSTANCE, keys[i]);
+		}
+	}
+
+	@Benchmark
+	public void transform() throws Exception {
+		for (int i = 0; i < ACCESSES_PER_INVOCATION; i++) {
+			setCurrentKey(i);
+			stateTable.transform(VoidNamespace.INSTANCE, 1L, SUM);
+		}
+	}
+
+	private void setCurrentKey(int index) {
+		keyContext.setCurrentKey(keys[index]);
+		keyContext.setCurrentKeyGroupIndex(keyGroups[index]);
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.PriorityQueueSetFactory;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
+import org.apache.flink.streaming.runtime.tasks.TestProcessingTimeService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark for the registration and firing of timers in the {@link InternalTimerServiceImpl}
+ * with heap-based timer queues.
+ *
+ * <p>Every invocation registers timers for random keys and timestamps within a time range and
+ * afterwards advances the time past that range, so that all of the timers fire. The following
+ * invocation continues with the next time range.
+ *
+ * <p>The benchmark lives in the package of the timer service because its constructor is not public.
+ */
+@OperationsPerInvocation(InternalTimerServiceBenchmark.TIMERS_PER_INVOCATION)
+public class InternalTimerServiceBenchmark extends BenchmarkBase {
+
+	static final int TIMERS_PER_INVOCATION = 10_000;
+
+	private static final int MAX_PARALLELISM = 128;
+
+	/** Number of distinct timestamps per invocation, a low number results in many timers with the same timestamp. */
+	@Param({"100", "100000"})
+	public int timeRange;
+
+	@Param({"1000", "100000"})
+	public int numberOfKeys;
+
+	private TestProcessingTimeService processingTimeService;
+
+	private SimpleKeyContext keyContext;
+
+	private InternalTimerServiceImpl<Long, VoidNamespace> timerService;
+
+	private CountingTriggerable triggerable;
+
+	private long[] keys;
+
+	private long[] timestampOffsets;
+
+	private long currentTime;
+
+	@Setup
+	public void setUp() throws Exception {
+		KeyGroupRange keyGroupRange = KeyGroupRange.of(0, MAX_PARALLELISM - 1);
+		PriorityQueueSetFactory priorityQueueSetFactory =
+			new HeapPriorityQueueSetFactory(keyGroupRange, MAX_PARALLELISM, 128);
+		TimerSerializer<Long, VoidNamespace> timerSerializer =
+			new TimerSerializer<>(LongSerializer.INSTANCE, VoidNamespaceSerializer.INSTANCE);
+
+		processingTimeService = new TestProcessingTimeService();
+		keyContext = new SimpleKeyContext();
+		triggerable = new CountingTriggerable();
+
+		timerService = new InternalTimerServiceImpl<>(
+			keyGroupRange,
+			keyContext,
+			processingTimeService,
+			priorityQueueSetFactory.create("processing-timers", timerSerializer),
+			priorityQueueSetFactory.create("event-timers", timerSerializer));
+		timerService.startTimerService(LongSerializer.INSTANCE, VoidNamespaceSerializer.INSTANCE, triggerable);
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		keys = new long[TIMERS_PER_INVOCATION];
+		timestampOffsets = new long[TIMERS_PER_INVOCATION];
+		for (int i = 0; i < TIMERS_PER_INVOCATION; i++) {
+			keys[i] = random.nextInt(numberOfKeys);
+			timestampOffsets[i] = random.nextInt(timeRange);
+		}
+
+		currentTime = 0L;
+		processingTimeService.setCurrentTime(currentTime);
+	}
+
+	@Benchmark
+	public long registerAndFireEventTimeTimers() throws Exception {
+		for (int i = 0; i < TIMERS_PER_INVOCATION; i++) {
+			keyContext.setCurrentKey(keys[i]);
+			timerService.registerEventTimeTimer(VoidNamespace.INSTANCE, currentTime + timestampOffsets[i]);
+		}
+
+		currentTime += timeRange;
+		timerService.advanceWatermark(currentTime);
+		return triggerable.firedTimers;
+	}
+
+	@Benchmark
+	public long registerAndFireProcessingTimeTimers() throws Exception {
+		for (int i = 0; i < TIMERS_PER_INVOCATION; i++) {
+			keyContext.setCurrentKey(keys[i]);
+			timerService.registerProcessingTimeTimer(VoidNamespace.INSTANCE, currentTime + timestampOffsets[i]);
+		}
+
+		currentTime += timeRange;
+		processingTimeService.setCurrentTime(currentTime);
+		return triggerable.firedTimers;
+	}
+
+	@Benchmark
+	public void registerAndDeleteEventTimeTimers() {
+		for (int i = 0; i < TIMERS_PER_INVOCATION; i++) {
+			keyContext.setCurrentKey(keys[i]);
+			timerService.registerEventTimeTimer(VoidNamespace.INSTANCE, currentTime + timestampOffsets[i]);
+		}
+		for (int i = 0; i < TIMERS_PER_INVOCATION; i++) {
+			keyContext.setCurrentKey(keys[i]);
+			timerService.deleteEventTimeTimer(VoidNamespace.INSTANCE, currentTime + timestampOffsets[i]);
+		}
+	}
+
+	private static final class SimpleKeyContext implements KeyContext {
+
+		private Object currentKey;
+
+		@Override
+		public void setCurrentKey(Object key) {
+			this.currentKey = key;
+		}
+
+		@Override
+		public Object getCurrentKey() {
+			return currentKey;
+		}
+	}
+
+	private static final class CountingTriggerable implements Triggerable<Long, VoidNamespace> {
+
+		private long firedTimers;
+
+		@Override
+		public void onEventTime(InternalTimer<Long, VoidNamespace> timer) {
+			firedTimers++;
+		}
+
+		@Override
+		public void onProcessingTime(InternalTimer<Long, VoidNamespace> timer) {
+			firedTimers++;
+		}
+	}
+}
@@ -82,6 +82,19 @@ public class FlinkKafkaConsumer09<T> extends FlinkKafkaConsumerBase<T> {
 	 * available. If 0, returns immediately with any records that are available now. */
 	public static final long DEFAULT_POLL_TIMEOUT = 100L;
 
+	/** Configuration key to change the number of fetched record batches that may be buffered
+	 * between the Kafka consumer thread and the task thread. **/
+	public static final String KEY_HANDOVER_CAPACITY = "flink.handover.capacity";
+
+	/** By default, the Kafka consumer thread only fetches ahead by one batch of records. */
+	public static final int DEFAULT_HANDOVER_CAPACITY = 1;
+
+	/** Configuration key to change the number of threads that deserialize fetched records. **/
+	public static final String KEY_DESERIALIZATION_THREADS = "flink.deserialization.threads";
+
+	/** By default, records are deserialized by the task thread, right before they are emitted. */
+	public static final int DEFAULT_DESERIALIZATION_THREADS = 1;
+
 	// ------------------------------------------------------------------------
 
 	/** User-supplied properties for Kafka. **/
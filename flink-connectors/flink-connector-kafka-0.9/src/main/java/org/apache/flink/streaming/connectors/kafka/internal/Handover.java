@@ -27,14 +27,19 @@ import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.Closeable;
+import java.util.ArrayDeque;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
  * The Handover is a utility to hand over data (a buffer of records) and exception from a
  * <i>producer</i> thread to a <i>consumer</i> thread. It effectively behaves like a
- * "size one blocking queue", with some extras around exception reporting, closing, and
- * waking up thread without {@link Thread#interrupt() interrupting} threads.
+ * bounded blocking queue (by default of size one), with some extras around exception reporting,
+ * closing, and waking up thread without {@link Thread#interrupt() interrupting} threads.
+ *
+ * <p>A capacity larger than one lets the producer thread fetch ahead while the consumer thread
+ * is still busy with earlier buffers, at the cost of holding more fetched records in memory.
  *
  * <p>This class is used in the Flink Kafka Consumer to hand over data and exceptions between
  * the thread that runs the KafkaConsumer class and the main thread.
@@ -51,10 +56,23 @@ public final class Handover implements Closeable {
 
 	private final Object lock = new Object();
 
-	private ConsumerRecords<byte[], byte[]> next;
+	/** The maximum number of elements that were handed over but not yet picked up. */
+	private final int capacity;
+
+	private final ArrayDeque<ConsumerRecords<byte[], byte[]>> next;
 	private Throwable error;
 	private boolean wakeupProducer;
 
+	public Handover() {
+		this(1);
+	}
+
+	public Handover(int capacity) {
+		checkArgument(capacity > 0, "The capacity must be positive.");
+		this.capacity = capacity;
+		this.next = new ArrayDeque<>(capacity);
+	}
+
 	/**
 	 * Polls the next element from the Handover, possibly blocking until the next element is
 	 * available. This method behaves similar to polling from a blocking queue.
@@ -70,13 +88,12 @@ public final class Handover implements Closeable {
 	@Nonnull
 	public ConsumerRecords<byte[], byte[]> pollNext() throws Exception {
 		synchronized (lock) {
-			while (next == null && error == null) {
+			while (next.isEmpty() && error == null) {
 				lock.wait();
 			}
 
-			ConsumerRecords<byte[], byte[]> n = next;
+			ConsumerRecords<byte[], byte[]> n = next.poll();
 			if (n != null) {
-				next = null;
 				lock.notifyAll();
 				return n;
 			}
@@ -91,19 +108,19 @@ public final class Handover implements Closeable {
 	}
 
 	/**
-	 * Hands over an element from the producer. If the Handover already has an element that was
-	 * not yet picked up by the consumer thread, this call blocks until the consumer picks up that
-	 * previous element.
+	 * Hands over an element from the producer. If the Handover is already filled up to its capacity
+	 * with elements that were not yet picked up by the consumer thread, this call blocks until the
+	 * consumer picks up the oldest of those elements.
 	 *
-	 * <p>This behavior is similar to a "size one" blocking queue.
+	 * <p>This behavior is similar to a bounded blocking queue.
 	 *
 	 * @param element The next element to hand over.
 	 *
 	 * @throws InterruptedException
-	 *                 Thrown, if the thread is interrupted while blocking for the Handover to be empty.
+	 *                 Thrown, if the thread is interrupted while blocking for the Handover to have space.
 	 * @throws WakeupException
 	 *                 Thrown, if the {@link #wakeupProducer()} method is called while blocking for
-	 *                 the Handover to be empty.
+	 *                 the Handover to have space.
 	 * @throws ClosedException
 	 *                 Thrown if the Handover was closed or concurrently being closed.
 	 */
@@ -113,19 +130,19 @@ public final class Handover implements Closeable {
 		checkNotNull(element);
 
 		synchronized (lock) {
-			while (next != null && !wakeupProducer) {
+			while (next.size() >= capacity && !wakeupProducer) {
 				lock.wait();
 			}
 
 			wakeupProducer = false;
 
-			// if there is still an element, we must have been woken up
-			if (next != null) {
+			// if there is still no space, we must have been woken up
+			if (next.size() >= capacity) {
 				throw new WakeupException();
 			}
 			// if there is no error, then this is open and can accept this element
 			else if (error == null) {
-				next = element;
+				next.add(element);
 				lock.notifyAll();
 			}
 			// an error marks this as closed for the producer
@@ -158,7 +175,7 @@ public final class Handover implements Closeable {
 			if (error == null) {
 				error = t;
 			}
-			next = null;
+			next.clear();
 			lock.notifyAll();
 		}
 	}
@@ -175,7 +192,7 @@ public final class Handover implements Closeable {
 	@Override
 	public void close() {
 		synchronized (lock) {
-			next = null;
+			next.clear();
 			wakeupProducer = false;
 
 			if (error == null) {
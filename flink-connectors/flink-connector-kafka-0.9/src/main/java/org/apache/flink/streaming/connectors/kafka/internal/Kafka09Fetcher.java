@@ -24,12 +24,14 @@ import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.streaming.api.functions.AssignerWithPeriodicWatermarks;
 import org.apache.flink.streaming.api.functions.AssignerWithPunctuatedWatermarks;
 import org.apache.flink.streaming.api.functions.source.SourceFunction.SourceContext;
+import org.apache.flink.streaming.connectors.kafka.FlinkKafkaConsumer09;
 import org.apache.flink.streaming.connectors.kafka.KafkaDeserializationSchema;
 import org.apache.flink.streaming.connectors.kafka.internals.AbstractFetcher;
 import org.apache.flink.streaming.connectors.kafka.internals.KafkaCommitCallback;
 import org.apache.flink.streaming.connectors.kafka.internals.KafkaTopicPartition;
 import org.apache.flink.streaming.connectors.kafka.internals.KafkaTopicPartitionState;
 import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
+import org.apache.flink.util.PropertiesUtil;
 import org.apache.flink.util.SerializedValue;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -40,12 +42,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Future;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkState;
 
 /**
@@ -63,6 +69,10 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> {
 	/** The schema to convert between Kafka's byte messages, and Flink's objects. */
 	private final KafkaDeserializationSchema<T> deserializer;
 
+	/** The workers that deserialize the fetched records, or null if the task thread deserializes them. */
+	@Nullable
+	private final ParallelRecordDeserializer<T> parallelDeserializer;
+
 	/** The handover of data and exceptions between the consumer thread and the task thread. */
 	private final Handover handover;
 
@@ -101,8 +111,29 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> {
 				consumerMetricGroup,
 				useMetrics);
 
+		final int handoverCapacity = PropertiesUtil.getInt(
+				kafkaProperties,
+				FlinkKafkaConsumer09.KEY_HANDOVER_CAPACITY,
+				FlinkKafkaConsumer09.DEFAULT_HANDOVER_CAPACITY);
+		checkArgument(handoverCapacity > 0,
+				"'" + FlinkKafkaConsumer09.KEY_HANDOVER_CAPACITY + "' must be positive.");
+
+		final int deserializationThreads = PropertiesUtil.getInt(
+				kafkaProperties,
+				FlinkKafkaConsumer09.KEY_DESERIALIZATION_THREADS,
+				FlinkKafkaConsumer09.DEFAULT_DESERIALIZATION_THREADS);
+		checkArgument(deserializationThreads > 0,
+				"'" + FlinkKafkaConsumer09.KEY_DESERIALIZATION_THREADS + "' must be positive.");
+
 		this.deserializer = deserializer;
-		this.handover = new Handover();
+		this.handover = new Handover(handoverCapacity);
+		this.parallelDeserializer = deserializationThreads > 1 ?
+				new ParallelRecordDeserializer<>(
+						deserializer,
+						deserializationThreads,
+						userCodeClassLoader,
+						getFetcherName() + " deserializer for " + taskNameWithSubtasks) :
+				null;
 
 		this.consumerThread = new KafkaConsumerThread(
 				LOG,
@@ -135,6 +166,11 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> {
 				// it automatically re-throws exceptions encountered in the consumer thread
 				final ConsumerRecords<byte[], byte[]> records = handover.pollNext();
 
+				if (parallelDeserializer != null) {
+					emitParallelDeserialized(records, parallelDeserializer);
+					continue;
+				}
+
 				// get the records for each topic partition
 				for (KafkaTopicPartitionState<TopicPartition> partition : subscribedPartitionStates()) {
 
@@ -161,6 +197,10 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> {
 		finally {
 			// this signals the consumer thread that no more work is to be done
 			consumerThread.shutdown();
+
+			if (parallelDeserializer != null) {
+				parallelDeserializer.close();
+			}
 		}
 
 		// on a clean exit, wait for the runner thread
@@ -174,6 +214,54 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> {
 		}
 	}
 
+	/**
+	 * Hands the records of all partitions to the deserialization workers first and then emits
+	 * the deserialized values partition by partition, in fetch order. Emitting stays on the task
+	 * thread, so the offsets in the partition states advance exactly like in the sequential case.
+	 */
+	private void emitParallelDeserialized(
+			ConsumerRecords<byte[], byte[]> records,
+			ParallelRecordDeserializer<T> parallelDeserializer) throws Exception {
+
+		final List<KafkaTopicPartitionState<TopicPartition>> partitions = new ArrayList<>();
+		final List<List<ConsumerRecord<byte[], byte[]>>> partitionRecords = new ArrayList<>();
+		final List<List<Future<List<T>>>> partitionValues = new ArrayList<>();
+
+		for (KafkaTopicPartitionState<TopicPartition> partition : subscribedPartitionStates()) {
+			List<ConsumerRecord<byte[], byte[]>> recordsOfPartition =
+					records.records(partition.getKafkaPartitionHandle());
+
+			if (!recordsOfPartition.isEmpty()) {
+				partitions.add(partition);
+				partitionRecords.add(recordsOfPartition);
+				partitionValues.add(parallelDeserializer.deserialize(recordsOfPartition));
+			}
+		}
+
+		for (int i = 0; i < partitions.size(); i++) {
+			final KafkaTopicPartitionState<TopicPartition> partition = partitions.get(i);
+			final List<ConsumerRecord<byte[], byte[]>> recordsOfPartition = partitionRecords.get(i);
+			int recordIndex = 0;
+
+			chunks:
+			for (Future<List<T>> chunk : partitionValues.get(i)) {
+				for (T value : parallelDeserializer.getValues(chunk)) {
+					final ConsumerRecord<byte[], byte[]> record = recordsOfPartition.get(recordIndex++);
+
+					if (deserializer.isEndOfStream(value)) {
+						// end of stream signaled
+						running = false;
+						break chunks;
+					}
+
+					// emit the actual record. this also updates offset state atomically
+					// and deals with timestamps and watermark generation
+					emitRecord(value, partition, record.offset(), record);
+				}
+			}
+		}
+	}
+
 	@Override
 	public void cancel() {
 		// flag the main thread to exit. A thread interrupt will come anyways.
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.connectors.kafka.internal;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.streaming.connectors.kafka.KafkaDeserializationSchema;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.InstantiationUtil;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Deserializes the records of a fetched batch on a pool of worker threads, so that the task
+ * thread only has to emit the already deserialized values.
+ *
+ * <p>The records of a partition are split into contiguous chunks which are deserialized
+ * independently. The results are handed back per chunk in the original order, so the caller
+ * can emit them in the same order as they were fetched and keep the partition offsets
+ * consistent.
+ *
+ * <p>Because a {@link KafkaDeserializationSchema} is not necessarily thread-safe, every worker
+ * thread borrows its own copy of the schema from a pool for the duration of a chunk.
+ *
+ * @param <T> The type of elements produced by the deserialization schema.
+ */
+@Internal
+public class ParallelRecordDeserializer<T> implements AutoCloseable {
+
+	/** The minimum number of records per chunk, to keep the hand-over overhead amortized. */
+	static final int MIN_CHUNK_SIZE = 64;
+
+	private final int numThreads;
+
+	private final ClassLoader userCodeClassLoader;
+
+	private final ExecutorService executor;
+
+	/** Copies of the deserialization schema that are not currently used by a worker thread. */
+	private final BlockingQueue<KafkaDeserializationSchema<T>> deserializers;
+
+	public ParallelRecordDeserializer(
+			KafkaDeserializationSchema<T> deserializer,
+			int numThreads,
+			ClassLoader userCodeClassLoader,
+			String threadName) throws Exception {
+
+		checkNotNull(deserializer);
+		checkArgument(numThreads > 0, "The number of deserialization threads must be positive.");
+
+		this.numThreads = numThreads;
+		this.userCodeClassLoader = checkNotNull(userCodeClassLoader);
+		this.deserializers = new ArrayBlockingQueue<>(numThreads);
+		for (int i = 0; i < numThreads; i++) {
+			deserializers.add(InstantiationUtil.clone(deserializer, userCodeClassLoader));
+		}
+
+		this.executor = Executors.newFixedThreadPool(numThreads, new ExecutorThreadFactory(threadName));
+	}
+
+	/**
+	 * Starts deserializing the given records of a single partition.
+	 *
+	 * @param records The records to deserialize, in fetch order.
+	 * @return The pending chunks of deserialized values, in the order of the given records.
+	 */
+	public List<Future<List<T>>> deserialize(List<ConsumerRecord<byte[], byte[]>> records) {
+		final int numRecords = records.size();
+		if (numRecords == 0) {
+			return Collections.emptyList();
+		}
+
+		final int chunkSize = Math.max(MIN_CHUNK_SIZE, (numRecords + numThreads - 1) / numThreads);
+		final List<Future<List<T>>> chunks = new ArrayList<>((numRecords + chunkSize - 1) / chunkSize);
+
+		for (int start = 0; start < numRecords; start += chunkSize) {
+			final List<ConsumerRecord<byte[], byte[]>> chunk =
+				records.subList(start, Math.min(start + chunkSize, numRecords));
+			chunks.add(executor.submit(() -> deserializeChunk(chunk)));
+		}
+		return chunks;
+	}
+
+	/**
+	 * Waits for a chunk returned by {@link #deserialize(List)} and returns its values. Exceptions
+	 * thrown by the deserialization schema are rethrown as they are.
+	 */
+	public List<T> getValues(Future<List<T>> chunk) throws Exception {
+		try {
+			return chunk.get();
+		}
+		catch (ExecutionException e) {
+			ExceptionUtils.rethrowException(e.getCause(), e.getMessage());
+
+			// this statement cannot be reached since the above method always throws an exception
+			return Collections.emptyList();
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private List<T> deserializeChunk(List<ConsumerRecord<byte[], byte[]>> chunk) throws Exception {
+		final Thread thread = Thread.currentThread();
+		final ClassLoader previousClassLoader = thread.getContextClassLoader();
+		final KafkaDeserializationSchema<T> deserializer = deserializers.take();
+
+		try {
+			thread.setContextClassLoader(userCodeClassLoader);
+
+			final List<T> values = new ArrayList<>(chunk.size());
+			for (ConsumerRecord<byte[], byte[]> record : chunk) {
+				values.add(deserializer.deserialize(record));
+			}
+			return values;
+		}
+		finally {
+			thread.setContextClassLoader(previousClassLoader);
+			deserializers.add(deserializer);
+		}
+	}
+}
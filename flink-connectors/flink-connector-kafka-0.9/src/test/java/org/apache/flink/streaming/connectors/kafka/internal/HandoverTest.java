@@ -25,11 +25,13 @@ import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Random;
 import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 /**
@@ -56,6 +58,38 @@ public class HandoverTest {
 		runProducerConsumerTest(500, 2, 2);
 	}
 
+	@Test
+	public void testWithVariableBothAndMultipleSlots() throws Exception {
+		runProducerConsumerTest(500, 2, 2, 4);
+	}
+
+	@Test
+	public void testProduceBlocksOnlyWhenAllSlotsAreFull() throws Exception {
+		final Handover handover = new Handover(2);
+		final ConsumerRecords<byte[], byte[]> first = new ConsumerRecords<>(Collections.emptyMap());
+		final ConsumerRecords<byte[], byte[]> second = new ConsumerRecords<>(Collections.emptyMap());
+
+		handover.produce(first);
+
+		// there is still a free slot, so a woken up producer can still hand over
+		handover.wakeupProducer();
+		handover.produce(second);
+
+		handover.wakeupProducer();
+		try {
+			handover.produce(createTestRecords());
+			fail("should throw an exception");
+		}
+		catch (WakeupException e) {
+			// expected
+		}
+
+		// the elements are handed over in order
+		assertSame(first, handover.pollNext());
+		handover.produce(createTestRecords());
+		assertSame(second, handover.pollNext());
+	}
+
 	// ------------------------------------------------------------------------
 	//  test error propagation
 	// ------------------------------------------------------------------------
@@ -264,6 +298,15 @@ public class HandoverTest {
 	// ------------------------------------------------------------------------
 
 	private void runProducerConsumerTest(int numRecords, int maxProducerDelay, int maxConsumerDelay) throws Exception {
+		runProducerConsumerTest(numRecords, maxProducerDelay, maxConsumerDelay, 1);
+	}
+
+	private void runProducerConsumerTest(
+			int numRecords,
+			int maxProducerDelay,
+			int maxConsumerDelay,
+			int capacity) throws Exception {
+
 		// generate test data
 		@SuppressWarnings({"unchecked", "rawtypes"})
 		final ConsumerRecords<byte[], byte[]>[] data = new ConsumerRecords[numRecords];
@@ -271,7 +314,7 @@ public class HandoverTest {
 			data[i] = createTestRecords();
 		}
 
-		final Handover handover = new Handover();
+		final Handover handover = new Handover(capacity);
 
 		ProducerThread producer = new ProducerThread(handover, data, maxProducerDelay);
 		ConsumerThread consumer = new ConsumerThread(handover, data, maxConsumerDelay);
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.connectors.kafka.internal;
+
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.streaming.connectors.kafka.KafkaDeserializationSchema;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link ParallelRecordDeserializer}.
+ */
+public class ParallelRecordDeserializerTest {
+
+	@Test
+	public void testValuesAreReturnedInRecordOrder() throws Exception {
+		final int numRecords = 10 * ParallelRecordDeserializer.MIN_CHUNK_SIZE + 7;
+
+		final List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>(numRecords);
+		for (int i = 0; i < numRecords; i++) {
+			records.add(new ConsumerRecord<>("topic", 0, i, null, new byte[0]));
+		}
+
+		try (ParallelRecordDeserializer<Long> parallelDeserializer = new ParallelRecordDeserializer<>(
+				new OffsetDeserializationSchema(), 4, getClass().getClassLoader(), "test deserializer")) {
+
+			final List<Future<List<Long>>> chunks = parallelDeserializer.deserialize(records);
+			assertEquals(4, chunks.size());
+
+			final List<Long> values = new ArrayList<>(numRecords);
+			for (Future<List<Long>> chunk : chunks) {
+				values.addAll(parallelDeserializer.getValues(chunk));
+			}
+
+			assertEquals(numRecords, values.size());
+			for (int i = 0; i < numRecords; i++) {
+				assertEquals(Long.valueOf(i), values.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testDeserializationErrorIsRethrown() throws Exception {
+		final List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>();
+		records.add(new ConsumerRecord<>("topic", 0, 0L, null, new byte[0]));
+		records.add(new ConsumerRecord<>("topic", 0, -1L, null, new byte[0]));
+
+		try (ParallelRecordDeserializer<Long> parallelDeserializer = new ParallelRecordDeserializer<>(
+				new OffsetDeserializationSchema(), 2, getClass().getClassLoader(), "test deserializer")) {
+
+			final List<Future<List<Long>>> chunks = parallelDeserializer.deserialize(records);
+			assertEquals(1, chunks.size());
+
+			try {
+				parallelDeserializer.getValues(chunks.get(0));
+				fail("should throw an exception");
+			}
+			catch (IOException e) {
+				assertEquals(OffsetDeserializationSchema.class.getName(), e.getMessage());
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Deserializes a record to its offset and fails for negative offsets.
+	 */
+	private static final class OffsetDeserializationSchema implements KafkaDeserializationSchema<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean isEndOfStream(Long nextElement) {
+			return false;
+		}
+
+		@Override
+		public Long deserialize(ConsumerRecord<byte[], byte[]> record) throws Exception {
+			if (record.offset() < 0) {
+				throw new IOException(OffsetDeserializationSchema.class.getName());
+			}
+			return record.offset();
+		}
+
+		@Override
+		public TypeInformation<Long> getProducedType() {
+			return BasicTypeInfo.LONG_TYPE_INFO;
+		}
+	}
+}
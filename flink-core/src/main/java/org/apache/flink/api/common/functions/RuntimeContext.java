@@ -37,6 +37,8 @@ import org.apache.flink.api.common.state.MapState;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.ReducingState;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.metrics.MetricGroup;
@@ -486,4 +488,48 @@ public interface RuntimeContext {
 	 */
 	@PublicEvolving
 	<UK, UV> MapState<UK, UV> getMapState(MapStateDescriptor<UK, UV> stateProperties);
+
+	/**
+	 * Gets a handle to the system's key/value sorted map state. This state is similar to the state
+	 * accessed via {@link #getMapState(MapStateDescriptor)}, but keeps its mappings ordered by their
+	 * keys and supports range scans as well as access to the first and the last mapping.
+	 *
+	 * <p>This state is only accessible if the function is executed on a KeyedStream.
+	 *
+	 * <pre>{@code
+	 * DataStream<MyType> stream = ...;
+	 * KeyedStream<MyType> keyedStream = stream.keyBy("id");
+	 *
+	 * keyedStream.map(new RichMapFunction<MyType, MyType>() {
+	 *
+	 *     private SortedMapState<Long, MyType> state;
+	 *
+	 *     public void open(Configuration cfg) {
+	 *         state = getRuntimeContext().getSortedMapState(
+	 *                 new SortedMapStateDescriptor<>("latest", OrderPreservingLongSerializer.INSTANCE,
+	 *                         mySerializer, Comparator.<Long>naturalOrder()));
+	 *     }
+	 *
+	 *     public MyType map(MyType value) {
+	 *         state.put(value.getTimestamp(), value);
+	 *         return state.lastEntry().getValue();
+	 *     }
+	 * });
+	 *
+	 * }</pre>
+	 *
+	 * @param stateProperties The descriptor defining the properties of the stats.
+	 *
+	 * @param <UK> The type of the user keys stored in the state.
+	 * @param <UV> The type of the user values stored in the state.
+	 *
+	 * @return The partitioned state object.
+	 *
+	 * @throws UnsupportedOperationException Thrown, if no partitioned state is available for the
+	 *                                       function (function is not part of a KeyedStream).
+	 */
+	@PublicEvolving
+	default <UK, UV> SortedMapState<UK, UV> getSortedMapState(SortedMapStateDescriptor<UK, UV> stateProperties) {
+		throw new UnsupportedOperationException("Sorted map state is not supported by this runtime context.");
+	}
 }
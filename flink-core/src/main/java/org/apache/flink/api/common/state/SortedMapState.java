@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.common.state;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import javax.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * {@link MapState} whose mappings are kept ordered by their keys. In addition to the plain
+ * {@code MapState} operations, the state gives access to its first and last mapping and allows
+ * to iterate over a range of keys without touching the mappings outside of that range.
+ *
+ * <p>The order of the keys is defined by the comparator of the {@link SortedMapStateDescriptor}.
+ * All iterators of the state, including {@link #iterator()}, {@link #entries()}, {@link #keys()}
+ * and {@link #values()}, return the mappings in ascending key order.
+ *
+ * <p>The state is only accessible by functions applied on a {@code KeyedStream}. The key is
+ * automatically supplied by the system, so the function always sees the value mapped to the
+ * key of the current element.
+ *
+ * @param <UK> Type of the keys in the state.
+ * @param <UV> Type of the values in the state.
+ */
+@PublicEvolving
+public interface SortedMapState<UK, UV> extends MapState<UK, UV> {
+
+	/**
+	 * Returns the mapping with the smallest key in the state.
+	 *
+	 * @return The mapping with the smallest key, or {@code null} if the state is empty.
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	@Nullable
+	Map.Entry<UK, UV> firstEntry() throws Exception;
+
+	/**
+	 * Returns the mapping with the largest key in the state.
+	 *
+	 * @return The mapping with the largest key, or {@code null} if the state is empty.
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	@Nullable
+	Map.Entry<UK, UV> lastEntry() throws Exception;
+
+	/**
+	 * Iterates in ascending key order over the mappings whose keys are strictly less than
+	 * the given key.
+	 *
+	 * @param endKey The exclusive upper bound of the keys.
+	 * @return An iterator over the mappings in the range.
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	Iterator<Map.Entry<UK, UV>> headIterator(UK endKey) throws Exception;
+
+	/**
+	 * Iterates in ascending key order over the mappings whose keys are greater than or equal
+	 * to the given key.
+	 *
+	 * @param startKey The inclusive lower bound of the keys.
+	 * @return An iterator over the mappings in the range.
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	Iterator<Map.Entry<UK, UV>> tailIterator(UK startKey) throws Exception;
+
+	/**
+	 * Iterates in ascending key order over the mappings whose keys are greater than or equal
+	 * to {@code startKey} and strictly less than {@code endKey}.
+	 *
+	 * @param startKey The inclusive lower bound of the keys.
+	 * @param endKey The exclusive upper bound of the keys.
+	 * @return An iterator over the mappings in the range.
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	Iterator<Map.Entry<UK, UV>> subIterator(UK startKey, UK endKey) throws Exception;
+}
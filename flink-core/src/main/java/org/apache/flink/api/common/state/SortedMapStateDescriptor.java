@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.common.state;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.typeutils.OrderPreservingSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.MapSerializer;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link StateDescriptor} for {@link SortedMapState}. This can be used to create state where
+ * the type is a map whose mappings are ordered by their keys.
+ *
+ * <p>The order of the keys is defined by the given comparator. State backends that store the
+ * mappings in serialized form (like the RocksDB state backend) order them by the bytes of their
+ * serialized keys instead, compared lexicographically as unsigned bytes. The key serializer must
+ * therefore be an {@link OrderPreservingSerializer} whose serialized form preserves the order of
+ * the comparator, for example
+ * {@link org.apache.flink.api.common.typeutils.base.OrderPreservingLongSerializer} for
+ * {@code Long} keys together with {@link Comparator#naturalOrder()}.
+ *
+ * <p>To create keyed sorted map state (on a KeyedStream), use
+ * {@link KeyedStateStore#getSortedMapState(SortedMapStateDescriptor)}.
+ *
+ * <p>Note: Sorted map state does not support state time-to-live yet.
+ *
+ * @param <UK> The type of the keys that can be added to the map state.
+ * @param <UV> The type of the values that can be added to the map state.
+ */
+@PublicEvolving
+public class SortedMapStateDescriptor<UK, UV> extends StateDescriptor<SortedMapState<UK, UV>, Map<UK, UV>> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The comparator defining the order of the keys, must be serializable. */
+	private final Comparator<UK> userKeyComparator;
+
+	/**
+	 * Create a new {@code SortedMapStateDescriptor} with the given name, the given type serializers
+	 * and the given key comparator.
+	 *
+	 * @param name The name of the {@code SortedMapStateDescriptor}.
+	 * @param keySerializer The type serializer for the keys in the state.
+	 * @param valueSerializer The type serializer for the values in the state.
+	 * @param userKeyComparator The serializable comparator defining the order of the keys, which
+	 *                          must be the order preserved by the key serializer.
+	 *
+	 * @throws IllegalArgumentException Thrown, if the key serializer is no
+	 *                                  {@link OrderPreservingSerializer} or does not preserve the
+	 *                                  order of the comparator.
+	 */
+	public SortedMapStateDescriptor(
+			String name,
+			TypeSerializer<UK> keySerializer,
+			TypeSerializer<UV> valueSerializer,
+			Comparator<UK> userKeyComparator) {
+		super(name, new MapSerializer<>(keySerializer, valueSerializer), null);
+		this.userKeyComparator = checkComparator(keySerializer, userKeyComparator);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.SORTED_MAP;
+	}
+
+	/**
+	 * Gets the comparator defining the order of the keys in the state.
+	 *
+	 * @return The comparator for the keys in the state.
+	 */
+	public Comparator<UK> getUserKeyComparator() {
+		return userKeyComparator;
+	}
+
+	/**
+	 * Gets the serializer for the keys in the state.
+	 *
+	 * @return The serializer for the keys in the state.
+	 */
+	public TypeSerializer<UK> getKeySerializer() {
+		return getMapSerializer().getKeySerializer();
+	}
+
+	/**
+	 * Gets the serializer for the values in the state.
+	 *
+	 * @return The serializer for the values in the state.
+	 */
+	public TypeSerializer<UV> getValueSerializer() {
+		return getMapSerializer().getValueSerializer();
+	}
+
+	private MapSerializer<UK, UV> getMapSerializer() {
+		final TypeSerializer<Map<UK, UV>> rawSerializer = getSerializer();
+		if (!(rawSerializer instanceof MapSerializer)) {
+			throw new IllegalStateException("Unexpected serializer type.");
+		}
+
+		return (MapSerializer<UK, UV>) rawSerializer;
+	}
+
+	private static <UK> Comparator<UK> checkComparator(
+			TypeSerializer<UK> keySerializer,
+			Comparator<UK> userKeyComparator) {
+
+		checkNotNull(userKeyComparator, "The key comparator must not be null.");
+		checkArgument(userKeyComparator instanceof Serializable, "The key comparator must be serializable.");
+		checkArgument(keySerializer instanceof OrderPreservingSerializer,
+			"The key serializer %s does not preserve the order of the keys in serialized form.", keySerializer);
+		checkArgument(userKeyComparator.equals(((OrderPreservingSerializer<?>) keySerializer).getOrderComparator()),
+			"The key comparator %s does not define the order preserved by the key serializer %s.",
+			userKeyComparator, keySerializer);
+		return userKeyComparator;
+	}
+}
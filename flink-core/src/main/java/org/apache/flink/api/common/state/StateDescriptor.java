@@ -69,7 +69,8 @@ public abstract class StateDescriptor<S extends State, T> implements Serializabl
 		REDUCING,
 		FOLDING,
 		AGGREGATING,
-		MAP
+		MAP,
+		SORTED_MAP
 	}
 
 	private static final long serialVersionUID = 1L;
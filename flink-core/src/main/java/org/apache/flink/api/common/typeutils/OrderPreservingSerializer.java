@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.common.typeutils;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import java.util.Comparator;
+
+/**
+ * This interface is implemented by {@link TypeSerializer}s whose serialized form preserves the
+ * order of the values, i.e. the serialized bytes of two values compared lexicographically as
+ * unsigned bytes are in the same order as the two values compared with
+ * {@link #getOrderComparator()}.
+ *
+ * <p>State backends that keep the state in serialized form rely on this property to store sorted
+ * state, see {@link org.apache.flink.api.common.state.SortedMapStateDescriptor}.
+ *
+ * @param <T> The type of the values that the serializer serializes.
+ */
+@PublicEvolving
+public interface OrderPreservingSerializer<T> {
+
+	/**
+	 * Gets the serializable comparator that defines the order preserved by the serialized form.
+	 *
+	 * @return The comparator that defines the order preserved by the serialized form.
+	 */
+	Comparator<T> getOrderComparator();
+}
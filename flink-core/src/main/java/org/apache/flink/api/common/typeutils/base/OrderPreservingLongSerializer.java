@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.common.typeutils.base;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.typeutils.OrderPreservingSerializer;
+import org.apache.flink.api.common.typeutils.SimpleTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * Type serializer for {@code Long} whose serialized form preserves the numeric order of the values
+ * when compared lexicographically as unsigned bytes.
+ *
+ * <p>The value is written big-endian with its sign bit flipped, so that negative values sort before
+ * positive ones. This makes the serializer suitable as key serializer of a
+ * {@link org.apache.flink.api.common.state.SortedMapStateDescriptor}.
+ */
+@PublicEvolving
+public final class OrderPreservingLongSerializer extends TypeSerializerSingleton<Long> implements OrderPreservingSerializer<Long> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Sharable instance of the OrderPreservingLongSerializer. */
+	public static final OrderPreservingLongSerializer INSTANCE = new OrderPreservingLongSerializer();
+
+	private static final Long ZERO = 0L;
+
+	@Override
+	public boolean isImmutableType() {
+		return true;
+	}
+
+	@Override
+	public Long createInstance() {
+		return ZERO;
+	}
+
+	@Override
+	public Long copy(Long from) {
+		return from;
+	}
+
+	@Override
+	public Long copy(Long from, Long reuse) {
+		return from;
+	}
+
+	@Override
+	public int getLength() {
+		return Long.BYTES;
+	}
+
+	@Override
+	public void serialize(Long record, DataOutputView target) throws IOException {
+		target.writeLong(record ^ Long.MIN_VALUE);
+	}
+
+	@Override
+	public Long deserialize(DataInputView source) throws IOException {
+		return source.readLong() ^ Long.MIN_VALUE;
+	}
+
+	@Override
+	public Long deserialize(Long reuse, DataInputView source) throws IOException {
+		return deserialize(source);
+	}
+
+	@Override
+	public void copy(DataInputView source, DataOutputView target) throws IOException {
+		target.writeLong(source.readLong());
+	}
+
+	@Override
+	public Comparator<Long> getOrderComparator() {
+		return Comparator.naturalOrder();
+	}
+
+	@Override
+	public TypeSerializerSnapshot<Long> snapshotConfiguration() {
+		return new OrderPreservingLongSerializerSnapshot();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Serializer configuration snapshot for compatibility and format evolution.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final class OrderPreservingLongSerializerSnapshot extends SimpleTypeSerializerSnapshot<Long> {
+
+		public OrderPreservingLongSerializerSnapshot() {
+			super(() -> INSTANCE);
+		}
+	}
+}
@@ -122,6 +122,64 @@ public class CheckpointingOptions {
 				"in a Flink supported filesystem. The storage path must be accessible from all participating processes/nodes" +
 				"(i.e. all TaskManagers and JobManagers).");
 
+	/**
+	 * Option whether the heap keyed state backend of the {@code FsStateBackend} spills the state of cold key-groups
+	 * to local disk when the heap usage exceeds the watermark, see {@link #HEAP_SPILL_WATERMARK}. Spilling requires
+	 * synchronous snapshots, see {@link #ASYNC_SNAPSHOTS}.
+	 */
+	public static final ConfigOption<Boolean> HEAP_SPILL_ENABLED = ConfigOptions
+			.key("state.backend.fs.heap-spill.enabled")
+			.defaultValue(false)
+			.withDescription("Option whether the FsStateBackend moves the keyed state of cold key-groups to files in the" +
+				" temporary directories when the heap usage exceeds the watermark, and loads it back when it is accessed." +
+				" This allows for keyed state that is larger than the heap. The trade-off is that the keyed state is" +
+				" snapshotted synchronously, which blocks the processing for the duration of the snapshot. Spilling" +
+				" therefore requires 'state.backend.async' to be set to false.");
+
+	/**
+	 * The fraction of the maximum heap size above which the heap keyed state backend starts to spill, if spilling is
+	 * enabled.
+	 */
+	public static final ConfigOption<Float> HEAP_SPILL_WATERMARK = ConfigOptions
+			.key("state.backend.fs.heap-spill.watermark")
+			.defaultValue(0.8f)
+			.withDescription("The fraction of the maximum heap size that the live heap (measured after garbage collection)" +
+				" may occupy before the FsStateBackend starts to spill the keyed state of the least recently accessed" +
+				" key-groups. Only used if spilling is enabled.");
+
+	/**
+	 * The maximum number of delta snapshots that an incremental checkpoint of the heap keyed state backend of the
+	 * {@code FsStateBackend} builds upon a full snapshot, see {@link #INCREMENTAL_CHECKPOINTS}.
+	 */
+	public static final ConfigOption<Integer> HEAP_INCREMENTAL_MAX_DELTAS = ConfigOptions
+			.key("state.backend.fs.incremental.max-deltas")
+			.defaultValue(10)
+			.withDescription("The maximum number of delta snapshots that an incremental checkpoint of the FsStateBackend" +
+				" consists of in addition to the full snapshot they apply to. Once this number is reached, or once the" +
+				" deltas are larger than the full snapshot, the next checkpoint writes a new full snapshot. Only used" +
+				" if incremental checkpoints are enabled.");
+
+	/**
+	 * Option whether the heap keyed state backend of the {@code FsStateBackend} organizes its timers as hierarchical
+	 * timing wheels, see {@link #HEAP_TIMING_WHEEL_RESOLUTION}.
+	 */
+	public static final ConfigOption<Boolean> HEAP_TIMING_WHEEL_ENABLED = ConfigOptions
+			.key("state.backend.fs.timer-service.timing-wheel.enabled")
+			.defaultValue(false)
+			.withDescription("Option whether the FsStateBackend organizes the timers of each key-group as a hierarchical" +
+				" timing wheel instead of a binary heap. Registering and deleting timers takes constant time, which helps" +
+				" jobs with many timers. The format of snapshots does not depend on this option.");
+
+	/**
+	 * The resolution of the timing wheels of the heap keyed state backend, if they are enabled.
+	 */
+	public static final ConfigOption<Long> HEAP_TIMING_WHEEL_RESOLUTION = ConfigOptions
+			.key("state.backend.fs.timer-service.timing-wheel.resolution")
+			.defaultValue(100L)
+			.withDescription("The resolution (in milliseconds) of the timing wheels of the FsStateBackend. Timers within" +
+				" one interval of this length are only ordered when the interval becomes due. Only used if timing wheels" +
+				" are enabled.");
+
 	/** The minimum size of state data files. All state chunks smaller than that
 	 * are stored inline in the root checkpoint metadata file. */
 	public static final ConfigOption<Integer> FS_SMALL_FILE_THRESHOLD = ConfigOptions
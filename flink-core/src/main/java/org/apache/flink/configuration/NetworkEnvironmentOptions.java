@@ -62,6 +62,72 @@ public class NetworkEnvironmentOptions {
 			.defaultValue(false)
 			.withDescription("Boolean flag to enable/disable more detailed metrics about inbound/outbound network queue lengths.");
 
+	/**
+	 * Boolean flag to enable/disable the compression of network buffers of pipelined and blocking
+	 * result partitions.
+	 */
+	public static final ConfigOption<Boolean> NETWORK_COMPRESSION_ENABLED =
+		key("taskmanager.network.compression.enabled")
+			.defaultValue(false)
+			.withDescription("Boolean flag to enable/disable the compression of network buffers. If enabled, the data" +
+				" buffers of pipelined and blocking result partitions are compressed before they are sent or written" +
+				" to disk, and decompressed by the consuming input gate. Compression trades CPU for less network and" +
+				" disk I/O.");
+
+	/**
+	 * The codec used to compress network buffers if {@link #NETWORK_COMPRESSION_ENABLED} is set.
+	 */
+	public static final ConfigOption<String> NETWORK_COMPRESSION_CODEC =
+		key("taskmanager.network.compression.codec")
+			.defaultValue("LZ4")
+			.withDescription("The codec used to compress network buffers, if the compression is enabled. Currently only" +
+				" \"LZ4\" is supported out of the box; alternatively, the name of a class implementing" +
+				" org.apache.flink.runtime.io.compression.BlockCompressionFactory can be given.");
+
+	/**
+	 * Boolean flag to enable/disable the handover of records as objects between co-located tasks.
+	 */
+	public static final ConfigOption<Boolean> NETWORK_LOCAL_OBJECT_HANDOVER_ENABLED =
+		key("taskmanager.network.local-object-handover.enabled")
+			.defaultValue(false)
+			.withDescription("Boolean flag to enable/disable the handover of records as objects between streaming" +
+				" tasks in the same TaskManager. If enabled, the records of pipelined partitions that are consumed" +
+				" locally are passed to the consumer through a bounded queue instead of being serialized into network" +
+				" buffers. The records are always copied with their serializer, also if object reuse is enabled." +
+				" This requires credit-based flow control.");
+
+	/**
+	 * The number of records after which a producer makes its records available to a co-located consumer.
+	 */
+	public static final ConfigOption<Integer> NETWORK_LOCAL_OBJECT_HANDOVER_BATCH_SIZE =
+		key("taskmanager.network.local-object-handover.batch-size")
+			.defaultValue(128)
+			.withDescription("The number of records after which a producer hands over its records to a co-located" +
+				" consumer, if the handover of objects is enabled. Fewer records are handed over when the output is" +
+				" flushed, e.g. after the buffer timeout.");
+
+	/**
+	 * The number of records that can be queued for a co-located consumer.
+	 */
+	public static final ConfigOption<Integer> NETWORK_LOCAL_OBJECT_HANDOVER_QUEUE_CAPACITY =
+		key("taskmanager.network.local-object-handover.queue-capacity")
+			.defaultValue(1024)
+			.withDescription("The maximum number of records that are queued for a co-located consumer, if the" +
+				" handover of objects is enabled. A producer that finds the queue full is back pressured.");
+
+	/**
+	 * The idle timeout in milliseconds after which a channel of an output with a buffer timeout is
+	 * flushed, which enables the adaptive output flushing.
+	 */
+	public static final ConfigOption<Long> NETWORK_OUTPUT_FLUSH_IDLE_TIMEOUT =
+		key("taskmanager.network.output-flush.idle-timeout")
+			.defaultValue(-1L)
+			.withDescription("Enables the adaptive flushing of the outputs with a buffer timeout, if set to a positive" +
+				" number of milliseconds that is smaller than the buffer timeout. A channel of such an output is then" +
+				" flushed as soon as no data has been written to it for the idle timeout, and otherwise once its oldest" +
+				" unflushed data has waited for the buffer timeout, so that the buffers of busy channels can fill up." +
+				" By default (-1), all channels are flushed every buffer timeout.");
+
 	/**
 	 * Boolean flag to enable/disable network credit-based flow control.
 	 *
@@ -140,6 +206,56 @@ public class NetworkEnvironmentOptions {
 				" help relieve back-pressure caused by unbalanced data distribution among the subpartitions. This value should be" +
 				" increased in case of higher round trip times between nodes and/or larger number of machines in the cluster.");
 
+	/**
+	 * Boolean flag to enable/disable the automatic adjustment of the buffer sizes and floating credits
+	 * of the input gates to their measured throughput.
+	 */
+	public static final ConfigOption<Boolean> NETWORK_BUFFER_DEBLOAT_ENABLED =
+		key("taskmanager.network.memory.buffer-debloat.enabled")
+			.defaultValue(false)
+			.withDescription("Boolean flag to enable/disable the buffer debloating. If enabled, every input gate measures" +
+				" the throughput of its consumer and asks the producers to send buffers that are just large enough to keep" +
+				" the in-flight data of the gate at about \"taskmanager.network.memory.buffer-debloat.target\". Once the" +
+				" buffers have their minimum size, the gate also announces fewer floating credits. This bounds the in-flight" +
+				" data under back pressure, which lets checkpoint barriers pass faster. It requires credit-based flow control.");
+
+	/**
+	 * The time that the in-flight data of an input gate should take to be consumed.
+	 */
+	public static final ConfigOption<Long> NETWORK_BUFFER_DEBLOAT_TARGET =
+		key("taskmanager.network.memory.buffer-debloat.target")
+			.defaultValue(1000L)
+			.withDescription("The time in milliseconds that the consumer of an input gate should need to process the" +
+				" in-flight data of the gate, if the buffer debloating is enabled.");
+
+	/**
+	 * The interval in which the buffer size of an input gate is recalculated.
+	 */
+	public static final ConfigOption<Long> NETWORK_BUFFER_DEBLOAT_PERIOD =
+		key("taskmanager.network.memory.buffer-debloat.period")
+			.defaultValue(200L)
+			.withDescription("The minimum interval in milliseconds between two recalculations of the buffer size of an" +
+				" input gate, if the buffer debloating is enabled.");
+
+	/**
+	 * The minimum size of a debloated buffer.
+	 */
+	public static final ConfigOption<Integer> NETWORK_BUFFER_DEBLOAT_MIN_BUFFER_SIZE =
+		key("taskmanager.network.memory.buffer-debloat.min-buffer-size")
+			.defaultValue(1024)
+			.withDescription("The minimum size in bytes of the buffers that an input gate asks for, if the buffer" +
+				" debloating is enabled. The maximum size is the size of the memory segments.");
+
+	/**
+	 * The minimum relative change of the buffer size that is announced to the producers.
+	 */
+	public static final ConfigOption<Integer> NETWORK_BUFFER_DEBLOAT_THRESHOLD_PERCENTAGES =
+		key("taskmanager.network.memory.buffer-debloat.threshold-percentages")
+			.defaultValue(25)
+			.withDescription("The minimum difference in percent between a recalculated and the announced buffer size," +
+				" which is required to announce the new buffer size to the producers. This avoids sending a message" +
+				" for every small fluctuation of the throughput.");
+
 	// ------------------------------------------------------------------------
 	//  Netty Options
 	// ------------------------------------------------------------------------
@@ -185,7 +301,10 @@ public class NetworkEnvironmentOptions {
 		key("taskmanager.network.netty.transport")
 			.defaultValue("nio")
 			.withDeprecatedKeys("taskmanager.net.transport")
-			.withDescription("The Netty transport type, either \"nio\" or \"epoll\"");
+			.withDescription("The Netty transport type, either \"nio\", \"epoll\" or \"auto\". The native \"epoll\"" +
+				" transport is only available on Linux, \"auto\" uses it if available and \"nio\" otherwise." +
+				" Both transports send file-backed blocking partitions to remote consumers without copying them" +
+				" into the user space if SSL is disabled.");
 
 	// ------------------------------------------------------------------------
 	//  Partition Request Options
@@ -62,4 +62,17 @@ public class OptimizerOptions {
 				" length of a single sample exceeds this value (possible because of misconfiguration of the parser)," +
 				" the sampling aborts. This value can be overridden for a specific input with the input format’s" +
 				" parameters.");
+
+	/**
+	 * Whether blocking data exchanges sort the records of all subpartitions in a shared buffer and write them
+	 * into one file per partition, instead of one file per subpartition.
+	 */
+	public static final ConfigOption<Boolean> SORT_MERGE_BLOCKING_SHUFFLE =
+		key("compiler.blocking-shuffle.sort-merge")
+			.defaultValue(false)
+			.withDescription("Whether blocking data exchanges sort the records of all subpartitions of a result" +
+				" partition by subpartition in a buffer shared by all subpartitions, and write them to a single" +
+				" data file plus an index file, instead of writing one file per subpartition. The spilled regions" +
+				" are merged, so each subpartition is read sequentially. This reduces the number of files, the" +
+				" memory for writing, and random I/O for exchanges with a high parallelism.");
 }
@@ -299,7 +299,8 @@ public class TaskManagerOptions {
 	/**
 	 * The maximum number of bytes that a checkpoint alignment may buffer.
 	 * If the checkpoint alignment buffers more than the configured amount of
-	 * data, the checkpoint is aborted (skipped).
+	 * data, the checkpoint is aborted (skipped). For unaligned checkpoints, the limit
+	 * applies to the in-flight records that are persisted with the checkpoint.
 	 *
 	 * <p>The default value of {@code -1} indicates that there is no limit.
 	 */
@@ -308,6 +309,7 @@ public class TaskManagerOptions {
 			.defaultValue(-1L)
 			.withDescription("The maximum number of bytes that a checkpoint alignment may buffer. If the checkpoint" +
 				" alignment buffers more than the configured amount of data, the checkpoint is aborted (skipped)." +
+				" For unaligned checkpoints, the limit applies to the in-flight records of a checkpoint." +
 				" A value of -1 indicates that there is no limit.");
 
 	// ------------------------------------------------------------------------
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.common.state;
+
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.OrderPreservingLongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.testutils.CommonTestUtils;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link SortedMapStateDescriptor}.
+ */
+public class SortedMapStateDescriptorTest {
+
+	@Test
+	public void testSortedMapStateDescriptor() throws Exception {
+		SortedMapStateDescriptor<Long, String> descr = new SortedMapStateDescriptor<>(
+			"testName", OrderPreservingLongSerializer.INSTANCE, StringSerializer.INSTANCE, Comparator.<Long>naturalOrder());
+
+		assertEquals("testName", descr.getName());
+		assertEquals(OrderPreservingLongSerializer.INSTANCE, descr.getKeySerializer());
+		assertEquals(StringSerializer.INSTANCE, descr.getValueSerializer());
+		assertEquals(Comparator.<Long>naturalOrder(), descr.getUserKeyComparator());
+
+		SortedMapStateDescriptor<Long, String> copy = CommonTestUtils.createCopySerializable(descr);
+
+		assertEquals("testName", copy.getName());
+		assertEquals(OrderPreservingLongSerializer.INSTANCE, copy.getKeySerializer());
+		assertEquals(Comparator.<Long>naturalOrder(), copy.getUserKeyComparator());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsKeySerializerWithoutOrder() {
+		// the two's complement form of negative values sorts after the positive values
+		new SortedMapStateDescriptor<>(
+			"testName", LongSerializer.INSTANCE, StringSerializer.INSTANCE, Comparator.<Long>naturalOrder());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsComparatorWithDifferentOrder() {
+		new SortedMapStateDescriptor<>(
+			"testName", OrderPreservingLongSerializer.INSTANCE, StringSerializer.INSTANCE, Comparator.<Long>reverseOrder());
+	}
+}
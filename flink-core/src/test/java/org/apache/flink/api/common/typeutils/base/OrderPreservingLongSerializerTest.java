@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.common.typeutils.base;
+
+import org.apache.flink.api.common.typeutils.SerializerTestBase;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A test for the {@link OrderPreservingLongSerializer}.
+ */
+public class OrderPreservingLongSerializerTest extends SerializerTestBase<Long> {
+
+	@Override
+	protected TypeSerializer<Long> createSerializer() {
+		return new OrderPreservingLongSerializer();
+	}
+
+	@Override
+	protected int getLength() {
+		return 8;
+	}
+
+	@Override
+	protected Class<Long> getTypeClass() {
+		return Long.class;
+	}
+
+	@Override
+	protected Long[] getTestData() {
+		Random rnd = new Random(874597969123412341L);
+		long rndLong = rnd.nextLong();
+
+		return new Long[] {0L, 1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, rndLong, -rndLong};
+	}
+
+	@Test
+	public void testSerializedFormPreservesOrder() throws IOException {
+		Long[] values = getTestData();
+		Arrays.sort(values);
+
+		for (int i = 1; i < values.length; i++) {
+			byte[] smaller = serialize(values[i - 1]);
+			byte[] larger = serialize(values[i]);
+			assertTrue(compareUnsigned(smaller, larger) < 0);
+		}
+	}
+
+	private static byte[] serialize(long value) throws IOException {
+		DataOutputSerializer out = new DataOutputSerializer(8);
+		OrderPreservingLongSerializer.INSTANCE.serialize(value, out);
+		return out.getCopyOfBuffer();
+	}
+
+	private static int compareUnsigned(byte[] a, byte[] b) {
+		for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return a.length - b.length;
+	}
+}
@@ -21,6 +21,7 @@ package org.apache.flink.cep.operator;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.functions.util.FunctionUtils;
+import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.MapState;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.ValueState;
@@ -42,14 +43,17 @@ import org.apache.flink.cep.nfa.sharedbuffer.SharedBuffer;
 import org.apache.flink.cep.nfa.sharedbuffer.SharedBufferAccessor;
 import org.apache.flink.cep.time.TimerService;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.runtime.state.KeyedStateFunction;
 import org.apache.flink.runtime.state.StateInitializationContext;
 import org.apache.flink.runtime.state.VoidNamespace;
 import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.internal.InternalListState;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
 import org.apache.flink.streaming.api.operators.InternalTimer;
 import org.apache.flink.streaming.api.operators.InternalTimerService;
+import org.apache.flink.streaming.api.operators.InternalTimerServiceImpl;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.api.operators.TimestampedCollector;
@@ -58,22 +62,27 @@ import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
 import org.apache.flink.util.OutputTag;
 import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.function.BiConsumerWithException;
 
 import javax.annotation.Nullable;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * CEP pattern operator for a keyed input stream. For each key, the operator creates
- * a {@link NFA} and a priority queue to buffer out of order elements. Both data structures are
+ * a {@link NFA} and a buffer for out of order elements. Both data structures are
  * stored using the managed keyed state.
  *
+ * <p>The buffered elements of a key are appended to a list state, with their timestamp as namespace.
+ * For every timestamp with buffered elements, a timer is registered, so the timer service keeps
+ * the buffered timestamps of all keys in order. When time advances, only the timestamps that
+ * became ready are worked off, without inspecting the rest of the buffer.
+ *
  * @param <IN> Type of the input elements
  * @param <KEY> Type of the key on which the input stream is keyed
  * @param <OUT> Type of the output elements
@@ -93,11 +102,12 @@ public class CepOperator<IN, KEY, OUT>
 
 	private static final String NFA_STATE_NAME = "nfaStateName";
 	private static final String EVENT_QUEUE_STATE_NAME = "eventQueuesStateName";
+	private static final String EVENT_BUFFER_STATE_NAME = "eventBufferStateName";
 
 	private final NFACompiler.NFAFactory<IN> nfaFactory;
 
 	private transient ValueState<NFAState> computationStates;
-	private transient MapState<Long, List<IN>> elementQueueState;
+	private transient InternalListState<KEY, Long, IN> elementBufferState;
 	private transient SharedBuffer<IN> partialMatches;
 
 	private transient InternalTimerService<VoidNamespace> timerService;
@@ -177,11 +187,9 @@ public class CepOperator<IN, KEY, OUT>
 
 		partialMatches = new SharedBuffer<>(context.getKeyedStateStore(), inputSerializer);
 
-		elementQueueState = context.getKeyedStateStore().getMapState(
-				new MapStateDescriptor<>(
-						EVENT_QUEUE_STATE_NAME,
-						LongSerializer.INSTANCE,
-						new ListSerializer<>(inputSerializer)));
+		elementBufferState = (InternalListState<KEY, Long, IN>) getOrCreateKeyedState(
+				LongSerializer.INSTANCE,
+				new ListStateDescriptor<>(EVENT_BUFFER_STATE_NAME, inputSerializer));
 
 		migrateOldState();
 	}
@@ -215,6 +223,8 @@ public class CepOperator<IN, KEY, OUT>
 				VoidNamespaceSerializer.INSTANCE,
 				this);
 
+		migrateOldElementQueue();
+
 		nfa = nfaFactory.createNFA();
 		nfa.open(cepRuntimeContext, new Configuration());
 
@@ -223,6 +233,43 @@ public class CepOperator<IN, KEY, OUT>
 		cepTimerService = new TimerServiceImpl();
 	}
 
+	/**
+	 * Moves the elements of the per-key map of buffered elements, which was used before the
+	 * timestamp-ordered buffer, into the buffer.
+	 *
+	 * <p>The old map state is only accessed if it was restored with elements, otherwise accessing
+	 * it would register it with the backend and make it part of every snapshot of the operator.
+	 */
+	private void migrateOldElementQueue() throws Exception {
+		KeyedStateBackend<KEY> backend = getKeyedStateBackend();
+		try (Stream<KEY> keysWithOldElements = backend.getKeys(EVENT_QUEUE_STATE_NAME, VoidNamespace.INSTANCE)) {
+			if (!keysWithOldElements.findAny().isPresent()) {
+				return;
+			}
+		}
+
+		backend.applyToAllKeys(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new MapStateDescriptor<>(
+				EVENT_QUEUE_STATE_NAME,
+				LongSerializer.INSTANCE,
+				new ListSerializer<>(inputSerializer)),
+			new KeyedStateFunction<KEY, MapState<Long, List<IN>>>() {
+				@Override
+				public void process(KEY key, MapState<Long, List<IN>> state) throws Exception {
+					for (Map.Entry<Long, List<IN>> elementsForTimestamp : state.entries()) {
+						long timestamp = elementsForTimestamp.getKey();
+						elementBufferState.setCurrentNamespace(timestamp);
+						elementBufferState.addAll(elementsForTimestamp.getValue());
+						registerBufferTimer(timestamp);
+					}
+					state.clear();
+				}
+			}
+		);
+	}
+
 	@Override
 	public void close() throws Exception {
 		super.close();
@@ -244,9 +291,6 @@ public class CepOperator<IN, KEY, OUT>
 			} else {
 				long currentTime = timerService.currentProcessingTime();
 				bufferEvent(element.getValue(), currentTime);
-
-				// register a timer for the next millisecond to sort and emit buffered data
-				timerService.registerProcessingTimeTimer(VoidNamespace.INSTANCE, currentTime + 1);
 			}
 
 		} else {
@@ -263,8 +307,6 @@ public class CepOperator<IN, KEY, OUT>
 				// we have an event with a valid timestamp, so
 				// we buffer it until we receive the proper watermark.
 
-				saveRegisterWatermarkTimer();
-
 				bufferEvent(value, timestamp);
 
 			} else if (lateDataOutputTag != null) {
@@ -287,103 +329,114 @@ public class CepOperator<IN, KEY, OUT>
 	}
 
 	private void bufferEvent(IN event, long currentTime) throws Exception {
-		List<IN> elementsForTimestamp =  elementQueueState.get(currentTime);
-		if (elementsForTimestamp == null) {
-			elementsForTimestamp = new ArrayList<>();
-		}
+		elementBufferState.setCurrentNamespace(currentTime);
 
 		if (getExecutionConfig().isObjectReuseEnabled()) {
 			// copy the StreamRecord so that it cannot be changed
-			elementsForTimestamp.add(inputSerializer.copy(event));
+			elementBufferState.add(inputSerializer.copy(event));
 		} else {
-			elementsForTimestamp.add(event);
+			elementBufferState.add(event);
+		}
+
+		registerBufferTimer(currentTime);
+	}
+
+	/**
+	 * Registers the timer which works off the elements buffered for the given timestamp. In
+	 * processing time, this is a timer for the next millisecond, in event time a timer for the
+	 * timestamp itself.
+	 */
+	private void registerBufferTimer(long timestamp) {
+		if (isProcessingTime) {
+			timerService.registerProcessingTimeTimer(VoidNamespace.INSTANCE, timestamp + 1);
+		} else {
+			timerService.registerEventTimeTimer(VoidNamespace.INSTANCE, timestamp);
 		}
-		elementQueueState.put(currentTime, elementsForTimestamp);
 	}
 
 	@Override
 	public void onEventTime(InternalTimer<KEY, VoidNamespace> timer) throws Exception {
 
-		// 1) get the queue of pending elements for the key and the corresponding NFA,
-		// 2) process the pending elements in event time order and custom comparator if exists
-		//		by feeding them in the NFA
-		// 3) advance the time to the current watermark, so that expired patterns are discarded.
-		// 4) update the stored state for the key, by only storing the new NFA and MapState iff they
-		//		have state to be used later.
-		// 5) update the last seen watermark.
+		// The timers of a key fire in timestamp order, one for each timestamp with buffered elements
+		// that is covered by the watermark. On each of them:
+		// 1) process the elements buffered for the timer's timestamp in the order of the custom
+		//		comparator if exists, by feeding them in the NFA
+		// 2) if this was the last timestamp covered by the watermark, advance the time to the current
+		//		watermark, so that expired patterns are discarded. Otherwise make sure that this happens
+		//		after the remaining timestamps of the key were processed.
+		// 3) update the stored state for the key, by only storing the new NFA iff it has changed.
+		// 4) update the last seen watermark.
+
+		final long timestamp = timer.getTimestamp();
+		final long currentWatermark = timerService.currentWatermark();
+		NFAState nfaState = getNFAState();
 
 		// STEP 1
-		PriorityQueue<Long> sortedTimestamps = getSortedTimestamps();
-		NFAState nfaState = getNFAState();
+		processBufferedEvents(nfaState, timestamp);
 
 		// STEP 2
-		while (!sortedTimestamps.isEmpty() && sortedTimestamps.peek() <= timerService.currentWatermark()) {
-			long timestamp = sortedTimestamps.poll();
-			advanceTime(nfaState, timestamp);
-			try (Stream<IN> elements = sort(elementQueueState.get(timestamp))) {
-				elements.forEachOrdered(
-					event -> {
-						try {
-							processEvent(nfaState, event, timestamp);
-						} catch (Exception e) {
-							throw new RuntimeException(e);
-						}
-					}
-				);
+		if (timestamp < currentWatermark) {
+			if (!partialMatches.isEmpty()) {
+				// fires within the current watermark advancement, after all earlier timers of the key
+				timerService.registerEventTimeTimer(VoidNamespace.INSTANCE, currentWatermark);
+			}
+		} else {
+			advanceTime(nfaState, currentWatermark);
+
+			if (!partialMatches.isEmpty()) {
+				saveRegisterWatermarkTimer();
 			}
-			elementQueueState.remove(timestamp);
 		}
 
 		// STEP 3
-		advanceTime(nfaState, timerService.currentWatermark());
-
-		// STEP 4
 		updateNFA(nfaState);
 
-		if (!sortedTimestamps.isEmpty() || !partialMatches.isEmpty()) {
-			saveRegisterWatermarkTimer();
-		}
-
-		// STEP 5
-		updateLastSeenWatermark(timerService.currentWatermark());
+		// STEP 4
+		updateLastSeenWatermark(currentWatermark);
 	}
 
 	@Override
 	public void onProcessingTime(InternalTimer<KEY, VoidNamespace> timer) throws Exception {
-		// 1) get the queue of pending elements for the key and the corresponding NFA,
-		// 2) process the pending elements in process time order and custom comparator if exists
-		//		by feeding them in the NFA
-		// 3) update the stored state for the key, by only storing the new NFA and MapState iff they
-		//		have state to be used later.
+		// 1) process the elements buffered in the millisecond before the timer in the order of the
+		//		custom comparator if exists, by feeding them in the NFA
+		// 2) update the stored state for the key, by only storing the new NFA iff it has changed.
 
 		// STEP 1
-		PriorityQueue<Long> sortedTimestamps = getSortedTimestamps();
 		NFAState nfa = getNFAState();
+		processBufferedEvents(nfa, timer.getTimestamp() - 1);
 
 		// STEP 2
-		while (!sortedTimestamps.isEmpty()) {
-			long timestamp = sortedTimestamps.poll();
-			advanceTime(nfa, timestamp);
-			try (Stream<IN> elements = sort(elementQueueState.get(timestamp))) {
-				elements.forEachOrdered(
-					event -> {
-						try {
-							processEvent(nfa, event, timestamp);
-						} catch (Exception e) {
-							throw new RuntimeException(e);
-						}
-					}
-				);
-			}
-			elementQueueState.remove(timestamp);
+		updateNFA(nfa);
+	}
+
+	/**
+	 * Feeds the elements buffered for the given timestamp to the NFA and removes them from the buffer.
+	 */
+	private void processBufferedEvents(NFAState nfaState, long timestamp) throws Exception {
+		elementBufferState.setCurrentNamespace(timestamp);
+
+		Iterable<IN> bufferedElements = elementBufferState.get();
+		if (bufferedElements == null) {
+			return;
 		}
 
-		// STEP 3
-		updateNFA(nfa);
+		advanceTime(nfaState, timestamp);
+		try (Stream<IN> elements = sort(bufferedElements)) {
+			elements.forEachOrdered(
+				event -> {
+					try {
+						processEvent(nfaState, event, timestamp);
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			);
+		}
+		elementBufferState.clear();
 	}
 
-	private Stream<IN> sort(Collection<IN> elements) {
-		Stream<IN> stream = elements.stream();
+	private Stream<IN> sort(Iterable<IN> elements) {
+		Stream<IN> stream = StreamSupport.stream(elements.spliterator(), false);
 		return (comparator == null) ? stream : stream.sorted(comparator);
 	}
 
@@ -403,14 +456,6 @@ public class CepOperator<IN, KEY, OUT>
 		}
 	}
 
-	private PriorityQueue<Long> getSortedTimestamps() throws Exception {
-		PriorityQueue<Long> sortedTimestamps = new PriorityQueue<>();
-		for (Long timestamp : elementQueueState.keys()) {
-			sortedTimestamps.offer(timestamp);
-		}
-		return sortedTimestamps;
-	}
-
 	/**
 	 * Process the given event by giving it to the NFA and outputting the produced set of matched
 	 * event sequences.
@@ -534,17 +579,32 @@ public class CepOperator<IN, KEY, OUT>
 
 	@VisibleForTesting
 	boolean hasNonEmptyPQ(KEY key) throws Exception {
-		setCurrentKey(key);
-		return elementQueueState.keys().iterator().hasNext();
+		return getPQSize(key) > 0;
 	}
 
 	@VisibleForTesting
 	int getPQSize(KEY key) throws Exception {
-		setCurrentKey(key);
-		int counter = 0;
-		for (List<IN> elements: elementQueueState.values()) {
-			counter += elements.size();
+		final int[] counter = {0};
+		final BiConsumerWithException<VoidNamespace, Long, Exception> countBufferedElements =
+			(namespace, timestamp) -> {
+				if (key.equals(getCurrentKey())) {
+					elementBufferState.setCurrentNamespace(isProcessingTime ? timestamp - 1 : timestamp);
+					Iterable<IN> elements = elementBufferState.get();
+					if (elements != null) {
+						for (IN ignored : elements) {
+							counter[0]++;
+						}
+					}
+				}
+			};
+
+		InternalTimerServiceImpl<?, VoidNamespace> timers = (InternalTimerServiceImpl<?, VoidNamespace>) timerService;
+		if (isProcessingTime) {
+			timers.forEachProcessingTimeTimer(countBufferedElements);
+		} else {
+			timers.forEachEventTimeTimer(countBufferedElements);
 		}
-		return counter;
+		setCurrentKey(key);
+		return counter[0];
 	}
 }
@@ -581,10 +581,10 @@ public class CEPOperatorTest extends TestLogger {
 			harness.processElement(new StreamRecord<>(startEvent1, 1L));
 			harness.processElement(new StreamRecord<>(startEventK2, 1L));
 
-			// there must be 2 keys 42, 43 registered for the watermark callback
-			// all the seen elements must be in the priority queues but no NFA yet.
+			// there must be a timer for each buffered timestamp of the keys 42 (1, 2, 3) and 43 (1)
+			// all the seen elements must be in the buffers but no NFA yet.
 
-			assertEquals(2L, harness.numEventTimeTimers());
+			assertEquals(4L, harness.numEventTimeTimers());
 			assertEquals(4L, operator.getPQSize(42));
 			assertEquals(1L, operator.getPQSize(43));
 			assertTrue(!operator.hasNonEmptySharedBuffer(42));
@@ -682,7 +682,8 @@ public class CEPOperatorTest extends TestLogger {
 			harness.processElement(new StreamRecord<>(middle1Event1, 3));
 			harness.processElement(new StreamRecord<>(new Event(41, "d", 6.0), 5));
 
-			assertEquals(1L, harness.numEventTimeTimers());
+			// one timer for each of the buffered timestamps 1, 3, 5, 6 and 7
+			assertEquals(5L, harness.numEventTimeTimers());
 			assertEquals(7L, operator.getPQSize(41));
 			assertTrue(!operator.hasNonEmptySharedBuffer(41));
 
@@ -691,7 +692,7 @@ public class CEPOperatorTest extends TestLogger {
 			verifyWatermark(harness.getOutput().poll(), Long.MIN_VALUE);
 			verifyWatermark(harness.getOutput().poll(), 2L);
 
-			assertEquals(1L, harness.numEventTimeTimers());
+			assertEquals(4L, harness.numEventTimeTimers());
 			assertEquals(6L, operator.getPQSize(41));
 			assertTrue(operator.hasNonEmptySharedBuffer(41)); // processed the first element
 
@@ -31,7 +31,10 @@ import org.apache.flink.api.common.state.FoldingStateDescriptor;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.OrderPreservingLongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
 import org.apache.flink.cep.Event;
 import org.apache.flink.cep.functions.PatternProcessFunction;
 import org.apache.flink.cep.nfa.NFA;
@@ -46,6 +49,7 @@ import org.apache.flink.util.TestLogger;
 
 import org.junit.Test;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -196,6 +200,17 @@ public class CepRuntimeContextTest extends TestLogger {
 			// expected
 		}
 
+		try {
+			runtimeContext.getSortedMapState(new SortedMapStateDescriptor<>(
+				"foobar",
+				OrderPreservingLongSerializer.INSTANCE,
+				StringSerializer.INSTANCE,
+				Comparator.<Long>naturalOrder()));
+			fail("Expected getSortedMapState to fail with unsupported operation exception.");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
 		try {
 			runtimeContext.addAccumulator("foobar", mock(Accumulator.class));
 			fail("Expected addAccumulator to fail with unsupported operation exception.");
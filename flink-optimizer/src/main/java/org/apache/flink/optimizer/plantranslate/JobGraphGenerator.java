@@ -32,6 +32,7 @@ import org.apache.flink.configuration.AlgorithmOptions;
 import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.GlobalConfiguration;
+import org.apache.flink.configuration.OptimizerOptions;
 import org.apache.flink.core.fs.FileSystem;
 import org.apache.flink.core.fs.Path;
 import org.apache.flink.optimizer.CompilerException;
@@ -141,6 +142,8 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 	private final float defaultSortSpillingThreshold;
 
 	private final boolean useLargeRecordHandler;
+
+	private final ResultPartitionType blockingResultType;
 	
 	private int iterationIdEnumerator = 1;
 	
@@ -159,6 +162,7 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 		this.defaultMaxFan = AlgorithmOptions.SPILLING_MAX_FAN.defaultValue();
 		this.defaultSortSpillingThreshold = AlgorithmOptions.SORT_SPILLING_THRESHOLD.defaultValue();
 		this.useLargeRecordHandler = ConfigConstants.DEFAULT_USE_LARGE_RECORD_HANDLER;
+		this.blockingResultType = ResultPartitionType.BLOCKING;
 	}
 	
 	public JobGraphGenerator(Configuration config) {
@@ -167,6 +171,9 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 		this.useLargeRecordHandler = config.getBoolean(
 				ConfigConstants.USE_LARGE_RECORD_HANDLER_KEY,
 				ConfigConstants.DEFAULT_USE_LARGE_RECORD_HANDLER);
+		this.blockingResultType = config.getBoolean(OptimizerOptions.SORT_MERGE_BLOCKING_SHUFFLE)
+				? ResultPartitionType.BLOCKING_SORT_MERGE
+				: ResultPartitionType.BLOCKING;
 	}
 
 	/**
@@ -1176,7 +1183,7 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 				// See https://issues.apache.org/jira/browse/FLINK-1713 for details
 				resultType = channel.getSource().isOnDynamicPath()
 						? ResultPartitionType.PIPELINED
-						: ResultPartitionType.BLOCKING;
+						: blockingResultType;
 				break;
 
 			case PIPELINE_WITH_BATCH_FALLBACK:
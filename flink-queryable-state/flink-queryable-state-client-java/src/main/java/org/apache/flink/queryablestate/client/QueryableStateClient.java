@@ -41,6 +41,7 @@ import org.apache.flink.queryablestate.client.state.ImmutableMapState;
 import org.apache.flink.queryablestate.client.state.ImmutableReducingState;
 import org.apache.flink.queryablestate.client.state.ImmutableValueState;
 import org.apache.flink.queryablestate.client.state.serialization.KvStateSerializer;
+import org.apache.flink.queryablestate.exceptions.UnknownKeyOrNamespaceException;
 import org.apache.flink.queryablestate.messages.KvStateRequest;
 import org.apache.flink.queryablestate.messages.KvStateResponse;
 import org.apache.flink.queryablestate.network.Client;
@@ -56,6 +57,10 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -76,6 +81,10 @@ import java.util.stream.Stream;
  * <p>The proxy, initially resolves the location of the requested KvState via the JobManager. Resolved
  * locations are cached. When the server address of the requested KvState instance is determined, the
  * client sends out a request to the server. The returned final answer is then forwarded to the Client.
+ *
+ * <p>The state of many keys can be queried at once via {@link #getKvStates(JobID, String, Collection,
+ * TypeInformation, StateDescriptor)}. All keys are then sent to the proxy in a single request, and the
+ * proxy queries each server holding some of the keys only once.
  */
 @PublicEvolving
 public class QueryableStateClient {
@@ -271,11 +280,124 @@ public class QueryableStateClient {
 		}
 
 		return getKvState(jobId, queryableStateName, key.hashCode(), serializedKeyAndNamespace)
-			.thenApply(stateResponse -> createState(stateResponse, stateDescriptor));
+			.thenApply(stateResponse -> createState(stateResponse.getContent(), stateDescriptor));
+	}
+
+	/**
+	 * Returns a future for each of the given keys, holding the request result for that key.
+	 *
+	 * <p>In contrast to calling {@link #getKvState(JobID, String, Object, TypeHint, StateDescriptor)}
+	 * for each key, all keys are sent to the proxy in a single request.
+	 *
+	 * @param jobId                     JobID of the job the queryable state belongs to.
+	 * @param queryableStateName        Name under which the state is queryable.
+	 * @param keys			            The keys we are interested in.
+	 * @param keyTypeHint				A {@link TypeHint} used to extract the type of the keys.
+	 * @param stateDescriptor			The {@link StateDescriptor} of the state we want to query.
+	 * @return Futures holding the immutable {@link State} objects containing the results, by key.
+	 */
+	@PublicEvolving
+	public <K, S extends State, V> Map<K, CompletableFuture<S>> getKvStates(
+			final JobID jobId,
+			final String queryableStateName,
+			final Collection<K> keys,
+			final TypeHint<K> keyTypeHint,
+			final StateDescriptor<S, V> stateDescriptor) {
+
+		Preconditions.checkNotNull(keyTypeHint);
+
+		TypeInformation<K> keyTypeInfo = keyTypeHint.getTypeInfo();
+		return getKvStates(jobId, queryableStateName, keys, keyTypeInfo, stateDescriptor);
+	}
+
+	/**
+	 * Returns a future for each of the given keys, holding the request result for that key.
+	 *
+	 * <p>In contrast to calling {@link #getKvState(JobID, String, Object, TypeInformation, StateDescriptor)}
+	 * for each key, all keys are sent to the proxy in a single request.
+	 *
+	 * @param jobId                     JobID of the job the queryable state belongs to.
+	 * @param queryableStateName        Name under which the state is queryable.
+	 * @param keys			            The keys we are interested in.
+	 * @param keyTypeInfo				The {@link TypeInformation} of the keys.
+	 * @param stateDescriptor			The {@link StateDescriptor} of the state we want to query.
+	 * @return Futures holding the immutable {@link State} objects containing the results, by key.
+	 */
+	@PublicEvolving
+	public <K, S extends State, V> Map<K, CompletableFuture<S>> getKvStates(
+			final JobID jobId,
+			final String queryableStateName,
+			final Collection<K> keys,
+			final TypeInformation<K> keyTypeInfo,
+			final StateDescriptor<S, V> stateDescriptor) {
+
+		Preconditions.checkNotNull(jobId);
+		Preconditions.checkNotNull(queryableStateName);
+		Preconditions.checkNotNull(keys);
+
+		Preconditions.checkNotNull(keyTypeInfo);
+		Preconditions.checkNotNull(stateDescriptor);
+
+		final Map<K, CompletableFuture<S>> results = new LinkedHashMap<>(keys.size());
+		for (K key : keys) {
+			results.put(Preconditions.checkNotNull(key), new CompletableFuture<>());
+		}
+
+		if (results.isEmpty()) {
+			return results;
+		}
+
+		final TypeSerializer<K> keySerializer = keyTypeInfo.createSerializer(executionConfig);
+		final TypeSerializer<VoidNamespace> namespaceSerializer =
+				VoidNamespaceTypeInfo.INSTANCE.createSerializer(executionConfig);
+
+		stateDescriptor.initializeSerializerUnlessSet(executionConfig);
+
+		final List<CompletableFuture<S>> resultFutures = new ArrayList<>(results.values());
+		final int[] keyHashCodes = new int[results.size()];
+		final byte[][] serializedKeysAndNamespaces = new byte[results.size()][];
+
+		int keyIndex = 0;
+		for (K key : results.keySet()) {
+			keyHashCodes[keyIndex] = key.hashCode();
+			try {
+				serializedKeysAndNamespaces[keyIndex] = KvStateSerializer.serializeKeyAndNamespace(
+						key, keySerializer, VoidNamespace.INSTANCE, namespaceSerializer);
+			} catch (IOException e) {
+				resultFutures.forEach(future -> future.completeExceptionally(e));
+				return results;
+			}
+			keyIndex++;
+		}
+
+		getKvState(jobId, queryableStateName, keyHashCodes, serializedKeysAndNamespaces).whenComplete(
+			(stateResponse, throwable) -> {
+				if (throwable != null) {
+					resultFutures.forEach(future -> future.completeExceptionally(throwable));
+					return;
+				}
+
+				for (int i = 0; i < resultFutures.size(); i++) {
+					final CompletableFuture<S> resultFuture = resultFutures.get(i);
+					final byte[] content = stateResponse.getContent(i);
+
+					if (content == null) {
+						resultFuture.completeExceptionally(new UnknownKeyOrNamespaceException("Queryable State Proxy @ " + remoteAddress));
+					} else {
+						try {
+							resultFuture.complete(createState(content, stateDescriptor));
+						} catch (Throwable t) {
+							resultFuture.completeExceptionally(t);
+						}
+					}
+				}
+			});
+
+		return results;
 	}
 
 	private <T, S extends State> S createState(
-		KvStateResponse stateResponse,
+		byte[] serializedState,
 		StateDescriptor<S, T> stateDescriptor) {
 		StateFactory stateFactory = STATE_FACTORIES.get(stateDescriptor.getClass());
 		if (stateFactory == null) {
@@ -284,7 +406,7 @@ public class QueryableStateClient {
 			throw new FlinkRuntimeException(message);
 		}
 		try {
-			return stateFactory.createState(stateDescriptor, stateResponse.getContent());
+			return stateFactory.createState(stateDescriptor, serializedState);
 		} catch (Exception e) {
 			throw new FlinkRuntimeException(e);
 		}
@@ -307,9 +429,28 @@ public class QueryableStateClient {
 			final String queryableStateName,
 			final int keyHashCode,
 			final byte[] serializedKeyAndNamespace) {
-		LOG.debug("Sending State Request to {}.", remoteAddress);
+		return getKvState(jobId, queryableStateName, new int[] {keyHashCode}, new byte[][] {serializedKeyAndNamespace});
+	}
+
+	/**
+	 * Returns a future holding the serialized request result for multiple keys.
+	 *
+	 * @param jobId                      JobID of the job the queryable state
+	 *                                   belongs to
+	 * @param queryableStateName         Name under which the state is queryable
+	 * @param keyHashCodes               Integer hash codes of the keys
+	 * @param serializedKeysAndNamespaces Serialized keys and namespaces to query
+	 *                                   KvState instance with
+	 * @return Future holding the serialized result, with one entry per key
+	 */
+	private CompletableFuture<KvStateResponse> getKvState(
+			final JobID jobId,
+			final String queryableStateName,
+			final int[] keyHashCodes,
+			final byte[][] serializedKeysAndNamespaces) {
+		LOG.debug("Sending State Request for {} key(s) to {}.", keyHashCodes.length, remoteAddress);
 		try {
-			KvStateRequest request = new KvStateRequest(jobId, queryableStateName, keyHashCode, serializedKeyAndNamespace);
+			KvStateRequest request = new KvStateRequest(jobId, queryableStateName, keyHashCodes, serializedKeysAndNamespaces);
 			return client.sendRequest(remoteAddress, request);
 		} catch (Exception e) {
 			LOG.error("Unable to send KVStateRequest: ", e);
@@ -33,14 +33,23 @@ import java.util.Arrays;
 /**
  * The request to be sent by the {@link org.apache.flink.queryablestate.client.QueryableStateClient
  * Queryable State Client} to the Client Proxy requesting a given state.
+ *
+ * <p>A request may ask for the state of multiple keys of the same queryable state at once.
+ * The answer to such a batch request holds one entry per requested key, in request order.
+ * A request for a single key is serialized in the same format as in previous versions. A request
+ * for multiple keys starts with a marker in place of the length of the state name, which previous
+ * versions reject as a negative length.
  */
 @Internal
 public class KvStateRequest extends MessageBody {
 
+	/** Marks a request for multiple keys in the serialized request. */
+	private static final int MULTI_KEY_MARKER = -1;
+
 	private final JobID jobId;
 	private final String stateName;
-	private final int keyHashCode;
-	private final byte[] serializedKeyAndNamespace;
+	private final int[] keyHashCodes;
+	private final byte[][] serializedKeysAndNamespaces;
 
 	public KvStateRequest(
 			final JobID jobId,
@@ -48,10 +57,26 @@ public class KvStateRequest extends MessageBody {
 			final int keyHashCode,
 			final byte[] serializedKeyAndNamespace) {
 
+		this(jobId, stateName, new int[] {keyHashCode}, new byte[][] {serializedKeyAndNamespace});
+	}
+
+	public KvStateRequest(
+			final JobID jobId,
+			final String stateName,
+			final int[] keyHashCodes,
+			final byte[][] serializedKeysAndNamespaces) {
+
 		this.jobId = Preconditions.checkNotNull(jobId);
 		this.stateName = Preconditions.checkNotNull(stateName);
-		this.keyHashCode = keyHashCode;
-		this.serializedKeyAndNamespace = Preconditions.checkNotNull(serializedKeyAndNamespace);
+		this.keyHashCodes = Preconditions.checkNotNull(keyHashCodes);
+		this.serializedKeysAndNamespaces = Preconditions.checkNotNull(serializedKeysAndNamespaces);
+
+		Preconditions.checkArgument(keyHashCodes.length > 0, "A request needs at least one key.");
+		Preconditions.checkArgument(keyHashCodes.length == serializedKeysAndNamespaces.length,
+				"The number of key hash codes does not match the number of keys.");
+		for (byte[] serializedKeyAndNamespace : serializedKeysAndNamespaces) {
+			Preconditions.checkNotNull(serializedKeyAndNamespace);
+		}
 	}
 
 	public JobID getJobId() {
@@ -62,12 +87,30 @@ public class KvStateRequest extends MessageBody {
 		return stateName;
 	}
 
+	public int getNumberOfKeys() {
+		return keyHashCodes.length;
+	}
+
 	public int getKeyHashCode() {
-		return keyHashCode;
+		checkSingleKey();
+		return keyHashCodes[0];
+	}
+
+	public int getKeyHashCode(int keyIndex) {
+		return keyHashCodes[keyIndex];
 	}
 
 	public byte[] getSerializedKeyAndNamespace() {
-		return serializedKeyAndNamespace;
+		checkSingleKey();
+		return serializedKeysAndNamespaces[0];
+	}
+
+	public byte[] getSerializedKeyAndNamespace(int keyIndex) {
+		return serializedKeysAndNamespaces[keyIndex];
+	}
+
+	private void checkSingleKey() {
+		Preconditions.checkState(keyHashCodes.length == 1, "The request holds multiple keys.");
 	}
 
 	@Override
@@ -75,22 +118,42 @@ public class KvStateRequest extends MessageBody {
 
 		byte[] serializedStateName = stateName.getBytes(ConfigConstants.DEFAULT_CHARSET);
 
-		// JobID + stateName + sizeOf(stateName) + hashCode + keyAndNamespace + sizeOf(keyAndNamespace)
-		final int size =
+		final boolean multiKey = keyHashCodes.length > 1;
+
+		// JobID + [marker] + stateName + sizeOf(stateName) + [numKeys] + numKeys * (hashCode + keyAndNamespace + sizeOf(keyAndNamespace))
+		int size =
 				JobID.SIZE +
-				serializedStateName.length + Integer.BYTES +
-				Integer.BYTES +
-				serializedKeyAndNamespace.length + Integer.BYTES;
+				serializedStateName.length + Integer.BYTES;
+
+		if (multiKey) {
+			size += Integer.BYTES + Integer.BYTES;
+		}
+
+		for (byte[] serializedKeyAndNamespace : serializedKeysAndNamespaces) {
+			size += Integer.BYTES + serializedKeyAndNamespace.length + Integer.BYTES;
+		}
 
-		return ByteBuffer.allocate(size)
+		final ByteBuffer buffer = ByteBuffer.allocate(size)
 				.putLong(jobId.getLowerPart())
-				.putLong(jobId.getUpperPart())
-				.putInt(serializedStateName.length)
-				.put(serializedStateName)
-				.putInt(keyHashCode)
-				.putInt(serializedKeyAndNamespace.length)
-				.put(serializedKeyAndNamespace)
-				.array();
+				.putLong(jobId.getUpperPart());
+
+		if (multiKey) {
+			buffer.putInt(MULTI_KEY_MARKER);
+		}
+
+		buffer.putInt(serializedStateName.length)
+				.put(serializedStateName);
+
+		if (multiKey) {
+			buffer.putInt(keyHashCodes.length);
+		}
+
+		for (int i = 0; i < keyHashCodes.length; i++) {
+			buffer.putInt(keyHashCodes[i])
+				.putInt(serializedKeysAndNamespaces[i].length)
+				.put(serializedKeysAndNamespaces[i]);
+		}
+		return buffer.array();
 	}
 
 	@Override
@@ -98,8 +161,8 @@ public class KvStateRequest extends MessageBody {
 		return "KvStateRequest{" +
 				"jobId=" + jobId +
 				", stateName='" + stateName + '\'' +
-				", keyHashCode=" + keyHashCode +
-				", serializedKeyAndNamespace=" + Arrays.toString(serializedKeyAndNamespace) +
+				", keyHashCodes=" + Arrays.toString(keyHashCodes) +
+				", serializedKeysAndNamespaces=" + Arrays.deepToString(serializedKeysAndNamespaces) +
 				'}';
 	}
 
@@ -113,6 +176,10 @@ public class KvStateRequest extends MessageBody {
 			JobID jobId = new JobID(buf.readLong(), buf.readLong());
 
 			int statenameLength = buf.readInt();
+			final boolean multiKey = statenameLength == MULTI_KEY_MARKER;
+			if (multiKey) {
+				statenameLength = buf.readInt();
+			}
 			Preconditions.checkArgument(statenameLength >= 0,
 					"Negative length for state name. " +
 							"This indicates a serialization error.");
@@ -124,18 +191,29 @@ public class KvStateRequest extends MessageBody {
 				stateName = new String(name, ConfigConstants.DEFAULT_CHARSET);
 			}
 
-			int keyHashCode = buf.readInt();
-
-			int knamespaceLength = buf.readInt();
-			Preconditions.checkArgument(knamespaceLength >= 0,
-					"Negative length for key and namespace. " +
+			int numKeys = multiKey ? buf.readInt() : 1;
+			Preconditions.checkArgument(numKeys > 0,
+					"Non-positive number of keys. " +
 							"This indicates a serialization error.");
 
-			byte[] serializedKeyAndNamespace = new byte[knamespaceLength];
-			if (knamespaceLength > 0) {
-				buf.readBytes(serializedKeyAndNamespace);
+			int[] keyHashCodes = new int[numKeys];
+			byte[][] serializedKeysAndNamespaces = new byte[numKeys][];
+
+			for (int i = 0; i < numKeys; i++) {
+				keyHashCodes[i] = buf.readInt();
+
+				int knamespaceLength = buf.readInt();
+				Preconditions.checkArgument(knamespaceLength >= 0,
+						"Negative length for key and namespace. " +
+								"This indicates a serialization error.");
+
+				byte[] serializedKeyAndNamespace = new byte[knamespaceLength];
+				if (knamespaceLength > 0) {
+					buf.readBytes(serializedKeyAndNamespace);
+				}
+				serializedKeysAndNamespaces[i] = serializedKeyAndNamespace;
 			}
-			return new KvStateRequest(jobId, stateName, keyHashCode, serializedKeyAndNamespace);
+			return new KvStateRequest(jobId, stateName, keyHashCodes, serializedKeysAndNamespaces);
 		}
 	}
 }
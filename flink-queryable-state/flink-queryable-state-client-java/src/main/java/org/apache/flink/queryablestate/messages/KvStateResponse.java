@@ -25,33 +25,86 @@ import org.apache.flink.util.Preconditions;
 
 import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
 
+import javax.annotation.Nullable;
+
 import java.nio.ByteBuffer;
 
 /**
  * The response containing the (serialized) state sent by the {@code State Server} to the {@code Client Proxy},
  * and then forwarded by the proxy to the original
  * {@link org.apache.flink.queryablestate.client.QueryableStateClient Queryable State Client}.
+ *
+ * <p>The response to a request for multiple keys holds one entry per requested key, in request
+ * order. The entry of a key for which the state holds no value is {@code null}. A response with a
+ * single entry is serialized in the same format as in previous versions. Other responses start
+ * with a marker in place of the length of the content, which previous versions reject as a
+ * negative length.
  */
 @Internal
 public class KvStateResponse extends MessageBody {
 
-	private final byte[] content;
+	/** Marks a response with multiple entries in the serialized response. */
+	private static final int MULTI_ENTRY_MARKER = -1;
+
+	/** Marks an entry without content in the serialized response. */
+	private static final int NO_CONTENT = -1;
+
+	private final byte[][] contents;
 
 	public KvStateResponse(final byte[] content) {
-		this.content = Preconditions.checkNotNull(content);
+		this(new byte[][] {Preconditions.checkNotNull(content)});
+	}
+
+	public KvStateResponse(final byte[][] contents) {
+		this.contents = Preconditions.checkNotNull(contents);
+		Preconditions.checkArgument(contents.length > 0, "A response needs at least one entry.");
 	}
 
 	public byte[] getContent() {
-		return content;
+		Preconditions.checkState(contents.length == 1, "The response holds multiple entries.");
+		return contents[0];
+	}
+
+	public int getNumberOfEntries() {
+		return contents.length;
+	}
+
+	/**
+	 * Returns the content of the entry at the given index, or {@code null} if the state holds
+	 * no value for the corresponding key.
+	 */
+	@Nullable
+	public byte[] getContent(int entryIndex) {
+		return contents[entryIndex];
 	}
 
 	@Override
 	public byte[] serialize() {
-		final int size = Integer.BYTES + content.length;
-		return ByteBuffer.allocate(size)
-				.putInt(content.length)
-				.put(content)
-				.array();
+		if (contents.length == 1 && contents[0] != null) {
+			final int size = Integer.BYTES + contents[0].length;
+			return ByteBuffer.allocate(size)
+					.putInt(contents[0].length)
+					.put(contents[0])
+					.array();
+		}
+
+		// marker + numEntries + numEntries * (sizeOf(content) + content)
+		int size = Integer.BYTES + Integer.BYTES;
+		for (byte[] content : contents) {
+			size += Integer.BYTES + (content == null ? 0 : content.length);
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(size)
+				.putInt(MULTI_ENTRY_MARKER)
+				.putInt(contents.length);
+		for (byte[] content : contents) {
+			if (content == null) {
+				buffer.putInt(NO_CONTENT);
+			} else {
+				buffer.putInt(content.length).put(content);
+			}
+		}
+		return buffer.array();
 	}
 
 	/**
@@ -62,13 +115,35 @@ public class KvStateResponse extends MessageBody {
 		@Override
 		public KvStateResponse deserializeMessage(ByteBuf buf) {
 			int length = buf.readInt();
-			Preconditions.checkArgument(length >= 0,
-					"Negative length for state content. " +
+			if (length != MULTI_ENTRY_MARKER) {
+				Preconditions.checkArgument(length >= 0,
+						"Negative length for state content. " +
+								"This indicates a serialization error.");
+				byte[] content = new byte[length];
+				buf.readBytes(content);
+
+				return new KvStateResponse(content);
+			}
+
+			int numEntries = buf.readInt();
+			Preconditions.checkArgument(numEntries > 0,
+					"Non-positive number of entries. " +
 							"This indicates a serialization error.");
-			byte[] content = new byte[length];
-			buf.readBytes(content);
 
-			return new KvStateResponse(content);
+			byte[][] contents = new byte[numEntries][];
+			for (int i = 0; i < numEntries; i++) {
+				int entryLength = buf.readInt();
+				Preconditions.checkArgument(entryLength >= NO_CONTENT,
+						"Negative length for state content. " +
+								"This indicates a serialization error.");
+
+				if (entryLength != NO_CONTENT) {
+					byte[] content = new byte[entryLength];
+					buf.readBytes(content);
+					contents[i] = content;
+				}
+			}
+			return new KvStateResponse(contents);
 		}
 	}
 }
@@ -22,6 +22,7 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.queryablestate.KvStateID;
+import org.apache.flink.queryablestate.exceptions.UnknownKeyOrNamespaceException;
 import org.apache.flink.queryablestate.exceptions.UnknownKvStateIdException;
 import org.apache.flink.queryablestate.exceptions.UnknownKvStateKeyGroupLocationException;
 import org.apache.flink.queryablestate.exceptions.UnknownLocationException;
@@ -50,9 +51,14 @@ import org.slf4j.LoggerFactory;
 
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
@@ -161,6 +167,10 @@ public class KvStateClientProxyHandler extends AbstractServerHandler<KvStateRequ
 
 		return getKvStateLookupInfo(request.getJobId(), request.getStateName(), forceUpdate)
 				.thenComposeAsync((Function<KvStateLocation, CompletableFuture<KvStateResponse>>) location -> {
+					if (request.getNumberOfKeys() > 1) {
+						return getStates(request, location);
+					}
+
 					final int keyGroupIndex = KeyGroupRangeAssignment.computeKeyGroupForKeyHash(
 							request.getKeyHashCode(), location.getNumKeyGroups());
 
@@ -177,6 +187,76 @@ public class KvStateClientProxyHandler extends AbstractServerHandler<KvStateRequ
 				}, queryExecutor);
 	}
 
+	/**
+	 * Queries the state of all keys of the given request, sending a single request to each
+	 * server holding some of the keys. The returned response holds one entry per requested key,
+	 * which is {@code null} if the server has no state for the key.
+	 *
+	 * <p>If one of the servers can not be queried, the returned future fails, so that
+	 * the whole request is retried with an updated location.
+	 */
+	private CompletableFuture<KvStateResponse> getStates(
+			final KvStateRequest request,
+			final KvStateLocation location) {
+
+		final int numKeys = request.getNumberOfKeys();
+
+		// group the key indices by the state instance holding them
+		final Map<Tuple2<InetSocketAddress, KvStateID>, List<Integer>> keysByServer = new HashMap<>();
+		for (int i = 0; i < numKeys; i++) {
+			final int keyGroupIndex = KeyGroupRangeAssignment.computeKeyGroupForKeyHash(
+					request.getKeyHashCode(i), location.getNumKeyGroups());
+
+			final InetSocketAddress serverAddress = location.getKvStateServerAddress(keyGroupIndex);
+			if (serverAddress == null) {
+				return FutureUtils.completedExceptionally(new UnknownKvStateKeyGroupLocationException(getServerName()));
+			}
+
+			keysByServer
+				.computeIfAbsent(Tuple2.of(serverAddress, location.getKvStateID(keyGroupIndex)), ignored -> new ArrayList<>())
+				.add(i);
+		}
+
+		final byte[][] results = new byte[numKeys][];
+		final CompletableFuture<KvStateResponse> response = new CompletableFuture<>();
+		final AtomicInteger pendingServers = new AtomicInteger(keysByServer.size());
+
+		for (Map.Entry<Tuple2<InetSocketAddress, KvStateID>, List<Integer>> entry : keysByServer.entrySet()) {
+			final List<Integer> keyIndices = entry.getValue();
+
+			final byte[][] serializedKeysAndNamespaces = new byte[keyIndices.size()][];
+			for (int i = 0; i < serializedKeysAndNamespaces.length; i++) {
+				serializedKeysAndNamespaces[i] = request.getSerializedKeyAndNamespace(keyIndices.get(i));
+			}
+
+			final KvStateInternalRequest internalRequest =
+					new KvStateInternalRequest(entry.getKey().f1, serializedKeysAndNamespaces);
+
+			kvStateClient.sendRequest(entry.getKey().f0, internalRequest).whenComplete(
+				(KvStateResponse serverResponse, Throwable throwable) -> {
+					if (throwable != null) {
+						final Throwable cause = ExceptionUtils.stripCompletionException(throwable);
+
+						// a request for a single key reports a missing value as a failure
+						if (!(cause instanceof UnknownKeyOrNamespaceException) || keyIndices.size() > 1) {
+							response.completeExceptionally(cause);
+							return;
+						}
+					} else {
+						for (int i = 0; i < keyIndices.size(); i++) {
+							results[keyIndices.get(i)] = serverResponse.getContent(i);
+						}
+					}
+
+					if (pendingServers.decrementAndGet() == 0) {
+						response.complete(new KvStateResponse(results));
+					}
+				});
+		}
+
+		return response;
+	}
+
 	/**
 	 * Lookup the {@link KvStateLocation} for the given job and queryable state name.
 	 *
@@ -32,41 +32,86 @@ import java.nio.ByteBuffer;
  * The request to be forwarded by the {@link org.apache.flink.runtime.query.KvStateClientProxy
  * Queryable State Client Proxy} to the {@link org.apache.flink.runtime.query.KvStateServer State Server}
  * of the Task Manager responsible for the requested state.
+ *
+ * <p>A request may ask for the state of multiple keys of the same state instance at once.
+ * A request for a single key is serialized in the same format as in previous versions. A request
+ * for multiple keys starts with a marker in place of the length of the key and namespace, which
+ * previous versions reject as a negative length.
  */
 @Internal
 public class KvStateInternalRequest extends MessageBody {
 
+	/** Marks a request for multiple keys in the serialized request. */
+	private static final int MULTI_KEY_MARKER = -1;
+
 	private final KvStateID kvStateId;
-	private final byte[] serializedKeyAndNamespace;
+	private final byte[][] serializedKeysAndNamespaces;
 
 	public KvStateInternalRequest(
 			final KvStateID stateId,
 			final byte[] serializedKeyAndNamespace) {
 
+		this(stateId, new byte[][] {Preconditions.checkNotNull(serializedKeyAndNamespace)});
+	}
+
+	public KvStateInternalRequest(
+			final KvStateID stateId,
+			final byte[][] serializedKeysAndNamespaces) {
+
 		this.kvStateId = Preconditions.checkNotNull(stateId);
-		this.serializedKeyAndNamespace = Preconditions.checkNotNull(serializedKeyAndNamespace);
+		this.serializedKeysAndNamespaces = Preconditions.checkNotNull(serializedKeysAndNamespaces);
+
+		Preconditions.checkArgument(serializedKeysAndNamespaces.length > 0, "A request needs at least one key.");
+		for (byte[] serializedKeyAndNamespace : serializedKeysAndNamespaces) {
+			Preconditions.checkNotNull(serializedKeyAndNamespace);
+		}
 	}
 
 	public KvStateID getKvStateId() {
 		return kvStateId;
 	}
 
+	public int getNumberOfKeys() {
+		return serializedKeysAndNamespaces.length;
+	}
+
 	public byte[] getSerializedKeyAndNamespace() {
-		return serializedKeyAndNamespace;
+		Preconditions.checkState(serializedKeysAndNamespaces.length == 1, "The request holds multiple keys.");
+		return serializedKeysAndNamespaces[0];
+	}
+
+	public byte[] getSerializedKeyAndNamespace(int keyIndex) {
+		return serializedKeysAndNamespaces[keyIndex];
 	}
 
 	@Override
 	public byte[] serialize() {
 
-		// KvStateId + sizeOf(serializedKeyAndNamespace) + serializedKeyAndNamespace
-		final int size = KvStateID.SIZE + Integer.BYTES + serializedKeyAndNamespace.length;
+		final boolean multiKey = serializedKeysAndNamespaces.length > 1;
+
+		// KvStateId + [marker + numKeys] + numKeys * (sizeOf(serializedKeyAndNamespace) + serializedKeyAndNamespace)
+		int size = KvStateID.SIZE;
+		if (multiKey) {
+			size += Integer.BYTES + Integer.BYTES;
+		}
+		for (byte[] serializedKeyAndNamespace : serializedKeysAndNamespaces) {
+			size += Integer.BYTES + serializedKeyAndNamespace.length;
+		}
 
-		return ByteBuffer.allocate(size)
+		final ByteBuffer buffer = ByteBuffer.allocate(size)
 				.putLong(kvStateId.getLowerPart())
-				.putLong(kvStateId.getUpperPart())
-				.putInt(serializedKeyAndNamespace.length)
-				.put(serializedKeyAndNamespace)
-				.array();
+				.putLong(kvStateId.getUpperPart());
+
+		if (multiKey) {
+			buffer.putInt(MULTI_KEY_MARKER)
+				.putInt(serializedKeysAndNamespaces.length);
+		}
+
+		for (byte[] serializedKeyAndNamespace : serializedKeysAndNamespaces) {
+			buffer.putInt(serializedKeyAndNamespace.length)
+				.put(serializedKeyAndNamespace);
+		}
+		return buffer.array();
 	}
 
 	/**
@@ -79,15 +124,31 @@ public class KvStateInternalRequest extends MessageBody {
 			KvStateID kvStateId = new KvStateID(buf.readLong(), buf.readLong());
 
 			int length = buf.readInt();
-			Preconditions.checkArgument(length >= 0,
-					"Negative length for key and namespace. " +
-							"This indicates a serialization error.");
+			int numKeys = 1;
+			if (length == MULTI_KEY_MARKER) {
+				numKeys = buf.readInt();
+				Preconditions.checkArgument(numKeys > 0,
+						"Non-positive number of keys. " +
+								"This indicates a serialization error.");
+				length = buf.readInt();
+			}
 
-			byte[] serializedKeyAndNamespace = new byte[length];
-			if (length > 0) {
-				buf.readBytes(serializedKeyAndNamespace);
+			byte[][] serializedKeysAndNamespaces = new byte[numKeys][];
+			for (int i = 0; i < numKeys; i++) {
+				if (i > 0) {
+					length = buf.readInt();
+				}
+				Preconditions.checkArgument(length >= 0,
+						"Negative length for key and namespace. " +
+								"This indicates a serialization error.");
+
+				byte[] serializedKeyAndNamespace = new byte[length];
+				if (length > 0) {
+					buf.readBytes(serializedKeyAndNamespace);
+				}
+				serializedKeysAndNamespaces[i] = serializedKeyAndNamespace;
 			}
-			return new KvStateInternalRequest(kvStateId, serializedKeyAndNamespace);
+			return new KvStateInternalRequest(kvStateId, serializedKeysAndNamespaces);
 		}
 	}
 }
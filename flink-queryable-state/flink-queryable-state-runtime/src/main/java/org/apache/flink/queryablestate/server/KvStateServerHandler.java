@@ -44,6 +44,9 @@ import java.util.concurrent.CompletableFuture;
  * <p>The network threads receive the message, deserialize it and dispatch the
  * query task. The actual query is handled in a separate thread as it might
  * otherwise block the network threads (file I/O etc.).
+ *
+ * <p>Requests for multiple keys are answered with one response entry per key. Keys for which
+ * the state holds no value get an empty entry instead of failing the whole request.
  */
 @Internal
 @ChannelHandler.Sharable
@@ -78,7 +81,7 @@ public class KvStateServerHandler extends AbstractServerHandler<KvStateInternalR
 			final KvStateEntry<?, ?, ?> kvState = registry.getKvState(request.getKvStateId());
 			if (kvState == null) {
 				responseFuture.completeExceptionally(new UnknownKvStateIdException(getServerName(), request.getKvStateId()));
-			} else {
+			} else if (request.getNumberOfKeys() == 1) {
 				byte[] serializedKeyAndNamespace = request.getSerializedKeyAndNamespace();
 
 				byte[] serializedResult = getSerializedValue(kvState, serializedKeyAndNamespace);
@@ -87,6 +90,12 @@ public class KvStateServerHandler extends AbstractServerHandler<KvStateInternalR
 				} else {
 					responseFuture.completeExceptionally(new UnknownKeyOrNamespaceException(getServerName()));
 				}
+			} else {
+				byte[][] serializedResults = new byte[request.getNumberOfKeys()][];
+				for (int i = 0; i < serializedResults.length; i++) {
+					serializedResults[i] = getSerializedValue(kvState, request.getSerializedKeyAndNamespace(i));
+				}
+				responseFuture.complete(new KvStateResponse(serializedResults));
 			}
 			return responseFuture;
 		} catch (Throwable t) {
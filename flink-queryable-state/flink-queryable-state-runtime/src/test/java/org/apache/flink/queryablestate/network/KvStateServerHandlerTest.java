@@ -74,6 +74,7 @@ import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -187,6 +188,79 @@ public class KvStateServerHandlerTest extends TestLogger {
 		assertEquals(stats.toString(), 1L, stats.getNumSuccessful());
 	}
 
+	/**
+	 * Tests that a query for multiple keys returns one entry per key, with an empty entry
+	 * for keys that have no state.
+	 */
+	@Test
+	public void testMultiKeyQuery() throws Exception {
+		KvStateRegistry registry = new KvStateRegistry();
+		AtomicKvStateRequestStats stats = new AtomicKvStateRequestStats();
+
+		MessageSerializer<KvStateInternalRequest, KvStateResponse> serializer =
+				new MessageSerializer<>(new KvStateInternalRequest.KvStateInternalRequestDeserializer(), new KvStateResponse.KvStateResponseDeserializer());
+
+		KvStateServerHandler handler = new KvStateServerHandler(testServer, registry, serializer, stats);
+		EmbeddedChannel channel = new EmbeddedChannel(getFrameDecoder(), handler);
+
+		// Register state
+		ValueStateDescriptor<Integer> desc = new ValueStateDescriptor<>("any", IntSerializer.INSTANCE);
+		desc.setQueryable("vanilla");
+
+		int numKeyGroups = 1;
+		AbstractStateBackend abstractBackend = new MemoryStateBackend();
+		DummyEnvironment dummyEnv = new DummyEnvironment("test", 1, 0);
+		dummyEnv.setKvStateRegistry(registry);
+		AbstractKeyedStateBackend<Integer> backend = createKeyedStateBackend(registry, numKeyGroups, abstractBackend, dummyEnv);
+
+		final TestRegistryListener registryListener = new TestRegistryListener();
+		registry.registerListener(dummyEnv.getJobID(), registryListener);
+
+		ValueState<Integer> state = backend.getPartitionedState(
+				VoidNamespace.INSTANCE,
+				VoidNamespaceSerializer.INSTANCE,
+				desc);
+
+		// keys 0 and 2 have state, key 1 has none
+		int[] keys = {0, 1, 2};
+		byte[][] serializedKeysAndNamespaces = new byte[keys.length][];
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 1) {
+				backend.setCurrentKey(keys[i]);
+				state.update(keys[i] * 1000);
+			}
+
+			serializedKeysAndNamespaces[i] = KvStateSerializer.serializeKeyAndNamespace(
+					keys[i],
+					IntSerializer.INSTANCE,
+					VoidNamespace.INSTANCE,
+					VoidNamespaceSerializer.INSTANCE);
+		}
+
+		long requestId = Integer.MAX_VALUE + 182828L;
+
+		KvStateInternalRequest request = new KvStateInternalRequest(
+				registryListener.kvStateId, serializedKeysAndNamespaces);
+
+		ByteBuf serRequest = MessageSerializer.serializeRequest(channel.alloc(), requestId, request);
+
+		// Write the request and wait for the response
+		channel.writeInbound(serRequest);
+
+		ByteBuf buf = (ByteBuf) readInboundBlocking(channel);
+		buf.skipBytes(4); // skip frame length
+
+		// Verify the response
+		assertEquals(MessageType.REQUEST_RESULT, MessageSerializer.deserializeHeader(buf));
+		assertEquals(requestId, MessageSerializer.getRequestId(buf));
+		KvStateResponse response = serializer.deserializeResponse(buf);
+
+		assertEquals(keys.length, response.getNumberOfEntries());
+		assertEquals(0, (int) KvStateSerializer.deserializeValue(response.getContent(0), IntSerializer.INSTANCE));
+		assertNull(response.getContent(1));
+		assertEquals(2000, (int) KvStateSerializer.deserializeValue(response.getContent(2), IntSerializer.INSTANCE));
+	}
+
 	/**
 	 * Tests the failure response with {@link UnknownKvStateIdException} as cause on
 	 * queries for unregistered KvStateIDs.
@@ -18,8 +18,11 @@
 
 package org.apache.flink.queryablestate.network;
 
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.queryablestate.KvStateID;
 import org.apache.flink.queryablestate.messages.KvStateInternalRequest;
+import org.apache.flink.queryablestate.messages.KvStateRequest;
 import org.apache.flink.queryablestate.messages.KvStateResponse;
 import org.apache.flink.queryablestate.network.messages.MessageSerializer;
 import org.apache.flink.queryablestate.network.messages.MessageType;
@@ -33,12 +36,14 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * Tests for {@link MessageSerializer}.
@@ -115,7 +120,7 @@ public class MessageSerializerTest {
 	 */
 	@Test(expected = NullPointerException.class)
 	public void testNullPointerExceptionOnNullSerializedKeyAndNamepsace() throws Exception {
-		new KvStateInternalRequest(new KvStateID(), null);
+		new KvStateInternalRequest(new KvStateID(), (byte[]) null);
 	}
 
 	/**
@@ -174,6 +179,132 @@ public class MessageSerializerTest {
 		new KvStateResponse((byte[]) null);
 	}
 
+	/**
+	 * Tests serialization of a request for multiple keys from the client to the proxy.
+	 */
+	@Test
+	public void testMultiKeyRequestSerialization() throws Exception {
+		long requestId = Integer.MAX_VALUE + 1337L;
+		JobID jobId = new JobID();
+		int[] keyHashCodes = {42, -17, 0};
+		byte[][] serializedKeysAndNamespaces = {randomByteArray(1024), new byte[0], randomByteArray(16)};
+
+		final KvStateRequest request = new KvStateRequest(jobId, "state", keyHashCodes, serializedKeysAndNamespaces);
+		final MessageSerializer<KvStateRequest, KvStateResponse> serializer =
+				new MessageSerializer<>(new KvStateRequest.KvStateRequestDeserializer(), new KvStateResponse.KvStateResponseDeserializer());
+
+		ByteBuf buf = MessageSerializer.serializeRequest(alloc, requestId, request);
+
+		int frameLength = buf.readInt();
+		assertEquals(MessageType.REQUEST, MessageSerializer.deserializeHeader(buf));
+		assertEquals(requestId, MessageSerializer.getRequestId(buf));
+		KvStateRequest requestDeser = serializer.deserializeRequest(buf);
+
+		assertEquals(buf.readerIndex(), frameLength + 4);
+
+		assertEquals(jobId, requestDeser.getJobId());
+		assertEquals("state", requestDeser.getStateName());
+		assertEquals(keyHashCodes.length, requestDeser.getNumberOfKeys());
+		for (int i = 0; i < keyHashCodes.length; i++) {
+			assertEquals(keyHashCodes[i], requestDeser.getKeyHashCode(i));
+			assertArrayEquals(serializedKeysAndNamespaces[i], requestDeser.getSerializedKeyAndNamespace(i));
+		}
+	}
+
+	/**
+	 * Tests serialization of a request for multiple keys from the proxy to the server.
+	 */
+	@Test
+	public void testMultiKeyInternalRequestSerialization() throws Exception {
+		long requestId = Integer.MAX_VALUE + 1337L;
+		KvStateID kvStateId = new KvStateID();
+		byte[][] serializedKeysAndNamespaces = {randomByteArray(1024), new byte[0], randomByteArray(16)};
+
+		final KvStateInternalRequest request = new KvStateInternalRequest(kvStateId, serializedKeysAndNamespaces);
+		final MessageSerializer<KvStateInternalRequest, KvStateResponse> serializer =
+				new MessageSerializer<>(new KvStateInternalRequest.KvStateInternalRequestDeserializer(), new KvStateResponse.KvStateResponseDeserializer());
+
+		ByteBuf buf = MessageSerializer.serializeRequest(alloc, requestId, request);
+
+		int frameLength = buf.readInt();
+		assertEquals(MessageType.REQUEST, MessageSerializer.deserializeHeader(buf));
+		assertEquals(requestId, MessageSerializer.getRequestId(buf));
+		KvStateInternalRequest requestDeser = serializer.deserializeRequest(buf);
+
+		assertEquals(buf.readerIndex(), frameLength + 4);
+
+		assertEquals(kvStateId, requestDeser.getKvStateId());
+		assertEquals(serializedKeysAndNamespaces.length, requestDeser.getNumberOfKeys());
+		for (int i = 0; i < serializedKeysAndNamespaces.length; i++) {
+			assertArrayEquals(serializedKeysAndNamespaces[i], requestDeser.getSerializedKeyAndNamespace(i));
+		}
+	}
+
+	/**
+	 * Tests serialization of a response for multiple keys, including keys without a result.
+	 */
+	@Test
+	public void testMultiKeyResponseSerialization() throws Exception {
+		long requestId = Integer.MAX_VALUE + 72727278L;
+		byte[][] serializedResults = {randomByteArray(1024), null, new byte[0]};
+
+		final KvStateResponse response = new KvStateResponse(serializedResults);
+		final MessageSerializer<KvStateInternalRequest, KvStateResponse> serializer =
+				new MessageSerializer<>(new KvStateInternalRequest.KvStateInternalRequestDeserializer(), new KvStateResponse.KvStateResponseDeserializer());
+
+		ByteBuf buf = MessageSerializer.serializeResponse(alloc, requestId, response);
+
+		int frameLength = buf.readInt();
+		assertEquals(MessageType.REQUEST_RESULT, MessageSerializer.deserializeHeader(buf));
+		assertEquals(requestId, MessageSerializer.getRequestId(buf));
+		KvStateResponse responseDeser = serializer.deserializeResponse(buf);
+
+		assertEquals(buf.readerIndex(), frameLength + 4);
+
+		assertEquals(serializedResults.length, responseDeser.getNumberOfEntries());
+		assertArrayEquals(serializedResults[0], responseDeser.getContent(0));
+		assertNull(responseDeser.getContent(1));
+		assertArrayEquals(serializedResults[2], responseDeser.getContent(2));
+	}
+
+	/**
+	 * Tests that messages for a single key are serialized in the format of previous versions,
+	 * so that clients and servers of different versions can still exchange them.
+	 */
+	@Test
+	public void testSingleKeyMessageFormat() throws Exception {
+		JobID jobId = new JobID();
+		KvStateID kvStateId = new KvStateID();
+		byte[] serializedKeyAndNamespace = randomByteArray(16);
+		byte[] serializedResult = randomByteArray(32);
+		byte[] serializedStateName = "state".getBytes(ConfigConstants.DEFAULT_CHARSET);
+
+		byte[] expectedRequest = ByteBuffer.allocate(JobID.SIZE + 3 * Integer.BYTES + serializedStateName.length + serializedKeyAndNamespace.length)
+				.putLong(jobId.getLowerPart())
+				.putLong(jobId.getUpperPart())
+				.putInt(serializedStateName.length)
+				.put(serializedStateName)
+				.putInt(42)
+				.putInt(serializedKeyAndNamespace.length)
+				.put(serializedKeyAndNamespace)
+				.array();
+		assertArrayEquals(expectedRequest, new KvStateRequest(jobId, "state", 42, serializedKeyAndNamespace).serialize());
+
+		byte[] expectedInternalRequest = ByteBuffer.allocate(KvStateID.SIZE + Integer.BYTES + serializedKeyAndNamespace.length)
+				.putLong(kvStateId.getLowerPart())
+				.putLong(kvStateId.getUpperPart())
+				.putInt(serializedKeyAndNamespace.length)
+				.put(serializedKeyAndNamespace)
+				.array();
+		assertArrayEquals(expectedInternalRequest, new KvStateInternalRequest(kvStateId, serializedKeyAndNamespace).serialize());
+
+		byte[] expectedResponse = ByteBuffer.allocate(Integer.BYTES + serializedResult.length)
+				.putInt(serializedResult.length)
+				.put(serializedResult)
+				.array();
+		assertArrayEquals(expectedResponse, new KvStateResponse(serializedResult).serialize());
+	}
+
 	/**
 	 * Tests request failure serialization.
 	 */
@@ -783,6 +783,44 @@ public class BlobServer extends Thread implements BlobService, BlobWriter, Perma
 		}
 	}
 
+	/**
+	 * Deletes the permanent BLOB of the given job from the local storage of the blob server and
+	 * from the HA store.
+	 *
+	 * @param jobId
+	 * 		ID of the job this blob belongs to
+	 * @param key
+	 * 		blob key associated with the file to be deleted
+	 *
+	 * @return  <tt>true</tt> if the given blob is successfully deleted or non-existing;
+	 *          <tt>false</tt> otherwise
+	 */
+	@Override
+	public boolean deletePermanent(JobID jobId, PermanentBlobKey key) {
+		checkNotNull(jobId);
+		checkNotNull(key);
+
+		final File localFile =
+			new File(BlobUtils.getStorageLocationPath(storageDir.getAbsolutePath(), jobId, key));
+
+		readWriteLock.writeLock().lock();
+
+		try {
+			boolean deletedLocally = true;
+			if (!localFile.delete() && localFile.exists()) {
+				LOG.warn("Failed to locally delete BLOB " + key + " at " + localFile.getAbsolutePath());
+				deletedLocally = false;
+			}
+
+			// delete in HA blob store files
+			final boolean deletedHA = blobStore.delete(jobId, key);
+
+			return deletedLocally && deletedHA;
+		} finally {
+			readWriteLock.writeLock().unlock();
+		}
+	}
+
 	/**
 	 * Removes all BLOBs from local and HA store belonging to the given job ID.
 	 *
@@ -70,6 +70,19 @@ public interface BlobWriter {
 	 */
 	PermanentBlobKey putPermanent(JobID jobId, InputStream inputStream) throws IOException;
 
+	/**
+	 * Deletes the permanent BLOB of the given job from the BLOB server and from the HA store.
+	 *
+	 * @param jobId
+	 * 		ID of the job this blob belongs to
+	 * @param permanentBlobKey
+	 * 		the key of the BLOB to delete
+	 *
+	 * @return  <tt>true</tt> if the given blob is successfully deleted or non-existing;
+	 *          <tt>false</tt> otherwise
+	 */
+	boolean deletePermanent(JobID jobId, PermanentBlobKey permanentBlobKey);
+
 	/**
 	 * Returns the min size before data will be offloaded to the BLOB store.
 	 *
@@ -44,6 +44,11 @@ public class VoidBlobWriter implements BlobWriter {
 		throw new IOException("The VoidBlobWriter cannot write data to the BLOB store.");
 	}
 
+	@Override
+	public boolean deletePermanent(JobID jobId, PermanentBlobKey permanentBlobKey) {
+		return true;
+	}
+
 	@Override
 	public int getMinOffloadingSize() {
 		return Integer.MAX_VALUE;
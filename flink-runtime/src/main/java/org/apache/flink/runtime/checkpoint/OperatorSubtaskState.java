@@ -24,6 +24,7 @@ import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateObject;
 import org.apache.flink.runtime.state.StateUtil;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.util.Preconditions;
 
 import org.slf4j.Logger;
@@ -80,6 +81,13 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 	@Nonnull
 	private final StateObjectCollection<KeyedStateHandle> rawKeyedState;
 
+	/**
+	 * In-flight input data that was received after the operator snapshot of an unaligned checkpoint and before the
+	 * checkpoint barrier of the respective input channel. This data must be replayed before new input on restore.
+	 */
+	@Nonnull
+	private final StateObjectCollection<StreamStateHandle> inputChannelState;
+
 	/**
 	 * The state size. This is also part of the deserialized state handle.
 	 * We store it here in order to not deserialize the state handle when
@@ -104,15 +112,32 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 		@Nonnull StateObjectCollection<KeyedStateHandle> managedKeyedState,
 		@Nonnull StateObjectCollection<KeyedStateHandle> rawKeyedState) {
 
+		this(
+			managedOperatorState,
+			rawOperatorState,
+			managedKeyedState,
+			rawKeyedState,
+			StateObjectCollection.empty());
+	}
+
+	public OperatorSubtaskState(
+		@Nonnull StateObjectCollection<OperatorStateHandle> managedOperatorState,
+		@Nonnull StateObjectCollection<OperatorStateHandle> rawOperatorState,
+		@Nonnull StateObjectCollection<KeyedStateHandle> managedKeyedState,
+		@Nonnull StateObjectCollection<KeyedStateHandle> rawKeyedState,
+		@Nonnull StateObjectCollection<StreamStateHandle> inputChannelState) {
+
 		this.managedOperatorState = Preconditions.checkNotNull(managedOperatorState);
 		this.rawOperatorState = Preconditions.checkNotNull(rawOperatorState);
 		this.managedKeyedState = Preconditions.checkNotNull(managedKeyedState);
 		this.rawKeyedState = Preconditions.checkNotNull(rawKeyedState);
+		this.inputChannelState = Preconditions.checkNotNull(inputChannelState);
 
 		long calculateStateSize = managedOperatorState.getStateSize();
 		calculateStateSize += rawOperatorState.getStateSize();
 		calculateStateSize += managedKeyedState.getStateSize();
 		calculateStateSize += rawKeyedState.getStateSize();
+		calculateStateSize += inputChannelState.getStateSize();
 		stateSize = calculateStateSize;
 	}
 
@@ -133,6 +158,25 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 			singletonOrEmptyOnNull(rawKeyedState));
 	}
 
+	/**
+	 * For convenience because the size of the collections is typically 0 or 1. Null values are translated into empty
+	 * Collections.
+	 */
+	public OperatorSubtaskState(
+		@Nullable OperatorStateHandle managedOperatorState,
+		@Nullable OperatorStateHandle rawOperatorState,
+		@Nullable KeyedStateHandle managedKeyedState,
+		@Nullable KeyedStateHandle rawKeyedState,
+		@Nullable StreamStateHandle inputChannelState) {
+
+		this(
+			singletonOrEmptyOnNull(managedOperatorState),
+			singletonOrEmptyOnNull(rawOperatorState),
+			singletonOrEmptyOnNull(managedKeyedState),
+			singletonOrEmptyOnNull(rawKeyedState),
+			singletonOrEmptyOnNull(inputChannelState));
+	}
+
 	private static <T extends StateObject> StateObjectCollection<T> singletonOrEmptyOnNull(T element) {
 		return element != null ? StateObjectCollection.singleton(element) : StateObjectCollection.empty();
 	}
@@ -171,6 +215,14 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 		return rawKeyedState;
 	}
 
+	/**
+	 * Returns a handle to the in-flight input data of an unaligned checkpoint.
+	 */
+	@Nonnull
+	public StateObjectCollection<StreamStateHandle> getInputChannelState() {
+		return inputChannelState;
+	}
+
 	@Override
 	public void discardState() {
 		try {
@@ -179,11 +231,13 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 						managedOperatorState.size() +
 						rawOperatorState.size() +
 						managedKeyedState.size() +
-						rawKeyedState.size());
+						rawKeyedState.size() +
+						inputChannelState.size());
 			toDispose.addAll(managedOperatorState);
 			toDispose.addAll(rawOperatorState);
 			toDispose.addAll(managedKeyedState);
 			toDispose.addAll(rawKeyedState);
+			toDispose.addAll(inputChannelState);
 			StateUtil.bestEffortDiscardAllStateObjects(toDispose);
 		} catch (Exception e) {
 			LOG.warn("Error while discarding operator states.", e);
@@ -236,6 +290,9 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 		if (!getManagedKeyedState().equals(that.getManagedKeyedState())) {
 			return false;
 		}
+		if (!getInputChannelState().equals(that.getInputChannelState())) {
+			return false;
+		}
 		return getRawKeyedState().equals(that.getRawKeyedState());
 	}
 
@@ -245,6 +302,7 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 		result = 31 * result + getRawOperatorState().hashCode();
 		result = 31 * result + getManagedKeyedState().hashCode();
 		result = 31 * result + getRawKeyedState().hashCode();
+		result = 31 * result + getInputChannelState().hashCode();
 		result = 31 * result + (int) (getStateSize() ^ (getStateSize() >>> 32));
 		return result;
 	}
@@ -256,6 +314,7 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 			", operatorStateFromStream=" + rawOperatorState +
 			", keyedStateFromBackend=" + managedKeyedState +
 			", keyedStateFromStream=" + rawKeyedState +
+			", inputChannelState=" + inputChannelState +
 			", stateSize=" + stateSize +
 			'}';
 	}
@@ -264,6 +323,7 @@ public class OperatorSubtaskState implements CompositeStateHandle {
 		return managedOperatorState.hasState()
 			|| rawOperatorState.hasState()
 			|| managedKeyedState.hasState()
-			|| rawKeyedState.hasState();
+			|| rawKeyedState.hasState()
+			|| inputChannelState.hasState();
 	}
 }
@@ -23,6 +23,7 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStateHandle;
 import org.apache.flink.runtime.state.StateObject;
+import org.apache.flink.runtime.state.StreamStateHandle;
 
 import javax.annotation.Nonnull;
 
@@ -59,6 +60,9 @@ public class PrioritizedOperatorSubtaskState {
 	/** List of prioritized snapshot alternatives for raw keyed state. */
 	private final List<StateObjectCollection<KeyedStateHandle>> prioritizedRawKeyedState;
 
+	/** In-flight input data of an unaligned checkpoint. There are no local alternatives for this state. */
+	private final StateObjectCollection<StreamStateHandle> inputChannelState;
+
 	/** Signal flag if this represents state for a restored operator. */
 	private final boolean restored;
 
@@ -67,12 +71,14 @@ public class PrioritizedOperatorSubtaskState {
 		@Nonnull List<StateObjectCollection<KeyedStateHandle>> prioritizedRawKeyedState,
 		@Nonnull List<StateObjectCollection<OperatorStateHandle>> prioritizedManagedOperatorState,
 		@Nonnull List<StateObjectCollection<OperatorStateHandle>> prioritizedRawOperatorState,
+		@Nonnull StateObjectCollection<StreamStateHandle> inputChannelState,
 		boolean restored) {
 
 		this.prioritizedManagedOperatorState = prioritizedManagedOperatorState;
 		this.prioritizedRawOperatorState = prioritizedRawOperatorState;
 		this.prioritizedManagedKeyedState = prioritizedManagedKeyedState;
 		this.prioritizedRawKeyedState = prioritizedRawKeyedState;
+		this.inputChannelState = inputChannelState;
 		this.restored = restored;
 	}
 
@@ -152,6 +158,15 @@ public class PrioritizedOperatorSubtaskState {
 		return lastElement(prioritizedRawKeyedState);
 	}
 
+	/**
+	 * Returns the in-flight input data of an unaligned checkpoint from the job manager. This state is only stored
+	 * remotely, so there are no alternatives.
+	 */
+	@Nonnull
+	public StateObjectCollection<StreamStateHandle> getJobManagerInputChannelState() {
+		return inputChannelState;
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	/**
@@ -246,6 +261,7 @@ public class PrioritizedOperatorSubtaskState {
 					jobManagerState.getRawOperatorState(),
 					rawOperatorAlternatives,
 					operatorStateApprover),
+				jobManagerState.getInputChannelState(),
 				restored);
 		}
 
@@ -30,6 +30,7 @@ import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.util.Preconditions;
 
 import org.slf4j.Logger;
@@ -169,6 +170,15 @@ public class StateAssignmentOperation {
 			newManagedKeyedState,
 			newRawKeyedState);
 
+		Map<OperatorInstanceID, List<StreamStateHandle>> newInputChannelState =
+			new HashMap<>(expectedNumberOfSubTasks);
+
+		reDistributeInputChannelStates(
+			operatorStates,
+			newParallelism,
+			operatorIDs,
+			newInputChannelState);
+
 		/*
 		 *  An executionJobVertex's all state handles needed to restore are something like a matrix
 		 *
@@ -185,6 +195,7 @@ public class StateAssignmentOperation {
 			newRawOperatorStates,
 			newManagedKeyedState,
 			newRawKeyedState,
+			newInputChannelState,
 			newParallelism);
 	}
 
@@ -194,6 +205,7 @@ public class StateAssignmentOperation {
 			Map<OperatorInstanceID, List<OperatorStateHandle>> subRawOperatorState,
 			Map<OperatorInstanceID, List<KeyedStateHandle>> subManagedKeyedState,
 			Map<OperatorInstanceID, List<KeyedStateHandle>> subRawKeyedState,
+			Map<OperatorInstanceID, List<StreamStateHandle>> subInputChannelState,
 			int newParallelism) {
 
 		List<OperatorID> operatorIDs = executionJobVertex.getOperatorIDs();
@@ -214,7 +226,8 @@ public class StateAssignmentOperation {
 					subManagedOperatorState,
 					subRawOperatorState,
 					subManagedKeyedState,
-					subRawKeyedState);
+					subRawKeyedState,
+					subInputChannelState);
 
 				if (operatorSubtaskState.hasState()) {
 					statelessTask = false;
@@ -236,10 +249,28 @@ public class StateAssignmentOperation {
 			Map<OperatorInstanceID, List<KeyedStateHandle>> subManagedKeyedState,
 			Map<OperatorInstanceID, List<KeyedStateHandle>> subRawKeyedState) {
 
+		return operatorSubtaskStateFrom(
+			instanceID,
+			subManagedOperatorState,
+			subRawOperatorState,
+			subManagedKeyedState,
+			subRawKeyedState,
+			Collections.emptyMap());
+	}
+
+	public static OperatorSubtaskState operatorSubtaskStateFrom(
+			OperatorInstanceID instanceID,
+			Map<OperatorInstanceID, List<OperatorStateHandle>> subManagedOperatorState,
+			Map<OperatorInstanceID, List<OperatorStateHandle>> subRawOperatorState,
+			Map<OperatorInstanceID, List<KeyedStateHandle>> subManagedKeyedState,
+			Map<OperatorInstanceID, List<KeyedStateHandle>> subRawKeyedState,
+			Map<OperatorInstanceID, List<StreamStateHandle>> subInputChannelState) {
+
 		if (!subManagedOperatorState.containsKey(instanceID) &&
 			!subRawOperatorState.containsKey(instanceID) &&
 			!subManagedKeyedState.containsKey(instanceID) &&
-			!subRawKeyedState.containsKey(instanceID)) {
+			!subRawKeyedState.containsKey(instanceID) &&
+			!subInputChannelState.containsKey(instanceID)) {
 
 			return new OperatorSubtaskState();
 		}
@@ -250,7 +281,8 @@ public class StateAssignmentOperation {
 			new StateObjectCollection<>(subManagedOperatorState.getOrDefault(instanceID, Collections.emptyList())),
 			new StateObjectCollection<>(subRawOperatorState.getOrDefault(instanceID, Collections.emptyList())),
 			new StateObjectCollection<>(subManagedKeyedState.getOrDefault(instanceID, Collections.emptyList())),
-			new StateObjectCollection<>(subRawKeyedState.getOrDefault(instanceID, Collections.emptyList())));
+			new StateObjectCollection<>(subRawKeyedState.getOrDefault(instanceID, Collections.emptyList())),
+			new StateObjectCollection<>(subInputChannelState.getOrDefault(instanceID, Collections.emptyList())));
 	}
 
 	public void checkParallelismPreconditions(List<OperatorState> operatorStates, ExecutionJobVertex executionJobVertex) {
@@ -359,6 +391,43 @@ public class StateAssignmentOperation {
 		}
 	}
 
+	/**
+	 * Assigns the in-flight input data of unaligned checkpoints to the new subtasks. The data was recorded per
+	 * physical input channel, so it can only be restored if the parallelism did not change.
+	 */
+	@VisibleForTesting
+	static void reDistributeInputChannelStates(
+			List<OperatorState> oldOperatorStates,
+			int newParallelism,
+			List<OperatorID> newOperatorIDs,
+			Map<OperatorInstanceID, List<StreamStateHandle>> newInputChannelState) {
+
+		checkState(newOperatorIDs.size() == oldOperatorStates.size(),
+			"This method still depends on the order of the new and old operators");
+
+		for (int operatorIndex = 0; operatorIndex < newOperatorIDs.size(); operatorIndex++) {
+			OperatorState operatorState = oldOperatorStates.get(operatorIndex);
+			int oldParallelism = operatorState.getParallelism();
+
+			for (int subTaskIndex = 0; subTaskIndex < oldParallelism; subTaskIndex++) {
+				OperatorSubtaskState operatorSubtaskState = operatorState.getState(subTaskIndex);
+				if (operatorSubtaskState == null || !operatorSubtaskState.getInputChannelState().hasState()) {
+					continue;
+				}
+
+				if (oldParallelism != newParallelism) {
+					throw new IllegalStateException("Cannot restore operator " + operatorState.getOperatorID() +
+						" from an unaligned checkpoint with in-flight data while changing its parallelism from " +
+						oldParallelism + " to " + newParallelism + '.');
+				}
+
+				newInputChannelState.put(
+					OperatorInstanceID.of(subTaskIndex, newOperatorIDs.get(operatorIndex)),
+					operatorSubtaskState.getInputChannelState().asList());
+			}
+		}
+	}
+
 	private static void splitManagedAndRawOperatorStates(
 		List<OperatorState> operatorStates,
 		List<List<List<OperatorStateHandle>>> managedOperatorStates,
@@ -24,7 +24,9 @@ import org.apache.flink.core.fs.Path;
 import org.apache.flink.runtime.checkpoint.MasterState;
 import org.apache.flink.runtime.checkpoint.OperatorState;
 import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.runtime.checkpoint.StateObjectCollection;
 import org.apache.flink.runtime.jobgraph.OperatorID;
+import org.apache.flink.runtime.state.HeapIncrementalKeyedStateHandle;
 import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
@@ -33,6 +35,7 @@ import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStreamStateHandle;
 import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateObject;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
@@ -82,6 +85,14 @@ public class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 	private static final byte KEY_GROUPS_HANDLE = 3;
 	private static final byte PARTITIONABLE_OPERATOR_STATE_HANDLE = 4;
 	private static final byte INCREMENTAL_KEY_GROUPS_HANDLE = 5;
+	private static final byte HEAP_INCREMENTAL_KEY_GROUPS_HANDLE = 6;
+
+	/**
+	 * Marker written in place of the removed duration field of a subtask state. Older versions always wrote
+	 * a non-negative duration or -1, so this marker flags the trailing in-flight input data section of
+	 * unaligned checkpoints without breaking the compatibility of the format.
+	 */
+	private static final long HAS_INPUT_CHANNEL_STATE_MARKER = -2L;
 
 	/** The singleton instance of the serializer */
 	public static final SavepointV2Serializer INSTANCE = new SavepointV2Serializer();
@@ -260,7 +271,8 @@ public class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 
 	private static void serializeSubtaskState(OperatorSubtaskState subtaskState, DataOutputStream dos) throws IOException {
 
-		dos.writeLong(-1);
+		final boolean hasInputChannelState = subtaskState.getInputChannelState().hasState();
+		dos.writeLong(hasInputChannelState ? HAS_INPUT_CHANNEL_STATE_MARKER : -1L);
 
 		int len = 0;
 		dos.writeInt(len);
@@ -286,10 +298,19 @@ public class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 
 		KeyedStateHandle keyedStateStream = extractSingleton(subtaskState.getRawKeyedState());
 		serializeKeyedStateHandle(keyedStateStream, dos);
+
+		if (hasInputChannelState) {
+			List<StreamStateHandle> inputChannelState = subtaskState.getInputChannelState().asList();
+			dos.writeInt(inputChannelState.size());
+			for (StreamStateHandle stateHandle : inputChannelState) {
+				serializeStreamStateHandle(stateHandle, dos);
+			}
+		}
 	}
 
 	private static OperatorSubtaskState deserializeSubtaskState(DataInputStream dis) throws IOException {
 		// Duration field has been removed from SubtaskState, do not remove
+		// it is reused as a marker for the presence of in-flight input data
 		long ignoredDuration = dis.readLong();
 
 		// for compatibility, do not remove
@@ -317,11 +338,25 @@ public class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 
 		KeyedStateHandle keyedStateStream = deserializeKeyedStateHandle(dis);
 
+		List<StreamStateHandle> inputChannelState = Collections.emptyList();
+		if (ignoredDuration == HAS_INPUT_CHANNEL_STATE_MARKER) {
+			len = dis.readInt();
+			inputChannelState = new ArrayList<>(len);
+			for (int i = 0; i < len; ++i) {
+				inputChannelState.add(deserializeStreamStateHandle(dis));
+			}
+		}
+
 		return new OperatorSubtaskState(
-				operatorStateBackend,
-				operatorStateStream,
-				keyedStateBackend,
-				keyedStateStream);
+				singletonOrEmpty(operatorStateBackend),
+				singletonOrEmpty(operatorStateStream),
+				singletonOrEmpty(keyedStateBackend),
+				singletonOrEmpty(keyedStateStream),
+				new StateObjectCollection<>(inputChannelState));
+	}
+
+	private static <T extends StateObject> StateObjectCollection<T> singletonOrEmpty(T stateObject) {
+		return stateObject != null ? StateObjectCollection.singleton(stateObject) : StateObjectCollection.empty();
 	}
 
 	@VisibleForTesting
@@ -344,7 +379,8 @@ public class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 			IncrementalRemoteKeyedStateHandle incrementalKeyedStateHandle =
 				(IncrementalRemoteKeyedStateHandle) stateHandle;
 
-			dos.writeByte(INCREMENTAL_KEY_GROUPS_HANDLE);
+			dos.writeByte(stateHandle instanceof HeapIncrementalKeyedStateHandle ?
+				HEAP_INCREMENTAL_KEY_GROUPS_HANDLE : INCREMENTAL_KEY_GROUPS_HANDLE);
 
 			dos.writeLong(incrementalKeyedStateHandle.getCheckpointId());
 			dos.writeUTF(String.valueOf(incrementalKeyedStateHandle.getBackendIdentifier()));
@@ -405,7 +441,7 @@ public class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 				keyGroupRange, offsets);
 			StreamStateHandle stateHandle = deserializeStreamStateHandle(dis);
 			return new KeyGroupsStateHandle(keyGroupRangeOffsets, stateHandle);
-		} else if (INCREMENTAL_KEY_GROUPS_HANDLE == type) {
+		} else if (INCREMENTAL_KEY_GROUPS_HANDLE == type || HEAP_INCREMENTAL_KEY_GROUPS_HANDLE == type) {
 
 			long checkpointId = dis.readLong();
 			String backendId = dis.readUTF();
@@ -427,6 +463,16 @@ public class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 				uuid = UUID.nameUUIDFromBytes(backendId.getBytes(StandardCharsets.UTF_8));
 			}
 
+			if (HEAP_INCREMENTAL_KEY_GROUPS_HANDLE == type) {
+				return new HeapIncrementalKeyedStateHandle(
+					uuid,
+					keyGroupRange,
+					checkpointId,
+					sharedStates,
+					privateStates,
+					metaDataStateHandle);
+			}
+
 			return new IncrementalRemoteKeyedStateHandle(
 				uuid,
 				keyGroupRange,
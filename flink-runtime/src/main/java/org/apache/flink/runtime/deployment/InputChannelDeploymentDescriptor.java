@@ -18,21 +18,18 @@
 
 package org.apache.flink.runtime.deployment;
 
-import org.apache.flink.runtime.clusterframework.types.ResourceID;
-import org.apache.flink.runtime.execution.ExecutionState;
-import org.apache.flink.runtime.executiongraph.Execution;
 import org.apache.flink.runtime.executiongraph.ExecutionEdge;
+import org.apache.flink.runtime.executiongraph.ExecutionVertex;
 import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
-import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.runtime.jobmaster.LogicalSlot;
-import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
 
 import javax.annotation.Nonnull;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -89,98 +86,69 @@ public class InputChannelDeploymentDescriptor implements Serializable {
 	public static List<InputChannelDeploymentDescriptor> fromEdges(
 			List<ExecutionEdge> edges,
 			boolean allowLazyDeployment) {
-		return edges.stream().map(edge -> fromEdgeAndValidate(allowLazyDeployment, edge)).collect(Collectors.toList());
+		return edges.stream()
+			.map(edge -> fromPartitionAndValidate(allowLazyDeployment, edge.getSource(), edge.getTarget()))
+			.collect(Collectors.toList());
 	}
 
-	@Nonnull
-	private static InputChannelDeploymentDescriptor fromEdgeAndValidate(boolean allowLazyDeployment, ExecutionEdge edge) {
-		final InputChannelDeploymentDescriptor inputChannelDeploymentDescriptor = fromEdge(edge);
-
-		if (!allowLazyDeployment && inputChannelDeploymentDescriptor.getConsumedPartitionLocation().isUnknown()) {
-			final IntermediateResultPartition consumedPartition = edge.getSource();
-			final Execution producer = consumedPartition.getProducer().getCurrentExecutionAttempt();
-			final ExecutionState producerState = producer.getState();
-
-			if (producerState == ExecutionState.CANCELING
-				|| producerState == ExecutionState.CANCELED
-				|| producerState == ExecutionState.FAILED) {
-				String msg = "Trying to schedule a task whose inputs were canceled or failed. " +
-					"The producer is in state " + producerState + '.';
-				throw new IllegalStateException(msg);
-			} else {
-				final LogicalSlot producerSlot = producer.getAssignedResource();
-
-				String msg = String.format("Trying to eagerly schedule a task whose inputs " +
-						"are not ready (result type: %s, partition consumable: %s, producer state: %s, producer slot: %s).",
-					consumedPartition.getResultType(),
-					consumedPartition.isConsumable(),
-					producerState,
-					producerSlot);
-				throw new IllegalStateException(msg);
-			}
+	/**
+	 * Creates an input channel deployment descriptor for each of the partitions consumed by the
+	 * given consumer.
+	 */
+	public static List<InputChannelDeploymentDescriptor> fromPartitions(
+			Iterable<IntermediateResultPartition> consumedPartitions,
+			ExecutionVertex consumer,
+			boolean allowLazyDeployment) {
+		final List<InputChannelDeploymentDescriptor> descriptors = new ArrayList<>();
+		for (IntermediateResultPartition consumedPartition : consumedPartitions) {
+			descriptors.add(fromPartitionAndValidate(allowLazyDeployment, consumedPartition, consumer));
 		}
-
-		return inputChannelDeploymentDescriptor;
+		return descriptors;
 	}
 
 	@Nonnull
-	public static InputChannelDeploymentDescriptor fromEdge(ExecutionEdge edge) {
-		final IntermediateResultPartition consumedPartition = edge.getSource();
-		final Execution producer = consumedPartition.getProducer().getCurrentExecutionAttempt();
-
-		final ExecutionState producerState = producer.getState();
-		final LogicalSlot producerSlot = producer.getAssignedResource();
-
-		final ResultPartitionLocation partitionLocation;
-
-		// The producing task needs to be RUNNING or already FINISHED
-		if ((consumedPartition.getResultType().isPipelined() || consumedPartition.isConsumable()) &&
-			producerSlot != null &&
-				(producerState == ExecutionState.RUNNING ||
-					producerState == ExecutionState.FINISHED ||
-					producerState == ExecutionState.SCHEDULED ||
-					producerState == ExecutionState.DEPLOYING)) {
-
-			final TaskManagerLocation partitionTaskManagerLocation = producerSlot.getTaskManagerLocation();
-			final LogicalSlot consumerSlot = edge.getTarget().getCurrentAssignedResource();
-
-			if (consumerSlot != null) {
-				partitionLocation = createKnownResultPartitionLocation(consumerSlot.getTaskManagerLocation().getResourceID(), consumedPartition, partitionTaskManagerLocation);
-			} else {
-				throw new IllegalStateException("Cannot create an input channel descriptor for a consumer which has no slot assigned.");
-			}
-		}
-		else {
-			// The producing task might not have registered the partition yet
-			partitionLocation = ResultPartitionLocation.createUnknown();
-		}
+	private static InputChannelDeploymentDescriptor fromPartitionAndValidate(
+			boolean allowLazyDeployment,
+			IntermediateResultPartition consumedPartition,
+			ExecutionVertex consumer) {
+		final ShuffleDescriptor shuffleDescriptor =
+			ShuffleDescriptor.fromPartitionAndValidate(consumedPartition, allowLazyDeployment);
 
-		final ResultPartitionID consumedPartitionId = new ResultPartitionID(
-				consumedPartition.getPartitionId(), producer.getAttemptId());
+		return fromShuffleDescriptor(shuffleDescriptor, consumer);
+	}
 
-		return new InputChannelDeploymentDescriptor(consumedPartitionId, partitionLocation);
+	@Nonnull
+	public static InputChannelDeploymentDescriptor fromEdge(ExecutionEdge edge) {
+		return fromPartition(edge.getSource(), edge.getTarget());
 	}
 
+	/**
+	 * Creates an input channel deployment descriptor for the given partition consumed by the
+	 * given consumer.
+	 */
 	@Nonnull
-	private static ResultPartitionLocation createKnownResultPartitionLocation(
-			ResourceID consumerResourceId,
+	public static InputChannelDeploymentDescriptor fromPartition(
 			IntermediateResultPartition consumedPartition,
-			TaskManagerLocation partitionTaskManagerLocation) {
-		ResultPartitionLocation partitionLocation;
-		final ResourceID partitionTaskManager = partitionTaskManagerLocation.getResourceID();
+			ExecutionVertex consumer) {
+		return fromShuffleDescriptor(ShuffleDescriptor.fromPartition(consumedPartition), consumer);
+	}
 
-		if (partitionTaskManager.equals(consumerResourceId)) {
-			// Consuming task is deployed to the same TaskManager as the partition => local
-			partitionLocation = ResultPartitionLocation.createLocal();
+	@Nonnull
+	private static InputChannelDeploymentDescriptor fromShuffleDescriptor(
+			ShuffleDescriptor shuffleDescriptor,
+			ExecutionVertex consumer) {
+		if (shuffleDescriptor.isUnknown()) {
+			// The producing task might not have registered the partition yet
+			return shuffleDescriptor.toInputChannelDeploymentDescriptor(null);
 		}
-		else {
-			// Different instances => remote
-			final ConnectionID connectionId = new ConnectionID(
-					partitionTaskManagerLocation,
-					consumedPartition.getIntermediateResult().getConnectionIndex());
 
-			partitionLocation = ResultPartitionLocation.createRemote(connectionId);
+		final LogicalSlot consumerSlot = consumer.getCurrentAssignedResource();
+
+		if (consumerSlot != null) {
+			return shuffleDescriptor.toInputChannelDeploymentDescriptor(
+				consumerSlot.getTaskManagerLocation().getResourceID());
+		} else {
+			throw new IllegalStateException("Cannot create an input channel descriptor for a consumer which has no slot assigned.");
 		}
-		return partitionLocation;
 	}
 }
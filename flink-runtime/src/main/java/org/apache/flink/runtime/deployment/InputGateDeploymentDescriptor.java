@@ -18,16 +18,31 @@
 
 package org.apache.flink.runtime.deployment;
 
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.runtime.blob.PermanentBlobKey;
+import org.apache.flink.runtime.blob.PermanentBlobService;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.MaybeOffloaded;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.NonOffloaded;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.Offloaded;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.runtime.jobgraph.DistributionPattern;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.SerializedValue;
+
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * Deployment descriptor for a single input gate instance.
@@ -35,6 +50,11 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * <p>Each input gate consumes partitions of a single intermediate result. The consumed
  * subpartition index is the same for each consumed partition.
  *
+ * <p>The input channels are either given directly or as a (possibly offloaded) list of
+ * {@link ShuffleDescriptor}s which is shared by all consumers of the intermediate result. In the
+ * latter case, the input channels are only available after {@link #loadBigData} was called on the
+ * consuming TaskExecutor.
+ *
  * @see SingleInputGate
  */
 public class InputGateDeploymentDescriptor implements Serializable {
@@ -56,8 +76,13 @@ public class InputGateDeploymentDescriptor implements Serializable {
 	 */
 	private final int consumedSubpartitionIndex;
 
-	/** An input channel for each consumed subpartition. */
-	private final InputChannelDeploymentDescriptor[] inputChannels;
+	/** An input channel for each consumed subpartition, or null if not resolved yet. */
+	@Nullable
+	private InputChannelDeploymentDescriptor[] inputChannels;
+
+	/** The shared shuffle descriptors of the consumed partitions, or null if not used. */
+	@Nullable
+	private MaybeOffloaded<ShuffleDescriptor[]> serializedShuffleDescriptors;
 
 	public InputGateDeploymentDescriptor(
 			IntermediateDataSetID consumedResultId,
@@ -72,6 +97,23 @@ public class InputGateDeploymentDescriptor implements Serializable {
 		this.consumedSubpartitionIndex = consumedSubpartitionIndex;
 
 		this.inputChannels = checkNotNull(inputChannels);
+		this.serializedShuffleDescriptors = null;
+	}
+
+	public InputGateDeploymentDescriptor(
+			IntermediateDataSetID consumedResultId,
+			ResultPartitionType consumedPartitionType,
+			int consumedSubpartitionIndex,
+			MaybeOffloaded<ShuffleDescriptor[]> serializedShuffleDescriptors) {
+
+		this.consumedResultId = checkNotNull(consumedResultId);
+		this.consumedPartitionType = checkNotNull(consumedPartitionType);
+
+		checkArgument(consumedSubpartitionIndex >= 0);
+		this.consumedSubpartitionIndex = consumedSubpartitionIndex;
+
+		this.inputChannels = null;
+		this.serializedShuffleDescriptors = checkNotNull(serializedShuffleDescriptors);
 	}
 
 	public IntermediateDataSetID getConsumedResultId() {
@@ -92,14 +134,80 @@ public class InputGateDeploymentDescriptor implements Serializable {
 	}
 
 	public InputChannelDeploymentDescriptor[] getInputChannelDeploymentDescriptors() {
+		checkState(inputChannels != null, "The shuffle descriptors have not been loaded yet.");
 		return inputChannels;
 	}
 
+	/**
+	 * Resolves the shared shuffle descriptors to the input channels of a consumer running on the
+	 * given task manager. Offloaded descriptors are read from the BLOB store unless the cache
+	 * already holds them.
+	 *
+	 * @param jobId the job of the consuming task
+	 * @param blobService the blob store to use (may be <tt>null</tt> if the descriptors are not offloaded)
+	 * @param shuffleDescriptorCache the cache for offloaded descriptors (may be <tt>null</tt>)
+	 * @param localResourceId the task manager of the consuming task
+	 *
+	 * @throws IOException during errors retrieving or reading the BLOB
+	 * @throws ClassNotFoundException Class of a serialized object cannot be found.
+	 */
+	void loadBigData(
+			JobID jobId,
+			@Nullable PermanentBlobService blobService,
+			@Nullable ShuffleDescriptorCache shuffleDescriptorCache,
+			@Nullable ResourceID localResourceId) throws IOException, ClassNotFoundException {
+
+		if (serializedShuffleDescriptors == null) {
+			return;
+		}
+
+		final ShuffleDescriptor[] shuffleDescriptors;
+
+		if (serializedShuffleDescriptors instanceof Offloaded) {
+			final PermanentBlobKey blobKey =
+				((Offloaded<ShuffleDescriptor[]>) serializedShuffleDescriptors).serializedValueKey;
+
+			final ShuffleDescriptor[] cached = shuffleDescriptorCache != null
+				? shuffleDescriptorCache.get(jobId, consumedResultId, blobKey)
+				: null;
+
+			if (cached != null) {
+				shuffleDescriptors = cached;
+			} else {
+				checkNotNull(blobService);
+
+				final File dataFile = blobService.getFile(jobId, blobKey);
+				// NOTE: Do not delete the BLOB since it is shared by all consumers of the result.
+				//       (it is deleted automatically on the BLOB server and cache when the job
+				//       enters a terminal state)
+				final SerializedValue<ShuffleDescriptor[]> serializedValue =
+					SerializedValue.fromBytes(FileUtils.readAllBytes(dataFile.toPath()));
+				shuffleDescriptors = serializedValue.deserializeValue(getClass().getClassLoader());
+
+				if (shuffleDescriptorCache != null) {
+					shuffleDescriptorCache.put(jobId, consumedResultId, blobKey, shuffleDescriptors);
+				}
+			}
+		} else {
+			shuffleDescriptors = ((NonOffloaded<ShuffleDescriptor[]>) serializedShuffleDescriptors)
+				.serializedValue.deserializeValue(getClass().getClassLoader());
+		}
+
+		final InputChannelDeploymentDescriptor[] resolvedInputChannels =
+			new InputChannelDeploymentDescriptor[shuffleDescriptors.length];
+		for (int i = 0; i < shuffleDescriptors.length; i++) {
+			resolvedInputChannels[i] = shuffleDescriptors[i].toInputChannelDeploymentDescriptor(localResourceId);
+		}
+
+		inputChannels = resolvedInputChannels;
+		serializedShuffleDescriptors = null;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("InputGateDeploymentDescriptor [result id: %s, " +
 						"consumed subpartition index: %d, input channels: %s]",
 				consumedResultId.toString(), consumedSubpartitionIndex,
-				Arrays.toString(inputChannels));
+				inputChannels != null ? Arrays.toString(inputChannels) : serializedShuffleDescriptors);
 	}
 }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.deployment;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.execution.ExecutionState;
+import org.apache.flink.runtime.executiongraph.Execution;
+import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
+import org.apache.flink.runtime.io.network.ConnectionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.jobmaster.LogicalSlot;
+import org.apache.flink.runtime.taskmanager.TaskManagerLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Describes where to find a consumed partition, independent of the consuming task.
+ *
+ * <p>In contrast to the {@link InputChannelDeploymentDescriptor}, which tells whether the partition
+ * is local or remote to the consumer, this descriptor only holds the task manager of the producer.
+ * It can therefore be serialized once and shared by all consumers of a partition, which resolve the
+ * {@link ResultPartitionLocation} for themselves via
+ * {@link #toInputChannelDeploymentDescriptor(ResourceID)}.
+ */
+public class ShuffleDescriptor implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The ID of the described partition. */
+	private final ResultPartitionID partitionId;
+
+	/** The task manager of the producer, or null if the location of the partition is unknown. */
+	@Nullable
+	private final ResourceID producerResourceId;
+
+	/** The connection to the task manager of the producer, or null if unknown. */
+	@Nullable
+	private final ConnectionID connectionId;
+
+	@VisibleForTesting
+	ShuffleDescriptor(
+			ResultPartitionID partitionId,
+			@Nullable ResourceID producerResourceId,
+			@Nullable ConnectionID connectionId) {
+		checkArgument((producerResourceId == null) == (connectionId == null));
+
+		this.partitionId = checkNotNull(partitionId);
+		this.producerResourceId = producerResourceId;
+		this.connectionId = connectionId;
+	}
+
+	public ResultPartitionID getPartitionId() {
+		return partitionId;
+	}
+
+	public boolean isUnknown() {
+		return producerResourceId == null;
+	}
+
+	/**
+	 * Creates the input channel deployment descriptor for a consumer on the given task manager.
+	 *
+	 * @param consumerResourceId the task manager of the consumer, may only be null if the location
+	 *                           of the partition is unknown
+	 */
+	public InputChannelDeploymentDescriptor toInputChannelDeploymentDescriptor(@Nullable ResourceID consumerResourceId) {
+		final ResultPartitionLocation partitionLocation;
+
+		if (isUnknown()) {
+			partitionLocation = ResultPartitionLocation.createUnknown();
+		} else if (checkNotNull(consumerResourceId).equals(producerResourceId)) {
+			// Consuming task is deployed to the same TaskManager as the partition => local
+			partitionLocation = ResultPartitionLocation.createLocal();
+		} else {
+			// Different instances => remote
+			partitionLocation = ResultPartitionLocation.createRemote(connectionId);
+		}
+
+		return new InputChannelDeploymentDescriptor(partitionId, partitionLocation);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates the shuffle descriptor of the given partition from the current state of its producer.
+	 */
+	@Nonnull
+	public static ShuffleDescriptor fromPartition(IntermediateResultPartition consumedPartition) {
+		final Execution producer = consumedPartition.getProducer().getCurrentExecutionAttempt();
+
+		final ExecutionState producerState = producer.getState();
+		final LogicalSlot producerSlot = producer.getAssignedResource();
+
+		final ResultPartitionID consumedPartitionId = new ResultPartitionID(
+				consumedPartition.getPartitionId(), producer.getAttemptId());
+
+		// The producing task needs to be RUNNING or already FINISHED
+		if ((consumedPartition.getResultType().isPipelined() || consumedPartition.isConsumable()) &&
+			producerSlot != null &&
+				(producerState == ExecutionState.RUNNING ||
+					producerState == ExecutionState.FINISHED ||
+					producerState == ExecutionState.SCHEDULED ||
+					producerState == ExecutionState.DEPLOYING)) {
+
+			final TaskManagerLocation partitionTaskManagerLocation = producerSlot.getTaskManagerLocation();
+			final ConnectionID connectionId = new ConnectionID(
+					partitionTaskManagerLocation,
+					consumedPartition.getIntermediateResult().getConnectionIndex());
+
+			return new ShuffleDescriptor(consumedPartitionId, partitionTaskManagerLocation.getResourceID(), connectionId);
+		}
+		else {
+			// The producing task might not have registered the partition yet
+			return new ShuffleDescriptor(consumedPartitionId, null, null);
+		}
+	}
+
+	/**
+	 * Creates the shuffle descriptor of the given partition and checks that the partition can be
+	 * consumed if the consumer is not deployed lazily.
+	 */
+	@Nonnull
+	public static ShuffleDescriptor fromPartitionAndValidate(
+			IntermediateResultPartition consumedPartition,
+			boolean allowLazyDeployment) {
+		final ShuffleDescriptor shuffleDescriptor = fromPartition(consumedPartition);
+
+		if (!allowLazyDeployment && shuffleDescriptor.isUnknown()) {
+			final Execution producer = consumedPartition.getProducer().getCurrentExecutionAttempt();
+			final ExecutionState producerState = producer.getState();
+
+			if (producerState == ExecutionState.CANCELING
+				|| producerState == ExecutionState.CANCELED
+				|| producerState == ExecutionState.FAILED) {
+				String msg = "Trying to schedule a task whose inputs were canceled or failed. " +
+					"The producer is in state " + producerState + '.';
+				throw new IllegalStateException(msg);
+			} else {
+				final LogicalSlot producerSlot = producer.getAssignedResource();
+
+				String msg = String.format("Trying to eagerly schedule a task whose inputs " +
+						"are not ready (result type: %s, partition consumable: %s, producer state: %s, producer slot: %s).",
+					consumedPartition.getResultType(),
+					consumedPartition.isConsumable(),
+					producerState,
+					producerSlot);
+				throw new IllegalStateException(msg);
+			}
+		}
+
+		return shuffleDescriptor;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		ShuffleDescriptor that = (ShuffleDescriptor) o;
+		return partitionId.equals(that.partitionId) &&
+			Objects.equals(producerResourceId, that.producerResourceId) &&
+			Objects.equals(connectionId, that.connectionId);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(partitionId, producerResourceId, connectionId);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ShuffleDescriptor [partition id: %s, producer location: %s, connection id: %s]",
+			partitionId, producerResourceId, connectionId);
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.deployment;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.runtime.blob.PermanentBlobKey;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
+
+import javax.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Cache for the deserialized {@link ShuffleDescriptor} lists which the JobMaster offloaded to the
+ * {@link org.apache.flink.runtime.blob.BlobServer}.
+ *
+ * <p>All consumers of an all-to-all connected intermediate result share the same list of shuffle
+ * descriptors. Caching the deserialized list per job and result avoids reading and deserializing
+ * the same BLOB for every deployed consumer task. Only the latest version of the list is kept for
+ * each result, since a changed list (e.g. after a failover) is offloaded under a new key.
+ *
+ * <p>This class is not thread-safe and is meant to be accessed from the main thread of the
+ * TaskExecutor only.
+ */
+public class ShuffleDescriptorCache {
+
+	private final Map<JobID, Map<IntermediateDataSetID, CachedShuffleDescriptors>> cachedDescriptors = new HashMap<>();
+
+	/**
+	 * Returns the cached shuffle descriptors of the given result, or null if the cache does not
+	 * contain the list stored under the given BLOB key.
+	 */
+	@Nullable
+	public ShuffleDescriptor[] get(JobID jobId, IntermediateDataSetID resultId, PermanentBlobKey blobKey) {
+		final Map<IntermediateDataSetID, CachedShuffleDescriptors> jobDescriptors = cachedDescriptors.get(jobId);
+		if (jobDescriptors == null) {
+			return null;
+		}
+
+		final CachedShuffleDescriptors cached = jobDescriptors.get(resultId);
+		if (cached == null || !cached.blobKey.equals(blobKey)) {
+			return null;
+		}
+
+		return cached.shuffleDescriptors;
+	}
+
+	/**
+	 * Caches the shuffle descriptors of the given result, replacing any previous version.
+	 */
+	public void put(
+			JobID jobId,
+			IntermediateDataSetID resultId,
+			PermanentBlobKey blobKey,
+			ShuffleDescriptor[] shuffleDescriptors) {
+		cachedDescriptors
+			.computeIfAbsent(jobId, ignored -> new HashMap<>())
+			.put(resultId, new CachedShuffleDescriptors(blobKey, shuffleDescriptors));
+	}
+
+	/**
+	 * Removes all cached shuffle descriptors of the given job.
+	 */
+	public void clearJob(JobID jobId) {
+		cachedDescriptors.remove(jobId);
+	}
+
+	int size() {
+		int size = 0;
+		for (Map<IntermediateDataSetID, CachedShuffleDescriptors> jobDescriptors : cachedDescriptors.values()) {
+			size += jobDescriptors.size();
+		}
+		return size;
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static final class CachedShuffleDescriptors {
+
+		private final PermanentBlobKey blobKey;
+
+		private final ShuffleDescriptor[] shuffleDescriptors;
+
+		CachedShuffleDescriptors(PermanentBlobKey blobKey, ShuffleDescriptor[] shuffleDescriptors) {
+			this.blobKey = checkNotNull(blobKey);
+			this.shuffleDescriptors = checkNotNull(shuffleDescriptors);
+		}
+	}
+}
@@ -23,6 +23,7 @@ import org.apache.flink.runtime.blob.PermanentBlobKey;
 import org.apache.flink.runtime.blob.PermanentBlobService;
 import org.apache.flink.runtime.checkpoint.JobManagerTaskRestore;
 import org.apache.flink.runtime.clusterframework.types.AllocationID;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.executiongraph.JobInformation;
 import org.apache.flink.runtime.executiongraph.TaskInformation;
@@ -287,6 +288,30 @@ public final class TaskDeploymentDescriptor implements Serializable {
 	 */
 	public void loadBigData(@Nullable PermanentBlobService blobService)
 			throws IOException, ClassNotFoundException {
+		loadBigData(blobService, null, null);
+	}
+
+	/**
+	 * Loads externalized data from the BLOB store back to the object and resolves the shared
+	 * shuffle descriptors of the input gates for the given task manager.
+	 *
+	 * @param blobService
+	 * 		the blob store to use (may be <tt>null</tt> if no data was offloaded)
+	 * @param shuffleDescriptorCache
+	 * 		the cache for offloaded shuffle descriptors (may be <tt>null</tt>)
+	 * @param localResourceId
+	 * 		the task manager the task is deployed to (may be <tt>null</tt> if no input gate uses
+	 * 		shared shuffle descriptors of known partitions)
+	 *
+	 * @throws IOException
+	 * 		during errors retrieving or reading the BLOBs
+	 * @throws ClassNotFoundException
+	 * 		Class of a serialized object cannot be found.
+	 */
+	public void loadBigData(
+			@Nullable PermanentBlobService blobService,
+			@Nullable ShuffleDescriptorCache shuffleDescriptorCache,
+			@Nullable ResourceID localResourceId) throws IOException, ClassNotFoundException {
 
 		// re-integrate offloaded job info from blob
 		// here, if this fails, we need to throw the exception as there is no backup path anymore
@@ -319,6 +344,11 @@ public final class TaskDeploymentDescriptor implements Serializable {
 			serializedTaskInformation = new NonOffloaded<>(serializedValue);
 		}
 
+		// resolve the shared shuffle descriptors of the input gates
+		for (InputGateDeploymentDescriptor inputGate : inputGates) {
+			inputGate.loadBigData(jobId, blobService, shuffleDescriptorCache, localResourceId);
+		}
+
 		// make sure that the serialized job and task information fields are filled
 		Preconditions.checkNotNull(serializedJobInformation);
 		Preconditions.checkNotNull(serializedTaskInformation);
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.executiongraph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The partitions of an {@link IntermediateResult} that are consumed by one input of an
+ * {@link ExecutionVertex}.
+ *
+ * <p>All consumers of an all-to-all connected result share one group that holds all partitions of
+ * the result, so that connecting a consumer with {@code n} producers neither creates {@code n}
+ * edges nor copies the partitions. For pointwise connected results, every consumer has a group of
+ * the few partitions it reads.
+ */
+public class ConsumedPartitionGroup implements Iterable<IntermediateResultPartition> {
+
+	private final IntermediateResultPartition[] partitions;
+
+	ConsumedPartitionGroup(IntermediateResultPartition[] partitions) {
+		this.partitions = checkNotNull(partitions);
+		checkArgument(partitions.length > 0, "A consumed partition group must not be empty.");
+	}
+
+	public int size() {
+		return partitions.length;
+	}
+
+	public IntermediateResultPartition getPartition(int index) {
+		return partitions[index];
+	}
+
+	public IntermediateResult getIntermediateResult() {
+		return partitions[0].getIntermediateResult();
+	}
+
+	@Override
+	public Iterator<IntermediateResultPartition> iterator() {
+		return Arrays.asList(partitions).iterator();
+	}
+
+	@Override
+	public String toString() {
+		return "ConsumedPartitionGroup [" + partitions.length + " partitions of " + partitions[0].getIntermediateResult().getId() + "]";
+	}
+}
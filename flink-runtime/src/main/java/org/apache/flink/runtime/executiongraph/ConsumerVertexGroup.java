@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.executiongraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The {@link ExecutionVertex execution vertices} that consume an {@link IntermediateResultPartition}
+ * for one consumer of its {@link IntermediateResult}.
+ *
+ * <p>All partitions of an all-to-all connected result share one group that holds all subtasks of
+ * the consuming job vertex. For pointwise connected results, every partition has a group of the
+ * few subtasks that read it.
+ */
+public class ConsumerVertexGroup implements Iterable<ExecutionVertex> {
+
+	private final List<ExecutionVertex> vertices;
+
+	private final boolean shared;
+
+	private ConsumerVertexGroup(List<ExecutionVertex> vertices, boolean shared) {
+		this.vertices = checkNotNull(vertices);
+		this.shared = shared;
+	}
+
+	/**
+	 * Creates the group shared by all partitions of an all-to-all connected result.
+	 */
+	static ConsumerVertexGroup forAllToAll(ExecutionVertex[] consumers) {
+		return new ConsumerVertexGroup(Collections.unmodifiableList(Arrays.asList(consumers)), true);
+	}
+
+	/**
+	 * Creates an initially empty group for a single partition of a pointwise connected result.
+	 */
+	static ConsumerVertexGroup forPointwise() {
+		return new ConsumerVertexGroup(new ArrayList<>(1), false);
+	}
+
+	void add(ExecutionVertex consumer) {
+		if (shared) {
+			throw new IllegalStateException("Cannot add a consumer to the consumers of an all-to-all connected result.");
+		}
+		vertices.add(checkNotNull(consumer));
+	}
+
+	public int size() {
+		return vertices.size();
+	}
+
+	public boolean isEmpty() {
+		return vertices.isEmpty();
+	}
+
+	public ExecutionVertex getVertex(int index) {
+		return vertices.get(index);
+	}
+
+	@Override
+	public Iterator<ExecutionVertex> iterator() {
+		return vertices.iterator();
+	}
+
+	@Override
+	public String toString() {
+		return "ConsumerVertexGroup [" + vertices.size() + " consumers]";
+	}
+}
@@ -291,6 +291,7 @@ public class Execution implements AccessExecution, Archiveable<ArchivedExecution
 					if ((state == SCHEDULED || state == CREATED) && !taskManagerLocationFuture.isDone()) {
 						taskManagerLocationFuture.complete(logicalSlot.getTaskManagerLocation());
 						assignedAllocationID = logicalSlot.getAllocationId();
+						vertex.invalidateProducedShuffleDescriptors();
 						return true;
 					} else {
 						// free assigned resource and return false
@@ -747,9 +748,10 @@ public class Execution implements AccessExecution, Archiveable<ArchivedExecution
 		}
 	}
 
-	void scheduleOrUpdateConsumers(List<List<ExecutionEdge>> allConsumers) {
+	void scheduleOrUpdateConsumers(IntermediateResultPartition partition) {
 		assertRunningInJobMasterMainThread();
 
+		final List<ConsumerVertexGroup> allConsumers = partition.getConsumers();
 		final int numConsumers = allConsumers.size();
 		if (numConsumers > 1) {
 			fail(new IllegalStateException("Currently, only a single consumer group per partition is supported."));
@@ -757,8 +759,7 @@ public class Execution implements AccessExecution, Archiveable<ArchivedExecution
 			return;
 		}
 
-		for (ExecutionEdge edge : allConsumers.get(0)) {
-			final ExecutionVertex consumerVertex = edge.getTarget();
+		for (ExecutionVertex consumerVertex : allConsumers.get(0)) {
 			final Execution consumer = consumerVertex.getCurrentExecutionAttempt();
 			final ExecutionState consumerState = consumer.getState();
 
@@ -783,7 +784,7 @@ public class Execution implements AccessExecution, Archiveable<ArchivedExecution
 			// sent after switching to running
 			// ----------------------------------------------------------------
 			else if (consumerState == DEPLOYING || consumerState == RUNNING) {
-				final PartitionInfo partitionInfo = PartitionInfo.fromEdge(edge);
+				final PartitionInfo partitionInfo = PartitionInfo.fromPartition(partition, consumerVertex);
 
 				if (consumerState == DEPLOYING) {
 					consumerVertex.cachePartitionInfo(partitionInfo);
@@ -942,7 +943,7 @@ public class Execution implements AccessExecution, Archiveable<ArchivedExecution
 									.getIntermediateResult().getPartitions();
 
 							for (IntermediateResultPartition partition : allPartitions) {
-								scheduleOrUpdateConsumers(partition.getConsumers());
+								scheduleOrUpdateConsumers(partition);
 							}
 						}
 
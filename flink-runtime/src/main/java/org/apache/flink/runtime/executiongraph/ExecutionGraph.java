@@ -102,6 +102,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
@@ -768,6 +769,22 @@ public class ExecutionGraph implements AccessExecutionGraph {
 		return blobWriter;
 	}
 
+	/**
+	 * Deletes a permanent BLOB of this job that is no longer handed out to new deployments. The
+	 * deletion is delayed by the RPC timeout, so that deployments which were submitted before and
+	 * may still reference the BLOB are either acknowledged or failed by then.
+	 */
+	void deleteBlobAfterPendingDeployments(PermanentBlobKey blobKey) {
+		futureExecutor.schedule(
+			() -> ioExecutor.execute(() -> {
+				if (!blobWriter.deletePermanent(getJobID(), blobKey)) {
+					LOG.warn("Could not delete the BLOB {} of job {}.", blobKey, getJobID());
+				}
+			}),
+			rpcTimeout.toMilliseconds(),
+			TimeUnit.MILLISECONDS);
+	}
+
 	/**
 	 * Returns the ExecutionContext associated with this ExecutionGraph.
 	 *
@@ -455,7 +455,7 @@ public class ExecutionJobVertex implements AccessExecutionJobVertex, Archiveable
 
 			this.inputs.add(ires);
 
-			int consumerIndex = ires.registerConsumer();
+			int consumerIndex = ires.registerConsumer(edge.getDistributionPattern(), taskVertices);
 
 			for (int i = 0; i < parallelism; i++) {
 				ExecutionVertex ev = taskVertices[i];
@@ -33,6 +33,7 @@ import org.apache.flink.runtime.clusterframework.types.AllocationID;
 import org.apache.flink.runtime.deployment.InputChannelDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
+import org.apache.flink.runtime.deployment.ShuffleDescriptor;
 import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor;
 import org.apache.flink.runtime.execution.ExecutionState;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -92,7 +93,7 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 
 	private final Map<IntermediateResultPartitionID, IntermediateResultPartition> resultPartitions;
 
-	private final ExecutionEdge[][] inputEdges;
+	private final ConsumedPartitionGroup[] consumedPartitions;
 
 	private final int subTaskIndex;
 
@@ -167,7 +168,7 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 			resultPartitions.put(irp.getPartitionId(), irp);
 		}
 
-		this.inputEdges = new ExecutionEdge[jobVertex.getJobVertex().getInputs().size()][];
+		this.consumedPartitions = new ConsumedPartitionGroup[jobVertex.getJobVertex().getInputs().size()];
 
 		this.priorExecutions = new EvictingBoundedList<>(maxPriorExecutionHistoryLength);
 
@@ -242,14 +243,28 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 	}
 
 	public int getNumberOfInputs() {
-		return this.inputEdges.length;
+		return this.consumedPartitions.length;
 	}
 
+	public ConsumedPartitionGroup getConsumedPartitions(int input) {
+		if (input < 0 || input >= consumedPartitions.length) {
+			throw new IllegalArgumentException(String.format("Input %d is out of range [0..%d)", input, consumedPartitions.length));
+		}
+		return consumedPartitions[input];
+	}
+
+	/**
+	 * Gets the edges of the given input. The edges are created on every call, iterate over the
+	 * {@link #getConsumedPartitions(int) consumed partitions} where no edge objects are needed.
+	 */
 	public ExecutionEdge[] getInputEdges(int input) {
-		if (input < 0 || input >= inputEdges.length) {
-			throw new IllegalArgumentException(String.format("Input %d is out of range [0..%d)", input, inputEdges.length));
+		final ConsumedPartitionGroup partitions = getConsumedPartitions(input);
+		final ExecutionEdge[] edges = new ExecutionEdge[partitions.size()];
+
+		for (int i = 0; i < edges.length; i++) {
+			edges[i] = new ExecutionEdge(partitions.getPartition(i), this, input);
 		}
-		return inputEdges[input];
+		return edges;
 	}
 
 	public CoLocationConstraint getLocationConstraint() {
@@ -369,52 +384,38 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 	public void connectSource(int inputNumber, IntermediateResult source, JobEdge edge, int consumerNumber) {
 
 		final DistributionPattern pattern = edge.getDistributionPattern();
-		final IntermediateResultPartition[] sourcePartitions = source.getPartitions();
-
-		ExecutionEdge[] edges;
 
 		switch (pattern) {
 			case POINTWISE:
-				edges = connectPointwise(sourcePartitions, inputNumber);
+				consumedPartitions[inputNumber] = connectPointwise(source.getPartitions());
+
+				// add the consumer to the source partitions
+				// for now (until the receiver initiated handshake is in place), we need to register the
+				// consumers in the execution graph
+				for (IntermediateResultPartition partition : consumedPartitions[inputNumber]) {
+					partition.addConsumer(this, consumerNumber);
+				}
 				break;
 
 			case ALL_TO_ALL:
-				edges = connectAllToAll(sourcePartitions, inputNumber);
+				// all consumers share the group of all partitions. The source partitions already know
+				// all their consumers from the registration of the consumer with the source
+				consumedPartitions[inputNumber] = source.getAllPartitionsGroup();
 				break;
 
 			default:
 				throw new RuntimeException("Unrecognized distribution pattern.");
 
 		}
-
-		inputEdges[inputNumber] = edges;
-
-		// add the consumers to the source
-		// for now (until the receiver initiated handshake is in place), we need to register the
-		// edges as the execution graph
-		for (ExecutionEdge ee : edges) {
-			ee.getSource().addConsumer(ee, consumerNumber);
-		}
-	}
-
-	private ExecutionEdge[] connectAllToAll(IntermediateResultPartition[] sourcePartitions, int inputNumber) {
-		ExecutionEdge[] edges = new ExecutionEdge[sourcePartitions.length];
-
-		for (int i = 0; i < sourcePartitions.length; i++) {
-			IntermediateResultPartition irp = sourcePartitions[i];
-			edges[i] = new ExecutionEdge(irp, this, inputNumber);
-		}
-
-		return edges;
 	}
 
-	private ExecutionEdge[] connectPointwise(IntermediateResultPartition[] sourcePartitions, int inputNumber) {
+	private ConsumedPartitionGroup connectPointwise(IntermediateResultPartition[] sourcePartitions) {
 		final int numSources = sourcePartitions.length;
 		final int parallelism = getTotalNumberOfParallelSubtasks();
 
 		// simple case same number of sources as targets
 		if (numSources == parallelism) {
-			return new ExecutionEdge[] { new ExecutionEdge(sourcePartitions[subTaskIndex], this, inputNumber) };
+			return new ConsumedPartitionGroup(new IntermediateResultPartition[] { sourcePartitions[subTaskIndex] });
 		}
 		else if (numSources < parallelism) {
 
@@ -433,7 +434,7 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 				sourcePartition = (int) (subTaskIndex / factor);
 			}
 
-			return new ExecutionEdge[] { new ExecutionEdge(sourcePartitions[sourcePartition], this, inputNumber) };
+			return new ConsumedPartitionGroup(new IntermediateResultPartition[] { sourcePartitions[sourcePartition] });
 		}
 		else {
 			if (numSources % parallelism == 0) {
@@ -441,11 +442,7 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 				int factor = numSources / parallelism;
 				int startIndex = subTaskIndex * factor;
 
-				ExecutionEdge[] edges = new ExecutionEdge[factor];
-				for (int i = 0; i < factor; i++) {
-					edges[i] = new ExecutionEdge(sourcePartitions[startIndex + i], this, inputNumber);
-				}
-				return edges;
+				return new ConsumedPartitionGroup(Arrays.copyOfRange(sourcePartitions, startIndex, startIndex + factor));
 			}
 			else {
 				float factor = ((float) numSources) / parallelism;
@@ -455,12 +452,7 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 						sourcePartitions.length :
 						(int) ((subTaskIndex + 1) * factor);
 
-				ExecutionEdge[] edges = new ExecutionEdge[end - start];
-				for (int i = 0; i < edges.length; i++) {
-					edges[i] = new ExecutionEdge(sourcePartitions[start + i], this, inputNumber);
-				}
-
-				return edges;
+				return new ConsumedPartitionGroup(Arrays.copyOfRange(sourcePartitions, start, end));
 			}
 		}
 	}
@@ -522,7 +514,7 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 	 */
 	public Collection<CompletableFuture<TaskManagerLocation>> getPreferredLocationsBasedOnInputs() {
 		// otherwise, base the preferred locations on the input connections
-		if (inputEdges == null) {
+		if (consumedPartitions == null) {
 			return Collections.emptySet();
 		}
 		else {
@@ -530,14 +522,14 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 			Set<CompletableFuture<TaskManagerLocation>> inputLocations = new HashSet<>(getTotalNumberOfParallelSubtasks());
 
 			// go over all inputs
-			for (int i = 0; i < inputEdges.length; i++) {
+			for (int i = 0; i < consumedPartitions.length; i++) {
 				inputLocations.clear();
-				ExecutionEdge[] sources = inputEdges[i];
+				ConsumedPartitionGroup sources = consumedPartitions[i];
 				if (sources != null) {
 					// go over all input sources
-					for (int k = 0; k < sources.length; k++) {
+					for (IntermediateResultPartition source : sources) {
 						// look-up assigned slot of input source
-						CompletableFuture<TaskManagerLocation> locationFuture = sources[k].getSource().getProducer().getCurrentTaskManagerLocationFuture();
+						CompletableFuture<TaskManagerLocation> locationFuture = source.getProducer().getCurrentTaskManagerLocationFuture();
 						// add input location
 						inputLocations.add(locationFuture);
 						// inputs which have too many distinct sources are not considered
@@ -723,7 +715,7 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 
 		if (partition.getIntermediateResult().getResultType().isPipelined()) {
 			// Schedule or update receivers of this partition
-			execution.scheduleOrUpdateConsumers(partition.getConsumers());
+			execution.scheduleOrUpdateConsumers(partition);
 		}
 		else {
 			throw new IllegalArgumentException("ScheduleOrUpdateConsumers msg is only valid for" +
@@ -767,10 +759,10 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 	boolean checkInputDependencyConstraints() {
 		if (getInputDependencyConstraint() == InputDependencyConstraint.ANY) {
 			// InputDependencyConstraint == ANY
-			return IntStream.range(0, inputEdges.length).anyMatch(this::isInputConsumable);
+			return IntStream.range(0, consumedPartitions.length).anyMatch(this::isInputConsumable);
 		} else {
 			// InputDependencyConstraint == ALL
-			return IntStream.range(0, inputEdges.length).allMatch(this::isInputConsumable);
+			return IntStream.range(0, consumedPartitions.length).allMatch(this::isInputConsumable);
 		}
 	}
 
@@ -783,8 +775,12 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 	 * @return whether the input is consumable
 	 */
 	boolean isInputConsumable(int inputNumber) {
-		return Arrays.stream(inputEdges[inputNumber]).map(ExecutionEdge::getSource).anyMatch(
-				IntermediateResultPartition::isConsumable);
+		for (IntermediateResultPartition partition : consumedPartitions[inputNumber]) {
+			if (partition.isConsumable()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -806,10 +802,21 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 		// only forward this notification if the execution is still the current execution
 		// otherwise we have an outdated execution
 		if (currentExecution == execution) {
+			invalidateProducedShuffleDescriptors();
 			getExecutionGraph().notifyExecutionChange(execution, newState, error);
 		}
 	}
 
+	/**
+	 * Invalidates the cached shuffle descriptors of the results this vertex produces, because the
+	 * state or the location of the current execution changed.
+	 */
+	void invalidateProducedShuffleDescriptors() {
+		for (IntermediateResultPartition resultPartition : resultPartitions.values()) {
+			resultPartition.getIntermediateResult().invalidateSerializedShuffleDescriptors();
+		}
+	}
+
 	/**
 	 * Creates a task deployment descriptor to deploy a subtask to the given target slot.
 	 * TODO: This should actually be in the EXECUTION
@@ -824,13 +831,13 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 		List<ResultPartitionDeploymentDescriptor> producedPartitions = new ArrayList<>(resultPartitions.size());
 
 		// Consumed intermediate results
-		List<InputGateDeploymentDescriptor> consumedPartitions = new ArrayList<>(inputEdges.length);
+		List<InputGateDeploymentDescriptor> consumedPartitions = new ArrayList<>(this.consumedPartitions.length);
 
 		boolean lazyScheduling = getExecutionGraph().getScheduleMode().allowLazyDeployment();
 
 		for (IntermediateResultPartition partition : resultPartitions.values()) {
 
-			List<List<ExecutionEdge>> consumers = partition.getConsumers();
+			List<ConsumerVertexGroup> consumers = partition.getConsumers();
 
 			if (consumers.isEmpty()) {
 				//TODO this case only exists for test, currently there has to be exactly one consumer in real jobs!
@@ -842,8 +849,8 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 				Preconditions.checkState(1 == consumers.size(),
 						"Only one consumer supported in the current implementation! Found: " + consumers.size());
 
-				List<ExecutionEdge> consumer = consumers.get(0);
-				ExecutionJobVertex vertex = consumer.get(0).getTarget().getJobVertex();
+				ConsumerVertexGroup consumer = consumers.get(0);
+				ExecutionJobVertex vertex = consumer.getVertex(0).getJobVertex();
 				int maxParallelism = vertex.getMaxParallelism();
 				producedPartitions.add(ResultPartitionDeploymentDescriptor.from(partition, maxParallelism, lazyScheduling));
 			}
@@ -851,23 +858,38 @@ public class ExecutionVertex implements AccessExecutionVertex, Archiveable<Archi
 
 		final InputChannelDeploymentDescriptor[] icddArray = new InputChannelDeploymentDescriptor[0];
 
-		for (ExecutionEdge[] edges : inputEdges) {
-			List<InputChannelDeploymentDescriptor> partitions = InputChannelDeploymentDescriptor.fromEdges(
-				Arrays.asList(edges),
-				lazyScheduling);
-
+		for (ConsumedPartitionGroup sources : this.consumedPartitions) {
 			// If the produced partition has multiple consumers registered, we
 			// need to request the one matching our sub task index.
 			// TODO Refactor after removing the consumers from the intermediate result partitions
-			int numConsumerEdges = edges[0].getSource().getConsumers().get(0).size();
+			int numConsumerEdges = sources.getPartition(0).getConsumers().get(0).size();
 
 			int queueToRequest = subTaskIndex % numConsumerEdges;
 
-			IntermediateResult consumedIntermediateResult = edges[0].getSource().getIntermediateResult();
+			IntermediateResult consumedIntermediateResult = sources.getIntermediateResult();
 			final IntermediateDataSetID resultId = consumedIntermediateResult.getId();
 			final ResultPartitionType partitionType = consumedIntermediateResult.getResultType();
 
-			consumedPartitions.add(new InputGateDeploymentDescriptor(resultId, partitionType, queueToRequest, partitions.toArray(icddArray)));
+			if (consumedIntermediateResult.isAllPartitionsGroup(sources)) {
+				// all-to-all consumers share the serialized descriptors of all partitions
+				final TaskDeploymentDescriptor.MaybeOffloaded<ShuffleDescriptor[]> shuffleDescriptors;
+
+				try {
+					shuffleDescriptors = consumedIntermediateResult.getSerializedShuffleDescriptors(lazyScheduling);
+				} catch (IOException e) {
+					throw new ExecutionGraphException(
+						"Could not create the serialized shuffle descriptors of " + resultId, e);
+				}
+
+				consumedPartitions.add(new InputGateDeploymentDescriptor(resultId, partitionType, queueToRequest, shuffleDescriptors));
+			} else {
+				List<InputChannelDeploymentDescriptor> partitions = InputChannelDeploymentDescriptor.fromPartitions(
+					sources,
+					this,
+					lazyScheduling);
+
+				consumedPartitions.add(new InputGateDeploymentDescriptor(resultId, partitionType, queueToRequest, partitions.toArray(icddArray)));
+			}
 		}
 
 		final Either<SerializedValue<JobInformation>, PermanentBlobKey> jobInformationOrBlobKey = getExecutionGraph().getJobInformationOrBlobKey();
@@ -19,10 +19,21 @@
 package org.apache.flink.runtime.executiongraph;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.blob.BlobWriter;
+import org.apache.flink.runtime.blob.PermanentBlobKey;
+import org.apache.flink.runtime.deployment.ShuffleDescriptor;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.MaybeOffloaded;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.NonOffloaded;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.Offloaded;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 
+import org.apache.flink.types.Either;
+import org.apache.flink.util.SerializedValue;
+
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -37,6 +48,18 @@ public class IntermediateResult {
 
 	private final IntermediateResultPartition[] partitions;
 
+	/** The group of all partitions, shared by all consumers that are connected all-to-all. */
+	private ConsumedPartitionGroup allPartitionsGroup;
+
+	/**
+	 * The serialized and possibly offloaded shuffle descriptors of all partitions, as handed out to
+	 * all-to-all consumers, or null if a producer changed since they were created.
+	 */
+	private MaybeOffloaded<ShuffleDescriptor[]> serializedShuffleDescriptors;
+
+	/** Whether {@link #serializedShuffleDescriptors} contains descriptors of unknown partitions. */
+	private boolean serializedShuffleDescriptorsContainUnknown;
+
 	/**
 	 * Maps intermediate result partition IDs to a partition index. This is
 	 * used for ID lookups of intermediate results. I didn't dare to change the
@@ -139,12 +162,95 @@ public class IntermediateResult {
 		return resultType;
 	}
 
-	public int registerConsumer() {
+	/**
+	 * Gets the group of all partitions of this result, which is shared by all consumers that are
+	 * connected all-to-all.
+	 */
+	ConsumedPartitionGroup getAllPartitionsGroup() {
+		if (allPartitionsGroup == null) {
+			allPartitionsGroup = new ConsumedPartitionGroup(partitions);
+		}
+		return allPartitionsGroup;
+	}
+
+	/**
+	 * Checks whether the given group is the group of all partitions of this result.
+	 */
+	boolean isAllPartitionsGroup(ConsumedPartitionGroup group) {
+		return group == allPartitionsGroup;
+	}
+
+	/**
+	 * Gets the serialized shuffle descriptors of all partitions for an all-to-all consumer.
+	 *
+	 * <p>The descriptors do not depend on the consumer, so the serialized list is created (and
+	 * offloaded to the BLOB server) once and reused until it is invalidated by a change of one of
+	 * the producers, see {@link #invalidateSerializedShuffleDescriptors()}.
+	 */
+	synchronized MaybeOffloaded<ShuffleDescriptor[]> getSerializedShuffleDescriptors(
+			boolean allowLazyDeployment) throws IOException {
+
+		if (serializedShuffleDescriptors != null && (allowLazyDeployment || !serializedShuffleDescriptorsContainUnknown)) {
+			return serializedShuffleDescriptors;
+		}
+
+		final ShuffleDescriptor[] descriptors = new ShuffleDescriptor[partitions.length];
+		boolean containUnknown = false;
+		for (int i = 0; i < partitions.length; i++) {
+			descriptors[i] = ShuffleDescriptor.fromPartitionAndValidate(partitions[i], allowLazyDeployment);
+			containUnknown |= descriptors[i].isUnknown();
+		}
+
+		final Either<SerializedValue<ShuffleDescriptor[]>, PermanentBlobKey> descriptorsOrBlobKey =
+			BlobWriter.serializeAndTryOffload(
+				descriptors,
+				producer.getJobId(),
+				producer.getGraph().getBlobWriter());
+
+		if (descriptorsOrBlobKey.isLeft()) {
+			serializedShuffleDescriptors = new NonOffloaded<>(descriptorsOrBlobKey.left());
+		} else {
+			serializedShuffleDescriptors = new Offloaded<>(descriptorsOrBlobKey.right());
+		}
+		serializedShuffleDescriptorsContainUnknown = containUnknown;
+
+		return serializedShuffleDescriptors;
+	}
+
+	/**
+	 * Drops the serialized shuffle descriptors of all partitions. This must be called whenever the
+	 * shuffle descriptor of a partition may change, i.e. when its producer changes its state, gets a
+	 * slot assigned or is reset for a new execution attempt, or when the partition becomes consumable.
+	 *
+	 * <p>If the descriptors were offloaded, their BLOB is deleted once the deployments that were
+	 * created with it are acknowledged.
+	 */
+	synchronized void invalidateSerializedShuffleDescriptors() {
+		if (serializedShuffleDescriptors instanceof Offloaded) {
+			producer.getGraph().deleteBlobAfterPendingDeployments(
+				((Offloaded<ShuffleDescriptor[]>) serializedShuffleDescriptors).serializedValueKey);
+		}
+		serializedShuffleDescriptors = null;
+	}
+
+	/**
+	 * Registers the given subtasks as a consumer of this result.
+	 *
+	 * <p>If they are connected all-to-all, all partitions share one group of consumers. Otherwise,
+	 * each partition gets a group that the subtasks join when they are connected to the partition.
+	 */
+	public int registerConsumer(DistributionPattern distributionPattern, ExecutionVertex[] consumerVertices) {
 		final int index = numConsumers;
 		numConsumers++;
 
+		final ConsumerVertexGroup allToAllConsumers = distributionPattern == DistributionPattern.ALL_TO_ALL ?
+			ConsumerVertexGroup.forAllToAll(consumerVertices) : null;
+
 		for (IntermediateResultPartition p : partitions) {
-			if (p.addConsumerGroup() != index) {
+			int consumerIndex = allToAllConsumers != null ?
+				p.addConsumerGroup(allToAllConsumers) : p.addConsumerGroup();
+
+			if (consumerIndex != index) {
 				throw new RuntimeException("Inconsistent consumer mapping between intermediate result partitions.");
 			}
 		}
@@ -34,7 +34,7 @@ public class IntermediateResultPartition {
 
 	private final IntermediateResultPartitionID partitionId;
 
-	private List<List<ExecutionEdge>> consumers;
+	private List<ConsumerVertexGroup> consumers;
 
 	/**
 	 * Whether this partition has produced some data.
@@ -45,7 +45,7 @@ public class IntermediateResultPartition {
 		this.totalResult = totalResult;
 		this.producer = producer;
 		this.partitionNumber = partitionNumber;
-		this.consumers = new ArrayList<List<ExecutionEdge>>(0);
+		this.consumers = new ArrayList<>(1);
 		this.partitionId = new IntermediateResultPartitionID();
 	}
 
@@ -69,12 +69,13 @@ public class IntermediateResultPartition {
 		return totalResult.getResultType();
 	}
 
-	public List<List<ExecutionEdge>> getConsumers() {
+	public List<ConsumerVertexGroup> getConsumers() {
 		return consumers;
 	}
 
 	public void markDataProduced() {
 		hasDataProduced = true;
+		totalResult.invalidateSerializedShuffleDescriptors();
 	}
 
 	public boolean isConsumable() {
@@ -92,9 +93,14 @@ public class IntermediateResultPartition {
 			totalResult.incrementNumberOfRunningProducersAndGetRemaining();
 		}
 		hasDataProduced = false;
+		totalResult.invalidateSerializedShuffleDescriptors();
 	}
 
 	int addConsumerGroup() {
+		return addConsumerGroup(ConsumerVertexGroup.forPointwise());
+	}
+
+	int addConsumerGroup(ConsumerVertexGroup consumerGroup) {
 		int pos = consumers.size();
 
 		// NOTE: currently we support only one consumer per result!!!
@@ -102,12 +108,12 @@ public class IntermediateResultPartition {
 			throw new RuntimeException("Currently, each intermediate result can only have one consumer.");
 		}
 
-		consumers.add(new ArrayList<ExecutionEdge>());
+		consumers.add(consumerGroup);
 		return pos;
 	}
 
-	void addConsumer(ExecutionEdge edge, int consumerNumber) {
-		consumers.get(consumerNumber).add(edge);
+	void addConsumer(ExecutionVertex consumer, int consumerNumber) {
+		consumers.get(consumerNumber).add(consumer);
 	}
 
 	boolean markFinished() {
@@ -117,6 +123,7 @@ public class IntermediateResultPartition {
 		}
 
 		hasDataProduced = true;
+		totalResult.invalidateSerializedShuffleDescriptors();
 
 		final int refCnt = totalResult.decrementNumberOfRunningProducersAndGetRemaining();
 
@@ -51,15 +51,16 @@ public class PartitionInfo implements Serializable {
 
 	// ------------------------------------------------------------------------
 
-	static PartitionInfo fromEdge(ExecutionEdge executionEdge) {
-		final InputChannelDeploymentDescriptor inputChannelDeploymentDescriptor = InputChannelDeploymentDescriptor.fromEdge(executionEdge);
+	static PartitionInfo fromPartition(IntermediateResultPartition consumedPartition, ExecutionVertex consumer) {
+		final InputChannelDeploymentDescriptor inputChannelDeploymentDescriptor =
+			InputChannelDeploymentDescriptor.fromPartition(consumedPartition, consumer);
 
 		Preconditions.checkState(
 			!inputChannelDeploymentDescriptor.getConsumedPartitionLocation().isUnknown(),
 			"PartitionInfo contains an unknown partition location.");
 
 		return new PartitionInfo(
-			executionEdge.getSource().getIntermediateResult().getId(),
+			consumedPartition.getIntermediateResult().getId(),
 			inputChannelDeploymentDescriptor);
 	}
 }
@@ -19,12 +19,13 @@
 package org.apache.flink.runtime.executiongraph.failover;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.executiongraph.ConsumedPartitionGroup;
 import org.apache.flink.runtime.executiongraph.Execution;
-import org.apache.flink.runtime.executiongraph.ExecutionEdge;
 import org.apache.flink.runtime.executiongraph.ExecutionGraph;
 import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
 import org.apache.flink.runtime.executiongraph.ExecutionVertex;
 import org.apache.flink.runtime.executiongraph.IntermediateResult;
+import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.util.FlinkException;
 import org.apache.flink.util.FlinkRuntimeException;
@@ -34,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -110,8 +112,12 @@ public class RestartPipelinedRegionStrategy extends FailoverStrategy {
 		// we use the map (list -> null) to imitate an IdentityHashSet (which does not exist)
 		final IdentityHashMap<ArrayList<ExecutionVertex>, Object> distinctRegions = new IdentityHashMap<>();
 
-		// this loop will worst case iterate over every edge in the graph (complexity is O(#edges))
-		
+		// the first consumer of each group of consumed partitions
+		final IdentityHashMap<ConsumedPartitionGroup, ExecutionVertex> firstConsumers = new IdentityHashMap<>();
+
+		// this loop will worst case iterate over every edge in the graph (complexity is O(#edges)),
+		// where the consumers of an all-to-all connected result only count as one edge per consumer
+
 		for (ExecutionJobVertex ejv : newJobVerticesTopological) {
 
 			// currently, jobs with a co-location constraint fail as one
@@ -143,8 +149,7 @@ public class RestartPipelinedRegionStrategy extends FailoverStrategy {
 					for (int inputNum = 0; inputNum < numInputs; inputNum++) {
 						if (inputs.get(inputNum).getResultType().isPipelined()) {
 
-							for (ExecutionEdge edge : ev.getInputEdges(inputNum)) {
-								final ExecutionVertex predecessor = edge.getSource().getProducer();
+							for (ExecutionVertex predecessor : getPredecessors(ev, inputNum, firstConsumers)) {
 								final ArrayList<ExecutionVertex> predecessorRegion = vertexToRegion.get(predecessor);
 
 								if (thisRegion != null) {
@@ -202,6 +207,31 @@ public class RestartPipelinedRegionStrategy extends FailoverStrategy {
 		}
 	}
 
+	/**
+	 * Gets the vertices whose region the given vertex joins for the given input. These are the
+	 * producers of the consumed partitions, or, if the vertex shares the consumed partitions with an
+	 * earlier consumer (all-to-all connection), that earlier consumer, because it already joined the
+	 * regions of all producers.
+	 */
+	private static List<ExecutionVertex> getPredecessors(
+			ExecutionVertex ev,
+			int inputNum,
+			IdentityHashMap<ConsumedPartitionGroup, ExecutionVertex> firstConsumers) {
+
+		final ConsumedPartitionGroup consumedPartitions = ev.getConsumedPartitions(inputNum);
+		final ExecutionVertex firstConsumer = firstConsumers.putIfAbsent(consumedPartitions, ev);
+
+		if (firstConsumer != null) {
+			return Collections.singletonList(firstConsumer);
+		}
+
+		final List<ExecutionVertex> producers = new ArrayList<>(consumedPartitions.size());
+		for (IntermediateResultPartition partition : consumedPartitions) {
+			producers.add(partition.getProducer());
+		}
+		return producers;
+	}
+
 	private void makeAllOneRegion(List<ExecutionJobVertex> jobVertices) {
 		LOG.warn("Cannot decompose ExecutionGraph into individual failover regions due to use of " +
 				"Co-Location constraints (iterations). Job will fail over as one holistic unit.");
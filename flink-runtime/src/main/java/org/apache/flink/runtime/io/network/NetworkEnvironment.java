@@ -28,6 +28,7 @@ import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.metrics.CompressionMetrics;
 import org.apache.flink.runtime.io.network.metrics.InputBufferPoolUsageGauge;
 import org.apache.flink.runtime.io.network.metrics.InputBuffersGauge;
 import org.apache.flink.runtime.io.network.metrics.InputChannelMetrics;
@@ -139,7 +140,11 @@ public class NetworkEnvironment {
 			ioManager,
 			networkBufferPool,
 			config.networkBuffersPerChannel(),
-			config.floatingNetworkBuffersPerGate());
+			config.floatingNetworkBuffersPerGate(),
+			config.networkBufferSize(),
+			config.compressionCodec(),
+			// Netty's SSL handler cannot encrypt file regions
+			nettyConfig != null && !nettyConfig.getSSLEnabled());
 
 		SingleInputGateFactory singleInputGateFactory = new SingleInputGateFactory(
 			config,
@@ -263,6 +268,9 @@ public class NetworkEnvironment {
 		if (config.isNetworkDetailedMetrics()) {
 			ResultPartitionMetrics.registerQueueLengthMetrics(outputGroup, resultPartitions);
 		}
+		if (config.compressionCodec() != null) {
+			CompressionMetrics.registerOutputCompressionMetrics(outputGroup, resultPartitions);
+		}
 		buffersGroup.gauge(METRIC_OUTPUT_QUEUE_LENGTH, new OutputBuffersGauge(resultPartitions));
 		buffersGroup.gauge(METRIC_OUTPUT_POOL_USAGE, new OutputBufferPoolUsageGauge(resultPartitions));
 	}
@@ -271,6 +279,12 @@ public class NetworkEnvironment {
 		if (config.isNetworkDetailedMetrics()) {
 			InputGateMetrics.registerQueueLengthMetrics(inputGroup, inputGates);
 		}
+		if (config.compressionCodec() != null) {
+			CompressionMetrics.registerInputCompressionMetrics(inputGroup, inputGates);
+		}
+		if (config.bufferDebloatConfiguration() != null) {
+			InputGateMetrics.registerBufferDebloatMetrics(inputGroup, inputGates);
+		}
 		buffersGroup.gauge(METRIC_INPUT_QUEUE_LENGTH, new InputBuffersGauge(inputGates));
 		buffersGroup.gauge(METRIC_INPUT_POOL_USAGE, new InputBufferPoolUsageGauge(inputGates));
 	}
@@ -45,6 +45,13 @@ public interface NetworkSequenceViewReader {
 	 */
 	void addCredit(int creditDeltas);
 
+	/**
+	 * Forwards the buffer size in bytes that the consumer would like to receive to the view.
+	 *
+	 * @param newBufferSize The announced buffer size
+	 */
+	void notifyNewBufferSize(int newBufferSize);
+
 	/**
 	 * Checks whether this reader is available or not.
 	 *
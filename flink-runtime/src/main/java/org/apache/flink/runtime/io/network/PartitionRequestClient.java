@@ -50,6 +50,14 @@ public interface PartitionRequestClient {
 	 */
 	void notifyCreditAvailable(RemoteInputChannel inputChannel);
 
+	/**
+	 * Announces the buffer size that one remote input channel would like to receive.
+	 *
+	 * @param inputChannel The remote input channel who announces the buffer size.
+	 * @param newBufferSize The buffer size in bytes.
+	 */
+	void notifyNewBufferSize(RemoteInputChannel inputChannel, int newBufferSize);
+
 	/**
 	 * Sends a task event backwards to an intermediate result partition.
 	 *
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.event.RuntimeEvent;
+import org.apache.flink.runtime.io.network.partition.LocalObjectQueue;
+
+import java.io.IOException;
+
+/**
+ * The ObjectBatchMarker travels through a pipelined subpartition whose records are handed over
+ * to a co-located consumer as objects through a {@link LocalObjectQueue}. It tells the consumer
+ * that all records up to the given sequence number have been added to the queue, and marks the
+ * position of these records relative to the buffers and events of the subpartition.
+ */
+public class ObjectBatchMarker extends RuntimeEvent {
+
+	/** The number of records that were added to the object queue before this marker. */
+	private final long sequenceNumber;
+
+	public ObjectBatchMarker(long sequenceNumber) {
+		this.sequenceNumber = sequenceNumber;
+	}
+
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	// ------------------------------------------------------------------------
+	// These known and common event go through special code paths, rather than
+	// through generic serialization.
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		throw new UnsupportedOperationException("this method should never be called");
+	}
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		throw new UnsupportedOperationException("this method should never be called");
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public int hashCode() {
+		return (int) (sequenceNumber ^ (sequenceNumber >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other != null &&
+				other.getClass() == ObjectBatchMarker.class &&
+				this.sequenceNumber == ((ObjectBatchMarker) other).sequenceNumber;
+	}
+
+	@Override
+	public String toString() {
+		return "ObjectBatchMarker " + sequenceNumber;
+	}
+}
@@ -29,6 +29,7 @@ import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.EndOfSuperstepEvent;
+import org.apache.flink.runtime.io.network.api.ObjectBatchMarker;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
@@ -59,6 +60,8 @@ public class EventSerializer {
 
 	private static final int CANCEL_CHECKPOINT_MARKER_EVENT = 4;
 
+	private static final int OBJECT_BATCH_MARKER_EVENT = 5;
+
 	private static final int CHECKPOINT_TYPE_CHECKPOINT = 0;
 
 	private static final int CHECKPOINT_TYPE_SAVEPOINT = 1;
@@ -88,6 +91,14 @@ public class EventSerializer {
 			buf.putLong(4, marker.getCheckpointId());
 			return buf;
 		}
+		else if (eventClass == ObjectBatchMarker.class) {
+			ObjectBatchMarker marker = (ObjectBatchMarker) event;
+
+			ByteBuffer buf = ByteBuffer.allocate(12);
+			buf.putInt(0, OBJECT_BATCH_MARKER_EVENT);
+			buf.putLong(4, marker.getSequenceNumber());
+			return buf;
+		}
 		else {
 			try {
 				final DataOutputSerializer serializer = new DataOutputSerializer(128);
@@ -131,6 +142,8 @@ public class EventSerializer {
 				return type == END_OF_SUPERSTEP_EVENT;
 			} else if (eventClass.equals(CancelCheckpointMarker.class)) {
 				return type == CANCEL_CHECKPOINT_MARKER_EVENT;
+			} else if (eventClass.equals(ObjectBatchMarker.class)) {
+				return type == OBJECT_BATCH_MARKER_EVENT;
 			} else {
 				throw new UnsupportedOperationException("Unsupported eventClass = " + eventClass);
 			}
@@ -166,6 +179,10 @@ public class EventSerializer {
 				long id = buffer.getLong();
 				return new CancelCheckpointMarker(id);
 			}
+			else if (type == OBJECT_BATCH_MARKER_EVENT) {
+				long sequenceNumber = buffer.getLong();
+				return new ObjectBatchMarker(sequenceNumber);
+			}
 			else if (type == OTHER_EVENT) {
 				try {
 					final DataInputDeserializer deserializer = new DataInputDeserializer(buffer);
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.api.serialization;
 
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
+import org.apache.flink.runtime.io.network.partition.PartitionSortBuffer;
 
 import java.io.IOException;
 
@@ -81,6 +82,15 @@ public interface RecordSerializer<T extends IOReadableWritable> {
 	 */
 	SerializationResult copyToBufferBuilder(BufferBuilder bufferBuilder);
 
+	/**
+	 * Appends the intermediate data serialization buffer as a whole to the given sort buffer.
+	 *
+	 * @param sortBuffer the sort buffer of the target subpartition
+	 * @return a full record result, which tells whether a memory segment of the sort buffer
+	 *         was filled up
+	 */
+	SerializationResult copyToSortBuffer(PartitionSortBuffer sortBuffer) throws IOException, InterruptedException;
+
 	/**
 	 * Clears the buffer and checks to decrease the size of intermediate data serialization buffer
 	 * after finishing the whole serialization process including
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.io.network.api.serialization;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
+import org.apache.flink.runtime.io.network.partition.PartitionSortBuffer;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -99,6 +100,20 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		return getSerializationResult(targetBuffer);
 	}
 
+	/**
+	 * Appends the intermediate data serialization buffer, including its length, to the given sort
+	 * buffer. Unlike a target buffer, the sort buffer always takes the whole record.
+	 *
+	 * @param sortBuffer the sort buffer to append to
+	 * @return whether a memory segment of the sort buffer was filled up
+	 */
+	@Override
+	public SerializationResult copyToSortBuffer(PartitionSortBuffer sortBuffer) throws IOException, InterruptedException {
+		return sortBuffer.append(lengthBuffer, dataBuffer)
+			? SerializationResult.FULL_RECORD_MEMORY_SEGMENT_FULL
+			: SerializationResult.FULL_RECORD;
+	}
+
 	private SerializationResult getSerializationResult(BufferBuilder targetBuffer) {
 		if (dataBuffer.hasRemaining() || lengthBuffer.hasRemaining()) {
 			return SerializationResult.PARTIAL_RECORD_MEMORY_SEGMENT_FULL;
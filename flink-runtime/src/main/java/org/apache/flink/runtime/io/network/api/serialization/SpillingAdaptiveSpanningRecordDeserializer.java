@@ -24,6 +24,8 @@ import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBatchBuffer;
+import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.StringUtils;
 
@@ -38,9 +40,13 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 /**
+ * The records of an {@link ObjectBatchBuffer} are not deserialized but set as the instance of the
+ * target, which has to be a {@link DeserializationDelegate} in that case.
+ *
  * @param <T> The type of the record to be deserialized.
  */
 public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWritable> implements RecordDeserializer<T> {
@@ -59,6 +65,11 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 
 	private Buffer currentBuffer;
 
+	/** The records of the current buffer, if it is an {@link ObjectBatchBuffer}. */
+	private List<Object> currentObjects;
+
+	private int nextObjectIndex;
+
 	public SpillingAdaptiveSpanningRecordDeserializer(String[] tmpDirectories) {
 		this.nonSpanningWrapper = new NonSpanningWrapper();
 		this.spanningWrapper = new SpanningWrapper(tmpDirectories);
@@ -68,6 +79,16 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 	public void setNextBuffer(Buffer buffer) throws IOException {
 		currentBuffer = buffer;
 
+		if (buffer instanceof ObjectBatchBuffer) {
+			// records are handed over as objects only at the boundaries of serialized records
+			if (hasUnfinishedData()) {
+				throw new IOException("Received a batch of objects while a serialized record is incomplete.");
+			}
+			currentObjects = ((ObjectBatchBuffer) buffer).getRecords();
+			nextObjectIndex = 0;
+			return;
+		}
+
 		int offset = buffer.getMemorySegmentOffset();
 		MemorySegment segment = buffer.getMemorySegment();
 		int numBytes = buffer.getSize();
@@ -90,6 +111,10 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 
 	@Override
 	public DeserializationResult getNextRecord(T target) throws IOException {
+		if (currentObjects != null) {
+			return getNextObject(target);
+		}
+
 		// always check the non-spanning wrapper first.
 		// this should be the majority of the cases for small records
 		// for large records, this portion of the work is very small in comparison anyways
@@ -153,15 +178,38 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private DeserializationResult getNextObject(T target) throws IOException {
+		if (nextObjectIndex == currentObjects.size()) {
+			// a batch without records
+			currentObjects = null;
+			return DeserializationResult.PARTIAL_RECORD;
+		}
+		if (!(target instanceof DeserializationDelegate)) {
+			throw new IOException("Records handed over as objects can only be read into a DeserializationDelegate.");
+		}
+
+		((DeserializationDelegate<Object>) target).setInstance(currentObjects.get(nextObjectIndex++));
+
+		if (nextObjectIndex < currentObjects.size()) {
+			return DeserializationResult.INTERMEDIATE_RECORD_FROM_BUFFER;
+		} else {
+			currentObjects = null;
+			return DeserializationResult.LAST_RECORD_FROM_BUFFER;
+		}
+	}
+
 	@Override
 	public void clear() {
 		this.nonSpanningWrapper.clear();
 		this.spanningWrapper.clear();
+		this.currentObjects = null;
 	}
 
 	@Override
 	public boolean hasUnfinishedData() {
-		return this.nonSpanningWrapper.remaining() > 0 || this.spanningWrapper.getNumGatheredBytes() > 0;
+		return this.nonSpanningWrapper.remaining() > 0 || this.spanningWrapper.getNumGatheredBytes() > 0
+			|| this.currentObjects != null;
 	}
 
 
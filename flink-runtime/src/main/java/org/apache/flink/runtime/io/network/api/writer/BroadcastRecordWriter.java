@@ -36,8 +36,10 @@ public class BroadcastRecordWriter<T extends IOReadableWritable> extends RecordW
 			ResultPartitionWriter writer,
 			ChannelSelector<T> channelSelector,
 			long timeout,
+			long idleTimeout,
+			int objectHandoverBatchSize,
 			String taskName) {
-		super(writer, channelSelector, timeout, taskName);
+		super(writer, channelSelector, timeout, idleTimeout, objectHandoverBatchSize, taskName);
 	}
 
 	@Override
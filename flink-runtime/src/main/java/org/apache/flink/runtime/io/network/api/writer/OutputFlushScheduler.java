@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api.writer;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.runtime.util.Hardware;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The timer service that runs the periodic output flushes of the {@link RecordWriter RecordWriters}
+ * with a buffer timeout.
+ *
+ * <p>All writers of the process share a small pool of daemon threads, instead of each writer running
+ * a dedicated flusher thread. The pool is created when the first flusher is registered and shut down
+ * after the last flusher has been unregistered.
+ */
+final class OutputFlushScheduler {
+
+	private static final String THREAD_POOL_NAME = "OutputFlusher";
+
+	private static final int MAX_NUM_THREADS = 4;
+
+	private static final Object lock = new Object();
+
+	@GuardedBy("lock")
+	private static ScheduledThreadPoolExecutor executor;
+
+	@GuardedBy("lock")
+	private static int numRegisteredFlushers;
+
+	private OutputFlushScheduler() {}
+
+	/**
+	 * Runs the given flusher repeatedly, with the given delay in milliseconds between the end of one
+	 * run and the start of the next. An exception thrown by the flusher suppresses its further runs.
+	 *
+	 * @return the future to {@link #unregister(ScheduledFuture) unregister} the flusher with.
+	 */
+	static ScheduledFuture<?> register(Runnable flusher, long interval) {
+		checkArgument(interval > 0, "The flush interval must be positive.");
+
+		synchronized (lock) {
+			if (executor == null) {
+				int numThreads = Math.max(1, Math.min(MAX_NUM_THREADS, Hardware.getNumberCPUCores()));
+				executor = new ScheduledThreadPoolExecutor(numThreads, new ExecutorThreadFactory(THREAD_POOL_NAME));
+				executor.setRemoveOnCancelPolicy(true);
+			}
+			ScheduledFuture<?> future = executor.scheduleWithFixedDelay(
+				flusher, interval, interval, TimeUnit.MILLISECONDS);
+			numRegisteredFlushers++;
+			return future;
+		}
+	}
+
+	/**
+	 * Stops the periodic runs of a flusher. A run that is in progress is not interrupted.
+	 */
+	static void unregister(ScheduledFuture<?> scheduledFlusher) {
+		synchronized (lock) {
+			checkState(numRegisteredFlushers > 0, "No output flusher is registered.");
+			scheduledFlusher.cancel(false);
+			if (--numRegisteredFlushers == 0) {
+				executor.shutdown();
+				executor = null;
+			}
+		}
+	}
+
+	@VisibleForTesting
+	static int getNumRegisteredFlushers() {
+		synchronized (lock) {
+			return numRegisteredFlushers;
+		}
+	}
+}
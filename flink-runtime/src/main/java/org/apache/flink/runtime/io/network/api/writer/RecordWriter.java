@@ -27,15 +27,23 @@ import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer;
 import org.apache.flink.runtime.io.network.api.serialization.SpanningRecordSerializer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.partition.LocalObjectQueue;
+import org.apache.flink.runtime.io.network.partition.PartitionSortBuffer;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
+import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.XORShiftRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.concurrent.GuardedBy;
+
 import java.io.IOException;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
 
 import static org.apache.flink.runtime.io.network.api.serialization.RecordSerializer.SerializationResult;
 import static org.apache.flink.util.Preconditions.checkArgument;
@@ -52,6 +60,20 @@ import static org.apache.flink.util.Preconditions.checkState;
  * ensures that all produced records are written to the output stream (incl.
  * partially filled ones).
  *
+ * <p>If the writer has a buffer timeout, its partially filled buffers are flushed by an
+ * {@link OutputFlusher} that runs on the {@link OutputFlushScheduler} shared by all writers. With an
+ * idle timeout, the flusher works adaptively: a channel is flushed as soon as no data has been written
+ * to it for the idle timeout, and otherwise once its oldest unflushed data has waited for the buffer
+ * timeout, so that the buffers of busy channels can fill up.
+ *
+ * <p>If the writer has an object handover batch size and an object copier, records for channels whose
+ * consumer is co-located are not serialized but handed over as copied objects via the
+ * {@link LocalObjectQueue} of the subpartition. A channel switches to the object handover only when
+ * it has no unfinished buffer, so that its serialized data and handed over records stay in order.
+ *
+ * <p>If the partition offers a {@link PartitionSortBuffer} for a channel, the serialized records of
+ * that channel are appended to it instead of being copied into buffers of the channel.
+ *
  * @param <T> the type of the record that can be emitted with this record writer
  */
 public class RecordWriter<T extends IOReadableWritable> {
@@ -76,18 +98,54 @@ public class RecordWriter<T extends IOReadableWritable> {
 
 	private Counter numBuffersOut = new SimpleCounter();
 
+	/** The number of channel flushes done by the output flusher. */
+	private final Counter numFlushes = new SimpleCounter();
+
+	/**
+	 * The moving average of the fill ratio of the buffers at the time they were flushed by the output
+	 * flusher. Only updated by the output flusher.
+	 */
+	private volatile double flushFillRatio = Double.NaN;
+
 	private final boolean flushAlways;
 
-	/** Default name for teh output flush thread, if no name with a task reference is given. */
-	private static final String DEFAULT_OUTPUT_FLUSH_THREAD_NAME = "OutputFlusher";
+	/**
+	 * The number of writes (records and events) per channel, which the output flusher compares
+	 * to find the channels with unflushed data. Only updated by the task thread.
+	 */
+	private final AtomicLongArray channelWrites;
 
-	/** The thread that periodically flushes the output, to give an upper latency bound. */
+	/** The task that periodically flushes the output, to give an upper latency bound. */
 	private final Optional<OutputFlusher> outputFlusher;
 
+	private final String taskName;
+
 	/** To avoid synchronization overhead on the critical path, best-effort error tracking is enough here.*/
 	private Throwable flusherException;
 
+	/** The number of handed over records after which they are published, or 0 to disable the handover. */
+	private final int objectHandoverBatchSize;
+
+	/** The queues of the channels that hand over records as objects. */
+	private final LocalObjectQueue[] objectQueues;
+
+	/** Copies the records for the object handover, which is disabled as long as this is not set. */
+	private Function<T, Object> objectCopier;
+
+	/** The buffers into which the records of the channels are sorted, if the partition offers them. */
+	private final PartitionSortBuffer[] sortBuffers;
+
 	RecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector, long timeout, String taskName) {
+		this(writer, channelSelector, timeout, -1, 0, taskName);
+	}
+
+	RecordWriter(
+			ResultPartitionWriter writer,
+			ChannelSelector<T> channelSelector,
+			long timeout,
+			long idleTimeout,
+			int objectHandoverBatchSize,
+			String taskName) {
 		this.targetPartition = writer;
 		this.channelSelector = channelSelector;
 		this.numberOfChannels = writer.getNumberOfSubpartitions();
@@ -102,19 +160,34 @@ public class RecordWriter<T extends IOReadableWritable> {
 		}
 
 		checkArgument(timeout >= -1);
+		checkArgument(objectHandoverBatchSize >= 0);
+		this.objectHandoverBatchSize = objectHandoverBatchSize;
+		this.objectQueues = new LocalObjectQueue[numberOfChannels];
+		this.sortBuffers = new PartitionSortBuffer[numberOfChannels];
+		for (int i = 0; i < numberOfChannels; i++) {
+			sortBuffers[i] = writer.getSortBuffer(i);
+		}
+		this.taskName = taskName;
 		this.flushAlways = (timeout == 0);
 		if (timeout == -1 || timeout == 0) {
+			channelWrites = null;
 			outputFlusher = Optional.empty();
 		} else {
-			String threadName = taskName == null ?
-				DEFAULT_OUTPUT_FLUSH_THREAD_NAME :
-				DEFAULT_OUTPUT_FLUSH_THREAD_NAME + " for " + taskName;
-
-			outputFlusher = Optional.of(new OutputFlusher(threadName, timeout));
+			channelWrites = new AtomicLongArray(numberOfChannels);
+			// an idle timeout that is not below the buffer timeout would only delay the flushes
+			outputFlusher = Optional.of(new OutputFlusher(timeout, idleTimeout < timeout ? idleTimeout : -1));
 			outputFlusher.get().start();
 		}
 	}
 
+	/**
+	 * Sets the function that copies the records which are handed over as objects to co-located
+	 * consumers. The copies must not be affected by any later modification of the emitted records.
+	 */
+	public void setObjectCopier(Function<T, Object> objectCopier) {
+		this.objectCopier = objectCopier;
+	}
+
 	public void emit(T record) throws IOException, InterruptedException {
 		checkErroneous();
 		emit(record, channelSelector.selectChannel(record));
@@ -126,10 +199,20 @@ public class RecordWriter<T extends IOReadableWritable> {
 	 */
 	public void broadcastEmit(T record) throws IOException, InterruptedException {
 		checkErroneous();
-		serializer.serializeRecord(record);
 
+		boolean serialized = false;
 		boolean pruneAfterCopying = false;
 		for (int channel : broadcastChannels) {
+			LocalObjectQueue objectQueue = getObjectQueue(channel);
+			if (objectQueue != null) {
+				handOverToTargetChannel(objectQueue, record, channel);
+				continue;
+			}
+
+			if (!serialized) {
+				serializer.serializeRecord(record);
+				serialized = true;
+			}
 			if (copyFromSerializerToTargetChannel(channel)) {
 				pruneAfterCopying = true;
 			}
@@ -149,6 +232,12 @@ public class RecordWriter<T extends IOReadableWritable> {
 	}
 
 	private void emit(T record, int targetChannel) throws IOException, InterruptedException {
+		LocalObjectQueue objectQueue = getObjectQueue(targetChannel);
+		if (objectQueue != null) {
+			handOverToTargetChannel(objectQueue, record, targetChannel);
+			return;
+		}
+
 		serializer.serializeRecord(record);
 
 		if (copyFromSerializerToTargetChannel(targetChannel)) {
@@ -165,6 +254,14 @@ public class RecordWriter<T extends IOReadableWritable> {
 		// copying, so the serialization results can be copied to multiple target buffers.
 		serializer.reset();
 
+		final PartitionSortBuffer sortBuffer = sortBuffers[targetChannel];
+		if (sortBuffer != null) {
+			// the records in the sort buffer are spilled by the partition, so they need no flushing
+			final boolean pruneTriggered = serializer.copyToSortBuffer(sortBuffer).isFullBuffer();
+			checkState(!serializer.hasSerializedData(), "All data should be written at once");
+			return pruneTriggered;
+		}
+
 		boolean pruneTriggered = false;
 		BufferBuilder bufferBuilder = getBufferBuilder(targetChannel);
 		SerializationResult result = serializer.copyToBufferBuilder(bufferBuilder);
@@ -188,17 +285,67 @@ public class RecordWriter<T extends IOReadableWritable> {
 
 		if (flushAlways) {
 			targetPartition.flush(targetChannel);
+		} else if (channelWrites != null) {
+			notifyChannelWrite(targetChannel);
 		}
 		return pruneTriggered;
 	}
 
+	/**
+	 * Returns the queue to hand over records to the given channel as objects, or <tt>null</tt> if the
+	 * records have to be serialized.
+	 */
+	private LocalObjectQueue getObjectQueue(int targetChannel) {
+		if (objectCopier == null || objectHandoverBatchSize == 0) {
+			return null;
+		}
+
+		LocalObjectQueue objectQueue = objectQueues[targetChannel];
+		if (objectQueue == null && !bufferBuilders[targetChannel].isPresent()) {
+			// the consumer enables the handover when it requests the subpartition, so check again
+			// until then, but only at buffer boundaries to keep the records in order
+			objectQueue = targetPartition.getLocalObjectQueue(targetChannel);
+			objectQueues[targetChannel] = objectQueue;
+		}
+		return objectQueue;
+	}
+
+	private void handOverToTargetChannel(
+			LocalObjectQueue objectQueue,
+			T record,
+			int targetChannel) throws IOException, InterruptedException {
+
+		objectQueue.add(objectCopier.apply(record));
+
+		if (flushAlways || objectQueue.getNumUnpublishedRecords() >= objectHandoverBatchSize) {
+			objectQueue.publish();
+		} else if (channelWrites != null) {
+			notifyChannelWrite(targetChannel);
+		}
+	}
+
+	private void publishHandedOverRecords() throws IOException {
+		for (LocalObjectQueue objectQueue : objectQueues) {
+			if (objectQueue != null) {
+				objectQueue.publish();
+			}
+		}
+	}
+
 	public void broadcastEvent(AbstractEvent event) throws IOException {
+		// the handed over records have to precede the event
+		publishHandedOverRecords();
+
 		try (BufferConsumer eventBufferConsumer = EventSerializer.toBufferConsumer(event)) {
 			for (int targetChannel = 0; targetChannel < numberOfChannels; targetChannel++) {
 				tryFinishCurrentBufferBuilder(targetChannel);
 
 				// Retain the buffer so that it can be recycled by each channel of targetPartition
 				targetPartition.addBufferConsumer(eventBufferConsumer.copy(), targetChannel);
+
+				if (channelWrites != null) {
+					notifyChannelWrite(targetChannel);
+				}
 			}
 
 			if (flushAlways) {
@@ -208,9 +355,19 @@ public class RecordWriter<T extends IOReadableWritable> {
 	}
 
 	public void flushAll() {
+		try {
+			publishHandedOverRecords();
+		} catch (IOException e) {
+			ExceptionUtils.rethrow(e);
+		}
 		targetPartition.flushAll();
 	}
 
+	private void notifyChannelWrite(int targetChannel) {
+		// only the task thread writes the counts, so an ordered store is sufficient
+		channelWrites.lazySet(targetChannel, channelWrites.get(targetChannel) + 1);
+	}
+
 	public void clearBuffers() {
 		for (int targetChannel = 0; targetChannel < numberOfChannels; targetChannel++) {
 			closeBufferBuilder(targetChannel);
@@ -223,6 +380,10 @@ public class RecordWriter<T extends IOReadableWritable> {
 	public void setMetricGroup(TaskIOMetricGroup metrics) {
 		numBytesOut = metrics.getNumBytesOutCounter();
 		numBuffersOut = metrics.getNumBuffersOutCounter();
+		if (outputFlusher.isPresent()) {
+			metrics.reuseOutputFlushesCounter(numFlushes);
+			metrics.reuseOutputFlushFillRatioGauge(() -> flushFillRatio);
+		}
 	}
 
 	/**
@@ -254,6 +415,7 @@ public class RecordWriter<T extends IOReadableWritable> {
 		checkState(!bufferBuilders[targetChannel].isPresent() || bufferBuilders[targetChannel].get().isFinished());
 
 		BufferBuilder bufferBuilder = targetPartition.getBufferProvider().requestBufferBuilderBlocking();
+		bufferBuilder.trim(targetPartition.getDesirableBufferSize(targetChannel));
 		bufferBuilders[targetChannel] = Optional.of(bufferBuilder);
 		targetPartition.addBufferConsumer(bufferBuilder.createBufferConsumer(), targetChannel);
 		return bufferBuilder;
@@ -267,31 +429,27 @@ public class RecordWriter<T extends IOReadableWritable> {
 	}
 
 	/**
-	 * Closes the writer. This stops the flushing thread (if there is one).
+	 * Closes the writer. This stops the periodic flushing (if there is one) and waits for a flush
+	 * that is in progress, before the buffers are cleared.
 	 */
 	public void close() {
-		clearBuffers();
-		// make sure we terminate the thread in any case
-		if (outputFlusher.isPresent()) {
-			outputFlusher.get().terminate();
-			try {
-				outputFlusher.get().join();
-			} catch (InterruptedException e) {
-				// ignore on close
-				// restore interrupt flag to fast exit further blocking calls
-				Thread.currentThread().interrupt();
+		try {
+			if (outputFlusher.isPresent()) {
+				outputFlusher.get().terminate();
 			}
+		} finally {
+			clearBuffers();
 		}
 	}
 
 	/**
-	 * Notifies the writer that the output flusher thread encountered an exception.
+	 * Notifies the writer that the output flusher encountered an exception.
 	 *
 	 * @param t The exception to report.
 	 */
 	private void notifyFlusherException(Throwable t) {
 		if (flusherException == null) {
-			LOG.error("An exception happened while flushing the outputs", t);
+			LOG.error("An exception happened while flushing the outputs of {}", taskName, t);
 			flusherException = t;
 		}
 	}
@@ -305,47 +463,130 @@ public class RecordWriter<T extends IOReadableWritable> {
 	// ------------------------------------------------------------------------
 
 	/**
-	 * A dedicated thread that periodically flushes the output buffers, to set upper latency bounds.
+	 * Periodically flushes the channels of the output that have unflushed data, to set upper latency
+	 * bounds. It runs on the shared {@link OutputFlushScheduler}, never concurrently with itself.
 	 *
-	 * <p>The thread is daemonic, because it is only a utility thread.
+	 * <p>Without an idle timeout, it runs every buffer timeout and flushes all channels with data.
+	 * With an idle timeout, it runs every idle timeout and flushes the channels that have not been
+	 * written to since its previous run, or whose oldest unflushed data has been waiting for the
+	 * buffer timeout.
 	 */
-	private class OutputFlusher extends Thread {
+	private class OutputFlusher implements Runnable {
+
+		/** Weight of the latest flush in the moving average of the flush fill ratio. */
+		private static final double FILL_RATIO_WEIGHT = 0.1;
 
 		private final long timeout;
 
-		private volatile boolean running = true;
+		private final long idleTimeout;
+
+		/** The write counts of the channels at the previous run. */
+		private final long[] seenWrites;
+
+		/** The write counts of the channels at their last flush. */
+		private final long[] flushedWrites;
+
+		/** The times of the first run that saw unflushed data per channel. */
+		private final long[] pendingSince;
 
-		OutputFlusher(String name, long timeout) {
-			super(name);
-			setDaemon(true);
+		private ScheduledFuture<?> scheduledFlusher;
+
+		/** Guards the runs against the termination, so that no run is in progress after it. */
+		private final Object runLock = new Object();
+
+		@GuardedBy("runLock")
+		private boolean terminated;
+
+		OutputFlusher(long timeout, long idleTimeout) {
 			this.timeout = timeout;
+			this.idleTimeout = idleTimeout;
+			this.seenWrites = new long[numberOfChannels];
+			this.flushedWrites = new long[numberOfChannels];
+			this.pendingSince = new long[numberOfChannels];
+		}
+
+		void start() {
+			scheduledFlusher = OutputFlushScheduler.register(this, idleTimeout > 0 ? idleTimeout : timeout);
 		}
 
-		public void terminate() {
-			running = false;
-			interrupt();
+		/**
+		 * Stops the periodic runs. This waits for a run that is in progress, and a run that starts
+		 * afterwards does nothing.
+		 */
+		void terminate() {
+			synchronized (runLock) {
+				if (terminated) {
+					return;
+				}
+				terminated = true;
+			}
+			OutputFlushScheduler.unregister(scheduledFlusher);
 		}
 
 		@Override
 		public void run() {
-			try {
-				while (running) {
-					try {
-						Thread.sleep(timeout);
-					} catch (InterruptedException e) {
-						// propagate this if we are still running, because it should not happen
-						// in that case
-						if (running) {
-							throw new Exception(e);
-						}
-					}
-
-					// any errors here should let the thread come to a halt and be
+			synchronized (runLock) {
+				if (terminated) {
+					return;
+				}
+				try {
+					flushChannels(System.nanoTime() / 1_000_000);
+				} catch (Throwable t) {
+					// any errors here should let the flushing come to a halt and be
 					// recognized by the writer
-					flushAll();
+					notifyFlusherException(t);
+					ExceptionUtils.rethrow(t);
+				}
+			}
+		}
+
+		private void flushChannels(long now) throws IOException {
+			int numFlushedChannels = 0;
+			int numFillRatios = 0;
+			double fillRatioSum = 0.0;
+
+			for (int channel = 0; channel < numberOfChannels; channel++) {
+				long writes = channelWrites.get(channel);
+				long previouslySeenWrites = seenWrites[channel];
+				seenWrites[channel] = writes;
+				if (writes == flushedWrites[channel]) {
+					continue;
+				}
+				if (previouslySeenWrites == flushedWrites[channel]) {
+					// the data was written after the previous run
+					pendingSince[channel] = now;
+				}
+
+				if (idleTimeout > 0 && writes != previouslySeenWrites && now - pendingSince[channel] < timeout) {
+					// the channel is busy, let its buffer fill up further
+					continue;
 				}
-			} catch (Throwable t) {
-				notifyFlusherException(t);
+
+				// The buffer builders are written by the task thread, so this is a best-effort read
+				// that may see an outdated buffer. Without a buffer builder, the last buffer has been
+				// finished before and is not accounted.
+				Optional<BufferBuilder> bufferBuilder = bufferBuilders[channel];
+				if (bufferBuilder.isPresent()) {
+					fillRatioSum += (double) bufferBuilder.get().getCommittedBytes() / bufferBuilder.get().getMaxCapacity();
+					numFillRatios++;
+				}
+				// the task thread sets a queue before it counts the writes to it, so it is visible here
+				LocalObjectQueue objectQueue = objectQueues[channel];
+				if (objectQueue != null) {
+					objectQueue.publish();
+				}
+				targetPartition.flush(channel);
+				flushedWrites[channel] = writes;
+				numFlushedChannels++;
+			}
+
+			numFlushes.inc(numFlushedChannels);
+			if (numFillRatios > 0) {
+				double fillRatio = fillRatioSum / numFillRatios;
+				double previousFillRatio = flushFillRatio;
+				flushFillRatio = Double.isNaN(previousFillRatio) ?
+					fillRatio :
+					previousFillRatio + FILL_RATIO_WEIGHT * (fillRatio - previousFillRatio);
 			}
 		}
 	}
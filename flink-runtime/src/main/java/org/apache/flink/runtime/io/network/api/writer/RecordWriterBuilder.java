@@ -27,6 +27,10 @@ public class RecordWriterBuilder {
 
 	private long timeout = -1;
 
+	private long idleTimeout = -1;
+
+	private int objectHandoverBatchSize = 0;
+
 	private String taskName = "test";
 
 	public RecordWriterBuilder setChannelSelector(ChannelSelector selector) {
@@ -39,6 +43,16 @@ public class RecordWriterBuilder {
 		return this;
 	}
 
+	public RecordWriterBuilder setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+		return this;
+	}
+
+	public RecordWriterBuilder setObjectHandoverBatchSize(int objectHandoverBatchSize) {
+		this.objectHandoverBatchSize = objectHandoverBatchSize;
+		return this;
+	}
+
 	public RecordWriterBuilder setTaskName(String taskName) {
 		this.taskName = taskName;
 		return this;
@@ -46,9 +60,9 @@ public class RecordWriterBuilder {
 
 	public RecordWriter build(ResultPartitionWriter writer) {
 		if (selector.isBroadcast()) {
-			return new BroadcastRecordWriter(writer, selector, timeout, taskName);
+			return new BroadcastRecordWriter(writer, selector, timeout, idleTimeout, objectHandoverBatchSize, taskName);
 		} else {
-			return new RecordWriter(writer, selector, timeout, taskName);
+			return new RecordWriter(writer, selector, timeout, idleTimeout, objectHandoverBatchSize, taskName);
 		}
 	}
 }
@@ -20,6 +20,8 @@ package org.apache.flink.runtime.io.network.api.writer;
 
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.partition.LocalObjectQueue;
+import org.apache.flink.runtime.io.network.partition.PartitionSortBuffer;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 
 import javax.annotation.Nullable;
@@ -68,6 +70,34 @@ public interface ResultPartitionWriter extends AutoCloseable {
 	 */
 	void flush(int subpartitionIndex);
 
+	/**
+	 * Returns the queue through which the records of the given subpartition can be handed over as
+	 * objects to a co-located consumer, or <tt>null</tt> if the records have to be serialized.
+	 */
+	@Nullable
+	default LocalObjectQueue getLocalObjectQueue(int subpartitionIndex) {
+		return null;
+	}
+
+	/**
+	 * Returns the size in bytes up to which the buffers of the given subpartition should be filled,
+	 * as announced by its consumer, or {@link Integer#MAX_VALUE} if the buffers should be filled
+	 * completely.
+	 */
+	default int getDesirableBufferSize(int subpartitionIndex) {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the buffer into which the serialized records of the given subpartition are appended,
+	 * shared with the other subpartitions, or <tt>null</tt> if the records have to be copied into
+	 * buffers of the subpartition.
+	 */
+	@Nullable
+	default PartitionSortBuffer getSortBuffer(int subpartitionIndex) {
+		return null;
+	}
+
 	/**
 	 * Fail the production of the partition.
 	 *
@@ -59,6 +59,20 @@ public interface Buffer {
 	 */
 	void tagAsEvent();
 
+	/**
+	 * Returns whether this buffer's data is compressed, see {@link BufferCompressor}.
+	 *
+	 * @return <tt>true</tt> if the readable bytes of this buffer are compressed
+	 */
+	boolean isCompressed();
+
+	/**
+	 * Tags the buffer as compressed or uncompressed.
+	 *
+	 * @param isCompressed whether the readable bytes of this buffer are compressed
+	 */
+	void setCompressed(boolean isCompressed);
+
 	/**
 	 * Returns the underlying memory segment. This method is dangerous since it ignores read only protections and omits
 	 * slices. Use it only along the {@link #getMemorySegmentOffset()}.
@@ -42,9 +42,13 @@ public class BufferBuilder {
 
 	private boolean bufferConsumerCreated = false;
 
+	/** The number of bytes that may be written to the memory segment, at most its size. */
+	private int maxCapacity;
+
 	public BufferBuilder(MemorySegment memorySegment, BufferRecycler recycler) {
 		this.memorySegment = checkNotNull(memorySegment);
 		this.recycler = checkNotNull(recycler);
+		this.maxCapacity = memorySegment.size();
 	}
 
 	/**
@@ -119,7 +123,26 @@ public class BufferBuilder {
 	}
 
 	public int getMaxCapacity() {
-		return memorySegment.size();
+		return maxCapacity;
+	}
+
+	/**
+	 * Limits the number of bytes that may be written to this builder, so that smaller buffers are
+	 * sent while the consumer asks for them. The capacity is never trimmed below the already written
+	 * bytes, nor raised above the size of the underlying {@link MemorySegment}.
+	 *
+	 * @param newSize the desired capacity in bytes
+	 */
+	public void trim(int newSize) {
+		maxCapacity = Math.min(Math.max(newSize, positionMarker.getCached()), memorySegment.size());
+	}
+
+	/**
+	 * Returns the number of committed bytes. Other than the remaining methods, this may be called
+	 * from any thread.
+	 */
+	public int getCommittedBytes() {
+		return PositionMarker.getAbsolute(positionMarker.get());
 	}
 
 	/**
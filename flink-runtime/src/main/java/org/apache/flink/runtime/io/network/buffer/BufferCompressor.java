@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
+import org.apache.flink.runtime.io.compression.BlockCompressor;
+
+import java.nio.ByteBuffer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Compressor for {@link Buffer}. Only data buffers can be compressed, the compressed buffers are
+ * tagged via {@link Buffer#setCompressed(boolean)} and can be restored with a {@link BufferDecompressor}
+ * using the same codec.
+ *
+ * <p>If compressing a buffer does not reduce its size, the buffer is left uncompressed.
+ *
+ * <p>The compressor keeps an internal buffer for the compressed data. All methods are synchronized,
+ * but a buffer returned from {@link #compressToIntermediateBuffer(Buffer)} is only valid until the
+ * next call and must therefore only be used by a single thread.
+ */
+public class BufferCompressor {
+
+	/** The backing block compressor for data compression. */
+	private final BlockCompressor blockCompressor;
+
+	/** The intermediate buffer for the compressed data. */
+	private final NetworkBuffer internalBuffer;
+
+	/** The number of bytes of all buffers passed in for compression. */
+	private volatile long numBytesBeforeCompression;
+
+	/** The number of bytes of all buffers after compression (including the ones left uncompressed). */
+	private volatile long numBytesAfterCompression;
+
+	/** The time spent compressing buffers. */
+	private volatile long compressionTimeNanos;
+
+	public BufferCompressor(int bufferSize, String factoryName) {
+		checkArgument(bufferSize > 0);
+		checkNotNull(factoryName);
+
+		this.blockCompressor = BlockCompressionFactory.createBlockCompressionFactory(factoryName).getCompressor();
+
+		// the compressed data may exceed the original size, so the intermediate buffer must be larger
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(
+			blockCompressor.getMaxCompressedSize(bufferSize));
+		this.internalBuffer = new NetworkBuffer(segment, FreeingBufferRecycler.INSTANCE);
+	}
+
+	/**
+	 * Compresses the given {@link Buffer} into the intermediate buffer of this compressor and returns
+	 * it, retained for the caller. The given buffer is not recycled and stays untouched. If the data
+	 * cannot be compressed to a smaller size, the original buffer is returned.
+	 *
+	 * <p>The returned buffer is only valid until the next compression.
+	 */
+	public synchronized Buffer compressToIntermediateBuffer(Buffer buffer) {
+		final int compressedLen = compress(buffer);
+		if (compressedLen == 0) {
+			return buffer;
+		}
+
+		internalBuffer.setReaderIndex(0);
+		internalBuffer.setCompressed(true);
+		internalBuffer.setSize(compressedLen);
+		return internalBuffer.retainBuffer();
+	}
+
+	/**
+	 * Compresses the given {@link Buffer} and copies the compressed data back into the memory of the
+	 * given buffer. The returned buffer takes over the reference of the given buffer, which must not
+	 * be used any more, unless the data cannot be compressed to a smaller size, in which case the
+	 * original buffer is returned.
+	 *
+	 * <p>In contrast to {@link #compressToIntermediateBuffer(Buffer)}, the returned buffer may be
+	 * handed over to other threads.
+	 */
+	public synchronized Buffer compressToOriginalBuffer(Buffer buffer) {
+		final int compressedLen = compress(buffer);
+		if (compressedLen == 0) {
+			return buffer;
+		}
+
+		// the compressed data is smaller than the original data, so it fits into the original region
+		final int memorySegmentOffset = buffer.getMemorySegmentOffset() + buffer.getReaderIndex();
+		internalBuffer.getMemorySegment().copyTo(0, buffer.getMemorySegment(), memorySegmentOffset, compressedLen);
+
+		final Buffer compressedBuffer = buffer.readOnlySlice(buffer.getReaderIndex(), compressedLen);
+		compressedBuffer.setCompressed(true);
+		return compressedBuffer;
+	}
+
+	/**
+	 * Compresses the readable bytes of the given buffer into the intermediate buffer.
+	 *
+	 * @return the length of the compressed data, or <tt>0</tt> if the data was not compressed
+	 */
+	private int compress(Buffer buffer) {
+		checkArgument(buffer != null, "The input buffer must not be null.");
+		checkArgument(buffer.isBuffer(), "Event can not be compressed.");
+		checkArgument(!buffer.isCompressed(), "Buffer already compressed.");
+		checkArgument(buffer.getReaderIndex() == 0, "Reader index of the input buffer must be 0.");
+
+		final int numBytes = buffer.readableBytes();
+		final long start = System.nanoTime();
+
+		int compressedLen;
+		try {
+			final ByteBuffer target = internalBuffer.getNioBuffer(0, internalBuffer.getMaxCapacity());
+			compressedLen = blockCompressor.compress(buffer.getNioBufferReadable(), 0, numBytes, target, 0);
+		}
+		finally {
+			compressionTimeNanos += System.nanoTime() - start;
+		}
+
+		numBytesBeforeCompression += numBytes;
+		if (compressedLen < numBytes) {
+			numBytesAfterCompression += compressedLen;
+			return compressedLen;
+		}
+		else {
+			numBytesAfterCompression += numBytes;
+			return 0;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  statistics
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the ratio of the number of bytes before to the number of bytes after compression,
+	 * or <tt>1.0</tt> if nothing was compressed yet.
+	 */
+	public double getCompressionRatio() {
+		final long after = numBytesAfterCompression;
+		return after == 0 ? 1.0 : (double) numBytesBeforeCompression / after;
+	}
+
+	/**
+	 * Returns the total time spent compressing buffers in milliseconds.
+	 */
+	public long getCompressionTimeMillis() {
+		return compressionTimeNanos / 1_000_000;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
+import org.apache.flink.runtime.io.compression.BlockDecompressor;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Decompressor for compressed {@link Buffer}, see {@link BufferCompressor}.
+ *
+ * <p>The decompressor keeps an internal buffer for the decompressed data, so a buffer returned from
+ * {@link #decompressToIntermediateBuffer(Buffer)} is only valid until the next call. Buffers which
+ * may be held back by the consumer, e.g. during checkpoint alignment, must be decompressed with
+ * {@link #decompressToOriginalBuffer(Buffer)} or {@link #decompressToNewBuffer(Buffer, BufferProvider)}
+ * instead. This class is not thread-safe and meant to be used by the single thread consuming an
+ * input gate.
+ */
+public class BufferDecompressor {
+
+	/** The backing block decompressor for data decompression. */
+	private final BlockDecompressor blockDecompressor;
+
+	/** The size of the buffers before compression, which is the maximum size after decompression. */
+	private final int bufferSize;
+
+	/** The intermediate buffer for the decompressed data. */
+	private final NetworkBuffer internalBuffer;
+
+	/** The number of bytes of all buffers passed in for decompression. */
+	private volatile long numBytesBeforeDecompression;
+
+	/** The number of bytes of all buffers after decompression. */
+	private volatile long numBytesAfterDecompression;
+
+	/** The time spent decompressing buffers. */
+	private volatile long decompressionTimeNanos;
+
+	public BufferDecompressor(int bufferSize, String factoryName) {
+		checkArgument(bufferSize > 0);
+		checkNotNull(factoryName);
+
+		this.bufferSize = bufferSize;
+		this.blockDecompressor = BlockCompressionFactory.createBlockCompressionFactory(factoryName).getDecompressor();
+
+		// compressed buffers never exceed the original buffer size when decompressed
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(bufferSize);
+		this.internalBuffer = new NetworkBuffer(segment, FreeingBufferRecycler.INSTANCE);
+	}
+
+	/**
+	 * Decompresses the given {@link Buffer} into the intermediate buffer of this decompressor and
+	 * returns it, retained for the caller. The given buffer is not recycled and stays untouched.
+	 *
+	 * <p>The returned buffer is only valid until the next decompression.
+	 */
+	public Buffer decompressToIntermediateBuffer(Buffer buffer) {
+		final int decompressedLen = decompress(buffer);
+
+		internalBuffer.setReaderIndex(0);
+		internalBuffer.setSize(decompressedLen);
+		return internalBuffer.retainBuffer();
+	}
+
+	/**
+	 * Decompresses the given {@link Buffer} and copies the decompressed data back into the memory of
+	 * the given buffer, which is returned. The buffer must be writable, exclusively owned by the
+	 * caller and large enough to hold the decompressed data, i.e. a whole segment of a buffer pool.
+	 *
+	 * <p>In contrast to {@link #decompressToIntermediateBuffer(Buffer)}, the returned buffer stays
+	 * valid until it is recycled.
+	 */
+	public Buffer decompressToOriginalBuffer(Buffer buffer) {
+		checkArgument(buffer.getMaxCapacity() - buffer.getMemorySegmentOffset() >= bufferSize,
+			"The input buffer is too small to hold the decompressed data.");
+
+		final int decompressedLen = decompress(buffer);
+
+		// the compressed data has been fully read, so it can be overwritten
+		internalBuffer.getMemorySegment().copyTo(
+			0, buffer.getMemorySegment(), buffer.getMemorySegmentOffset(), decompressedLen);
+
+		buffer.setReaderIndex(0);
+		buffer.setSize(decompressedLen);
+		buffer.setCompressed(false);
+		return buffer;
+	}
+
+	/**
+	 * Decompresses the given {@link Buffer} into a new buffer, which is requested from the given
+	 * buffer provider, or allocated if the provider has no buffer available. The given buffer is not
+	 * recycled and stays untouched, so this works for read-only buffers as well.
+	 *
+	 * <p>In contrast to {@link #decompressToIntermediateBuffer(Buffer)}, the returned buffer stays
+	 * valid until it is recycled.
+	 */
+	public Buffer decompressToNewBuffer(Buffer buffer, @Nullable BufferProvider bufferProvider) throws IOException {
+		final int decompressedLen = decompress(buffer);
+
+		Buffer target = bufferProvider != null ? bufferProvider.requestBuffer() : null;
+		if (target == null || target.getMaxCapacity() < decompressedLen) {
+			if (target != null) {
+				target.recycleBuffer();
+			}
+			target = new NetworkBuffer(
+				MemorySegmentFactory.allocateUnpooledSegment(bufferSize), FreeingBufferRecycler.INSTANCE);
+		}
+
+		internalBuffer.getMemorySegment().copyTo(
+			0, target.getMemorySegment(), target.getMemorySegmentOffset(), decompressedLen);
+		target.setSize(decompressedLen);
+		return target;
+	}
+
+	/**
+	 * Decompresses the readable bytes of the given buffer into the intermediate buffer.
+	 *
+	 * @return the length of the decompressed data
+	 */
+	private int decompress(Buffer buffer) {
+		checkArgument(buffer != null, "The input buffer must not be null.");
+		checkArgument(buffer.isBuffer(), "Event can not be decompressed.");
+		checkArgument(buffer.isCompressed(), "Buffer not compressed.");
+		checkArgument(buffer.getReaderIndex() == 0, "Reader index of the input buffer must be 0.");
+
+		final int numBytes = buffer.readableBytes();
+		final long start = System.nanoTime();
+
+		int decompressedLen;
+		try {
+			final ByteBuffer target = internalBuffer.getNioBuffer(0, internalBuffer.getMaxCapacity());
+			decompressedLen = blockDecompressor.decompress(buffer.getNioBufferReadable(), 0, numBytes, target, 0);
+		}
+		finally {
+			decompressionTimeNanos += System.nanoTime() - start;
+		}
+
+		numBytesBeforeDecompression += numBytes;
+		numBytesAfterDecompression += decompressedLen;
+		return decompressedLen;
+	}
+
+	// ------------------------------------------------------------------------
+	//  statistics
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the ratio of the number of bytes after to the number of bytes before decompression,
+	 * i.e. the compression ratio of the received data, or <tt>1.0</tt> if nothing was decompressed yet.
+	 */
+	public double getCompressionRatio() {
+		final long before = numBytesBeforeDecompression;
+		return before == 0 ? 1.0 : (double) numBytesAfterDecompression / before;
+	}
+
+	/**
+	 * Returns the total time spent decompressing buffers in milliseconds.
+	 */
+	public long getDecompressionTimeMillis() {
+		return decompressionTimeNanos / 1_000_000;
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBufAllocator;
+import org.apache.flink.shaded.netty4.io.netty.channel.DefaultFileRegion;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A buffer whose data is a region of a file, instead of a {@link MemorySegment}. Netty writes the
+ * region to the network via {@link DefaultFileRegion} (i.e., <tt>sendfile</tt> where available),
+ * so the data is not copied into the user space on its way from the file to the socket.
+ *
+ * <p>The buffer does not support any access to its data in memory. Consumers that need the data in
+ * memory, like local input channels, have to read it via {@link #readToUnpooledBuffer()}.
+ *
+ * <p>The file channel is shared by all regions of the file and is not closed when the buffer is
+ * recycled; its owner has to keep it open until all buffers of the file are recycled.
+ */
+public class FileRegionBuffer extends DefaultFileRegion implements Buffer {
+
+	private final FileChannel fileChannel;
+
+	/** The position of the data in the file. */
+	private final long filePosition;
+
+	/** The size of the data. */
+	private final int size;
+
+	private boolean isBuffer;
+
+	private boolean isCompressed;
+
+	public FileRegionBuffer(
+			FileChannel fileChannel,
+			long filePosition,
+			int size,
+			boolean isBuffer,
+			boolean isCompressed) {
+
+		super(fileChannel, filePosition, size);
+
+		checkArgument(filePosition >= 0, "The file position must not be negative.");
+		checkArgument(size >= 0, "The size must not be negative.");
+		this.fileChannel = checkNotNull(fileChannel);
+		this.filePosition = filePosition;
+		this.size = size;
+		this.isBuffer = isBuffer;
+		this.isCompressed = isCompressed;
+	}
+
+	/**
+	 * Reads the data of this buffer into newly allocated, unpooled memory and recycles this buffer.
+	 */
+	public Buffer readToUnpooledBuffer() throws IOException {
+		try {
+			final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(size);
+			final ByteBuffer target = segment.wrap(0, size);
+
+			long readPosition = filePosition;
+			while (target.hasRemaining()) {
+				final int numBytes = fileChannel.read(target, readPosition);
+				if (numBytes < 0) {
+					throw new EOFException("Unexpected end of file while reading file region " + this);
+				}
+				readPosition += numBytes;
+			}
+
+			final Buffer buffer = new NetworkBuffer(segment, FreeingBufferRecycler.INSTANCE, isBuffer, size);
+			buffer.setCompressed(isCompressed);
+			return buffer;
+		}
+		finally {
+			recycleBuffer();
+		}
+	}
+
+	@Override
+	protected void deallocate() {
+		// the file channel is shared by all regions of the file and closed by its owner
+	}
+
+	// ------------------------------------------------------------------------
+	//  Buffer
+	// ------------------------------------------------------------------------
+
+	@Override
+	public boolean isBuffer() {
+		return isBuffer;
+	}
+
+	@Override
+	public void tagAsEvent() {
+		isBuffer = false;
+	}
+
+	@Override
+	public boolean isCompressed() {
+		return isCompressed;
+	}
+
+	@Override
+	public void setCompressed(boolean isCompressed) {
+		this.isCompressed = isCompressed;
+	}
+
+	@Override
+	public MemorySegment getMemorySegment() {
+		throw new UnsupportedOperationException("A file region buffer has no memory segment.");
+	}
+
+	@Override
+	public int getMemorySegmentOffset() {
+		throw new UnsupportedOperationException("A file region buffer has no memory segment.");
+	}
+
+	@Override
+	public BufferRecycler getRecycler() {
+		throw new UnsupportedOperationException("A file region buffer has no recycler.");
+	}
+
+	@Override
+	public void recycleBuffer() {
+		release();
+	}
+
+	@Override
+	public boolean isRecycled() {
+		return refCnt() == 0;
+	}
+
+	@Override
+	public Buffer retainBuffer() {
+		retain();
+		return this;
+	}
+
+	@Override
+	public Buffer readOnlySlice() {
+		throw new UnsupportedOperationException("A file region buffer cannot be sliced.");
+	}
+
+	@Override
+	public Buffer readOnlySlice(int index, int length) {
+		throw new UnsupportedOperationException("A file region buffer cannot be sliced.");
+	}
+
+	@Override
+	public int getMaxCapacity() {
+		return size;
+	}
+
+	@Override
+	public int getReaderIndex() {
+		return 0;
+	}
+
+	@Override
+	public void setReaderIndex(int readerIndex) throws IndexOutOfBoundsException {
+		throw new UnsupportedOperationException("A file region buffer has no reader index.");
+	}
+
+	@Override
+	public int getSizeUnsafe() {
+		return size;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public void setSize(int writerIndex) {
+		throw new UnsupportedOperationException("The size of a file region buffer is fixed.");
+	}
+
+	@Override
+	public int readableBytes() {
+		return size;
+	}
+
+	@Override
+	public ByteBuffer getNioBufferReadable() {
+		throw new UnsupportedOperationException("A file region buffer has no data in memory.");
+	}
+
+	@Override
+	public ByteBuffer getNioBuffer(int index, int length) throws IndexOutOfBoundsException {
+		throw new UnsupportedOperationException("A file region buffer has no data in memory.");
+	}
+
+	@Override
+	public void setAllocator(ByteBufAllocator allocator) {
+		// not needed, Netty writes the file region directly
+	}
+
+	@Override
+	public ByteBuf asByteBuf() {
+		throw new UnsupportedOperationException("A file region buffer has no data in memory.");
+	}
+
+	@Override
+	public String toString() {
+		return String.format("FileRegionBuffer [position: %d, size: %d, buffer: %s, compressed: %s]",
+			filePosition, size, isBuffer, isCompressed);
+	}
+}
@@ -54,6 +54,9 @@ public class NetworkBuffer extends AbstractReferenceCountedByteBuf implements Bu
 	/** Whether this buffer represents a buffer or an event. */
 	private boolean isBuffer;
 
+	/** Whether the data of this buffer is compressed. */
+	private boolean isCompressed;
+
 	/** Allocator for further byte buffers (needed by netty). */
 	private ByteBufAllocator allocator;
 
@@ -125,6 +128,16 @@ public class NetworkBuffer extends AbstractReferenceCountedByteBuf implements Bu
 		isBuffer = false;
 	}
 
+	@Override
+	public boolean isCompressed() {
+		return isCompressed;
+	}
+
+	@Override
+	public void setCompressed(boolean isCompressed) {
+		this.isCompressed = isCompressed;
+	}
+
 	@Override
 	public MemorySegment getMemorySegment() {
 		ensureAccessible();
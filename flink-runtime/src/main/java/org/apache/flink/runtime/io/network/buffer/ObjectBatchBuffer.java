@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A data buffer that carries records as objects instead of serialized bytes. It is created by a
+ * local input channel for a batch of records handed over by a co-located producer, and its
+ * records are taken by the record deserializer without deserialization.
+ *
+ * <p>The buffer has no readable bytes and is not backed by pooled memory.
+ */
+public class ObjectBatchBuffer extends NetworkBuffer {
+
+	private static final MemorySegment EMPTY_SEGMENT = MemorySegmentFactory.wrap(new byte[0]);
+
+	private static final BufferRecycler NO_OP_RECYCLER = memorySegment -> {};
+
+	private final List<Object> records;
+
+	public ObjectBatchBuffer(List<Object> records) {
+		super(EMPTY_SEGMENT, NO_OP_RECYCLER, true, 0);
+		this.records = checkNotNull(records);
+	}
+
+	/**
+	 * Returns the records of this batch in the order in which they were emitted.
+	 */
+	public List<Object> getRecords() {
+		return records;
+	}
+}
@@ -40,6 +40,9 @@ public final class ReadOnlySlicedNetworkBuffer extends ReadOnlyByteBuf implement
 
 	private final int memorySegmentOffset;
 
+	/** Whether the data of this slice is compressed. Not shared with the sliced buffer. */
+	private boolean isCompressed;
+
 	/**
 	 * Creates a buffer which shares the memory segment of the given buffer and exposed the given
 	 * sub-region only.
@@ -54,6 +57,7 @@ public final class ReadOnlySlicedNetworkBuffer extends ReadOnlyByteBuf implement
 	ReadOnlySlicedNetworkBuffer(NetworkBuffer buffer, int index, int length) {
 		super(new SlicedByteBuf(buffer, index, length));
 		this.memorySegmentOffset = buffer.getMemorySegmentOffset() + index;
+		this.isCompressed = buffer.isCompressed();
 	}
 
 	/**
@@ -67,10 +71,17 @@ public final class ReadOnlySlicedNetworkBuffer extends ReadOnlyByteBuf implement
 	 * @param index the index to start from
 	 * @param length the length of the slice
 	 * @param memorySegmentOffset <tt>buffer</tt>'s absolute offset in the backing {@link MemorySegment}
+	 * @param isCompressed whether the data of the slice is compressed
 	 */
-	private ReadOnlySlicedNetworkBuffer(ByteBuf buffer, int index, int length, int memorySegmentOffset) {
+	private ReadOnlySlicedNetworkBuffer(
+			ByteBuf buffer,
+			int index,
+			int length,
+			int memorySegmentOffset,
+			boolean isCompressed) {
 		super(new SlicedByteBuf(buffer, index, length));
 		this.memorySegmentOffset = memorySegmentOffset + index;
+		this.isCompressed = isCompressed;
 	}
 
 	@Override
@@ -88,6 +99,16 @@ public final class ReadOnlySlicedNetworkBuffer extends ReadOnlyByteBuf implement
 		throw new ReadOnlyBufferException();
 	}
 
+	@Override
+	public boolean isCompressed() {
+		return isCompressed;
+	}
+
+	@Override
+	public void setCompressed(boolean isCompressed) {
+		this.isCompressed = isCompressed;
+	}
+
 	/**
 	 * Returns the underlying memory segment.
 	 *
@@ -134,7 +155,7 @@ public final class ReadOnlySlicedNetworkBuffer extends ReadOnlyByteBuf implement
 
 	@Override
 	public ReadOnlySlicedNetworkBuffer readOnlySlice(int index, int length) {
-		return new ReadOnlySlicedNetworkBuffer(super.unwrap(), index, length, memorySegmentOffset);
+		return new ReadOnlySlicedNetworkBuffer(super.unwrap(), index, length, memorySegmentOffset, isCompressed);
 	}
 
 	@Override
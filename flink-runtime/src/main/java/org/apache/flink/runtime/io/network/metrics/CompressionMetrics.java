@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.metrics;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
+import org.apache.flink.runtime.io.network.partition.ResultPartition;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+
+/**
+ * Registers the compression ratio and the CPU time spent on (de)compressing network buffers for
+ * each result partition and input gate which has compression enabled.
+ */
+public class CompressionMetrics {
+
+	private static final String METRIC_COMPRESSION_RATIO = "compressionRatio";
+
+	private static final String METRIC_COMPRESSION_TIME = "compressionTimeMs";
+
+	private static final String METRIC_DECOMPRESSION_TIME = "decompressionTimeMs";
+
+	private CompressionMetrics() {
+	}
+
+	public static void registerOutputCompressionMetrics(MetricGroup parent, ResultPartition[] partitions) {
+		for (int i = 0; i < partitions.length; i++) {
+			final BufferCompressor compressor = partitions[i].getBufferCompressor();
+			if (compressor == null) {
+				continue;
+			}
+
+			MetricGroup group = parent.addGroup(i);
+			group.gauge(METRIC_COMPRESSION_RATIO, (Gauge<Double>) compressor::getCompressionRatio);
+			group.gauge(METRIC_COMPRESSION_TIME, (Gauge<Long>) compressor::getCompressionTimeMillis);
+		}
+	}
+
+	public static void registerInputCompressionMetrics(MetricGroup parent, SingleInputGate[] gates) {
+		for (int i = 0; i < gates.length; i++) {
+			final BufferDecompressor decompressor = gates[i].getBufferDecompressor();
+			if (decompressor == null) {
+				continue;
+			}
+
+			MetricGroup group = parent.addGroup(i);
+			group.gauge(METRIC_COMPRESSION_RATIO, (Gauge<Double>) decompressor::getCompressionRatio);
+			group.gauge(METRIC_DECOMPRESSION_TIME, (Gauge<Long>) decompressor::getDecompressionTimeMillis);
+		}
+	}
+}
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.metrics;
 
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.io.network.partition.consumer.BufferDebloater;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
@@ -190,4 +191,22 @@ public class InputGateMetrics {
 			group.gauge("avgQueueLen", metrics.getAvgQueueLenGauge());
 		}
 	}
+
+	/**
+	 * Registers the buffer size, the floating credit limit and the throughput that the debloaters
+	 * of the given gates calculated. Gates without a debloater are skipped.
+	 */
+	public static void registerBufferDebloatMetrics(MetricGroup parent, SingleInputGate[] gates) {
+		for (int i = 0; i < gates.length; i++) {
+			BufferDebloater debloater = gates[i].getBufferDebloater();
+			if (debloater == null) {
+				continue;
+			}
+
+			MetricGroup group = parent.addGroup(i);
+			group.gauge("debloatedBufferSize", (Gauge<Integer>) debloater::getBufferSize);
+			group.gauge("maxFloatingCredits", (Gauge<Integer>) debloater::getMaxFloatingCredits);
+			group.gauge("estimatedThroughput", (Gauge<Long>) debloater::getThroughput);
+		}
+	}
 }
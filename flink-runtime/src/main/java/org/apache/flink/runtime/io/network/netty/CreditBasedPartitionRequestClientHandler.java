@@ -306,6 +306,7 @@ class CreditBasedPartitionRequestClientHandler extends ChannelInboundHandlerAdap
 				Buffer buffer = inputChannel.requestBuffer();
 				if (buffer != null) {
 					nettyBuffer.readBytes(buffer.asByteBuf(), receivedSize);
+					buffer.setCompressed(bufferOrEvent.isCompressed);
 
 					inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber, bufferOrEvent.backlog);
 				} else if (inputChannel.isReleased()) {
@@ -98,6 +98,11 @@ class CreditBasedSequenceNumberingViewReader implements BufferAvailabilityListen
 		numCreditsAvailable += creditDeltas;
 	}
 
+	@Override
+	public void notifyNewBufferSize(int newBufferSize) {
+		subpartitionView.notifyNewBufferSize(newBufferSize);
+	}
+
 	@Override
 	public void setRegisteredAsAvailable(boolean isRegisteredAvailable) {
 		this.isRegisteredAsAvailable = isRegisteredAvailable;
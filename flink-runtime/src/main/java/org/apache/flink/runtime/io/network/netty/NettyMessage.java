@@ -22,6 +22,7 @@ import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
@@ -35,6 +36,7 @@ import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBufOutputStream;
 import org.apache.flink.shaded.netty4.io.netty.buffer.CompositeByteBuf;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandler;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOutboundInvoker;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOutboundHandlerAdapter;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelPromise;
 import org.apache.flink.shaded.netty4.io.netty.handler.codec.LengthFieldBasedFrameDecoder;
@@ -49,6 +51,7 @@ import java.nio.ByteBuffer;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * A simple and generic interface to serialize messages to Netty's buffer space.
@@ -69,6 +72,27 @@ public abstract class NettyMessage {
 
 	abstract ByteBuf write(ByteBufAllocator allocator) throws Exception;
 
+	/**
+	 * Serializes this message and writes it to the given outbound invoker. Messages that are not
+	 * serialized into a single buffer, like {@link BufferResponse BufferResponses} with a
+	 * {@link FileRegionBuffer}, override this method.
+	 */
+	void write(ChannelOutboundInvoker out, ChannelPromise promise, ByteBufAllocator allocator) throws IOException {
+		ByteBuf serialized = null;
+
+		try {
+			serialized = write(allocator);
+		}
+		catch (Throwable t) {
+			throw new IOException("Error while serializing message: " + this, t);
+		}
+		finally {
+			if (serialized != null) {
+				out.write(serialized, promise);
+			}
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -167,20 +191,7 @@ public abstract class NettyMessage {
 		@Override
 		public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
 			if (msg instanceof NettyMessage) {
-
-				ByteBuf serialized = null;
-
-				try {
-					serialized = ((NettyMessage) msg).write(ctx.alloc());
-				}
-				catch (Throwable t) {
-					throw new IOException("Error while serializing message: " + msg, t);
-				}
-				finally {
-					if (serialized != null) {
-						ctx.write(serialized, promise);
-					}
-				}
+				((NettyMessage) msg).write(ctx, promise, ctx.alloc());
 			}
 			else {
 				ctx.write(msg, promise);
@@ -256,6 +267,9 @@ public abstract class NettyMessage {
 					case AddCredit.ID:
 						decodedMsg = AddCredit.readFrom(msg);
 						break;
+					case NewBufferSize.ID:
+						decodedMsg = NewBufferSize.readFrom(msg);
+						break;
 					default:
 						throw new ProtocolException(
 							"Received unknown message from producer: " + msg);
@@ -301,8 +315,20 @@ public abstract class NettyMessage {
 
 		private static final byte ID = 0;
 
+		// receiver ID (16), sequence number (4), backlog (4), isBuffer (1), isCompressed (1), buffer size (4)
+		private static final int MESSAGE_HEADER_LENGTH = 16 + 4 + 4 + 1 + 1 + 4;
+
+		/** The data of the buffer, or <tt>null</tt> if it is sent from a {@link #fileRegion}. */
+		@Nullable
 		final ByteBuf buffer;
 
+		/**
+		 * The file region with the data of the buffer, which is sent without copying it into memory
+		 * and framed exactly like a buffer in memory. Only set on the sender side.
+		 */
+		@Nullable
+		private final FileRegionBuffer fileRegion;
+
 		final InputChannelID receiverId;
 
 		final int sequenceNumber;
@@ -311,14 +337,19 @@ public abstract class NettyMessage {
 
 		final boolean isBuffer;
 
+		final boolean isCompressed;
+
 		private BufferResponse(
 				ByteBuf buffer,
 				boolean isBuffer,
+				boolean isCompressed,
 				int sequenceNumber,
 				InputChannelID receiverId,
 				int backlog) {
 			this.buffer = checkNotNull(buffer);
+			this.fileRegion = null;
 			this.isBuffer = isBuffer;
+			this.isCompressed = isCompressed;
 			this.sequenceNumber = sequenceNumber;
 			this.receiverId = checkNotNull(receiverId);
 			this.backlog = backlog;
@@ -329,8 +360,16 @@ public abstract class NettyMessage {
 				int sequenceNumber,
 				InputChannelID receiverId,
 				int backlog) {
-			this.buffer = checkNotNull(buffer).asByteBuf();
+			checkNotNull(buffer);
+			if (buffer instanceof FileRegionBuffer) {
+				this.buffer = null;
+				this.fileRegion = (FileRegionBuffer) buffer;
+			} else {
+				this.buffer = buffer.asByteBuf();
+				this.fileRegion = null;
+			}
 			this.isBuffer = buffer.isBuffer();
+			this.isCompressed = buffer.isCompressed();
 			this.sequenceNumber = sequenceNumber;
 			this.receiverId = checkNotNull(receiverId);
 			this.backlog = backlog;
@@ -340,22 +379,50 @@ public abstract class NettyMessage {
 			return isBuffer;
 		}
 
+		boolean isCompressed() {
+			return isCompressed;
+		}
+
 		ByteBuf getNettyBuffer() {
 			return buffer;
 		}
 
 		void releaseBuffer() {
-			buffer.release();
+			if (fileRegion != null) {
+				fileRegion.recycleBuffer();
+			} else {
+				buffer.release();
+			}
 		}
 
 		// --------------------------------------------------------------------
 		// Serialization
 		// --------------------------------------------------------------------
 
+		@Override
+		void write(ChannelOutboundInvoker out, ChannelPromise promise, ByteBufAllocator allocator) throws IOException {
+			if (fileRegion == null) {
+				super.write(out, promise, allocator);
+				return;
+			}
+
+			final ByteBuf headerBuf;
+			try {
+				headerBuf = writeHeader(allocator, fileRegion.getSize());
+			}
+			catch (Throwable t) {
+				fileRegion.recycleBuffer();
+				throw new IOException("Error while serializing message: " + this, t);
+			}
+
+			// the header and the file region are written as one frame, only the latter completes the promise
+			out.write(headerBuf, out.voidPromise());
+			out.write(fileRegion, promise);
+		}
+
 		@Override
 		ByteBuf write(ByteBufAllocator allocator) throws IOException {
-			// receiver ID (16), sequence number (4), backlog (4), isBuffer (1), buffer size (4)
-			final int messageHeaderLength = 16 + 4 + 4 + 1 + 4;
+			checkState(fileRegion == null, "A file region cannot be serialized into a buffer.");
 
 			ByteBuf headerBuf = null;
 			try {
@@ -365,13 +432,7 @@ public abstract class NettyMessage {
 				}
 
 				// only allocate header buffer - we will combine it with the data buffer below
-				headerBuf = allocateBuffer(allocator, ID, messageHeaderLength, buffer.readableBytes(), false);
-
-				receiverId.writeTo(headerBuf);
-				headerBuf.writeInt(sequenceNumber);
-				headerBuf.writeInt(backlog);
-				headerBuf.writeBoolean(isBuffer);
-				headerBuf.writeInt(buffer.readableBytes());
+				headerBuf = writeHeader(allocator, buffer.readableBytes());
 
 				CompositeByteBuf composityBuf = allocator.compositeDirectBuffer();
 				composityBuf.addComponent(headerBuf);
@@ -391,15 +452,28 @@ public abstract class NettyMessage {
 			}
 		}
 
+		private ByteBuf writeHeader(ByteBufAllocator allocator, int bufferSize) {
+			final ByteBuf headerBuf = allocateBuffer(allocator, ID, MESSAGE_HEADER_LENGTH, bufferSize, false);
+
+			receiverId.writeTo(headerBuf);
+			headerBuf.writeInt(sequenceNumber);
+			headerBuf.writeInt(backlog);
+			headerBuf.writeBoolean(isBuffer);
+			headerBuf.writeBoolean(isCompressed);
+			headerBuf.writeInt(bufferSize);
+			return headerBuf;
+		}
+
 		static BufferResponse readFrom(ByteBuf buffer) {
 			InputChannelID receiverId = InputChannelID.fromByteBuf(buffer);
 			int sequenceNumber = buffer.readInt();
 			int backlog = buffer.readInt();
 			boolean isBuffer = buffer.readBoolean();
+			boolean isCompressed = buffer.readBoolean();
 			int size = buffer.readInt();
 
 			ByteBuf retainedSlice = buffer.readSlice(size).retain();
-			return new BufferResponse(retainedSlice, isBuffer, sequenceNumber, receiverId, backlog);
+			return new BufferResponse(retainedSlice, isBuffer, isCompressed, sequenceNumber, receiverId, backlog);
 		}
 	}
 
@@ -723,4 +797,56 @@ public abstract class NettyMessage {
 			return String.format("AddCredit(%s : %d)", receiverId, credit);
 		}
 	}
+
+	/**
+	 * Announcement of the buffer size that the client would like to receive from the server.
+	 */
+	static class NewBufferSize extends NettyMessage {
+
+		private static final byte ID = 7;
+
+		final int bufferSize;
+
+		final InputChannelID receiverId;
+
+		NewBufferSize(int bufferSize, InputChannelID receiverId) {
+			checkArgument(bufferSize > 0, "The announced buffer size should be greater than 0");
+
+			this.bufferSize = bufferSize;
+			this.receiverId = receiverId;
+		}
+
+		@Override
+		ByteBuf write(ByteBufAllocator allocator) throws IOException {
+			ByteBuf result = null;
+
+			try {
+				result = allocateBuffer(allocator, ID, 4 + 16);
+
+				result.writeInt(bufferSize);
+				receiverId.writeTo(result);
+
+				return result;
+			}
+			catch (Throwable t) {
+				if (result != null) {
+					result.release();
+				}
+
+				throw new IOException(t);
+			}
+		}
+
+		static NewBufferSize readFrom(ByteBuf buffer) {
+			int bufferSize = buffer.readInt();
+			InputChannelID receiverId = InputChannelID.fromByteBuf(buffer);
+
+			return new NewBufferSize(bufferSize, receiverId);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("NewBufferSize(%s : %d)", receiverId, bufferSize);
+		}
+	}
 }
@@ -38,6 +38,7 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.util.concurrent.TimeUnit;
 
+import static org.apache.flink.runtime.io.network.netty.NettyMessage.NewBufferSize;
 import static org.apache.flink.runtime.io.network.netty.NettyMessage.PartitionRequest;
 import static org.apache.flink.runtime.io.network.netty.NettyMessage.TaskEventRequest;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -175,6 +176,24 @@ public class NettyPartitionRequestClient implements PartitionRequestClient {
 		clientHandler.notifyCreditAvailable(inputChannel);
 	}
 
+	@Override
+	public void notifyNewBufferSize(final RemoteInputChannel inputChannel, int newBufferSize) {
+		tcpChannel.writeAndFlush(new NewBufferSize(newBufferSize, inputChannel.getInputChannelId()))
+				.addListener(
+						new ChannelFutureListener() {
+							@Override
+							public void operationComplete(ChannelFuture future) throws Exception {
+								if (!future.isSuccess()) {
+									SocketAddress remoteAddr = future.channel().remoteAddress();
+									inputChannel.onError(new LocalTransportException(
+										String.format("Sending the buffer size to '%s' failed.", remoteAddr),
+										future.channel().localAddress(), future.cause()
+									));
+								}
+							}
+						});
+	}
+
 	@Override
 	public void close(RemoteInputChannel inputChannel) throws IOException {
 
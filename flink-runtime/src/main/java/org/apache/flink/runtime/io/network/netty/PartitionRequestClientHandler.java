@@ -313,6 +313,7 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter impleme
 
 					if (buffer != null) {
 						nettyBuffer.readBytes(buffer.asByteBuf(), receivedSize);
+						buffer.setCompressed(bufferOrEvent.isCompressed);
 
 						inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber, -1);
 
@@ -167,6 +167,21 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		}
 	}
 
+	/**
+	 * Forwards the buffer size announced by a consumer to the view of its subpartition.
+	 */
+	void notifyNewBufferSize(InputChannelID receiverId, int newBufferSize) {
+		if (fatalError) {
+			return;
+		}
+
+		// the announcement may race with the release of the reader, so an unknown receiver is ignored
+		NetworkSequenceViewReader reader = allReaders.get(receiverId);
+		if (reader != null) {
+			reader.notifyNewBufferSize(newBufferSize);
+		}
+	}
+
 	@Override
 	public void userEventTriggered(ChannelHandlerContext ctx, Object msg) throws Exception {
 		// The user event triggered event loop callback is used for thread-safe
@@ -23,6 +23,7 @@ import org.apache.flink.runtime.io.network.TaskEventPublisher;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.AddCredit;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.CancelPartitionRequest;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.CloseRequest;
+import org.apache.flink.runtime.io.network.netty.NettyMessage.NewBufferSize;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
@@ -128,6 +129,10 @@ class PartitionRequestServerHandler extends SimpleChannelInboundHandler<NettyMes
 				AddCredit request = (AddCredit) msg;
 
 				outboundQueue.addCredit(request.receiverId, request.credit);
+			} else if (msgClazz == NewBufferSize.class) {
+				NewBufferSize request = (NewBufferSize) msg;
+
+				outboundQueue.notifyNewBufferSize(request.receiverId, request.bufferSize);
 			} else {
 				LOG.warn("Received unexpected client request: {}", msg);
 			}
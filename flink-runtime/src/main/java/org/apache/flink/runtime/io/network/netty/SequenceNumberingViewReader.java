@@ -81,6 +81,11 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener, Network
 	public void addCredit(int creditDeltas) {
 	}
 
+	@Override
+	public void notifyNewBufferSize(int newBufferSize) {
+		subpartitionView.notifyNewBufferSize(newBufferSize);
+	}
+
 	@Override
 	public void setRegisteredAsAvailable(boolean isRegisteredAvailable) {
 		this.isRegisteredAvailable = isRegisteredAvailable;
@@ -165,8 +165,10 @@ final class BoundedBlockingSubpartition extends ResultSubpartition {
 	private void writeAndCloseBufferConsumer(BufferConsumer bufferConsumer) throws IOException {
 		try {
 			final Buffer buffer = bufferConsumer.build();
+			final Buffer bufferToWrite = parent.canBeCompressed(buffer) ?
+				parent.getBufferCompressor().compressToIntermediateBuffer(buffer) : buffer;
 			try {
-				memory.writeBuffer(buffer);
+				memory.writeBuffer(bufferToWrite);
 
 				numBuffersAndEventsWritten++;
 				if (buffer.isBuffer()) {
@@ -174,6 +176,9 @@ final class BoundedBlockingSubpartition extends ResultSubpartition {
 				}
 			}
 			finally {
+				if (bufferToWrite != buffer) {
+					bufferToWrite.recycleBuffer();
+				}
 				buffer.recycleBuffer();
 			}
 		}
@@ -46,6 +46,15 @@ final class BufferToByteBuffer {
 
 	static final int HEADER_VALUE_IS_EVENT = 1;
 
+	static final int HEADER_VALUE_IS_COMPRESSED_BUFFER = 2;
+
+	static int toHeaderValue(Buffer buffer) {
+		if (!buffer.isBuffer()) {
+			return HEADER_VALUE_IS_EVENT;
+		}
+		return buffer.isCompressed() ? HEADER_VALUE_IS_COMPRESSED_BUFFER : HEADER_VALUE_IS_BUFFER;
+	}
+
 	static ByteBuffer checkAndConfigureByteBuffer(ByteBuffer buffer) {
 		checkArgument(buffer.position() == 0);
 		checkArgument(buffer.capacity() > 8);
@@ -72,7 +81,7 @@ final class BufferToByteBuffer {
 				return false;
 			}
 
-			memory.putInt(buffer.isBuffer() ? HEADER_VALUE_IS_BUFFER : HEADER_VALUE_IS_EVENT);
+			memory.putInt(toHeaderValue(buffer));
 			memory.putInt(bufferSize);
 			memory.put(buffer.getNioBufferReadable());
 			return true;
@@ -123,6 +132,9 @@ final class BufferToByteBuffer {
 			if (header == HEADER_VALUE_IS_EVENT) {
 				buffer.tagAsEvent();
 			}
+			else if (header == HEADER_VALUE_IS_COMPRESSED_BUFFER) {
+				buffer.setCompressed(true);
+			}
 
 			return buffer;
 		}
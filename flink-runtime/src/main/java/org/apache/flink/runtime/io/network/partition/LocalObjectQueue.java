@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.api.ObjectBatchMarker;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBatchBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A bounded queue that hands over the records of a pipelined subpartition as objects to a
+ * co-located consumer, instead of serializing them into network buffers.
+ *
+ * <p>The producer adds the records to the queue and, from time to time, publishes them by adding an
+ * {@link ObjectBatchMarker} with the number of added records to the subpartition. The marker keeps
+ * the records in order with the buffers and events of the subpartition (e.g. checkpoint barriers),
+ * and lets the consumer take the published records as an {@link ObjectBatchBuffer}. A producer that
+ * finds the queue full publishes its records and waits for the consumer, like it would wait for a
+ * network buffer otherwise.
+ *
+ * <p>Records are only added by the producer's task thread, but they may be published from other
+ * threads (e.g. the output flusher) as well.
+ */
+public class LocalObjectQueue {
+
+	private final ResultSubpartition subpartition;
+
+	private final ArrayBlockingQueue<Object> records;
+
+	/** The number of records added by the producer. Only written by the producer's task thread. */
+	private volatile long numAddedRecords;
+
+	/**
+	 * The number of records covered by the latest published marker. As records can be published by
+	 * multiple threads, this may fall behind, which only leads to redundant markers.
+	 */
+	private volatile long numPublishedRecords;
+
+	/** The number of records taken by the consumer. Only accessed by the consumer's task thread. */
+	private long numTakenRecords;
+
+	private volatile boolean isReleased;
+
+	LocalObjectQueue(ResultSubpartition subpartition, int capacity) {
+		checkArgument(capacity > 0, "The capacity must be positive.");
+		this.subpartition = checkNotNull(subpartition);
+		this.records = new ArrayBlockingQueue<>(capacity);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Producer side
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds a record, waiting for the consumer if the queue is full. The record is dropped if the
+	 * queue has been released.
+	 */
+	public void add(Object record) throws IOException, InterruptedException {
+		if (isReleased) {
+			return;
+		}
+
+		if (!records.offer(record)) {
+			// the consumer can only take published records
+			publish();
+			records.put(record);
+		}
+		numAddedRecords++;
+	}
+
+	public long getNumUnpublishedRecords() {
+		return numAddedRecords - numPublishedRecords;
+	}
+
+	/**
+	 * Makes all added records available to the consumer.
+	 */
+	public void publish() throws IOException {
+		long numRecords = numAddedRecords;
+		if (numRecords > numPublishedRecords) {
+			numPublishedRecords = numRecords;
+			subpartition.add(EventSerializer.toBufferConsumer(new ObjectBatchMarker(numRecords)));
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Consumer side
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Takes the records published by the given {@link ObjectBatchMarker} buffer, which is recycled.
+	 * A redundant marker results in an empty batch.
+	 */
+	public ObjectBatchBuffer takeRecords(Buffer markerBuffer) throws IOException {
+		final ObjectBatchMarker marker;
+		try {
+			marker = (ObjectBatchMarker) EventSerializer.fromBuffer(markerBuffer, getClass().getClassLoader());
+		} finally {
+			markerBuffer.recycleBuffer();
+		}
+
+		int numRecords = (int) Math.max(0L, marker.getSequenceNumber() - numTakenRecords);
+		List<Object> batch = new ArrayList<>(numRecords);
+		records.drainTo(batch, numRecords);
+		checkState(batch.size() == numRecords || isReleased, "Published records are missing in the queue.");
+		numTakenRecords += numRecords;
+		return new ObjectBatchBuffer(batch);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Releases the queued records. This also wakes up a producer that waits for space in the queue.
+	 */
+	void release() {
+		isReleased = true;
+		records.clear();
+	}
+
+	public boolean isReleased() {
+		return isReleased;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LocalObjectQueue [queued records: %d, published records: %d, released? %s]",
+			records.size(), numPublishedRecords, isReleased);
+	}
+}
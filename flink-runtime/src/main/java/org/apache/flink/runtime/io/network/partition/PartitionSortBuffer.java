@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer into which the serialized records of a subpartition are appended, instead of being
+ * copied into a network buffer of their own subpartition. The records of all subpartitions of a
+ * partition are collected in one shared buffer and are sorted by subpartition when the buffer is
+ * spilled, so that the memory needed for writing does not grow with the number of subpartitions.
+ */
+public interface PartitionSortBuffer {
+
+	/**
+	 * Appends one serialized record, given as its length and data, and consumes the given buffers.
+	 * May block until memory is available.
+	 *
+	 * @return <tt>true</tt> if a memory segment of the sort buffer was filled up by the record
+	 */
+	boolean append(ByteBuffer length, ByteBuffer data) throws IOException, InterruptedException;
+}
@@ -33,6 +33,7 @@ import javax.annotation.concurrent.GuardedBy;
 import java.io.IOException;
 import java.util.ArrayDeque;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -77,6 +78,13 @@ class PipelinedSubpartition extends ResultSubpartition {
 	/** Flag indicating whether the subpartition has been released. */
 	private volatile boolean isReleased;
 
+	/** The queue to hand over the records to a co-located consumer, if the consumer requested so. */
+	@Nullable
+	private volatile LocalObjectQueue localObjectQueue;
+
+	/** The buffer size in bytes announced by the consumer, see {@link #getDesirableBufferSize()}. */
+	private volatile int desirableBufferSize = Integer.MAX_VALUE;
+
 	/** The total number of buffers (both data and event buffers). */
 	private long totalNumberOfBuffers;
 
@@ -149,6 +157,10 @@ class PipelinedSubpartition extends ResultSubpartition {
 			isReleased = true;
 		}
 
+		if (localObjectQueue != null) {
+			localObjectQueue.release();
+		}
+
 		LOG.debug("{}: Released {}.", parent.getOwningTaskName(), this);
 
 		if (view != null) {
@@ -158,6 +170,22 @@ class PipelinedSubpartition extends ResultSubpartition {
 
 	@Nullable
 	BufferAndBacklog pollBuffer() {
+		final BufferAndBacklog bufferAndBacklog = pollUncompressedBuffer();
+
+		if (bufferAndBacklog == null || !parent.canBeCompressed(bufferAndBacklog.buffer())) {
+			return bufferAndBacklog;
+		}
+
+		// compress outside of the lock, the writer does not touch the polled region of the segment any more
+		return new BufferAndBacklog(
+			parent.getBufferCompressor().compressToOriginalBuffer(bufferAndBacklog.buffer()),
+			bufferAndBacklog.isMoreAvailable(),
+			bufferAndBacklog.buffersInBacklog(),
+			bufferAndBacklog.nextBufferIsEvent());
+	}
+
+	@Nullable
+	private BufferAndBacklog pollUncompressedBuffer() {
 		synchronized (buffers) {
 			Buffer buffer = null;
 
@@ -261,6 +289,35 @@ class PipelinedSubpartition extends ResultSubpartition {
 		}
 	}
 
+	LocalObjectQueue enableLocalObjectHandover(int capacity) {
+		synchronized (buffers) {
+			checkState(!isReleased);
+			if (localObjectQueue == null) {
+				LOG.debug("{}: Handing over the records of subpartition {} of partition {} as objects.",
+					parent.getOwningTaskName(), index, parent.getPartitionId());
+
+				localObjectQueue = new LocalObjectQueue(this, capacity);
+			}
+			return localObjectQueue;
+		}
+	}
+
+	@Nullable
+	@Override
+	public LocalObjectQueue getLocalObjectQueue() {
+		return localObjectQueue;
+	}
+
+	void setDesirableBufferSize(int newBufferSize) {
+		checkArgument(newBufferSize > 0, "The buffer size must be positive.");
+		this.desirableBufferSize = newBufferSize;
+	}
+
+	@Override
+	public int getDesirableBufferSize() {
+		return desirableBufferSize;
+	}
+
 	private boolean isAvailableUnsafe() {
 		return flushRequested || getNumberOfFinishedBuffers() > 0;
 	}
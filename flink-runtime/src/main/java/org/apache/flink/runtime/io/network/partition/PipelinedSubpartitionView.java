@@ -85,6 +85,16 @@ class PipelinedSubpartitionView implements ResultSubpartitionView {
 		return parent.isAvailable();
 	}
 
+	@Override
+	public LocalObjectQueue enableLocalObjectHandover(int capacity) {
+		return parent.enableLocalObjectHandover(capacity);
+	}
+
+	@Override
+	public void notifyNewBufferSize(int newBufferSize) {
+		parent.setDesirableBufferSize(newBufferSize);
+	}
+
 	@Override
 	public Throwable getFailureCause() {
 		return parent.getFailureCause();
@@ -22,6 +22,7 @@ import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferPoolOwner;
@@ -125,6 +126,10 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 
 	private final FunctionWithException<BufferPoolOwner, BufferPool, IOException> bufferPoolFactory;
 
+	/** Used to compress the data buffers of the subpartitions, <tt>null</tt> if compression is disabled. */
+	@Nullable
+	private final BufferCompressor bufferCompressor;
+
 	public ResultPartition(
 		String owningTaskName,
 		TaskActions taskActions, // actions on the owning task
@@ -136,7 +141,8 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 		ResultPartitionManager partitionManager,
 		ResultPartitionConsumableNotifier partitionConsumableNotifier,
 		boolean sendScheduleOrUpdateConsumersMessage,
-		FunctionWithException<BufferPoolOwner, BufferPool, IOException> bufferPoolFactory) {
+		FunctionWithException<BufferPoolOwner, BufferPool, IOException> bufferPoolFactory,
+		@Nullable BufferCompressor bufferCompressor) {
 
 		this.owningTaskName = checkNotNull(owningTaskName);
 		this.taskActions = checkNotNull(taskActions);
@@ -149,6 +155,7 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 		this.partitionConsumableNotifier = checkNotNull(partitionConsumableNotifier);
 		this.sendScheduleOrUpdateConsumersMessage = sendScheduleOrUpdateConsumersMessage;
 		this.bufferPoolFactory = bufferPoolFactory;
+		this.bufferCompressor = bufferCompressor;
 	}
 
 	/**
@@ -197,6 +204,23 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 		return bufferPool;
 	}
 
+	/**
+	 * Returns the compressor for the data buffers of this partition, or <tt>null</tt> if the
+	 * buffers are not compressed.
+	 */
+	@Nullable
+	public BufferCompressor getBufferCompressor() {
+		return bufferCompressor;
+	}
+
+	/**
+	 * Whether the given buffer should be compressed before it is sent or written. Only non-empty
+	 * data buffers are compressed.
+	 */
+	boolean canBeCompressed(Buffer buffer) {
+		return bufferCompressor != null && buffer.isBuffer() && !buffer.isCompressed() && buffer.readableBytes() > 0;
+	}
+
 	public int getNumberOfQueuedBuffers() {
 		int totalBuffers = 0;
 
@@ -237,6 +261,21 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 		}
 	}
 
+	@Override
+	public LocalObjectQueue getLocalObjectQueue(int subpartitionIndex) {
+		return subpartitions[subpartitionIndex].getLocalObjectQueue();
+	}
+
+	@Override
+	public int getDesirableBufferSize(int subpartitionIndex) {
+		return subpartitions[subpartitionIndex].getDesirableBufferSize();
+	}
+
+	@Override
+	public PartitionSortBuffer getSortBuffer(int subpartitionIndex) {
+		return subpartitions[subpartitionIndex].getSortBuffer();
+	}
+
 	@Override
 	public void flushAll() {
 		for (ResultSubpartition subpartition : subpartitions) {
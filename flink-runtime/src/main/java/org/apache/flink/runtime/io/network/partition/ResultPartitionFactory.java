@@ -23,6 +23,7 @@ import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferPoolFactory;
 import org.apache.flink.runtime.io.network.buffer.BufferPoolOwner;
@@ -35,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -58,18 +60,53 @@ public class ResultPartitionFactory {
 
 	private final int floatingNetworkBuffersPerGate;
 
+	private final int networkBufferSize;
+
+	/** The codec to compress the data buffers with, or <tt>null</tt> if compression is disabled. */
+	@Nullable
+	private final String compressionCodec;
+
+	/** Whether file-backed blocking partitions are sent to remote consumers straight from the files. */
+	private final boolean useDirectFileTransfer;
+
 	public ResultPartitionFactory(
 		@Nonnull ResultPartitionManager partitionManager,
 		@Nonnull IOManager ioManager,
 		@Nonnull BufferPoolFactory bufferPoolFactory,
 		int networkBuffersPerChannel,
-		int floatingNetworkBuffersPerGate) {
+		int floatingNetworkBuffersPerGate,
+		int networkBufferSize,
+		@Nullable String compressionCodec) {
+
+		this(
+			partitionManager,
+			ioManager,
+			bufferPoolFactory,
+			networkBuffersPerChannel,
+			floatingNetworkBuffersPerGate,
+			networkBufferSize,
+			compressionCodec,
+			false);
+	}
+
+	public ResultPartitionFactory(
+		@Nonnull ResultPartitionManager partitionManager,
+		@Nonnull IOManager ioManager,
+		@Nonnull BufferPoolFactory bufferPoolFactory,
+		int networkBuffersPerChannel,
+		int floatingNetworkBuffersPerGate,
+		int networkBufferSize,
+		@Nullable String compressionCodec,
+		boolean useDirectFileTransfer) {
 
 		this.partitionManager = partitionManager;
 		this.ioManager = ioManager;
 		this.networkBuffersPerChannel = networkBuffersPerChannel;
 		this.floatingNetworkBuffersPerGate = floatingNetworkBuffersPerGate;
 		this.bufferPoolFactory = bufferPoolFactory;
+		this.networkBufferSize = networkBufferSize;
+		this.compressionCodec = compressionCodec;
+		this.useDirectFileTransfer = useDirectFileTransfer;
 	}
 
 	public ResultPartition create(
@@ -119,7 +156,8 @@ public class ResultPartitionFactory {
 			partitionManager,
 			partitionConsumableNotifier,
 			sendScheduleOrUpdateConsumersMessage,
-			bufferPoolFactory);
+			bufferPoolFactory,
+			compressionCodec != null ? new BufferCompressor(networkBufferSize, compressionCodec) : null);
 
 		createSubpartitions(partition, type, subpartitions);
 
@@ -140,6 +178,10 @@ public class ResultPartitionFactory {
 				initializeBoundedBlockingPartitions(subpartitions, partition, ioManager);
 				break;
 
+			case BLOCKING_SORT_MERGE:
+				initializeSortMergePartitions(subpartitions, partition, ioManager, useDirectFileTransfer);
+				break;
+
 			case PIPELINED:
 			case PIPELINED_BOUNDED:
 				for (int i = 0; i < subpartitions.length; i++) {
@@ -177,6 +219,31 @@ public class ResultPartitionFactory {
 		}
 	}
 
+	private static void initializeSortMergePartitions(
+		ResultSubpartition[] subpartitions,
+		ResultPartition parent,
+		IOManager ioManager,
+		boolean useDirectFileTransfer) {
+
+		final SortMergePartitionFile file;
+		try {
+			file = new SortMergePartitionFile(
+				subpartitions.length,
+				ioManager.createChannel().getPathFile().toPath(),
+				ioManager.createChannel().getPathFile().toPath(),
+				useDirectFileTransfer,
+				parent.getBufferCompressor());
+		}
+		catch (IOException e) {
+			// see initializeBoundedBlockingPartitions() on why we wrap this in a runtime exception
+			throw new FlinkRuntimeException(e);
+		}
+
+		for (int i = 0; i < subpartitions.length; i++) {
+			subpartitions[i] = new SortMergeSubpartition(i, parent, file);
+		}
+	}
+
 	private static void releasePartitionsQuietly(ResultSubpartition[] partitions, int until) {
 		for (int i = 0; i < until; i++) {
 			final ResultSubpartition subpartition = partitions[i];
@@ -25,6 +25,16 @@ public enum ResultPartitionType {
 
 	BLOCKING(false, false, false),
 
+	/**
+	 * Blocking partitions that sort the records of all subpartitions in a shared buffer by
+	 * subpartition index and write them to a single data file (plus an index file), instead of
+	 * one file per subpartition.
+	 *
+	 * <p>This keeps the number of files and the memory for writing independent of the number of
+	 * consumers: see {@code SortMergePartitionFile} for the details.
+	 */
+	BLOCKING_SORT_MERGE(false, false, false),
+
 	PIPELINED(true, true, false),
 
 	/**
@@ -22,6 +22,8 @@ import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -77,6 +79,33 @@ public abstract class ResultSubpartition {
 
 	public abstract void flush();
 
+	/**
+	 * Returns the queue through which the records of this subpartition are handed over as objects to
+	 * a co-located consumer, or <tt>null</tt> if the records have to be serialized.
+	 */
+	@Nullable
+	public LocalObjectQueue getLocalObjectQueue() {
+		return null;
+	}
+
+	/**
+	 * Returns the size in bytes up to which the buffers of this subpartition should be filled, or
+	 * {@link Integer#MAX_VALUE} if they should be filled completely.
+	 */
+	public int getDesirableBufferSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the buffer, shared with the other subpartitions of the partition, into which the
+	 * serialized records of this subpartition are appended, or <tt>null</tt> if the records have to
+	 * be added as buffers.
+	 */
+	@Nullable
+	public PartitionSortBuffer getSortBuffer() {
+		return null;
+	}
+
 	public abstract void finish() throws IOException;
 
 	public abstract void release() throws IOException;
@@ -60,4 +60,23 @@ public interface ResultSubpartitionView {
 	boolean nextBufferIsEvent();
 
 	boolean isAvailable();
+
+	/**
+	 * Requests the records of the subpartition to be handed over as objects through a
+	 * {@link LocalObjectQueue} with the given capacity, instead of being serialized into buffers.
+	 * This is only possible if the consumer runs in the same process as the producer.
+	 *
+	 * @return the queue, or <tt>null</tt> if this view does not support the handover of objects.
+	 */
+	@Nullable
+	default LocalObjectQueue enableLocalObjectHandover(int capacity) {
+		return null;
+	}
+
+	/**
+	 * Notifies the producer of the buffer size in bytes that the consumer would like to receive.
+	 * Views whose buffers are already written, like the ones of blocking partitions, ignore this.
+	 */
+	default void notifyNewBufferSize(int newBufferSize) {
+	}
 }
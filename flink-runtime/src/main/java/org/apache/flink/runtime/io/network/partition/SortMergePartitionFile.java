@@ -0,0 +1,824 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.flink.runtime.io.network.partition.BufferToByteBuffer.HEADER_LENGTH;
+import static org.apache.flink.runtime.io.network.partition.BufferToByteBuffer.HEADER_VALUE_IS_COMPRESSED_BUFFER;
+import static org.apache.flink.runtime.io.network.partition.BufferToByteBuffer.HEADER_VALUE_IS_EVENT;
+import static org.apache.flink.runtime.io.network.partition.BufferToByteBuffer.toHeaderValue;
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The data of a {@link ResultPartitionType#BLOCKING_SORT_MERGE} result partition, shared by all
+ * of its {@link SortMergeSubpartition SortMergeSubpartitions}.
+ *
+ * <p>Instead of copying the serialized records into one buffer per subpartition, the record writer
+ * appends them to a sort buffer shared by all subpartitions (see {@link #appendRecord}). The sort
+ * buffer stores the records back to back in arrival order in segments of the partition's network
+ * buffer pool, plus an index entry per record with its subpartition, offset, and length. Events
+ * are added as finished buffers and get an index entry as well, which keeps them in order with the
+ * records of their subpartition. The memory needed for writing therefore does not depend on the
+ * number of subpartitions.
+ *
+ * <p>Once the buffer pool runs out of segments and asks the partition to release memory, or once
+ * all subpartitions are finished, the index entries are sorted by subpartition (a stable counting
+ * sort) and the sort buffer is spilled as one <i>region</i>: the data of subpartition 0, followed
+ * by the data of subpartition 1, and so on. The records of a subpartition are packed into buffers
+ * of the segment size, where records may span buffers, just like the record writer fills buffers.
+ * All regions are appended to a single data file, so the number of files (and open file handles)
+ * per partition is constant, regardless of the parallelism of the consumers, and the file is
+ * written sequentially.
+ *
+ * <p>For each region, an index file holds one entry per subpartition, pointing to the offset and
+ * number of buffers of that subpartition within the region. If more than one region was spilled,
+ * the regions are merged when the file is finished: the sections of each subpartition are copied
+ * into a new data file one after the other, which is then described by a single region. This
+ * writes the data a second time, but lets every reader read its subpartition with one sequential
+ * scan, instead of seeking once per region.
+ *
+ * <p>Records that do not fit into half of the minimum size of the buffer pool are not copied into
+ * the sort buffer, because they could not be appended without exceeding the buffer pool. They are
+ * cut into unpooled buffers of the segment size instead, which are retained like events.
+ *
+ * <p>The data file uses the same per-buffer layout as {@link BufferToByteBuffer}: a header with the
+ * buffer/event flag and the size, followed by the buffer's bytes.
+ *
+ * <p>With direct file transfer, the readers do not read the buffers into memory but return them as
+ * {@link FileRegionBuffer FileRegionBuffers}, which Netty sends to remote consumers straight from
+ * the file. This requires a transport without SSL, which cannot encrypt file regions.
+ *
+ * <h2>Thread Safety</h2>
+ *
+ * <p>All mutating methods are guarded by a lock. Segments for the sort buffer are requested, and
+ * spilled buffers are recycled, outside of that lock, because spilling may be triggered by the
+ * buffer pool itself (while holding the pool's lock) and requesting or recycling buffers acquires
+ * the pool's lock as well.
+ */
+final class SortMergePartitionFile {
+
+	/** Size of one entry in the index file: the offset (long) and the number of buffers (int). */
+	static final int INDEX_ENTRY_SIZE = 8 + 4;
+
+	/** The number of ints per entry of the sort buffer: subpartition, offset, and length. */
+	private static final int SORT_ENTRY_SIZE = 3;
+
+	/** This lock guards the sort buffer, the creation of readers and the disposal of the files. */
+	private final Object lock = new Object();
+
+	private final int numSubpartitions;
+
+	/** The compressor of the partition for the buffers packed from the sort buffer, if any. */
+	@Nullable
+	private final BufferCompressor bufferCompressor;
+
+	/** The path of the data file. Only changes when the regions are merged while finishing. */
+	@GuardedBy("lock")
+	private Path dataFilePath;
+
+	private final Path indexFilePath;
+
+	/** The data file. Only changes when the regions are merged, before any reader is created. */
+	@GuardedBy("lock")
+	private FileChannel dataFile;
+
+	private final FileChannel indexFile;
+
+	/** Whether the buffers are read as file regions instead of into memory. */
+	private final boolean useDirectFileTransfer;
+
+	/** The pooled segments of the sort buffer, which hold the appended records back to back. */
+	@GuardedBy("lock")
+	private final List<Buffer> sortSegments;
+
+	/** The size of the pooled segments. Known once the first segment has been requested. */
+	@GuardedBy("lock")
+	private int segmentSize;
+
+	/** The number of bytes in {@link #sortSegments}. */
+	@GuardedBy("lock")
+	private long sortBytes;
+
+	/**
+	 * The entries of the sort buffer, in the order in which they were added. Each entry consists of
+	 * {@link #SORT_ENTRY_SIZE} ints: the subpartition, the offset of the record in the sort segments
+	 * (or <tt>-1 - i</tt> for the retained buffer <tt>i</tt>), and the length of the record.
+	 */
+	@GuardedBy("lock")
+	private int[] sortEntries;
+
+	@GuardedBy("lock")
+	private int numSortEntries;
+
+	/** The buffers (events, and buffers of large records) that were added but not spilled yet. */
+	@GuardedBy("lock")
+	private final List<Buffer> retainedBuffers;
+
+	/** Unpooled segment into which the records are packed when spilling. */
+	@GuardedBy("lock")
+	private MemorySegment packingSegment;
+
+	/** Counters for the number of data buffers (not events!) written per subpartition. */
+	@GuardedBy("lock")
+	private final int[] numDataBuffers;
+
+	/** Counters for the number of data buffers and events written per subpartition. */
+	@GuardedBy("lock")
+	private final int[] numBuffersAndEvents;
+
+	/** Counters for the number of bytes written per subpartition. */
+	@GuardedBy("lock")
+	private final long[] numBytes;
+
+	/** The current size of the data file, which is the offset of the next region. */
+	@GuardedBy("lock")
+	private long dataFileSize;
+
+	/** The number of regions written to the files. Fixed once the file is finished. */
+	@GuardedBy("lock")
+	private int numRegions;
+
+	@GuardedBy("lock")
+	private int numFinishedSubpartitions;
+
+	@GuardedBy("lock")
+	private int numReleasedSubpartitions;
+
+	/** All created and not yet released readers. */
+	@GuardedBy("lock")
+	private final Set<SortMergeSubpartitionReader> readers;
+
+	/** Flag indicating whether all subpartitions finished writing and this is now available for read. */
+	@GuardedBy("lock")
+	private boolean isFinished;
+
+	/** Flag indicating whether all subpartitions have been released. */
+	@GuardedBy("lock")
+	private boolean isReleased;
+
+	/** Flag indicating whether the files have been closed and deleted. */
+	@GuardedBy("lock")
+	private boolean isDisposed;
+
+	SortMergePartitionFile(int numSubpartitions, Path dataFilePath, Path indexFilePath) throws IOException {
+		this(numSubpartitions, dataFilePath, indexFilePath, false, null);
+	}
+
+	SortMergePartitionFile(
+			int numSubpartitions,
+			Path dataFilePath,
+			Path indexFilePath,
+			boolean useDirectFileTransfer) throws IOException {
+		this(numSubpartitions, dataFilePath, indexFilePath, useDirectFileTransfer, null);
+	}
+
+	SortMergePartitionFile(
+			int numSubpartitions,
+			Path dataFilePath,
+			Path indexFilePath,
+			boolean useDirectFileTransfer,
+			@Nullable BufferCompressor bufferCompressor) throws IOException {
+
+		checkArgument(numSubpartitions > 0, "The number of subpartitions must be positive.");
+
+		this.numSubpartitions = numSubpartitions;
+		this.dataFilePath = checkNotNull(dataFilePath);
+		this.indexFilePath = checkNotNull(indexFilePath);
+		this.useDirectFileTransfer = useDirectFileTransfer;
+		this.bufferCompressor = bufferCompressor;
+
+		this.sortSegments = new ArrayList<>();
+		this.sortEntries = new int[SORT_ENTRY_SIZE * 64];
+		this.retainedBuffers = new ArrayList<>();
+		this.numDataBuffers = new int[numSubpartitions];
+		this.numBuffersAndEvents = new int[numSubpartitions];
+		this.numBytes = new long[numSubpartitions];
+		this.readers = new HashSet<>();
+
+		this.dataFile = FileChannel.open(dataFilePath,
+				StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+		try {
+			this.indexFile = FileChannel.open(indexFilePath,
+					StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+		}
+		catch (IOException e) {
+			IOUtils.closeQuietly(dataFile);
+			Files.deleteIfExists(dataFilePath);
+			throw e;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  writing
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds a finished buffer (or event) of the given subpartition. The buffer is retained until it
+	 * is spilled, or recycled right away if the partition has been released already.
+	 */
+	void add(int subpartition, Buffer buffer) {
+		synchronized (lock) {
+			if (isReleased) {
+				buffer.recycleBuffer();
+				return;
+			}
+			checkState(!isFinished, "data partition already finished");
+
+			retainBuffer(subpartition, buffer);
+		}
+	}
+
+	/**
+	 * Appends a serialized record of the given subpartition, given as its length and data, to the
+	 * sort buffer and consumes the given byte buffers. The segments of the sort buffer are requested
+	 * from the given buffer provider, which may ask the partition to spill, and may block.
+	 *
+	 * @return <tt>true</tt> if a segment of the sort buffer was filled up by the record
+	 */
+	boolean appendRecord(
+			int subpartition,
+			ByteBuffer length,
+			ByteBuffer data,
+			BufferProvider bufferProvider) throws IOException, InterruptedException {
+
+		final int recordSize = length.remaining() + data.remaining();
+
+		while (true) {
+			synchronized (lock) {
+				if (isReleased) {
+					length.position(length.limit());
+					data.position(data.limit());
+					return false;
+				}
+				checkState(!isFinished, "data partition already finished");
+
+				if (segmentSize > 0 && recordSize > (long) numSubpartitions * segmentSize / 2) {
+					retainLargeRecord(subpartition, length, data);
+					return true;
+				}
+				if ((long) sortSegments.size() * segmentSize - sortBytes >= recordSize) {
+					return copyRecord(subpartition, length, data, recordSize);
+				}
+			}
+
+			// request the memory outside of the lock (see class comment), while the pool may spill the
+			// sort buffer in the meantime, so the capacity is checked again afterwards
+			final Buffer segment = bufferProvider.requestBufferBlocking();
+			boolean isAdded = false;
+			synchronized (lock) {
+				if (!isReleased) {
+					segmentSize = segment.getMaxCapacity();
+					sortSegments.add(segment);
+					isAdded = true;
+				}
+			}
+			if (!isAdded) {
+				segment.recycleBuffer();
+			}
+		}
+	}
+
+	@GuardedBy("lock")
+	private boolean copyRecord(int subpartition, ByteBuffer length, ByteBuffer data, int recordSize) {
+		assert Thread.holdsLock(lock);
+
+		final long offset = sortBytes;
+		copyToSortSegments(length);
+		copyToSortSegments(data);
+		addSortEntry(subpartition, Math.toIntExact(offset), recordSize);
+
+		return sortBytes / segmentSize > offset / segmentSize;
+	}
+
+	@GuardedBy("lock")
+	private void copyToSortSegments(ByteBuffer source) {
+		assert Thread.holdsLock(lock);
+
+		while (source.hasRemaining()) {
+			final int segmentOffset = (int) (sortBytes % segmentSize);
+			final int numBytes = Math.min(source.remaining(), segmentSize - segmentOffset);
+			final MemorySegment segment = sortSegments.get((int) (sortBytes / segmentSize)).getMemorySegment();
+
+			segment.put(segmentOffset, source, numBytes);
+			sortBytes += numBytes;
+		}
+	}
+
+	/**
+	 * Cuts a record that is too large for the sort buffer into unpooled buffers of the segment size,
+	 * which are retained like events.
+	 */
+	@GuardedBy("lock")
+	private void retainLargeRecord(int subpartition, ByteBuffer length, ByteBuffer data) {
+		assert Thread.holdsLock(lock);
+
+		MemorySegment segment = null;
+		int size = 0;
+		while (length.hasRemaining() || data.hasRemaining()) {
+			if (segment == null) {
+				segment = MemorySegmentFactory.allocateUnpooledSegment(segmentSize);
+				size = 0;
+			}
+
+			final ByteBuffer source = length.hasRemaining() ? length : data;
+			final int numBytes = Math.min(source.remaining(), segmentSize - size);
+			segment.put(size, source, numBytes);
+			size += numBytes;
+
+			if (size == segmentSize || !data.hasRemaining()) {
+				final Buffer buffer = new NetworkBuffer(segment, FreeingBufferRecycler.INSTANCE, true, size);
+				retainBuffer(subpartition, bufferCompressor != null ?
+					bufferCompressor.compressToOriginalBuffer(buffer) : buffer);
+				segment = null;
+			}
+		}
+	}
+
+	@GuardedBy("lock")
+	private void retainBuffer(int subpartition, Buffer buffer) {
+		assert Thread.holdsLock(lock);
+
+		retainedBuffers.add(buffer);
+		addSortEntry(subpartition, -retainedBuffers.size(), 0);
+	}
+
+	@GuardedBy("lock")
+	private void addSortEntry(int subpartition, int offset, int length) {
+		assert Thread.holdsLock(lock);
+
+		if (sortEntries.length < (numSortEntries + 1) * SORT_ENTRY_SIZE) {
+			sortEntries = Arrays.copyOf(sortEntries, 2 * sortEntries.length);
+		}
+
+		final int position = numSortEntries++ * SORT_ENTRY_SIZE;
+		sortEntries[position] = subpartition;
+		sortEntries[position + 1] = offset;
+		sortEntries[position + 2] = length;
+	}
+
+	/**
+	 * Spills the sort buffer as a new region and returns the number of recycled buffers.
+	 */
+	int spill() throws IOException {
+		final List<Buffer> spilled = new ArrayList<>();
+		try {
+			synchronized (lock) {
+				if (!isReleased) {
+					if (numSortEntries > 0) {
+						writeRegion();
+					}
+					clearSortBuffer(spilled);
+				}
+			}
+		}
+		finally {
+			recycleBuffers(spilled);
+		}
+		return spilled.size();
+	}
+
+	/**
+	 * Marks one subpartition as finished. Once all subpartitions are finished, the sort buffer is
+	 * spilled, the regions are merged, and the file becomes available for reading.
+	 */
+	void finishSubpartition() throws IOException {
+		final List<Buffer> spilled = new ArrayList<>();
+		try {
+			synchronized (lock) {
+				checkState(!isReleased, "data partition already released");
+				checkState(numFinishedSubpartitions < numSubpartitions, "data partition already finished");
+
+				if (++numFinishedSubpartitions < numSubpartitions) {
+					return;
+				}
+
+				if (numSortEntries > 0) {
+					writeRegion();
+				}
+				clearSortBuffer(spilled);
+				packingSegment = null;
+
+				if (numRegions > 1) {
+					mergeRegions();
+				}
+				isFinished = true;
+			}
+		}
+		finally {
+			recycleBuffers(spilled);
+		}
+	}
+
+	@GuardedBy("lock")
+	private void clearSortBuffer(List<Buffer> toRecycle) {
+		assert Thread.holdsLock(lock);
+
+		toRecycle.addAll(retainedBuffers);
+		toRecycle.addAll(sortSegments);
+		retainedBuffers.clear();
+		sortSegments.clear();
+		sortBytes = 0;
+		numSortEntries = 0;
+	}
+
+	@GuardedBy("lock")
+	private void writeRegion() throws IOException {
+		assert Thread.holdsLock(lock);
+
+		// counting sort of the entries by subpartition, which keeps the order within a subpartition
+		final int[] sortedEntryStarts = new int[numSubpartitions + 1];
+		for (int entry = 0; entry < numSortEntries; entry++) {
+			sortedEntryStarts[sortEntries[entry * SORT_ENTRY_SIZE] + 1]++;
+		}
+		for (int subpartition = 0; subpartition < numSubpartitions; subpartition++) {
+			sortedEntryStarts[subpartition + 1] += sortedEntryStarts[subpartition];
+		}
+		final int[] sortedEntries = new int[numSortEntries];
+		final int[] nextPositions = Arrays.copyOf(sortedEntryStarts, numSubpartitions);
+		for (int entry = 0; entry < numSortEntries; entry++) {
+			sortedEntries[nextPositions[sortEntries[entry * SORT_ENTRY_SIZE]]++] = entry;
+		}
+
+		final ByteBuffer index = allocate(numSubpartitions * INDEX_ENTRY_SIZE);
+
+		for (int subpartition = 0; subpartition < numSubpartitions; subpartition++) {
+			index.putLong(dataFileSize);
+
+			int numBuffers = 0;
+			int packedBytes = 0;
+			for (int i = sortedEntryStarts[subpartition]; i < sortedEntryStarts[subpartition + 1]; i++) {
+				final int position = sortedEntries[i] * SORT_ENTRY_SIZE;
+				final int offset = sortEntries[position + 1];
+
+				if (offset < 0) {
+					// the retained buffers are written as they are, after the records before them
+					if (packedBytes > 0) {
+						writePackedBuffer(subpartition, packedBytes);
+						packedBytes = 0;
+						numBuffers++;
+					}
+					writeBuffer(subpartition, retainedBuffers.get(-1 - offset));
+					numBuffers++;
+					continue;
+				}
+
+				if (packingSegment == null) {
+					packingSegment = MemorySegmentFactory.allocateUnpooledSegment(segmentSize);
+				}
+
+				long recordOffset = offset;
+				int remaining = sortEntries[position + 2];
+				while (remaining > 0) {
+					final int segmentOffset = (int) (recordOffset % segmentSize);
+					final int numBytes = Math.min(
+						Math.min(remaining, segmentSize - segmentOffset), segmentSize - packedBytes);
+
+					sortSegments.get((int) (recordOffset / segmentSize)).getMemorySegment()
+						.copyTo(segmentOffset, packingSegment, packedBytes, numBytes);
+					packedBytes += numBytes;
+					recordOffset += numBytes;
+					remaining -= numBytes;
+
+					if (packedBytes == segmentSize) {
+						writePackedBuffer(subpartition, packedBytes);
+						packedBytes = 0;
+						numBuffers++;
+					}
+				}
+			}
+			if (packedBytes > 0) {
+				writePackedBuffer(subpartition, packedBytes);
+				numBuffers++;
+			}
+
+			index.putInt(numBuffers);
+		}
+
+		index.flip();
+		writeFully(indexFile, new ByteBuffer[] {index}, index.remaining());
+
+		numRegions++;
+	}
+
+	@GuardedBy("lock")
+	private void writePackedBuffer(int subpartition, int size) throws IOException {
+		// the packing segment is reused, so the buffer must not be recycled (which would free it), and
+		// the data is compressed in place, because spilling may run concurrently to other compressions
+		final Buffer buffer = new NetworkBuffer(packingSegment, FreeingBufferRecycler.INSTANCE, true, size);
+		writeBuffer(subpartition, bufferCompressor != null ? bufferCompressor.compressToOriginalBuffer(buffer) : buffer);
+	}
+
+	@GuardedBy("lock")
+	private void writeBuffer(int subpartition, Buffer buffer) throws IOException {
+		final ByteBuffer header = allocate(HEADER_LENGTH);
+		header.putInt(toHeaderValue(buffer));
+		header.putInt(buffer.getSize());
+		header.flip();
+
+		writeFully(dataFile, new ByteBuffer[] {header, buffer.getNioBufferReadable()}, HEADER_LENGTH + buffer.getSize());
+		dataFileSize += HEADER_LENGTH + buffer.getSize();
+
+		numBuffersAndEvents[subpartition]++;
+		if (buffer.isBuffer()) {
+			numDataBuffers[subpartition]++;
+		}
+		numBytes[subpartition] += buffer.getSize();
+	}
+
+	/**
+	 * Copies the sections of each subpartition of all regions into a new data file, one after the
+	 * other, and replaces the index with a single region.
+	 */
+	@GuardedBy("lock")
+	private void mergeRegions() throws IOException {
+		assert Thread.holdsLock(lock);
+
+		final Path mergedFilePath = dataFilePath.resolveSibling(dataFilePath.getFileName() + ".merged");
+		final FileChannel mergedFile = FileChannel.open(mergedFilePath,
+				StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+
+		final ByteBuffer mergedIndex = allocate(numSubpartitions * INDEX_ENTRY_SIZE);
+		try {
+			final ByteBuffer indexEntry = allocate(INDEX_ENTRY_SIZE);
+			long mergedFileSize = 0;
+
+			for (int subpartition = 0; subpartition < numSubpartitions; subpartition++) {
+				mergedIndex.putLong(mergedFileSize);
+
+				int numBuffers = 0;
+				for (int region = 0; region < numRegions; region++) {
+					readIndexEntry(region, subpartition, indexEntry);
+					final long offset = indexEntry.getLong();
+					numBuffers += indexEntry.getInt();
+
+					// the section ends where the next one in the index begins
+					final long end;
+					if (subpartition + 1 < numSubpartitions) {
+						readIndexEntry(region, subpartition + 1, indexEntry);
+						end = indexEntry.getLong();
+					}
+					else if (region + 1 < numRegions) {
+						readIndexEntry(region + 1, 0, indexEntry);
+						end = indexEntry.getLong();
+					}
+					else {
+						end = dataFileSize;
+					}
+
+					transferFully(dataFile, offset, end - offset, mergedFile);
+					mergedFileSize += end - offset;
+				}
+
+				mergedIndex.putInt(numBuffers);
+			}
+		}
+		catch (IOException e) {
+			IOUtils.closeQuietly(mergedFile);
+			Files.deleteIfExists(mergedFilePath);
+			throw e;
+		}
+
+		IOUtils.closeQuietly(dataFile);
+		Files.deleteIfExists(dataFilePath);
+		dataFile = mergedFile;
+		dataFilePath = mergedFilePath;
+
+		indexFile.truncate(0);
+		indexFile.position(0);
+		mergedIndex.flip();
+		writeFully(indexFile, new ByteBuffer[] {mergedIndex}, mergedIndex.remaining());
+
+		numRegions = 1;
+	}
+
+	private static void transferFully(FileChannel source, long position, long numBytes, FileChannel target) throws IOException {
+		long transferred = 0;
+		while (transferred < numBytes) {
+			transferred += source.transferTo(position + transferred, numBytes - transferred, target);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer[] data, long numBytes) throws IOException {
+		long remaining = numBytes;
+		while (remaining > 0) {
+			remaining -= channel.write(data);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  reading
+	// ------------------------------------------------------------------------
+
+	SortMergeSubpartitionReader createReader(
+			SortMergeSubpartition subpartition,
+			BufferAvailabilityListener availability) throws IOException {
+
+		synchronized (lock) {
+			checkState(!isReleased, "data partition already released");
+			checkState(isFinished, "writing of blocking partition not yet finished");
+
+			availability.notifyDataAvailable();
+
+			final SortMergeSubpartitionReader reader = new SortMergeSubpartitionReader(
+					subpartition, this, numDataBuffers[subpartition.index]);
+			readers.add(reader);
+			return reader;
+		}
+	}
+
+	void releaseReaderReference(SortMergeSubpartitionReader reader) throws IOException {
+		synchronized (lock) {
+			if (readers.remove(reader) && isReleased) {
+				checkReaderReferencesAndDispose();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of regions. Must only be called after the file is finished.
+	 */
+	int getNumRegions() {
+		synchronized (lock) {
+			return numRegions;
+		}
+	}
+
+	/**
+	 * Reads the index entry of the given subpartition in the given region into the target buffer,
+	 * which can be decoded via {@link ByteBuffer#getLong()} (offset) and {@link ByteBuffer#getInt()}
+	 * (number of buffers).
+	 */
+	void readIndexEntry(int region, int subpartition, ByteBuffer target) throws IOException {
+		final long position = ((long) region * numSubpartitions + subpartition) * INDEX_ENTRY_SIZE;
+
+		target.clear();
+		target.limit(INDEX_ENTRY_SIZE);
+		readFully(indexFile, target, position);
+		target.flip();
+	}
+
+	/**
+	 * Reads the buffer starting at the given position of the data file into newly allocated,
+	 * unpooled memory, or only its header for a {@link FileRegionBuffer} with direct file transfer.
+	 * The header buffer is used for decoding the buffer's header.
+	 */
+	Buffer readBuffer(long position, ByteBuffer header) throws IOException {
+		header.clear();
+		header.limit(HEADER_LENGTH);
+		readFully(dataFile, header, position);
+		header.flip();
+
+		final int headerValue = header.getInt();
+		final int size = header.getInt();
+
+		if (useDirectFileTransfer) {
+			return new FileRegionBuffer(
+				dataFile,
+				position + HEADER_LENGTH,
+				size,
+				headerValue != HEADER_VALUE_IS_EVENT,
+				headerValue == HEADER_VALUE_IS_COMPRESSED_BUFFER);
+		}
+
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(size);
+		readFully(dataFile, segment.wrap(0, size), position + HEADER_LENGTH);
+
+		final Buffer buffer = new NetworkBuffer(
+			segment, FreeingBufferRecycler.INSTANCE, headerValue != HEADER_VALUE_IS_EVENT, size);
+		buffer.setCompressed(headerValue == HEADER_VALUE_IS_COMPRESSED_BUFFER);
+		return buffer;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+		long readPosition = position;
+		while (target.hasRemaining()) {
+			final int numBytes = channel.read(target, readPosition);
+			if (numBytes < 0) {
+				throw new EOFException("Unexpected end of sort-merge partition file.");
+			}
+			readPosition += numBytes;
+		}
+	}
+
+	static ByteBuffer allocate(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+	}
+
+	// ------------------------------------------------------------------------
+	//  release
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Releases one subpartition. Once all subpartitions are released, the sort buffer is
+	 * recycled and the files are deleted as soon as the last reader is released.
+	 */
+	void releaseSubpartition() throws IOException {
+		final List<Buffer> toRecycle = new ArrayList<>();
+		try {
+			synchronized (lock) {
+				if (isReleased || ++numReleasedSubpartitions < numSubpartitions) {
+					return;
+				}
+
+				isReleased = true;
+				clearSortBuffer(toRecycle);
+				packingSegment = null;
+
+				checkReaderReferencesAndDispose();
+			}
+		}
+		finally {
+			recycleBuffers(toRecycle);
+		}
+	}
+
+	@GuardedBy("lock")
+	private void checkReaderReferencesAndDispose() throws IOException {
+		assert Thread.holdsLock(lock);
+
+		if (readers.isEmpty() && !isDisposed) {
+			isDisposed = true;
+
+			IOUtils.closeQuietly(dataFile);
+			IOUtils.closeQuietly(indexFile);
+			Files.deleteIfExists(dataFilePath);
+			Files.deleteIfExists(indexFilePath);
+		}
+	}
+
+	private static void recycleBuffers(List<Buffer> buffers) {
+		for (Buffer buffer : buffers) {
+			buffer.recycleBuffer();
+		}
+	}
+
+	// ---------------------------- statistics --------------------------------
+
+	int getNumDataBuffers(int subpartition) {
+		synchronized (lock) {
+			return numDataBuffers[subpartition];
+		}
+	}
+
+	int getNumBuffersAndEvents(int subpartition) {
+		synchronized (lock) {
+			return numBuffersAndEvents[subpartition];
+		}
+	}
+
+	long getNumBytes(int subpartition) {
+		synchronized (lock) {
+			return numBytes[subpartition];
+		}
+	}
+
+	boolean isDisposed() {
+		synchronized (lock) {
+			return isDisposed;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * An implementation of the ResultSubpartition for a bounded result transferred
+ * in a blocking manner, where the data of all subpartitions of the result partition
+ * is grouped by subpartition and written to one shared {@link SortMergePartitionFile}.
+ *
+ * <p>This class offers the shared file as the {@link PartitionSortBuffer} of the subpartition, so
+ * the record writer appends the serialized records to the sort buffer of the file. Events (and the
+ * buffers of writers that do not use the sort buffer) are handed over to the file as finished
+ * buffers, in order with the records. The file retains the data in the partition's buffer pool and
+ * spills it when the pool runs out of memory. The result can be consumed possibly multiple times,
+ * once all subpartitions of the partition are finished.
+ *
+ * <p>Like the {@link BoundedBlockingSubpartition}, this class assumes a single writer thread that
+ * adds buffers, flushes, and finishes the write phase, and a single thread per reader.
+ */
+final class SortMergeSubpartition extends ResultSubpartition {
+
+	/** The data file shared by all subpartitions of the partition. */
+	private final SortMergePartitionFile file;
+
+	/** The current buffer, may be filled further over time. */
+	@Nullable
+	private BufferConsumer currentBuffer;
+
+	/** Flag indicating whether the writing has finished. */
+	private boolean isFinished;
+
+	/** Flag indicating whether the subpartition has been released. */
+	private boolean isReleased;
+
+	SortMergeSubpartition(int index, ResultPartition parent, SortMergePartitionFile file) {
+		super(index, parent);
+
+		this.file = checkNotNull(file);
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public boolean isReleased() {
+		return isReleased;
+	}
+
+	@Override
+	public boolean add(BufferConsumer bufferConsumer) {
+		if (isFinished) {
+			bufferConsumer.close();
+			return false;
+		}
+
+		flushCurrentBuffer();
+		currentBuffer = bufferConsumer;
+		return true;
+	}
+
+	@Override
+	public void flush() {
+		flushCurrentBuffer();
+	}
+
+	@Override
+	public PartitionSortBuffer getSortBuffer() {
+		return this::appendRecord;
+	}
+
+	private boolean appendRecord(ByteBuffer length, ByteBuffer data) throws IOException, InterruptedException {
+		if (isFinished) {
+			// drop the record, like the buffers that are added after the release
+			length.position(length.limit());
+			data.position(data.limit());
+			return false;
+		}
+
+		// a pending event (or buffer) precedes the record
+		flushCurrentBuffer();
+		return file.appendRecord(index, length, data, parent.getBufferProvider());
+	}
+
+	private void flushCurrentBuffer() {
+		if (currentBuffer != null) {
+			try {
+				final Buffer buffer = currentBuffer.build();
+				file.add(index, parent.canBeCompressed(buffer) ?
+					parent.getBufferCompressor().compressToOriginalBuffer(buffer) : buffer);
+			}
+			finally {
+				currentBuffer.close();
+				currentBuffer = null;
+			}
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		checkState(!isReleased, "data partition already released");
+		checkState(!isFinished, "data partition already finished");
+
+		isFinished = true;
+		flushCurrentBuffer();
+		file.add(index, EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE));
+		file.finishSubpartition();
+	}
+
+	@Override
+	public void release() throws IOException {
+		if (isReleased) {
+			return;
+		}
+
+		isReleased = true;
+		isFinished = true; // for fail fast writes
+
+		if (currentBuffer != null) {
+			currentBuffer.close();
+			currentBuffer = null;
+		}
+
+		file.releaseSubpartition();
+	}
+
+	@Override
+	public ResultSubpartitionView createReadView(BufferAvailabilityListener availability) throws IOException {
+		checkState(!isReleased, "data partition already released");
+
+		return file.createReader(this, availability);
+	}
+
+	// ------------------------------ legacy ----------------------------------
+
+	@Override
+	public int releaseMemory() throws IOException {
+		return file.spill();
+	}
+
+	// ---------------------------- statistics --------------------------------
+
+	@Override
+	public int unsynchronizedGetNumberOfQueuedBuffers() {
+		return 0;
+	}
+
+	@Override
+	protected long getTotalNumberOfBuffers() {
+		return file.getNumBuffersAndEvents(index);
+	}
+
+	@Override
+	protected long getTotalNumberOfBytes() {
+		return file.getNumBytes(index);
+	}
+
+	int getBuffersInBacklog() {
+		return file.getNumDataBuffers(index);
+	}
+
+	@VisibleForTesting
+	SortMergePartitionFile getFile() {
+		return file;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.apache.flink.runtime.io.network.partition.BufferToByteBuffer.HEADER_LENGTH;
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The reader (read view) of a SortMergeSubpartition. It reads the buffers of its subpartition
+ * region by region from the shared {@link SortMergePartitionFile}.
+ */
+final class SortMergeSubpartitionReader implements ResultSubpartitionView {
+
+	/** The result subpartition that we read. */
+	private final SortMergeSubpartition parent;
+
+	/** The file with the data of all subpartitions. */
+	private final SortMergePartitionFile file;
+
+	/** Reused buffer for decoding index entries and buffer headers. */
+	private final ByteBuffer headerBuffer;
+
+	/** The number of regions in the file. */
+	private final int numRegions;
+
+	/** The next buffer (look ahead). Null once the data is depleted or reader is disposed. */
+	@Nullable
+	private Buffer nextBuffer;
+
+	/** The index of the next region to read from. */
+	private int nextRegion;
+
+	/** The number of buffers of this subpartition still to read in the current region. */
+	private int numRemainingBuffersInRegion;
+
+	/** The offset of the next buffer in the data file. */
+	private long nextBufferOffset;
+
+	/** The remaining number of data buffers (not events) in the result. */
+	private int dataBufferBacklog;
+
+	/** Flag whether this reader is released. */
+	private boolean isReleased;
+
+	SortMergeSubpartitionReader(
+			SortMergeSubpartition parent,
+			SortMergePartitionFile file,
+			int numDataBuffers) throws IOException {
+
+		checkArgument(numDataBuffers >= 0);
+
+		this.parent = checkNotNull(parent);
+		this.file = checkNotNull(file);
+		this.dataBufferBacklog = numDataBuffers;
+		this.headerBuffer = SortMergePartitionFile.allocate(
+				Math.max(SortMergePartitionFile.INDEX_ENTRY_SIZE, HEADER_LENGTH));
+		this.numRegions = file.getNumRegions();
+
+		this.nextBuffer = readNextBuffer();
+	}
+
+	@Nullable
+	@Override
+	public BufferAndBacklog getNextBuffer() throws IOException {
+		final Buffer current = nextBuffer; // copy reference to stack
+
+		if (current == null) {
+			// as per contract, we must return null when the reader is empty,
+			// but also in case the reader is disposed (rather than throwing an exception)
+			return null;
+		}
+		if (current.isBuffer()) {
+			dataBufferBacklog--;
+		}
+
+		nextBuffer = readNextBuffer();
+
+		return BufferAndBacklog.fromBufferAndLookahead(current, nextBuffer, dataBufferBacklog);
+	}
+
+	@Nullable
+	private Buffer readNextBuffer() throws IOException {
+		while (numRemainingBuffersInRegion == 0) {
+			if (nextRegion >= numRegions) {
+				return null;
+			}
+
+			file.readIndexEntry(nextRegion++, parent.index, headerBuffer);
+			nextBufferOffset = headerBuffer.getLong();
+			numRemainingBuffersInRegion = headerBuffer.getInt();
+		}
+
+		final Buffer buffer = file.readBuffer(nextBufferOffset, headerBuffer);
+		nextBufferOffset += HEADER_LENGTH + buffer.getSize();
+		numRemainingBuffersInRegion--;
+		return buffer;
+	}
+
+	@Override
+	public void notifyDataAvailable() {
+		throw new IllegalStateException("No data should become available on a blocking partition during consumption.");
+	}
+
+	@Override
+	public void notifySubpartitionConsumed() throws IOException {
+		parent.onConsumedSubpartition();
+	}
+
+	@Override
+	public void releaseAllResources() throws IOException {
+		// it is not a problem if this method executes multiple times
+		isReleased = true;
+
+		// the look ahead buffer is not handed out yet, so we need to free it here
+		if (nextBuffer != null) {
+			nextBuffer.recycleBuffer();
+			nextBuffer = null;
+		}
+		numRemainingBuffersInRegion = 0;
+		nextRegion = numRegions;
+
+		// Notify the parent that this one is released. This allows the parent to
+		// eventually release all resources (when all readers are done and the
+		// parent is disposed).
+		file.releaseReaderReference(this);
+	}
+
+	@Override
+	public boolean isReleased() {
+		return isReleased;
+	}
+
+	@Override
+	public boolean nextBufferIsEvent() {
+		return nextBuffer != null && !nextBuffer.isBuffer();
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return nextBuffer != null;
+	}
+
+	@Override
+	public Throwable getFailureCause() {
+		// we can never throw an error after this was created
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Sort-Merge Subpartition Reader: ID=%s, index=%d",
+				parent.parent.getPartitionId(),
+				parent.index);
+	}
+}
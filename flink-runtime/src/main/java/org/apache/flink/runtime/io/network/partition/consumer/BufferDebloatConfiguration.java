@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition.consumer;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NetworkEnvironmentOptions;
+import org.apache.flink.runtime.util.ConfigurationParserUtils;
+
+import javax.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Configuration of the buffer debloating of the input gates, see {@link BufferDebloater}.
+ */
+public final class BufferDebloatConfiguration {
+
+	/** The time in milliseconds in which the in-flight data of a gate should be consumed. */
+	private final long targetMillis;
+
+	/** The minimum interval in milliseconds between two recalculations. */
+	private final long periodMillis;
+
+	/** The minimum buffer size in bytes. */
+	private final int minBufferSize;
+
+	/** The minimum relative change of the buffer size in percent that is announced. */
+	private final int thresholdPercentage;
+
+	public BufferDebloatConfiguration(long targetMillis, long periodMillis, int minBufferSize, int thresholdPercentage) {
+		this.targetMillis = targetMillis;
+		this.periodMillis = periodMillis;
+		this.minBufferSize = minBufferSize;
+		this.thresholdPercentage = thresholdPercentage;
+	}
+
+	public long getTargetMillis() {
+		return targetMillis;
+	}
+
+	public long getPeriodMillis() {
+		return periodMillis;
+	}
+
+	public int getMinBufferSize() {
+		return minBufferSize;
+	}
+
+	public int getThresholdPercentage() {
+		return thresholdPercentage;
+	}
+
+	/**
+	 * Extracts the buffer debloating parameters from the configuration and sanity checks them.
+	 *
+	 * @param configuration configuration object
+	 * @param pageSize the size of the network buffers, which is the maximum buffer size
+	 * @return the configuration, or <tt>null</tt> if the buffer debloating is disabled
+	 */
+	@Nullable
+	public static BufferDebloatConfiguration fromConfiguration(Configuration configuration, int pageSize) {
+		if (!configuration.getBoolean(NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_ENABLED)) {
+			return null;
+		}
+
+		long targetMillis = configuration.getLong(NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_TARGET);
+		ConfigurationParserUtils.checkConfigParameter(targetMillis > 0, targetMillis,
+			NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_TARGET.key(),
+			"The target time must be positive.");
+
+		long periodMillis = configuration.getLong(NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_PERIOD);
+		ConfigurationParserUtils.checkConfigParameter(periodMillis > 0, periodMillis,
+			NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_PERIOD.key(),
+			"The period must be positive.");
+
+		int minBufferSize = configuration.getInteger(NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_MIN_BUFFER_SIZE);
+		ConfigurationParserUtils.checkConfigParameter(minBufferSize > 0 && minBufferSize <= pageSize, minBufferSize,
+			NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_MIN_BUFFER_SIZE.key(),
+			"The minimum buffer size must be positive and at most the memory segment size (" + pageSize + ").");
+
+		int thresholdPercentage = configuration.getInteger(NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_THRESHOLD_PERCENTAGES);
+		ConfigurationParserUtils.checkConfigParameter(thresholdPercentage >= 0 && thresholdPercentage < 100, thresholdPercentage,
+			NetworkEnvironmentOptions.NETWORK_BUFFER_DEBLOAT_THRESHOLD_PERCENTAGES.key(),
+			"The threshold must be between 0 and 99 percent.");
+
+		return new BufferDebloatConfiguration(targetMillis, periodMillis, minBufferSize, thresholdPercentage);
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(targetMillis, periodMillis, minBufferSize, thresholdPercentage);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		else if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		else {
+			final BufferDebloatConfiguration that = (BufferDebloatConfiguration) obj;
+
+			return this.targetMillis == that.targetMillis &&
+					this.periodMillis == that.periodMillis &&
+					this.minBufferSize == that.minBufferSize &&
+					this.thresholdPercentage == that.thresholdPercentage;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BufferDebloatConfiguration{" +
+				"targetMillis=" + targetMillis +
+				", periodMillis=" + periodMillis +
+				", minBufferSize=" + minBufferSize +
+				", thresholdPercentage=" + thresholdPercentage +
+				'}';
+	}
+}
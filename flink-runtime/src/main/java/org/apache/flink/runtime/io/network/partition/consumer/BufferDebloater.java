@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition.consumer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Calculates the size of the buffers that a {@link SingleInputGate} asks its producers for, so
+ * that the in-flight data of the gate can be consumed in about the configured target time.
+ *
+ * <p>The throughput is measured from the bytes that the consumer takes from the gate, smoothed
+ * over the recalculation periods. The time in which the gate had no data to offer is not counted,
+ * so that a slow producer does not shrink the buffers; a consumer that is back pressured by its
+ * own outputs does. The in-flight data of the gate is bounded by its exclusive and floating
+ * buffers. Once the buffer size reaches its minimum, the number of floating credits that a channel
+ * may announce is limited as well.
+ *
+ * <p>The calculation runs in the task thread, while the results may be read from any thread.
+ */
+public class BufferDebloater {
+
+	/** The weight of the latest measurement in the moving average of the throughput. */
+	private static final double THROUGHPUT_SMOOTHING_FACTOR = 0.2;
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private static final long NOT_STARTED = -1L;
+
+	private final long targetNanos;
+
+	private final long periodNanos;
+
+	private final int minBufferSize;
+
+	private final int maxBufferSize;
+
+	private final int thresholdPercentage;
+
+	private final int numberOfInputChannels;
+
+	/** The number of buffers that the channels of the gate own exclusively. */
+	private final int numExclusiveBuffers;
+
+	/** The number of buffers that the gate may hold in total, including the floating ones. */
+	private final int numTotalBuffers;
+
+	private long periodStartNanos = NOT_STARTED;
+
+	private long periodBytes;
+
+	private long periodIdleNanos;
+
+	private long idleStartNanos = NOT_STARTED;
+
+	/** The smoothed throughput in bytes per second, or a negative value before the first period. */
+	private volatile double throughput = -1;
+
+	private volatile int bufferSize;
+
+	private volatile int maxFloatingCredits = Integer.MAX_VALUE;
+
+	public BufferDebloater(
+			BufferDebloatConfiguration configuration,
+			int maxBufferSize,
+			int numberOfInputChannels,
+			int buffersPerChannel,
+			int floatingBuffersPerGate) {
+
+		checkNotNull(configuration);
+		checkArgument(numberOfInputChannels > 0);
+
+		this.targetNanos = configuration.getTargetMillis() * 1_000_000L;
+		this.periodNanos = configuration.getPeriodMillis() * 1_000_000L;
+		this.minBufferSize = Math.min(configuration.getMinBufferSize(), maxBufferSize);
+		this.maxBufferSize = maxBufferSize;
+		this.thresholdPercentage = configuration.getThresholdPercentage();
+		this.numberOfInputChannels = numberOfInputChannels;
+		this.numExclusiveBuffers = numberOfInputChannels * buffersPerChannel;
+		this.numTotalBuffers = Math.max(1, numExclusiveBuffers + floatingBuffersPerGate);
+		this.bufferSize = maxBufferSize;
+	}
+
+	/**
+	 * Notes that the consumer found no data in the gate. The time until the next buffer is taken
+	 * from the gate does not count towards the throughput.
+	 */
+	public void notifyIdle(long nowNanos) {
+		if (periodStartNanos != NOT_STARTED && idleStartNanos == NOT_STARTED) {
+			idleStartNanos = nowNanos;
+		}
+	}
+
+	/**
+	 * Accounts a buffer (or event) that the consumer took from the gate and recalculates the buffer
+	 * size and the floating credits, if the current period is over.
+	 *
+	 * @param bytes the size of the consumed buffer
+	 * @param nowNanos the current time in nanoseconds
+	 * @return whether the buffer size or the maximum number of floating credits changed
+	 */
+	public boolean notifyBufferConsumed(int bytes, long nowNanos) {
+		if (periodStartNanos == NOT_STARTED) {
+			periodStartNanos = nowNanos;
+		}
+		else if (idleStartNanos != NOT_STARTED) {
+			periodIdleNanos += nowNanos - idleStartNanos;
+			idleStartNanos = NOT_STARTED;
+		}
+
+		periodBytes += bytes;
+
+		return nowNanos - periodStartNanos >= periodNanos && recalculate(nowNanos);
+	}
+
+	private boolean recalculate(long nowNanos) {
+		long activeNanos = nowNanos - periodStartNanos - periodIdleNanos;
+		long bytes = periodBytes;
+
+		periodStartNanos = nowNanos;
+		periodBytes = 0;
+		periodIdleNanos = 0;
+
+		if (activeNanos <= 0) {
+			return false;
+		}
+
+		double measuredThroughput = (double) bytes * NANOS_PER_SECOND / activeNanos;
+		double smoothedThroughput = throughput < 0 ? measuredThroughput :
+			throughput + THROUGHPUT_SMOOTHING_FACTOR * (measuredThroughput - throughput);
+		throughput = smoothedThroughput;
+
+		double desiredInFlightBytes = smoothedThroughput * targetNanos / NANOS_PER_SECOND;
+		int newBufferSize = (int) Math.max(minBufferSize, Math.min(maxBufferSize, desiredInFlightBytes / numTotalBuffers));
+
+		int newMaxFloatingCredits = Integer.MAX_VALUE;
+		if (newBufferSize == minBufferSize) {
+			// even the smallest buffers hold too much data, so the channels may only ask for as
+			// many floating buffers as the desired in-flight data takes beyond the exclusive ones
+			double floatingBuffers = desiredInFlightBytes / minBufferSize - numExclusiveBuffers;
+			newMaxFloatingCredits = (int) Math.max(0, Math.ceil(floatingBuffers / numberOfInputChannels));
+		}
+
+		boolean changed = false;
+
+		int currentBufferSize = bufferSize;
+		if (newBufferSize != currentBufferSize &&
+				(Math.abs(newBufferSize - currentBufferSize) * 100L > (long) thresholdPercentage * currentBufferSize ||
+					newBufferSize == minBufferSize || newBufferSize == maxBufferSize)) {
+
+			bufferSize = newBufferSize;
+			changed = true;
+		}
+
+		if (newMaxFloatingCredits != maxFloatingCredits) {
+			maxFloatingCredits = newMaxFloatingCredits;
+			changed = true;
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Returns the buffer size in bytes that the producers should send.
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Returns the maximum number of floating credits that each channel may announce, or
+	 * {@link Integer#MAX_VALUE} if the floating credits are not limited.
+	 */
+	public int getMaxFloatingCredits() {
+		return maxFloatingCredits;
+	}
+
+	/**
+	 * Returns the smoothed throughput of the gate in bytes per second, or 0 before it has been
+	 * measured.
+	 */
+	public long getThroughput() {
+		return Math.max(0L, (long) throughput);
+	}
+}
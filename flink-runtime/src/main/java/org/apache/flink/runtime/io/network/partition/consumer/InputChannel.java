@@ -158,6 +158,13 @@ public abstract class InputChannel {
 	 */
 	abstract void sendTaskEvent(TaskEvent event) throws IOException;
 
+	/**
+	 * Announces the buffer size in bytes that the gate would like to receive to the producer of the
+	 * consumed subpartition. Channels that do not know their producer yet ignore this.
+	 */
+	void announceBufferSize(int newBufferSize) {
+	}
+
 	// ------------------------------------------------------------------------
 	// Life cycle
 	// ------------------------------------------------------------------------
@@ -21,8 +21,13 @@ package org.apache.flink.runtime.io.network.partition.consumer;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.network.TaskEventPublisher;
+import org.apache.flink.runtime.io.network.api.ObjectBatchMarker;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
 import org.apache.flink.runtime.io.network.metrics.InputChannelMetrics;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.LocalObjectQueue;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
@@ -32,6 +37,8 @@ import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.Optional;
 import java.util.Timer;
@@ -60,6 +67,10 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 	/** The consumed subpartition. */
 	private volatile ResultSubpartitionView subpartitionView;
 
+	/** The queue of the records handed over as objects, <tt>null</tt> if the records come in buffers. */
+	@Nullable
+	private LocalObjectQueue localObjectQueue;
+
 	private volatile boolean isReleased;
 
 	public LocalInputChannel(
@@ -115,6 +126,11 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 						throw new IOException("Error requesting subpartition.");
 					}
 
+					int objectHandoverCapacity = inputGate.getLocalObjectHandoverCapacity();
+					if (objectHandoverCapacity > 0) {
+						localObjectQueue = subpartitionView.enableLocalObjectHandover(objectHandoverCapacity);
+					}
+
 					// make the subpartition view visible
 					this.subpartitionView = subpartitionView;
 
@@ -195,7 +211,16 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 
 		numBytesIn.inc(next.buffer().getSizeUnsafe());
 		numBuffersIn.inc();
-		return Optional.of(new BufferAndAvailability(next.buffer(), next.isMoreAvailable(), next.buffersInBacklog()));
+
+		Buffer buffer = next.buffer();
+		if (buffer instanceof FileRegionBuffer) {
+			// file regions are only sent to remote consumers as they are
+			buffer = ((FileRegionBuffer) buffer).readToUnpooledBuffer();
+		}
+		if (localObjectQueue != null && EventSerializer.isEvent(buffer, ObjectBatchMarker.class)) {
+			buffer = localObjectQueue.takeRecords(buffer);
+		}
+		return Optional.of(new BufferAndAvailability(buffer, next.isMoreAvailable(), next.buffersInBacklog()));
 	}
 
 	@Override
@@ -228,6 +253,14 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 		}
 	}
 
+	@Override
+	void announceBufferSize(int newBufferSize) {
+		ResultSubpartitionView subpartitionView = this.subpartitionView;
+		if (subpartitionView != null) {
+			subpartitionView.notifyNewBufferSize(newBufferSize);
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	// Life cycle
 	// ------------------------------------------------------------------------
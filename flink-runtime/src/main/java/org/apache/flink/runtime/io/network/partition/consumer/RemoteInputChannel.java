@@ -105,6 +105,9 @@ public class RemoteInputChannel extends InputChannel implements BufferRecycler,
 	@GuardedBy("bufferQueue")
 	private boolean isWaitingForFloatingBuffers;
 
+	/** The maximum number of floating buffers to request for the sender's backlog. */
+	private volatile int maxFloatingCredits = Integer.MAX_VALUE;
+
 	/** Global memory segment provider to request and recycle exclusive buffers (only for credit-based). */
 	@Nonnull
 	private final MemorySegmentProvider memorySegmentProvider;
@@ -220,6 +223,14 @@ public class RemoteInputChannel extends InputChannel implements BufferRecycler,
 		partitionRequestClient.sendTaskEvent(partitionId, event, this);
 	}
 
+	@Override
+	void announceBufferSize(int newBufferSize) {
+		PartitionRequestClient partitionRequestClient = this.partitionRequestClient;
+		if (partitionRequestClient != null && !isReleased.get()) {
+			partitionRequestClient.notifyNewBufferSize(this, newBufferSize);
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	// Life cycle
 	// ------------------------------------------------------------------------
@@ -464,10 +475,24 @@ public class RemoteInputChannel extends InputChannel implements BufferRecycler,
 		}
 	}
 
+	/**
+	 * Limits the number of floating buffers that this channel requests for the sender's backlog,
+	 * which bounds the in-flight data of the channel. Floating buffers beyond the limit are returned
+	 * to the buffer pool when the next exclusive buffers are recycled.
+	 *
+	 * @param maxFloatingCredits The maximum number of floating credits, or {@link Integer#MAX_VALUE}
+	 *                           to request floating buffers for the whole backlog.
+	 */
+	void setMaxFloatingCredits(int maxFloatingCredits) {
+		checkArgument(maxFloatingCredits >= 0, "The maximum number of floating credits must not be negative.");
+		this.maxFloatingCredits = maxFloatingCredits;
+	}
+
 	/**
 	 * Receives the backlog from the producer's buffer response. If the number of available
 	 * buffers is less than backlog + initialCredit, it will request floating buffers from the buffer
-	 * pool, and then notify unannounced credits to the producer.
+	 * pool, and then notify unannounced credits to the producer. The backlog is capped by the
+	 * maximum number of floating credits, see {@link #setMaxFloatingCredits(int)}.
 	 *
 	 * @param backlog The number of unsent buffers in the producer's sub partition.
 	 */
@@ -481,7 +506,7 @@ public class RemoteInputChannel extends InputChannel implements BufferRecycler,
 				return;
 			}
 
-			numRequiredBuffers = backlog + initialCredit;
+			numRequiredBuffers = Math.min(backlog, maxFloatingCredits) + initialCredit;
 			while (bufferQueue.getAvailableBufferSize() < numRequiredBuffers && !isWaitingForFloatingBuffers) {
 				Buffer buffer = inputGate.getBufferPool().requestBuffer();
 				if (buffer != null) {
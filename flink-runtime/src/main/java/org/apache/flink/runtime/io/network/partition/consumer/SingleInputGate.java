@@ -28,6 +28,7 @@ import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -42,6 +43,9 @@ import org.apache.flink.util.function.SupplierWithException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -176,6 +180,24 @@ public class SingleInputGate extends InputGate {
 
 	private final SupplierWithException<BufferPool, IOException> bufferPoolFactory;
 
+	/** Used to decompress compressed data buffers, <tt>null</tt> if the consumed data is not compressed. */
+	@Nullable
+	private final BufferDecompressor bufferDecompressor;
+
+	/**
+	 * The capacity of the queues through which local channels request their records as objects,
+	 * or 0 if the records are deserialized from buffers.
+	 */
+	private volatile int localObjectHandoverCapacity;
+
+	/** Adjusts the buffer size and floating credits to the throughput, <tt>null</tt> if disabled. */
+	@Nullable
+	private BufferDebloater bufferDebloater;
+
+	/** The buffer size that has last been announced to the producers, 0 if none has been announced. */
+	@GuardedBy("requestLock")
+	private int announcedBufferSize;
+
 	public SingleInputGate(
 		String owningTaskName,
 		JobID jobId,
@@ -186,7 +208,8 @@ public class SingleInputGate extends InputGate {
 		TaskActions taskActions,
 		Counter numBytesIn,
 		boolean isCreditBased,
-		SupplierWithException<BufferPool, IOException> bufferPoolFactory) {
+		SupplierWithException<BufferPool, IOException> bufferPoolFactory,
+		@Nullable BufferDecompressor bufferDecompressor) {
 
 		this.owningTaskName = checkNotNull(owningTaskName);
 		this.jobId = checkNotNull(jobId);
@@ -210,6 +233,8 @@ public class SingleInputGate extends InputGate {
 		this.numBytesIn = checkNotNull(numBytesIn);
 
 		this.isCreditBased = isCreditBased;
+
+		this.bufferDecompressor = bufferDecompressor;
 	}
 
 	@Override
@@ -300,6 +325,45 @@ public class SingleInputGate extends InputGate {
 		this.bufferPool = checkNotNull(bufferPool);
 	}
 
+	/**
+	 * Lets the local input channels request the records of pipelined partitions as objects, which
+	 * are queued in {@link org.apache.flink.runtime.io.network.partition.LocalObjectQueue
+	 * LocalObjectQueues} of the given capacity. This must be called before the partitions are
+	 * requested, and only if the records of this gate are read with a record deserializer that
+	 * accepts {@link org.apache.flink.runtime.io.network.buffer.ObjectBatchBuffer ObjectBatchBuffers}.
+	 */
+	public void enableLocalObjectHandover(int capacity) {
+		checkArgument(capacity > 0, "The capacity must be positive.");
+		synchronized (requestLock) {
+			checkState(!requestedPartitionsFlag, "The partitions have already been requested.");
+			this.localObjectHandoverCapacity = capacity;
+		}
+	}
+
+	int getLocalObjectHandoverCapacity() {
+		return localObjectHandoverCapacity;
+	}
+
+	/**
+	 * Lets this gate adjust the buffer size of its producers and the floating credits of its
+	 * channels to the measured throughput with the given debloater. This must be called before the
+	 * partitions are requested.
+	 */
+	public void enableBufferDebloating(BufferDebloater bufferDebloater) {
+		synchronized (requestLock) {
+			checkState(!requestedPartitionsFlag, "The partitions have already been requested.");
+			this.bufferDebloater = checkNotNull(bufferDebloater);
+		}
+	}
+
+	/**
+	 * Returns the debloater of this gate, or <tt>null</tt> if the buffer debloating is disabled.
+	 */
+	@Nullable
+	public BufferDebloater getBufferDebloater() {
+		return bufferDebloater;
+	}
+
 	/**
 	 * Assign the exclusive buffers to all remote input channels directly for credit-based mode.
 	 */
@@ -366,6 +430,10 @@ public class SingleInputGate extends InputGate {
 					newChannel.requestSubpartition(consumedSubpartitionIndex);
 				}
 
+				if (bufferDebloater != null) {
+					applyBufferDebloating(newChannel);
+				}
+
 				for (TaskEvent event : pendingEvents) {
 					newChannel.sendTaskEvent(event);
 				}
@@ -567,9 +635,17 @@ public class SingleInputGate extends InputGate {
 			Buffer buffer,
 			boolean moreAvailable,
 			InputChannel currentChannel) throws IOException, InterruptedException {
-		numBytesIn.inc(buffer.getSizeUnsafe());
+		int size = buffer.getSizeUnsafe();
+		numBytesIn.inc(size);
+		if (bufferDebloater != null && bufferDebloater.notifyBufferConsumed(size, System.nanoTime())) {
+			applyBufferDebloating();
+		}
+
 		if (buffer.isBuffer()) {
-			return new BufferOrEvent(buffer, currentChannel.getChannelIndex(), moreAvailable);
+			return new BufferOrEvent(
+				decompressBufferIfNeeded(buffer, currentChannel),
+				currentChannel.getChannelIndex(),
+				moreAvailable);
 		}
 		else {
 			final AbstractEvent event;
@@ -601,6 +677,81 @@ public class SingleInputGate extends InputGate {
 		}
 	}
 
+	/**
+	 * Announces the buffer size of the debloater to the producers, if it changed, and limits the
+	 * floating credits of the remote channels.
+	 */
+	private void applyBufferDebloating() {
+		synchronized (requestLock) {
+			int bufferSize = bufferDebloater.getBufferSize();
+			boolean announce = bufferSize != announcedBufferSize;
+			announcedBufferSize = bufferSize;
+
+			for (InputChannel inputChannel : inputChannels.values()) {
+				if (announce) {
+					inputChannel.announceBufferSize(bufferSize);
+				}
+				if (inputChannel instanceof RemoteInputChannel) {
+					((RemoteInputChannel) inputChannel).setMaxFloatingCredits(bufferDebloater.getMaxFloatingCredits());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Passes the current state of the debloater on to a channel that has been updated, while
+	 * holding the request lock.
+	 */
+	private void applyBufferDebloating(InputChannel newChannel) {
+		if (announcedBufferSize > 0) {
+			newChannel.announceBufferSize(announcedBufferSize);
+		}
+		if (newChannel instanceof RemoteInputChannel) {
+			((RemoteInputChannel) newChannel).setMaxFloatingCredits(bufferDebloater.getMaxFloatingCredits());
+		}
+	}
+
+	/**
+	 * Decompresses the given buffer if it is compressed. The consumer may hold back the returned
+	 * buffer while reading further buffers, e.g. during checkpoint alignment, so every decompressed
+	 * buffer gets its own memory instead of sharing the decompressor's intermediate buffer.
+	 */
+	private Buffer decompressBufferIfNeeded(Buffer buffer, InputChannel channel) throws IOException {
+		if (!buffer.isCompressed()) {
+			return buffer;
+		}
+
+		try {
+			checkState(bufferDecompressor != null, "Received a compressed buffer, but no buffer decompressor is set.");
+
+			if (channel instanceof RemoteInputChannel) {
+				// remote buffers own a whole segment of the gate's buffers, which is recycled with them
+				return bufferDecompressor.decompressToOriginalBuffer(buffer);
+			}
+		}
+		catch (Throwable t) {
+			buffer.recycleBuffer();
+			throw t;
+		}
+
+		// local buffers are read-only views of the producer's buffers or of the spilled data
+		try {
+			return bufferDecompressor.decompressToNewBuffer(buffer, bufferPool);
+		}
+		finally {
+			buffer.recycleBuffer();
+		}
+	}
+
+	/**
+	 * Returns the decompressor for compressed data buffers, or <tt>null</tt> if the consumed data is
+	 * not compressed.
+	 */
+	@Nullable
+	public BufferDecompressor getBufferDecompressor() {
+		return bufferDecompressor;
+	}
+
 	@Override
 	public void sendTaskEvent(TaskEvent event) throws IOException {
 		synchronized (requestLock) {
@@ -659,6 +810,10 @@ public class SingleInputGate extends InputGate {
 					throw new IllegalStateException("Released");
 				}
 
+				if (bufferDebloater != null) {
+					bufferDebloater.notifyIdle(System.nanoTime());
+				}
+
 				if (blocking) {
 					inputChannelsWithData.wait();
 				}
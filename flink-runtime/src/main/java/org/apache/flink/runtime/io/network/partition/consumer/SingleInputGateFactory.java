@@ -26,6 +26,7 @@ import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.ResultPartitionLocation;
 import org.apache.flink.runtime.io.network.ConnectionManager;
 import org.apache.flink.runtime.io.network.TaskEventPublisher;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferPoolFactory;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
@@ -42,6 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.IOException;
 
@@ -76,6 +78,16 @@ public class SingleInputGateFactory {
 
 	private final int floatingNetworkBuffersPerGate;
 
+	private final int networkBufferSize;
+
+	/** The codec to decompress data buffers with, or <tt>null</tt> if compression is disabled. */
+	@Nullable
+	private final String compressionCodec;
+
+	/** The configuration of the buffer debloating, or <tt>null</tt> if it is disabled. */
+	@Nullable
+	private final BufferDebloatConfiguration bufferDebloatConfiguration;
+
 	public SingleInputGateFactory(
 			@Nonnull NetworkEnvironmentConfiguration networkConfig,
 			@Nonnull ConnectionManager connectionManager,
@@ -87,6 +99,9 @@ public class SingleInputGateFactory {
 		this.partitionRequestMaxBackoff = networkConfig.partitionRequestMaxBackoff();
 		this.networkBuffersPerChannel = networkConfig.networkBuffersPerChannel();
 		this.floatingNetworkBuffersPerGate = networkConfig.floatingNetworkBuffersPerGate();
+		this.networkBufferSize = networkConfig.networkBufferSize();
+		this.compressionCodec = networkConfig.compressionCodec();
+		this.bufferDebloatConfiguration = networkConfig.bufferDebloatConfiguration();
 		this.connectionManager = connectionManager;
 		this.partitionManager = partitionManager;
 		this.taskEventPublisher = taskEventPublisher;
@@ -114,7 +129,14 @@ public class SingleInputGateFactory {
 		final SingleInputGate inputGate = new SingleInputGate(
 			owningTaskName, jobId, consumedResultId, consumedPartitionType, consumedSubpartitionIndex,
 			icdd.length, taskActions, numBytesInCounter, isCreditBased,
-			createBufferPoolFactory(icdd.length, consumedPartitionType));
+			createBufferPoolFactory(icdd.length, consumedPartitionType),
+			compressionCodec != null ? new BufferDecompressor(networkBufferSize, compressionCodec) : null);
+
+		if (bufferDebloatConfiguration != null) {
+			inputGate.enableBufferDebloating(new BufferDebloater(
+				bufferDebloatConfiguration, networkBufferSize, icdd.length,
+				networkBuffersPerChannel, floatingNetworkBuffersPerGate));
+		}
 
 		// Create the input channels. There is one input channel for each consumed partition.
 		final InputChannel[] inputChannels = new InputChannel[icdd.length];
@@ -41,11 +41,19 @@ public class MetricNames {
 	public static final String IO_NUM_BUFFERS_OUT = "numBuffersOut";
 	public static final String IO_NUM_BUFFERS_OUT_RATE = IO_NUM_BUFFERS_OUT + SUFFIX_RATE;
 
+	public static final String IO_NUM_OUTPUT_FLUSHES = "numOutputFlushes";
+	public static final String IO_NUM_OUTPUT_FLUSHES_RATE = IO_NUM_OUTPUT_FLUSHES + SUFFIX_RATE;
+	public static final String IO_OUTPUT_FLUSH_FILL_RATIO = "outputFlushFillRatio";
+
 	public static final String IO_CURRENT_INPUT_WATERMARK = "currentInputWatermark";
 	public static final String IO_CURRENT_INPUT_1_WATERMARK = "currentInput1Watermark";
 	public static final String IO_CURRENT_INPUT_2_WATERMARK = "currentInput2Watermark";
 	public static final String IO_CURRENT_OUTPUT_WATERMARK = "currentOutputWatermark";
 
+	public static final String MAILBOX_NUM_LETTERS = "numMailboxLetters";
+	public static final String MAILBOX_NUM_LETTERS_RATE = MAILBOX_NUM_LETTERS + SUFFIX_RATE;
+	public static final String MAILBOX_SIZE = "mailboxSize";
+
 	public static final String NUM_RUNNING_JOBS = "numRunningJobs";
 	public static final String TASK_SLOTS_AVAILABLE = "taskSlotsAvailable";
 	public static final String TASK_SLOTS_TOTAL = "taskSlotsTotal";
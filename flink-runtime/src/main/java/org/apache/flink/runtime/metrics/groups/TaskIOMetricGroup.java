@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.metrics.groups;
 
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MeterView;
 import org.apache.flink.metrics.SimpleCounter;
@@ -39,12 +40,15 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 	private final SumCounter numRecordsIn;
 	private final SumCounter numRecordsOut;
 	private final Counter numBuffersOut;
+	private final SumCounter numOutputFlushes;
+	private final List<Gauge<Double>> outputFlushFillRatios = new ArrayList<>();
 
 	private final Meter numBytesInRate;
 	private final Meter numBytesOutRate;
 	private final Meter numRecordsInRate;
 	private final Meter numRecordsOutRate;
 	private final Meter numBuffersOutRate;
+	private final Meter numOutputFlushesRate;
 
 	public TaskIOMetricGroup(TaskMetricGroup parent) {
 		super(parent);
@@ -61,6 +65,10 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 
 		this.numBuffersOut = counter(MetricNames.IO_NUM_BUFFERS_OUT);
 		this.numBuffersOutRate = meter(MetricNames.IO_NUM_BUFFERS_OUT_RATE, new MeterView(numBuffersOut, 60));
+
+		this.numOutputFlushes = counter(MetricNames.IO_NUM_OUTPUT_FLUSHES, new SumCounter());
+		this.numOutputFlushesRate = meter(MetricNames.IO_NUM_OUTPUT_FLUSHES_RATE, new MeterView(numOutputFlushes, 60));
+		gauge(MetricNames.IO_OUTPUT_FLUSH_FILL_RATIO, this::getOutputFlushFillRatio);
 	}
 
 	public IOMetrics createSnapshot() {
@@ -91,6 +99,27 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 		return numBuffersOut;
 	}
 
+	public Counter getNumOutputFlushesCounter() {
+		return numOutputFlushes;
+	}
+
+	/**
+	 * Returns the average of the flush fill ratios of all outputs that have been flushed yet,
+	 * or 0 if there is no such output.
+	 */
+	private double getOutputFlushFillRatio() {
+		double sum = 0.0;
+		int count = 0;
+		for (Gauge<Double> fillRatio : outputFlushFillRatios) {
+			double value = fillRatio.getValue();
+			if (!Double.isNaN(value)) {
+				sum += value;
+				count++;
+			}
+		}
+		return count > 0 ? sum / count : 0.0;
+	}
+
 	// ============================================================================================
 	// Metric Reuse
 	// ============================================================================================
@@ -102,6 +131,18 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 		this.numRecordsOut.addCounter(numRecordsOutCounter);
 	}
 
+	public void reuseOutputFlushesCounter(Counter numOutputFlushesCounter) {
+		this.numOutputFlushes.addCounter(numOutputFlushesCounter);
+	}
+
+	/**
+	 * Adds the gauge of an output with the moving average of the fill ratio of its flushed buffers,
+	 * or NaN if the output has not been flushed yet.
+	 */
+	public void reuseOutputFlushFillRatioGauge(Gauge<Double> outputFlushFillRatio) {
+		this.outputFlushFillRatios.add(outputFlushFillRatio);
+	}
+
 	/**
 	 * A {@link SimpleCounter} that can contain other {@link Counter}s. A call to {@link SumCounter#getCount()} returns
 	 * the sum of this counters and all contained counters.
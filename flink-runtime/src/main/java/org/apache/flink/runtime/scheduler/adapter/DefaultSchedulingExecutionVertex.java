@@ -38,7 +38,7 @@ class DefaultSchedulingExecutionVertex implements SchedulingExecutionVertex {
 
 	private final ExecutionVertexID executionVertexId;
 
-	private final List<SchedulingResultPartition> consumedPartitions;
+	private final List<Collection<SchedulingResultPartition>> consumedPartitionGroups;
 
 	private final List<? extends SchedulingResultPartition> producedPartitions;
 
@@ -49,7 +49,7 @@ class DefaultSchedulingExecutionVertex implements SchedulingExecutionVertex {
 			List<? extends SchedulingResultPartition> producedPartitions,
 			Supplier<ExecutionState> stateSupplier) {
 		this.executionVertexId = checkNotNull(executionVertexId);
-		this.consumedPartitions = new ArrayList<>();
+		this.consumedPartitionGroups = new ArrayList<>();
 		this.stateSupplier = checkNotNull(stateSupplier);
 		this.producedPartitions = checkNotNull(producedPartitions);
 	}
@@ -66,7 +66,13 @@ class DefaultSchedulingExecutionVertex implements SchedulingExecutionVertex {
 
 	@Override
 	public Collection<SchedulingResultPartition> getConsumedResultPartitions() {
-		return Collections.unmodifiableCollection(consumedPartitions);
+		if (consumedPartitionGroups.size() == 1) {
+			return Collections.unmodifiableCollection(consumedPartitionGroups.get(0));
+		}
+
+		final List<SchedulingResultPartition> consumedPartitions = new ArrayList<>();
+		consumedPartitionGroups.forEach(consumedPartitions::addAll);
+		return Collections.unmodifiableList(consumedPartitions);
 	}
 
 	@Override
@@ -74,7 +80,11 @@ class DefaultSchedulingExecutionVertex implements SchedulingExecutionVertex {
 		return Collections.unmodifiableCollection(producedPartitions);
 	}
 
-	<X extends SchedulingResultPartition> void addConsumedPartition(X partition) {
-		consumedPartitions.add(partition);
+	/**
+	 * Adds the partitions consumed by one input. The group may be shared with other vertices and
+	 * must not be modified afterwards.
+	 */
+	void addConsumedPartitionGroup(Collection<SchedulingResultPartition> partitions) {
+		consumedPartitionGroups.add(checkNotNull(partitions));
 	}
 }
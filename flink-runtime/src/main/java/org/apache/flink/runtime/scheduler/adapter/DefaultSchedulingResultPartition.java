@@ -47,7 +47,7 @@ class DefaultSchedulingResultPartition implements SchedulingResultPartition {
 
 	private SchedulingExecutionVertex producer;
 
-	private final List<SchedulingExecutionVertex> consumers;
+	private final List<Collection<SchedulingExecutionVertex>> consumerGroups;
 
 	DefaultSchedulingResultPartition(
 			IntermediateResultPartitionID partitionId,
@@ -56,7 +56,7 @@ class DefaultSchedulingResultPartition implements SchedulingResultPartition {
 		this.resultPartitionId = checkNotNull(partitionId);
 		this.intermediateDataSetId = checkNotNull(intermediateDataSetId);
 		this.partitionType = checkNotNull(partitionType);
-		this.consumers = new ArrayList<>();
+		this.consumerGroups = new ArrayList<>(1);
 	}
 
 	@Override
@@ -93,11 +93,21 @@ class DefaultSchedulingResultPartition implements SchedulingResultPartition {
 
 	@Override
 	public Collection<SchedulingExecutionVertex> getConsumers() {
-		return Collections.unmodifiableCollection(consumers);
+		if (consumerGroups.size() == 1) {
+			return Collections.unmodifiableCollection(consumerGroups.get(0));
+		}
+
+		final List<SchedulingExecutionVertex> consumers = new ArrayList<>();
+		consumerGroups.forEach(consumers::addAll);
+		return Collections.unmodifiableList(consumers);
 	}
 
-	void addConsumer(SchedulingExecutionVertex vertex) {
-		consumers.add(checkNotNull(vertex));
+	/**
+	 * Adds a group of consumers. The group may be shared with other partitions and must not
+	 * be modified afterwards.
+	 */
+	void addConsumerGroup(Collection<SchedulingExecutionVertex> consumers) {
+		consumerGroups.add(checkNotNull(consumers));
 	}
 
 	void setProducer(SchedulingExecutionVertex vertex) {
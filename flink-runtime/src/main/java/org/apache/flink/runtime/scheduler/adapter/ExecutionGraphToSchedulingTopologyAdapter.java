@@ -19,7 +19,8 @@
 package org.apache.flink.runtime.scheduler.adapter;
 
 import org.apache.flink.runtime.execution.ExecutionState;
-import org.apache.flink.runtime.executiongraph.ExecutionEdge;
+import org.apache.flink.runtime.executiongraph.ConsumedPartitionGroup;
+import org.apache.flink.runtime.executiongraph.ConsumerVertexGroup;
 import org.apache.flink.runtime.executiongraph.ExecutionGraph;
 import org.apache.flink.runtime.executiongraph.ExecutionVertex;
 import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
@@ -30,7 +31,9 @@ import org.apache.flink.runtime.scheduler.strategy.SchedulingResultPartition;
 import org.apache.flink.runtime.scheduler.strategy.SchedulingTopology;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -120,20 +123,55 @@ public class ExecutionGraphToSchedulingTopologyAdapter implements SchedulingTopo
 		Map<ExecutionVertex, DefaultSchedulingExecutionVertex> executionVertexMap,
 		Map<IntermediateResultPartitionID, DefaultSchedulingResultPartition> resultPartitions) {
 
+		// the vertices and partitions of an all-to-all connection share their groups of consumed
+		// partitions and consumers, so they share the adapted groups as well
+		final Map<ConsumedPartitionGroup, List<SchedulingResultPartition>> consumedPartitionGroups = new IdentityHashMap<>();
+		final Map<ConsumerVertexGroup, List<SchedulingExecutionVertex>> consumerVertexGroups = new IdentityHashMap<>();
+
 		for (Map.Entry<ExecutionVertex, DefaultSchedulingExecutionVertex> mapEntry : executionVertexMap.entrySet()) {
 			final DefaultSchedulingExecutionVertex schedulingVertex = mapEntry.getValue();
 			final ExecutionVertex executionVertex = mapEntry.getKey();
 
 			for (int index = 0; index < executionVertex.getNumberOfInputs(); index++) {
-				for (ExecutionEdge edge : executionVertex.getInputEdges(index)) {
-					DefaultSchedulingResultPartition partition = resultPartitions.get(edge.getSource().getPartitionId());
-					schedulingVertex.addConsumedPartition(partition);
-					partition.addConsumer(schedulingVertex);
+				schedulingVertex.addConsumedPartitionGroup(consumedPartitionGroups.computeIfAbsent(
+					executionVertex.getConsumedPartitions(index),
+					group -> adaptConsumedPartitionGroup(group, resultPartitions)));
+			}
+
+			for (IntermediateResultPartition producedPartition : executionVertex.getProducedPartitions().values()) {
+				final DefaultSchedulingResultPartition partition = resultPartitions.get(producedPartition.getPartitionId());
+
+				for (ConsumerVertexGroup consumers : producedPartition.getConsumers()) {
+					partition.addConsumerGroup(consumerVertexGroups.computeIfAbsent(
+						consumers,
+						group -> adaptConsumerVertexGroup(group, executionVertexMap)));
 				}
 			}
 		}
 	}
 
+	private static List<SchedulingResultPartition> adaptConsumedPartitionGroup(
+		ConsumedPartitionGroup consumedPartitions,
+		Map<IntermediateResultPartitionID, DefaultSchedulingResultPartition> resultPartitions) {
+
+		final List<SchedulingResultPartition> adaptedPartitions = new ArrayList<>(consumedPartitions.size());
+		for (IntermediateResultPartition consumedPartition : consumedPartitions) {
+			adaptedPartitions.add(resultPartitions.get(consumedPartition.getPartitionId()));
+		}
+		return Collections.unmodifiableList(adaptedPartitions);
+	}
+
+	private static List<SchedulingExecutionVertex> adaptConsumerVertexGroup(
+		ConsumerVertexGroup consumers,
+		Map<ExecutionVertex, DefaultSchedulingExecutionVertex> executionVertexMap) {
+
+		final List<SchedulingExecutionVertex> adaptedConsumers = new ArrayList<>(consumers.size());
+		for (ExecutionVertex consumer : consumers) {
+			adaptedConsumers.add(executionVertexMap.get(consumer));
+		}
+		return Collections.unmodifiableList(adaptedConsumers);
+	}
+
 	private static class ExecutionStateSupplier implements Supplier<ExecutionState> {
 
 		private final ExecutionVertex executionVertex;
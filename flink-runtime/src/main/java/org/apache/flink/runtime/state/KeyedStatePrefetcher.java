@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+
+import javax.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keyed state backends which implement this interface can load the state of many keys at once, before the
+ * keys are processed. Operators use this to buffer a batch of records, to prefetch the state of all their
+ * keys in parallel, and to process the records afterwards with the state already in memory.
+ *
+ * <p>The prefetched values are a cache in front of the backend: all state accesses still see the most
+ * recent values and go to the backend for everything that was not prefetched. The prefetched values are
+ * kept until {@link #releasePrefetched()} is called.
+ *
+ * @param <K> The type of the keys.
+ */
+public interface KeyedStatePrefetcher<K> {
+
+	/**
+	 * Returns the number of records that operators should buffer before prefetching their state, or zero if
+	 * prefetching is disabled.
+	 */
+	int getPrefetchBatchSize();
+
+	/**
+	 * Returns the maximum time in milliseconds that operators should buffer a record before they prefetch the
+	 * state of the buffered records, even if the batch is not full yet.
+	 */
+	long getPrefetchMaxDelay();
+
+	/**
+	 * Loads the values of all single value states (value, list, reducing, aggregating and folding state)
+	 * with the given namespace serializer for the given keys and namespaces.
+	 *
+	 * <p>The states of the backend must not be accessed before the returned future is completed.
+	 *
+	 * @param keysAndNamespaces The keys and namespaces to load the values for.
+	 * @param namespaceSerializer The namespace serializer of the states to load the values of.
+	 * @param <N> The type of the namespace.
+	 * @return A future which is completed once all values are loaded.
+	 */
+	@Nonnull
+	<N> CompletableFuture<Void> prefetch(
+		@Nonnull Collection<Tuple2<K, N>> keysAndNamespaces,
+		@Nonnull TypeSerializer<N> namespaceSerializer);
+
+	/**
+	 * Releases all prefetched values.
+	 */
+	void releasePrefetched();
+}
@@ -41,4 +41,23 @@ public interface PriorityQueueSetFactory {
 	<T extends HeapPriorityQueueElement & PriorityComparable & Keyed> KeyGroupedInternalPriorityQueue<T> create(
 		@Nonnull String stateName,
 		@Nonnull TypeSerializer<T> byteOrderedElementSerializer);
+
+	/**
+	 * Creates a {@link KeyGroupedInternalPriorityQueue} for {@link Timestamped} elements, e.g. timers. Factories can
+	 * override this to organize the queue by the timestamps of the elements. By default, this is the same as
+	 * {@link #create(String, TypeSerializer)}.
+	 *
+	 * @param stateName                    unique name for associated with this queue.
+	 * @param byteOrderedElementSerializer a serializer that with a format that is lexicographically ordered in
+	 *                                     alignment with elementPriorityComparator.
+	 * @param <T>                          type of the stored elements.
+	 * @return the queue with the specified unique name.
+	 */
+	@Nonnull
+	default <T extends HeapPriorityQueueElement & PriorityComparable & Keyed & Timestamped>
+	KeyGroupedInternalPriorityQueue<T> createTimerQueue(
+		@Nonnull String stateName,
+		@Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
+		return create(stateName, byteOrderedElementSerializer);
+	}
 }
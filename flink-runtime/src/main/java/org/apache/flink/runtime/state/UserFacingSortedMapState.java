@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.state.SortedMapState;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Simple wrapper sorted map state that exposes empty state properly as an empty map.
+ *
+ * @param <K> The type of keys in the map state.
+ * @param <V> The type of values in the map state.
+ */
+class UserFacingSortedMapState<K, V> extends UserFacingMapState<K, V> implements SortedMapState<K, V> {
+
+	private final SortedMapState<K, V> originalState;
+
+	UserFacingSortedMapState(SortedMapState<K, V> originalState) {
+		super(originalState);
+		this.originalState = originalState;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public Map.Entry<K, V> firstEntry() throws Exception {
+		return originalState.firstEntry();
+	}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() throws Exception {
+		return originalState.lastEntry();
+	}
+
+	@Override
+	public Iterator<Map.Entry<K, V>> headIterator(K endKey) throws Exception {
+		return originalState.headIterator(endKey);
+	}
+
+	@Override
+	public Iterator<Map.Entry<K, V>> tailIterator(K startKey) throws Exception {
+		return originalState.tailIterator(startKey);
+	}
+
+	@Override
+	public Iterator<Map.Entry<K, V>> subIterator(K startKey, K endKey) throws Exception {
+		return originalState.subIterator(startKey, endKey);
+	}
+}
@@ -23,6 +23,7 @@ import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.CheckpointingOptions;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FileSystem;
 import org.apache.flink.core.fs.Path;
@@ -43,6 +44,8 @@ import org.apache.flink.runtime.state.OperatorStateHandle;
 import org.apache.flink.runtime.state.TaskStateManager;
 import org.apache.flink.runtime.state.heap.HeapKeyedStateBackendBuilder;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
+import org.apache.flink.runtime.state.heap.HeapSpillManager;
+import org.apache.flink.runtime.state.heap.TimingWheelPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.apache.flink.util.TernaryBoolean;
 
@@ -113,6 +116,30 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 	 * A value of 'undefined' means not yet configured, in which case the default will be used. */
 	private final TernaryBoolean asynchronousSnapshots;
 
+	/** Switch to spill the keyed state of cold key-groups out of the heap.
+	 * A value of 'undefined' means not yet configured, in which case the default will be used. */
+	private final TernaryBoolean heapSpilling;
+
+	/** The fraction of the heap above which keyed state is spilled.
+	 * A value of '-1' means not yet configured, in which case the default will be used. */
+	private final float heapSpillWatermark;
+
+	/** Switch to write incremental checkpoints of the keyed state.
+	 * A value of 'undefined' means not yet configured, in which case the default will be used. */
+	private final TernaryBoolean incrementalCheckpointing;
+
+	/** The maximum number of delta snapshots of an incremental checkpoint.
+	 * A value of '-1' means not yet configured, in which case the default will be used. */
+	private final int incrementalMaxDeltas;
+
+	/** Switch to organize the timers of the keyed state as timing wheels.
+	 * A value of 'undefined' means not yet configured, in which case the default will be used. */
+	private final TernaryBoolean timingWheelTimers;
+
+	/** The resolution of the timing wheels in milliseconds.
+	 * A value of '-1' means not yet configured, in which case the default will be used. */
+	private final long timingWheelResolution;
+
 	// -----------------------------------------------------------------------
 
 	/**
@@ -332,6 +359,12 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 
 		this.fileStateThreshold = fileStateSizeThreshold;
 		this.asynchronousSnapshots = asynchronousSnapshots;
+		this.heapSpilling = TernaryBoolean.UNDEFINED;
+		this.heapSpillWatermark = -1f;
+		this.incrementalCheckpointing = TernaryBoolean.UNDEFINED;
+		this.incrementalMaxDeltas = -1;
+		this.timingWheelTimers = TernaryBoolean.UNDEFINED;
+		this.timingWheelResolution = -1L;
 	}
 
 	/**
@@ -365,6 +398,34 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 					CheckpointingOptions.FS_SMALL_FILE_THRESHOLD.key(), sizeThreshold,
 					CheckpointingOptions.FS_SMALL_FILE_THRESHOLD.defaultValue());
 		}
+
+		this.heapSpilling = original.heapSpilling.resolveUndefined(
+				configuration.getBoolean(CheckpointingOptions.HEAP_SPILL_ENABLED));
+
+		this.heapSpillWatermark = original.heapSpillWatermark >= 0f ?
+				original.heapSpillWatermark :
+				configuration.getFloat(CheckpointingOptions.HEAP_SPILL_WATERMARK);
+
+		// spilled key-groups can only be snapshotted synchronously, so this trade-off must be made explicitly
+		if (isUsingHeapSpilling() && isUsingAsynchronousSnapshots()) {
+			throw new IllegalConfigurationException("Spilling heap keyed state (" +
+				CheckpointingOptions.HEAP_SPILL_ENABLED.key() + ") requires synchronous snapshots. Please set " +
+				CheckpointingOptions.ASYNC_SNAPSHOTS.key() + " to false.");
+		}
+
+		this.incrementalCheckpointing = original.incrementalCheckpointing.resolveUndefined(
+				configuration.getBoolean(CheckpointingOptions.INCREMENTAL_CHECKPOINTS));
+
+		this.incrementalMaxDeltas = original.incrementalMaxDeltas >= 0 ?
+				original.incrementalMaxDeltas :
+				configuration.getInteger(CheckpointingOptions.HEAP_INCREMENTAL_MAX_DELTAS);
+
+		this.timingWheelTimers = original.timingWheelTimers.resolveUndefined(
+				configuration.getBoolean(CheckpointingOptions.HEAP_TIMING_WHEEL_ENABLED));
+
+		this.timingWheelResolution = original.timingWheelResolution > 0L ?
+				original.timingWheelResolution :
+				configuration.getLong(CheckpointingOptions.HEAP_TIMING_WHEEL_RESOLUTION);
 	}
 
 	// ------------------------------------------------------------------------
@@ -424,6 +485,76 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 		return asynchronousSnapshots.getOrDefault(CheckpointingOptions.ASYNC_SNAPSHOTS.defaultValue());
 	}
 
+	/**
+	 * Gets whether the keyed state of cold key-groups is spilled out of the heap once the heap usage exceeds
+	 * the {@link #getHeapSpillWatermark() watermark}. Spilling requires synchronous snapshots.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#HEAP_SPILL_ENABLED}.
+	 */
+	public boolean isUsingHeapSpilling() {
+		return heapSpilling.getOrDefault(CheckpointingOptions.HEAP_SPILL_ENABLED.defaultValue());
+	}
+
+	/**
+	 * Gets the fraction of the maximum heap size above which keyed state is spilled, if spilling is enabled.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#HEAP_SPILL_WATERMARK}.
+	 */
+	public float getHeapSpillWatermark() {
+		return heapSpillWatermark >= 0f ?
+				heapSpillWatermark :
+				CheckpointingOptions.HEAP_SPILL_WATERMARK.defaultValue();
+	}
+
+	/**
+	 * Gets whether checkpoints of the keyed state only write the state that was modified since the previous
+	 * checkpoint, and refer to the previous checkpoints for the rest. Savepoints are never incremental.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#INCREMENTAL_CHECKPOINTS}.
+	 */
+	public boolean isIncrementalCheckpointsEnabled() {
+		return incrementalCheckpointing.getOrDefault(CheckpointingOptions.INCREMENTAL_CHECKPOINTS.defaultValue());
+	}
+
+	/**
+	 * Gets the maximum number of delta snapshots that an incremental checkpoint builds upon a full snapshot, if
+	 * incremental checkpoints are enabled.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#HEAP_INCREMENTAL_MAX_DELTAS}.
+	 */
+	public int getIncrementalMaxDeltas() {
+		return incrementalMaxDeltas >= 0 ?
+				incrementalMaxDeltas :
+				CheckpointingOptions.HEAP_INCREMENTAL_MAX_DELTAS.defaultValue();
+	}
+
+	/**
+	 * Gets whether the timers of the keyed state are organized as hierarchical timing wheels, which makes
+	 * registering and deleting timers take constant time.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#HEAP_TIMING_WHEEL_ENABLED}.
+	 */
+	public boolean isUsingTimingWheelTimers() {
+		return timingWheelTimers.getOrDefault(CheckpointingOptions.HEAP_TIMING_WHEEL_ENABLED.defaultValue());
+	}
+
+	/**
+	 * Gets the resolution (in milliseconds) of the timing wheels, if they are enabled.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#HEAP_TIMING_WHEEL_RESOLUTION}.
+	 */
+	public long getTimingWheelResolution() {
+		return timingWheelResolution > 0L ?
+				timingWheelResolution :
+				CheckpointingOptions.HEAP_TIMING_WHEEL_RESOLUTION.defaultValue();
+	}
+
 	// ------------------------------------------------------------------------
 	//  Reconfiguration
 	// ------------------------------------------------------------------------
@@ -473,6 +604,17 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 		HeapPriorityQueueSetFactory priorityQueueSetFactory =
 			new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128);
 
+		HeapSpillManager spillManager = null;
+		if (isUsingHeapSpilling()) {
+			try {
+				spillManager = HeapSpillManager.create(
+					env.getIOManager().getSpillingDirectories(),
+					getHeapSpillWatermark());
+			} catch (IOException e) {
+				throw new BackendBuildingException("Could not create the spill directory for the heap backend.", e);
+			}
+		}
+
 		return new HeapKeyedStateBackendBuilder<>(
 			kvStateRegistry,
 			keySerializer,
@@ -486,7 +628,14 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 			localRecoveryConfig,
 			priorityQueueSetFactory,
 			isUsingAsynchronousSnapshots(),
-			cancelStreamRegistry).build();
+			spillManager,
+			isIncrementalCheckpointsEnabled(),
+			getIncrementalMaxDeltas(),
+			cancelStreamRegistry)
+			.setTimingWheelFactory(isUsingTimingWheelTimers() ?
+				new TimingWheelPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128, getTimingWheelResolution()) :
+				null)
+			.build();
 	}
 
 	@Override
@@ -514,6 +663,9 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 				"checkpoints: '" + getCheckpointPath() +
 				"', savepoints: '" + getSavepointPath() +
 				"', asynchronous: " + asynchronousSnapshots +
-				", fileStateThreshold: " + fileStateThreshold + ")";
+				", fileStateThreshold: " + fileStateThreshold +
+				", heapSpilling: " + heapSpilling +
+				", incremental: " + incrementalCheckpointing +
+				", timingWheelTimers: " + timingWheelTimers + ")";
 	}
 }
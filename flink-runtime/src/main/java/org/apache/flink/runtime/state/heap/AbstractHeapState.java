@@ -26,6 +26,8 @@ import org.apache.flink.queryablestate.client.state.serialization.KvStateSeriali
 import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.util.Preconditions;
 
+import javax.annotation.Nullable;
+
 /**
  * Base class for partitioned {@link State} implementations that are backed by a regular
  * heap hash map. The concrete implementations define how the state is checkpointed.
@@ -117,6 +119,22 @@ public abstract class AbstractHeapState<K, N, SV> implements InternalKvState<K,
 		return stateTable;
 	}
 
+	/**
+	 * Returns a callback that reports an in-place modification of the state object of the current key and namespace
+	 * to the state table, or {@code null} if the state table does not record modifications. The callback refers to
+	 * the key and namespace at the time of this call.
+	 */
+	@Nullable
+	Runnable getModificationCallback() {
+		if (!stateTable.isRecordingModifications()) {
+			return null;
+		}
+
+		final K key = stateTable.keyContext.getCurrentKey();
+		final N namespace = currentNamespace;
+		return () -> stateTable.stateModified(key, namespace);
+	}
+
 	protected SV getDefaultValue() {
 		if (defaultValue != null) {
 			return valueSerializer.copy(defaultValue);
@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StateTable} that records which key/namespace mappings of the wrapped table are modified, so that
+ * incremental snapshots only need to write the modified mappings (see {@link HeapIncrementalSnapshotStrategy}).
+ *
+ * <p>A mapping counts as modified when it is written, removed, or transformed, or when a state reports that it
+ * modified the state object in place (see {@link #stateModified(Object)}). Reading a mapping does not count as a
+ * modification, so modifications of returned state objects outside of the state API are not part of incremental
+ * snapshots, in line with backends that serialize the state on every write. The modifications are recorded per
+ * key-group and frozen with every snapshot, until the checkpoint of the snapshot, or a later one, completes.
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+class ChangelogStateTable<K, N, S> extends StateTable<K, N, S> {
+
+	/** Marker of a change record for a mapping that was written. */
+	private static final byte MAPPING_WRITTEN = 0;
+
+	/** Marker of a change record for a mapping that was removed. */
+	private static final byte MAPPING_REMOVED = 1;
+
+	/** The table that holds the state. */
+	private final StateTable<K, N, S> delegate;
+
+	/** The offset to the contiguous key groups. */
+	private final int keyGroupOffset;
+
+	/** The mappings that were modified since the latest snapshot, by key-group and namespace. */
+	private Map<N, Set<K>>[] currentChanges;
+
+	/** The mappings that were modified before each snapshot, by the checkpoint ID of the snapshot. */
+	private final NavigableMap<Long, Map<N, Set<K>>[]> frozenChanges;
+
+	ChangelogStateTable(StateTable<K, N, S> delegate) {
+		super(delegate.keyContext, delegate.getMetaInfo(), delegate.keySerializer);
+		this.delegate = delegate;
+		this.keyGroupOffset = keyContext.getKeyGroupRange().getStartKeyGroup();
+		this.currentChanges = createChangesArray();
+		this.frozenChanges = new TreeMap<>();
+	}
+
+	// ------------------------------------------------------------------------
+	//  access to the state, recording modifications
+	// ------------------------------------------------------------------------
+
+	@Override
+	public int size() {
+		return delegate.size();
+	}
+
+	@Override
+	public S get(N namespace) {
+		return delegate.get(namespace);
+	}
+
+	@Override
+	public boolean containsKey(N namespace) {
+		return delegate.containsKey(namespace);
+	}
+
+	@Override
+	public void put(N namespace, S state) {
+		delegate.put(namespace, state);
+		recordChange(namespace);
+	}
+
+	@Override
+	public S putAndGetOld(N namespace, S state) {
+		final S oldState = delegate.putAndGetOld(namespace, state);
+		recordChange(namespace);
+		return oldState;
+	}
+
+	@Override
+	public void remove(N namespace) {
+		delegate.remove(namespace);
+		recordChange(namespace);
+	}
+
+	@Override
+	public S removeAndGetOld(N namespace) {
+		final S oldState = delegate.removeAndGetOld(namespace);
+		recordChange(namespace);
+		return oldState;
+	}
+
+	@Override
+	public <T> void transform(
+		N namespace,
+		T value,
+		StateTransformationFunction<S, T> transformation) throws Exception {
+		delegate.transform(namespace, value, transformation);
+		recordChange(namespace);
+	}
+
+	@Override
+	public S get(K key, N namespace) {
+		return delegate.get(key, namespace);
+	}
+
+	@Override
+	public Stream<K> getKeys(N namespace) {
+		return delegate.getKeys(namespace);
+	}
+
+	@Override
+	public StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(int recommendedMaxNumberOfReturnedRecords) {
+		final StateIncrementalVisitor<K, N, S> visitor =
+			delegate.getStateIncrementalVisitor(recommendedMaxNumberOfReturnedRecords);
+
+		return new StateIncrementalVisitor<K, N, S>() {
+			@Override
+			public boolean hasNext() {
+				return visitor.hasNext();
+			}
+
+			@Override
+			public Collection<StateEntry<K, N, S>> nextEntries() {
+				return visitor.nextEntries();
+			}
+
+			@Override
+			public void remove(StateEntry<K, N, S> stateEntry) {
+				visitor.remove(stateEntry);
+				recordChange(stateEntry.getKey(), stateEntry.getNamespace());
+			}
+
+			@Override
+			public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+				visitor.update(stateEntry, newValue);
+				recordChange(stateEntry.getKey(), stateEntry.getNamespace());
+			}
+		};
+	}
+
+	@Override
+	public boolean isRecordingModifications() {
+		return true;
+	}
+
+	@Override
+	public void stateModified(N namespace) {
+		recordChange(namespace);
+	}
+
+	@Override
+	public void stateModified(K key, N namespace) {
+		recordChange(key, namespace);
+	}
+
+	private void recordChange(N namespace) {
+		recordChange(keyContext.getCurrentKey(), keyContext.getCurrentKeyGroupIndex(), namespace);
+	}
+
+	private void recordChange(K key, N namespace) {
+		recordChange(key, KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups()), namespace);
+	}
+
+	private void recordChange(K key, int keyGroup, N namespace) {
+		final int pos = keyGroup - keyGroupOffset;
+		Map<N, Set<K>> changesInKeyGroup = currentChanges[pos];
+		if (changesInKeyGroup == null) {
+			changesInKeyGroup = new HashMap<>();
+			currentChanges[pos] = changesInKeyGroup;
+		}
+		changesInKeyGroup.computeIfAbsent(namespace, n -> new HashSet<>()).add(key);
+	}
+
+	// ------------------------------------------------------------------------
+	//  meta data, delegated to the wrapped table
+	// ------------------------------------------------------------------------
+
+	@Override
+	public TypeSerializer<S> getStateSerializer() {
+		return delegate.getStateSerializer();
+	}
+
+	@Override
+	public TypeSerializer<N> getNamespaceSerializer() {
+		return delegate.getNamespaceSerializer();
+	}
+
+	@Override
+	public RegisteredKeyValueStateBackendMetaInfo<N, S> getMetaInfo() {
+		return delegate.getMetaInfo();
+	}
+
+	@Override
+	public void setMetaInfo(RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo) {
+		delegate.setMetaInfo(metaInfo);
+	}
+
+	// ------------------------------------------------------------------------
+	//  snapshot / restore
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void put(K key, int keyGroup, N namespace, S state) {
+		delegate.put(key, keyGroup, namespace, state);
+	}
+
+	@Override
+	public void remove(K key, int keyGroup, N namespace) {
+		delegate.remove(key, keyGroup, namespace);
+	}
+
+	@Override
+	public int sizeOfNamespace(Object namespace) {
+		return delegate.sizeOfNamespace(namespace);
+	}
+
+	@Nonnull
+	@Override
+	public StateSnapshot stateSnapshot() {
+		return delegate.stateSnapshot();
+	}
+
+	/**
+	 * Freezes the modifications that were recorded since the previous snapshot, and assigns them to the given
+	 * checkpoint.
+	 */
+	void freezeChanges(long checkpointId) {
+		frozenChanges.put(checkpointId, currentChanges);
+		currentChanges = createChangesArray();
+	}
+
+	/**
+	 * Returns whether the mapping for the given key and namespace was modified since the latest snapshot.
+	 */
+	@VisibleForTesting
+	boolean isModifiedSinceLastSnapshot(K key, N namespace) {
+		final int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups());
+		final Map<N, Set<K>> changesInKeyGroup = currentChanges[keyGroup - keyGroupOffset];
+		return changesInKeyGroup != null &&
+			changesInKeyGroup.getOrDefault(namespace, Collections.emptySet()).contains(key);
+	}
+
+	/**
+	 * Drops the modifications up to the given checkpoint, which are no longer needed for incremental snapshots.
+	 */
+	void discardChangesUpTo(long checkpointId) {
+		frozenChanges.headMap(checkpointId, true).clear();
+	}
+
+	/**
+	 * Creates a snapshot of the mappings that were modified after the given checkpoint, up to the latest frozen
+	 * modifications. The current state of the modified mappings is serialized right away, so this must be called
+	 * in the synchronous part of the snapshot.
+	 */
+	StateSnapshot changesSnapshot(long afterCheckpointId) throws IOException {
+		final Collection<Map<N, Set<K>>[]> changes = frozenChanges.tailMap(afterCheckpointId, false).values();
+
+		final TypeSerializer<N> namespaceSerializer = getNamespaceSerializer();
+		final TypeSerializer<S> stateSerializer = getStateSerializer();
+		final StateSnapshotTransformer<S> snapshotFilter =
+			getMetaInfo().getStateSnapshotTransformFactory().createForDeserializedState().orElse(null);
+
+		final byte[][] serializedChanges = new byte[currentChanges.length][];
+		final DataOutputSerializer out = new DataOutputSerializer(128);
+
+		for (int pos = 0; pos < serializedChanges.length; ++pos) {
+			final Map<N, Set<K>> changesInKeyGroup = mergeChangesInKeyGroup(changes, pos);
+			if (changesInKeyGroup == null) {
+				continue;
+			}
+
+			int numChanges = 0;
+			for (Set<K> keys : changesInKeyGroup.values()) {
+				numChanges += keys.size();
+			}
+
+			out.clear();
+			out.writeInt(numChanges);
+			for (Map.Entry<N, Set<K>> namespaceEntry : changesInKeyGroup.entrySet()) {
+				final N namespace = namespaceEntry.getKey();
+				for (K key : namespaceEntry.getValue()) {
+					S state = delegate.get(key, namespace);
+					if (state != null && snapshotFilter != null) {
+						state = snapshotFilter.filterOrTransform(state);
+					}
+
+					if (state != null) {
+						out.writeByte(MAPPING_WRITTEN);
+						namespaceSerializer.serialize(namespace, out);
+						keySerializer.serialize(key, out);
+						stateSerializer.serialize(state, out);
+					} else {
+						out.writeByte(MAPPING_REMOVED);
+						namespaceSerializer.serialize(namespace, out);
+						keySerializer.serialize(key, out);
+					}
+				}
+			}
+			serializedChanges[pos] = out.getCopyOfBuffer();
+		}
+
+		return new ChangesSnapshot(getMetaInfo().snapshot(), serializedChanges, keyGroupOffset);
+	}
+
+	@Nullable
+	private Map<N, Set<K>> mergeChangesInKeyGroup(Collection<Map<N, Set<K>>[]> changes, int pos) {
+		Map<N, Set<K>> merged = null;
+		boolean copied = false;
+		for (Map<N, Set<K>>[] changesArray : changes) {
+			final Map<N, Set<K>> changesInKeyGroup = changesArray[pos];
+			if (changesInKeyGroup == null) {
+				continue;
+			}
+
+			if (merged == null) {
+				merged = changesInKeyGroup;
+			} else {
+				if (!copied) {
+					final Map<N, Set<K>> copy = new HashMap<>();
+					for (Map.Entry<N, Set<K>> entry : merged.entrySet()) {
+						copy.put(entry.getKey(), new HashSet<>(entry.getValue()));
+					}
+					merged = copy;
+					copied = true;
+				}
+				for (Map.Entry<N, Set<K>> entry : changesInKeyGroup.entrySet()) {
+					merged.computeIfAbsent(entry.getKey(), n -> new HashSet<>()).addAll(entry.getValue());
+				}
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Creates a reader that applies the change records of a snapshot created by
+	 * {@link #changesSnapshot(long)} to the given table. The records are read with the serializers of the meta info
+	 * that was written with the snapshot, which may differ from the serializers of the table.
+	 */
+	static <K, N, S> StateSnapshotKeyGroupReader changesReader(
+		StateTable<K, N, S> stateTable,
+		RegisteredKeyValueStateBackendMetaInfo<N, S> writtenMetaInfo) {
+
+		final TypeSerializer<K> keySerializer = stateTable.keySerializer;
+		final TypeSerializer<N> namespaceSerializer = writtenMetaInfo.getNamespaceSerializer();
+		final TypeSerializer<S> stateSerializer = writtenMetaInfo.getStateSerializer();
+
+		return (DataInputView in, int keyGroupId) -> {
+
+			final int numChanges = in.readInt();
+			for (int i = 0; i < numChanges; ++i) {
+				final byte type = in.readByte();
+				final N namespace = namespaceSerializer.deserialize(in);
+				final K key = keySerializer.deserialize(in);
+				if (type == MAPPING_WRITTEN) {
+					stateTable.put(key, keyGroupId, namespace, stateSerializer.deserialize(in));
+				} else if (type == MAPPING_REMOVED) {
+					stateTable.remove(key, keyGroupId, namespace);
+				} else {
+					throw new IOException("Unknown change record type: " + type);
+				}
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<N, Set<K>>[] createChangesArray() {
+		return (Map<N, Set<K>>[]) new Map[keyContext.getKeyGroupRange().getNumberOfKeyGroups()];
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The serialized modifications of a state table.
+	 */
+	private static final class ChangesSnapshot implements StateSnapshot, StateSnapshot.StateKeyGroupWriter {
+
+		private final StateMetaInfoSnapshot metaInfoSnapshot;
+		private final byte[][] serializedChanges;
+		private final int keyGroupOffset;
+
+		ChangesSnapshot(StateMetaInfoSnapshot metaInfoSnapshot, byte[][] serializedChanges, int keyGroupOffset) {
+			this.metaInfoSnapshot = metaInfoSnapshot;
+			this.serializedChanges = serializedChanges;
+			this.keyGroupOffset = keyGroupOffset;
+		}
+
+		@Nonnull
+		@Override
+		public StateKeyGroupWriter getKeyGroupWriter() {
+			return this;
+		}
+
+		@Nonnull
+		@Override
+		public StateMetaInfoSnapshot getMetaInfoSnapshot() {
+			return metaInfoSnapshot;
+		}
+
+		@Override
+		public void release() {
+		}
+
+		@Override
+		public void writeStateInKeyGroup(@Nonnull DataOutputView dov, int keyGroupId) throws IOException {
+			final byte[] changes = serializedChanges[keyGroupId - keyGroupOffset];
+			if (changes != null) {
+				dov.write(changes);
+			} else {
+				dov.writeInt(0);
+			}
+		}
+	}
+}
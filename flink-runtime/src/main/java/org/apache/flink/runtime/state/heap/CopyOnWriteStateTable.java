@@ -325,6 +325,11 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 		put(key, namespace, state);
 	}
 
+	@Override
+	public void remove(K key, int keyGroup, N namespace) {
+		remove(key, namespace);
+	}
+
 	@Override
 	public S get(N namespace) {
 		return get(keyContext.getCurrentKey(), namespace);
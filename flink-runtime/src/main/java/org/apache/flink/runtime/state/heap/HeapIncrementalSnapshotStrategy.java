@@ -0,0 +1,504 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.AsyncSnapshotCallable;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointStreamWithResultProvider;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.HeapIncrementalKeyedStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.PlaceholderStreamStateHandle;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateSerializerProvider;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * Snapshot strategy of the heap backend that writes incremental checkpoints.
+ *
+ * <p>An incremental checkpoint consists of a chain of pieces: a full snapshot of all states (the base), followed
+ * by delta snapshots that each contain the key/namespace mappings that were modified since the previous piece. The
+ * modifications are recorded by {@link ChangelogStateTable}s. Each checkpoint only writes one new piece and refers
+ * to the pieces of the latest completed checkpoint via the {@link org.apache.flink.runtime.state.SharedStateRegistry}.
+ * A new base is written when the chain reaches the maximum number of deltas, or when the deltas are larger than the
+ * base. Priority queue states (timers) are contained in full in every piece, and only restored from the last piece.
+ *
+ * <p>Savepoints are always written as full snapshots by the {@link HeapSnapshotStrategy}.
+ */
+class HeapIncrementalSnapshotStrategy<K> extends HeapSnapshotStrategy<K> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HeapIncrementalSnapshotStrategy.class);
+
+	/** Magic number at the beginning of the meta data of an incremental snapshot. */
+	private static final int META_DATA_MAGIC_NUMBER = 0x48494e43;
+
+	/** The maximum number of pending snapshots for which the strategy waits for the checkpoint to complete. */
+	private static final int MAX_PENDING_SNAPSHOTS = 32;
+
+	private static final String BASE_PIECE_PREFIX = "base-";
+
+	private static final String DELTA_PIECE_PREFIX = "delta-";
+
+	/** The maximum number of delta pieces in a chain. */
+	private final int maxDeltas;
+
+	/** Lock for the snapshot chains, which are materialized by the asynchronous part of the snapshot. */
+	private final Object lock = new Object();
+
+	/** The snapshots whose checkpoints did not complete yet, by checkpoint ID. */
+	@GuardedBy("lock")
+	private final TreeMap<Long, SnapshotChain> pendingSnapshots;
+
+	/** The snapshot of the latest completed checkpoint, which the next snapshot builds upon. */
+	@GuardedBy("lock")
+	@Nullable
+	private SnapshotChain lastCompletedSnapshot;
+
+	/** Identifies the pieces written by this backend in the shared state registry. */
+	private UUID backendUID;
+
+	HeapIncrementalSnapshotStrategy(
+		SnapshotStrategySynchronicityBehavior<K> snapshotStrategySynchronicityTrait,
+		Map<String, StateTable<K, ?, ?>> registeredKVStates,
+		Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates,
+		StreamCompressionDecorator keyGroupCompressionDecorator,
+		LocalRecoveryConfig localRecoveryConfig,
+		KeyGroupRange keyGroupRange,
+		CloseableRegistry cancelStreamRegistry,
+		StateSerializerProvider<K> keySerializerProvider,
+		int maxDeltas) {
+		super(
+			snapshotStrategySynchronicityTrait,
+			registeredKVStates,
+			registeredPQStates,
+			keyGroupCompressionDecorator,
+			localRecoveryConfig,
+			keyGroupRange,
+			cancelStreamRegistry,
+			keySerializerProvider);
+		Preconditions.checkArgument(maxDeltas >= 0, "The maximum number of deltas must not be negative.");
+		this.maxDeltas = maxDeltas;
+		this.pendingSnapshots = new TreeMap<>();
+		this.backendUID = UUID.randomUUID();
+	}
+
+	@Nonnull
+	@Override
+	public RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot(
+		long checkpointId,
+		long timestamp,
+		@Nonnull CheckpointStreamFactory primaryStreamFactory,
+		@Nonnull CheckpointOptions checkpointOptions) throws IOException {
+
+		if (checkpointOptions.getCheckpointType().isSavepoint() || !hasRegisteredState()) {
+			return super.snapshot(checkpointId, timestamp, primaryStreamFactory, checkpointOptions);
+		}
+
+		int numStates = registeredKVStates.size() + registeredPQStates.size();
+
+		Preconditions.checkState(numStates <= Short.MAX_VALUE,
+			"Too many states: " + numStates +
+				". Currently at most " + Short.MAX_VALUE + " states are supported");
+
+		final SnapshotChain previousSnapshot;
+		synchronized (lock) {
+			while (pendingSnapshots.size() >= MAX_PENDING_SNAPSHOTS) {
+				// the checkpoint is unlikely to complete, drop the changes that were only kept for it
+				final long droppedCheckpointId = pendingSnapshots.pollFirstEntry().getKey();
+				discardChangesUpTo(droppedCheckpointId);
+				if (lastCompletedSnapshot != null && lastCompletedSnapshot.checkpointId < droppedCheckpointId) {
+					lastCompletedSnapshot = null;
+				}
+			}
+
+			previousSnapshot = lastCompletedSnapshot != null && lastCompletedSnapshot.canAppendDelta(maxDeltas) ?
+				lastCompletedSnapshot :
+				null;
+			pendingSnapshots.put(checkpointId, new SnapshotChain(checkpointId));
+		}
+
+		for (StateTable<K, ?, ?> stateTable : registeredKVStates.values()) {
+			((ChangelogStateTable<K, ?, ?>) stateTable).freezeChanges(checkpointId);
+		}
+
+		final boolean isDelta = previousSnapshot != null;
+
+		final List<StateMetaInfoSnapshot> metaInfoSnapshots = new ArrayList<>(numStates);
+		final Map<StateUID, Integer> stateNamesToId = new HashMap<>(numStates);
+		final Map<StateUID, StateSnapshot> stateSnapshots = new HashMap<>(numStates);
+
+		if (isDelta) {
+			for (Map.Entry<String, StateTable<K, ?, ?>> kvState : registeredKVStates.entrySet()) {
+				final StateUID stateUid = StateUID.of(kvState.getKey(), StateMetaInfoSnapshot.BackendStateType.KEY_VALUE);
+				stateNamesToId.put(stateUid, stateNamesToId.size());
+				final StateSnapshot stateSnapshot =
+					((ChangelogStateTable<K, ?, ?>) kvState.getValue()).changesSnapshot(previousSnapshot.checkpointId);
+				metaInfoSnapshots.add(stateSnapshot.getMetaInfoSnapshot());
+				stateSnapshots.put(stateUid, stateSnapshot);
+			}
+		} else {
+			processSnapshotMetaInfoForAllStates(
+				metaInfoSnapshots,
+				stateSnapshots,
+				stateNamesToId,
+				registeredKVStates,
+				StateMetaInfoSnapshot.BackendStateType.KEY_VALUE);
+		}
+
+		processSnapshotMetaInfoForAllStates(
+			metaInfoSnapshots,
+			stateSnapshots,
+			stateNamesToId,
+			registeredPQStates,
+			StateMetaInfoSnapshot.BackendStateType.PRIORITY_QUEUE);
+
+		final KeyedBackendSerializationProxy<K> serializationProxy = createSerializationProxy(metaInfoSnapshots);
+
+		final StateHandleID pieceId = new StateHandleID((isDelta ? DELTA_PIECE_PREFIX : BASE_PIECE_PREFIX) + checkpointId);
+		final List<SnapshotPiece> previousPieces = isDelta ? previousSnapshot.pieces : Collections.emptyList();
+		final UUID snapshotBackendUID = backendUID;
+
+		//--------------------------------------------------- this becomes the end of sync part
+
+		final AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>> asyncSnapshotCallable =
+			new AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>>() {
+
+				private long[] pieceOffsets;
+
+				@Override
+				protected SnapshotResult<KeyedStateHandle> callInternal() throws Exception {
+
+					final StreamStateHandle pieceHandle = materializePiece();
+					boolean completed = false;
+
+					try {
+						final List<SnapshotPiece> pieces = new ArrayList<>(previousPieces.size() + 1);
+						pieces.addAll(previousPieces);
+						pieces.add(new SnapshotPiece(pieceId, isDelta, pieceOffsets, pieceHandle.getStateSize()));
+
+						final StreamStateHandle metaStateHandle = materializeMetaData(pieces);
+
+						final Map<StateHandleID, StreamStateHandle> sharedState = new HashMap<>(pieces.size());
+						for (SnapshotPiece previousPiece : previousPieces) {
+							// the piece was registered by the latest completed checkpoint
+							sharedState.put(previousPiece.id, new PlaceholderStreamStateHandle());
+						}
+						sharedState.put(pieceId, pieceHandle);
+
+						final HeapIncrementalKeyedStateHandle stateHandle = new HeapIncrementalKeyedStateHandle(
+							snapshotBackendUID,
+							keyGroupRange,
+							checkpointId,
+							sharedState,
+							Collections.emptyMap(),
+							metaStateHandle);
+
+						synchronized (lock) {
+							final SnapshotChain pendingSnapshot = pendingSnapshots.get(checkpointId);
+							if (pendingSnapshot != null) {
+								pendingSnapshot.materialize(pieces);
+							}
+						}
+
+						completed = true;
+						return SnapshotResult.of(stateHandle);
+					} finally {
+						if (!completed) {
+							try {
+								pieceHandle.discardState();
+							} catch (Exception e) {
+								LOG.warn("Could not discard piece {} of the failed snapshot.", pieceId, e);
+							}
+						}
+					}
+				}
+
+				private StreamStateHandle materializePiece() throws Exception {
+					final CheckpointStreamWithResultProvider streamWithResultProvider =
+						CheckpointStreamWithResultProvider.createSimpleStream(
+							CheckpointedStateScope.SHARED,
+							primaryStreamFactory);
+
+					snapshotCloseableRegistry.registerCloseable(streamWithResultProvider);
+
+					pieceOffsets = writeSnapshot(
+						streamWithResultProvider.getCheckpointOutputStream(),
+						serializationProxy,
+						stateSnapshots,
+						stateNamesToId);
+
+					if (snapshotCloseableRegistry.unregisterCloseable(streamWithResultProvider)) {
+						return streamWithResultProvider.closeAndFinalizeCheckpointStreamResult().getJobManagerOwnedSnapshot();
+					} else {
+						throw new IOException("Stream already unregistered.");
+					}
+				}
+
+				private StreamStateHandle materializeMetaData(List<SnapshotPiece> pieces) throws Exception {
+					final CheckpointStreamWithResultProvider streamWithResultProvider =
+						CheckpointStreamWithResultProvider.createSimpleStream(
+							CheckpointedStateScope.EXCLUSIVE,
+							primaryStreamFactory);
+
+					snapshotCloseableRegistry.registerCloseable(streamWithResultProvider);
+
+					writeMetaData(
+						new DataOutputViewStreamWrapper(streamWithResultProvider.getCheckpointOutputStream()),
+						pieces);
+
+					if (snapshotCloseableRegistry.unregisterCloseable(streamWithResultProvider)) {
+						return streamWithResultProvider.closeAndFinalizeCheckpointStreamResult().getJobManagerOwnedSnapshot();
+					} else {
+						throw new IOException("Stream already unregistered.");
+					}
+				}
+
+				@Override
+				protected void cleanupProvidedResources() {
+					for (StateSnapshot stateSnapshot : stateSnapshots.values()) {
+						stateSnapshot.release();
+					}
+				}
+
+				@Override
+				protected void logAsyncSnapshotComplete(long startTime) {
+					if (isAsynchronous()) {
+						logAsyncCompleted(primaryStreamFactory, startTime);
+					}
+				}
+			};
+
+		final FutureTask<SnapshotResult<KeyedStateHandle>> task =
+			asyncSnapshotCallable.toAsyncSnapshotFutureTask(cancelStreamRegistry);
+		finalizeSnapshotBeforeReturnHook(task);
+
+		LOG.debug("Writing piece {} of the incremental snapshot of checkpoint {}.", pieceId, checkpointId);
+
+		return task;
+	}
+
+	@Override
+	public <N, V> StateTable<K, N, V> newStateTable(
+		InternalKeyContext<K> keyContext,
+		RegisteredKeyValueStateBackendMetaInfo<N, V> newMetaInfo,
+		TypeSerializer<K> keySerializer) {
+		return new ChangelogStateTable<>(super.newStateTable(keyContext, newMetaInfo, keySerializer));
+	}
+
+	@Override
+	void notifyCheckpointComplete(long checkpointId) {
+		synchronized (lock) {
+			final SnapshotChain completedSnapshot = pendingSnapshots.get(checkpointId);
+			if (completedSnapshot == null || !completedSnapshot.isMaterialized()) {
+				return;
+			}
+
+			lastCompletedSnapshot = completedSnapshot;
+			pendingSnapshots.headMap(checkpointId, true).clear();
+		}
+
+		discardChangesUpTo(checkpointId);
+	}
+
+	@Override
+	void notifyRestoredIncrementalSnapshot(
+		HeapIncrementalKeyedStateHandle restoredHandle,
+		List<SnapshotPiece> restoredPieces) {
+
+		final SnapshotChain restoredSnapshot = new SnapshotChain(restoredHandle.getCheckpointId());
+		restoredSnapshot.materialize(restoredPieces);
+
+		synchronized (lock) {
+			lastCompletedSnapshot = restoredSnapshot;
+		}
+		backendUID = restoredHandle.getBackendIdentifier();
+	}
+
+	private void discardChangesUpTo(long checkpointId) {
+		for (StateTable<K, ?, ?> stateTable : registeredKVStates.values()) {
+			((ChangelogStateTable<K, ?, ?>) stateTable).discardChangesUpTo(checkpointId);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  meta data of the incremental snapshots
+	// ------------------------------------------------------------------------
+
+	private static void writeMetaData(DataOutputView out, List<SnapshotPiece> pieces) throws IOException {
+		out.writeInt(META_DATA_MAGIC_NUMBER);
+		out.writeInt(pieces.size());
+		for (SnapshotPiece piece : pieces) {
+			out.writeUTF(piece.id.getKeyString());
+			out.writeBoolean(piece.isDelta);
+			out.writeInt(piece.keyGroupOffsets.length);
+			for (long offset : piece.keyGroupOffsets) {
+				out.writeLong(offset);
+			}
+		}
+	}
+
+	/**
+	 * Reads the pieces of an incremental snapshot from its meta data.
+	 *
+	 * @param in the stream of the meta state handle of the snapshot.
+	 * @param sharedState the shared state of the snapshot, which contains the handles of the pieces.
+	 */
+	static List<SnapshotPiece> readMetaData(
+		DataInputView in,
+		Map<StateHandleID, StreamStateHandle> sharedState) throws IOException {
+
+		final int magicNumber = in.readInt();
+		if (magicNumber != META_DATA_MAGIC_NUMBER) {
+			throw new IOException("Unexpected magic number of the incremental heap snapshot: " + magicNumber + '.');
+		}
+
+		final int numPieces = in.readInt();
+		final List<SnapshotPiece> pieces = new ArrayList<>(numPieces);
+		for (int i = 0; i < numPieces; ++i) {
+			final StateHandleID id = new StateHandleID(in.readUTF());
+			final boolean isDelta = in.readBoolean();
+			final long[] keyGroupOffsets = new long[in.readInt()];
+			for (int j = 0; j < keyGroupOffsets.length; ++j) {
+				keyGroupOffsets[j] = in.readLong();
+			}
+
+			final StreamStateHandle pieceHandle = sharedState.get(id);
+			if (pieceHandle == null) {
+				throw new IOException("Missing piece " + id + " of the incremental heap snapshot.");
+			}
+			pieces.add(new SnapshotPiece(id, isDelta, keyGroupOffsets, pieceHandle.getStateSize()));
+		}
+		return pieces;
+	}
+
+	@VisibleForTesting
+	@Nullable
+	SnapshotChain getLastCompletedSnapshot() {
+		synchronized (lock) {
+			return lastCompletedSnapshot;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A full or delta snapshot of all states, which is one piece of an incremental snapshot.
+	 */
+	static final class SnapshotPiece {
+
+		/** The ID of the piece in the shared state of the incremental snapshot. */
+		final StateHandleID id;
+
+		/** Whether the piece only contains the modifications since the previous piece. */
+		final boolean isDelta;
+
+		/** The offsets of the key-groups in the piece. */
+		final long[] keyGroupOffsets;
+
+		/** The size of the piece in bytes. */
+		final long stateSize;
+
+		SnapshotPiece(StateHandleID id, boolean isDelta, long[] keyGroupOffsets, long stateSize) {
+			this.id = id;
+			this.isDelta = isDelta;
+			this.keyGroupOffsets = keyGroupOffsets;
+			this.stateSize = stateSize;
+		}
+	}
+
+	/**
+	 * The chain of pieces of the incremental snapshot for one checkpoint. The pieces are known once the
+	 * asynchronous part of the snapshot finished.
+	 */
+	static final class SnapshotChain {
+
+		final long checkpointId;
+
+		@Nullable
+		private volatile List<SnapshotPiece> pieces;
+
+		SnapshotChain(long checkpointId) {
+			this.checkpointId = checkpointId;
+		}
+
+		void materialize(List<SnapshotPiece> pieces) {
+			Preconditions.checkArgument(!pieces.isEmpty() && !pieces.get(0).isDelta,
+				"The first piece of a snapshot must be a base.");
+			this.pieces = Collections.unmodifiableList(new ArrayList<>(pieces));
+		}
+
+		boolean isMaterialized() {
+			return pieces != null;
+		}
+
+		int getNumberOfDeltas() {
+			return pieces.size() - 1;
+		}
+
+		/**
+		 * Whether the next snapshot can add a delta to this chain, rather than write a new base.
+		 */
+		boolean canAppendDelta(int maxDeltas) {
+			long baseSize = 0L;
+			long deltaSize = 0L;
+			for (SnapshotPiece piece : pieces) {
+				if (piece.isDelta) {
+					deltaSize += piece.stateSize;
+				} else {
+					baseSize += piece.stateSize;
+				}
+			}
+			return getNumberOfDeltas() < maxDeltas && deltaSize <= baseSize;
+		}
+	}
+}
@@ -25,6 +25,7 @@ import org.apache.flink.api.common.state.FoldingStateDescriptor;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
@@ -50,7 +51,9 @@ import org.apache.flink.runtime.state.StateSnapshotRestore;
 import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
 import org.apache.flink.runtime.state.StateSnapshotTransformers;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.Timestamped;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.CloseableIterator;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.StateMigrationException;
 
@@ -58,6 +61,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.util.List;
@@ -81,6 +85,7 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			Tuple2.of(ValueStateDescriptor.class, (StateFactory) HeapValueState::create),
 			Tuple2.of(ListStateDescriptor.class, (StateFactory) HeapListState::create),
 			Tuple2.of(MapStateDescriptor.class, (StateFactory) HeapMapState::create),
+			Tuple2.of(SortedMapStateDescriptor.class, (StateFactory) HeapSortedMapState::create),
 			Tuple2.of(AggregatingStateDescriptor.class, (StateFactory) HeapAggregatingState::create),
 			Tuple2.of(ReducingStateDescriptor.class, (StateFactory) HeapReducingState::create),
 			Tuple2.of(FoldingStateDescriptor.class, (StateFactory) HeapFoldingState::create)
@@ -111,6 +116,19 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 */
 	private final HeapPriorityQueueSetFactory priorityQueueSetFactory;
 
+	/**
+	 * Factory for the priority queues of timers if they are organized as timing wheels, or null if timers use the
+	 * {@link #priorityQueueSetFactory}.
+	 */
+	@Nullable
+	private final TimingWheelPriorityQueueSetFactory timingWheelFactory;
+
+	/**
+	 * The manager for spilling cold key-groups out of the heap, or null if spilling is disabled.
+	 */
+	@Nullable
+	private final HeapSpillManager spillManager;
+
 	public HeapKeyedStateBackend(
 		TaskKvStateRegistry kvStateRegistry,
 		TypeSerializer<K> keySerializer,
@@ -124,7 +142,9 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		LocalRecoveryConfig localRecoveryConfig,
 		HeapPriorityQueueSetFactory priorityQueueSetFactory,
 		HeapSnapshotStrategy<K> snapshotStrategy,
-		InternalKeyContext<K> keyContext) {
+		InternalKeyContext<K> keyContext,
+		@Nullable HeapSpillManager spillManager,
+		@Nullable TimingWheelPriorityQueueSetFactory timingWheelFactory) {
 		super(
 			kvStateRegistry,
 			keySerializer,
@@ -140,6 +160,8 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		LOG.info("Initializing heap keyed state backend with stream factory.");
 		this.priorityQueueSetFactory = priorityQueueSetFactory;
 		this.snapshotStrategy = snapshotStrategy;
+		this.spillManager = spillManager;
+		this.timingWheelFactory = timingWheelFactory;
 	}
 
 	// ------------------------------------------------------------------------
@@ -179,14 +201,59 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	@Nonnull
+	@Override
+	public <T extends HeapPriorityQueueElement & PriorityComparable & Keyed & Timestamped>
+	KeyGroupedInternalPriorityQueue<T> createTimerQueue(
+		@Nonnull String stateName,
+		@Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
+
+		if (timingWheelFactory == null) {
+			return create(stateName, byteOrderedElementSerializer);
+		}
+
+		final HeapPriorityQueueSnapshotRestoreWrapper<T> existingState = registeredPQStates.get(stateName);
+
+		if (existingState == null) {
+			final RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo =
+				new RegisteredPriorityQueueStateBackendMetaInfo<>(stateName, byteOrderedElementSerializer);
+			return registerPriorityQueue(metaInfo, timingWheelFactory.create(stateName, byteOrderedElementSerializer));
+		} else if (existingState.getPriorityQueue() instanceof HeapPriorityQueueSet) {
+			// the snapshot format does not depend on the queue implementation, so restored timers are always
+			// restored into a heap set first and moved into the timing wheel once
+			final KeyGroupedInternalPriorityQueue<T> restoredQueue = create(stateName, byteOrderedElementSerializer);
+			final KeyGroupedInternalPriorityQueue<T> timingWheel =
+				timingWheelFactory.create(stateName, byteOrderedElementSerializer);
+
+			try (CloseableIterator<T> iterator = restoredQueue.iterator()) {
+				while (iterator.hasNext()) {
+					timingWheel.add(iterator.next());
+				}
+			} catch (Exception e) {
+				throw new FlinkRuntimeException("Could not move the restored timers into the timing wheel.", e);
+			}
+
+			final HeapPriorityQueueSnapshotRestoreWrapper<T> updatedState = registeredPQStates.get(stateName);
+			return registerPriorityQueue(updatedState.getMetaInfo(), timingWheel);
+		} else {
+			return create(stateName, byteOrderedElementSerializer);
+		}
+	}
+
 	@Nonnull
 	private <T extends HeapPriorityQueueElement & PriorityComparable & Keyed> KeyGroupedInternalPriorityQueue<T> createInternal(
 		RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo) {
 
-		final String stateName = metaInfo.getName();
-		final HeapPriorityQueueSet<T> priorityQueue = priorityQueueSetFactory.create(
-			stateName,
-			metaInfo.getElementSerializer());
+		return registerPriorityQueue(
+			metaInfo,
+			priorityQueueSetFactory.create(metaInfo.getName(), metaInfo.getElementSerializer()));
+	}
+
+	@Nonnull
+	private <T extends HeapPriorityQueueElement & PriorityComparable & Keyed> KeyGroupedInternalPriorityQueue<T> registerPriorityQueue(
+		RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo,
+		KeyGroupedInternalPriorityQueue<T> priorityQueue) {
 
 		HeapPriorityQueueSnapshotRestoreWrapper<T> wrapper =
 			new HeapPriorityQueueSnapshotRestoreWrapper<>(
@@ -196,7 +263,7 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 				keyGroupRange,
 				numberOfKeyGroups);
 
-		registeredPQStates.put(stateName, wrapper);
+		registeredPQStates.put(metaInfo.getName(), wrapper);
 		return priorityQueue;
 	}
 
@@ -308,7 +375,7 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 	@Override
 	public void notifyCheckpointComplete(long checkpointId) {
-		//Nothing to do
+		snapshotStrategy.notifyCheckpointComplete(checkpointId);
 	}
 
 	@Override
@@ -336,6 +403,15 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
+	@Override
+	public void dispose() {
+		super.dispose();
+
+		if (spillManager != null) {
+			spillManager.close();
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "HeapKeyedStateBackend";
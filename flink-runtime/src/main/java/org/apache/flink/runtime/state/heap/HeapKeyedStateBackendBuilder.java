@@ -29,8 +29,11 @@ import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.LocalRecoveryConfig;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -53,8 +56,60 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 	 * Whether asynchronous snapshot is enabled.
 	 */
 	private final boolean asynchronousSnapshots;
+	/**
+	 * The manager for spilling cold key-groups out of the heap, or null if spilling is disabled.
+	 */
+	@Nullable
+	private final HeapSpillManager spillManager;
+	/**
+	 * Whether checkpoints only write the state that was modified since the previous checkpoint.
+	 */
+	private final boolean incrementalCheckpoints;
+	/**
+	 * The maximum number of delta snapshots of an incremental checkpoint.
+	 */
+	private final int incrementalMaxDeltas;
+	/**
+	 * Factory for the priority queues of timers if they are organized as timing wheels, or null if disabled.
+	 */
+	@Nullable
+	private TimingWheelPriorityQueueSetFactory timingWheelFactory;
 
+	public HeapKeyedStateBackendBuilder(
+		TaskKvStateRegistry kvStateRegistry,
+		TypeSerializer<K> keySerializer,
+		ClassLoader userCodeClassLoader,
+		int numberOfKeyGroups,
+		KeyGroupRange keyGroupRange,
+		ExecutionConfig executionConfig,
+		TtlTimeProvider ttlTimeProvider,
+		@Nonnull Collection<KeyedStateHandle> stateHandles,
+		StreamCompressionDecorator keyGroupCompressionDecorator,
+		LocalRecoveryConfig localRecoveryConfig,
+		HeapPriorityQueueSetFactory priorityQueueSetFactory,
+		boolean asynchronousSnapshots,
+		CloseableRegistry cancelStreamRegistry) {
+		this(
+			kvStateRegistry,
+			keySerializer,
+			userCodeClassLoader,
+			numberOfKeyGroups,
+			keyGroupRange,
+			executionConfig,
+			ttlTimeProvider,
+			stateHandles,
+			keyGroupCompressionDecorator,
+			localRecoveryConfig,
+			priorityQueueSetFactory,
+			asynchronousSnapshots,
+			null,
+			cancelStreamRegistry);
+	}
 
+	/**
+	 * Creates a builder for a backend that spills cold key-groups out of the heap with the given spill manager, if it
+	 * is not null. Backends that spill require synchronous snapshots.
+	 */
 	public HeapKeyedStateBackendBuilder(
 		TaskKvStateRegistry kvStateRegistry,
 		TypeSerializer<K> keySerializer,
@@ -68,6 +123,47 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 		LocalRecoveryConfig localRecoveryConfig,
 		HeapPriorityQueueSetFactory priorityQueueSetFactory,
 		boolean asynchronousSnapshots,
+		@Nullable HeapSpillManager spillManager,
+		CloseableRegistry cancelStreamRegistry) {
+		this(
+			kvStateRegistry,
+			keySerializer,
+			userCodeClassLoader,
+			numberOfKeyGroups,
+			keyGroupRange,
+			executionConfig,
+			ttlTimeProvider,
+			stateHandles,
+			keyGroupCompressionDecorator,
+			localRecoveryConfig,
+			priorityQueueSetFactory,
+			asynchronousSnapshots,
+			spillManager,
+			false,
+			0,
+			cancelStreamRegistry);
+	}
+
+	/**
+	 * Creates a builder for a backend that spills cold key-groups with the given spill manager, if it is not null,
+	 * and that writes incremental checkpoints with at most the given number of delta snapshots, if enabled.
+	 */
+	public HeapKeyedStateBackendBuilder(
+		TaskKvStateRegistry kvStateRegistry,
+		TypeSerializer<K> keySerializer,
+		ClassLoader userCodeClassLoader,
+		int numberOfKeyGroups,
+		KeyGroupRange keyGroupRange,
+		ExecutionConfig executionConfig,
+		TtlTimeProvider ttlTimeProvider,
+		@Nonnull Collection<KeyedStateHandle> stateHandles,
+		StreamCompressionDecorator keyGroupCompressionDecorator,
+		LocalRecoveryConfig localRecoveryConfig,
+		HeapPriorityQueueSetFactory priorityQueueSetFactory,
+		boolean asynchronousSnapshots,
+		@Nullable HeapSpillManager spillManager,
+		boolean incrementalCheckpoints,
+		int incrementalMaxDeltas,
 		CloseableRegistry cancelStreamRegistry) {
 		super(
 			kvStateRegistry,
@@ -82,7 +178,22 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 			cancelStreamRegistry);
 		this.localRecoveryConfig = localRecoveryConfig;
 		this.priorityQueueSetFactory = priorityQueueSetFactory;
+		Preconditions.checkArgument(spillManager == null || !asynchronousSnapshots,
+			"Spilling heap keyed state requires synchronous snapshots.");
 		this.asynchronousSnapshots = asynchronousSnapshots;
+		this.spillManager = spillManager;
+		this.incrementalCheckpoints = incrementalCheckpoints;
+		this.incrementalMaxDeltas = incrementalMaxDeltas;
+	}
+
+	/**
+	 * Organizes the priority queues of timers as timing wheels that are created by the given factory. Snapshots do not
+	 * depend on this setting.
+	 */
+	public HeapKeyedStateBackendBuilder<K> setTimingWheelFactory(
+		@Nullable TimingWheelPriorityQueueSetFactory timingWheelFactory) {
+		this.timingWheelFactory = timingWheelFactory;
+		return this;
 	}
 
 	@Override
@@ -113,6 +224,9 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 		try {
 			restoreOperation.restore();
 		} catch (Exception e) {
+			if (spillManager != null) {
+				spillManager.close();
+			}
 			throw new BackendBuildingException("Failed when trying to restore heap backend", e);
 		}
 		return new HeapKeyedStateBackend<>(
@@ -128,7 +242,9 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 			localRecoveryConfig,
 			priorityQueueSetFactory,
 			snapshotStrategy,
-			keyContext);
+			keyContext,
+			spillManager,
+			timingWheelFactory);
 	}
 
 	private HeapSnapshotStrategy<K> initSnapshotStrategy(
@@ -136,9 +252,26 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 		Map<String, StateTable<K, ?, ?>> registeredKVStates,
 		Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates,
 		CloseableRegistry cancelStreamRegistry) {
-		SnapshotStrategySynchronicityBehavior<K> synchronicityTrait = asynchronousSnapshots ?
-			new AsyncSnapshotStrategySynchronicityBehavior<>() :
-			new SyncSnapshotStrategySynchronicityBehavior<>();
+		SnapshotStrategySynchronicityBehavior<K> synchronicityTrait;
+		if (spillManager != null) {
+			synchronicityTrait = new SpillableSnapshotStrategySynchronicityBehavior<>(spillManager);
+		} else if (asynchronousSnapshots) {
+			synchronicityTrait = new AsyncSnapshotStrategySynchronicityBehavior<>();
+		} else {
+			synchronicityTrait = new SyncSnapshotStrategySynchronicityBehavior<>();
+		}
+		if (incrementalCheckpoints) {
+			return new HeapIncrementalSnapshotStrategy<>(
+				synchronicityTrait,
+				registeredKVStates,
+				registeredPQStates,
+				keyGroupCompressionDecorator,
+				localRecoveryConfig,
+				keyGroupRange,
+				cancelStreamRegistry,
+				keySerializerProvider,
+				incrementalMaxDeltas);
+		}
 		return new HeapSnapshotStrategy<>(
 			synchronicityTrait,
 			registeredKVStates,
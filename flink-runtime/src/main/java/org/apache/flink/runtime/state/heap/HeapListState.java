@@ -97,6 +97,8 @@ class HeapListState<K, N, V>
 		if (list == null) {
 			list = new ArrayList<>();
 			map.put(namespace, list);
+		} else {
+			map.stateModified(namespace);
 		}
 		list.add(value);
 	}
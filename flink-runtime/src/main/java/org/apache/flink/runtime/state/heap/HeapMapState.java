@@ -98,6 +98,8 @@ class HeapMapState<K, N, UK, UV>
 		if (userMap == null) {
 			userMap = new HashMap<>();
 			stateTable.put(currentNamespace, userMap);
+		} else {
+			stateTable.stateModified(currentNamespace);
 		}
 
 		userMap.put(userKey, userValue);
@@ -111,6 +113,8 @@ class HeapMapState<K, N, UK, UV>
 		if (userMap == null) {
 			userMap = new HashMap<>();
 			stateTable.put(currentNamespace, userMap);
+		} else {
+			stateTable.stateModified(currentNamespace);
 		}
 
 		userMap.putAll(value);
@@ -124,7 +128,10 @@ class HeapMapState<K, N, UK, UV>
 			return;
 		}
 
-		userMap.remove(userKey);
+		if (userMap.containsKey(userKey)) {
+			userMap.remove(userKey);
+			stateTable.stateModified(currentNamespace);
+		}
 
 		if (userMap.isEmpty()) {
 			clear();
@@ -140,25 +147,46 @@ class HeapMapState<K, N, UK, UV>
 	@Override
 	public Iterable<Map.Entry<UK, UV>> entries() {
 		Map<UK, UV> userMap = stateTable.get(currentNamespace);
-		return userMap == null ? null : userMap.entrySet();
+		if (userMap == null) {
+			return null;
+		}
+
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ?
+			userMap.entrySet() :
+			() -> ModificationTrackingIterator.ofEntries(userMap.entrySet().iterator(), onModification);
 	}
 
 	@Override
 	public Iterable<UK> keys() {
 		Map<UK, UV> userMap = stateTable.get(currentNamespace);
-		return userMap == null ? null : userMap.keySet();
+		if (userMap == null) {
+			return null;
+		}
+
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ?
+			userMap.keySet() :
+			() -> new ModificationTrackingIterator<>(userMap.keySet().iterator(), onModification);
 	}
 
 	@Override
 	public Iterable<UV> values() {
 		Map<UK, UV> userMap = stateTable.get(currentNamespace);
-		return userMap == null ? null : userMap.values();
+		if (userMap == null) {
+			return null;
+		}
+
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ?
+			userMap.values() :
+			() -> new ModificationTrackingIterator<>(userMap.values().iterator(), onModification);
 	}
 
 	@Override
 	public Iterator<Map.Entry<UK, UV>> iterator() {
 		Map<UK, UV> userMap = stateTable.get(currentNamespace);
-		return userMap == null ? null : userMap.entrySet().iterator();
+		return userMap == null ? null : trackModifications(userMap.entrySet().iterator());
 	}
 
 	@Override
@@ -190,6 +218,15 @@ class HeapMapState<K, N, UK, UV>
 		return KvStateSerializer.serializeMap(result.entrySet(), dupUserKeySerializer, dupUserValueSerializer);
 	}
 
+	/**
+	 * Wraps an iterator over the entries of the user map of the current key and namespace, so that modifications
+	 * through the iterator are reported to the state table.
+	 */
+	private Iterator<Map.Entry<UK, UV>> trackModifications(Iterator<Map.Entry<UK, UV>> iterator) {
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ? iterator : ModificationTrackingIterator.ofEntries(iterator, onModification);
+	}
+
 	@SuppressWarnings("unchecked")
 	static <UK, UV, K, N, SV, S extends State, IS extends S> IS create(
 		StateDescriptor<S, SV> stateDesc,
@@ -22,16 +22,20 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.KeyExtractorFunction;
 import org.apache.flink.runtime.state.KeyGroupPartitioner;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.RegisteredPriorityQueueStateBackendMetaInfo;
 import org.apache.flink.runtime.state.StateSnapshot;
 import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
+import org.apache.flink.util.CloseableIterator;
+import org.apache.flink.util.FlinkRuntimeException;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
- * This wrapper combines a HeapPriorityQueue with backend meta data.
+ * This wrapper combines a heap priority queue, i.e. a {@link HeapPriorityQueueSet} or a key-group partitioned queue
+ * of {@link TimingWheelPriorityQueueSet}s, with backend meta data.
  *
  * @param <T> type of the queue elements.
  */
@@ -39,7 +43,7 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
 	implements StateSnapshotRestore {
 
 	@Nonnull
-	private final HeapPriorityQueueSet<T> priorityQueue;
+	private final KeyGroupedInternalPriorityQueue<T> priorityQueue;
 	@Nonnull
 	private final KeyExtractorFunction<T> keyExtractorFunction;
 	@Nonnull
@@ -50,7 +54,7 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
 	private final int totalKeyGroups;
 
 	public HeapPriorityQueueSnapshotRestoreWrapper(
-		@Nonnull HeapPriorityQueueSet<T> priorityQueue,
+		@Nonnull KeyGroupedInternalPriorityQueue<T> priorityQueue,
 		@Nonnull RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo,
 		@Nonnull KeyExtractorFunction<T> keyExtractorFunction,
 		@Nonnull KeyGroupRange localKeyGroupRange,
@@ -67,7 +71,18 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
 	@Nonnull
 	@Override
 	public StateSnapshot stateSnapshot() {
-		final T[] queueDump = (T[]) priorityQueue.toArray(new HeapPriorityQueueElement[priorityQueue.size()]);
+		final T[] queueDump = (T[]) new HeapPriorityQueueElement[priorityQueue.size()];
+		if (priorityQueue instanceof HeapPriorityQueueSet) {
+			((HeapPriorityQueueSet<T>) priorityQueue).toArray(queueDump);
+		} else {
+			try (CloseableIterator<T> iterator = priorityQueue.iterator()) {
+				for (int i = 0; i < queueDump.length; ++i) {
+					queueDump[i] = iterator.next();
+				}
+			} catch (Exception e) {
+				throw new FlinkRuntimeException("Could not copy the elements of the priority queue.", e);
+			}
+		}
 		return new HeapPriorityQueueStateSnapshot<>(
 			queueDump,
 			keyExtractorFunction,
@@ -86,7 +101,7 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
 	}
 
 	@Nonnull
-	public HeapPriorityQueueSet<T> getPriorityQueue() {
+	public KeyGroupedInternalPriorityQueue<T> getPriorityQueue() {
 		return priorityQueue;
 	}
 
@@ -19,12 +19,16 @@
 package org.apache.flink.runtime.state.heap;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.runtime.state.HeapIncrementalKeyedStateHandle;
+import org.apache.flink.runtime.state.IncrementalKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyExtractorFunction;
+import org.apache.flink.runtime.state.KeyGroupPartitioner;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
@@ -40,6 +44,7 @@ import org.apache.flink.runtime.state.StateSerializerProvider;
 import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
 import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
 import org.apache.flink.util.Preconditions;
@@ -74,6 +79,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 	private final int numberOfKeyGroups;
 	private final HeapSnapshotStrategy<K> snapshotStrategy;
 	private final InternalKeyContext<K> keyContext;
+	private boolean keySerializerRestored;
 
 	HeapRestoreOperation(
 		@Nonnull Collection<KeyedStateHandle> restoreStateHandles,
@@ -107,7 +113,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 		registeredKVStates.clear();
 		registeredPQStates.clear();
 
-		boolean keySerializerRestored = false;
+		keySerializerRestored = false;
 
 		for (KeyedStateHandle keyedStateHandle : restoreStateHandles) {
 
@@ -115,6 +121,17 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 				continue;
 			}
 
+			if (keyedStateHandle instanceof HeapIncrementalKeyedStateHandle) {
+				restoreIncrementalStateHandle((HeapIncrementalKeyedStateHandle) keyedStateHandle);
+				continue;
+			}
+
+			if (keyedStateHandle instanceof IncrementalKeyedStateHandle) {
+				throw new IllegalStateException("Cannot restore the incremental snapshot of another state backend, " +
+					"expected: " + HeapIncrementalKeyedStateHandle.class + " or " + KeyGroupsStateHandle.class +
+					", but found: " + keyedStateHandle.getClass());
+			}
+
 			if (!(keyedStateHandle instanceof KeyGroupsStateHandle)) {
 				throw new IllegalStateException("Unexpected state handle type, " +
 					"expected: " + KeyGroupsStateHandle.class +
@@ -133,29 +150,26 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 
 				serializationProxy.read(inView);
 
-				if (!keySerializerRestored) {
-					// check for key serializer compatibility; this also reconfigures the
-					// key serializer to be compatible, if it is required and is possible
-					TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
-						keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(serializationProxy.getKeySerializerSnapshot());
-					if (keySerializerSchemaCompat.isCompatibleAfterMigration() || keySerializerSchemaCompat.isIncompatible()) {
-						throw new StateMigrationException("The new key serializer must be compatible.");
-					}
-
-					keySerializerRestored = true;
-				}
+				restoreKeySerializer(serializationProxy);
 
 				List<StateMetaInfoSnapshot> restoredMetaInfos =
 					serializationProxy.getStateMetaInfoSnapshots();
 
 				createOrCheckStateForMetaInfo(restoredMetaInfos, kvStatesById);
 
+				final Map<Integer, StateSnapshotKeyGroupReader> keyGroupReadersById = new HashMap<>();
+				for (Map.Entry<Integer, StateMetaInfoSnapshot> kvState : kvStatesById.entrySet()) {
+					keyGroupReadersById.put(
+						kvState.getKey(),
+						getRegisteredState(kvState.getValue()).keyGroupReader(serializationProxy.getReadVersion()));
+				}
+
 				readStateHandleStateData(
 					fsDataInputStream,
 					inView,
 					keyGroupsStateHandle.getGroupRangeOffsets(),
-					kvStatesById, restoredMetaInfos.size(),
-					serializationProxy.getReadVersion(),
+					keyGroupReadersById,
+					restoredMetaInfos.size(),
 					serializationProxy.isUsingKeyGroupCompression());
 			} finally {
 				if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
@@ -166,6 +180,141 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 		return null;
 	}
 
+	/**
+	 * Restores an incremental snapshot of the {@link HeapIncrementalSnapshotStrategy} by reading its base and then
+	 * applying its deltas in order. If the backend restores exactly this snapshot, the snapshot strategy can build
+	 * upon it.
+	 */
+	private void restoreIncrementalStateHandle(HeapIncrementalKeyedStateHandle stateHandle) throws Exception {
+		final List<HeapIncrementalSnapshotStrategy.SnapshotPiece> pieces;
+
+		FSDataInputStream metaInputStream = stateHandle.getMetaStateHandle().openInputStream();
+		cancelStreamRegistry.registerCloseable(metaInputStream);
+		try {
+			pieces = HeapIncrementalSnapshotStrategy.readMetaData(
+				new DataInputViewStreamWrapper(metaInputStream),
+				stateHandle.getSharedState());
+		} finally {
+			if (cancelStreamRegistry.unregisterCloseable(metaInputStream)) {
+				IOUtils.closeQuietly(metaInputStream);
+			}
+		}
+
+		for (int i = 0; i < pieces.size(); ++i) {
+			final HeapIncrementalSnapshotStrategy.SnapshotPiece piece = pieces.get(i);
+			final KeyGroupRangeOffsets keyGroupOffsets =
+				new KeyGroupRangeOffsets(stateHandle.getKeyGroupRange(), piece.keyGroupOffsets)
+					.getIntersection(keyGroupRange);
+
+			// timers are contained in full in every piece, so only the last piece is relevant for them
+			restoreSnapshotPiece(
+				stateHandle.getSharedState().get(piece.id),
+				keyGroupOffsets,
+				piece.isDelta,
+				i == pieces.size() - 1);
+		}
+
+		if (restoreStateHandles.size() == 1 && keyGroupRange.equals(stateHandle.getKeyGroupRange())) {
+			snapshotStrategy.notifyRestoredIncrementalSnapshot(stateHandle, pieces);
+		}
+	}
+
+	private void restoreSnapshotPiece(
+		StreamStateHandle pieceHandle,
+		KeyGroupRangeOffsets keyGroupOffsets,
+		boolean isDelta,
+		boolean restorePriorityQueues) throws Exception {
+
+		FSDataInputStream fsDataInputStream = pieceHandle.openInputStream();
+		cancelStreamRegistry.registerCloseable(fsDataInputStream);
+
+		try {
+			DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(fsDataInputStream);
+
+			KeyedBackendSerializationProxy<K> serializationProxy =
+				new KeyedBackendSerializationProxy<>(userCodeClassLoader);
+
+			serializationProxy.read(inView);
+
+			restoreKeySerializer(serializationProxy);
+
+			List<StateMetaInfoSnapshot> restoredMetaInfos =
+				serializationProxy.getStateMetaInfoSnapshots();
+
+			createOrCheckStateForMetaInfo(restoredMetaInfos, new HashMap<>());
+
+			// every piece has its own state IDs, which are the positions of the meta infos
+			final Map<Integer, StateSnapshotKeyGroupReader> keyGroupReadersById = new HashMap<>();
+			for (int stateId = 0; stateId < restoredMetaInfos.size(); ++stateId) {
+				keyGroupReadersById.put(
+					stateId,
+					createPieceKeyGroupReader(
+						restoredMetaInfos.get(stateId),
+						serializationProxy.getReadVersion(),
+						isDelta,
+						restorePriorityQueues));
+			}
+
+			readStateHandleStateData(
+				fsDataInputStream,
+				inView,
+				keyGroupOffsets,
+				keyGroupReadersById,
+				restoredMetaInfos.size(),
+				serializationProxy.isUsingKeyGroupCompression());
+		} finally {
+			if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
+				IOUtils.closeQuietly(fsDataInputStream);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private StateSnapshotKeyGroupReader createPieceKeyGroupReader(
+		StateMetaInfoSnapshot metaInfoSnapshot,
+		int readVersion,
+		boolean isDelta,
+		boolean restorePriorityQueues) {
+
+		switch (metaInfoSnapshot.getBackendStateType()) {
+			case KEY_VALUE:
+				final StateTable stateTable = registeredKVStates.get(metaInfoSnapshot.getName());
+				return isDelta ?
+					ChangelogStateTable.changesReader(
+						stateTable,
+						new RegisteredKeyValueStateBackendMetaInfo<>(metaInfoSnapshot)) :
+					stateTable.keyGroupReader(readVersion);
+			case PRIORITY_QUEUE:
+				return restorePriorityQueues ?
+					registeredPQStates.get(metaInfoSnapshot.getName()).keyGroupReader(readVersion) :
+					skippingKeyGroupReader(
+						new RegisteredPriorityQueueStateBackendMetaInfo<>(metaInfoSnapshot).getElementSerializer());
+			default:
+				throw new IllegalStateException("Unexpected state type: " +
+					metaInfoSnapshot.getBackendStateType() + ".");
+		}
+	}
+
+	private static <T> StateSnapshotKeyGroupReader skippingKeyGroupReader(TypeSerializer<T> elementSerializer) {
+		return KeyGroupPartitioner.createKeyGroupPartitionReader(
+			elementSerializer::deserialize,
+			(element, keyGroupId) -> {});
+	}
+
+	private void restoreKeySerializer(KeyedBackendSerializationProxy<K> serializationProxy) throws StateMigrationException {
+		if (!keySerializerRestored) {
+			// check for key serializer compatibility; this also reconfigures the
+			// key serializer to be compatible, if it is required and is possible
+			TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
+				keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(serializationProxy.getKeySerializerSnapshot());
+			if (keySerializerSchemaCompat.isCompatibleAfterMigration() || keySerializerSchemaCompat.isIncompatible()) {
+				throw new StateMigrationException("The new key serializer must be compatible.");
+			}
+
+			keySerializerRestored = true;
+		}
+	}
+
 	private void createOrCheckStateForMetaInfo(
 		List<StateMetaInfoSnapshot> restoredMetaInfo,
 		Map<Integer, StateMetaInfoSnapshot> kvStatesById) {
@@ -227,9 +376,8 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 		FSDataInputStream fsDataInputStream,
 		DataInputViewStreamWrapper inView,
 		KeyGroupRangeOffsets keyGroupOffsets,
-		Map<Integer, StateMetaInfoSnapshot> kvStatesById,
+		Map<Integer, StateSnapshotKeyGroupReader> keyGroupReadersById,
 		int numStates,
-		int readVersion,
 		boolean isCompressed) throws IOException {
 
 		final StreamCompressionDecorator streamCompressionDecorator = isCompressed ?
@@ -253,20 +401,18 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 
 				readKeyGroupStateData(
 					kgCompressionInStream,
-					kvStatesById,
+					keyGroupReadersById,
 					keyGroupIndex,
-					numStates,
-					readVersion);
+					numStates);
 			}
 		}
 	}
 
 	private void readKeyGroupStateData(
 		InputStream inputStream,
-		Map<Integer, StateMetaInfoSnapshot> kvStatesById,
+		Map<Integer, StateSnapshotKeyGroupReader> keyGroupReadersById,
 		int keyGroupIndex,
-		int numStates,
-		int readVersion) throws IOException {
+		int numStates) throws IOException {
 
 		DataInputViewStreamWrapper inView =
 			new DataInputViewStreamWrapper(inputStream);
@@ -274,23 +420,20 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 		for (int i = 0; i < numStates; i++) {
 
 			final int kvStateId = inView.readShort();
-			final StateMetaInfoSnapshot stateMetaInfoSnapshot = kvStatesById.get(kvStateId);
-			final StateSnapshotRestore registeredState;
-
-			switch (stateMetaInfoSnapshot.getBackendStateType()) {
-				case KEY_VALUE:
-					registeredState = registeredKVStates.get(stateMetaInfoSnapshot.getName());
-					break;
-				case PRIORITY_QUEUE:
-					registeredState = registeredPQStates.get(stateMetaInfoSnapshot.getName());
-					break;
-				default:
-					throw new IllegalStateException("Unexpected state type: " +
-						stateMetaInfoSnapshot.getBackendStateType() + ".");
-			}
-
-			StateSnapshotKeyGroupReader keyGroupReader = registeredState.keyGroupReader(readVersion);
+			StateSnapshotKeyGroupReader keyGroupReader = keyGroupReadersById.get(kvStateId);
 			keyGroupReader.readMappingsInKeyGroup(inView, keyGroupIndex);
 		}
 	}
+
+	private StateSnapshotRestore getRegisteredState(StateMetaInfoSnapshot stateMetaInfoSnapshot) {
+		switch (stateMetaInfoSnapshot.getBackendStateType()) {
+			case KEY_VALUE:
+				return registeredKVStates.get(stateMetaInfoSnapshot.getName());
+			case PRIORITY_QUEUE:
+				return registeredPQStates.get(stateMetaInfoSnapshot.getName());
+			default:
+				throw new IllegalStateException("Unexpected state type: " +
+					stateMetaInfoSnapshot.getBackendStateType() + ".");
+		}
+	}
 }
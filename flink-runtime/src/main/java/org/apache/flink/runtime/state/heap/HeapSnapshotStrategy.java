@@ -28,6 +28,7 @@ import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.CheckpointStreamWithResultProvider;
 import org.apache.flink.runtime.state.CheckpointedStateScope;
 import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.HeapIncrementalKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
@@ -64,12 +65,12 @@ class HeapSnapshotStrategy<K>
 	extends AbstractSnapshotStrategy<KeyedStateHandle> implements SnapshotStrategySynchronicityBehavior<K> {
 
 	private final SnapshotStrategySynchronicityBehavior<K> snapshotStrategySynchronicityTrait;
-	private final Map<String, StateTable<K, ?, ?>> registeredKVStates;
-	private final Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates;
-	private final StreamCompressionDecorator keyGroupCompressionDecorator;
+	final Map<String, StateTable<K, ?, ?>> registeredKVStates;
+	final Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates;
+	final StreamCompressionDecorator keyGroupCompressionDecorator;
 	private final LocalRecoveryConfig localRecoveryConfig;
-	private final KeyGroupRange keyGroupRange;
-	private final CloseableRegistry cancelStreamRegistry;
+	final KeyGroupRange keyGroupRange;
+	final CloseableRegistry cancelStreamRegistry;
 	private final StateSerializerProvider<K> keySerializerProvider;
 
 	HeapSnapshotStrategy(
@@ -130,13 +131,7 @@ class HeapSnapshotStrategy<K>
 			registeredPQStates,
 			StateMetaInfoSnapshot.BackendStateType.PRIORITY_QUEUE);
 
-		final KeyedBackendSerializationProxy<K> serializationProxy =
-			new KeyedBackendSerializationProxy<>(
-				// TODO: this code assumes that writing a serializer is threadsafe, we should support to
-				// get a serialized form already at state registration time in the future
-				getKeySerializer(),
-				metaInfoSnapshots,
-				!Objects.equals(UncompressedStreamCompressionDecorator.INSTANCE, keyGroupCompressionDecorator));
+		final KeyedBackendSerializationProxy<K> serializationProxy = createSerializationProxy(metaInfoSnapshots);
 
 		final SupplierWithException<CheckpointStreamWithResultProvider, Exception> checkpointStreamSupplier =
 
@@ -167,31 +162,8 @@ class HeapSnapshotStrategy<K>
 					final CheckpointStreamFactory.CheckpointStateOutputStream localStream =
 						streamWithResultProvider.getCheckpointOutputStream();
 
-					final DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(localStream);
-					serializationProxy.write(outView);
-
-					final long[] keyGroupRangeOffsets = new long[keyGroupRange.getNumberOfKeyGroups()];
-
-					for (int keyGroupPos = 0; keyGroupPos < keyGroupRange.getNumberOfKeyGroups(); ++keyGroupPos) {
-						int keyGroupId = keyGroupRange.getKeyGroupId(keyGroupPos);
-						keyGroupRangeOffsets[keyGroupPos] = localStream.getPos();
-						outView.writeInt(keyGroupId);
-
-						for (Map.Entry<StateUID, StateSnapshot> stateSnapshot :
-							cowStateStableSnapshots.entrySet()) {
-							StateSnapshot.StateKeyGroupWriter partitionedSnapshot =
-
-								stateSnapshot.getValue().getKeyGroupWriter();
-							try (
-								OutputStream kgCompressionOut =
-									keyGroupCompressionDecorator.decorateWithCompression(localStream)) {
-								DataOutputViewStreamWrapper kgCompressionView =
-									new DataOutputViewStreamWrapper(kgCompressionOut);
-								kgCompressionView.writeShort(stateNamesToId.get(stateSnapshot.getKey()));
-								partitionedSnapshot.writeStateInKeyGroup(kgCompressionView, keyGroupId);
-							} // this will just close the outer compression stream
-						}
-					}
+					final long[] keyGroupRangeOffsets = writeSnapshot(
+						localStream, serializationProxy, cowStateStableSnapshots, stateNamesToId);
 
 					if (snapshotCloseableRegistry.unregisterCloseable(streamWithResultProvider)) {
 						KeyGroupRangeOffsets kgOffs = new KeyGroupRangeOffsets(keyGroupRange, keyGroupRangeOffsets);
@@ -243,7 +215,70 @@ class HeapSnapshotStrategy<K>
 		return snapshotStrategySynchronicityTrait.newStateTable(keyContext, newMetaInfo, keySerializer);
 	}
 
-	private void processSnapshotMetaInfoForAllStates(
+	/**
+	 * Called when the given checkpoint completed. Strategies that build upon previous snapshots can use this to
+	 * release information about older snapshots.
+	 */
+	void notifyCheckpointComplete(long checkpointId) {
+	}
+
+	/**
+	 * Called when the backend was restored from exactly the given incremental snapshot, for the same key-groups.
+	 * Strategies that build upon previous snapshots can use this to continue from the restored snapshot.
+	 */
+	void notifyRestoredIncrementalSnapshot(
+		HeapIncrementalKeyedStateHandle restoredHandle,
+		List<HeapIncrementalSnapshotStrategy.SnapshotPiece> restoredPieces) {
+	}
+
+	KeyedBackendSerializationProxy<K> createSerializationProxy(List<StateMetaInfoSnapshot> metaInfoSnapshots) {
+		return new KeyedBackendSerializationProxy<>(
+			// TODO: this code assumes that writing a serializer is threadsafe, we should support to
+			// get a serialized form already at state registration time in the future
+			getKeySerializer(),
+			metaInfoSnapshots,
+			!Objects.equals(UncompressedStreamCompressionDecorator.INSTANCE, keyGroupCompressionDecorator));
+	}
+
+	/**
+	 * Writes the serialization proxy and then all key-groups of the given state snapshots to the stream.
+	 *
+	 * @return the offsets of the key-groups in the stream.
+	 */
+	long[] writeSnapshot(
+		CheckpointStreamFactory.CheckpointStateOutputStream outStream,
+		KeyedBackendSerializationProxy<K> serializationProxy,
+		Map<StateUID, StateSnapshot> stateSnapshots,
+		Map<StateUID, Integer> stateNamesToId) throws IOException {
+
+		final DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(outStream);
+		serializationProxy.write(outView);
+
+		final long[] keyGroupRangeOffsets = new long[keyGroupRange.getNumberOfKeyGroups()];
+
+		for (int keyGroupPos = 0; keyGroupPos < keyGroupRange.getNumberOfKeyGroups(); ++keyGroupPos) {
+			int keyGroupId = keyGroupRange.getKeyGroupId(keyGroupPos);
+			keyGroupRangeOffsets[keyGroupPos] = outStream.getPos();
+			outView.writeInt(keyGroupId);
+
+			for (Map.Entry<StateUID, StateSnapshot> stateSnapshot : stateSnapshots.entrySet()) {
+				StateSnapshot.StateKeyGroupWriter partitionedSnapshot =
+					stateSnapshot.getValue().getKeyGroupWriter();
+				try (
+					OutputStream kgCompressionOut =
+						keyGroupCompressionDecorator.decorateWithCompression(outStream)) {
+					DataOutputViewStreamWrapper kgCompressionView =
+						new DataOutputViewStreamWrapper(kgCompressionOut);
+					kgCompressionView.writeShort(stateNamesToId.get(stateSnapshot.getKey()));
+					partitionedSnapshot.writeStateInKeyGroup(kgCompressionView, keyGroupId);
+				} // this will just close the outer compression stream
+			}
+		}
+
+		return keyGroupRangeOffsets;
+	}
+
+	void processSnapshotMetaInfoForAllStates(
 		List<StateMetaInfoSnapshot> metaInfoSnapshots,
 		Map<StateUID, StateSnapshot> cowStateStableSnapshots,
 		Map<StateUID, Integer> stateNamesToId,
@@ -262,7 +297,7 @@ class HeapSnapshotStrategy<K>
 		}
 	}
 
-	private boolean hasRegisteredState() {
+	boolean hasRegisteredState() {
 		return !(registeredKVStates.isEmpty() && registeredPQStates.isEmpty());
 	}
 
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.MapSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.queryablestate.client.state.serialization.KvStateSerializer;
+import org.apache.flink.runtime.state.internal.InternalSortedMapState;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Heap-backed partitioned {@link SortedMapState} that is snapshotted into files.
+ *
+ * <p>The mappings of each key and namespace are kept in a {@link TreeMap} ordered by the comparator
+ * of the state descriptor. Mappings that were restored from a snapshot or copied by the state table
+ * are held in an unordered map by the {@link MapSerializer}; they are converted into a sorted map
+ * the first time they are accessed.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <UK> The type of the keys in the state.
+ * @param <UV> The type of the values in the state.
+ */
+class HeapSortedMapState<K, N, UK, UV>
+	extends AbstractHeapState<K, N, Map<UK, UV>>
+	implements InternalSortedMapState<K, N, UK, UV> {
+
+	/** The comparator defining the order of the keys in the state. */
+	private final Comparator<UK> userKeyComparator;
+
+	/**
+	 * Creates a new key/value state for the given sorted map of key/value pairs.
+	 *
+	 * @param stateTable The state table for which this state is associated to.
+	 * @param keySerializer The serializer for the keys.
+	 * @param valueSerializer The serializer for the state.
+	 * @param namespaceSerializer The serializer for the namespace.
+	 * @param defaultValue The default value for the state.
+	 * @param userKeyComparator The comparator defining the order of the keys in the state.
+	 */
+	private HeapSortedMapState(
+		StateTable<K, N, Map<UK, UV>> stateTable,
+		TypeSerializer<K> keySerializer,
+		TypeSerializer<Map<UK, UV>> valueSerializer,
+		TypeSerializer<N> namespaceSerializer,
+		Map<UK, UV> defaultValue,
+		Comparator<UK> userKeyComparator) {
+		super(stateTable, keySerializer, valueSerializer, namespaceSerializer, defaultValue);
+
+		Preconditions.checkState(valueSerializer instanceof MapSerializer, "Unexpected serializer type.");
+		this.userKeyComparator = Preconditions.checkNotNull(userKeyComparator);
+	}
+
+	@Override
+	public TypeSerializer<K> getKeySerializer() {
+		return keySerializer;
+	}
+
+	@Override
+	public TypeSerializer<N> getNamespaceSerializer() {
+		return namespaceSerializer;
+	}
+
+	@Override
+	public TypeSerializer<Map<UK, UV>> getValueSerializer() {
+		return valueSerializer;
+	}
+
+	@Override
+	public UV get(UK userKey) {
+
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+
+		if (userMap == null) {
+			return null;
+		}
+
+		return userMap.get(userKey);
+	}
+
+	@Override
+	public void put(UK userKey, UV userValue) {
+
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		if (userMap == null) {
+			userMap = new TreeMap<>(userKeyComparator);
+			stateTable.put(currentNamespace, userMap);
+		} else {
+			stateTable.stateModified(currentNamespace);
+		}
+
+		userMap.put(userKey, userValue);
+	}
+
+	@Override
+	public void putAll(Map<UK, UV> value) {
+
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+
+		if (userMap == null) {
+			userMap = new TreeMap<>(userKeyComparator);
+			stateTable.put(currentNamespace, userMap);
+		} else {
+			stateTable.stateModified(currentNamespace);
+		}
+
+		userMap.putAll(value);
+	}
+
+	@Override
+	public void remove(UK userKey) {
+
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		if (userMap == null) {
+			return;
+		}
+
+		if (userMap.containsKey(userKey)) {
+			userMap.remove(userKey);
+			stateTable.stateModified(currentNamespace);
+		}
+
+		if (userMap.isEmpty()) {
+			clear();
+		}
+	}
+
+	@Override
+	public boolean contains(UK userKey) {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		return userMap != null && userMap.containsKey(userKey);
+	}
+
+	@Override
+	public Iterable<Map.Entry<UK, UV>> entries() {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		if (userMap == null) {
+			return null;
+		}
+
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ?
+			userMap.entrySet() :
+			() -> ModificationTrackingIterator.ofEntries(userMap.entrySet().iterator(), onModification);
+	}
+
+	@Override
+	public Iterable<UK> keys() {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		if (userMap == null) {
+			return null;
+		}
+
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ?
+			userMap.keySet() :
+			() -> new ModificationTrackingIterator<>(userMap.keySet().iterator(), onModification);
+	}
+
+	@Override
+	public Iterable<UV> values() {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		if (userMap == null) {
+			return null;
+		}
+
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ?
+			userMap.values() :
+			() -> new ModificationTrackingIterator<>(userMap.values().iterator(), onModification);
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> iterator() {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		return userMap == null ? null : trackModifications(userMap.entrySet().iterator());
+	}
+
+	// ------------------------------------------------------------------------
+	//  SortedMapState Implementation
+	// ------------------------------------------------------------------------
+
+	@Override
+	public Map.Entry<UK, UV> firstEntry() {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		return userMap == null ? null : userMap.firstEntry();
+	}
+
+	@Override
+	public Map.Entry<UK, UV> lastEntry() {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		return userMap == null ? null : userMap.lastEntry();
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> headIterator(UK endKey) {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		return userMap == null ?
+			Collections.emptyIterator() :
+			trackModifications(userMap.headMap(endKey, false).entrySet().iterator());
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> tailIterator(UK startKey) {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		return userMap == null ?
+			Collections.emptyIterator() :
+			trackModifications(userMap.tailMap(startKey, true).entrySet().iterator());
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> subIterator(UK startKey, UK endKey) {
+		TreeMap<UK, UV> userMap = getSortedUserMap();
+		if (userMap == null || userKeyComparator.compare(startKey, endKey) >= 0) {
+			return Collections.emptyIterator();
+		}
+
+		return trackModifications(userMap.subMap(startKey, true, endKey, false).entrySet().iterator());
+	}
+
+	@Override
+	public byte[] getSerializedValue(
+			final byte[] serializedKeyAndNamespace,
+			final TypeSerializer<K> safeKeySerializer,
+			final TypeSerializer<N> safeNamespaceSerializer,
+			final TypeSerializer<Map<UK, UV>> safeValueSerializer) throws Exception {
+
+		Preconditions.checkNotNull(serializedKeyAndNamespace);
+		Preconditions.checkNotNull(safeKeySerializer);
+		Preconditions.checkNotNull(safeNamespaceSerializer);
+		Preconditions.checkNotNull(safeValueSerializer);
+
+		Tuple2<K, N> keyAndNamespace = KvStateSerializer.deserializeKeyAndNamespace(
+				serializedKeyAndNamespace, safeKeySerializer, safeNamespaceSerializer);
+
+		Map<UK, UV> result = stateTable.get(keyAndNamespace.f0, keyAndNamespace.f1);
+
+		if (result == null) {
+			return null;
+		}
+
+		final MapSerializer<UK, UV> serializer = (MapSerializer<UK, UV>) safeValueSerializer;
+
+		final TypeSerializer<UK> dupUserKeySerializer = serializer.getKeySerializer();
+		final TypeSerializer<UV> dupUserValueSerializer = serializer.getValueSerializer();
+
+		return KvStateSerializer.serializeMap(result.entrySet(), dupUserKeySerializer, dupUserValueSerializer);
+	}
+
+	/**
+	 * Returns the mappings of the current key and namespace as a sorted map, converting and
+	 * replacing the map in the state table if it is not sorted yet.
+	 */
+	private TreeMap<UK, UV> getSortedUserMap() {
+		Map<UK, UV> userMap = stateTable.get(currentNamespace);
+
+		if (userMap == null || userMap instanceof TreeMap) {
+			return (TreeMap<UK, UV>) userMap;
+		}
+
+		TreeMap<UK, UV> sortedUserMap = new TreeMap<>(userKeyComparator);
+		sortedUserMap.putAll(userMap);
+		stateTable.put(currentNamespace, sortedUserMap);
+
+		return sortedUserMap;
+	}
+
+	/**
+	 * Wraps an iterator over the entries of the user map of the current key and namespace, so that modifications
+	 * through the iterator are reported to the state table.
+	 */
+	private Iterator<Map.Entry<UK, UV>> trackModifications(Iterator<Map.Entry<UK, UV>> iterator) {
+		final Runnable onModification = getModificationCallback();
+		return onModification == null ? iterator : ModificationTrackingIterator.ofEntries(iterator, onModification);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <UK, UV, K, N, SV, S extends State, IS extends S> IS create(
+		StateDescriptor<S, SV> stateDesc,
+		StateTable<K, N, SV> stateTable,
+		TypeSerializer<K> keySerializer) {
+		return (IS) new HeapSortedMapState<>(
+			(StateTable<K, N, Map<UK, UV>>) stateTable,
+			keySerializer,
+			(TypeSerializer<Map<UK, UV>>) stateTable.getStateSerializer(),
+			stateTable.getNamespaceSerializer(),
+			(Map<UK, UV>) stateDesc.getDefaultValue(),
+			((SortedMapStateDescriptor<UK, UV>) stateDesc).getUserKeyComparator());
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coordinates the spilling of the {@link SpillableStateTable}s of one heap keyed state backend.
+ *
+ * <p>Every access to a key-group of a table is counted. Every {@link #CHECK_INTERVAL} accesses, the manager estimates
+ * the size of the state of its backend that is on the heap and asks the {@link HeapUsageMonitor} how much of it to
+ * spill. If the live heap exceeds the configured watermark, all backends of the TaskManager share the excess in
+ * proportion to the size of their heap state, so that each backend only spills its own share. The manager then spills
+ * the least recently accessed key-groups of all tables until the size of the spilled data covers that share. The
+ * key-group that is currently accessed is never spilled.
+ *
+ * <p>The manager is not thread-safe; like the heap backend itself, it is only accessed by the task thread.
+ */
+@Internal
+public class HeapSpillManager implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HeapSpillManager.class);
+
+	/** The number of accesses between two checks of the heap usage. */
+	@VisibleForTesting
+	static final int CHECK_INTERVAL = 1024;
+
+	/** The directory for the spill files of the backend. Deleted when the manager is closed. */
+	private final File spillDirectory;
+
+	/** Tells how much of the heap state of the backend to spill. */
+	private final HeapUsageMonitor heapUsageMonitor;
+
+	/** All tables of the backend. */
+	private final List<SpillableStateTable<?, ?, ?>> stateTables;
+
+	/** Counter of the key-group accesses, used as a logical clock to find the cold key-groups. */
+	private long accessTick;
+
+	/** Counter for the names of the spill files. */
+	private long spillFileCounter;
+
+	/** Flag that prevents spilling recursively. */
+	private boolean spilling;
+
+	HeapSpillManager(File spillDirectory, HeapUsageMonitor heapUsageMonitor) {
+		this.spillDirectory = Preconditions.checkNotNull(spillDirectory);
+		this.heapUsageMonitor = Preconditions.checkNotNull(heapUsageMonitor);
+		this.stateTables = new ArrayList<>();
+	}
+
+	/**
+	 * Creates a spill manager that spills to a new directory inside one of the given directories once the live heap
+	 * exceeds the given fraction of the maximum heap size.
+	 *
+	 * @param parentDirectories the directories to choose the spill directory from, e.g. the temp directories.
+	 * @param heapWatermark the fraction of the maximum heap size that the live heap should not exceed.
+	 */
+	public static HeapSpillManager create(File[] parentDirectories, float heapWatermark) throws IOException {
+		Preconditions.checkArgument(parentDirectories.length > 0, "No spill directories given.");
+		Preconditions.checkArgument(heapWatermark > 0f && heapWatermark < 1f,
+			"The heap watermark must be in (0, 1), but was %s.", heapWatermark);
+
+		final File parentDirectory = parentDirectories[(int) (Math.random() * parentDirectories.length)];
+		final File spillDirectory = new File(parentDirectory, "flink-heap-spill-" + UUID.randomUUID());
+		if (!spillDirectory.mkdirs()) {
+			throw new IOException("Could not create spill directory " + spillDirectory + '.');
+		}
+
+		LOG.info("Spilling heap keyed state to {} once the live heap exceeds {} of the maximum heap size.",
+			spillDirectory, heapWatermark);
+
+		return new HeapSpillManager(spillDirectory, new LiveHeapUsageMonitor(SharedHeapUsage.INSTANCE, heapWatermark));
+	}
+
+	void registerStateTable(SpillableStateTable<?, ?, ?> stateTable) {
+		stateTables.add(stateTable);
+	}
+
+	File newSpillFile() {
+		return new File(spillDirectory, "kg-" + (spillFileCounter++));
+	}
+
+	/**
+	 * Counts an access to the given key-group and spills cold key-groups if the heap usage exceeds the watermark.
+	 *
+	 * @return the access tick to record for the key-group.
+	 */
+	long onAccess(SpillableStateTable<?, ?, ?> accessedTable, int accessedKeyGroup) {
+		final long tick = ++accessTick;
+		if (tick % CHECK_INTERVAL == 0 && !spilling) {
+			spilling = true;
+			try {
+				final long bytesToSpill = heapUsageMonitor.getBytesToSpill(estimateHeapStateBytes());
+				if (bytesToSpill > 0L) {
+					spillColdKeyGroups(bytesToSpill, accessedTable, accessedKeyGroup);
+				}
+			} catch (IOException e) {
+				throw new FlinkRuntimeException("Could not spill heap keyed state.", e);
+			} finally {
+				spilling = false;
+			}
+		}
+		return tick;
+	}
+
+	/**
+	 * Estimates the serialized size of the state of all tables that is on the heap.
+	 */
+	@VisibleForTesting
+	long estimateHeapStateBytes() throws IOException {
+		long bytes = 0L;
+		for (SpillableStateTable<?, ?, ?> stateTable : stateTables) {
+			bytes += stateTable.estimateHeapStateBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Spills the least recently accessed key-groups until the given number of bytes was written.
+	 *
+	 * @return the number of bytes that were written.
+	 */
+	@VisibleForTesting
+	long spillColdKeyGroups(
+		long bytesToSpill,
+		@Nullable SpillableStateTable<?, ?, ?> excludedTable,
+		int excludedKeyGroup) throws IOException {
+
+		final List<SpillCandidate> candidates = new ArrayList<>();
+		for (SpillableStateTable<?, ?, ?> stateTable : stateTables) {
+			for (int keyGroup : stateTable.getKeyGroupRange()) {
+				if (stateTable.getHeapMapForKeyGroup(keyGroup) != null &&
+					!(stateTable == excludedTable && keyGroup == excludedKeyGroup)) {
+					candidates.add(new SpillCandidate(stateTable, keyGroup, stateTable.getLastAccessTick(keyGroup)));
+				}
+			}
+		}
+		candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccessTick));
+
+		long spilledBytes = 0L;
+		int spilledKeyGroups = 0;
+		for (SpillCandidate candidate : candidates) {
+			if (spilledBytes >= bytesToSpill) {
+				break;
+			}
+			final long bytes = candidate.stateTable.spillKeyGroup(candidate.keyGroup);
+			if (bytes > 0L) {
+				spilledBytes += bytes;
+				spilledKeyGroups++;
+			}
+		}
+
+		LOG.debug("Spilled {} key-groups ({} bytes) to free {} bytes of heap.", spilledKeyGroups, spilledBytes, bytesToSpill);
+		return spilledBytes;
+	}
+
+	@Override
+	public void close() {
+		heapUsageMonitor.close();
+		FileUtils.deleteDirectoryQuietly(spillDirectory);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A key-group of a table that is on the heap.
+	 */
+	private static final class SpillCandidate {
+
+		private final SpillableStateTable<?, ?, ?> stateTable;
+		private final int keyGroup;
+		private final long lastAccessTick;
+
+		SpillCandidate(SpillableStateTable<?, ?, ?> stateTable, int keyGroup, long lastAccessTick) {
+			this.stateTable = stateTable;
+			this.keyGroup = keyGroup;
+			this.lastAccessTick = lastAccessTick;
+		}
+	}
+
+	/**
+	 * Tells how much of the heap state of a backend to spill.
+	 */
+	interface HeapUsageMonitor {
+
+		/**
+		 * Returns the number of bytes of its heap state that the backend should spill, or 0 if the heap usage does not
+		 * exceed the watermark or if a previous excess was not yet reflected in the heap usage.
+		 *
+		 * @param heapStateBytes the estimated size of the heap state of the backend.
+		 */
+		long getBytesToSpill(long heapStateBytes);
+
+		/**
+		 * Releases the resources of the monitor, when the backend is disposed.
+		 */
+		default void close() {}
+	}
+
+	/**
+	 * A {@link HeapUsageMonitor} that looks at the heap usage of the TaskManager after the latest garbage collection,
+	 * so that garbage does not count towards the watermark. All backends of the TaskManager share the excess in
+	 * proportion to the size of their heap state, as reported to the {@link SharedHeapUsage}.
+	 *
+	 * <p>The share of the excess is only reported once per garbage collection, because the memory of spilled
+	 * key-groups is only released by the next collection.
+	 */
+	static final class LiveHeapUsageMonitor implements HeapUsageMonitor {
+
+		private final SharedHeapUsage heapUsage;
+
+		private final long watermarkBytes;
+
+		private long collectionCountOfLatestExcess = -1L;
+
+		LiveHeapUsageMonitor(SharedHeapUsage heapUsage, float heapWatermark) {
+			this.heapUsage = Preconditions.checkNotNull(heapUsage);
+			this.watermarkBytes = (long) (heapUsage.getMaxBytes() * (double) heapWatermark);
+		}
+
+		@Override
+		public long getBytesToSpill(long heapStateBytes) {
+			final long totalHeapStateBytes = heapUsage.updateHeapStateBytes(this, heapStateBytes);
+
+			final long collectionCount = heapUsage.getCollectionCount();
+			if (collectionCount == collectionCountOfLatestExcess || heapStateBytes <= 0L) {
+				return 0L;
+			}
+
+			final long bytesOverWatermark = heapUsage.getLiveBytes() - watermarkBytes;
+			if (bytesOverWatermark <= 0L) {
+				return 0L;
+			}
+
+			collectionCountOfLatestExcess = collectionCount;
+			final double share = (double) heapStateBytes / Math.max(totalHeapStateBytes, heapStateBytes);
+			return (long) Math.ceil(bytesOverWatermark * share);
+		}
+
+		@Override
+		public void close() {
+			heapUsage.removeHeapStateBytes(this);
+		}
+	}
+
+	/**
+	 * The heap usage of the TaskManager process, and the estimated size of the heap state of each of its backends that
+	 * spill. Prefers the tenured pool, because this is where state objects end up, and falls back to the overall heap
+	 * usage if the JVM does not expose such a pool.
+	 *
+	 * <p>This class is thread-safe; the backends of all tasks report to the same instance.
+	 */
+	static class SharedHeapUsage {
+
+		static final SharedHeapUsage INSTANCE = new SharedHeapUsage();
+
+		@Nullable
+		private final MemoryPoolMXBean tenuredPool;
+
+		private final List<GarbageCollectorMXBean> garbageCollectors;
+
+		/** The latest reported size of the heap state of each backend. */
+		private final Map<Object, Long> heapStateBytesByBackend;
+
+		/** The sum of the values of {@link #heapStateBytesByBackend}. */
+		private final AtomicLong totalHeapStateBytes;
+
+		SharedHeapUsage() {
+			this.tenuredPool = findTenuredPool();
+			this.garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+			this.heapStateBytesByBackend = new ConcurrentHashMap<>();
+			this.totalHeapStateBytes = new AtomicLong();
+		}
+
+		/**
+		 * Records the size of the heap state of the given backend.
+		 *
+		 * @return the size of the heap state of all backends.
+		 */
+		long updateHeapStateBytes(Object backend, long heapStateBytes) {
+			final Long previousBytes = heapStateBytesByBackend.put(backend, heapStateBytes);
+			return totalHeapStateBytes.addAndGet(heapStateBytes - (previousBytes != null ? previousBytes : 0L));
+		}
+
+		void removeHeapStateBytes(Object backend) {
+			final Long previousBytes = heapStateBytesByBackend.remove(backend);
+			if (previousBytes != null) {
+				totalHeapStateBytes.addAndGet(-previousBytes);
+			}
+		}
+
+		long getMaxBytes() {
+			return tenuredPool != null && tenuredPool.getUsage().getMax() > 0L ?
+				tenuredPool.getUsage().getMax() :
+				Runtime.getRuntime().maxMemory();
+		}
+
+		/**
+		 * Returns the heap usage after the latest garbage collection.
+		 */
+		long getLiveBytes() {
+			if (tenuredPool != null) {
+				return tenuredPool.getCollectionUsage().getUsed();
+			} else {
+				final Runtime runtime = Runtime.getRuntime();
+				return runtime.totalMemory() - runtime.freeMemory();
+			}
+		}
+
+		long getCollectionCount() {
+			long count = 0L;
+			for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+				count += Math.max(garbageCollector.getCollectionCount(), 0L);
+			}
+			return count;
+		}
+
+		@Nullable
+		private static MemoryPoolMXBean findTenuredPool() {
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				// only the tenured pool supports both kinds of thresholds
+				if (pool.getType() == MemoryType.HEAP &&
+					pool.isUsageThresholdSupported() &&
+					pool.isCollectionUsageThresholdSupported()) {
+					return pool;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.util.Preconditions;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An iterator over a view of a state object that runs a callback whenever the state object is modified through the
+ * iterator, so that heap states can report in-place modifications to their {@link StateTable}.
+ *
+ * @param <T> type of the iterated elements
+ */
+class ModificationTrackingIterator<T> implements Iterator<T> {
+
+	/** The iterator over the view of the state object. */
+	final Iterator<T> iterator;
+
+	/** The callback that reports the modification of the state object. */
+	final Runnable onModification;
+
+	ModificationTrackingIterator(Iterator<T> iterator, Runnable onModification) {
+		this.iterator = Preconditions.checkNotNull(iterator);
+		this.onModification = Preconditions.checkNotNull(onModification);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return iterator.hasNext();
+	}
+
+	@Override
+	public T next() {
+		return iterator.next();
+	}
+
+	@Override
+	public void remove() {
+		iterator.remove();
+		onModification.run();
+	}
+
+	/**
+	 * Creates an iterator over map entries which also runs the callback when the value of an entry is set.
+	 */
+	static <UK, UV> Iterator<Map.Entry<UK, UV>> ofEntries(
+		Iterator<Map.Entry<UK, UV>> iterator,
+		Runnable onModification) {
+
+		return new ModificationTrackingIterator<Map.Entry<UK, UV>>(iterator, onModification) {
+			@Override
+			public Map.Entry<UK, UV> next() {
+				return new ModificationTrackingEntry<>(this.iterator.next(), this.onModification);
+			}
+		};
+	}
+
+	/**
+	 * A map entry that runs the callback when its value is set.
+	 */
+	private static final class ModificationTrackingEntry<UK, UV> implements Map.Entry<UK, UV> {
+
+		private final Map.Entry<UK, UV> entry;
+
+		private final Runnable onModification;
+
+		ModificationTrackingEntry(Map.Entry<UK, UV> entry, Runnable onModification) {
+			this.entry = entry;
+			this.onModification = onModification;
+		}
+
+		@Override
+		public UK getKey() {
+			return entry.getKey();
+		}
+
+		@Override
+		public UV getValue() {
+			return entry.getValue();
+		}
+
+		@Override
+		public UV setValue(UV value) {
+			final UV oldValue = entry.setValue(value);
+			onModification.run();
+			return oldValue;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+
+			Map.Entry<?, ?> that = (Map.Entry<?, ?>) o;
+			return Objects.equals(getKey(), that.getKey()) && Objects.equals(getValue(), that.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return entry.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return entry.toString();
+		}
+	}
+}
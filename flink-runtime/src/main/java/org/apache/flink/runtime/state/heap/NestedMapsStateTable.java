@@ -35,6 +35,7 @@ import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
 import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -104,6 +105,10 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 		return state;
 	}
 
+	/**
+	 * Returns the map for the given key-group, or {@code null} if the key-group has no state. All accesses to the
+	 * state of a key-group go through this method.
+	 */
 	@VisibleForTesting
 	Map<N, Map<K, S>> getMapForKeyGroup(int keyGroupIndex) {
 		final int pos = indexToOffset(keyGroupIndex);
@@ -117,7 +122,7 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 	/**
 	 * Sets the given map for the given key-group.
 	 */
-	private void setMapForKeyGroup(int keyGroupId, Map<N, Map<K, S>> map) {
+	void setMapForKeyGroup(int keyGroupId, Map<N, Map<K, S>> map) {
 		try {
 			state[indexToOffset(keyGroupId)] = map;
 		} catch (ArrayIndexOutOfBoundsException e) {
@@ -129,7 +134,7 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 	/**
 	 * Translates a key-group id to the internal array offset.
 	 */
-	private int indexToOffset(int index) {
+	int indexToOffset(int index) {
 		return index - keyGroupOffset;
 	}
 
@@ -256,7 +261,8 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 		return keyedMap.put(key, value);
 	}
 
-	private void remove(K key, int keyGroupIndex, N namespace) {
+	@Override
+	public void remove(K key, int keyGroupIndex, N namespace) {
 		removeAndGetOld(key, keyGroupIndex, namespace);
 	}
 
@@ -322,7 +328,7 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 
 	// snapshots ---------------------------------------------------------------------------------------------------
 
-	private static <K, N, S> int countMappingsInKeyGroup(final Map<N, Map<K, S>> keyGroupMap) {
+	static <K, N, S> int countMappingsInKeyGroup(final Map<N, Map<K, S>> keyGroupMap) {
 		int count = 0;
 		for (Map<K, S> namespaceMap : keyGroupMap.values()) {
 			count += namespaceMap.size();
@@ -331,6 +337,29 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 		return count;
 	}
 
+	/**
+	 * Writes the given mappings of a key-group in the format of the snapshots, i.e. the number of mappings followed
+	 * by the serialized namespace, key, and state of each mapping.
+	 */
+	static <K, N, S> void writeKeyGroupMap(
+		Map<N, Map<K, S>> keyGroupMap,
+		TypeSerializer<K> keySerializer,
+		TypeSerializer<N> namespaceSerializer,
+		TypeSerializer<S> stateSerializer,
+		DataOutputView dov) throws IOException {
+
+		dov.writeInt(countMappingsInKeyGroup(keyGroupMap));
+		for (Map.Entry<N, Map<K, S>> namespaceEntry : keyGroupMap.entrySet()) {
+			final N namespace = namespaceEntry.getKey();
+			final Map<K, S> namespaceMap = namespaceEntry.getValue();
+			for (Map.Entry<K, S> keyEntry : namespaceMap.entrySet()) {
+				namespaceSerializer.serialize(namespace, dov);
+				keySerializer.serialize(keyEntry.getKey(), dov);
+				stateSerializer.serialize(keyEntry.getValue(), dov);
+			}
+		}
+	}
+
 	@Nonnull
 	@Override
 	public NestedMapsStateTableSnapshot<K, N, S> stateSnapshot() {
@@ -386,26 +415,24 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 		 */
 		@Override
 		public void writeStateInKeyGroup(@Nonnull DataOutputView dov, int keyGroupId) throws IOException {
-			final Map<N, Map<K, S>> keyGroupMap = owningStateTable.getMapForKeyGroup(keyGroupId);
+			writeKeyGroup(dov, owningStateTable.getMapForKeyGroup(keyGroupId));
+		}
+
+		void writeKeyGroup(@Nonnull DataOutputView dov, @Nullable Map<N, Map<K, S>> keyGroupMap) throws IOException {
 			if (null != keyGroupMap) {
-				Map<N, Map<K, S>> filteredMappings = filterMappingsInKeyGroupIfNeeded(keyGroupMap);
-				dov.writeInt(countMappingsInKeyGroup(filteredMappings));
-				for (Map.Entry<N, Map<K, S>> namespaceEntry : filteredMappings.entrySet()) {
-					final N namespace = namespaceEntry.getKey();
-					final Map<K, S> namespaceMap = namespaceEntry.getValue();
-					for (Map.Entry<K, S> keyEntry : namespaceMap.entrySet()) {
-						writeElement(namespace, keyEntry, dov);
-					}
-				}
+				writeKeyGroupMap(
+					filterMappingsInKeyGroupIfNeeded(keyGroupMap),
+					keySerializer,
+					namespaceSerializer,
+					stateSerializer,
+					dov);
 			} else {
 				dov.writeInt(0);
 			}
 		}
 
-		private void writeElement(N namespace, Map.Entry<K, S> keyEntry, DataOutputView dov) throws IOException {
-			namespaceSerializer.serialize(namespace, dov);
-			keySerializer.serialize(keyEntry.getKey(), dov);
-			stateSerializer.serialize(keyEntry.getValue(), dov);
+		boolean hasSnapshotFilter() {
+			return snapshotFilter != null;
 		}
 
 		private Map<N, Map<K, S>> filterMappingsInKeyGroupIfNeeded(final Map<N, Map<K, S>> keyGroupMap) {
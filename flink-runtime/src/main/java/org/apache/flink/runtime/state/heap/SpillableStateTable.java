@@ -0,0 +1,713 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateEntry.SimpleStateEntry;
+import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * A {@link NestedMapsStateTable} that can move the state of cold key-groups out of the Java heap. The
+ * {@link HeapSpillManager} of the backend decides when to spill and which key-groups are cold; a spilled key-group is
+ * serialized to a local file and transparently loaded back into the heap on its next access.
+ *
+ * <p>Spilled key-groups are written in the format of the snapshots, so that a snapshot can copy them as-is, without
+ * deserializing them again. The mappings of each namespace are written in one section of the file, so that the keys
+ * of a namespace can be read without deserializing the whole key-group. Like {@link NestedMapsStateTable}, this table
+ * only supports synchronous snapshots.
+ *
+ * <p>The {@link #getStateIncrementalVisitor(int) incremental visitor} also covers the spilled key-groups. It reads
+ * them without loading them into the heap, and writes them back if their entries were changed.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+@Internal
+public class SpillableStateTable<K, N, S> extends NestedMapsStateTable<K, N, S> {
+
+	/** The maximum number of mappings that are serialized to estimate the size of the mappings on the heap. */
+	private static final int SIZE_SAMPLE_MAPPINGS = 1024;
+
+	/** The manager that coordinates the spilling of all tables of the backend. */
+	private final HeapSpillManager spillManager;
+
+	/** The spilled key-groups, {@code null} for every key-group that is on the heap. */
+	private final SpilledKeyGroup<K, N, S>[] spilledKeyGroups;
+
+	/** The access tick (as handed out by the spill manager) of the latest access to each key-group. */
+	private final long[] lastAccessTicks;
+
+	/** The serialized size of the mappings that were spilled or sampled so far, to estimate the size of the heap state. */
+	private long serializedBytes;
+
+	/** The number of the mappings that were spilled or sampled so far. */
+	private long serializedMappings;
+
+	/**
+	 * Creates a new {@link SpillableStateTable} for the given key context and meta info.
+	 *
+	 * @param keyContext the key context.
+	 * @param metaInfo the meta information for this state table.
+	 * @param keySerializer the serializer of the key.
+	 * @param spillManager the manager that coordinates the spilling of all tables of the backend.
+	 */
+	public SpillableStateTable(
+		InternalKeyContext<K> keyContext,
+		RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+		TypeSerializer<K> keySerializer,
+		HeapSpillManager spillManager) {
+		super(keyContext, metaInfo, keySerializer);
+		this.spillManager = spillManager;
+
+		final int numberOfKeyGroups = keyContext.getKeyGroupRange().getNumberOfKeyGroups();
+
+		@SuppressWarnings("unchecked")
+		SpilledKeyGroup<K, N, S>[] spilledKeyGroups = (SpilledKeyGroup<K, N, S>[]) new SpilledKeyGroup[numberOfKeyGroups];
+		this.spilledKeyGroups = spilledKeyGroups;
+		this.lastAccessTicks = new long[numberOfKeyGroups];
+
+		spillManager.registerStateTable(this);
+	}
+
+	// ------------------------------------------------------------------------
+	//  access to maps
+	// ------------------------------------------------------------------------
+
+	@Override
+	Map<N, Map<K, S>> getMapForKeyGroup(int keyGroupIndex) {
+		final int pos = indexToOffset(keyGroupIndex);
+		if (pos < 0 || pos >= lastAccessTicks.length) {
+			return null;
+		}
+
+		// this may spill other key-groups, but never the one that is accessed
+		lastAccessTicks[pos] = spillManager.onAccess(this, keyGroupIndex);
+
+		final SpilledKeyGroup<K, N, S> spilledKeyGroup = spilledKeyGroups[pos];
+		if (spilledKeyGroup != null) {
+			// a key-group that is visited by the incremental visitor is already deserialized, maybe with changes
+			final Map<N, Map<K, S>> keyGroupMap;
+			if (spilledKeyGroup.visitedMap != null) {
+				keyGroupMap = spilledKeyGroup.visitedMap;
+			} else {
+				try {
+					keyGroupMap = readSpilledKeyGroup(spilledKeyGroup);
+				} catch (IOException e) {
+					throw new FlinkRuntimeException("Could not load spilled key-group " + keyGroupIndex +
+						" of state " + metaInfo.getName() + '.', e);
+				}
+			}
+			setMapForKeyGroup(keyGroupIndex, keyGroupMap);
+			spilledKeyGroups[pos] = null;
+			spilledKeyGroup.discard();
+		}
+
+		return getHeapMapForKeyGroup(keyGroupIndex);
+	}
+
+	/**
+	 * Returns the map of the given key-group if it is on the heap, without loading it or counting it as an access.
+	 */
+	@Nullable
+	Map<N, Map<K, S>> getHeapMapForKeyGroup(int keyGroupIndex) {
+		return super.getMapForKeyGroup(keyGroupIndex);
+	}
+
+	@Nullable
+	SpilledKeyGroup<K, N, S> getSpilledKeyGroup(int keyGroupIndex) {
+		return spilledKeyGroups[indexToOffset(keyGroupIndex)];
+	}
+
+	long getLastAccessTick(int keyGroupIndex) {
+		return lastAccessTicks[indexToOffset(keyGroupIndex)];
+	}
+
+	KeyGroupRange getKeyGroupRange() {
+		return keyContext.getKeyGroupRange();
+	}
+
+	// ------------------------------------------------------------------------
+	//  spilling
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Moves the state of the given key-group out of the heap.
+	 *
+	 * @param keyGroupIndex the key-group to spill.
+	 * @return the number of bytes that were written, 0 if the key-group has no state on the heap.
+	 */
+	long spillKeyGroup(int keyGroupIndex) throws IOException {
+		final Map<N, Map<K, S>> keyGroupMap = getHeapMapForKeyGroup(keyGroupIndex);
+		if (keyGroupMap == null || keyGroupMap.isEmpty()) {
+			return 0L;
+		}
+
+		final SpilledKeyGroup<K, N, S> spilledKeyGroup = writeSpilledKeyGroup(keyGroupMap);
+		spilledKeyGroups[indexToOffset(keyGroupIndex)] = spilledKeyGroup;
+		setMapForKeyGroup(keyGroupIndex, null);
+
+		final long bytes = spilledKeyGroup.file.length();
+		serializedBytes += bytes;
+		serializedMappings += spilledKeyGroup.numMappings;
+		return bytes;
+	}
+
+	/**
+	 * Writes the given mappings of a key-group to a new spill file, in the format of the snapshots (see
+	 * {@link #writeKeyGroupMap}) with the mappings grouped by namespace.
+	 */
+	private SpilledKeyGroup<K, N, S> writeSpilledKeyGroup(Map<N, Map<K, S>> keyGroupMap) throws IOException {
+		final TypeSerializer<N> namespaceSerializer = metaInfo.getNamespaceSerializer();
+		final TypeSerializer<S> stateSerializer = metaInfo.getStateSerializer();
+
+		final int numMappings = countMappingsInKeyGroup(keyGroupMap);
+		final Map<N, NamespaceSection> namespaceSections = new HashMap<>(keyGroupMap.size());
+
+		final File spillFile = spillManager.newSpillFile();
+		try (DataOutputViewStreamWrapper out = new DataOutputViewStreamWrapper(
+				new BufferedOutputStream(new FileOutputStream(spillFile)))) {
+
+			out.writeInt(numMappings);
+			for (Map.Entry<N, Map<K, S>> namespaceEntry : keyGroupMap.entrySet()) {
+				final N namespace = namespaceEntry.getKey();
+				final Map<K, S> namespaceMap = namespaceEntry.getValue();
+				if (namespaceMap.isEmpty()) {
+					continue;
+				}
+
+				// the written bytes are only counted up to Integer.MAX_VALUE
+				if (out.size() == Integer.MAX_VALUE) {
+					throw new IOException("Cannot spill a key-group of state " + metaInfo.getName() +
+						" that is larger than " + Integer.MAX_VALUE + " bytes.");
+				}
+				namespaceSections.put(namespace, new NamespaceSection(out.size(), namespaceMap.size()));
+
+				for (Map.Entry<K, S> keyEntry : namespaceMap.entrySet()) {
+					namespaceSerializer.serialize(namespace, out);
+					keySerializer.serialize(keyEntry.getKey(), out);
+					stateSerializer.serialize(keyEntry.getValue(), out);
+				}
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(spillFile.toPath());
+			throw e;
+		}
+
+		return new SpilledKeyGroup<>(spillFile, numMappings, namespaceSections, namespaceSerializer, stateSerializer);
+	}
+
+	/**
+	 * Deserializes the given spilled key-group, without loading it back into the table.
+	 */
+	Map<N, Map<K, S>> readSpilledKeyGroup(SpilledKeyGroup<K, N, S> spilledKeyGroup) throws IOException {
+		final TypeSerializer<N> namespaceSerializer = spilledKeyGroup.namespaceSerializer;
+		final TypeSerializer<S> stateSerializer = spilledKeyGroup.stateSerializer;
+
+		try (DataInputViewStreamWrapper in = new DataInputViewStreamWrapper(
+				new BufferedInputStream(new FileInputStream(spilledKeyGroup.file)))) {
+
+			final int numMappings = in.readInt();
+			final Map<N, Map<K, S>> keyGroupMap = new HashMap<>();
+			for (int i = 0; i < numMappings; ++i) {
+				N namespace = namespaceSerializer.deserialize(in);
+				K key = keySerializer.deserialize(in);
+				S state = stateSerializer.deserialize(in);
+				keyGroupMap.computeIfAbsent(namespace, n -> new HashMap<>()).put(key, state);
+			}
+			return keyGroupMap;
+		}
+	}
+
+	/**
+	 * Deserializes the mappings of the given namespace of a spilled key-group, without reading the other namespaces.
+	 */
+	private Map<K, S> readSpilledNamespace(SpilledKeyGroup<K, N, S> spilledKeyGroup, N namespace) throws IOException {
+		final NamespaceSection section = spilledKeyGroup.namespaceSections.get(namespace);
+		if (section == null) {
+			return Collections.emptyMap();
+		}
+
+		final TypeSerializer<N> namespaceSerializer = spilledKeyGroup.namespaceSerializer;
+		final TypeSerializer<S> stateSerializer = spilledKeyGroup.stateSerializer;
+
+		try (FileInputStream fileIn = new FileInputStream(spilledKeyGroup.file)) {
+			fileIn.getChannel().position(section.offset);
+
+			final DataInputViewStreamWrapper in = new DataInputViewStreamWrapper(new BufferedInputStream(fileIn));
+			final Map<K, S> namespaceMap = new HashMap<>(section.numMappings);
+			for (int i = 0; i < section.numMappings; ++i) {
+				namespaceSerializer.deserialize(in);
+				K key = keySerializer.deserialize(in);
+				S state = stateSerializer.deserialize(in);
+				namespaceMap.put(key, state);
+			}
+			return namespaceMap;
+		}
+	}
+
+	/**
+	 * Estimates the serialized size of the state of this table that is on the heap, from the average serialized size
+	 * of the mappings that were spilled so far, or of a sample of the mappings if nothing was spilled yet.
+	 */
+	long estimateHeapStateBytes() throws IOException {
+		long numMappings = 0L;
+		Map<N, Map<K, S>> sampleKeyGroupMap = null;
+		for (int keyGroup : getKeyGroupRange()) {
+			final Map<N, Map<K, S>> keyGroupMap = getHeapMapForKeyGroup(keyGroup);
+			if (keyGroupMap != null && !keyGroupMap.isEmpty()) {
+				numMappings += countMappingsInKeyGroup(keyGroupMap);
+				if (sampleKeyGroupMap == null) {
+					sampleKeyGroupMap = keyGroupMap;
+				}
+			}
+		}
+
+		if (numMappings == 0L) {
+			return 0L;
+		}
+		if (serializedMappings == 0L) {
+			sampleSerializedSize(sampleKeyGroupMap);
+		}
+		return (long) (numMappings * ((double) serializedBytes / serializedMappings));
+	}
+
+	private void sampleSerializedSize(Map<N, Map<K, S>> keyGroupMap) throws IOException {
+		final TypeSerializer<N> namespaceSerializer = metaInfo.getNamespaceSerializer();
+		final TypeSerializer<S> stateSerializer = metaInfo.getStateSerializer();
+
+		final ByteArrayOutputStreamWithPos bytes = new ByteArrayOutputStreamWithPos();
+		final DataOutputViewStreamWrapper out = new DataOutputViewStreamWrapper(bytes);
+		int numMappings = 0;
+		for (Map.Entry<N, Map<K, S>> namespaceEntry : keyGroupMap.entrySet()) {
+			for (Map.Entry<K, S> keyEntry : namespaceEntry.getValue().entrySet()) {
+				if (numMappings == SIZE_SAMPLE_MAPPINGS) {
+					break;
+				}
+				namespaceSerializer.serialize(namespaceEntry.getKey(), out);
+				keySerializer.serialize(keyEntry.getKey(), out);
+				stateSerializer.serialize(keyEntry.getValue(), out);
+				numMappings++;
+			}
+		}
+
+		serializedBytes += bytes.getPosition();
+		serializedMappings += numMappings;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public int size() {
+		int count = super.size();
+		for (SpilledKeyGroup<K, N, S> spilledKeyGroup : spilledKeyGroups) {
+			if (spilledKeyGroup != null) {
+				count += spilledKeyGroup.numMappings;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public Stream<K> getKeys(N namespace) {
+		Stream<K> spilledKeys = Arrays.stream(spilledKeyGroups)
+			.filter(Objects::nonNull)
+			.filter(spilledKeyGroup -> spilledKeyGroup.namespaceSections.containsKey(namespace))
+			.flatMap(spilledKeyGroup -> readSpilledNamespaceUnchecked(spilledKeyGroup, namespace).keySet().stream());
+
+		return Stream.concat(super.getKeys(namespace), spilledKeys);
+	}
+
+	@Override
+	public int sizeOfNamespace(Object namespace) {
+		int count = super.sizeOfNamespace(namespace);
+		for (SpilledKeyGroup<K, N, S> spilledKeyGroup : spilledKeyGroups) {
+			if (spilledKeyGroup != null) {
+				NamespaceSection section = spilledKeyGroup.namespaceSections.get(namespace);
+				count += section != null ? section.numMappings : 0;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(int recommendedMaxNumberOfReturnedRecords) {
+		return new SpillableStateEntryVisitor(recommendedMaxNumberOfReturnedRecords);
+	}
+
+	@VisibleForTesting
+	int numberOfSpilledKeyGroups() {
+		int count = 0;
+		for (SpilledKeyGroup<K, N, S> spilledKeyGroup : spilledKeyGroups) {
+			if (spilledKeyGroup != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private Map<N, Map<K, S>> readSpilledKeyGroupUnchecked(SpilledKeyGroup<K, N, S> spilledKeyGroup) {
+		try {
+			return readSpilledKeyGroup(spilledKeyGroup);
+		} catch (IOException e) {
+			throw new FlinkRuntimeException("Could not read spilled key-group of state " + metaInfo.getName() + '.', e);
+		}
+	}
+
+	private Map<K, S> readSpilledNamespaceUnchecked(SpilledKeyGroup<K, N, S> spilledKeyGroup, N namespace) {
+		try {
+			return readSpilledNamespace(spilledKeyGroup, namespace);
+		} catch (IOException e) {
+			throw new FlinkRuntimeException("Could not read spilled key-group of state " + metaInfo.getName() + '.', e);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Incremental visitor over the entries of all key-groups of a {@link SpillableStateTable}, on the heap or spilled.
+	 *
+	 * <p>The visitor copies the entries of one key-group at a time and returns the values that are up to date when
+	 * they are returned. A spilled key-group is deserialized without loading it into the table. Changes to its entries
+	 * are written back to a new spill file once the visitor moves on to the next key-group; if the key-group is
+	 * loaded in the meantime, it is loaded with these changes.
+	 */
+	private final class SpillableStateEntryVisitor implements StateIncrementalVisitor<K, N, S> {
+
+		private final int maxEntries;
+
+		/** The offset of the next key-group to visit. */
+		private int nextOffset;
+
+		/** The offset of the key-group that is currently visited. */
+		private int visitedOffset;
+
+		/** The entries of the visited key-group that were not returned yet. */
+		@Nullable
+		private Iterator<StateEntry<K, N, S>> visitedEntries;
+
+		/** The visited key-group if it was spilled when the visitor reached it, otherwise null. */
+		@Nullable
+		private SpilledKeyGroup<K, N, S> visitedSpilledKeyGroup;
+
+		/** Whether entries of the visited spilled key-group were changed. */
+		private boolean visitedSpilledKeyGroupChanged;
+
+		SpillableStateEntryVisitor(int recommendedMaxNumberOfReturnedRecords) {
+			this.maxEntries = Math.max(recommendedMaxNumberOfReturnedRecords, 1);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (visitedEntries != null && visitedEntries.hasNext()) {
+				return true;
+			}
+			while (nextOffset < spilledKeyGroups.length && !hasStateAt(nextOffset)) {
+				nextOffset++;
+			}
+			if (nextOffset < spilledKeyGroups.length) {
+				return true;
+			}
+			finishVisitedKeyGroup();
+			return false;
+		}
+
+		@Override
+		public Collection<StateEntry<K, N, S>> nextEntries() {
+			if ((visitedEntries == null || !visitedEntries.hasNext()) && !visitNextKeyGroup()) {
+				return Collections.emptyList();
+			}
+
+			final Map<N, Map<K, S>> keyGroupMap = getVisitedKeyGroupMap();
+			final List<StateEntry<K, N, S>> entries = new ArrayList<>(maxEntries);
+			while (visitedEntries.hasNext() && entries.size() < maxEntries) {
+				final StateEntry<K, N, S> entry = visitedEntries.next();
+				final Map<K, S> namespaceMap = keyGroupMap == null ? null : keyGroupMap.get(entry.getNamespace());
+				final S upToDateValue = namespaceMap == null ? null : namespaceMap.get(entry.getKey());
+				if (upToDateValue != null) {
+					entries.add(new SimpleStateEntry<>(entry.getKey(), entry.getNamespace(), upToDateValue));
+				}
+			}
+			return entries;
+		}
+
+		@Override
+		public void remove(StateEntry<K, N, S> stateEntry) {
+			final Map<N, Map<K, S>> keyGroupMap = getVisitedKeyGroupMapForChange();
+			final Map<K, S> namespaceMap = keyGroupMap == null ? null : keyGroupMap.get(stateEntry.getNamespace());
+			if (namespaceMap != null) {
+				namespaceMap.remove(stateEntry.getKey());
+				if (namespaceMap.isEmpty()) {
+					keyGroupMap.remove(stateEntry.getNamespace());
+				}
+			}
+		}
+
+		@Override
+		public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+			final Map<N, Map<K, S>> keyGroupMap = getVisitedKeyGroupMapForChange();
+			if (keyGroupMap != null) {
+				keyGroupMap.computeIfAbsent(stateEntry.getNamespace(), n -> new HashMap<>()).put(stateEntry.getKey(), newValue);
+			}
+		}
+
+		private boolean hasStateAt(int offset) {
+			if (spilledKeyGroups[offset] != null) {
+				return true;
+			}
+			final Map<N, Map<K, S>> keyGroupMap = getHeapMapForKeyGroup(toKeyGroupIndex(offset));
+			return keyGroupMap != null && !keyGroupMap.isEmpty();
+		}
+
+		private boolean visitNextKeyGroup() {
+			finishVisitedKeyGroup();
+
+			while (nextOffset < spilledKeyGroups.length) {
+				final int offset = nextOffset++;
+				final SpilledKeyGroup<K, N, S> spilledKeyGroup = spilledKeyGroups[offset];
+
+				final Map<N, Map<K, S>> keyGroupMap;
+				if (spilledKeyGroup != null) {
+					keyGroupMap = readSpilledKeyGroupUnchecked(spilledKeyGroup);
+					spilledKeyGroup.visitedMap = keyGroupMap;
+					visitedSpilledKeyGroup = spilledKeyGroup;
+				} else {
+					keyGroupMap = getHeapMapForKeyGroup(toKeyGroupIndex(offset));
+				}
+
+				if (keyGroupMap != null && !keyGroupMap.isEmpty()) {
+					final List<StateEntry<K, N, S>> entries = new ArrayList<>(countMappingsInKeyGroup(keyGroupMap));
+					for (Map.Entry<N, Map<K, S>> namespaceEntry : keyGroupMap.entrySet()) {
+						for (Map.Entry<K, S> keyEntry : namespaceEntry.getValue().entrySet()) {
+							entries.add(new SimpleStateEntry<>(keyEntry.getKey(), namespaceEntry.getKey(), keyEntry.getValue()));
+						}
+					}
+					visitedOffset = offset;
+					visitedEntries = entries.iterator();
+					return true;
+				}
+				finishVisitedKeyGroup();
+			}
+			return false;
+		}
+
+		/**
+		 * Returns the current map of the visited key-group, or null if it was spilled since the visitor reached it.
+		 */
+		@Nullable
+		private Map<N, Map<K, S>> getVisitedKeyGroupMap() {
+			if (visitedSpilledKeyGroup != null && spilledKeyGroups[visitedOffset] == visitedSpilledKeyGroup) {
+				return visitedSpilledKeyGroup.visitedMap;
+			}
+			// the key-group was on the heap or was loaded with the visited map in the meantime
+			return getHeapMapForKeyGroup(toKeyGroupIndex(visitedOffset));
+		}
+
+		@Nullable
+		private Map<N, Map<K, S>> getVisitedKeyGroupMapForChange() {
+			if (visitedSpilledKeyGroup != null) {
+				visitedSpilledKeyGroupChanged = true;
+			}
+			return getVisitedKeyGroupMap();
+		}
+
+		/**
+		 * Writes back the changes to the visited key-group, if it is still spilled.
+		 */
+		private void finishVisitedKeyGroup() {
+			final SpilledKeyGroup<K, N, S> spilledKeyGroup = visitedSpilledKeyGroup;
+			if (spilledKeyGroup != null) {
+				final Map<N, Map<K, S>> keyGroupMap = spilledKeyGroup.visitedMap;
+				spilledKeyGroup.visitedMap = null;
+
+				if (visitedSpilledKeyGroupChanged && spilledKeyGroups[visitedOffset] == spilledKeyGroup) {
+					try {
+						spilledKeyGroups[visitedOffset] = keyGroupMap.isEmpty() ? null : writeSpilledKeyGroup(keyGroupMap);
+					} catch (IOException e) {
+						throw new FlinkRuntimeException("Could not write spilled key-group of state " +
+							metaInfo.getName() + '.', e);
+					}
+					spilledKeyGroup.discard();
+				}
+			}
+
+			visitedSpilledKeyGroup = null;
+			visitedSpilledKeyGroupChanged = false;
+			visitedEntries = null;
+		}
+
+		private int toKeyGroupIndex(int offset) {
+			return getKeyGroupRange().getStartKeyGroup() + offset;
+		}
+	}
+
+	// snapshots ---------------------------------------------------------------------------------------------------
+
+	@Nonnull
+	@Override
+	public SpillableStateTableSnapshot<K, N, S> stateSnapshot() {
+		return new SpillableStateTableSnapshot<>(this, metaInfo.getStateSnapshotTransformFactory());
+	}
+
+	/**
+	 * Snapshot of a {@link SpillableStateTable}, which copies the spilled key-groups into the snapshot without
+	 * deserializing them, unless they must be transformed or were written with outdated serializers.
+	 *
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 * @param <S> type of state.
+	 */
+	static class SpillableStateTableSnapshot<K, N, S> extends NestedMapsStateTableSnapshot<K, N, S> {
+
+		private final SpillableStateTable<K, N, S> spillableStateTable;
+		private final TypeSerializer<N> namespaceSerializer;
+		private final TypeSerializer<S> stateSerializer;
+
+		SpillableStateTableSnapshot(
+			SpillableStateTable<K, N, S> owningTable,
+			StateSnapshotTransformFactory<S> snapshotTransformFactory) {
+
+			super(owningTable, snapshotTransformFactory);
+			this.spillableStateTable = owningTable;
+			this.namespaceSerializer = owningTable.getNamespaceSerializer();
+			this.stateSerializer = owningTable.getStateSerializer();
+		}
+
+		@Override
+		public void writeStateInKeyGroup(@Nonnull DataOutputView dov, int keyGroupId) throws IOException {
+			final SpilledKeyGroup<K, N, S> spilledKeyGroup = spillableStateTable.getSpilledKeyGroup(keyGroupId);
+			if (spilledKeyGroup == null) {
+				writeKeyGroup(dov, spillableStateTable.getHeapMapForKeyGroup(keyGroupId));
+			} else if (!hasSnapshotFilter() && spilledKeyGroup.isWrittenWith(namespaceSerializer, stateSerializer)) {
+				spilledKeyGroup.copyTo(dov);
+			} else {
+				writeKeyGroup(dov, spillableStateTable.readSpilledKeyGroup(spilledKeyGroup));
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The state of a key-group that was moved out of the heap.
+	 *
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 * @param <S> type of state.
+	 */
+	static final class SpilledKeyGroup<K, N, S> {
+
+		/** The file that holds the key-group, in the format of the snapshots. */
+		private final File file;
+
+		/** The number of key/namespace mappings in the key-group. */
+		private final int numMappings;
+
+		/** The sections of the file that hold the mappings of each namespace. */
+		private final Map<N, NamespaceSection> namespaceSections;
+
+		/** The serializers that the key-group was written with. */
+		private final TypeSerializer<N> namespaceSerializer;
+		private final TypeSerializer<S> stateSerializer;
+
+		/** The deserialized key-group while it is visited by the incremental visitor, otherwise null. */
+		@Nullable
+		private Map<N, Map<K, S>> visitedMap;
+
+		SpilledKeyGroup(
+			File file,
+			int numMappings,
+			Map<N, NamespaceSection> namespaceSections,
+			TypeSerializer<N> namespaceSerializer,
+			TypeSerializer<S> stateSerializer) {
+			this.file = file;
+			this.numMappings = numMappings;
+			this.namespaceSections = namespaceSections;
+			this.namespaceSerializer = namespaceSerializer;
+			this.stateSerializer = stateSerializer;
+		}
+
+		boolean isWrittenWith(TypeSerializer<N> namespaceSerializer, TypeSerializer<S> stateSerializer) {
+			return this.namespaceSerializer == namespaceSerializer && this.stateSerializer == stateSerializer;
+		}
+
+		void copyTo(DataOutputView dov) throws IOException {
+			final byte[] buffer = new byte[8 * 1024];
+			try (InputStream in = new FileInputStream(file)) {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					dov.write(buffer, 0, read);
+				}
+			}
+		}
+
+		void discard() {
+			// if this fails, the file is removed together with the spill directory when the backend is disposed
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	/**
+	 * The position and the number of the mappings of one namespace in the file of a spilled key-group.
+	 */
+	private static final class NamespaceSection {
+
+		private final long offset;
+		private final int numMappings;
+
+		NamespaceSection(long offset, int numMappings) {
+			this.offset = offset;
+			this.numMappings = numMappings;
+		}
+	}
+}
@@ -178,6 +178,34 @@ public abstract class StateTable<K, N, S> implements StateSnapshotRestore {
 
 	public abstract StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(int recommendedMaxNumberOfReturnedRecords);
 
+	// Modification tracking ----------------------------------------------------------------------
+
+	/**
+	 * Returns whether this table records the modified mappings. If so, states that modify their state objects in
+	 * place must report the modifications via {@link #stateModified(Object)} or
+	 * {@link #stateModified(Object, Object)}.
+	 */
+	public boolean isRecordingModifications() {
+		return false;
+	}
+
+	/**
+	 * Reports that the state of the mapping for the composite of active key and given namespace was modified in place.
+	 *
+	 * @param namespace the namespace. Not null.
+	 */
+	public void stateModified(N namespace) {
+	}
+
+	/**
+	 * Reports that the state of the mapping for the given key and namespace was modified in place.
+	 *
+	 * @param key       the key. Not null.
+	 * @param namespace the namespace. Not null.
+	 */
+	public void stateModified(K key, N namespace) {
+	}
+
 	// Meta data setter / getter and toString -----------------------------------------------------
 
 	public TypeSerializer<S> getStateSerializer() {
@@ -200,6 +228,8 @@ public abstract class StateTable<K, N, S> implements StateSnapshotRestore {
 
 	public abstract void put(K key, int keyGroup, N namespace, S state);
 
+	public abstract void remove(K key, int keyGroup, N namespace);
+
 	// For testing --------------------------------------------------------------------------------
 
 	@VisibleForTesting
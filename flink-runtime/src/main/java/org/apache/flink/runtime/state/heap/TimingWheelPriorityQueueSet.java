@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.runtime.state.InternalPriorityQueue;
+import org.apache.flink.runtime.state.KeyExtractorFunction;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.PriorityComparator;
+import org.apache.flink.runtime.state.TimestampExtractorFunction;
+import org.apache.flink.util.CloseableIterator;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A priority queue with set semantics that is organized as a hierarchical timing wheel over the timestamps of its
+ * elements. Timestamps are discretized into buckets of a configurable resolution. Elements in buckets that are not
+ * due yet are kept in unordered hash sets (the slots of the wheel), so that adding and removing them is O(1) and does
+ * not depend on the number of contained elements. Only when the head of the queue is requested, the slots that
+ * contain the next bucket are moved into a {@link HeapPriorityQueueSet} that establishes the exact order of the
+ * elements within the bucket. All elements of a bucket are therefore handed over to the ordered part at once, which
+ * makes firing many elements with similar timestamps cheap.
+ *
+ * <p>The wheel has {@link #NUM_LEVELS} levels of {@link #SLOTS_PER_LEVEL} slots each. Level {@code n} covers ranges of
+ * {@code SLOTS_PER_LEVEL^n} buckets, so that the whole range of long timestamps can be represented. Elements cascade
+ * down to lower levels as the cursor of the wheel advances, i.e. each element is moved at most once per level.
+ *
+ * <p>This class is intended to manage the elements of a single key-group and is typically used as a partition of a
+ * {@link KeyGroupPartitionedPriorityQueue}, see {@link TimingWheelPriorityQueueSetFactory}.
+ *
+ * @param <T> type of the contained elements.
+ */
+public class TimingWheelPriorityQueueSet<T extends HeapPriorityQueueElement>
+	implements InternalPriorityQueue<T>, HeapPriorityQueueElement {
+
+	/** The number of bits of a bucket that are resolved by one level of the wheel. */
+	private static final int SLOT_BITS = 6;
+
+	/** The number of slots in each level of the wheel. */
+	private static final int SLOTS_PER_LEVEL = 1 << SLOT_BITS;
+
+	/** Mask to extract the slot of a bucket in one level of the wheel. */
+	private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+
+	/** The number of levels that is required to cover all 64 bits of a bucket. */
+	private static final int NUM_LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+	/** Function to extract the timestamp from contained elements. */
+	@Nonnull
+	private final TimestampExtractorFunction<T> timestampExtractor;
+
+	/** The length of the time range that is covered by one bucket. */
+	@Nonnegative
+	private final long resolution;
+
+	/** All elements with a bucket not after the cursor, in priority order. */
+	@Nonnull
+	private final HeapPriorityQueueSet<T> dueElements;
+
+	/** The slots of all levels of the wheel, lazily created. Level {@code n} starts at index {@code n * SLOTS_PER_LEVEL}. */
+	@Nonnull
+	private final HashSet<T>[] slots;
+
+	/** One bit mask per level that marks the non-empty slots of the level. */
+	@Nonnull
+	private final long[] occupiedSlots;
+
+	/**
+	 * The current position of the wheel. All elements in the wheel slots have a bucket after the cursor, all elements
+	 * with a bucket not after the cursor are in {@link #dueElements}. Buckets are compared as unsigned longs.
+	 */
+	private long cursor;
+
+	/** The number of elements in the wheel slots. */
+	@Nonnegative
+	private int wheelSize;
+
+	/** The index of this queue as an element of a heap of partitions. */
+	private int internalIndex;
+
+	/**
+	 * Creates an empty {@link TimingWheelPriorityQueueSet}.
+	 *
+	 * @param elementPriorityComparator comparator for the priority of contained elements.
+	 * @param keyExtractor function to extract a key from the contained elements.
+	 * @param timestampExtractor function to extract the timestamp from the contained elements. The order of the
+	 *                           timestamps must be consistent with the element priority comparator.
+	 * @param resolution the length of the time range that is covered by one bucket of the wheel.
+	 * @param minimumCapacity the minimum and initial capacity of the ordered part of this queue.
+	 * @param keyGroupRange the key-group range of the elements in this set.
+	 * @param totalNumberOfKeyGroups the total number of key-groups of the job.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheelPriorityQueueSet(
+		@Nonnull PriorityComparator<T> elementPriorityComparator,
+		@Nonnull KeyExtractorFunction<T> keyExtractor,
+		@Nonnull TimestampExtractorFunction<T> timestampExtractor,
+		@Nonnegative long resolution,
+		@Nonnegative int minimumCapacity,
+		@Nonnull KeyGroupRange keyGroupRange,
+		@Nonnegative int totalNumberOfKeyGroups) {
+
+		checkArgument(resolution > 0L, "The resolution of the timing wheel must be positive.");
+
+		this.timestampExtractor = timestampExtractor;
+		this.resolution = resolution;
+		this.dueElements = new HeapPriorityQueueSet<>(
+			elementPriorityComparator,
+			keyExtractor,
+			minimumCapacity,
+			keyGroupRange,
+			totalNumberOfKeyGroups);
+		this.slots = new HashSet[NUM_LEVELS * SLOTS_PER_LEVEL];
+		this.occupiedSlots = new long[NUM_LEVELS];
+		this.cursor = 0L;
+		this.wheelSize = 0;
+		this.internalIndex = HeapPriorityQueueElement.NOT_CONTAINED;
+	}
+
+	@Nullable
+	@Override
+	public T poll() {
+		advanceToDueElements();
+		return dueElements.poll();
+	}
+
+	@Nullable
+	@Override
+	public T peek() {
+		advanceToDueElements();
+		return dueElements.peek();
+	}
+
+	/**
+	 * Adds the element to the queue, if no such element is already contained (determined by {@link #equals(Object)}).
+	 *
+	 * @return <code>true</code> if the operation changed the head element or if is it unclear if the head element changed.
+	 * Only returns <code>false</code> iff the head element was not changed by this operation.
+	 */
+	@Override
+	public boolean add(@Nonnull T toAdd) {
+		final long bucket = bucketOf(toAdd);
+
+		if (wheelSize == 0 && dueElements.isEmpty()) {
+			// the queue is empty, so we can move the wheel without cascading any elements
+			cursor = bucket;
+		}
+
+		if (Long.compareUnsigned(bucket, cursor) <= 0) {
+			return dueElements.add(toAdd);
+		}
+
+		return addToWheel(toAdd, bucket) && dueElements.isEmpty();
+	}
+
+	/**
+	 * Removes the given element from the queue, based on comparing the element via {@link #equals(Object)}.
+	 *
+	 * @return <code>true</code> if the operation changed the head element or if is it unclear if the head element changed.
+	 * Only returns <code>false</code> iff the head element was not changed by this operation.
+	 */
+	@Override
+	public boolean remove(@Nonnull T toRemove) {
+		final long bucket = bucketOf(toRemove);
+
+		if (Long.compareUnsigned(bucket, cursor) <= 0) {
+			return dueElements.remove(toRemove);
+		}
+
+		final int level = levelOf(bucket);
+		final int slot = slotOf(bucket, level);
+		final HashSet<T> slotElements = slots[level * SLOTS_PER_LEVEL + slot];
+
+		if (slotElements == null || !slotElements.remove(toRemove)) {
+			return false;
+		}
+
+		if (slotElements.isEmpty()) {
+			occupiedSlots[level] &= ~(1L << slot);
+		}
+		--wheelSize;
+		return dueElements.isEmpty();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public int size() {
+		return dueElements.size() + wheelSize;
+	}
+
+	@Override
+	public void addAll(@Nullable Collection<? extends T> toAdd) {
+		if (toAdd == null) {
+			return;
+		}
+
+		for (T element : toAdd) {
+			add(element);
+		}
+	}
+
+	/**
+	 * Returns an iterator over the elements in this queue. The iterator does not return the elements in any
+	 * particular order.
+	 */
+	@Nonnull
+	@Override
+	public CloseableIterator<T> iterator() {
+		return new TimingWheelIterator();
+	}
+
+	@Override
+	public int getInternalIndex() {
+		return internalIndex;
+	}
+
+	@Override
+	public void setInternalIndex(int newIndex) {
+		this.internalIndex = newIndex;
+	}
+
+	/**
+	 * Moves the wheel forward until the next due elements are in the ordered part of the queue or the wheel is empty.
+	 * The cursor is moved to the start of the next non-empty slot on the lowest possible level. The elements of that
+	 * slot are either due afterwards or cascade down to the lower levels of the wheel, which are empty at that time.
+	 */
+	private void advanceToDueElements() {
+		while (dueElements.isEmpty() && wheelSize > 0) {
+			for (int level = 0; level < NUM_LEVELS; ++level) {
+				final int shift = level * SLOT_BITS;
+				final int currentSlot = slotOf(cursor, level);
+				final long nextSlots = currentSlot == SLOT_MASK ?
+					0L : occupiedSlots[level] & (-1L << (currentSlot + 1));
+
+				if (nextSlots != 0L) {
+					final int nextSlot = Long.numberOfTrailingZeros(nextSlots);
+					final int upperShift = shift + SLOT_BITS;
+					final long upperBits = upperShift >= Long.SIZE ? 0L : cursor & (-1L << upperShift);
+					cursor = upperBits | ((long) nextSlot << shift);
+					cascade(level, nextSlot);
+					break;
+				}
+			}
+		}
+	}
+
+	private void cascade(int level, int slot) {
+		final HashSet<T> slotElements = slots[level * SLOTS_PER_LEVEL + slot];
+		occupiedSlots[level] &= ~(1L << slot);
+		wheelSize -= slotElements.size();
+
+		// elements of the slot now either are due or belong to a lower level than the slot
+		for (T element : slotElements) {
+			final long bucket = bucketOf(element);
+			if (Long.compareUnsigned(bucket, cursor) <= 0) {
+				dueElements.add(element);
+			} else {
+				addToWheel(element, bucket);
+			}
+		}
+
+		slotElements.clear();
+	}
+
+	private boolean addToWheel(@Nonnull T element, long bucket) {
+		final int level = levelOf(bucket);
+		final int slot = slotOf(bucket, level);
+		final int slotIndex = level * SLOTS_PER_LEVEL + slot;
+
+		HashSet<T> slotElements = slots[slotIndex];
+		if (slotElements == null) {
+			slotElements = new HashSet<>();
+			slots[slotIndex] = slotElements;
+		}
+
+		if (!slotElements.add(element)) {
+			return false;
+		}
+
+		occupiedSlots[level] |= 1L << slot;
+		++wheelSize;
+		return true;
+	}
+
+	/**
+	 * Returns the bucket of the given element. The sign bit is flipped, so that buckets of negative timestamps are
+	 * ordered before the buckets of positive timestamps when compared as unsigned longs.
+	 */
+	private long bucketOf(@Nonnull T element) {
+		return Math.floorDiv(timestampExtractor.extractTimestampFromElement(element), resolution) ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * Returns the level of the wheel for a bucket after the cursor. This is the level of the highest slot in which
+	 * the bucket and the cursor differ.
+	 */
+	private int levelOf(long bucket) {
+		return (Long.SIZE - 1 - Long.numberOfLeadingZeros(bucket ^ cursor)) / SLOT_BITS;
+	}
+
+	private static int slotOf(long bucket, int level) {
+		return (int) (bucket >>> (level * SLOT_BITS)) & SLOT_MASK;
+	}
+
+	/**
+	 * Iterator over the ordered part of the queue, followed by the elements in the slots of the wheel.
+	 */
+	private final class TimingWheelIterator implements CloseableIterator<T> {
+
+		private final CloseableIterator<T> dueElementsIterator;
+
+		private Iterator<T> slotIterator;
+
+		private int nextSlotIndex;
+
+		private TimingWheelIterator() {
+			this.dueElementsIterator = dueElements.iterator();
+			this.slotIterator = null;
+			this.nextSlotIndex = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (dueElementsIterator.hasNext()) {
+				return true;
+			}
+
+			while ((slotIterator == null || !slotIterator.hasNext()) && nextSlotIndex < slots.length) {
+				final HashSet<T> slotElements = slots[nextSlotIndex++];
+				slotIterator = slotElements != null ? slotElements.iterator() : null;
+			}
+
+			return slotIterator != null && slotIterator.hasNext();
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException("Iterator has no next element.");
+			}
+
+			return dueElementsIterator.hasNext() ? dueElementsIterator.next() : slotIterator.next();
+		}
+
+		@Override
+		public void close() throws Exception {
+			dueElementsIterator.close();
+		}
+	}
+}
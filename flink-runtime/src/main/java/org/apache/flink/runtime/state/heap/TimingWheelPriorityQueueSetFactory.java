@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.KeyExtractorFunction;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.Keyed;
+import org.apache.flink.runtime.state.PriorityComparable;
+import org.apache.flink.runtime.state.PriorityComparator;
+import org.apache.flink.runtime.state.PriorityQueueSetFactory;
+import org.apache.flink.runtime.state.Timestamped;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Factory for key-group partitioned priority queues that use a {@link TimingWheelPriorityQueueSet} for each
+ * key-group. The produced queues only hold elements that are {@link Timestamped}, e.g. timers, which is why this
+ * is not a general {@link PriorityQueueSetFactory}. Backends use it to implement
+ * {@link PriorityQueueSetFactory#createTimerQueue(String, TypeSerializer)}.
+ */
+public class TimingWheelPriorityQueueSetFactory {
+
+	@Nonnull
+	private final KeyGroupRange keyGroupRange;
+
+	@Nonnegative
+	private final int totalKeyGroups;
+
+	@Nonnegative
+	private final int minimumCapacity;
+
+	@Nonnegative
+	private final long resolution;
+
+	public TimingWheelPriorityQueueSetFactory(
+		@Nonnull KeyGroupRange keyGroupRange,
+		@Nonnegative int totalKeyGroups,
+		@Nonnegative int minimumCapacity,
+		@Nonnegative long resolution) {
+
+		checkArgument(resolution > 0L, "The resolution of the timing wheel must be positive.");
+
+		this.keyGroupRange = keyGroupRange;
+		this.totalKeyGroups = totalKeyGroups;
+		this.minimumCapacity = minimumCapacity;
+		this.resolution = resolution;
+	}
+
+	/**
+	 * Creates a queue of timestamped elements, see {@link PriorityQueueSetFactory#create(String, TypeSerializer)}.
+	 */
+	@Nonnull
+	public <T extends HeapPriorityQueueElement & PriorityComparable & Keyed & Timestamped>
+	KeyGroupedInternalPriorityQueue<T> create(
+		@Nonnull String stateName,
+		@Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
+
+		final int partitionCapacity = Math.max(1, minimumCapacity / keyGroupRange.getNumberOfKeyGroups());
+
+		return new KeyGroupPartitionedPriorityQueue<T, TimingWheelPriorityQueueSet<T>>(
+			KeyExtractorFunction.forKeyedObjects(),
+			PriorityComparator.forPriorityComparableObjects(),
+			(keyGroupId, numKeyGroups, keyExtractorFunction, elementPriorityComparator) ->
+				new TimingWheelPriorityQueueSet<>(
+					elementPriorityComparator,
+					keyExtractorFunction,
+					Timestamped::getTimestamp,
+					resolution,
+					partitionCapacity,
+					KeyGroupRange.of(keyGroupId, keyGroupId),
+					numKeyGroups),
+			keyGroupRange,
+			totalKeyGroups);
+	}
+}
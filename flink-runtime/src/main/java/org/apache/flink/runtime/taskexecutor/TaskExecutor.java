@@ -32,6 +32,7 @@ import org.apache.flink.runtime.clusterframework.types.AllocationID;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.clusterframework.types.SlotID;
 import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.deployment.ShuffleDescriptorCache;
 import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor;
 import org.apache.flink.runtime.entrypoint.ClusterInformation;
 import org.apache.flink.runtime.execution.librarycache.BlobLibraryCacheManager;
@@ -192,6 +193,9 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 
 	private final LeaderRetrievalService resourceManagerLeaderRetriever;
 
+	/** Deserialized shuffle descriptors which are shared by the deployed tasks of a job. */
+	private final ShuffleDescriptorCache shuffleDescriptorCache;
+
 	// ------------------------------------------------------------------------
 
 	private final HardwareDescription hardwareDescription;
@@ -240,6 +244,7 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 		this.taskSlotTable = taskExecutorServices.getTaskSlotTable();
 		this.jobManagerTable = taskExecutorServices.getJobManagerTable();
 		this.jobLeaderService = taskExecutorServices.getJobLeaderService();
+		this.shuffleDescriptorCache = new ShuffleDescriptorCache();
 		this.taskManagerLocation = taskExecutorServices.getTaskManagerLocation();
 		this.localStateStoresManager = taskExecutorServices.getTaskManagerStateStore();
 		this.networkEnvironment = taskExecutorServices.getNetworkEnvironment();
@@ -466,7 +471,10 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 
 			// re-integrate offloaded data:
 			try {
-				tdd.loadBigData(blobCacheService.getPermanentBlobService());
+				tdd.loadBigData(
+					blobCacheService.getPermanentBlobService(),
+					shuffleDescriptorCache,
+					taskManagerLocation.getResourceID());
 			} catch (IOException | ClassNotFoundException e) {
 				throw new TaskSubmissionException("Could not re-integrate offloaded TaskDeploymentDescriptor data.", e);
 			}
@@ -1204,6 +1212,7 @@ public class TaskExecutor extends RpcEndpoint implements TaskExecutorGateway {
 
 		// 3. Disassociate from the JobManager
 		JobManagerConnection jobManagerConnection = jobManagerTable.remove(jobId);
+		shuffleDescriptorCache.clearJob(jobId);
 
 		if (jobManagerConnection != null) {
 			try {
@@ -26,6 +26,7 @@ import org.apache.flink.configuration.NetworkEnvironmentOptions;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.memory.MemoryType;
 import org.apache.flink.runtime.io.network.netty.NettyConfig;
+import org.apache.flink.runtime.io.network.partition.consumer.BufferDebloatConfiguration;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.util.ConfigurationParserUtils;
 import org.apache.flink.util.MathUtils;
@@ -36,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Objects;
 
 import static org.apache.flink.util.MathUtils.checkedDownCast;
 
@@ -63,6 +65,14 @@ public class NetworkEnvironmentConfiguration {
 
 	private final boolean isNetworkDetailedMetrics;
 
+	/** The codec to compress network buffers with, or <tt>null</tt> if compression is disabled. */
+	@Nullable
+	private final String compressionCodec;
+
+	/** The configuration of the buffer debloating, or <tt>null</tt> if it is disabled. */
+	@Nullable
+	private final BufferDebloatConfiguration bufferDebloatConfiguration;
+
 	private final NettyConfig nettyConfig;
 
 	public NetworkEnvironmentConfiguration(
@@ -74,6 +84,8 @@ public class NetworkEnvironmentConfiguration {
 			int floatingNetworkBuffersPerGate,
 			boolean isCreditBased,
 			boolean isNetworkDetailedMetrics,
+			@Nullable String compressionCodec,
+			@Nullable BufferDebloatConfiguration bufferDebloatConfiguration,
 			@Nullable NettyConfig nettyConfig) {
 
 		this.numNetworkBuffers = numNetworkBuffers;
@@ -84,6 +96,8 @@ public class NetworkEnvironmentConfiguration {
 		this.floatingNetworkBuffersPerGate = floatingNetworkBuffersPerGate;
 		this.isCreditBased = isCreditBased;
 		this.isNetworkDetailedMetrics = isNetworkDetailedMetrics;
+		this.compressionCodec = compressionCodec;
+		this.bufferDebloatConfiguration = bufferDebloatConfiguration;
 		this.nettyConfig = nettyConfig;
 	}
 
@@ -125,6 +139,26 @@ public class NetworkEnvironmentConfiguration {
 		return isNetworkDetailedMetrics;
 	}
 
+	/**
+	 * Returns the codec to compress network buffers with.
+	 *
+	 * @return the name of the compression codec, or <tt>null</tt> if compression is disabled
+	 */
+	@Nullable
+	public String compressionCodec() {
+		return compressionCodec;
+	}
+
+	/**
+	 * Returns the configuration of the buffer debloating of the input gates.
+	 *
+	 * @return the buffer debloating configuration, or <tt>null</tt> if the buffer debloating is disabled
+	 */
+	@Nullable
+	public BufferDebloatConfiguration bufferDebloatConfiguration() {
+		return bufferDebloatConfiguration;
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -161,6 +195,13 @@ public class NetworkEnvironmentConfiguration {
 
 		boolean isNetworkDetailedMetrics = configuration.getBoolean(NetworkEnvironmentOptions.NETWORK_DETAILED_METRICS);
 
+		String compressionCodec = configuration.getBoolean(NetworkEnvironmentOptions.NETWORK_COMPRESSION_ENABLED) ?
+			configuration.getString(NetworkEnvironmentOptions.NETWORK_COMPRESSION_CODEC) : null;
+
+		// the floating credits can only be limited with credit-based flow control
+		BufferDebloatConfiguration bufferDebloatConfiguration = isCreditBased ?
+			BufferDebloatConfiguration.fromConfiguration(configuration, pageSize) : null;
+
 		return new NetworkEnvironmentConfiguration(
 			numberOfNetworkBuffers,
 			pageSize,
@@ -170,6 +211,8 @@ public class NetworkEnvironmentConfiguration {
 			extraBuffersPerGate,
 			isCreditBased,
 			isNetworkDetailedMetrics,
+			compressionCodec,
+			bufferDebloatConfiguration,
 			nettyConfig);
 	}
 
@@ -487,6 +530,8 @@ public class NetworkEnvironmentConfiguration {
 		result = 31 * result + networkBuffersPerChannel;
 		result = 31 * result + floatingNetworkBuffersPerGate;
 		result = 31 * result + (isCreditBased ? 1 : 0);
+		result = 31 * result + (compressionCodec != null ? compressionCodec.hashCode() : 0);
+		result = 31 * result + (bufferDebloatConfiguration != null ? bufferDebloatConfiguration.hashCode() : 0);
 		result = 31 * result + (nettyConfig != null ? nettyConfig.hashCode() : 0);
 		return result;
 	}
@@ -509,6 +554,8 @@ public class NetworkEnvironmentConfiguration {
 					this.networkBuffersPerChannel == that.networkBuffersPerChannel &&
 					this.floatingNetworkBuffersPerGate == that.floatingNetworkBuffersPerGate &&
 					this.isCreditBased == that.isCreditBased &&
+					Objects.equals(this.compressionCodec, that.compressionCodec) &&
+					Objects.equals(this.bufferDebloatConfiguration, that.bufferDebloatConfiguration) &&
 					(nettyConfig != null ? nettyConfig.equals(that.nettyConfig) : that.nettyConfig == null);
 		}
 	}
@@ -523,6 +570,8 @@ public class NetworkEnvironmentConfiguration {
 				", networkBuffersPerChannel=" + networkBuffersPerChannel +
 				", floatingNetworkBuffersPerGate=" + floatingNetworkBuffersPerGate +
 				", isCreditBased=" + isCreditBased +
+				", compressionCodec=" + compressionCodec +
+				", bufferDebloatConfiguration=" + bufferDebloatConfiguration +
 				", nettyConfig=" + nettyConfig +
 				'}';
 	}
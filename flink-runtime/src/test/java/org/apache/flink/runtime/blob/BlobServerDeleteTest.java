@@ -255,6 +255,38 @@ public class BlobServerDeleteTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * Tests that {@link BlobServer#deletePermanent(JobID, PermanentBlobKey)} deletes only the given
+	 * permanent BLOB of the job, and does not fail if it was deleted already.
+	 */
+	@Test
+	public void testDeletePermanent() throws IOException {
+		final JobID jobId = new JobID();
+
+		final Configuration config = new Configuration();
+		config.setString(BlobServerOptions.STORAGE_DIRECTORY, temporaryFolder.newFolder().getAbsolutePath());
+
+		try (BlobServer server = new BlobServer(config, new VoidBlobStore())) {
+
+			server.start();
+
+			final byte[] data = new byte[128];
+			rnd.nextBytes(data);
+
+			PermanentBlobKey key1 = (PermanentBlobKey) put(server, jobId, data, PERMANENT_BLOB);
+			PermanentBlobKey key2 = (PermanentBlobKey) put(server, jobId, data, PERMANENT_BLOB);
+			checkFileCountForJob(2, jobId, server);
+
+			assertTrue(server.deletePermanent(jobId, key1));
+			verifyDeleted(server, jobId, key1);
+			verifyContents(server, jobId, key2, data);
+			checkFileCountForJob(1, jobId, server);
+
+			// one more delete call that should not fail
+			assertTrue(server.deletePermanent(jobId, key1));
+		}
+	}
+
 	@Test
 	public void testJobCleanup() throws IOException, InterruptedException {
 		testJobCleanup(TRANSIENT_BLOB);
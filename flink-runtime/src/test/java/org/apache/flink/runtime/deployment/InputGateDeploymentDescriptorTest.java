@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.deployment;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.runtime.blob.PermanentBlobKey;
+import org.apache.flink.runtime.blob.PermanentBlobService;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.network.ConnectionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+import org.apache.flink.util.SerializedValue;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link InputGateDeploymentDescriptor}.
+ */
+public class InputGateDeploymentDescriptorTest extends TestLogger {
+
+	@ClassRule
+	public static final TemporaryFolder TEMPORARY_FOLDER = new TemporaryFolder();
+
+	private static final JobID jobId = new JobID();
+
+	private static final IntermediateDataSetID resultId = new IntermediateDataSetID();
+
+	private static final ResourceID localResourceId = ResourceID.generate();
+
+	private static final ResourceID remoteResourceId = ResourceID.generate();
+
+	/**
+	 * Tests that shared shuffle descriptors are resolved to local, remote and unknown input channels
+	 * relative to the task manager of the consumer.
+	 */
+	@Test
+	public void testResolveSharedShuffleDescriptors() throws Exception {
+		final ShuffleDescriptor[] shuffleDescriptors = createShuffleDescriptors();
+
+		final InputGateDeploymentDescriptor gate = new InputGateDeploymentDescriptor(
+			resultId,
+			ResultPartitionType.PIPELINED,
+			0,
+			new TaskDeploymentDescriptor.NonOffloaded<>(new SerializedValue<>(shuffleDescriptors)));
+
+		gate.loadBigData(jobId, null, null, localResourceId);
+
+		final InputChannelDeploymentDescriptor[] inputChannels = gate.getInputChannelDeploymentDescriptors();
+
+		assertEquals(3, inputChannels.length);
+		assertTrue(inputChannels[0].getConsumedPartitionLocation().isLocal());
+		assertTrue(inputChannels[1].getConsumedPartitionLocation().isRemote());
+		assertTrue(inputChannels[2].getConsumedPartitionLocation().isUnknown());
+
+		for (int i = 0; i < shuffleDescriptors.length; i++) {
+			assertEquals(shuffleDescriptors[i].getPartitionId(), inputChannels[i].getConsumedPartitionId());
+		}
+	}
+
+	/**
+	 * Tests that offloaded shuffle descriptors are only read from the BLOB store once per job and
+	 * result, and are read again after the job was cleared from the cache.
+	 */
+	@Test
+	public void testOffloadedShuffleDescriptorsAreCached() throws Exception {
+		final ShuffleDescriptor[] shuffleDescriptors = createShuffleDescriptors();
+
+		final File blobFile = TEMPORARY_FOLDER.newFile();
+		Files.write(blobFile.toPath(), new SerializedValue<>(shuffleDescriptors).getByteArray());
+
+		final AtomicInteger numBlobReads = new AtomicInteger();
+		final PermanentBlobService blobService = new PermanentBlobService() {
+			@Override
+			public File getFile(JobID jobId, PermanentBlobKey key) {
+				numBlobReads.incrementAndGet();
+				return blobFile;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		final PermanentBlobKey blobKey = new PermanentBlobKey();
+		final ShuffleDescriptorCache cache = new ShuffleDescriptorCache();
+
+		for (int i = 0; i < 3; i++) {
+			final InputGateDeploymentDescriptor gate = new InputGateDeploymentDescriptor(
+				resultId,
+				ResultPartitionType.PIPELINED,
+				i,
+				new TaskDeploymentDescriptor.Offloaded<>(blobKey));
+
+			gate.loadBigData(jobId, blobService, cache, localResourceId);
+
+			assertEquals(shuffleDescriptors.length, gate.getInputChannelDeploymentDescriptors().length);
+		}
+
+		assertEquals(1, numBlobReads.get());
+		assertEquals(1, cache.size());
+
+		cache.clearJob(jobId);
+		assertEquals(0, cache.size());
+
+		new InputGateDeploymentDescriptor(
+			resultId,
+			ResultPartitionType.PIPELINED,
+			0,
+			new TaskDeploymentDescriptor.Offloaded<>(blobKey)).loadBigData(jobId, blobService, cache, localResourceId);
+
+		assertEquals(2, numBlobReads.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnresolvedInputChannelsAreNotAccessible() throws Exception {
+		final InputGateDeploymentDescriptor gate = new InputGateDeploymentDescriptor(
+			resultId,
+			ResultPartitionType.PIPELINED,
+			0,
+			new TaskDeploymentDescriptor.Offloaded<>(new PermanentBlobKey()));
+
+		gate.getInputChannelDeploymentDescriptors();
+	}
+
+	private static ShuffleDescriptor[] createShuffleDescriptors() {
+		final ConnectionID connectionId = new ConnectionID(new InetSocketAddress("localhost", 5000), 0);
+
+		return new ShuffleDescriptor[] {
+			new ShuffleDescriptor(createPartitionId(), localResourceId, connectionId),
+			new ShuffleDescriptor(createPartitionId(), remoteResourceId, connectionId),
+			new ShuffleDescriptor(createPartitionId(), null, null)
+		};
+	}
+
+	private static ResultPartitionID createPartitionId() {
+		return new ResultPartitionID(new IntermediateResultPartitionID(), new ExecutionAttemptID());
+	}
+}
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.executiongraph;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -516,6 +517,63 @@ public class ExecutionGraphConstructionTest {
 			fail(e.getMessage());
 		}
 	}
+
+	/**
+	 * Tests that the consumers of an all-to-all connected result share one group of consumed
+	 * partitions and that its partitions share one group of consumers.
+	 */
+	@Test
+	public void testAllToAllConnectionSharesGroups() throws Exception {
+		JobVertex v1 = new JobVertex("vertex1");
+		JobVertex v2 = new JobVertex("vertex2");
+
+		v1.setParallelism(5);
+		v2.setParallelism(7);
+
+		v1.setInvokableClass(AbstractInvokable.class);
+		v2.setInvokableClass(AbstractInvokable.class);
+
+		v2.connectNewDataSetAsInput(v1, DistributionPattern.ALL_TO_ALL, ResultPartitionType.PIPELINED);
+
+		ExecutionGraph eg = new ExecutionGraph(
+			TestingUtils.defaultExecutor(),
+			TestingUtils.defaultExecutor(),
+			new JobID(),
+			"Test Job Sample Name",
+			new Configuration(),
+			new SerializedValue<>(new ExecutionConfig()),
+			AkkaUtils.getDefaultTimeout(),
+			new NoRestartStrategy(),
+			new TestingSlotProvider(ignored -> new CompletableFuture<>()));
+
+		eg.attachJobGraph(Arrays.asList(v1, v2));
+
+		ExecutionJobVertex producer = eg.getAllVertices().get(v1.getID());
+		ExecutionJobVertex consumer = eg.getAllVertices().get(v2.getID());
+		IntermediateResultPartition[] partitions = producer.getProducedDataSets()[0].getPartitions();
+
+		ConsumedPartitionGroup consumedPartitions = consumer.getTaskVertices()[0].getConsumedPartitions(0);
+		assertEquals(5, consumedPartitions.size());
+		for (int i = 0; i < partitions.length; i++) {
+			assertSame(partitions[i], consumedPartitions.getPartition(i));
+		}
+
+		for (ExecutionVertex ev : consumer.getTaskVertices()) {
+			assertSame(consumedPartitions, ev.getConsumedPartitions(0));
+			assertEquals(5, ev.getInputEdges(0).length);
+		}
+
+		ConsumerVertexGroup consumers = partitions[0].getConsumers().get(0);
+		assertEquals(7, consumers.size());
+		for (int i = 0; i < consumer.getParallelism(); i++) {
+			assertSame(consumer.getTaskVertices()[i], consumers.getVertex(i));
+		}
+
+		for (IntermediateResultPartition partition : partitions) {
+			assertEquals(1, partition.getConsumers().size());
+			assertSame(consumers, partition.getConsumers().get(0));
+		}
+	}
 	
 	@Test
 	public void testCoLocationConstraintCreation() {
@@ -25,11 +25,13 @@ import org.apache.flink.api.common.time.Time;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
 import org.apache.flink.runtime.akka.AkkaUtils;
+import org.apache.flink.runtime.blob.BlobWriter;
 import org.apache.flink.runtime.blob.VoidBlobWriter;
 import org.apache.flink.runtime.checkpoint.StandaloneCheckpointRecoveryFactory;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.execution.ExecutionState;
 import org.apache.flink.runtime.executiongraph.failover.FailoverRegion;
+import org.apache.flink.runtime.executiongraph.failover.RestartAllStrategy;
 import org.apache.flink.runtime.executiongraph.restart.NoRestartStrategy;
 import org.apache.flink.runtime.executiongraph.restart.RestartStrategy;
 import org.apache.flink.runtime.executiongraph.utils.SimpleAckingTaskManagerGateway;
@@ -59,6 +61,7 @@ import javax.annotation.Nullable;
 import java.lang.reflect.Field;
 import java.net.InetAddress;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
@@ -453,23 +456,39 @@ public class ExecutionGraphTestUtils {
 			JobVertexID id, ScheduledExecutorService executor) 
 		throws Exception {
 
+		return getExecutionVertex(id, executor, VoidBlobWriter.getInstance(), AkkaUtils.getDefaultTimeout());
+	}
+
+	public static ExecutionJobVertex getExecutionVertex(
+			JobVertexID id,
+			ScheduledExecutorService executor,
+			BlobWriter blobWriter,
+			Time timeout) throws Exception {
+
 		JobVertex ajv = new JobVertex("TestVertex", id);
 		ajv.setInvokableClass(AbstractInvokable.class);
 
 		ExecutionGraph graph = new ExecutionGraph(
+			new JobInformation(
+				new JobID(),
+				"test job",
+				new SerializedValue<>(new ExecutionConfig()),
+				new Configuration(),
+				Collections.emptyList(),
+				Collections.emptyList()),
 			executor,
 			executor,
-			new JobID(), 
-			"test job", 
-			new Configuration(),
-			new SerializedValue<>(new ExecutionConfig()),
-			AkkaUtils.getDefaultTimeout(),
+			timeout,
 			new NoRestartStrategy(),
-			new TestingSlotProvider(ignored -> new CompletableFuture<>()));
+			new RestartAllStrategy.Factory(),
+			new TestingSlotProvider(ignored -> new CompletableFuture<>()),
+			ExecutionGraph.class.getClassLoader(),
+			blobWriter,
+			timeout);
 
 		graph.start(TestingComponentMainThreadExecutorServiceAdapter.forMainThread());
 
-		return new ExecutionJobVertex(graph, ajv, 1, AkkaUtils.getDefaultTimeout());
+		return new ExecutionJobVertex(graph, ajv, 1, timeout);
 	}
 	
 	public static ExecutionJobVertex getExecutionVertex(JobVertexID id) throws Exception {
@@ -18,17 +18,34 @@
 
 package org.apache.flink.runtime.executiongraph;
 
+import org.apache.flink.api.common.time.Deadline;
 import org.apache.flink.api.common.time.Time;
+import org.apache.flink.configuration.BlobServerOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.blob.BlobServer;
+import org.apache.flink.runtime.blob.VoidBlobStore;
+import org.apache.flink.runtime.deployment.ShuffleDescriptor;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.MaybeOffloaded;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor.Offloaded;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.testutils.CommonTestUtils;
 import org.apache.flink.runtime.testutils.DirectScheduledExecutorService;
 import org.apache.flink.util.TestLogger;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.Duration;
 
 import static org.apache.flink.runtime.executiongraph.ExecutionGraphTestUtils.getExecutionVertex;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -36,6 +53,9 @@ import static org.junit.Assert.assertTrue;
  */
 public class IntermediateResultPartitionTest extends TestLogger {
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void testPipelinedPartitionConsumable() throws Exception {
 		IntermediateResult result = createResult(ResultPartitionType.PIPELINED, 2);
@@ -127,11 +147,73 @@ public class IntermediateResultPartitionTest extends TestLogger {
 		assertFalse(result.areAllPartitionsFinished());
 	}
 
+	@Test
+	public void testSerializedShuffleDescriptorsInvalidatedOnProducerChange() throws Exception {
+		IntermediateResult result = createResult(ResultPartitionType.PIPELINED, 2);
+		IntermediateResultPartition partition1 = result.getPartitions()[0];
+
+		// Reused as long as no producer changes
+		MaybeOffloaded<ShuffleDescriptor[]> descriptors = result.getSerializedShuffleDescriptors(true);
+		assertSame(descriptors, result.getSerializedShuffleDescriptors(true));
+
+		// Created again once a partition becomes consumable
+		partition1.markDataProduced();
+		MaybeOffloaded<ShuffleDescriptor[]> consumableDescriptors = result.getSerializedShuffleDescriptors(true);
+		assertNotSame(descriptors, consumableDescriptors);
+		assertSame(consumableDescriptors, result.getSerializedShuffleDescriptors(true));
+
+		// Created again if failover happens
+		result.resetForNewExecution();
+		assertNotSame(consumableDescriptors, result.getSerializedShuffleDescriptors(true));
+	}
+
+	@Test
+	public void testOffloadedShuffleDescriptorsDeletedAfterInvalidation() throws Exception {
+		final Configuration config = new Configuration();
+		config.setString(BlobServerOptions.STORAGE_DIRECTORY, temporaryFolder.newFolder().getAbsolutePath());
+		// always offload the serialized shuffle descriptors
+		config.setInteger(BlobServerOptions.OFFLOAD_MINSIZE, 0);
+
+		try (BlobServer blobServer = new BlobServer(config, new VoidBlobStore())) {
+			blobServer.start();
+
+			ExecutionJobVertex jobVertex = getExecutionVertex(
+				new JobVertexID(),
+				new DirectScheduledExecutorService(),
+				blobServer,
+				Time.milliseconds(100));
+			IntermediateResult result = createResult(jobVertex, ResultPartitionType.PIPELINED, 2);
+
+			MaybeOffloaded<ShuffleDescriptor[]> descriptors = result.getSerializedShuffleDescriptors(true);
+			assertTrue(descriptors instanceof Offloaded);
+			File blobFile = blobServer.getStorageLocation(
+				jobVertex.getJobId(),
+				((Offloaded<ShuffleDescriptor[]>) descriptors).serializedValueKey);
+			assertTrue(blobFile.exists());
+
+			// The superseded BLOB is deleted once the deployments that may still use it are done
+			result.getPartitions()[0].markDataProduced();
+			assertNotSame(descriptors, result.getSerializedShuffleDescriptors(true));
+
+			CommonTestUtils.waitUntilCondition(
+				() -> !blobFile.exists(),
+				Deadline.fromNow(Duration.ofSeconds(10)));
+		}
+	}
+
 	private static IntermediateResult createResult(
 			ResultPartitionType resultPartitionType,
 			int producerCount) throws Exception {
 
 		ExecutionJobVertex jobVertex = getExecutionVertex(new JobVertexID(), new DirectScheduledExecutorService());
+		return createResult(jobVertex, resultPartitionType, producerCount);
+	}
+
+	private static IntermediateResult createResult(
+			ExecutionJobVertex jobVertex,
+			ResultPartitionType resultPartitionType,
+			int producerCount) throws Exception {
+
 		IntermediateResult result =
 				new IntermediateResult(new IntermediateDataSetID(), jobVertex, producerCount, resultPartitionType);
 		for (int i = 0; i < producerCount; i++) {
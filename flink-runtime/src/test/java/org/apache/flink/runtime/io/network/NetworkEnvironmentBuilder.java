@@ -22,6 +22,7 @@ import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.io.network.netty.NettyConfig;
+import org.apache.flink.runtime.io.network.partition.consumer.BufferDebloatConfiguration;
 import org.apache.flink.runtime.metrics.groups.UnregisteredMetricGroups;
 import org.apache.flink.runtime.taskmanager.NetworkEnvironmentConfiguration;
 
@@ -46,6 +47,10 @@ public class NetworkEnvironmentBuilder {
 
 	private boolean isNetworkDetailedMetrics = false;
 
+	private String compressionCodec = null;
+
+	private BufferDebloatConfiguration bufferDebloatConfiguration = null;
+
 	private NettyConfig nettyConfig;
 
 	private TaskEventDispatcher taskEventDispatcher = new TaskEventDispatcher();
@@ -89,6 +94,16 @@ public class NetworkEnvironmentBuilder {
 		return this;
 	}
 
+	public NetworkEnvironmentBuilder setCompressionCodec(String compressionCodec) {
+		this.compressionCodec = compressionCodec;
+		return this;
+	}
+
+	public NetworkEnvironmentBuilder setBufferDebloatConfiguration(BufferDebloatConfiguration bufferDebloatConfiguration) {
+		this.bufferDebloatConfiguration = bufferDebloatConfiguration;
+		return this;
+	}
+
 	public NetworkEnvironmentBuilder setNettyConfig(NettyConfig nettyConfig) {
 		this.nettyConfig = nettyConfig;
 		return this;
@@ -120,6 +135,8 @@ public class NetworkEnvironmentBuilder {
 				floatingNetworkBuffersPerGate,
 				isCreditBased,
 				isNetworkDetailedMetrics,
+				compressionCodec,
+				bufferDebloatConfiguration,
 				nettyConfig),
 			taskEventDispatcher,
 			metricGroup,
@@ -40,6 +40,10 @@ public class TestingPartitionRequestClient implements PartitionRequestClient {
 	public void notifyCreditAvailable(RemoteInputChannel inputChannel) {
 	}
 
+	@Override
+	public void notifyNewBufferSize(RemoteInputChannel inputChannel, int newBufferSize) {
+	}
+
 	@Override
 	public void sendTaskEvent(ResultPartitionID partitionId, TaskEvent event, RemoteInputChannel inputChannel) {
 	}
@@ -18,11 +18,13 @@
 
 package org.apache.flink.runtime.io.network.api.writer;
 
+import org.apache.flink.api.common.time.Deadline;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
@@ -40,8 +42,11 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.util.DeserializationUtils;
 import org.apache.flink.runtime.io.network.util.TestPooledBufferProvider;
+import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
+import org.apache.flink.runtime.metrics.groups.UnregisteredMetricGroups;
 import org.apache.flink.runtime.operators.shipping.OutputEmitter;
 import org.apache.flink.runtime.operators.shipping.ShipStrategyType;
+import org.apache.flink.runtime.testutils.CommonTestUtils;
 import org.apache.flink.testutils.serialization.types.SerializationTestType;
 import org.apache.flink.testutils.serialization.types.SerializationTestTypeFactory;
 import org.apache.flink.testutils.serialization.types.Util;
@@ -58,19 +63,23 @@ import org.mockito.stubbing.Answer;
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import static org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils.buildSingleBuffer;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -452,10 +461,177 @@ public class RecordWriterTest {
 		}
 	}
 
+	// ---------------------------------------------------------------------------------------------
+	// Output flushing tests
+	// ---------------------------------------------------------------------------------------------
+
+	/**
+	 * Tests that the output flusher flushes only the channels with unflushed data, and that it is
+	 * unregistered from the shared scheduler when the writer is closed.
+	 */
+	@Test
+	public void testOutputFlusherFlushesChannelsWithData() throws Exception {
+		final FlushCountingPartitionWriter partitionWriter = createFlushCountingPartitionWriter(2);
+		final int numRegisteredFlushers = OutputFlushScheduler.getNumRegisteredFlushers();
+		final RecordWriter<ByteArrayIO> writer = new RecordWriterBuilder()
+			.setChannelSelector(new FixedChannelSelector(0))
+			.setTimeout(5)
+			.build(partitionWriter);
+		final TaskIOMetricGroup metrics = UnregisteredMetricGroups.createUnregisteredTaskMetricGroup().getIOMetricGroup();
+		writer.setMetricGroup(metrics);
+
+		try {
+			assertEquals(numRegisteredFlushers + 1, OutputFlushScheduler.getNumRegisteredFlushers());
+
+			writer.emit(new ByteArrayIO(new byte[4]));
+
+			CommonTestUtils.waitUntilCondition(
+				() -> partitionWriter.getNumFlushes(0) > 0,
+				Deadline.fromNow(Duration.ofSeconds(10)));
+			assertEquals(0, partitionWriter.getNumFlushes(1));
+			assertTrue(metrics.getNumOutputFlushesCounter().getCount() > 0);
+		} finally {
+			writer.close();
+		}
+
+		assertEquals(numRegisteredFlushers, OutputFlushScheduler.getNumRegisteredFlushers());
+	}
+
+	/**
+	 * Tests that the adaptive output flusher does not flush a channel that is continuously written
+	 * to before the buffer timeout, but flushes it once it became idle.
+	 */
+	@Test
+	public void testAdaptiveOutputFlusherFlushesIdleChannels() throws Exception {
+		final FlushCountingPartitionWriter partitionWriter = createFlushCountingPartitionWriter(1);
+		final RecordWriter<ByteArrayIO> writer = new RecordWriterBuilder()
+			.setTimeout(1_000_000)
+			.setIdleTimeout(100)
+			.build(partitionWriter);
+
+		try {
+			final Deadline busyPeriod = Deadline.fromNow(Duration.ofMillis(300));
+			while (busyPeriod.hasTimeLeft()) {
+				writer.emit(new ByteArrayIO(new byte[4]));
+				Thread.sleep(1);
+			}
+			assertEquals(0, partitionWriter.getNumFlushes(0));
+
+			CommonTestUtils.waitUntilCondition(
+				() -> partitionWriter.getNumFlushes(0) > 0,
+				Deadline.fromNow(Duration.ofSeconds(10)));
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Tests that closing the writer waits for a flush of the output flusher that is in progress,
+	 * so that the buffers are not cleared while they are flushed.
+	 */
+	@Test
+	public void testCloseWaitsForRunningFlush() throws Exception {
+		final OneShotLatch flushStarted = new OneShotLatch();
+		final OneShotLatch flushReleased = new OneShotLatch();
+		@SuppressWarnings("unchecked")
+		final Queue<BufferConsumer>[] queues = new Queue[] {new ArrayDeque<>()};
+		final FlushCountingPartitionWriter partitionWriter = new FlushCountingPartitionWriter(
+				queues,
+				new TestPooledBufferProvider(Integer.MAX_VALUE, 32)) {
+
+			@Override
+			public void flush(int subpartitionIndex) {
+				flushStarted.trigger();
+				try {
+					flushReleased.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.flush(subpartitionIndex);
+			}
+		};
+		final RecordWriter<ByteArrayIO> writer = new RecordWriterBuilder()
+			.setTimeout(5)
+			.build(partitionWriter);
+
+		writer.emit(new ByteArrayIO(new byte[4]));
+		flushStarted.await();
+
+		final CompletableFuture<Void> closeFuture = CompletableFuture.runAsync(writer::close);
+		Thread.sleep(50);
+		assertFalse(closeFuture.isDone());
+
+		flushReleased.trigger();
+		closeFuture.get();
+		assertEquals(1, partitionWriter.getNumFlushes(0));
+	}
+
 	// ---------------------------------------------------------------------------------------------
 	// Helpers
 	// ---------------------------------------------------------------------------------------------
 
+	private static FlushCountingPartitionWriter createFlushCountingPartitionWriter(int numberOfChannels) {
+		@SuppressWarnings("unchecked")
+		Queue<BufferConsumer>[] queues = new Queue[numberOfChannels];
+		for (int i = 0; i < numberOfChannels; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+		return new FlushCountingPartitionWriter(queues, new TestPooledBufferProvider(Integer.MAX_VALUE, 32));
+	}
+
+	/**
+	 * Partition writer that collects the added buffers/events and counts the flushes per channel.
+	 */
+	private static class FlushCountingPartitionWriter extends CollectingPartitionWriter {
+		private final AtomicIntegerArray numFlushes;
+
+		private FlushCountingPartitionWriter(Queue<BufferConsumer>[] queues, BufferProvider bufferProvider) {
+			super(queues, bufferProvider);
+			this.numFlushes = new AtomicIntegerArray(queues.length);
+		}
+
+		@Override
+		public void flushAll() {
+			for (int i = 0; i < numFlushes.length(); i++) {
+				flush(i);
+			}
+		}
+
+		@Override
+		public void flush(int subpartitionIndex) {
+			numFlushes.incrementAndGet(subpartitionIndex);
+		}
+
+		int getNumFlushes(int subpartitionIndex) {
+			return numFlushes.get(subpartitionIndex);
+		}
+	}
+
+	/**
+	 * Channel selector that sends all records to the same channel.
+	 */
+	private static class FixedChannelSelector implements ChannelSelector<ByteArrayIO> {
+		private final int channel;
+
+		private FixedChannelSelector(int channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void setup(int numberOfChannels) {
+		}
+
+		@Override
+		public int selectChannel(ByteArrayIO record) {
+			return channel;
+		}
+
+		@Override
+		public boolean isBroadcast() {
+			return false;
+		}
+	}
+
 	/**
 	 * Partition writer that collects the added buffers/events in multiple queue.
 	 */
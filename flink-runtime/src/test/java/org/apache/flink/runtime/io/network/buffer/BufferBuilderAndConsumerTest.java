@@ -116,6 +116,24 @@ public class BufferBuilderAndConsumerTest {
 		assertContent(bufferConsumer, 42);
 	}
 
+	@Test
+	public void appendOverTrimmedSize() {
+		BufferBuilder bufferBuilder = createBufferBuilder();
+		BufferConsumer bufferConsumer = bufferBuilder.createBufferConsumer();
+		bufferBuilder.trim(3 * Integer.BYTES);
+
+		assertEquals(3 * Integer.BYTES, bufferBuilder.getMaxCapacity());
+		assertEquals(3 * Integer.BYTES, bufferBuilder.appendAndCommit(toByteBuffer(0, 1, 2, 3)));
+		assertTrue(bufferBuilder.isFull());
+		assertContent(bufferConsumer, 0, 1, 2);
+
+		// the capacity is neither trimmed below the written bytes nor raised above the segment size
+		bufferBuilder.trim(Integer.BYTES);
+		assertEquals(3 * Integer.BYTES, bufferBuilder.getMaxCapacity());
+		bufferBuilder.trim(Integer.MAX_VALUE);
+		assertEquals(BUFFER_SIZE, bufferBuilder.getMaxCapacity());
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void creatingBufferConsumerTwice() {
 		BufferBuilder bufferBuilder = createBufferBuilder();
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.util.TestPooledBufferProvider;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link BufferCompressor} and {@link BufferDecompressor}.
+ */
+public class BufferCompressionTest extends TestLogger {
+
+	private static final int BUFFER_SIZE = 4 * 1024;
+
+	private static final int NUM_LONGS = BUFFER_SIZE / 8;
+
+	private static final String CODEC = "LZ4";
+
+	@Test
+	public void testCompressToIntermediateBuffer() {
+		BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, CODEC);
+		BufferDecompressor decompressor = new BufferDecompressor(BUFFER_SIZE, CODEC);
+
+		Buffer original = createCompressibleBuffer();
+		Buffer compressed = compressor.compressToIntermediateBuffer(original);
+
+		assertNotSame(original, compressed);
+		assertTrue(compressed.isCompressed());
+		assertTrue(compressed.readableBytes() < BUFFER_SIZE);
+		// the original buffer stays untouched
+		assertFalse(original.isCompressed());
+		assertEquals(BUFFER_SIZE, original.readableBytes());
+
+		Buffer decompressed = decompressor.decompressToIntermediateBuffer(compressed);
+		compressed.recycleBuffer();
+
+		assertFalse(decompressed.isCompressed());
+		verifyCompressibleData(decompressed);
+		decompressed.recycleBuffer();
+		original.recycleBuffer();
+
+		assertTrue(compressor.getCompressionRatio() > 1.0);
+		assertEquals(compressor.getCompressionRatio(), decompressor.getCompressionRatio(), 0.0);
+	}
+
+	@Test
+	public void testCompressToOriginalBuffer() {
+		BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, CODEC);
+		BufferDecompressor decompressor = new BufferDecompressor(BUFFER_SIZE, CODEC);
+
+		NetworkBuffer original = createCompressibleBuffer();
+		Buffer compressed = compressor.compressToOriginalBuffer(original);
+
+		assertTrue(compressed.isCompressed());
+		assertTrue(compressed.readableBytes() < BUFFER_SIZE);
+		// the compressed data lives in the memory of the original buffer
+		assertSame(original.getMemorySegment(), compressed.getMemorySegment());
+
+		Buffer decompressed = decompressor.decompressToIntermediateBuffer(compressed);
+		compressed.recycleBuffer();
+		assertTrue(original.isRecycled());
+
+		verifyCompressibleData(decompressed);
+		decompressed.recycleBuffer();
+	}
+
+	@Test
+	public void testDecompressToOriginalBuffer() {
+		BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, CODEC);
+		BufferDecompressor decompressor = new BufferDecompressor(BUFFER_SIZE, CODEC);
+
+		// a compressed buffer as received by a remote input channel: a whole segment of its own
+		Buffer compressed = compressor.compressToIntermediateBuffer(createCompressibleBuffer());
+		NetworkBuffer received = new NetworkBuffer(
+			MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE), FreeingBufferRecycler.INSTANCE);
+		compressed.getMemorySegment().copyTo(
+			compressed.getMemorySegmentOffset(), received.getMemorySegment(), 0, compressed.readableBytes());
+		received.setSize(compressed.readableBytes());
+		received.setCompressed(true);
+		compressed.recycleBuffer();
+
+		Buffer decompressed = decompressor.decompressToOriginalBuffer(received);
+
+		assertSame(received, decompressed);
+		assertFalse(decompressed.isCompressed());
+		// later decompressions do not touch the data of the buffer
+		decompressor.decompressToIntermediateBuffer(
+			compressor.compressToIntermediateBuffer(createCompressibleBuffer(1L))).recycleBuffer();
+		verifyCompressibleData(decompressed);
+		decompressed.recycleBuffer();
+	}
+
+	@Test
+	public void testDecompressReadOnlyBufferToNewBuffer() throws IOException {
+		BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, CODEC);
+		BufferDecompressor decompressor = new BufferDecompressor(BUFFER_SIZE, CODEC);
+
+		NetworkBuffer original = createCompressibleBuffer();
+		// a compressed buffer as received by a local input channel: a read-only view of the producer's memory
+		Buffer compressed = compressor.compressToOriginalBuffer(original);
+
+		Buffer decompressed = decompressor.decompressToNewBuffer(compressed, null);
+		Buffer fromPool = decompressor.decompressToNewBuffer(
+			compressed, new TestPooledBufferProvider(1, BUFFER_SIZE));
+
+		assertNotSame(original.getMemorySegment(), decompressed.getMemorySegment());
+		assertNotSame(decompressed.getMemorySegment(), fromPool.getMemorySegment());
+		assertTrue(compressed.isCompressed());
+		compressed.recycleBuffer();
+		assertTrue(original.isRecycled());
+
+		verifyCompressibleData(decompressed);
+		verifyCompressibleData(fromPool);
+		decompressed.recycleBuffer();
+		fromPool.recycleBuffer();
+	}
+
+	@Test
+	public void testIncompressibleBufferIsNotCompressed() {
+		BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, CODEC);
+
+		Random random = new Random(42L);
+		NetworkBuffer original = new NetworkBuffer(
+			MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE), FreeingBufferRecycler.INSTANCE);
+		for (int i = 0; i < NUM_LONGS; i++) {
+			original.writeLong(random.nextLong());
+		}
+
+		assertSame(original, compressor.compressToIntermediateBuffer(original));
+		assertSame(original, compressor.compressToOriginalBuffer(original));
+		assertFalse(original.isCompressed());
+		assertEquals(BUFFER_SIZE, original.readableBytes());
+
+		original.recycleBuffer();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompressEvent() throws IOException {
+		BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, CODEC);
+		compressor.compressToIntermediateBuffer(EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecompressUncompressedBuffer() {
+		BufferDecompressor decompressor = new BufferDecompressor(BUFFER_SIZE, CODEC);
+		decompressor.decompressToIntermediateBuffer(createCompressibleBuffer());
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static NetworkBuffer createCompressibleBuffer() {
+		return createCompressibleBuffer(0L);
+	}
+
+	private static NetworkBuffer createCompressibleBuffer(long offset) {
+		NetworkBuffer buffer = new NetworkBuffer(
+			MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE), FreeingBufferRecycler.INSTANCE);
+		for (int i = 0; i < NUM_LONGS; i++) {
+			buffer.writeLong(offset + i % 16);
+		}
+		return buffer;
+	}
+
+	private static void verifyCompressibleData(Buffer buffer) {
+		assertEquals(BUFFER_SIZE, buffer.readableBytes());
+		for (int i = 0; i < NUM_LONGS; i++) {
+			assertEquals(i % 16, buffer.getMemorySegment().getLong(buffer.getMemorySegmentOffset() + i * 8));
+		}
+	}
+}
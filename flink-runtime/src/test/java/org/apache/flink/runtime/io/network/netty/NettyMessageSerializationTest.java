@@ -22,6 +22,7 @@ import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.event.task.IntegerTaskEvent;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -29,10 +30,22 @@ import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 
 import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.Unpooled;
+import org.apache.flink.shaded.netty4.io.netty.channel.FileRegion;
 import org.apache.flink.shaded.netty4.io.netty.channel.embedded.EmbeddedChannel;
 
+import org.junit.Rule;
 import org.junit.Test;
-
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
@@ -53,6 +66,9 @@ public class NettyMessageSerializationTest {
 
 	private final Random random = new Random();
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void testEncodeDecode() {
 		testEncodeDecodeBuffer(false);
@@ -137,6 +153,14 @@ public class NettyMessageSerializationTest {
 			assertEquals(expected.credit, actual.credit);
 			assertEquals(expected.receiverId, actual.receiverId);
 		}
+
+		{
+			NettyMessage.NewBufferSize expected = new NettyMessage.NewBufferSize(random.nextInt(Integer.MAX_VALUE) + 1, new InputChannelID());
+			NettyMessage.NewBufferSize actual = encodeAndDecode(expected);
+
+			assertEquals(expected.bufferSize, actual.bufferSize);
+			assertEquals(expected.receiverId, actual.receiverId);
+		}
 	}
 
 	private void testEncodeDecodeBuffer(boolean testReadOnlyBuffer) {
@@ -145,6 +169,7 @@ public class NettyMessageSerializationTest {
 		for (int i = 0; i < 1024; i += 4) {
 			buffer.writeInt(i);
 		}
+		buffer.setCompressed(random.nextBoolean());
 
 		Buffer testBuffer = testReadOnlyBuffer ? buffer.readOnlySlice() : buffer;
 
@@ -157,6 +182,9 @@ public class NettyMessageSerializationTest {
 		assertFalse(buffer.isRecycled());
 		assertFalse(testBuffer.isRecycled());
 
+		assertEquals(expected.isBuffer(), actual.isBuffer());
+		assertEquals(expected.isCompressed(), actual.isCompressed());
+
 		final ByteBuf retainedSlice = actual.getNettyBuffer();
 
 		// Ensure not recycled and same size as original buffer
@@ -178,6 +206,58 @@ public class NettyMessageSerializationTest {
 		assertEquals(expected.backlog, actual.backlog);
 	}
 
+	@Test
+	public void testEncodeDecodeFileRegionBuffer() throws Exception {
+		// the buffer starts behind some other data in the file
+		final int offset = 16;
+		final ByteBuffer data = ByteBuffer.allocate(offset + 1024);
+		data.position(offset);
+		for (int i = 0; i < 1024; i += 4) {
+			data.putInt(i);
+		}
+		data.flip();
+		final File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), data.array());
+
+		try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final FileRegionBuffer fileRegionBuffer = new FileRegionBuffer(fileChannel, offset, 1024, true, true);
+
+			NettyMessage.BufferResponse expected = new NettyMessage.BufferResponse(
+				fileRegionBuffer, random.nextInt(), new InputChannelID(), random.nextInt());
+
+			// the header is written separately from the file region
+			channel.writeOutbound(expected);
+			ByteBuf header = (ByteBuf) channel.readOutbound();
+			FileRegion fileRegion = (FileRegion) channel.readOutbound();
+
+			ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+			WritableByteChannel target = Channels.newChannel(transferred);
+			while (fileRegion.transferred() < fileRegion.count()) {
+				fileRegion.transferTo(target, fileRegion.transferred());
+			}
+			fileRegion.release();
+			assertTrue(fileRegionBuffer.isRecycled());
+			// the file channel is owned by the partition
+			assertTrue(fileChannel.isOpen());
+
+			assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(header, Unpooled.wrappedBuffer(transferred.toByteArray()))));
+			NettyMessage.BufferResponse actual = (NettyMessage.BufferResponse) channel.readInbound();
+
+			assertTrue(actual.isBuffer());
+			assertTrue(actual.isCompressed());
+			assertEquals(expected.sequenceNumber, actual.sequenceNumber);
+			assertEquals(expected.receiverId, actual.receiverId);
+			assertEquals(expected.backlog, actual.backlog);
+
+			final ByteBuf retainedSlice = actual.getNettyBuffer();
+			assertEquals(1024, retainedSlice.readableBytes());
+			for (int i = 0; i < 1024; i += 4) {
+				assertEquals(i, retainedSlice.readInt());
+			}
+			actual.releaseBuffer();
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T extends NettyMessage> T encodeAndDecode(T msg) {
 		channel.writeOutbound(msg);
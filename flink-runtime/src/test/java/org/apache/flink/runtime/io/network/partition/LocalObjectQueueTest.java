@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link LocalObjectQueue} of a {@link PipelinedSubpartition}.
+ */
+public class LocalObjectQueueTest extends TestLogger {
+
+	private PipelinedSubpartition subpartition;
+
+	private ResultSubpartitionView readView;
+
+	@Before
+	public void setup() throws Exception {
+		subpartition = new PipelinedSubpartition(0, PartitionTestUtils.createPartition());
+		readView = subpartition.createReadView(new NoOpBufferAvailablityListener());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		readView.releaseAllResources();
+		subpartition.release();
+	}
+
+	@Test
+	public void testEnableHandoverOnce() {
+		assertNull(subpartition.getLocalObjectQueue());
+
+		LocalObjectQueue queue = readView.enableLocalObjectHandover(4);
+		assertNotNull(queue);
+		assertSame(queue, readView.enableLocalObjectHandover(8));
+		assertSame(queue, subpartition.getLocalObjectQueue());
+	}
+
+	@Test
+	public void testTakePublishedRecords() throws Exception {
+		LocalObjectQueue queue = readView.enableLocalObjectHandover(4);
+
+		queue.add("a");
+		queue.add("b");
+		assertEquals(2, queue.getNumUnpublishedRecords());
+		assertNull(readView.getNextBuffer());
+
+		queue.publish();
+		assertEquals(0, queue.getNumUnpublishedRecords());
+		queue.add("c");
+		queue.publish();
+		// nothing to publish
+		queue.publish();
+
+		assertEquals(Arrays.asList("a", "b"), takeNextRecords(queue));
+		assertEquals(Collections.singletonList("c"), takeNextRecords(queue));
+		assertNull(readView.getNextBuffer());
+	}
+
+	@Test
+	public void testRedundantMarkerResultsInEmptyBatch() throws Exception {
+		LocalObjectQueue queue = readView.enableLocalObjectHandover(4);
+
+		queue.add("a");
+		queue.publish();
+		Buffer marker = readView.getNextBuffer().buffer();
+		// a marker published concurrently that covers the same records
+		queue.add("b");
+		queue.publish();
+
+		assertEquals(Arrays.asList("a", "b"), queue.takeRecords(readView.getNextBuffer().buffer()).getRecords());
+		assertTrue(queue.takeRecords(marker).getRecords().isEmpty());
+	}
+
+	@Test
+	public void testFullQueuePublishesAndWaits() throws Exception {
+		LocalObjectQueue queue = readView.enableLocalObjectHandover(2);
+		queue.add("a");
+		queue.add("b");
+
+		CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+			try {
+				queue.add("c");
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+
+		// the producer publishes the queued records before it waits for the consumer
+		assertEquals(Arrays.asList("a", "b"), takeNextRecords(queue));
+		producer.get(10, TimeUnit.SECONDS);
+
+		queue.publish();
+		assertEquals(Collections.singletonList("c"), takeNextRecords(queue));
+	}
+
+	@Test
+	public void testReleaseDropsRecords() throws Exception {
+		LocalObjectQueue queue = readView.enableLocalObjectHandover(2);
+		queue.add("a");
+
+		subpartition.release();
+		assertTrue(queue.isReleased());
+
+		queue.add("b");
+		queue.add("c");
+		queue.add("d");
+		assertEquals(1, queue.getNumUnpublishedRecords());
+	}
+
+	private List<Object> takeNextRecords(LocalObjectQueue queue) throws Exception {
+		ResultSubpartition.BufferAndBacklog next = null;
+		while (next == null) {
+			next = readView.getNextBuffer();
+		}
+		return queue.takeRecords(next.buffer()).getRecords();
+	}
+}
@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link SortMergeSubpartition} and the {@link SortMergePartitionFile} shared by the
+ * subpartitions of a {@link ResultPartitionType#BLOCKING_SORT_MERGE} partition.
+ */
+public class SortMergeSubpartitionTest extends TestLogger {
+
+	private static final int NUM_SUBPARTITIONS = 4;
+
+	private static final int BUFFER_SIZE = 64;
+
+	@ClassRule
+	public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+	private final AtomicInteger numRecycledBuffers = new AtomicInteger();
+
+	private final BufferRecycler recycler = segment -> numRecycledBuffers.incrementAndGet();
+
+	@Test
+	public void testWriteAndReadMultipleRegions() throws Exception {
+		final int numBuffersPerSubpartition = 20;
+
+		final Path dataFile = newFilePath();
+		final Path indexFile = newFilePath();
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(dataFile, indexFile);
+
+		for (int i = 0; i < numBuffersPerSubpartition; i++) {
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				subpartition.add(createFilledBufferConsumer(subpartition.index, i));
+				subpartition.flush();
+			}
+			// spill a region every few buffers, as if the buffer pool ran out of memory
+			if (i % 7 == 6) {
+				assertEquals(7 * NUM_SUBPARTITIONS, subpartitions[0].releaseMemory());
+				assertEquals(7 * NUM_SUBPARTITIONS, numRecycledBuffers.getAndSet(0));
+			}
+		}
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.finish();
+		}
+
+		// the remaining buffers are spilled when the last subpartition finishes, and the regions are merged
+		assertEquals(6 * NUM_SUBPARTITIONS, numRecycledBuffers.get());
+		assertEquals(0, subpartitions[0].releaseMemory());
+		assertEquals(1, subpartitions[0].getFile().getNumRegions());
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			assertEquals(numBuffersPerSubpartition, subpartition.getBuffersInBacklog());
+			assertEquals(numBuffersPerSubpartition + 1, subpartition.getTotalNumberOfBuffers());
+
+			// every subpartition can be consumed more than once
+			for (int round = 0; round < 2; round++) {
+				final ResultSubpartitionView reader = subpartition.createReadView(() -> {});
+				readAndCheckBuffers(reader, subpartition.index, numBuffersPerSubpartition, false);
+				reader.releaseAllResources();
+			}
+		}
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.release();
+		}
+		assertFalse(Files.exists(dataFile));
+		assertFalse(Files.exists(indexFile));
+	}
+
+	@Test
+	public void testCreateReadViewBeforeAllSubpartitionsFinished() throws Exception {
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(newFilePath(), newFilePath());
+
+		subpartitions[0].add(createFilledBufferConsumer(0, 0));
+		subpartitions[0].finish();
+
+		try {
+			subpartitions[0].createReadView(() -> {});
+			fail("expected an exception");
+		}
+		catch (IllegalStateException ignored) {
+			// expected
+		}
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.release();
+		}
+	}
+
+	@Test
+	public void testReleaseRecyclesRetainedBuffers() throws Exception {
+		final Path dataFile = newFilePath();
+		final Path indexFile = newFilePath();
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(dataFile, indexFile);
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.add(createFilledBufferConsumer(subpartition.index, 0));
+			subpartition.add(createFilledBufferConsumer(subpartition.index, 1));
+		}
+		assertEquals(0, numRecycledBuffers.get());
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.release();
+		}
+
+		// the flushed buffers are retained by the file, the current buffers by the subpartitions
+		assertEquals(2 * NUM_SUBPARTITIONS, numRecycledBuffers.get());
+		assertFalse(Files.exists(dataFile));
+		assertFalse(Files.exists(indexFile));
+
+		// writes after the release are not accepted
+		assertFalse(subpartitions[0].add(createFilledBufferConsumer(0, 2)));
+		assertEquals(2 * NUM_SUBPARTITIONS + 1, numRecycledBuffers.get());
+	}
+
+	@Test
+	public void testFilesAreKeptUntilReadersAreReleased() throws Exception {
+		final Path dataFile = newFilePath();
+		final Path indexFile = newFilePath();
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(dataFile, indexFile);
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.add(createFilledBufferConsumer(subpartition.index, 0));
+			subpartition.finish();
+		}
+
+		final ResultSubpartitionView reader = subpartitions[1].createReadView(() -> {});
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.release();
+		}
+		assertTrue(Files.exists(dataFile));
+		assertTrue(Files.exists(indexFile));
+
+		readAndCheckBuffers(reader, 1, 1, false);
+		reader.releaseAllResources();
+
+		assertFalse(Files.exists(dataFile));
+		assertFalse(Files.exists(indexFile));
+	}
+
+	@Test
+	public void testReadFileRegionsWithDirectFileTransfer() throws Exception {
+		final int numBuffersPerSubpartition = 5;
+
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(newFilePath(), newFilePath(), true);
+
+		for (int i = 0; i < numBuffersPerSubpartition; i++) {
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				subpartition.add(createFilledBufferConsumer(subpartition.index, i));
+			}
+			if (i == 2) {
+				subpartitions[0].releaseMemory();
+			}
+		}
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.finish();
+		}
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			final ResultSubpartitionView reader = subpartition.createReadView(() -> {});
+			readAndCheckBuffers(reader, subpartition.index, numBuffersPerSubpartition, true);
+			reader.releaseAllResources();
+		}
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.release();
+		}
+	}
+
+	@Test
+	public void testSortRecordsOfAllSubpartitions() throws Exception {
+		final int numRecordsPerSubpartition = 50;
+
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(NUM_SUBPARTITIONS, BUFFER_SIZE, 1);
+		final AtomicInteger numSpills = new AtomicInteger();
+		final SortMergePartitionFile file = new SortMergePartitionFile(NUM_SUBPARTITIONS, newFilePath(), newFilePath());
+		final BufferPool bufferPool = networkBufferPool.createBufferPool(
+			NUM_SUBPARTITIONS,
+			NUM_SUBPARTITIONS,
+			Optional.of(numBuffersToRecycle -> {
+				numSpills.incrementAndGet();
+				file.spill();
+			}));
+
+		try {
+			final ResultPartition parent = PartitionTestUtils.createPartition(ResultPartitionType.BLOCKING_SORT_MERGE);
+			final SortMergeSubpartition[] subpartitions = new SortMergeSubpartition[NUM_SUBPARTITIONS];
+			for (int i = 0; i < NUM_SUBPARTITIONS; i++) {
+				subpartitions[i] = new SortMergeSubpartition(i, parent, file);
+			}
+
+			for (int i = 0; i < numRecordsPerSubpartition; i++) {
+				for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+					final byte[] record = createRecord(subpartition, i);
+					final ByteBuffer length = ByteBuffer.allocate(4);
+					length.putInt(0, record.length);
+
+					file.appendRecord(subpartition, length, ByteBuffer.wrap(record), bufferPool);
+				}
+			}
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				subpartition.finish();
+			}
+
+			// all pooled segments are returned and the spilled regions are merged into one
+			assertTrue(numSpills.get() > 1);
+			assertEquals(0, bufferPool.bestEffortGetNumOfUsedBuffers());
+			assertEquals(1, file.getNumRegions());
+
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				final ResultSubpartitionView reader = subpartition.createReadView(() -> {});
+				final ByteArrayOutputStream data = new ByteArrayOutputStream();
+				BufferAndBacklog next;
+				while ((next = reader.getNextBuffer()) != null && next.buffer().isBuffer()) {
+					final Buffer buffer = next.buffer();
+					assertTrue(buffer.getSize() <= BUFFER_SIZE);
+					final byte[] bytes = new byte[buffer.getSize()];
+					buffer.getNioBufferReadable().get(bytes);
+					data.write(bytes);
+					buffer.recycleBuffer();
+				}
+				assertTrue(next != null && !next.isMoreAvailable());
+				next.buffer().recycleBuffer();
+				reader.releaseAllResources();
+
+				// the records of the subpartition are read back in order
+				final ByteBuffer records = ByteBuffer.wrap(data.toByteArray());
+				for (int i = 0; i < numRecordsPerSubpartition; i++) {
+					final byte[] record = new byte[records.getInt()];
+					records.get(record);
+					assertArrayEquals(createRecord(subpartition.index, i), record);
+				}
+				assertFalse(records.hasRemaining());
+			}
+
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				subpartition.release();
+			}
+			assertTrue(file.isDisposed());
+		}
+		finally {
+			bufferPool.lazyDestroy();
+			networkBufferPool.destroy();
+		}
+	}
+
+	@Test
+	public void testReleaseRecyclesSortBuffer() throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(NUM_SUBPARTITIONS, BUFFER_SIZE, 1);
+		final BufferPool bufferPool = networkBufferPool.createBufferPool(NUM_SUBPARTITIONS, NUM_SUBPARTITIONS);
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(newFilePath(), newFilePath());
+		final SortMergePartitionFile file = subpartitions[0].getFile();
+
+		try {
+			for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+				final byte[] record = createRecord(subpartition, 0);
+				final ByteBuffer length = ByteBuffer.allocate(4);
+				length.putInt(0, record.length);
+
+				file.appendRecord(subpartition, length, ByteBuffer.wrap(record), bufferPool);
+			}
+			assertTrue(bufferPool.bestEffortGetNumOfUsedBuffers() > 0);
+
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				subpartition.release();
+			}
+			assertEquals(0, bufferPool.bestEffortGetNumOfUsedBuffers());
+
+			// records after the release are dropped
+			final ByteBuffer data = ByteBuffer.wrap(createRecord(0, 1));
+			assertFalse(file.appendRecord(0, ByteBuffer.allocate(4), data, bufferPool));
+			assertFalse(data.hasRemaining());
+		}
+		finally {
+			bufferPool.lazyDestroy();
+			networkBufferPool.destroy();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  utils
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a record of a length that varies with its index, where every tenth record is larger
+	 * than the sort buffer takes.
+	 */
+	private static byte[] createRecord(int subpartitionIndex, int recordIndex) {
+		final byte[] record = new byte[recordIndex % 10 == 9 ? 5 * BUFFER_SIZE : 1 + recordIndex % 7 * 9];
+		for (int i = 0; i < record.length; i++) {
+			record[i] = (byte) (31 * subpartitionIndex + recordIndex + i);
+		}
+		return record;
+	}
+
+	private static void readAndCheckBuffers(
+			ResultSubpartitionView reader,
+			int subpartitionIndex,
+			int numBuffers,
+			boolean expectFileRegions) throws IOException {
+
+		for (int i = 0; i < numBuffers; i++) {
+			final BufferAndBacklog next = reader.getNextBuffer();
+			assertTrue(next != null && next.buffer().isBuffer());
+			assertEquals(numBuffers - i - 1, next.buffersInBacklog());
+			assertTrue(next.isMoreAvailable());
+
+			final Buffer buffer = toMemoryBuffer(next.buffer(), expectFileRegions);
+			final MemorySegment segment = buffer.getMemorySegment();
+			assertEquals(BUFFER_SIZE, buffer.getSize());
+			for (int pos = 0; pos < BUFFER_SIZE; pos += 8) {
+				assertEquals(subpartitionIndex, segment.getInt(pos));
+				assertEquals(i, segment.getInt(pos + 4));
+			}
+			buffer.recycleBuffer();
+		}
+
+		final BufferAndBacklog event = reader.getNextBuffer();
+		assertTrue(event != null && !event.buffer().isBuffer());
+		final Buffer eventBuffer = toMemoryBuffer(event.buffer(), expectFileRegions);
+		assertEquals(
+				EndOfPartitionEvent.INSTANCE,
+				EventSerializer.fromBuffer(eventBuffer, SortMergeSubpartitionTest.class.getClassLoader()));
+		assertFalse(event.isMoreAvailable());
+		eventBuffer.recycleBuffer();
+
+		assertNull(reader.getNextBuffer());
+	}
+
+	private static Buffer toMemoryBuffer(Buffer buffer, boolean expectFileRegion) throws IOException {
+		assertEquals(expectFileRegion, buffer instanceof FileRegionBuffer);
+		if (!expectFileRegion) {
+			return buffer;
+		}
+
+		final Buffer memoryBuffer = ((FileRegionBuffer) buffer).readToUnpooledBuffer();
+		assertTrue(buffer.isRecycled());
+		assertEquals(buffer.isBuffer(), memoryBuffer.isBuffer());
+		return memoryBuffer;
+	}
+
+	private BufferConsumer createFilledBufferConsumer(int subpartitionIndex, int bufferIndex) {
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE);
+		for (int pos = 0; pos < BUFFER_SIZE; pos += 8) {
+			segment.putInt(pos, subpartitionIndex);
+			segment.putInt(pos + 4, bufferIndex);
+		}
+		return new BufferConsumer(segment, recycler, BUFFER_SIZE, true);
+	}
+
+	private static SortMergeSubpartition[] createSubpartitions(Path dataFile, Path indexFile) throws IOException {
+		return createSubpartitions(dataFile, indexFile, false);
+	}
+
+	private static SortMergeSubpartition[] createSubpartitions(
+			Path dataFile,
+			Path indexFile,
+			boolean useDirectFileTransfer) throws IOException {
+
+		final ResultPartition parent = PartitionTestUtils.createPartition(ResultPartitionType.BLOCKING_SORT_MERGE);
+		final SortMergePartitionFile file = new SortMergePartitionFile(
+				NUM_SUBPARTITIONS, dataFile, indexFile, useDirectFileTransfer);
+
+		final SortMergeSubpartition[] subpartitions = new SortMergeSubpartition[NUM_SUBPARTITIONS];
+		for (int i = 0; i < NUM_SUBPARTITIONS; i++) {
+			subpartitions[i] = new SortMergeSubpartition(i, parent, file);
+		}
+		return subpartitions;
+	}
+
+	private static Path newFilePath() throws IOException {
+		return new File(TMP_FOLDER.newFolder(), "partitiondata").toPath();
+	}
+}
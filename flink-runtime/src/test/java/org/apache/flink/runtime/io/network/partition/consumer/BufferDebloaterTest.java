@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition.consumer;
+
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link BufferDebloater}.
+ */
+public class BufferDebloaterTest extends TestLogger {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	private static final int MAX_BUFFER_SIZE = 32 * 1024;
+
+	private static final int MIN_BUFFER_SIZE = 1024;
+
+	/** 4 channels with 2 exclusive buffers each and 8 floating buffers make 16 buffers in flight. */
+	private static BufferDebloater createBufferDebloater() {
+		return new BufferDebloater(
+			new BufferDebloatConfiguration(1000L, 1000L, MIN_BUFFER_SIZE, 25),
+			MAX_BUFFER_SIZE,
+			4,
+			2,
+			8);
+	}
+
+	@Test
+	public void testRecalculatesOncePerPeriod() {
+		BufferDebloater debloater = createBufferDebloater();
+
+		assertFalse(debloater.notifyBufferConsumed(0, 0L));
+		assertFalse(debloater.notifyBufferConsumed(40960, SECOND / 2));
+		assertEquals(MAX_BUFFER_SIZE, debloater.getBufferSize());
+		assertEquals(0L, debloater.getThroughput());
+
+		// 80 KiB in one second should take 1 second to consume in 16 buffers of 5 KiB
+		assertTrue(debloater.notifyBufferConsumed(40960, SECOND));
+		assertEquals(81920L, debloater.getThroughput());
+		assertEquals(5120, debloater.getBufferSize());
+		assertEquals(Integer.MAX_VALUE, debloater.getMaxFloatingCredits());
+	}
+
+	@Test
+	public void testIgnoresSmallChanges() {
+		BufferDebloater debloater = createBufferDebloater();
+
+		debloater.notifyBufferConsumed(0, 0L);
+		assertTrue(debloater.notifyBufferConsumed(81920, SECOND));
+		assertEquals(5120, debloater.getBufferSize());
+
+		// the smoothed throughput rises by 20 percent, which is below the threshold of 25 percent
+		assertFalse(debloater.notifyBufferConsumed(163840, 2 * SECOND));
+		assertEquals(98304L, debloater.getThroughput());
+		assertEquals(5120, debloater.getBufferSize());
+	}
+
+	@Test
+	public void testExcludesIdleTime() {
+		BufferDebloater debloater = createBufferDebloater();
+
+		debloater.notifyBufferConsumed(0, 0L);
+		debloater.notifyIdle(SECOND / 2);
+		debloater.notifyIdle(SECOND);
+
+		// the gate only had data for half a second
+		assertTrue(debloater.notifyBufferConsumed(40960, 3 * SECOND / 2));
+		assertEquals(81920L, debloater.getThroughput());
+		assertEquals(5120, debloater.getBufferSize());
+	}
+
+	@Test
+	public void testLimitsFloatingCreditsAtMinimumBufferSize() {
+		BufferDebloater debloater = createBufferDebloater();
+
+		// 12 buffers of the minimum size hold the desired in-flight data, 4 more than the 8 exclusive ones
+		debloater.notifyBufferConsumed(0, 0L);
+		assertTrue(debloater.notifyBufferConsumed(12288, SECOND));
+		assertEquals(MIN_BUFFER_SIZE, debloater.getBufferSize());
+		assertEquals(1, debloater.getMaxFloatingCredits());
+
+		// a back pressured consumer takes nothing from the gate, which lowers the smoothed throughput
+		assertFalse(debloater.notifyBufferConsumed(0, 2 * SECOND));
+		assertEquals(1, debloater.getMaxFloatingCredits());
+		assertTrue(debloater.notifyBufferConsumed(0, 3 * SECOND));
+		assertEquals(MIN_BUFFER_SIZE, debloater.getBufferSize());
+		assertEquals(0, debloater.getMaxFloatingCredits());
+
+		assertTrue(debloater.notifyBufferConsumed(16 * 1024 * 1024, 4 * SECOND));
+		assertEquals(MAX_BUFFER_SIZE, debloater.getBufferSize());
+		assertEquals(Integer.MAX_VALUE, debloater.getMaxFloatingCredits());
+	}
+}
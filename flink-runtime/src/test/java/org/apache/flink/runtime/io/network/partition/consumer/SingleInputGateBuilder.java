@@ -22,6 +22,7 @@ import org.apache.flink.api.common.JobID;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.io.network.NetworkEnvironment;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
@@ -57,6 +58,8 @@ public class SingleInputGateBuilder {
 		throw new UnsupportedOperationException();
 	};
 
+	private BufferDecompressor bufferDecompressor = null;
+
 	public SingleInputGateBuilder setResultPartitionType(ResultPartitionType partitionType) {
 		this.partitionType = partitionType;
 		return this;
@@ -77,6 +80,11 @@ public class SingleInputGateBuilder {
 		return this;
 	}
 
+	public SingleInputGateBuilder setBufferDecompressor(BufferDecompressor bufferDecompressor) {
+		this.bufferDecompressor = bufferDecompressor;
+		return this;
+	}
+
 	public SingleInputGateBuilder setupBufferPoolFactory(NetworkEnvironment environment) {
 		NetworkEnvironmentConfiguration config = environment.getConfiguration();
 		this.bufferPoolFactory = SingleInputGateFactory.createBufferPoolFactory(
@@ -100,6 +108,7 @@ public class SingleInputGateBuilder {
 			taskActions,
 			numBytesInCounter,
 			isCreditBased,
-			bufferPoolFactory);
+			bufferPoolFactory,
+			bufferDecompressor);
 	}
 }
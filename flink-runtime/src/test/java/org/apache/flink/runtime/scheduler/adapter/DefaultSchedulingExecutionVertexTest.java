@@ -66,7 +66,7 @@ public class DefaultSchedulingExecutionVertexTest extends TestLogger {
 			new ExecutionVertexID(new JobVertexID(), 0),
 			Collections.emptyList(),
 			stateSupplier);
-		consumerVertex.addConsumedPartition(schedulingResultPartition);
+		consumerVertex.addConsumedPartitionGroup(Collections.singletonList(schedulingResultPartition));
 	}
 
 	@Test
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.apache.flink.api.common.InputDependencyConstraint.ALL;
@@ -149,8 +150,7 @@ public class ExecutionGraphToSchedulingTopologyAdapterTest extends TestLogger {
 			assertPartitionEquals(originalPartition, adaptedPartition);
 
 			List<ExecutionVertex> originalConsumers = originalPartition.getConsumers().stream()
-				.flatMap(Collection::stream)
-				.map(ExecutionEdge::getTarget)
+				.flatMap(consumers -> StreamSupport.stream(consumers.spliterator(), false))
 				.collect(Collectors.toList());
 			Collection<SchedulingExecutionVertex> adaptedConsumers = adaptedPartition.getConsumers();
 
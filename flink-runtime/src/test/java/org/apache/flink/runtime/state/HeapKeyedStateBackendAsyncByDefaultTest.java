@@ -21,6 +21,8 @@ package org.apache.flink.runtime.state;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
 import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
@@ -35,10 +37,13 @@ import org.junit.rules.TemporaryFolder;
 
 import java.util.Collections;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
- * This tests that all heap-based state backends use asynchronous snapshots by default.
+ * This tests that all heap-based state backends use asynchronous snapshots by default, and that spilling heap state
+ * requires synchronous snapshots to be configured explicitly.
  */
 public class HeapKeyedStateBackendAsyncByDefaultTest {
 
@@ -58,6 +63,25 @@ public class HeapKeyedStateBackendAsyncByDefaultTest {
 		validateSupportForAsyncSnapshots(backend);
 	}
 
+	@Test
+	public void testFsStateBackendHeapSpillingRequiresSyncSnapshots() throws Exception {
+		FsStateBackend backend = new FsStateBackend(tmpFolder.newFolder().toURI());
+
+		Configuration config = new Configuration();
+		config.setBoolean(CheckpointingOptions.HEAP_SPILL_ENABLED, true);
+		try {
+			backend.configure(config, getClass().getClassLoader());
+			fail("Spilling should require synchronous snapshots.");
+		} catch (IllegalConfigurationException expected) {
+			assertTrue(expected.getMessage().contains(CheckpointingOptions.ASYNC_SNAPSHOTS.key()));
+		}
+
+		config.setBoolean(CheckpointingOptions.ASYNC_SNAPSHOTS, false);
+		FsStateBackend spillingBackend = backend.configure(config, getClass().getClassLoader());
+		assertTrue(spillingBackend.isUsingHeapSpilling());
+		assertFalse(spillingBackend.isUsingAsynchronousSnapshots());
+	}
+
 	@Test
 	public void testMemoryStateBackendDefaultsToAsync() throws Exception {
 		MemoryStateBackend backend = new MemoryStateBackend();
@@ -347,7 +347,8 @@ public abstract class InternalPriorityQueueTestBase extends TestLogger {
 	/**
 	 * Payload for usage in the test.
 	 */
-	protected static class TestElement implements HeapPriorityQueueElement, Keyed<Long>, PriorityComparable<TestElement> {
+	protected static class TestElement
+		implements HeapPriorityQueueElement, Keyed<Long>, PriorityComparable<TestElement>, Timestamped {
 
 		private final long key;
 		private final long priority;
@@ -372,6 +373,11 @@ public abstract class InternalPriorityQueueTestBase extends TestLogger {
 			return priority;
 		}
 
+		@Override
+		public long getTimestamp() {
+			return priority;
+		}
+
 		@Override
 		public int getInternalIndex() {
 			return internalIndex;
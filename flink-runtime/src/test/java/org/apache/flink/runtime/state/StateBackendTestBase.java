@@ -36,6 +36,8 @@ import org.apache.flink.api.common.state.MapState;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.ReducingState;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.state.StateTtlConfig;
 import org.apache.flink.api.common.state.ValueState;
@@ -47,6 +49,7 @@ import org.apache.flink.api.common.typeutils.base.DoubleSerializer;
 import org.apache.flink.api.common.typeutils.base.FloatSerializer;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.OrderPreservingLongSerializer;
 import org.apache.flink.api.common.typeutils.base.StringSerializer;
 import org.apache.flink.api.java.typeutils.GenericTypeInfo;
 import org.apache.flink.api.java.typeutils.TypeExtractor;
@@ -91,6 +94,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -2654,6 +2658,88 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 		backend.dispose();
 	}
 
+	@Test
+	public void testSortedMapState() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+		AbstractKeyedStateBackend<String> backend = createKeyedBackend(StringSerializer.INSTANCE);
+
+		SortedMapStateDescriptor<Long, String> kvId = new SortedMapStateDescriptor<>(
+			"id", OrderPreservingLongSerializer.INSTANCE, StringSerializer.INSTANCE, Comparator.<Long>naturalOrder());
+
+		try {
+			SortedMapState<Long, String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+			backend.setCurrentKey("1");
+			state.put(10L, "10");
+			state.put(-5L, "-5");
+			state.put(3L, "3");
+			state.putAll(new HashMap<Long, String>() {{ put(-1L, "-1"); put(7L, "7"); }});
+			backend.setCurrentKey("2");
+			state.put(4L, "4");
+
+			backend.setCurrentKey("1");
+			assertEquals(Arrays.asList(-5L, -1L, 3L, 7L, 10L), collectKeys(state.iterator()));
+			assertEquals(Long.valueOf(-5L), state.firstEntry().getKey());
+			assertEquals("-5", state.firstEntry().getValue());
+			assertEquals(Long.valueOf(10L), state.lastEntry().getKey());
+			assertEquals("10", state.lastEntry().getValue());
+			assertEquals(Arrays.asList(-5L, -1L), collectKeys(state.headIterator(3L)));
+			assertEquals(Arrays.asList(3L, 7L, 10L), collectKeys(state.tailIterator(3L)));
+			assertEquals(Arrays.asList(-1L, 3L, 7L), collectKeys(state.subIterator(-1L, 10L)));
+			assertEquals(Collections.emptyList(), collectKeys(state.subIterator(4L, 5L)));
+
+			backend.setCurrentKey("2");
+			assertEquals(Long.valueOf(4L), state.firstEntry().getKey());
+			assertEquals(Long.valueOf(4L), state.lastEntry().getKey());
+			assertEquals(Collections.emptyList(), collectKeys(state.headIterator(4L)));
+
+			backend.setCurrentKey("3");
+			assertNull(state.firstEntry());
+			assertNull(state.lastEntry());
+			assertEquals(Collections.emptyList(), collectKeys(state.tailIterator(0L)));
+
+			// remove the negative keys through a range iterator
+			backend.setCurrentKey("1");
+			Iterator<Map.Entry<Long, String>> iterator = state.headIterator(0L);
+			while (iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+			assertEquals(Arrays.asList(3L, 7L, 10L), collectKeys(state.iterator()));
+
+			KeyedStateHandle snapshot = runSnapshot(
+				backend.snapshot(682375462378L, 2, streamFactory, CheckpointOptions.forCheckpointWithDefaultLocation()),
+				sharedStateRegistry);
+
+			backend.dispose();
+			backend = restoreKeyedBackend(StringSerializer.INSTANCE, snapshot);
+			snapshot.discardState();
+
+			SortedMapState<Long, String> restored = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+			backend.setCurrentKey("1");
+			assertEquals(Arrays.asList(3L, 7L, 10L), collectKeys(restored.iterator()));
+			assertEquals(Long.valueOf(10L), restored.lastEntry().getKey());
+			assertEquals(Arrays.asList(7L), collectKeys(restored.subIterator(4L, 10L)));
+			restored.put(-10L, "-10");
+			assertEquals(Long.valueOf(-10L), restored.firstEntry().getKey());
+
+			backend.setCurrentKey("2");
+			assertEquals("4", restored.get(4L));
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	private static <K> List<K> collectKeys(Iterator<? extends Map.Entry<K, ?>> iterator) {
+		List<K> keys = new ArrayList<>();
+		while (iterator.hasNext()) {
+			keys.add(iterator.next().getKey());
+		}
+		return keys;
+	}
+
 	/**
 	 * Verify iterator of {@link MapState} supporting arbitrary access, see [FLINK-10267] to know more details.
 	 */
@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.HeapIncrementalKeyedStateHandle;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.TestLocalRecoveryConfig;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RunnableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the incremental checkpoints of the heap keyed state backend, see
+ * {@link HeapIncrementalSnapshotStrategy}.
+ */
+public class HeapIncrementalSnapshotTest extends TestLogger {
+
+	private static final int MAX_DELTAS = 2;
+
+	private static final KeyGroupRange KEY_GROUP_RANGE = new KeyGroupRange(0, 15);
+
+	private final ValueStateDescriptor<Integer> valueStateDescriptor =
+		new ValueStateDescriptor<>("value", IntSerializer.INSTANCE);
+
+	private final ListStateDescriptor<Integer> listStateDescriptor =
+		new ListStateDescriptor<>("list", IntSerializer.INSTANCE);
+
+	private final MapStateDescriptor<Integer, Integer> mapStateDescriptor =
+		new MapStateDescriptor<>("map", IntSerializer.INSTANCE, IntSerializer.INSTANCE);
+
+	private final MemCheckpointStreamFactory streamFactory = new MemCheckpointStreamFactory(16 * 1024 * 1024);
+
+	private final SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+
+	@Test
+	public void testRestoreFromBaseAndDeltas() throws Exception {
+		final HeapIncrementalKeyedStateHandle stateHandle;
+
+		HeapKeyedStateBackend<Integer> backend = createKeyedBackend(Collections.emptyList());
+		try {
+			ValueState<Integer> valueState = getValueState(backend);
+			ListState<Integer> listState = getListState(backend);
+
+			for (int key = 0; key < 100; ++key) {
+				backend.setCurrentKey(key);
+				valueState.update(key);
+				listState.add(key);
+			}
+
+			assertPieces(runSnapshot(backend, 1L), "base-1");
+			backend.notifyCheckpointComplete(1L);
+
+			for (int key = 0; key < 10; ++key) {
+				backend.setCurrentKey(key);
+				valueState.update(-key);
+				// modifies the list object in place
+				listState.add(-key);
+			}
+			for (int key = 10; key < 20; ++key) {
+				backend.setCurrentKey(key);
+				valueState.clear();
+			}
+
+			assertPieces(runSnapshot(backend, 2L), "base-1", "delta-2");
+			backend.notifyCheckpointComplete(2L);
+
+			backend.setCurrentKey(100);
+			valueState.update(100);
+
+			stateHandle = runSnapshot(backend, 3L);
+			assertPieces(stateHandle, "base-1", "delta-2", "delta-3");
+			backend.notifyCheckpointComplete(3L);
+		} finally {
+			backend.dispose();
+		}
+
+		backend = createKeyedBackend(Collections.singletonList(stateHandle));
+		try {
+			ValueState<Integer> valueState = getValueState(backend);
+			ListState<Integer> listState = getListState(backend);
+
+			for (int key = 0; key <= 100; ++key) {
+				backend.setCurrentKey(key);
+				if (key < 10) {
+					assertEquals(Integer.valueOf(-key), valueState.value());
+					assertEquals(Arrays.asList(key, -key), listState.get());
+				} else if (key < 20) {
+					assertNull(valueState.value());
+					assertEquals(Collections.singletonList(key), listState.get());
+				} else if (key < 100) {
+					assertEquals(Integer.valueOf(key), valueState.value());
+					assertEquals(Collections.singletonList(key), listState.get());
+				} else {
+					assertEquals(Integer.valueOf(key), valueState.value());
+					assertNull(listState.get());
+				}
+			}
+
+			// the restored snapshot has the maximum number of deltas, so the next snapshot is a new base
+			HeapIncrementalKeyedStateHandle nextStateHandle = runSnapshot(backend, 4L);
+			assertPieces(nextStateHandle, "base-4");
+			assertEquals(stateHandle.getBackendIdentifier(), nextStateHandle.getBackendIdentifier());
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testWritesBaseUntilCheckpointCompletes() throws Exception {
+		HeapKeyedStateBackend<Integer> backend = createKeyedBackend(Collections.emptyList());
+		try {
+			ValueState<Integer> valueState = getValueState(backend);
+
+			backend.setCurrentKey(1);
+			valueState.update(1);
+			assertPieces(runSnapshot(backend, 1L), "base-1");
+
+			backend.setCurrentKey(2);
+			valueState.update(2);
+			assertPieces(runSnapshot(backend, 2L), "base-2");
+
+			// a late notification for the earlier checkpoint still allows to build upon it
+			backend.notifyCheckpointComplete(1L);
+			backend.setCurrentKey(3);
+			valueState.update(3);
+			HeapIncrementalKeyedStateHandle stateHandle = runSnapshot(backend, 3L);
+			assertPieces(stateHandle, "base-1", "delta-3");
+
+			backend.notifyCheckpointComplete(3L);
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testRecordsOnlyWrites() throws Exception {
+		final HeapIncrementalKeyedStateHandle stateHandle;
+
+		HeapKeyedStateBackend<Integer> backend = createKeyedBackend(Collections.emptyList());
+		try {
+			ListState<Integer> listState = getListState(backend);
+			MapState<Integer, Integer> mapState = getMapState(backend);
+
+			for (int key = 0; key < 5; ++key) {
+				backend.setCurrentKey(key);
+				listState.add(key);
+				mapState.put(1, key);
+				mapState.put(2, key);
+			}
+
+			assertPieces(runSnapshot(backend, 1L), "base-1");
+			backend.notifyCheckpointComplete(1L);
+
+			// reads and removals of absent entries are not recorded
+			backend.setCurrentKey(0);
+			listState.get().iterator().next();
+			mapState.get(1);
+			mapState.contains(2);
+			mapState.entries().iterator().next();
+			mapState.keys().iterator().next();
+			mapState.values().iterator().next();
+			mapState.iterator().next();
+			mapState.remove(3);
+			assertModified(listState, 0, false);
+			assertModified(mapState, 0, false);
+
+			// writes that modify the existing state objects in place
+			backend.setCurrentKey(1);
+			listState.add(-1);
+			assertModified(listState, 1, true);
+
+			backend.setCurrentKey(2);
+			mapState.put(3, 2);
+			assertModified(mapState, 2, true);
+
+			backend.setCurrentKey(3);
+			mapState.entries().iterator().next().setValue(-3);
+			assertModified(mapState, 3, true);
+
+			backend.setCurrentKey(4);
+			Iterator<Integer> keys = mapState.keys().iterator();
+			keys.next();
+			keys.remove();
+			assertModified(mapState, 4, true);
+
+			stateHandle = runSnapshot(backend, 2L);
+			assertPieces(stateHandle, "base-1", "delta-2");
+		} finally {
+			backend.dispose();
+		}
+
+		backend = createKeyedBackend(Collections.singletonList(stateHandle));
+		try {
+			ListState<Integer> listState = getListState(backend);
+			MapState<Integer, Integer> mapState = getMapState(backend);
+
+			backend.setCurrentKey(1);
+			assertEquals(Arrays.asList(1, -1), listState.get());
+
+			backend.setCurrentKey(2);
+			assertEquals(createMap(1, 2, 2, 2, 3, 2), toMap(mapState));
+
+			backend.setCurrentKey(3);
+			assertEquals(createMap(1, -3, 2, 3), toMap(mapState));
+
+			backend.setCurrentKey(4);
+			assertEquals(1, toMap(mapState).size());
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testRejectsIncrementalSnapshotOfOtherBackends() throws Exception {
+		IncrementalRemoteKeyedStateHandle stateHandle = new IncrementalRemoteKeyedStateHandle(
+			UUID.randomUUID(),
+			KEY_GROUP_RANGE,
+			1L,
+			Collections.emptyMap(),
+			Collections.emptyMap(),
+			new ByteStreamStateHandle("meta", new byte[0]));
+
+		try {
+			createKeyedBackend(Collections.singletonList(stateHandle)).dispose();
+			fail("The incremental snapshot of another backend should be rejected.");
+		} catch (Exception e) {
+			assertTrue(ExceptionUtils.findThrowable(e, IllegalStateException.class).isPresent());
+		}
+	}
+
+	private ValueState<Integer> getValueState(HeapKeyedStateBackend<Integer> backend) throws Exception {
+		return backend.getPartitionedState(
+			VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueStateDescriptor);
+	}
+
+	private ListState<Integer> getListState(HeapKeyedStateBackend<Integer> backend) throws Exception {
+		return backend.getPartitionedState(
+			VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listStateDescriptor);
+	}
+
+	private MapState<Integer, Integer> getMapState(HeapKeyedStateBackend<Integer> backend) throws Exception {
+		return backend.getPartitionedState(
+			VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, mapStateDescriptor);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void assertModified(Object state, int key, boolean expected) {
+		StateTable<Integer, VoidNamespace, ?> stateTable =
+			((AbstractHeapState<Integer, VoidNamespace, ?>) state).getStateTable();
+		assertTrue(stateTable instanceof ChangelogStateTable);
+		assertEquals(
+			expected,
+			((ChangelogStateTable<Integer, VoidNamespace, ?>) stateTable)
+				.isModifiedSinceLastSnapshot(key, VoidNamespace.INSTANCE));
+	}
+
+	private static Map<Integer, Integer> toMap(MapState<Integer, Integer> mapState) throws Exception {
+		Map<Integer, Integer> result = new HashMap<>();
+		for (Map.Entry<Integer, Integer> entry : mapState.entries()) {
+			result.put(entry.getKey(), entry.getValue());
+		}
+		return result;
+	}
+
+	private static Map<Integer, Integer> createMap(int... keysAndValues) {
+		Map<Integer, Integer> result = new HashMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			result.put(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return result;
+	}
+
+	private HeapIncrementalKeyedStateHandle runSnapshot(
+		HeapKeyedStateBackend<Integer> backend,
+		long checkpointId) throws Exception {
+
+		RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot = backend.snapshot(
+			checkpointId,
+			checkpointId,
+			streamFactory,
+			CheckpointOptions.forCheckpointWithDefaultLocation());
+
+		if (!snapshot.isDone()) {
+			snapshot.run();
+		}
+
+		KeyedStateHandle stateHandle = snapshot.get().getJobManagerOwnedSnapshot();
+		assertTrue(stateHandle instanceof HeapIncrementalKeyedStateHandle);
+		stateHandle.registerSharedStates(sharedStateRegistry);
+		return (HeapIncrementalKeyedStateHandle) stateHandle;
+	}
+
+	private static void assertPieces(HeapIncrementalKeyedStateHandle stateHandle, String... expectedPieces) {
+		HashSet<StateHandleID> expected = new HashSet<>();
+		for (String piece : expectedPieces) {
+			expected.add(new StateHandleID(piece));
+		}
+		assertEquals(expected, stateHandle.getSharedStateHandleIDs());
+	}
+
+	private static HeapKeyedStateBackend<Integer> createKeyedBackend(
+		Collection<KeyedStateHandle> stateHandles) throws Exception {
+
+		ExecutionConfig executionConfig = new ExecutionConfig();
+
+		return new HeapKeyedStateBackendBuilder<>(
+			mock(TaskKvStateRegistry.class),
+			IntSerializer.INSTANCE,
+			HeapIncrementalSnapshotTest.class.getClassLoader(),
+			KEY_GROUP_RANGE.getNumberOfKeyGroups(),
+			KEY_GROUP_RANGE,
+			executionConfig,
+			TtlTimeProvider.DEFAULT,
+			stateHandles,
+			AbstractStateBackend.getCompressionDecorator(executionConfig),
+			TestLocalRecoveryConfig.disabled(),
+			new HeapPriorityQueueSetFactory(KEY_GROUP_RANGE, KEY_GROUP_RANGE.getNumberOfKeyGroups(), 128),
+			true,
+			null,
+			true,
+			MAX_DELTAS,
+			new CloseableRegistry()).build();
+	}
+}
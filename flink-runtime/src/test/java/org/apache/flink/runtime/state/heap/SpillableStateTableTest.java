@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.heap.HeapSpillManager.LiveHeapUsageMonitor;
+import org.apache.flink.runtime.state.heap.HeapSpillManager.SharedHeapUsage;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SpillableStateTable} and the {@link HeapSpillManager}.
+ */
+public class SpillableStateTableTest extends TestLogger {
+
+	private static final int NUMBER_OF_KEY_GROUPS = 4;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final AtomicLong bytesOverWatermark = new AtomicLong();
+
+	private InternalKeyContext<Integer> keyContext;
+
+	private HeapSpillManager spillManager;
+
+	private SpillableStateTable<Integer, String, Integer> stateTable;
+
+	@Before
+	public void setup() throws IOException {
+		keyContext = new InternalKeyContextImpl<>(new KeyGroupRange(0, NUMBER_OF_KEY_GROUPS - 1), NUMBER_OF_KEY_GROUPS);
+		spillManager = new HeapSpillManager(temporaryFolder.newFolder(), heapStateBytes -> bytesOverWatermark.get());
+
+		RegisteredKeyValueStateBackendMetaInfo<String, Integer> metaInfo =
+			new RegisteredKeyValueStateBackendMetaInfo<>(
+				StateDescriptor.Type.UNKNOWN,
+				"test",
+				StringSerializer.INSTANCE,
+				IntSerializer.INSTANCE);
+
+		stateTable = new SpillableStateTable<>(keyContext, metaInfo, IntSerializer.INSTANCE, spillManager);
+	}
+
+	@After
+	public void cleanup() {
+		spillManager.close();
+	}
+
+	@Test
+	public void testSpilledKeyGroupsAreLoadedOnAccess() throws Exception {
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			stateTable.put("a", key);
+			stateTable.put("b", -key);
+		}
+
+		spillManager.spillColdKeyGroups(Long.MAX_VALUE, null, -1);
+
+		assertEquals(NUMBER_OF_KEY_GROUPS, stateTable.numberOfSpilledKeyGroups());
+		assertEquals(200, stateTable.size());
+		assertEquals(100, stateTable.sizeOfNamespace("a"));
+		assertEquals(100L, stateTable.getKeys("b").count());
+
+		setCurrentKey(42);
+		assertEquals(Integer.valueOf(42), stateTable.get("a"));
+		assertEquals(NUMBER_OF_KEY_GROUPS - 1, stateTable.numberOfSpilledKeyGroups());
+
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			assertEquals(Integer.valueOf(-key), stateTable.removeAndGetOld("b"));
+			assertNull(stateTable.get("b"));
+		}
+
+		assertEquals(0, stateTable.numberOfSpilledKeyGroups());
+		assertEquals(100, stateTable.size());
+	}
+
+	@Test
+	public void testSnapshotOfSpilledKeyGroupsIsUnchanged() throws Exception {
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			stateTable.put(String.valueOf(key % 3), key);
+		}
+
+		byte[][] heapSnapshots = writeSnapshot(stateTable.stateSnapshot());
+
+		spillManager.spillColdKeyGroups(Long.MAX_VALUE, null, -1);
+		assertEquals(NUMBER_OF_KEY_GROUPS, stateTable.numberOfSpilledKeyGroups());
+
+		byte[][] spilledSnapshots = writeSnapshot(stateTable.stateSnapshot());
+
+		for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; ++keyGroup) {
+			assertArrayEquals(heapSnapshots[keyGroup], spilledSnapshots[keyGroup]);
+		}
+
+		// taking the snapshot does not load the spilled key-groups
+		assertEquals(NUMBER_OF_KEY_GROUPS, stateTable.numberOfSpilledKeyGroups());
+	}
+
+	@Test
+	public void testSpillOnWatermarkKeepsAccessedKeyGroup() {
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			stateTable.put("a", key);
+		}
+
+		final int accessedKey = 7;
+		final int accessedKeyGroup = KeyGroupRangeAssignment.assignToKeyGroup(accessedKey, NUMBER_OF_KEY_GROUPS);
+
+		bytesOverWatermark.set(Long.MAX_VALUE);
+		setCurrentKey(accessedKey);
+		for (int i = 0; i < HeapSpillManager.CHECK_INTERVAL; ++i) {
+			assertEquals(Integer.valueOf(accessedKey), stateTable.get("a"));
+		}
+
+		assertEquals(NUMBER_OF_KEY_GROUPS - 1, stateTable.numberOfSpilledKeyGroups());
+		assertNull(stateTable.getSpilledKeyGroup(accessedKeyGroup));
+		assertNotNull(stateTable.getHeapMapForKeyGroup(accessedKeyGroup));
+		assertTrue(stateTable.containsKey("a"));
+		assertEquals(100, stateTable.size());
+	}
+
+	@Test
+	public void testNamespacesOfSpilledKeyGroups() throws Exception {
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			stateTable.put(String.valueOf(key % 3), key);
+		}
+
+		spillManager.spillColdKeyGroups(Long.MAX_VALUE, null, -1);
+		assertEquals(NUMBER_OF_KEY_GROUPS, stateTable.numberOfSpilledKeyGroups());
+
+		for (int namespace = 0; namespace < 3; ++namespace) {
+			Set<Integer> expectedKeys = new HashSet<>();
+			for (int key = namespace; key < 100; key += 3) {
+				expectedKeys.add(key);
+			}
+
+			assertEquals(expectedKeys.size(), stateTable.sizeOfNamespace(String.valueOf(namespace)));
+			assertEquals(expectedKeys, stateTable.getKeys(String.valueOf(namespace)).collect(Collectors.toSet()));
+		}
+		assertEquals(0, stateTable.sizeOfNamespace("unknown"));
+		assertEquals(0L, stateTable.getKeys("unknown").count());
+
+		// reading the keys does not load the spilled key-groups
+		assertEquals(NUMBER_OF_KEY_GROUPS, stateTable.numberOfSpilledKeyGroups());
+	}
+
+	@Test
+	public void testIncrementalVisitorCoversSpilledKeyGroups() throws Exception {
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			stateTable.put("a", key);
+		}
+
+		// spill half of the key-groups
+		for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup += 2) {
+			stateTable.spillKeyGroup(keyGroup);
+		}
+
+		// remove the odd and increment the even values, like the incremental cleanup of TTL state
+		Set<Integer> visitedKeys = new HashSet<>();
+		StateIncrementalVisitor<Integer, String, Integer> visitor = stateTable.getStateIncrementalVisitor(7);
+		while (visitor.hasNext()) {
+			for (StateEntry<Integer, String, Integer> entry : visitor.nextEntries()) {
+				assertTrue(visitedKeys.add(entry.getKey()));
+				if (entry.getState() % 2 == 1) {
+					visitor.remove(entry);
+				} else {
+					visitor.update(entry, entry.getState() + 1);
+				}
+			}
+		}
+
+		assertEquals(100, visitedKeys.size());
+		assertEquals(NUMBER_OF_KEY_GROUPS / 2, stateTable.numberOfSpilledKeyGroups());
+		assertEquals(50, stateTable.size());
+
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			assertEquals(key % 2 == 1 ? null : Integer.valueOf(key + 1), stateTable.get("a"));
+		}
+	}
+
+	@Test
+	public void testSpilledKeyGroupIsLoadedWithChangesOfVisitor() throws Exception {
+		final int key = 3;
+		final int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(key, NUMBER_OF_KEY_GROUPS);
+		setCurrentKey(key);
+		stateTable.put("a", key);
+		stateTable.put("b", key);
+		stateTable.spillKeyGroup(keyGroup);
+
+		StateIncrementalVisitor<Integer, String, Integer> visitor = stateTable.getStateIncrementalVisitor(1);
+		StateEntry<Integer, String, Integer> entry = visitor.nextEntries().iterator().next();
+		visitor.remove(entry);
+
+		// load the visited key-group before the visitor moves on
+		String otherNamespace = entry.getNamespace().equals("a") ? "b" : "a";
+		assertEquals(Integer.valueOf(key), stateTable.get(otherNamespace));
+		assertNull(stateTable.get(entry.getNamespace()));
+		assertEquals(0, stateTable.numberOfSpilledKeyGroups());
+
+		// the rest of the key-group is visited on the heap
+		StateEntry<Integer, String, Integer> otherEntry = visitor.nextEntries().iterator().next();
+		assertEquals(otherNamespace, otherEntry.getNamespace());
+		visitor.remove(otherEntry);
+		assertFalse(visitor.hasNext());
+
+		assertEquals(0, stateTable.size());
+	}
+
+	@Test
+	public void testBackendsShareExcessOfHeapUsage() {
+		TestingSharedHeapUsage heapUsage = new TestingSharedHeapUsage(1000L);
+		LiveHeapUsageMonitor firstMonitor = new LiveHeapUsageMonitor(heapUsage, 0.5f);
+		LiveHeapUsageMonitor secondMonitor = new LiveHeapUsageMonitor(heapUsage, 0.5f);
+
+		heapUsage.liveBytes = 400L;
+		assertEquals(0L, firstMonitor.getBytesToSpill(300L));
+		assertEquals(0L, secondMonitor.getBytesToSpill(100L));
+
+		// after the next garbage collection, the live heap exceeds the watermark by 200 bytes
+		heapUsage.collectionCount = 1L;
+		heapUsage.liveBytes = 700L;
+		assertEquals(150L, firstMonitor.getBytesToSpill(300L));
+		assertEquals(50L, secondMonitor.getBytesToSpill(100L));
+
+		// the excess is only reported once per garbage collection
+		assertEquals(0L, firstMonitor.getBytesToSpill(300L));
+
+		// a closed monitor does not count towards the heap state any more
+		secondMonitor.close();
+		heapUsage.collectionCount = 2L;
+		assertEquals(200L, firstMonitor.getBytesToSpill(300L));
+	}
+
+	@Test
+	public void testEstimateHeapStateBytes() throws Exception {
+		assertEquals(0L, spillManager.estimateHeapStateBytes());
+
+		for (int key = 0; key < 100; ++key) {
+			setCurrentKey(key);
+			stateTable.put("a", key);
+		}
+
+		// every mapping consists of a namespace of 2 bytes, and a key and a state of 4 bytes each
+		assertEquals(100L * 10L, spillManager.estimateHeapStateBytes());
+
+		long mappingsOnHeap = 0L;
+		for (int key = 0; key < 100; ++key) {
+			if (KeyGroupRangeAssignment.assignToKeyGroup(key, NUMBER_OF_KEY_GROUPS) != 0) {
+				mappingsOnHeap++;
+			}
+		}
+
+		// spilled key-groups do not count, and the spill files improve the estimate of the size of a mapping
+		stateTable.spillKeyGroup(0);
+		long estimatedBytes = spillManager.estimateHeapStateBytes();
+		assertTrue(estimatedBytes >= mappingsOnHeap * 10L);
+		assertTrue(estimatedBytes < mappingsOnHeap * 11L);
+	}
+
+	private void setCurrentKey(int key) {
+		keyContext.setCurrentKey(key);
+		keyContext.setCurrentKeyGroupIndex(KeyGroupRangeAssignment.assignToKeyGroup(key, NUMBER_OF_KEY_GROUPS));
+	}
+
+	private static final class TestingSharedHeapUsage extends SharedHeapUsage {
+
+		private final long maxBytes;
+
+		private long liveBytes;
+
+		private long collectionCount;
+
+		TestingSharedHeapUsage(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		@Override
+		long getMaxBytes() {
+			return maxBytes;
+		}
+
+		@Override
+		long getLiveBytes() {
+			return liveBytes;
+		}
+
+		@Override
+		long getCollectionCount() {
+			return collectionCount;
+		}
+	}
+
+	private static byte[][] writeSnapshot(StateSnapshot snapshot) throws IOException {
+		byte[][] result = new byte[NUMBER_OF_KEY_GROUPS][];
+		StateSnapshot.StateKeyGroupWriter writer = snapshot.getKeyGroupWriter();
+		for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; ++keyGroup) {
+			ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos();
+			writer.writeStateInKeyGroup(new DataOutputViewStreamWrapper(out), keyGroup);
+			result[keyGroup] = out.toByteArray();
+		}
+		snapshot.release();
+		return result;
+	}
+}
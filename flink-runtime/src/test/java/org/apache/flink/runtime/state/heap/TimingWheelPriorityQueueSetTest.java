@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.InternalPriorityQueue;
+import org.apache.flink.runtime.state.InternalPriorityQueueTestBase;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.TestLocalRecoveryConfig;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RunnableFuture;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for {@link TimingWheelPriorityQueueSet}, used as the partitions of a {@link KeyGroupPartitionedPriorityQueue}.
+ */
+public class TimingWheelPriorityQueueSetTest extends InternalPriorityQueueTestBase {
+
+	private static final long RESOLUTION = 1000L;
+
+	@Override
+	protected InternalPriorityQueue<TestElement> newPriorityQueue(int initialCapacity) {
+		return new KeyGroupPartitionedPriorityQueue<>(
+			KEY_EXTRACTOR_FUNCTION,
+			TEST_ELEMENT_PRIORITY_COMPARATOR,
+			newFactory(),
+			KEY_GROUP_RANGE, KEY_GROUP_RANGE.getNumberOfKeyGroups());
+	}
+
+	private KeyGroupPartitionedPriorityQueue.PartitionQueueSetFactory<
+			TestElement, TimingWheelPriorityQueueSet<TestElement>> newFactory() {
+
+		return (keyGroupId, numKeyGroups, keyExtractorFunction, elementComparator) ->
+			newTimingWheel(KeyGroupRange.of(keyGroupId, keyGroupId), numKeyGroups, RESOLUTION);
+	}
+
+	@Override
+	protected boolean testSetSemanticsAgainstDuplicateElements() {
+		return true;
+	}
+
+	@Test
+	public void testOrderAcrossWheelLevels() {
+		final TimingWheelPriorityQueueSet<TestElement> timingWheel =
+			newTimingWheel(KeyGroupRange.of(0, 0), 1, 1L);
+
+		final List<TestElement> expected = new ArrayList<>();
+		long key = 0L;
+		for (int shift = 0; shift < Long.SIZE - 1; shift += 3) {
+			final long distance = 1L << shift;
+			expected.add(new TestElement(key++, distance));
+			expected.add(new TestElement(key++, distance + 1L));
+			expected.add(new TestElement(key++, -distance));
+		}
+		expected.add(new TestElement(key++, Long.MAX_VALUE));
+		expected.add(new TestElement(key, Long.MIN_VALUE));
+
+		final List<TestElement> shuffled = new ArrayList<>(expected);
+		Collections.shuffle(shuffled);
+
+		// the first element determines the position of the wheel, later elements before it are due immediately
+		timingWheel.addAll(shuffled);
+		Assert.assertEquals(expected.size(), timingWheel.size());
+
+		expected.sort(TEST_ELEMENT_COMPARATOR);
+		for (TestElement element : expected) {
+			Assert.assertEquals(element, timingWheel.poll());
+		}
+		Assert.assertTrue(timingWheel.isEmpty());
+		Assert.assertNull(timingWheel.poll());
+	}
+
+	@Test
+	public void testRemoveFromWheelSlots() {
+		final TimingWheelPriorityQueueSet<TestElement> timingWheel =
+			newTimingWheel(KeyGroupRange.of(0, 0), 1, 10L);
+
+		final TestElement first = new TestElement(0L, 5L);
+		final TestElement sameBucket = new TestElement(1L, 7L);
+		final TestElement nextLevel = new TestElement(2L, 10_000L);
+		final TestElement farAway = new TestElement(3L, 1_000_000_000L);
+
+		Assert.assertTrue(timingWheel.add(first));
+		Assert.assertFalse(timingWheel.add(farAway));
+		Assert.assertFalse(timingWheel.add(nextLevel));
+		Assert.assertFalse(timingWheel.add(sameBucket));
+		Assert.assertFalse(timingWheel.add(new TestElement(2L, 10_000L)));
+		Assert.assertEquals(4, timingWheel.size());
+
+		Assert.assertFalse(timingWheel.remove(nextLevel));
+		Assert.assertFalse(timingWheel.remove(nextLevel));
+		Assert.assertEquals(3, timingWheel.size());
+
+		Assert.assertEquals(first, timingWheel.poll());
+		Assert.assertEquals(sameBucket, timingWheel.poll());
+
+		// the head of the queue is not determined until it is requested
+		Assert.assertTrue(timingWheel.add(nextLevel));
+		Assert.assertEquals(nextLevel, timingWheel.peek());
+		Assert.assertTrue(timingWheel.remove(nextLevel));
+
+		Assert.assertEquals(farAway, timingWheel.poll());
+		Assert.assertTrue(timingWheel.isEmpty());
+	}
+
+	@Test
+	public void testHeapBackendSnapshotsIndependentOfTimingWheel() throws Exception {
+		final List<TestElement> expected = new ArrayList<>();
+		for (long key = 0L; key < 100L; ++key) {
+			expected.add(new TestElement(key, (key * 7919L) % 1000L));
+		}
+
+		final KeyedStateHandle stateHandle;
+		HeapKeyedStateBackend<Long> backend = createHeapBackend(Collections.emptyList(), true);
+		try {
+			backend.createTimerQueue("timers", TestElementSerializer.INSTANCE).addAll(expected);
+			stateHandle = runSnapshot(backend);
+		} finally {
+			backend.dispose();
+		}
+
+		expected.sort(TEST_ELEMENT_COMPARATOR);
+
+		// timers of the timing wheel are restored into a heap set, and the other way around
+		backend = createHeapBackend(Collections.singletonList(stateHandle), false);
+		try {
+			assertPollsInOrder(expected, backend.createTimerQueue("timers", TestElementSerializer.INSTANCE));
+		} finally {
+			backend.dispose();
+		}
+
+		backend = createHeapBackend(Collections.singletonList(stateHandle), true);
+		try {
+			final KeyGroupedInternalPriorityQueue<TestElement> timers =
+				backend.createTimerQueue("timers", TestElementSerializer.INSTANCE);
+			Assert.assertSame(timers, backend.createTimerQueue("timers", TestElementSerializer.INSTANCE));
+
+			final KeyedStateHandle nextStateHandle = runSnapshot(backend);
+			assertPollsInOrder(expected, timers);
+
+			backend.dispose();
+			backend = createHeapBackend(Collections.singletonList(nextStateHandle), false);
+			assertPollsInOrder(expected, backend.createTimerQueue("timers", TestElementSerializer.INSTANCE));
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	private static void assertPollsInOrder(List<TestElement> expected, InternalPriorityQueue<TestElement> queue) {
+		Assert.assertEquals(expected.size(), queue.size());
+		for (TestElement element : expected) {
+			Assert.assertEquals(element, queue.poll());
+		}
+		Assert.assertTrue(queue.isEmpty());
+	}
+
+	private static KeyedStateHandle runSnapshot(HeapKeyedStateBackend<Long> backend) throws Exception {
+		RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot = backend.snapshot(
+			1L,
+			1L,
+			new MemCheckpointStreamFactory(16 * 1024 * 1024),
+			CheckpointOptions.forCheckpointWithDefaultLocation());
+
+		if (!snapshot.isDone()) {
+			snapshot.run();
+		}
+		return snapshot.get().getJobManagerOwnedSnapshot();
+	}
+
+	private static HeapKeyedStateBackend<Long> createHeapBackend(
+		Collection<KeyedStateHandle> stateHandles,
+		boolean timingWheelTimers) throws Exception {
+
+		final ExecutionConfig executionConfig = new ExecutionConfig();
+		final TimingWheelPriorityQueueSetFactory timingWheelFactory = timingWheelTimers ?
+			new TimingWheelPriorityQueueSetFactory(KEY_GROUP_RANGE, KEY_GROUP_RANGE.getNumberOfKeyGroups(), 128, RESOLUTION) :
+			null;
+
+		return new HeapKeyedStateBackendBuilder<>(
+			mock(TaskKvStateRegistry.class),
+			LongSerializer.INSTANCE,
+			TimingWheelPriorityQueueSetTest.class.getClassLoader(),
+			KEY_GROUP_RANGE.getNumberOfKeyGroups(),
+			KEY_GROUP_RANGE,
+			executionConfig,
+			TtlTimeProvider.DEFAULT,
+			stateHandles,
+			AbstractStateBackend.getCompressionDecorator(executionConfig),
+			TestLocalRecoveryConfig.disabled(),
+			new HeapPriorityQueueSetFactory(KEY_GROUP_RANGE, KEY_GROUP_RANGE.getNumberOfKeyGroups(), 128),
+			true,
+			new CloseableRegistry())
+			.setTimingWheelFactory(timingWheelFactory)
+			.build();
+	}
+
+	private static TimingWheelPriorityQueueSet<TestElement> newTimingWheel(
+		KeyGroupRange keyGroupRange,
+		int numKeyGroups,
+		long resolution) {
+
+		return new TimingWheelPriorityQueueSet<>(
+			TEST_ELEMENT_PRIORITY_COMPARATOR,
+			KEY_EXTRACTOR_FUNCTION,
+			TestElement::getPriority,
+			resolution,
+			1,
+			keyGroupRange,
+			numKeyGroups);
+	}
+}
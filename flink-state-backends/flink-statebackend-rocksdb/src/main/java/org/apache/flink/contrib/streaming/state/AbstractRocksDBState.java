@@ -33,8 +33,12 @@ import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.WriteOptions;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base class for {@link State} implementations that store state in a RocksDB database.
@@ -73,6 +77,13 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 
 	private final RocksDBSerializedCompositeKeyBuilder<K> sharedKeyNamespaceSerializer;
 
+	/**
+	 * The values which were loaded by {@link RocksDBKeyedStateBackend#prefetch} ahead of their access, by
+	 * their serialized key and namespace. A null value marks a key without a value in RocksDB.
+	 */
+	@Nullable
+	private Map<ByteBuffer, byte[]> prefetchedValues;
+
 	/**
 	 * Creates a new RocksDB backed state.
 	 *
@@ -108,7 +119,7 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 	@Override
 	public void clear() {
 		try {
-			backend.db.delete(columnFamily, writeOptions, serializeCurrentKeyWithGroupAndNamespace());
+			dbDelete(serializeCurrentKeyWithGroupAndNamespace());
 		} catch (RocksDBException e) {
 			throw new FlinkRuntimeException("Error while removing entry from RocksDB", e);
 		}
@@ -143,6 +154,60 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 		return backend.db.get(columnFamily, key);
 	}
 
+	// ------------------------------------------------------------------------
+	//  access to the single values of this state, which may have been prefetched
+	// ------------------------------------------------------------------------
+
+	byte[] dbGet(byte[] key) throws RocksDBException {
+		if (prefetchedValues != null) {
+			ByteBuffer wrappedKey = ByteBuffer.wrap(key);
+			if (prefetchedValues.containsKey(wrappedKey)) {
+				return prefetchedValues.get(wrappedKey);
+			}
+		}
+		return backend.db.get(columnFamily, key);
+	}
+
+	void dbPut(byte[] key, byte[] value) throws RocksDBException {
+		backend.db.put(columnFamily, writeOptions, key, value);
+		if (prefetchedValues != null) {
+			prefetchedValues.put(ByteBuffer.wrap(key), value);
+		}
+	}
+
+	void dbDelete(byte[] key) throws RocksDBException {
+		backend.db.delete(columnFamily, writeOptions, key);
+		if (prefetchedValues != null) {
+			prefetchedValues.put(ByteBuffer.wrap(key), null);
+		}
+	}
+
+	void dbMerge(byte[] key, byte[] value) throws RocksDBException {
+		backend.db.merge(columnFamily, writeOptions, key, value);
+		if (prefetchedValues != null) {
+			// the merged value is only known to RocksDB
+			prefetchedValues.remove(ByteBuffer.wrap(key));
+		}
+	}
+
+	/**
+	 * Adds prefetched values of this state. Values which were already prefetched are kept, because they
+	 * may have been modified since.
+	 */
+	void addPrefetchedValues(Map<ByteBuffer, byte[]> values) {
+		if (prefetchedValues == null) {
+			prefetchedValues = values;
+		} else {
+			for (Map.Entry<ByteBuffer, byte[]> entry : values.entrySet()) {
+				prefetchedValues.putIfAbsent(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	void clearPrefetchedValues() {
+		prefetchedValues = null;
+	}
+
 	<UK> byte[] serializeCurrentKeyWithGroupAndNamespacePlusUserKey(
 		UK userKey,
 		TypeSerializer<UK> userKeySerializer) throws IOException {
@@ -117,8 +117,8 @@ class RocksDBAggregatingState<K, N, T, ACC, R>
 				if (source != null) {
 					setCurrentNamespace(source);
 					final byte[] sourceKey = serializeCurrentKeyWithGroupAndNamespace();
-					final byte[] valueBytes = backend.db.get(columnFamily, sourceKey);
-					backend.db.delete(columnFamily, writeOptions, sourceKey);
+					final byte[] valueBytes = dbGet(sourceKey);
+					dbDelete(sourceKey);
 
 					if (valueBytes != null) {
 						dataInputView.setBuffer(valueBytes);
@@ -139,7 +139,7 @@ class RocksDBAggregatingState<K, N, T, ACC, R>
 				setCurrentNamespace(target);
 				// create the target full-binary-key
 				final byte[] targetKey = serializeCurrentKeyWithGroupAndNamespace();
-				final byte[] targetValueBytes = backend.db.get(columnFamily, targetKey);
+				final byte[] targetValueBytes = dbGet(targetKey);
 
 				if (targetValueBytes != null) {
 					// target also had a value, merge
@@ -154,7 +154,7 @@ class RocksDBAggregatingState<K, N, T, ACC, R>
 				valueSerializer.serialize(current, dataOutputView);
 
 				// write the resulting value
-				backend.db.put(columnFamily, writeOptions, targetKey, dataOutputView.getCopyOfBuffer());
+				dbPut(targetKey, dataOutputView.getCopyOfBuffer());
 			}
 		}
 		catch (Exception e) {
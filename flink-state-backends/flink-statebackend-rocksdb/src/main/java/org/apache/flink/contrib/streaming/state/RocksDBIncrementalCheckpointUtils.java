@@ -64,7 +64,7 @@ public class RocksDBIncrementalCheckpointUtils {
 
 	/**
 	 * The method to clip the db instance according to the target key group range using
-	 * the {@link RocksDB#delete(ColumnFamilyHandle, byte[])}.
+	 * the {@link RocksDB#deleteRange(ColumnFamilyHandle, byte[], byte[])}.
 	 *
 	 * @param db the RocksDB instance to be clipped.
 	 * @param columnFamilyHandles the column families in the db instance.
@@ -100,7 +100,9 @@ public class RocksDBIncrementalCheckpointUtils {
 	}
 
 	/**
-	 * Delete the record falls into [beginKeyBytes, endKeyBytes) of the db.
+	 * Delete the record falls into [beginKeyBytes, endKeyBytes) of the db. This only writes a range tombstone
+	 * per column family and does not touch the individual records, so the cost is independent of the amount
+	 * of data that is dropped.
 	 *
 	 * @param db the target need to be clipped.
 	 * @param columnFamilyHandles the column family need to be clipped.
@@ -114,21 +116,7 @@ public class RocksDBIncrementalCheckpointUtils {
 		byte[] endKeyBytes) throws RocksDBException {
 
 		for (ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
-			try (RocksIteratorWrapper iteratorWrapper = RocksDBOperationUtils.getRocksIterator(db, columnFamilyHandle);
-				RocksDBWriteBatchWrapper writeBatchWrapper = new RocksDBWriteBatchWrapper(db)) {
-
-				iteratorWrapper.seek(beginKeyBytes);
-
-				while (iteratorWrapper.isValid()) {
-					final byte[] currentKey = iteratorWrapper.key();
-					if (beforeThePrefixBytes(currentKey, endKeyBytes)) {
-						writeBatchWrapper.remove(columnFamilyHandle, currentKey);
-					} else {
-						break;
-					}
-					iteratorWrapper.next();
-				}
-			}
+			db.deleteRange(columnFamilyHandle, beginKeyBytes, endKeyBytes);
 		}
 	}
 
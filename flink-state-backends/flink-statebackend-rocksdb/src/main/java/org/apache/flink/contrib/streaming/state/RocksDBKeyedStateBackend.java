@@ -24,6 +24,7 @@ import org.apache.flink.api.common.state.FoldingStateDescriptor;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
@@ -40,9 +41,11 @@ import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.Keyed;
 import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.KeyedStatePrefetcher;
 import org.apache.flink.runtime.state.PriorityComparable;
 import org.apache.flink.runtime.state.PriorityQueueSetFactory;
 import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
@@ -50,10 +53,13 @@ import org.apache.flink.runtime.state.RegisteredStateMetaInfoBase;
 import org.apache.flink.runtime.state.SnapshotResult;
 import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.Timestamped;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueElement;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.heap.InternalKeyContext;
+import org.apache.flink.runtime.state.heap.TimingWheelPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.IOUtils;
@@ -72,15 +78,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RunnableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -99,10 +112,13 @@ import static org.apache.flink.contrib.streaming.state.RocksDBSnapshotTransformF
  + <a href="https://github.com/facebook/rocksdb/wiki/RocksJava-Basics#opening-a-database-with-column-families">
  * this document</a>.
  */
-public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
+public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> implements KeyedStatePrefetcher<K> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RocksDBKeyedStateBackend.class);
 
+	/** The minimum number of lookups that a single multiGet call of a prefetch performs. */
+	private static final int MIN_PREFETCH_LOOKUPS_PER_THREAD = 64;
+
 	/** The name of the merge operator in RocksDB. Do not change except you know exactly what you do. */
 	public static final String MERGE_OPERATOR_NAME = "stringappendtest";
 
@@ -112,6 +128,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			Tuple2.of(ValueStateDescriptor.class, (StateFactory) RocksDBValueState::create),
 			Tuple2.of(ListStateDescriptor.class, (StateFactory) RocksDBListState::create),
 			Tuple2.of(MapStateDescriptor.class, (StateFactory) RocksDBMapState::create),
+			Tuple2.of(SortedMapStateDescriptor.class, (StateFactory) RocksDBSortedMapState::create),
 			Tuple2.of(AggregatingStateDescriptor.class, (StateFactory) RocksDBAggregatingState::create),
 			Tuple2.of(ReducingStateDescriptor.class, (StateFactory) RocksDBReducingState::create),
 			Tuple2.of(FoldingStateDescriptor.class, (StateFactory) RocksDBFoldingState::create)
@@ -175,6 +192,10 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	/** Factory for priority queue state. */
 	private final PriorityQueueSetFactory priorityQueueFactory;
 
+	/** Factory for the priority queues of timers if they are organized as timing wheels, otherwise null. */
+	@Nullable
+	private final TimingWheelPriorityQueueSetFactory timingWheelFactory;
+
 	/**
 	 * Helper to build the byte arrays of composite keys to address data in RocksDB. Shared across all states.
 	 */
@@ -192,6 +213,26 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 	private final RocksDbTtlCompactFiltersManager ttlCompactFiltersManager;
 
+	/** The number of records which operators buffer before they prefetch their state, zero if disabled. */
+	private final int prefetchBatchSize;
+
+	/** The number of threads which perform the lookups of a prefetch. */
+	private final int numberOfPrefetchThreads;
+
+	/** The maximum time in milliseconds that operators buffer a record before they prefetch state. */
+	private final long prefetchMaxDelay;
+
+	/** The states whose values can be prefetched, by state name. Only filled if prefetching is enabled. */
+	private final Map<String, AbstractRocksDBState<K, ?, ?>> prefetchableStates;
+
+	/** The executor of the lookups of a prefetch, null if prefetching is disabled. */
+	@Nullable
+	private final ExecutorService prefetchExecutor;
+
+	/** Helper to build the composite keys of a prefetch, created on the first prefetch. */
+	@Nullable
+	private RocksDBSerializedCompositeKeyBuilder<K> prefetchKeyBuilder;
+
 	public RocksDBKeyedStateBackend(
 		ClassLoader userCodeClassLoader,
 		File instanceBasePath,
@@ -214,8 +255,12 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		RocksDBNativeMetricMonitor nativeMetricMonitor,
 		RocksDBSerializedCompositeKeyBuilder<K> sharedRocksKeyBuilder,
 		PriorityQueueSetFactory priorityQueueFactory,
+		@Nullable TimingWheelPriorityQueueSetFactory timingWheelFactory,
 		RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
-		InternalKeyContext<K> keyContext) {
+		InternalKeyContext<K> keyContext,
+		int prefetchBatchSize,
+		int numberOfPrefetchThreads,
+		long prefetchMaxDelay) {
 
 		super(
 			kvStateRegistry,
@@ -249,6 +294,15 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		this.nativeMetricMonitor = nativeMetricMonitor;
 		this.sharedRocksKeyBuilder = sharedRocksKeyBuilder;
 		this.priorityQueueFactory = priorityQueueFactory;
+		this.timingWheelFactory = timingWheelFactory;
+
+		this.prefetchBatchSize = prefetchBatchSize;
+		this.numberOfPrefetchThreads = numberOfPrefetchThreads;
+		this.prefetchMaxDelay = prefetchMaxDelay;
+		this.prefetchableStates = new HashMap<>();
+		this.prefetchExecutor = prefetchBatchSize > 0 ?
+			Executors.newFixedThreadPool(numberOfPrefetchThreads, new ExecutorThreadFactory("rocksdb-state-prefetcher")) :
+			null;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -309,6 +363,12 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 		super.dispose();
 
+		// running lookups of prefetches hold a lease of the resource guard and complete before the db is closed
+		if (prefetchExecutor != null) {
+			prefetchExecutor.shutdownNow();
+		}
+		prefetchableStates.clear();
+
 		// This call will block until all clients that still acquire access to the RocksDB instance have released it,
 		// so that we cannot release the native resources while clients are still working with it in parallel.
 		rocksDBResourceGuard.close();
@@ -367,6 +427,17 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		return priorityQueueFactory.create(stateName, byteOrderedElementSerializer);
 	}
 
+	@Nonnull
+	@Override
+	public <T extends HeapPriorityQueueElement & PriorityComparable & Keyed & Timestamped> KeyGroupedInternalPriorityQueue<T>
+	createTimerQueue(
+		@Nonnull String stateName,
+		@Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
+		return timingWheelFactory != null ?
+			timingWheelFactory.create(stateName, byteOrderedElementSerializer) :
+			priorityQueueFactory.create(stateName, byteOrderedElementSerializer);
+	}
+
 	private void cleanInstanceBasePath() {
 		LOG.info("Deleting existing instance base directory {}.", instanceBasePath);
 
@@ -390,6 +461,12 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		return priorityQueueFactory;
 	}
 
+	@VisibleForTesting
+	@Nullable
+	TimingWheelPriorityQueueSetFactory getTimingWheelFactory() {
+		return timingWheelFactory;
+	}
+
 	public WriteOptions getWriteOptions() {
 		return writeOptions;
 	}
@@ -542,7 +619,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		StateDescriptor<S, SV> stateDesc,
 		Tuple2<ColumnFamilyHandle, RegisteredKeyValueStateBackendMetaInfo<N, SV>> stateMetaInfo) throws Exception {
 
-		if (stateDesc.getType() == StateDescriptor.Type.MAP) {
+		if (stateDesc.getType() == StateDescriptor.Type.MAP || stateDesc.getType() == StateDescriptor.Type.SORTED_MAP) {
 			throw new StateMigrationException("The new serializer for a MapState requires state migration in order for the job to proceed." +
 				" However, migration for MapState currently isn't supported.");
 		}
@@ -615,7 +692,120 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 		Tuple2<ColumnFamilyHandle, RegisteredKeyValueStateBackendMetaInfo<N, SV>> registerResult = tryRegisterKvStateInformation(
 			stateDesc, namespaceSerializer, snapshotTransformFactory);
-		return stateFactory.createState(stateDesc, registerResult, RocksDBKeyedStateBackend.this);
+		IS state = stateFactory.createState(stateDesc, registerResult, RocksDBKeyedStateBackend.this);
+
+		// map states store one entry per user key, which can not be prefetched by key and namespace
+		if (prefetchBatchSize > 0 && !(state instanceof RocksDBMapState) && state instanceof AbstractRocksDBState) {
+			@SuppressWarnings("unchecked")
+			AbstractRocksDBState<K, ?, ?> rocksDBState = (AbstractRocksDBState<K, ?, ?>) state;
+			prefetchableStates.put(stateDesc.getName(), rocksDBState);
+		}
+		return state;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Prefetching
+	// ------------------------------------------------------------------------
+
+	@Override
+	public int getPrefetchBatchSize() {
+		return prefetchBatchSize;
+	}
+
+	@Override
+	public long getPrefetchMaxDelay() {
+		return prefetchMaxDelay;
+	}
+
+	/**
+	 * Loads the values with {@link RocksDB#multiGet(List, List)} calls, which are spread over the prefetch
+	 * threads. The lookups of one call are batched by RocksDB, and the calls run in parallel, so that the
+	 * latency of the lookups overlaps.
+	 */
+	@Nonnull
+	@Override
+	public <N> CompletableFuture<Void> prefetch(
+		@Nonnull Collection<Tuple2<K, N>> keysAndNamespaces,
+		@Nonnull TypeSerializer<N> namespaceSerializer) {
+
+		Preconditions.checkState(prefetchExecutor != null, "Prefetching is disabled.");
+
+		final List<AbstractRocksDBState<K, N, ?>> states = new ArrayList<>();
+		for (AbstractRocksDBState<K, ?, ?> state : prefetchableStates.values()) {
+			if (namespaceSerializer.equals(state.namespaceSerializer)) {
+				@SuppressWarnings("unchecked")
+				AbstractRocksDBState<K, N, ?> castedState = (AbstractRocksDBState<K, N, ?>) state;
+				states.add(castedState);
+			}
+		}
+
+		if (states.isEmpty() || keysAndNamespaces.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// the keys are serialized in the calling thread, because the serializers are not thread-safe
+		if (prefetchKeyBuilder == null) {
+			prefetchKeyBuilder = new RocksDBSerializedCompositeKeyBuilder<>(getKeySerializer(), keyGroupPrefixBytes, 32);
+		}
+
+		final int numStates = states.size();
+		final int numLookups = keysAndNamespaces.size() * numStates;
+		final List<ColumnFamilyHandle> columnFamilies = new ArrayList<>(numLookups);
+		final List<byte[]> keys = new ArrayList<>(numLookups);
+		for (Tuple2<K, N> keyAndNamespace : keysAndNamespaces) {
+			prefetchKeyBuilder.setKeyAndKeyGroup(
+				keyAndNamespace.f0,
+				KeyGroupRangeAssignment.assignToKeyGroup(keyAndNamespace.f0, getNumberOfKeyGroups()));
+			for (AbstractRocksDBState<K, N, ?> state : states) {
+				columnFamilies.add(state.columnFamily);
+				keys.add(prefetchKeyBuilder.buildCompositeKeyNamespace(keyAndNamespace.f1, state.namespaceSerializer));
+			}
+		}
+
+		final int lookupsPerThread = Math.max(
+			MIN_PREFETCH_LOOKUPS_PER_THREAD,
+			(numLookups + numberOfPrefetchThreads - 1) / numberOfPrefetchThreads);
+		final List<CompletableFuture<Map<byte[], byte[]>>> lookups = new ArrayList<>();
+		for (int start = 0; start < numLookups; start += lookupsPerThread) {
+			final int end = Math.min(start + lookupsPerThread, numLookups);
+			final List<ColumnFamilyHandle> lookupColumnFamilies = columnFamilies.subList(start, end);
+			final List<byte[]> lookupKeys = keys.subList(start, end);
+			lookups.add(CompletableFuture.supplyAsync(() -> multiGet(lookupColumnFamilies, lookupKeys), prefetchExecutor));
+		}
+
+		return CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).thenRun(() -> {
+			final List<Map<ByteBuffer, byte[]>> prefetchedValues = new ArrayList<>(numStates);
+			for (int i = 0; i < numStates; i++) {
+				prefetchedValues.add(new HashMap<>(keysAndNamespaces.size()));
+			}
+
+			for (int i = 0; i < numLookups; i++) {
+				// the result maps of multiGet are keyed by the identity of the given key arrays
+				final byte[] key = keys.get(i);
+				final byte[] value = lookups.get(i / lookupsPerThread).join().get(key);
+				prefetchedValues.get(i % numStates).put(ByteBuffer.wrap(key), value);
+			}
+
+			for (int i = 0; i < numStates; i++) {
+				states.get(i).addPrefetchedValues(prefetchedValues.get(i));
+			}
+		});
+	}
+
+	@Override
+	public void releasePrefetched() {
+		for (AbstractRocksDBState<K, ?, ?> state : prefetchableStates.values()) {
+			state.clearPrefetchedValues();
+		}
+	}
+
+	private Map<byte[], byte[]> multiGet(List<ColumnFamilyHandle> columnFamilies, List<byte[]> keys) {
+		// the lease prevents that the db is disposed while the lookups are running
+		try (ResourceGuard.Lease ignored = rocksDBResourceGuard.acquireResource()) {
+			return db.multiGet(columnFamilies, keys);
+		} catch (IOException | RocksDBException e) {
+			throw new FlinkRuntimeException("Error while prefetching state from RocksDB.", e);
+		}
 	}
 
 	/**
@@ -45,6 +45,7 @@ import org.apache.flink.runtime.state.StreamCompressionDecorator;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.heap.InternalKeyContext;
 import org.apache.flink.runtime.state.heap.InternalKeyContextImpl;
+import org.apache.flink.runtime.state.heap.TimingWheelPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.IOUtils;
@@ -60,6 +61,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -110,6 +112,10 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 	private boolean enableTtlCompactionFilter;
 	private RocksDBNativeMetricOptions nativeMetricOptions;
 	private int numberOfTransferingThreads;
+	private int prefetchBatchSize;
+	private int numberOfPrefetchThreads;
+	private long prefetchMaxDelay;
+	private long timingWheelResolution;
 
 	private RocksDB injectedTestDB; // for testing
 	private ColumnFamilyHandle injectedDefaultColumnFamilyHandle; // for testing
@@ -157,6 +163,10 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 		this.enableIncrementalCheckpointing = false;
 		this.nativeMetricOptions = new RocksDBNativeMetricOptions();
 		this.numberOfTransferingThreads = RocksDBOptions.CHECKPOINT_TRANSFER_THREAD_NUM.defaultValue();
+		this.prefetchBatchSize = RocksDBOptions.PREFETCH_BATCH_SIZE.defaultValue();
+		this.numberOfPrefetchThreads = RocksDBOptions.PREFETCH_THREAD_NUM.defaultValue();
+		this.prefetchMaxDelay = RocksDBOptions.PREFETCH_MAX_DELAY.defaultValue();
+		this.timingWheelResolution = RocksDBOptions.TIMING_WHEEL_RESOLUTION.defaultValue();
 	}
 
 	@VisibleForTesting
@@ -223,6 +233,18 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 		return this;
 	}
 
+	RocksDBKeyedStateBackendBuilder<K> setPrefetching(int prefetchBatchSize, int numberOfPrefetchThreads, long prefetchMaxDelay) {
+		this.prefetchBatchSize = prefetchBatchSize;
+		this.numberOfPrefetchThreads = numberOfPrefetchThreads;
+		this.prefetchMaxDelay = prefetchMaxDelay;
+		return this;
+	}
+
+	RocksDBKeyedStateBackendBuilder<K> setTimingWheelResolution(long timingWheelResolution) {
+		this.timingWheelResolution = timingWheelResolution;
+		return this;
+	}
+
 	private static void checkAndCreateDirectory(File directory) throws IOException {
 		if (directory.exists()) {
 			if (!directory.isDirectory()) {
@@ -352,8 +374,12 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 			nativeMetricMonitor,
 			sharedRocksKeyBuilder,
 			priorityQueueFactory,
+			initTimingWheelFactory(),
 			ttlCompactFiltersManager,
-			keyContext);
+			keyContext,
+			prefetchBatchSize,
+			numberOfPrefetchThreads,
+			prefetchMaxDelay);
 	}
 
 	private AbstractRocksDBRestoreOperation<K> getRocksDBRestoreOperation(
@@ -469,6 +495,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 		PriorityQueueSetFactory priorityQueueFactory;
 		switch (priorityQueueStateType) {
 			case HEAP:
+			case HEAP_TIMING_WHEEL:
+				// with HEAP_TIMING_WHEEL, only the queues of timers are timing wheels, see initTimingWheelFactory()
 				priorityQueueFactory = new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128);
 				break;
 			case ROCKSDB:
@@ -489,6 +517,13 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 		return priorityQueueFactory;
 	}
 
+	@Nullable
+	private TimingWheelPriorityQueueSetFactory initTimingWheelFactory() {
+		return priorityQueueStateType == RocksDBStateBackend.PriorityQueueStateType.HEAP_TIMING_WHEEL ?
+			new TimingWheelPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128, timingWheelResolution) :
+			null;
+	}
+
 	private void prepareDirectories() throws IOException {
 		checkAndCreateDirectory(instanceBasePath);
 		if (instanceRocksDBPath.exists()) {
@@ -115,7 +115,7 @@ class RocksDBListState<K, N, V>
 	public List<V> getInternal() {
 		try {
 			byte[] key = serializeCurrentKeyWithGroupAndNamespace();
-			byte[] valueBytes = backend.db.get(columnFamily, key);
+			byte[] valueBytes = dbGet(key);
 			return deserializeList(valueBytes);
 		} catch (RocksDBException e) {
 			throw new FlinkRuntimeException("Error while retrieving data from RocksDB", e);
@@ -158,12 +158,9 @@ class RocksDBListState<K, N, V>
 		Preconditions.checkNotNull(value, "You cannot add null to a ListState.");
 
 		try {
-			backend.db.merge(
-				columnFamily,
-				writeOptions,
+			dbMerge(
 				serializeCurrentKeyWithGroupAndNamespace(),
-				serializeValue(value, elementSerializer)
-			);
+				serializeValue(value, elementSerializer));
 		} catch (Exception e) {
 			throw new FlinkRuntimeException("Error while adding data to RocksDB", e);
 		}
@@ -186,11 +183,11 @@ class RocksDBListState<K, N, V>
 					setCurrentNamespace(source);
 					final byte[] sourceKey = serializeCurrentKeyWithGroupAndNamespace();
 
-					byte[] valueBytes = backend.db.get(columnFamily, sourceKey);
-					backend.db.delete(columnFamily, writeOptions, sourceKey);
+					byte[] valueBytes = dbGet(sourceKey);
+					dbDelete(sourceKey);
 
 					if (valueBytes != null) {
-						backend.db.merge(columnFamily, writeOptions, targetKey, valueBytes);
+						dbMerge(targetKey, valueBytes);
 					}
 				}
 			}
@@ -211,9 +208,7 @@ class RocksDBListState<K, N, V>
 
 		if (!values.isEmpty()) {
 			try {
-				backend.db.put(
-					columnFamily,
-					writeOptions,
+				dbPut(
 					serializeCurrentKeyWithGroupAndNamespace(),
 					serializeValueList(values, elementSerializer, DELIMITER));
 			} catch (IOException | RocksDBException e) {
@@ -230,9 +225,7 @@ class RocksDBListState<K, N, V>
 
 		if (!values.isEmpty()) {
 			try {
-				backend.db.merge(
-					columnFamily,
-					writeOptions,
+				dbMerge(
 					serializeCurrentKeyWithGroupAndNamespace(),
 					serializeValueList(values, elementSerializer, DELIMITER));
 			} catch (IOException | RocksDBException e) {
@@ -69,8 +69,8 @@ class RocksDBMapState<K, N, UK, UV>
 	private static final Logger LOG = LoggerFactory.getLogger(RocksDBMapState.class);
 
 	/** Serializer for the keys and values. */
-	private final TypeSerializer<UK> userKeySerializer;
-	private final TypeSerializer<UV> userValueSerializer;
+	protected final TypeSerializer<UK> userKeySerializer;
+	protected final TypeSerializer<UV> userValueSerializer;
 
 	/**
 	 * Creates a new {@code RocksDBMapState}.
@@ -81,7 +81,7 @@ class RocksDBMapState<K, N, UK, UV>
 	 * @param defaultValue The default value for the state.
 	 * @param backend The backend for which this state is bind to.
 	 */
-	private RocksDBMapState(
+	RocksDBMapState(
 			ColumnFamilyHandle columnFamily,
 			TypeSerializer<N> namespaceSerializer,
 			TypeSerializer<Map<UK, UV>> valueSerializer,
@@ -319,7 +319,7 @@ class RocksDBMapState<K, N, UK, UV>
 		return isNull ? null : valueSerializer.deserialize(dataInputView);
 	}
 
-	private boolean startWithKeyPrefix(byte[] keyPrefixBytes, byte[] rawKeyBytes) {
+	boolean startWithKeyPrefix(byte[] keyPrefixBytes, byte[] rawKeyBytes) {
 		if (rawKeyBytes.length < keyPrefixBytes.length) {
 			return false;
 		}
@@ -333,12 +333,27 @@ class RocksDBMapState<K, N, UK, UV>
 		return true;
 	}
 
+	/**
+	 * Compares the two given byte arrays lexicographically as unsigned bytes, which is the order
+	 * RocksDB keeps its keys in.
+	 */
+	static int compareUnsigned(byte[] left, byte[] right) {
+		final int minLength = Math.min(left.length, right.length);
+		for (int i = 0; i < minLength; ++i) {
+			int diff = (left[i] & 0xFF) - (right[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return left.length - right.length;
+	}
+
 	// ------------------------------------------------------------------------
 	//  Internal Classes
 	// ------------------------------------------------------------------------
 
 	/** A map entry in RocksDBMapState. */
-	private class RocksDBMapEntry implements Map.Entry<UK, UV> {
+	class RocksDBMapEntry implements Map.Entry<UK, UV> {
 		private final RocksDB db;
 
 		/** The raw bytes of the key stored in RocksDB. Each user key is stored in RocksDB
@@ -448,8 +463,8 @@ class RocksDBMapState<K, N, UK, UV>
 		}
 	}
 
-	/** An auxiliary utility to scan all entries under the given key. */
-	private abstract class RocksDBMapIterator<T> implements Iterator<T> {
+	/** An auxiliary utility to scan all entries, or a range of entries, under the given key. */
+	abstract class RocksDBMapIterator<T> implements Iterator<T> {
 
 		private static final int CACHE_SIZE_LIMIT = 128;
 
@@ -464,6 +479,17 @@ class RocksDBMapState<K, N, UK, UV>
 		@Nonnull
 		private final byte[] keyPrefixBytes;
 
+		/** The bytes to seek to at the first loading, at least the prefix bytes of the key. */
+		@Nonnull
+		private final byte[] seekBytes;
+
+		/**
+		 * The exclusive upper bound of the raw keys to iterate over, or {@code null} to iterate
+		 * until the end of the entries under the key.
+		 */
+		@Nullable
+		private final byte[] endKeyBytes;
+
 		/**
 		 * True if all entries have been accessed or the iterator has come across an
 		 * entry with a different prefix.
@@ -488,8 +514,22 @@ class RocksDBMapState<K, N, UK, UV>
 			final TypeSerializer<UV> valueSerializer,
 			DataInputDeserializer dataInputView) {
 
+			this(db, keyPrefixBytes, keyPrefixBytes, null, keySerializer, valueSerializer, dataInputView);
+		}
+
+		RocksDBMapIterator(
+			final RocksDB db,
+			final byte[] keyPrefixBytes,
+			final byte[] seekBytes,
+			@Nullable final byte[] endKeyBytes,
+			final TypeSerializer<UK> keySerializer,
+			final TypeSerializer<UV> valueSerializer,
+			DataInputDeserializer dataInputView) {
+
 			this.db = db;
 			this.keyPrefixBytes = keyPrefixBytes;
+			this.seekBytes = seekBytes;
+			this.endKeyBytes = endKeyBytes;
 			this.keySerializer = keySerializer;
 			this.valueSerializer = valueSerializer;
 			this.dataInputView = dataInputView;
@@ -543,11 +583,11 @@ class RocksDBMapState<K, N, UK, UV>
 			try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(db, columnFamily)) {
 
 				/*
-				 * The iteration starts from the prefix bytes at the first loading. After #nextEntry() is called,
+				 * The iteration starts from the seek bytes at the first loading. After #nextEntry() is called,
 				 * the currentEntry points to the last returned entry, and at that time, we will start
 				 * the iterating from currentEntry if reloading cache is needed.
 				 */
-				byte[] startBytes = (currentEntry == null ? keyPrefixBytes : currentEntry.rawKeyBytes);
+				byte[] startBytes = (currentEntry == null ? seekBytes : currentEntry.rawKeyBytes);
 
 				cacheEntries.clear();
 				cacheIndex = 0;
@@ -563,7 +603,8 @@ class RocksDBMapState<K, N, UK, UV>
 				}
 
 				while (true) {
-					if (!iterator.isValid() || !startWithKeyPrefix(keyPrefixBytes, iterator.key())) {
+					if (!iterator.isValid() || !startWithKeyPrefix(keyPrefixBytes, iterator.key()) ||
+						(endKeyBytes != null && compareUnsigned(iterator.key(), endKeyBytes) >= 0)) {
 						expired = true;
 						break;
 					}
@@ -26,6 +26,7 @@ import static org.apache.flink.contrib.streaming.state.PredefinedOptions.FLASH_S
 import static org.apache.flink.contrib.streaming.state.PredefinedOptions.SPINNING_DISK_OPTIMIZED;
 import static org.apache.flink.contrib.streaming.state.PredefinedOptions.SPINNING_DISK_OPTIMIZED_HIGH_MEM;
 import static org.apache.flink.contrib.streaming.state.RocksDBStateBackend.PriorityQueueStateType.HEAP;
+import static org.apache.flink.contrib.streaming.state.RocksDBStateBackend.PriorityQueueStateType.HEAP_TIMING_WHEEL;
 import static org.apache.flink.contrib.streaming.state.RocksDBStateBackend.PriorityQueueStateType.ROCKSDB;
 
 /**
@@ -47,8 +48,20 @@ public class RocksDBOptions {
 		.key("state.backend.rocksdb.timer-service.factory")
 		.defaultValue(HEAP.name())
 		.withDescription(String.format("This determines the factory for timer service state implementation. Options " +
-			"are either %s (heap-based, default) or %s for an implementation based on RocksDB .",
-			HEAP.name(), ROCKSDB.name()));
+			"are either %s (heap-based, default), %s (heap-based, organized as a hierarchical timing wheel) or %s " +
+			"for an implementation based on RocksDB .",
+			HEAP.name(), HEAP_TIMING_WHEEL.name(), ROCKSDB.name()));
+
+	/**
+	 * The resolution of the timing wheel for heap timers.
+	 */
+	public static final ConfigOption<Long> TIMING_WHEEL_RESOLUTION = ConfigOptions
+		.key("state.backend.rocksdb.timer-service.timing-wheel.resolution")
+		.defaultValue(100L)
+		.withDescription(String.format("The resolution (in milliseconds) of the timing wheel that holds the timers " +
+			"if '%s' is %s. Registering and deleting timers takes constant time, while timers within one interval " +
+			"of this length are only ordered when the interval becomes due.",
+			TIMER_SERVICE_FACTORY.key(), HEAP_TIMING_WHEEL.name()));
 
 	/**
 	 * The number of threads used to transfer (download and upload) files in RocksDBStateBackend.
@@ -58,6 +71,35 @@ public class RocksDBOptions {
 		.defaultValue(1)
 		.withDescription("The number of threads used to transfer (download and upload) files in RocksDBStateBackend.");
 
+	/**
+	 * The number of records which keyed operators buffer before they prefetch the state of their keys.
+	 */
+	public static final ConfigOption<Integer> PREFETCH_BATCH_SIZE = ConfigOptions
+		.key("state.backend.rocksdb.prefetch.batch-size")
+		.defaultValue(0)
+		.withDescription("The number of records which keyed operators buffer before they load the state of the " +
+			"records' keys in one batch of parallel RocksDB lookups. Buffering adds latency, but hides the latency " +
+			"of the lookups when the state does not fit into the block cache. Zero disables prefetching.");
+
+	/**
+	 * The number of threads used to prefetch state from RocksDB.
+	 */
+	public static final ConfigOption<Integer> PREFETCH_THREAD_NUM = ConfigOptions
+		.key("state.backend.rocksdb.prefetch.thread.num")
+		.defaultValue(4)
+		.withDescription(String.format("The number of threads used to prefetch state from RocksDB, see '%s'.",
+			PREFETCH_BATCH_SIZE.key()));
+
+	/**
+	 * The maximum time that keyed operators buffer a record before they prefetch the state of the buffered records.
+	 */
+	public static final ConfigOption<Long> PREFETCH_MAX_DELAY = ConfigOptions
+		.key("state.backend.rocksdb.prefetch.max-delay")
+		.defaultValue(100L)
+		.withDescription(String.format("The maximum time in milliseconds that keyed operators buffer a record " +
+			"before they prefetch the state of the buffered records, even if fewer than '%s' records are buffered. " +
+			"This bounds the latency which prefetching adds when the input rate is low.", PREFETCH_BATCH_SIZE.key()));
+
 	/** This determines if compaction filter to cleanup state with TTL is enabled. */
 	public static final ConfigOption<Boolean> TTL_COMPACT_FILTER_ENABLED = ConfigOptions
 		.key("state.backend.rocksdb.ttl.compaction.filter.enabled")
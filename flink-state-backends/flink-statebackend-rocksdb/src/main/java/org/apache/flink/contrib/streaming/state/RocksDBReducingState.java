@@ -110,8 +110,8 @@ class RocksDBReducingState<K, N, V>
 				if (source != null) {
 					setCurrentNamespace(source);
 					final byte[] sourceKey = serializeCurrentKeyWithGroupAndNamespace();
-					final byte[] valueBytes = backend.db.get(columnFamily, sourceKey);
-					backend.db.delete(columnFamily, writeOptions, sourceKey);
+					final byte[] valueBytes = dbGet(sourceKey);
+					dbDelete(sourceKey);
 
 					if (valueBytes != null) {
 						dataInputView.setBuffer(valueBytes);
@@ -132,7 +132,7 @@ class RocksDBReducingState<K, N, V>
 				// create the target full-binary-key
 				setCurrentNamespace(target);
 				final byte[] targetKey = serializeCurrentKeyWithGroupAndNamespace();
-				final byte[] targetValueBytes = backend.db.get(columnFamily, targetKey);
+				final byte[] targetValueBytes = dbGet(targetKey);
 
 				if (targetValueBytes != null) {
 					dataInputView.setBuffer(targetValueBytes);
@@ -147,7 +147,7 @@ class RocksDBReducingState<K, N, V>
 				valueSerializer.serialize(current, dataOutputView);
 
 				// write the resulting value
-				backend.db.put(columnFamily, writeOptions, targetKey, dataOutputView.getCopyOfBuffer());
+				dbPut(targetKey, dataOutputView.getCopyOfBuffer());
 			}
 		}
 		catch (Exception e) {
@@ -20,6 +20,7 @@ package org.apache.flink.contrib.streaming.state;
 
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.base.ListSerializer;
@@ -48,7 +49,7 @@ abstract class RocksDBSnapshotTransformFactoryAdaptor<SV, SEV> implements StateS
 		if (stateDesc instanceof ListStateDescriptor) {
 			TypeSerializer<SEV> elementSerializer = ((ListSerializer<SEV>) stateSerializer).getElementSerializer();
 			return new RocksDBListStateSnapshotTransformFactory<>(snapshotTransformFactory, elementSerializer);
-		} else if (stateDesc instanceof MapStateDescriptor) {
+		} else if (stateDesc instanceof MapStateDescriptor || stateDesc instanceof SortedMapStateDescriptor) {
 			return new RocksDBMapStateSnapshotTransformFactory<>(snapshotTransformFactory);
 		} else {
 			return new RocksDBValueStateSnapshotTransformFactory<>(snapshotTransformFactory);
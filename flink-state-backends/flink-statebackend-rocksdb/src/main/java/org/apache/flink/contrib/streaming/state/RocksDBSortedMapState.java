@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.internal.InternalSortedMapState;
+
+import org.rocksdb.ColumnFamilyHandle;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * {@link SortedMapState} implementation that stores state in RocksDB.
+ *
+ * <p>Each mapping is stored in RocksDB with the format #KeyGroup#Key#Namespace#UserKey like in
+ * {@link RocksDBMapState}. Because RocksDB orders its keys by their bytes, the mappings under the
+ * same key and namespace are ordered by their serialized user keys, which the state descriptor
+ * requires to be consistent with the user key comparator. Range scans therefore seek directly to
+ * the start of the range and stop at its end, without reading the mappings outside of the range.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <UK> The type of the keys in the map state.
+ * @param <UV> The type of the values in the map state.
+ */
+class RocksDBSortedMapState<K, N, UK, UV>
+	extends RocksDBMapState<K, N, UK, UV>
+	implements InternalSortedMapState<K, N, UK, UV> {
+
+	/**
+	 * Creates a new {@code RocksDBSortedMapState}.
+	 *
+	 * @param columnFamily The RocksDB column family that this state is associated to.
+	 * @param namespaceSerializer The serializer for the namespace.
+	 * @param valueSerializer The serializer for the state.
+	 * @param defaultValue The default value for the state.
+	 * @param backend The backend for which this state is bind to.
+	 */
+	private RocksDBSortedMapState(
+			ColumnFamilyHandle columnFamily,
+			TypeSerializer<N> namespaceSerializer,
+			TypeSerializer<Map<UK, UV>> valueSerializer,
+			Map<UK, UV> defaultValue,
+			RocksDBKeyedStateBackend<K> backend) {
+
+		super(columnFamily, namespaceSerializer, valueSerializer, defaultValue, backend);
+	}
+
+	// ------------------------------------------------------------------------
+	//  SortedMapState Implementation
+	// ------------------------------------------------------------------------
+
+	@Override
+	public Map.Entry<UK, UV> firstEntry() {
+		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
+
+		try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(backend.db, columnFamily)) {
+			iterator.seek(prefixBytes);
+			return currentEntryWithPrefix(iterator, prefixBytes);
+		}
+	}
+
+	@Override
+	public Map.Entry<UK, UV> lastEntry() {
+		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
+		final byte[] upperBoundBytes = nextPrefix(prefixBytes);
+
+		try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(backend.db, columnFamily)) {
+			iterator.seekForPrev(upperBoundBytes);
+			if (iterator.isValid() && Arrays.equals(iterator.key(), upperBoundBytes)) {
+				iterator.prev();
+			}
+			return currentEntryWithPrefix(iterator, prefixBytes);
+		}
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> headIterator(UK endKey) throws IOException {
+		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
+		final byte[] endKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(endKey, userKeySerializer);
+
+		return rangeIterator(prefixBytes, prefixBytes, endKeyBytes);
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> tailIterator(UK startKey) throws IOException {
+		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
+		final byte[] startKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(startKey, userKeySerializer);
+
+		return rangeIterator(prefixBytes, startKeyBytes, null);
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> subIterator(UK startKey, UK endKey) throws IOException {
+		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
+		final byte[] startKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(startKey, userKeySerializer);
+		final byte[] endKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(endKey, userKeySerializer);
+
+		return rangeIterator(prefixBytes, startKeyBytes, endKeyBytes);
+	}
+
+	private Iterator<Map.Entry<UK, UV>> rangeIterator(byte[] prefixBytes, byte[] seekBytes, @Nullable byte[] endKeyBytes) {
+		return new RocksDBMapIterator<Map.Entry<UK, UV>>(
+				backend.db,
+				prefixBytes,
+				seekBytes,
+				endKeyBytes,
+				userKeySerializer,
+				userValueSerializer,
+				dataInputView) {
+
+			@Override
+			public Map.Entry<UK, UV> next() {
+				return nextEntry();
+			}
+		};
+	}
+
+	@Nullable
+	private RocksDBMapEntry currentEntryWithPrefix(RocksIteratorWrapper iterator, byte[] prefixBytes) {
+		if (!iterator.isValid() || !startWithKeyPrefix(prefixBytes, iterator.key())) {
+			return null;
+		}
+
+		return new RocksDBMapEntry(
+			backend.db,
+			prefixBytes.length,
+			iterator.key(),
+			iterator.value(),
+			userKeySerializer,
+			userValueSerializer,
+			dataInputView);
+	}
+
+	/**
+	 * Returns the smallest byte array that is larger than all byte arrays starting with the given
+	 * prefix. The prefix always starts with the key group, whose first byte is never {@code 0xFF},
+	 * so such an array exists and has the same length as the prefix.
+	 */
+	private static byte[] nextPrefix(byte[] prefixBytes) {
+		final byte[] result = Arrays.copyOf(prefixBytes, prefixBytes.length);
+		for (int i = result.length - 1; i >= 0; --i) {
+			if (result[i] != (byte) 0xFF) {
+				result[i]++;
+				return result;
+			}
+			result[i] = 0;
+		}
+		throw new IllegalStateException("The key prefix has no successor.");
+	}
+
+	@SuppressWarnings("unchecked")
+	static <UK, UV, K, N, SV, S extends State, IS extends S> IS create(
+		StateDescriptor<S, SV> stateDesc,
+		Tuple2<ColumnFamilyHandle, RegisteredKeyValueStateBackendMetaInfo<N, SV>> registerResult,
+		RocksDBKeyedStateBackend<K> backend) {
+		return (IS) new RocksDBSortedMapState<>(
+			registerResult.f0,
+			registerResult.f1.getNamespaceSerializer(),
+			(TypeSerializer<Map<UK, UV>>) registerResult.f1.getStateSerializer(),
+			(Map<UK, UV>) stateDesc.getDefaultValue(),
+			backend);
+	}
+}
@@ -72,7 +72,11 @@ import java.util.Random;
 import java.util.UUID;
 
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.CHECKPOINT_TRANSFER_THREAD_NUM;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.PREFETCH_BATCH_SIZE;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.PREFETCH_MAX_DELAY;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.PREFETCH_THREAD_NUM;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.TIMER_SERVICE_FACTORY;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.TIMING_WHEEL_RESOLUTION;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.TTL_COMPACT_FILTER_ENABLED;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -96,7 +100,8 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 	 */
 	public enum PriorityQueueStateType {
 		HEAP,
-		ROCKSDB
+		ROCKSDB,
+		HEAP_TIMING_WHEEL
 	}
 
 	private static final long serialVersionUID = 1L;
@@ -111,6 +116,14 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 
 	private static final int UNDEFINED_NUMBER_OF_TRANSFERING_THREADS = -1;
 
+	private static final int UNDEFINED_PREFETCH_BATCH_SIZE = -1;
+
+	private static final int UNDEFINED_NUMBER_OF_PREFETCH_THREADS = -1;
+
+	private static final long UNDEFINED_PREFETCH_MAX_DELAY = -1L;
+
+	private static final long UNDEFINED_TIMING_WHEEL_RESOLUTION = -1L;
+
 	// ------------------------------------------------------------------------
 
 	// -- configuration values, set in the application / configuration
@@ -138,6 +151,18 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 	/** Thread number used to transfer (download and upload) state, default value: 1. */
 	private int numberOfTransferingThreads;
 
+	/** The number of records which keyed operators buffer before they prefetch their state, 0 disables it. */
+	private int prefetchBatchSize;
+
+	/** Thread number used to prefetch state. */
+	private int numberOfPrefetchThreads;
+
+	/** The maximum time (in milliseconds) that keyed operators buffer a record before they prefetch state. */
+	private long prefetchMaxDelay;
+
+	/** The resolution (in milliseconds) of the timing wheel for heap timers. */
+	private long timingWheelResolution;
+
 	/**
 	 * This determines if compaction filter to cleanup state with TTL is enabled.
 	 *
@@ -265,6 +290,9 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 		this.checkpointStreamBackend = checkNotNull(checkpointStreamBackend);
 		this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
 		this.numberOfTransferingThreads = UNDEFINED_NUMBER_OF_TRANSFERING_THREADS;
+		this.prefetchBatchSize = UNDEFINED_PREFETCH_BATCH_SIZE;
+		this.numberOfPrefetchThreads = UNDEFINED_NUMBER_OF_PREFETCH_THREADS;
+		this.timingWheelResolution = UNDEFINED_TIMING_WHEEL_RESOLUTION;
 		// for now, we use still the heap-based implementation as default
 		this.priorityQueueStateType = PriorityQueueStateType.HEAP;
 		this.defaultMetricOptions = new RocksDBNativeMetricOptions();
@@ -311,6 +339,30 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 			this.numberOfTransferingThreads = original.numberOfTransferingThreads;
 		}
 
+		if (original.prefetchBatchSize == UNDEFINED_PREFETCH_BATCH_SIZE) {
+			this.prefetchBatchSize = config.getInteger(PREFETCH_BATCH_SIZE);
+		} else {
+			this.prefetchBatchSize = original.prefetchBatchSize;
+		}
+
+		if (original.numberOfPrefetchThreads == UNDEFINED_NUMBER_OF_PREFETCH_THREADS) {
+			this.numberOfPrefetchThreads = config.getInteger(PREFETCH_THREAD_NUM);
+		} else {
+			this.numberOfPrefetchThreads = original.numberOfPrefetchThreads;
+		}
+
+		if (original.prefetchMaxDelay == UNDEFINED_PREFETCH_MAX_DELAY) {
+			this.prefetchMaxDelay = config.getLong(PREFETCH_MAX_DELAY);
+		} else {
+			this.prefetchMaxDelay = original.prefetchMaxDelay;
+		}
+
+		if (original.timingWheelResolution == UNDEFINED_TIMING_WHEEL_RESOLUTION) {
+			this.timingWheelResolution = config.getLong(TIMING_WHEEL_RESOLUTION);
+		} else {
+			this.timingWheelResolution = original.timingWheelResolution;
+		}
+
 		this.enableTtlCompactionFilter = original.enableTtlCompactionFilter
 			.resolveUndefined(config.getBoolean(TTL_COMPACT_FILTER_ENABLED));
 
@@ -516,6 +568,8 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 		).setEnableIncrementalCheckpointing(isIncrementalCheckpointsEnabled())
 			.setEnableTtlCompactionFilter(isTtlCompactionFilterEnabled())
 			.setNumberOfTransferingThreads(getNumberOfTransferingThreads())
+			.setPrefetching(getPrefetchBatchSize(), getNumberOfPrefetchThreads(), getPrefetchMaxDelay())
+			.setTimingWheelResolution(getTimingWheelResolution())
 			.setNativeMetricOptions(getMemoryWatcherOptions());
 		return builder.build();
 	}
@@ -839,6 +893,89 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 		this.numberOfTransferingThreads = numberOfTransferingThreads;
 	}
 
+	/**
+	 * Gets the number of records which keyed operators buffer before they prefetch the state of their keys.
+	 */
+	public int getPrefetchBatchSize() {
+		return prefetchBatchSize == UNDEFINED_PREFETCH_BATCH_SIZE ?
+			PREFETCH_BATCH_SIZE.defaultValue() : prefetchBatchSize;
+	}
+
+	/**
+	 * Sets the number of records which keyed operators buffer before they prefetch the state of their keys
+	 * with parallel lookups. Buffering adds latency, but hides the latency of the lookups when the state
+	 * does not fit into the block cache.
+	 *
+	 * @param prefetchBatchSize The number of records to buffer, zero disables prefetching.
+	 */
+	public void setPrefetchBatchSize(int prefetchBatchSize) {
+		Preconditions.checkArgument(prefetchBatchSize >= 0,
+			"The prefetch batch size in RocksDBStateBackend must not be negative.");
+		this.prefetchBatchSize = prefetchBatchSize;
+	}
+
+	/**
+	 * Gets the number of threads used to prefetch state.
+	 */
+	public int getNumberOfPrefetchThreads() {
+		return numberOfPrefetchThreads == UNDEFINED_NUMBER_OF_PREFETCH_THREADS ?
+			PREFETCH_THREAD_NUM.defaultValue() : numberOfPrefetchThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to prefetch state.
+	 *
+	 * @param numberOfPrefetchThreads The number of threads used to prefetch state.
+	 */
+	public void setNumberOfPrefetchThreads(int numberOfPrefetchThreads) {
+		Preconditions.checkArgument(numberOfPrefetchThreads > 0,
+			"The number of threads used to prefetch state in RocksDBStateBackend should be greater than zero.");
+		this.numberOfPrefetchThreads = numberOfPrefetchThreads;
+	}
+
+	/**
+	 * Gets the maximum time (in milliseconds) that keyed operators buffer a record before they prefetch
+	 * the state of the buffered records.
+	 */
+	public long getPrefetchMaxDelay() {
+		return prefetchMaxDelay == UNDEFINED_PREFETCH_MAX_DELAY ?
+			PREFETCH_MAX_DELAY.defaultValue() : prefetchMaxDelay;
+	}
+
+	/**
+	 * Sets the maximum time (in milliseconds) that keyed operators buffer a record before they prefetch
+	 * the state of the buffered records, even if the batch is not full yet.
+	 *
+	 * @param prefetchMaxDelay The maximum time to buffer a record, in milliseconds.
+	 */
+	public void setPrefetchMaxDelay(long prefetchMaxDelay) {
+		Preconditions.checkArgument(prefetchMaxDelay > 0,
+			"The prefetch max delay in RocksDBStateBackend should be greater than zero.");
+		this.prefetchMaxDelay = prefetchMaxDelay;
+	}
+
+	/**
+	 * Gets the resolution (in milliseconds) of the timing wheel that holds the timers if the timer service
+	 * factory is {@link PriorityQueueStateType#HEAP_TIMING_WHEEL}.
+	 */
+	public long getTimingWheelResolution() {
+		return timingWheelResolution == UNDEFINED_TIMING_WHEEL_RESOLUTION ?
+			TIMING_WHEEL_RESOLUTION.defaultValue() : timingWheelResolution;
+	}
+
+	/**
+	 * Sets the resolution (in milliseconds) of the timing wheel that holds the timers if the timer service
+	 * factory is {@link PriorityQueueStateType#HEAP_TIMING_WHEEL}. Timers within the same interval of this
+	 * length are ordered only when the interval becomes due.
+	 *
+	 * @param timingWheelResolution The resolution of the timing wheel in milliseconds.
+	 */
+	public void setTimingWheelResolution(long timingWheelResolution) {
+		Preconditions.checkArgument(timingWheelResolution > 0,
+			"The timing wheel resolution in RocksDBStateBackend should be greater than zero.");
+		this.timingWheelResolution = timingWheelResolution;
+	}
+
 	// ------------------------------------------------------------------------
 	//  utilities
 	// ------------------------------------------------------------------------
@@ -850,6 +987,9 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 				", localRocksDbDirectories=" + Arrays.toString(localRocksDbDirectories) +
 				", enableIncrementalCheckpointing=" + enableIncrementalCheckpointing +
 				", numberOfTransferingThreads=" + numberOfTransferingThreads +
+				", prefetchBatchSize=" + prefetchBatchSize +
+				", prefetchMaxDelay=" + prefetchMaxDelay +
+				", timingWheelResolution=" + timingWheelResolution +
 				'}';
 	}
 
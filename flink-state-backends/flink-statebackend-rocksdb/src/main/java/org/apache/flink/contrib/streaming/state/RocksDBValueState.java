@@ -80,8 +80,7 @@ class RocksDBValueState<K, N, V>
 	@Override
 	public V value() {
 		try {
-			byte[] valueBytes = backend.db.get(columnFamily,
-				serializeCurrentKeyWithGroupAndNamespace());
+			byte[] valueBytes = dbGet(serializeCurrentKeyWithGroupAndNamespace());
 
 			if (valueBytes == null) {
 				return getDefaultValue();
@@ -101,9 +100,7 @@ class RocksDBValueState<K, N, V>
 		}
 
 		try {
-			backend.db.put(columnFamily, writeOptions,
-				serializeCurrentKeyWithGroupAndNamespace(),
-				serializeValue(value));
+			dbPut(serializeCurrentKeyWithGroupAndNamespace(), serializeValue(value));
 		} catch (Exception e) {
 			throw new FlinkRuntimeException("Error while adding data to RocksDB", e);
 		}
@@ -24,7 +24,6 @@ import org.apache.flink.contrib.streaming.state.RocksDBKeyedStateBackend.RocksDb
 import org.apache.flink.contrib.streaming.state.RocksDBNativeMetricOptions;
 import org.apache.flink.contrib.streaming.state.RocksDBOperationUtils;
 import org.apache.flink.contrib.streaming.state.RocksDBStateDownloader;
-import org.apache.flink.contrib.streaming.state.RocksDBWriteBatchWrapper;
 import org.apache.flink.contrib.streaming.state.RocksIteratorWrapper;
 import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersManager;
 import org.apache.flink.core.fs.CloseableRegistry;
@@ -37,6 +36,7 @@ import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.state.BackendBuildingException;
 import org.apache.flink.runtime.state.DirectoryStateHandle;
+import org.apache.flink.runtime.state.HeapIncrementalKeyedStateHandle;
 import org.apache.flink.runtime.state.IncrementalKeyedStateHandle;
 import org.apache.flink.runtime.state.IncrementalLocalKeyedStateHandle;
 import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
@@ -54,8 +54,12 @@ import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,6 +71,7 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -137,6 +142,13 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 			return null;
 		}
 
+		for (KeyedStateHandle restoreStateHandle : restoreStateHandles) {
+			if (restoreStateHandle instanceof HeapIncrementalKeyedStateHandle) {
+				throw new BackendBuildingException("Cannot restore the incremental snapshot of the heap state " +
+					"backend, found " + restoreStateHandle.getClass() + ". Please restore from a savepoint instead.");
+			}
+		}
+
 		final KeyedStateHandle theFirstStateHandle = restoreStateHandles.iterator().next();
 
 		boolean isRescaling = (restoreStateHandles.size() > 1 ||
@@ -257,9 +269,11 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 	}
 
 	/**
-	 * Recovery from multi incremental states with rescaling. For rescaling, this method creates a temporary
-	 * RocksDB instance for a key-groups shard. All contents from the temporary instance are copied into the
-	 * real restore instance and then the temporary instance is discarded.
+	 * Recovery from multi incremental states with rescaling. For rescaling, this method initializes the base DB
+	 * from the state handle with the largest key-group overlap and clips it to the target key-group range. For
+	 * every other key-groups shard, it creates a temporary RocksDB instance, writes the key-groups of the
+	 * target range into SST files and ingests those files into the real restore instance. The temporary
+	 * instance is discarded afterwards.
 	 */
 	private void restoreWithRescaling(Collection<KeyedStateHandle> restoreStateHandles) throws Exception {
 
@@ -291,10 +305,14 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 			}
 
 			Path temporaryRestoreInstancePath = new Path(instanceBasePath.getAbsolutePath() + UUID.randomUUID().toString());
+			File sstFilesDirectory = new File(instanceBasePath, UUID.randomUUID().toString());
 			try (RestoredDBInstance tmpRestoreDBInfo = restoreDBInstanceFromStateHandle(
 				(IncrementalRemoteKeyedStateHandle) rawStateHandle,
-				temporaryRestoreInstancePath);
-				RocksDBWriteBatchWrapper writeBatchWrapper = new RocksDBWriteBatchWrapper(this.db)) {
+				temporaryRestoreInstancePath)) {
+
+				if (!sstFilesDirectory.mkdirs()) {
+					throw new IOException("Could not create directory for SST files to ingest: " + sstFilesDirectory);
+				}
 
 				List<ColumnFamilyDescriptor> tmpColumnFamilyDescriptors = tmpRestoreDBInfo.columnFamilyDescriptors;
 				List<ColumnFamilyHandle> tmpColumnFamilyHandles = tmpRestoreDBInfo.columnFamilyHandles;
@@ -307,30 +325,83 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 						null, tmpRestoreDBInfo.stateMetaInfoSnapshots.get(i))
 						.columnFamilyHandle;
 
-					try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(tmpRestoreDBInfo.db, tmpColumnFamilyHandle)) {
-
-						iterator.seek(startKeyGroupPrefixBytes);
-
-						while (iterator.isValid()) {
-
-							if (RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(iterator.key(), stopKeyGroupPrefixBytes)) {
-								writeBatchWrapper.put(targetColumnFamilyHandle, iterator.key(), iterator.value());
-							} else {
-								// Since the iterator will visit the record according to the sorted order,
-								// we can just break here.
-								break;
-							}
-
-							iterator.next();
+					File sstFile = new File(sstFilesDirectory, i + SST_FILE_SUFFIX);
+
+					boolean hasData = writeKeyGroupsToSstFile(
+						tmpRestoreDBInfo.db,
+						tmpColumnFamilyHandle,
+						tmpColumnFamilyDescriptors.get(i).getOptions(),
+						startKeyGroupPrefixBytes,
+						stopKeyGroupPrefixBytes,
+						sstFile);
+
+					if (hasData) {
+						try (IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()) {
+							// the file was written only for this ingestion, so it can be moved instead of copied
+							ingestOptions.setMoveFiles(true);
+							this.db.ingestExternalFile(
+								targetColumnFamilyHandle,
+								Collections.singletonList(sstFile.getAbsolutePath()),
+								ingestOptions);
 						}
-					} // releases native iterator resources
+					}
 				}
 			} finally {
 				cleanUpPathQuietly(temporaryRestoreInstancePath);
+				cleanUpPathQuietly(new Path(sstFilesDirectory.getAbsolutePath()));
 			}
 		}
 	}
 
+	/**
+	 * Writes all records of the column family that fall into [startKeyGroupPrefixBytes, stopKeyGroupPrefixBytes)
+	 * into a new SST file. The records are visited in the sorted order of the iterator, which is the order that
+	 * the {@link SstFileWriter} requires.
+	 *
+	 * @return true if at least one record was written, false if the range was empty and no file was created.
+	 */
+	private boolean writeKeyGroupsToSstFile(
+		RocksDB sourceDb,
+		ColumnFamilyHandle sourceColumnFamilyHandle,
+		ColumnFamilyOptions columnFamilyOptions,
+		byte[] startKeyGroupPrefixBytes,
+		byte[] stopKeyGroupPrefixBytes,
+		File sstFile) throws RocksDBException {
+
+		boolean hasData = false;
+
+		try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(sourceDb, sourceColumnFamilyHandle);
+			EnvOptions envOptions = new EnvOptions();
+			Options options = new Options(dbOptions, columnFamilyOptions);
+			SstFileWriter sstFileWriter = new SstFileWriter(envOptions, options)) {
+
+			iterator.seek(startKeyGroupPrefixBytes);
+
+			while (iterator.isValid()) {
+
+				if (RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(iterator.key(), stopKeyGroupPrefixBytes)) {
+					if (!hasData) {
+						sstFileWriter.open(sstFile.getAbsolutePath());
+						hasData = true;
+					}
+					sstFileWriter.put(iterator.key(), iterator.value());
+				} else {
+					// Since the iterator will visit the record according to the sorted order,
+					// we can just break here.
+					break;
+				}
+
+				iterator.next();
+			}
+
+			if (hasData) {
+				sstFileWriter.finish();
+			}
+		} // releases native iterator resources
+
+		return hasData;
+	}
+
 	private void initDBWithRescaling(KeyedStateHandle initialHandle) throws Exception {
 
 		assert (initialHandle instanceof IncrementalRemoteKeyedStateHandle);
@@ -144,9 +144,10 @@ public class RocksDBStateBackendConfigTest {
 		Assert.assertEquals("state.backend.rocksdb.timer-service.factory", RocksDBOptions.TIMER_SERVICE_FACTORY.key());
 
 		// Fix the option value string and ensure all are covered
-		Assert.assertEquals(2, RocksDBStateBackend.PriorityQueueStateType.values().length);
+		Assert.assertEquals(3, RocksDBStateBackend.PriorityQueueStateType.values().length);
 		Assert.assertEquals("ROCKSDB", RocksDBStateBackend.PriorityQueueStateType.ROCKSDB.toString());
 		Assert.assertEquals("HEAP", RocksDBStateBackend.PriorityQueueStateType.HEAP.toString());
+		Assert.assertEquals("HEAP_TIMING_WHEEL", RocksDBStateBackend.PriorityQueueStateType.HEAP_TIMING_WHEEL.toString());
 
 		// Fix the default
 		Assert.assertEquals(
@@ -170,6 +171,20 @@ public class RocksDBStateBackendConfigTest {
 			RocksDBPriorityQueueSetFactory.class,
 			keyedBackend.getPriorityQueueFactory().getClass());
 		keyedBackend.dispose();
+
+		conf.setString(
+			RocksDBOptions.TIMER_SERVICE_FACTORY,
+			RocksDBStateBackend.PriorityQueueStateType.HEAP_TIMING_WHEEL.toString());
+		conf.setLong(RocksDBOptions.TIMING_WHEEL_RESOLUTION, 10L);
+
+		rocksDbBackend = new RocksDBStateBackend(tempFolder.newFolder().toURI().toString())
+			.configure(conf, Thread.currentThread().getContextClassLoader());
+		Assert.assertEquals(10L, rocksDbBackend.getTimingWheelResolution());
+		keyedBackend = createKeyedStateBackend(rocksDbBackend, env);
+		Assert.assertEquals(HeapPriorityQueueSetFactory.class, keyedBackend.getPriorityQueueFactory().getClass());
+		Assert.assertNotNull(keyedBackend.getTimingWheelFactory());
+		Assert.assertTrue(keyedBackend.requiresLegacySynchronousTimerSnapshots());
+		keyedBackend.dispose();
 	}
 
 	@Test
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.apache.flink.util.IOUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.flink.contrib.streaming.state.RocksDBStateBackendConfigTest.createKeyedStateBackend;
+import static org.apache.flink.contrib.streaming.state.RocksDBStateBackendConfigTest.getMockEnvironment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the prefetching of state by the {@link RocksDBKeyedStateBackend}.
+ */
+public class RocksDBStatePrefetchTest {
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void testPrefetchedValuesAreReadAndUpdated() throws Exception {
+		RocksDBKeyedStateBackend<Integer> keyedBackend = createPrefetchingBackend();
+		try {
+			ValueState<Integer> valueState = getValueState(keyedBackend);
+			ListState<Integer> listState = getListState(keyedBackend);
+
+			for (int key = 0; key < 10; key++) {
+				keyedBackend.setCurrentKey(key);
+				valueState.update(key);
+				listState.add(key);
+			}
+
+			keyedBackend.prefetch(keysWithVoidNamespace(20), VoidNamespaceSerializer.INSTANCE).get();
+
+			// changes which bypass the states are not visible while the values are prefetched
+			writeToDb(keyedBackend, valueState, 0, -1);
+			keyedBackend.setCurrentKey(0);
+			assertEquals(Integer.valueOf(0), valueState.value());
+
+			for (int key = 0; key < 20; key++) {
+				keyedBackend.setCurrentKey(key);
+				if (key < 10) {
+					assertEquals(Integer.valueOf(key), valueState.value());
+					assertEquals(Collections.singletonList(key), listState.get());
+				} else {
+					assertNull(valueState.value());
+					assertNull(listState.get());
+				}
+			}
+
+			// modifications of prefetched values are visible immediately
+			keyedBackend.setCurrentKey(1);
+			valueState.update(100);
+			listState.add(100);
+			assertEquals(Integer.valueOf(100), valueState.value());
+			assertEquals(Arrays.asList(1, 100), listState.get());
+
+			keyedBackend.setCurrentKey(2);
+			valueState.clear();
+			assertNull(valueState.value());
+
+			keyedBackend.setCurrentKey(15);
+			valueState.update(15);
+			assertEquals(Integer.valueOf(15), valueState.value());
+
+			keyedBackend.releasePrefetched();
+
+			keyedBackend.setCurrentKey(0);
+			assertEquals(Integer.valueOf(-1), valueState.value());
+			keyedBackend.setCurrentKey(1);
+			assertEquals(Integer.valueOf(100), valueState.value());
+			assertEquals(Arrays.asList(1, 100), listState.get());
+			keyedBackend.setCurrentKey(2);
+			assertNull(valueState.value());
+			keyedBackend.setCurrentKey(15);
+			assertEquals(Integer.valueOf(15), valueState.value());
+		} finally {
+			IOUtils.closeQuietly(keyedBackend);
+			keyedBackend.dispose();
+		}
+	}
+
+	@Test
+	public void testOnlyStatesWithMatchingNamespaceSerializerArePrefetched() throws Exception {
+		RocksDBKeyedStateBackend<Integer> keyedBackend = createPrefetchingBackend();
+		try {
+			ValueState<Integer> valueState = getValueState(keyedBackend);
+			keyedBackend.setCurrentKey(1);
+			valueState.update(1);
+
+			List<Tuple2<Integer, String>> keysAndNamespaces = Collections.singletonList(Tuple2.of(1, "namespace"));
+			keyedBackend.prefetch(keysAndNamespaces, StringSerializer.INSTANCE).get();
+
+			writeToDb(keyedBackend, valueState, 1, 2);
+			keyedBackend.setCurrentKey(1);
+			assertEquals(Integer.valueOf(2), valueState.value());
+		} finally {
+			IOUtils.closeQuietly(keyedBackend);
+			keyedBackend.dispose();
+		}
+	}
+
+	private RocksDBKeyedStateBackend<Integer> createPrefetchingBackend() throws Exception {
+		RocksDBStateBackend rocksDbBackend = new RocksDBStateBackend(new MemoryStateBackend());
+		rocksDbBackend.setDbStoragePath(tempFolder.newFolder().getAbsolutePath());
+		rocksDbBackend.setPrefetchBatchSize(16);
+		rocksDbBackend.setNumberOfPrefetchThreads(2);
+
+		return createKeyedStateBackend(rocksDbBackend, getMockEnvironment(tempFolder.newFolder()));
+	}
+
+	private static ValueState<Integer> getValueState(RocksDBKeyedStateBackend<Integer> keyedBackend) throws Exception {
+		return keyedBackend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new ValueStateDescriptor<>("value", IntSerializer.INSTANCE));
+	}
+
+	private static ListState<Integer> getListState(RocksDBKeyedStateBackend<Integer> keyedBackend) throws Exception {
+		return keyedBackend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new ListStateDescriptor<>("list", IntSerializer.INSTANCE));
+	}
+
+	private static List<Tuple2<Integer, VoidNamespace>> keysWithVoidNamespace(int numKeys) {
+		List<Tuple2<Integer, VoidNamespace>> keysAndNamespaces = new ArrayList<>(numKeys);
+		for (int key = 0; key < numKeys; key++) {
+			keysAndNamespaces.add(Tuple2.of(key, VoidNamespace.INSTANCE));
+		}
+		return keysAndNamespaces;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void writeToDb(
+		RocksDBKeyedStateBackend<Integer> keyedBackend,
+		ValueState<Integer> valueState,
+		int key,
+		int value) throws Exception {
+
+		AbstractRocksDBState<Integer, VoidNamespace, Integer> rocksDBState =
+			(AbstractRocksDBState<Integer, VoidNamespace, Integer>) valueState;
+		keyedBackend.setCurrentKey(key);
+		keyedBackend.db.put(rocksDBState.columnFamily, rocksDBState.getKeyBytes(), rocksDBState.getValueBytes(value));
+	}
+}
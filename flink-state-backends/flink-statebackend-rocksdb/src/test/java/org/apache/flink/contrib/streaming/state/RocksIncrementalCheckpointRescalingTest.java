@@ -27,7 +27,9 @@ import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
 import org.apache.flink.runtime.checkpoint.StateAssignmentOperation;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.VoidNamespace;
 import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
 import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
@@ -42,7 +44,14 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Tests to guard rescaling from checkpoint.
@@ -134,6 +143,8 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 			// task's key-group [0, 4]
 			KeyGroupRange localKeyGroupRange20 = keyGroupPartitions.get(0);
 			Assert.assertEquals(new KeyGroupRange(0, 4), localKeyGroupRange20);
+			// no state handle overlaps enough to init the target db, so all records are ingested from the handle of the single task.
+			validInitialStateHandle(initState1, localKeyGroupRange20, null);
 			harness2[0] = getHarnessTest(keySelector, maxParallelism, 2, 0);
 			harness2[0].setStateBackend(getStateBackend());
 			harness2[0].setup();
@@ -143,12 +154,16 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 			// task's key-group [5, 9]
 			KeyGroupRange localKeyGroupRange21 = keyGroupPartitions.get(1);
 			Assert.assertEquals(new KeyGroupRange(5, 9), localKeyGroupRange21);
+			validInitialStateHandle(initState2, localKeyGroupRange21, null);
 			harness2[1] = getHarnessTest(keySelector, maxParallelism, 2, 1);
 			harness2[1].setStateBackend(getStateBackend());
 			harness2[1].setup();
 			harness2[1].initializeState(initState2);
 			harness2[1].open();
 
+			validKeysInState(harness2[0], records[0], records[1], records[2], records[3], records[4]);
+			validKeysInState(harness2[1], records[5], records[6], records[7], records[8], records[9]);
+
 			validHarnessResult(harness2[0], 2, records[0], records[1], records[2], records[3], records[4]);
 
 			validHarnessResult(harness2[1], 2, records[5], records[6], records[7], records[8], records[9]);
@@ -191,6 +206,7 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 			// this will choose the state handle to harness2[0] to init the target db with clipping.
 			KeyGroupRange localKeyGroupRange30 = keyGroupPartitions.get(0);
 			Assert.assertEquals(new KeyGroupRange(0, 3), localKeyGroupRange30);
+			validInitialStateHandle(initState1, localKeyGroupRange30, new KeyGroupRange(0, 4));
 			harness3[0] = getHarnessTest(keySelector, maxParallelism, 3, 0);
 			harness3[0].setStateBackend(getStateBackend());
 			harness3[0].setup();
@@ -198,8 +214,10 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 			harness3[0].open();
 
 			// task's key-group [4, 6]
+			// this will open an empty db and ingest records from the state handles of harness2[0] and harness2[1].
 			KeyGroupRange localKeyGroupRange31 = keyGroupPartitions.get(1);
 			Assert.assertEquals(new KeyGroupRange(4, 6), localKeyGroupRange31);
+			validInitialStateHandle(initState2, localKeyGroupRange31, null);
 			harness3[1] = getHarnessTest(keySelector, maxParallelism, 3, 1);
 			harness3[1].setStateBackend(getStateBackend());
 			harness3[1].setup();
@@ -209,12 +227,18 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 			// task's key-group [7, 9]
 			KeyGroupRange localKeyGroupRange32 = keyGroupPartitions.get(2);
 			Assert.assertEquals(new KeyGroupRange(7, 9), localKeyGroupRange32);
+			validInitialStateHandle(initState3, localKeyGroupRange32, null);
 			harness3[2] = getHarnessTest(keySelector, maxParallelism, 3, 2);
 			harness3[2].setStateBackend(getStateBackend());
 			harness3[2].setup();
 			harness3[2].initializeState(initState3);
 			harness3[2].open();
 
+			// the key-group 4 was clipped from the db of harness3[0], and no foreign key-group was ingested.
+			validKeysInState(harness3[0], records[0], records[1], records[2], records[3]);
+			validKeysInState(harness3[1], records[4], records[5], records[6]);
+			validKeysInState(harness3[2], records[7], records[8], records[9]);
+
 			validHarnessResult(harness3[0], 3, records[0], records[1], records[2], records[3]);
 			validHarnessResult(harness3[1], 3, records[4], records[5], records[6]);
 			validHarnessResult(harness3[2], 3, records[7], records[8], records[9]);
@@ -300,21 +324,29 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 			// this will choose the state handle generated by harness3[0] to init the target db without any clipping.
 			KeyGroupRange localKeyGroupRange20 = keyGroupPartitions.get(0);
 			Assert.assertEquals(new KeyGroupRange(0, 4), localKeyGroupRange20);
+			validInitialStateHandle(initState1, localKeyGroupRange20, new KeyGroupRange(0, 3));
 			harness2[0] = getHarnessTest(keySelector, maxParallelism, 2, 0);
 			harness2[0].setStateBackend(getStateBackend());
 			harness2[0].setup();
 			harness2[0].initializeState(initState1);
 			harness2[0].open();
 
-			// task's key-group [5, 9], this will open a empty db, and insert records from two state handles.
+			// task's key-group [5, 9]
+			// this will choose the state handle generated by harness3[2] to init the target db without any clipping,
+			// and ingest the key-groups 5 and 6 from the state handle generated by harness3[1].
 			KeyGroupRange localKeyGroupRange21 = keyGroupPartitions.get(1);
 			Assert.assertEquals(new KeyGroupRange(5, 9), localKeyGroupRange21);
+			validInitialStateHandle(initState2, localKeyGroupRange21, new KeyGroupRange(7, 9));
 			harness2[1] = getHarnessTest(keySelector, maxParallelism, 2, 1);
 			harness2[1].setStateBackend(getStateBackend());
 			harness2[1].setup();
 			harness2[1].initializeState(initState2);
 			harness2[1].open();
 
+			// only the key-group 4 of the state handle generated by harness3[1] was ingested into harness2[0].
+			validKeysInState(harness2[0], records[0], records[1], records[2], records[3], records[4]);
+			validKeysInState(harness2[1], records[5], records[6], records[7], records[8], records[9]);
+
 			validHarnessResult(harness2[0], 2, records[0], records[1], records[2], records[3], records[4]);
 
 			validHarnessResult(harness2[1], 2, records[5], records[6], records[7], records[8], records[9]);
@@ -342,11 +374,14 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 				getHarnessTest(keySelector, maxParallelism, 1, 0)) {
 
 			// this will choose the state handle generated by harness2[0] to init the target db without any clipping.
+			validInitialStateHandle(initState1, new KeyGroupRange(0, 9), new KeyGroupRange(0, 4));
 			harness.setStateBackend(getStateBackend());
 			harness.setup();
 			harness.initializeState(initState1);
 			harness.open();
 
+			validKeysInState(harness, records);
+
 			validHarnessResult(harness, 3, records);
 		}
 	}
@@ -359,6 +394,41 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * Checks which state handle the restore operation chooses to init the target db of the given key-group range.
+	 */
+	private void validInitialStateHandle(
+		OperatorSubtaskState initState,
+		KeyGroupRange targetKeyGroupRange,
+		@Nullable KeyGroupRange expectedKeyGroupRange) {
+
+		KeyedStateHandle initialHandle = RocksDBIncrementalCheckpointUtils.chooseTheBestStateHandleForInitial(
+			initState.getManagedKeyedState(),
+			targetKeyGroupRange);
+
+		if (expectedKeyGroupRange == null) {
+			Assert.assertNull(initialHandle);
+		} else {
+			Assert.assertNotNull(initialHandle);
+			Assert.assertEquals(expectedKeyGroupRange, initialHandle.getKeyGroupRange());
+		}
+	}
+
+	/**
+	 * Checks that the restored db holds exactly the given keys, i.e. that no record of a key-group outside
+	 * of the key-group range of the task survived the restore.
+	 */
+	private void validKeysInState(
+		KeyedOneInputStreamOperatorTestHarness<String, String, Integer> harness,
+		String... expectedKeys) {
+
+		Set<String> keys;
+		try (Stream<String> keyStream = harness.getKeyedStateBackend().getKeys("counter", VoidNamespace.INSTANCE)) {
+			keys = keyStream.collect(Collectors.toSet());
+		}
+		Assert.assertEquals(new HashSet<>(Arrays.asList(expectedKeys)), keys);
+	}
+
 	@SuppressWarnings("unchecked")
 	private void validHarnessResult(
 		KeyedOneInputStreamOperatorTestHarness<?, String, ?> harness,
@@ -49,12 +49,14 @@ import org.apache.flink.streaming.api.functions.sink.SinkFunction;
 import org.apache.flink.streaming.api.graph.StreamGraphGenerator;
 import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
 import org.apache.flink.streaming.api.operators.LegacyKeyedProcessOperator;
+import org.apache.flink.streaming.api.operators.LocalReduceOperator;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.operators.StreamGroupedFold;
 import org.apache.flink.streaming.api.operators.StreamGroupedReduce;
 import org.apache.flink.streaming.api.operators.co.IntervalJoinOperator;
 import org.apache.flink.streaming.api.transformations.OneInputTransformation;
 import org.apache.flink.streaming.api.transformations.PartitionTransformation;
+import org.apache.flink.streaming.api.transformations.StreamTransformation;
 import org.apache.flink.streaming.api.windowing.assigners.GlobalWindows;
 import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.SlidingProcessingTimeWindows;
@@ -692,6 +694,92 @@ public class KeyedStream<T, KEY> extends DataStream<T> {
 				clean(reducer), getType().createSerializer(getExecutionConfig())));
 	}
 
+	/**
+	 * Applies a reduce transformation on the grouped data stream in mini-batch mode. The records are
+	 * pre-reduced per key in memory and the bundle is applied to the state when it holds
+	 * {@code maxBundleSize} records, when {@code maxBundleLatency} passed since its first record, on
+	 * watermarks and before checkpoint barriers. The state of every key is then read and written once
+	 * per bundle, and one reduced record is emitted per key and bundle instead of one record for every
+	 * input record.
+	 *
+	 * <p>The {@link ReduceFunction} must be associative, because records are combined with each other
+	 * before they are combined with the state.
+	 *
+	 * @param reducer
+	 *            The {@link ReduceFunction} that will be called for every
+	 *            element of the input values with the same key.
+	 * @param maxBundleSize
+	 *            The maximum number of records in a bundle.
+	 * @param maxBundleLatency
+	 *            The maximum processing time that a record stays in a bundle, zero for no time limit.
+	 * @return The transformed DataStream.
+	 */
+	@PublicEvolving
+	public SingleOutputStreamOperator<T> reduce(ReduceFunction<T> reducer, long maxBundleSize, Time maxBundleLatency) {
+		Preconditions.checkArgument(maxBundleSize > 0, "The maximum bundle size must be greater than zero.");
+
+		return transform("Keyed Reduce", getType(), new StreamGroupedReduce<>(
+				clean(reducer),
+				getType().createSerializer(getExecutionConfig()),
+				maxBundleSize,
+				maxBundleLatency.toMilliseconds()));
+	}
+
+	/**
+	 * Pre-reduces the records per key before they are shuffled to the keyed operators. The records are
+	 * reduced in memory by an operator that is chained to the producer of this stream. It emits the
+	 * reduced record of every key when it holds {@code maxBundleSize} records, when
+	 * {@code maxBundleLatency} passed since its first record, on watermarks and before checkpoint
+	 * barriers. This reduces the number of records that are shuffled and processed by the keyed
+	 * operators, in particular for skewed keys.
+	 *
+	 * <p>The result is keyed in the same way as this stream, so it is typically followed by a keyed
+	 * reduction with the same {@link ReduceFunction}, e.g.
+	 * {@code stream.keyBy(0).localReduce(reducer, 1000, Time.milliseconds(100)).reduce(reducer)}.
+	 * The local reduction does not keep any state.
+	 *
+	 * @param reducer
+	 *            The {@link ReduceFunction} that combines records with the same key. It must be associative.
+	 * @param maxBundleSize
+	 *            The maximum number of records in a bundle.
+	 * @param maxBundleLatency
+	 *            The maximum processing time that a record stays in a bundle, zero for no time limit.
+	 * @return The pre-reduced stream, keyed in the same way as this stream.
+	 * @throws UnsupportedOperationException If this stream was not created by {@code keyBy()}.
+	 */
+	@PublicEvolving
+	public KeyedStream<T, KEY> localReduce(ReduceFunction<T> reducer, long maxBundleSize, Time maxBundleLatency) {
+		Preconditions.checkArgument(maxBundleSize > 0, "The maximum bundle size must be greater than zero.");
+
+		if (!(getTransformation() instanceof PartitionTransformation)) {
+			// e.g. a stream reinterpreted with DataStreamUtils#reinterpretAsKeyedStream, which is not shuffled
+			throw new UnsupportedOperationException("The local reduction is only supported for streams that " +
+				"are partitioned by keyBy(), because it is placed before the shuffle of the stream.");
+		}
+
+		final PartitionTransformation<T> partitionTransformation = (PartitionTransformation<T>) getTransformation();
+		final StreamTransformation<T> input = partitionTransformation.getInput();
+
+		final SingleOutputStreamOperator<T> localReduced = new DataStream<>(environment, input).transform(
+			"Local Reduce",
+			getType(),
+			new LocalReduceOperator<>(
+				clean(reducer),
+				keySelector,
+				getType().createSerializer(getExecutionConfig()),
+				maxBundleSize,
+				maxBundleLatency.toMilliseconds()));
+
+		// run with the parallelism of the producer, so that the local reduction can be chained to it
+		localReduced.setParallelism(input.getParallelism());
+
+		return new KeyedStream<>(
+			localReduced,
+			new PartitionTransformation<>(localReduced.getTransformation(), partitionTransformation.getPartitioner()),
+			keySelector,
+			keyType);
+	}
+
 	/**
 	 * Applies a fold transformation on the grouped data stream grouped on by
 	 * the given key position. The {@link FoldFunction} will receive input
@@ -28,9 +28,11 @@ import org.apache.flink.api.common.functions.Function;
 import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.common.functions.RichFunction;
 import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.AppendingState;
 import org.apache.flink.api.common.state.FoldingStateDescriptor;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.Utils;
@@ -55,8 +57,10 @@ import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
 import org.apache.flink.streaming.api.windowing.evictors.Evictor;
 import org.apache.flink.streaming.api.windowing.time.Time;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
 import org.apache.flink.streaming.api.windowing.windows.Window;
 import org.apache.flink.streaming.runtime.operators.windowing.EvictingWindowOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.SlidingPaneWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.WindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalAggregateProcessWindowFunction;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalIterableProcessWindowFunction;
@@ -122,6 +126,9 @@ public class WindowedStream<T, K, W extends Window> {
  	 */
 	private OutputTag<T> lateDataOutputTag;
 
+	/** Whether overlapping sliding windows share the pre-aggregated state of their panes. */
+	private boolean paneSharing = false;
+
 	@PublicEvolving
 	public WindowedStream(KeyedStream<T, K> input,
 			WindowAssigner<? super T, W> windowAssigner) {
@@ -195,6 +202,30 @@ public class WindowedStream<T, K, W extends Window> {
 		return this;
 	}
 
+	/**
+	 * Lets overlapping sliding time windows share their pre-aggregated state. The time is cut into
+	 * panes of the greatest common divisor of window size and slide, each element only updates the
+	 * state of its pane, and the panes are merged when a window fires. This reduces the state size
+	 * and the per-element work by the factor {@code size / slide}.
+	 *
+	 * <p>Pane sharing can only be used with {@code SlidingEventTimeWindows} or
+	 * {@code SlidingProcessingTimeWindows}, their default trigger, no evictor, no allowed lateness
+	 * and one of the {@code reduce()} or {@code aggregate()} operations. The merging of the panes
+	 * uses {@link ReduceFunction#reduce(Object, Object)} or {@link AggregateFunction#merge(Object, Object)}.
+	 *
+	 * <p>Note: The state of the panes is not compatible with the state of the regular window operator,
+	 * so enabling or disabling pane sharing breaks the state compatibility of the operator.
+	 */
+	@PublicEvolving
+	public WindowedStream<T, K, W> enablePaneSharing() {
+		if (!SlidingPaneWindowOperator.isSupportedAssigner(windowAssigner)) {
+			throw new UnsupportedOperationException("Pane sharing cannot be used with a " +
+				windowAssigner.getClass().getSimpleName() + " assigner.");
+		}
+		this.paneSharing = true;
+		return this;
+	}
+
 
 	// ------------------------------------------------------------------------
 	//  Operations on the keyed windows
@@ -277,7 +308,14 @@ public class WindowedStream<T, K, W extends Window> {
 
 		OneInputStreamOperator<T, R> operator;
 
-		if (evictor != null) {
+		if (paneSharing) {
+			ReducingStateDescriptor<T> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				reduceFunction,
+				input.getType().createSerializer(getExecutionEnvironment().getConfig()));
+
+			operator = createSlidingPaneWindowOperator(stateDesc, new InternalSingleValueWindowFunction<>(function));
+
+		} else if (evictor != null) {
 			@SuppressWarnings({"unchecked", "rawtypes"})
 			TypeSerializer<StreamRecord<T>> streamRecordSerializer =
 				(TypeSerializer<StreamRecord<T>>) new StreamElementSerializer(input.getType().createSerializer(getExecutionEnvironment().getConfig()));
@@ -363,7 +401,14 @@ public class WindowedStream<T, K, W extends Window> {
 
 		OneInputStreamOperator<T, R> operator;
 
-		if (evictor != null) {
+		if (paneSharing) {
+			ReducingStateDescriptor<T> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				reduceFunction,
+				input.getType().createSerializer(getExecutionEnvironment().getConfig()));
+
+			operator = createSlidingPaneWindowOperator(stateDesc, new InternalSingleValueProcessWindowFunction<>(function));
+
+		} else if (evictor != null) {
 			@SuppressWarnings({"unchecked", "rawtypes"})
 			TypeSerializer<StreamRecord<T>> streamRecordSerializer =
 					(TypeSerializer<StreamRecord<T>>) new StreamElementSerializer(input.getType().createSerializer(getExecutionEnvironment().getConfig()));
@@ -499,6 +544,8 @@ public class WindowedStream<T, K, W extends Window> {
 			WindowFunction<ACC, R, K, W> function,
 			TypeInformation<ACC> foldAccumulatorType,
 			TypeInformation<R> resultType) {
+		checkNoPaneSharing();
+
 		if (foldFunction instanceof RichFunction) {
 			throw new UnsupportedOperationException("FoldFunction of fold can not be a RichFunction.");
 		}
@@ -611,6 +658,8 @@ public class WindowedStream<T, K, W extends Window> {
 			ProcessWindowFunction<ACC, R, K, W> windowFunction,
 			TypeInformation<ACC> foldResultType,
 			TypeInformation<R> windowResultType) {
+		checkNoPaneSharing();
+
 		if (foldFunction instanceof RichFunction) {
 			throw new UnsupportedOperationException("FoldFunction can not be a RichFunction.");
 		}
@@ -813,7 +862,13 @@ public class WindowedStream<T, K, W extends Window> {
 
 		OneInputStreamOperator<T, R> operator;
 
-		if (evictor != null) {
+		if (paneSharing) {
+			AggregatingStateDescriptor<T, ACC, V> stateDesc = new AggregatingStateDescriptor<>("window-contents",
+				aggregateFunction, accumulatorType.createSerializer(getExecutionEnvironment().getConfig()));
+
+			operator = createSlidingPaneWindowOperator(stateDesc, new InternalSingleValueWindowFunction<>(windowFunction));
+
+		} else if (evictor != null) {
 			@SuppressWarnings({"unchecked", "rawtypes"})
 			TypeSerializer<StreamRecord<T>> streamRecordSerializer =
 					(TypeSerializer<StreamRecord<T>>) new StreamElementSerializer(input.getType().createSerializer(getExecutionEnvironment().getConfig()));
@@ -963,7 +1018,13 @@ public class WindowedStream<T, K, W extends Window> {
 
 		OneInputStreamOperator<T, R> operator;
 
-		if (evictor != null) {
+		if (paneSharing) {
+			AggregatingStateDescriptor<T, ACC, V> stateDesc = new AggregatingStateDescriptor<>("window-contents",
+				aggregateFunction, accumulatorType.createSerializer(getExecutionEnvironment().getConfig()));
+
+			operator = createSlidingPaneWindowOperator(stateDesc, new InternalSingleValueProcessWindowFunction<>(windowFunction));
+
+		} else if (evictor != null) {
 			@SuppressWarnings({"unchecked", "rawtypes"})
 			TypeSerializer<StreamRecord<T>> streamRecordSerializer =
 					(TypeSerializer<StreamRecord<T>>) new StreamElementSerializer(input.getType().createSerializer(getExecutionEnvironment().getConfig()));
@@ -1076,6 +1137,8 @@ public class WindowedStream<T, K, W extends Window> {
 
 	private <R> SingleOutputStreamOperator<R> apply(InternalWindowFunction<Iterable<T>, R, K, W> function, TypeInformation<R> resultType, Function originalFunction) {
 
+		checkNoPaneSharing();
+
 		final String opName = generateOperatorName(windowAssigner, trigger, evictor, originalFunction, null);
 		KeySelector<T, K> keySel = input.getKeySelector();
 
@@ -1170,7 +1233,14 @@ public class WindowedStream<T, K, W extends Window> {
 
 		OneInputStreamOperator<T, R> operator;
 
-		if (evictor != null) {
+		if (paneSharing) {
+			ReducingStateDescriptor<T> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				reduceFunction,
+				input.getType().createSerializer(getExecutionEnvironment().getConfig()));
+
+			operator = createSlidingPaneWindowOperator(stateDesc, new InternalSingleValueWindowFunction<>(function));
+
+		} else if (evictor != null) {
 			@SuppressWarnings({"unchecked", "rawtypes"})
 			TypeSerializer<StreamRecord<T>> streamRecordSerializer =
 					(TypeSerializer<StreamRecord<T>>) new StreamElementSerializer(input.getType().createSerializer(getExecutionEnvironment().getConfig()));
@@ -1250,6 +1320,8 @@ public class WindowedStream<T, K, W extends Window> {
 	 */
 	@Deprecated
 	public <R> SingleOutputStreamOperator<R> apply(R initialValue, FoldFunction<T, R> foldFunction, WindowFunction<R, R, K, W> function, TypeInformation<R> resultType) {
+		checkNoPaneSharing();
+
 		if (foldFunction instanceof RichFunction) {
 			throw new UnsupportedOperationException("FoldFunction of apply can not be a RichFunction.");
 		}
@@ -1303,6 +1375,40 @@ public class WindowedStream<T, K, W extends Window> {
 		return input.transform(opName, resultType, operator);
 	}
 
+	@SuppressWarnings("unchecked")
+	private <ACC, R> OneInputStreamOperator<T, R> createSlidingPaneWindowOperator(
+			StateDescriptor<? extends AppendingState<T, ACC>, ?> stateDesc,
+			InternalWindowFunction<ACC, R, K, W> function) {
+
+		if (evictor != null) {
+			throw new UnsupportedOperationException("Pane sharing cannot be used with an Evictor.");
+		}
+
+		if (!SlidingPaneWindowOperator.isSupportedTrigger(windowAssigner, trigger)) {
+			throw new UnsupportedOperationException("Pane sharing cannot be used with a custom trigger.");
+		}
+
+		if (allowedLateness > 0) {
+			throw new UnsupportedOperationException("Pane sharing cannot be used with an allowed lateness.");
+		}
+
+		return new SlidingPaneWindowOperator<>(
+			(WindowAssigner<? super T, TimeWindow>) windowAssigner,
+			(TypeSerializer<TimeWindow>) windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
+			input.getKeySelector(),
+			input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+			stateDesc,
+			(InternalWindowFunction<ACC, R, K, TimeWindow>) function,
+			(Trigger<? super T, ? super TimeWindow>) trigger,
+			lateDataOutputTag);
+	}
+
+	private void checkNoPaneSharing() {
+		if (paneSharing) {
+			throw new UnsupportedOperationException("Pane sharing can only be used with reduce() or aggregate().");
+		}
+	}
+
 	private static String generateFunctionName(Function function) {
 		Class<? extends Function> functionClass = function.getClass();
 		if (functionClass.isAnonymousClass()) {
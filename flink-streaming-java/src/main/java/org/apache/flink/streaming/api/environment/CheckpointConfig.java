@@ -75,6 +75,9 @@ public class CheckpointConfig implements java.io.Serializable {
 	/** Determines if a job will fallback to checkpoint when there is a more recent savepoint. **/
 	private boolean preferCheckpointForRecovery = false;
 
+	/** Flag to let checkpoint barriers overtake the in-flight data instead of aligning the inputs. */
+	private boolean unalignedCheckpointsEnabled = false;
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -306,6 +309,35 @@ public class CheckpointConfig implements java.io.Serializable {
 		this.preferCheckpointForRecovery = preferCheckpointForRecovery;
 	}
 
+	/**
+	 * Enables unaligned checkpoints for exactly-once checkpointing.
+	 *
+	 * <p>With unaligned checkpoints, a task does not block the input channels on which it already received
+	 * a checkpoint barrier. Instead, it takes the snapshot of its operators as soon as the first barrier arrives
+	 * and persists the records that are still in flight on the other input channels as part of the checkpoint.
+	 * That way, backpressure no longer stalls the processing of the channels whose barriers arrived first, at
+	 * the cost of a larger checkpoint size. Note that barriers do not overtake the buffers that are queued in
+	 * front of them, so a checkpoint still completes only after the barriers of all input channels have
+	 * arrived, and its duration still depends on the backpressure in the job. Restoring from an unaligned
+	 * checkpoint with in-flight data does not support changing the parallelism of the affected operators.
+	 *
+	 * <p>This setting has no effect in {@link CheckpointingMode#AT_LEAST_ONCE} mode.
+	 */
+	@PublicEvolving
+	public void enableUnalignedCheckpoints() {
+		this.unalignedCheckpointsEnabled = true;
+	}
+
+	/**
+	 * Returns whether unaligned checkpoints are enabled.
+	 *
+	 * @return <code>true</code> if unaligned checkpoints are enabled.
+	 */
+	@PublicEvolving
+	public boolean isUnalignedCheckpointsEnabled() {
+		return unalignedCheckpointsEnabled;
+	}
+
 	/**
 	 * Returns the cleanup behaviour for externalized checkpoints.
 	 *
@@ -84,6 +84,7 @@ public class StreamConfig implements Serializable {
 
 	private static final String CHECKPOINTING_ENABLED = "checkpointing";
 	private static final String CHECKPOINT_MODE = "checkpointMode";
+	private static final String UNALIGNED_CHECKPOINTS_ENABLED = "unalignedCheckpoints";
 
 	private static final String STATE_BACKEND = "statebackend";
 	private static final String STATE_PARTITIONER = "statePartitioner";
@@ -393,6 +394,14 @@ public class StreamConfig implements Serializable {
 		}
 	}
 
+	public void setUnalignedCheckpointsEnabled(boolean enabled) {
+		config.setBoolean(UNALIGNED_CHECKPOINTS_ENABLED, enabled);
+	}
+
+	public boolean isUnalignedCheckpointsEnabled() {
+		return config.getBoolean(UNALIGNED_CHECKPOINTS_ENABLED, false);
+	}
+
 	public void setOutEdgesInOrder(List<StreamEdge> outEdgeList) {
 		try {
 			InstantiationUtil.writeObjectToConfig(outEdgeList, this.config, EDGES_IN_ORDER);
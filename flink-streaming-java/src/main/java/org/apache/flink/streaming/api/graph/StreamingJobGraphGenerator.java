@@ -450,6 +450,9 @@ public class StreamingJobGraphGenerator {
 		config.setCheckpointingEnabled(checkpointCfg.isCheckpointingEnabled());
 		if (checkpointCfg.isCheckpointingEnabled()) {
 			config.setCheckpointMode(checkpointCfg.getCheckpointingMode());
+			config.setUnalignedCheckpointsEnabled(
+				checkpointCfg.getCheckpointingMode() == CheckpointingMode.EXACTLY_ONCE
+					&& checkpointCfg.isUnalignedCheckpointsEnabled());
 		}
 		else {
 			// the "at-least-once" input handler is slightly cheaper (in the absence of checkpoints),
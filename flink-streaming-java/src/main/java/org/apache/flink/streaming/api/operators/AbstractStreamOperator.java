@@ -46,7 +46,10 @@ import org.apache.flink.runtime.state.KeyGroupStatePartitionStreamProvider;
 import org.apache.flink.runtime.state.KeyGroupsList;
 import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.runtime.state.KeyedStateCheckpointOutputStream;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.KeyedStatePrefetcher;
 import org.apache.flink.runtime.state.OperatorStateBackend;
+import org.apache.flink.runtime.state.SnapshotResult;
 import org.apache.flink.runtime.state.StateInitializationContext;
 import org.apache.flink.runtime.state.StateInitializationContextImpl;
 import org.apache.flink.runtime.state.StatePartitionStreamProvider;
@@ -58,6 +61,7 @@ import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeCallback;
 import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
 import org.apache.flink.streaming.util.LatencyStats;
@@ -70,9 +74,12 @@ import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.Closeable;
 import java.io.Serializable;
 import java.util.Locale;
+import java.util.concurrent.RunnableFuture;
 
 /**
  * Base class for all stream operators. Operators that contain a user function should extend the class
@@ -394,7 +401,7 @@ public abstract class AbstractStreamOperator<OUT>
 
 			snapshotState(snapshotContext);
 
-			snapshotInProgress.setKeyedStateRawFuture(snapshotContext.getKeyedStateStreamFuture());
+			snapshotInProgress.setKeyedStateRawFuture(snapshotRawKeyedState(snapshotContext, factory));
 			snapshotInProgress.setOperatorStateRawFuture(snapshotContext.getOperatorStateStreamFuture());
 
 			if (null != operatorStateBackend) {
@@ -467,6 +474,21 @@ public abstract class AbstractStreamOperator<OUT>
 		}
 	}
 
+	/**
+	 * Returns the future of the raw keyed state snapshot, which runs in the asynchronous part of the
+	 * checkpoint. By default, this is the raw keyed state written synchronously in
+	 * {@link #snapshotState(StateSnapshotContext)}. Operators which write their raw keyed state
+	 * asynchronously can override this hook method.
+	 *
+	 * @param context context of the snapshot, after {@link #snapshotState(StateSnapshotContext)} was called
+	 * @param factory factory for the streams to write the raw keyed state to
+	 */
+	protected RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshotRawKeyedState(
+			StateSnapshotContextSynchronousImpl context,
+			CheckpointStreamFactory factory) throws Exception {
+		return context.getKeyedStateStreamFuture();
+	}
+
 	/**
 	 * Stream operators with state which can be restored need to override this hook method.
 	 *
@@ -647,6 +669,42 @@ public abstract class AbstractStreamOperator<OUT>
 		return keyedStateStore;
 	}
 
+	/**
+	 * Creates a {@link KeyedStatePrefetchBuffer} for the records of the first input, if the keyed state
+	 * backend prefetches state, see {@link KeyedStatePrefetcher}.
+	 *
+	 * @param namespaceSerializer The namespace serializer of the state to prefetch.
+	 * @param namespaceAssigner Assigns the namespaces of the state which the processing of a record accesses.
+	 * @param delayedFlush Flushes the buffer, called once a buffered record reached the maximum delay.
+	 * @return The buffer, or null if the state of this operator is not prefetched.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	protected <IN, N> KeyedStatePrefetchBuffer<?, IN, N> createKeyedStatePrefetchBuffer(
+			TypeSerializer<N> namespaceSerializer,
+			KeyedStatePrefetchBuffer.NamespaceAssigner<IN, N> namespaceAssigner,
+			ProcessingTimeCallback delayedFlush) {
+
+		if (stateKeySelector1 == null ||
+			!(keyedStateBackend instanceof KeyedStatePrefetcher) ||
+			((KeyedStatePrefetcher<?>) keyedStateBackend).getPrefetchBatchSize() <= 0) {
+			return null;
+		}
+
+		// with object reuse, the records may be modified after they were passed to the operator
+		TypeSerializer<IN> copySerializer = getExecutionConfig().isObjectReuseEnabled() ?
+			config.getTypeSerializerIn1(getUserCodeClassloader()) : null;
+
+		return new KeyedStatePrefetchBuffer<>(
+			(KeyedStatePrefetcher<Object>) keyedStateBackend,
+			(KeySelector<IN, Object>) stateKeySelector1,
+			copySerializer,
+			namespaceSerializer,
+			namespaceAssigner,
+			getProcessingTimeService(),
+			delayedFlush);
+	}
+
 	// ------------------------------------------------------------------------
 	//  Context and chaining properties
 	// ------------------------------------------------------------------------
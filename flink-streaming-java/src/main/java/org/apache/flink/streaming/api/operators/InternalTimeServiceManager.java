@@ -118,7 +118,7 @@ public class InternalTimeServiceManager<K> {
 	private <N> KeyGroupedInternalPriorityQueue<TimerHeapInternalTimer<K, N>> createTimerPriorityQueue(
 		String name,
 		TimerSerializer<K, N> timerSerializer) {
-		return priorityQueueSetFactory.create(
+		return priorityQueueSetFactory.createTimerQueue(
 			name,
 			timerSerializer);
 	}
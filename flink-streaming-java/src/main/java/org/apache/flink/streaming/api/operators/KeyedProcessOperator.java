@@ -24,9 +24,12 @@ import org.apache.flink.streaming.api.SimpleTimerService;
 import org.apache.flink.streaming.api.TimeDomain;
 import org.apache.flink.streaming.api.TimerService;
 import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.util.OutputTag;
 
+import java.util.Collections;
+
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -46,6 +49,9 @@ public class KeyedProcessOperator<K, IN, OUT>
 
 	private transient OnTimerContextImpl onTimerContext;
 
+	// buffers the records if the keyed state backend prefetches their state, null otherwise
+	private transient KeyedStatePrefetchBuffer<?, IN, VoidNamespace> prefetchBuffer;
+
 	public KeyedProcessOperator(KeyedProcessFunction<K, IN, OUT> function) {
 		super(function);
 
@@ -64,22 +70,75 @@ public class KeyedProcessOperator<K, IN, OUT>
 
 		context = new ContextImpl(userFunction, timerService);
 		onTimerContext = new OnTimerContextImpl(userFunction, timerService);
+
+		prefetchBuffer = createKeyedStatePrefetchBuffer(
+			VoidNamespaceSerializer.INSTANCE,
+			element -> Collections.singletonList(VoidNamespace.INSTANCE),
+			timestamp -> flushPrefetchBuffer());
+	}
+
+	@Override
+	public void close() throws Exception {
+		flushPrefetchBuffer();
+		super.close();
+	}
+
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		flushPrefetchBuffer();
+		super.processWatermark(mark);
+	}
+
+	@Override
+	public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+		flushPrefetchBuffer();
+		super.prepareSnapshotPreBarrier(checkpointId);
 	}
 
 	@Override
 	public void onEventTime(InternalTimer<K, VoidNamespace> timer) throws Exception {
+		flushPrefetchBufferBeforeTimer(timer);
 		collector.setAbsoluteTimestamp(timer.getTimestamp());
 		invokeUserFunction(TimeDomain.EVENT_TIME, timer);
 	}
 
 	@Override
 	public void onProcessingTime(InternalTimer<K, VoidNamespace> timer) throws Exception {
+		flushPrefetchBufferBeforeTimer(timer);
 		collector.eraseTimestamp();
 		invokeUserFunction(TimeDomain.PROCESSING_TIME, timer);
 	}
 
 	@Override
 	public void processElement(StreamRecord<IN> element) throws Exception {
+		if (prefetchBuffer == null) {
+			invokeProcessElement(element);
+		} else if (prefetchBuffer.add(element)) {
+			flushPrefetchBuffer();
+		}
+	}
+
+	private void flushPrefetchBuffer() throws Exception {
+		if (prefetchBuffer != null) {
+			prefetchBuffer.flush(element -> {
+				setKeyContextElement1(element);
+				invokeProcessElement(element);
+			});
+		}
+	}
+
+	/**
+	 * Processes the buffered records before a timer fires, so that the timer sees their state.
+	 */
+	private void flushPrefetchBufferBeforeTimer(InternalTimer<K, VoidNamespace> timer) throws Exception {
+		if (prefetchBuffer != null && !prefetchBuffer.isEmpty()) {
+			flushPrefetchBuffer();
+			// the buffered records changed the key context
+			setCurrentKey(timer.getKey());
+		}
+	}
+
+	private void invokeProcessElement(StreamRecord<IN> element) throws Exception {
 		collector.setTimestamp(element);
 		context.element = element;
 		userFunction.processElement(element.getValue(), context, collector);
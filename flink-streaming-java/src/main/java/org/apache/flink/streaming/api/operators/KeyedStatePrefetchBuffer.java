@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.KeyedStatePrefetcher;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeCallback;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Buffers the records of a keyed operator, so that the state of their keys can be loaded in one batch by a
+ * {@link KeyedStatePrefetcher} before the records are processed. The buffered records are processed in the
+ * order of their arrival, so the state accesses of every key keep their order.
+ *
+ * <p>The operator must flush the buffer before everything which has to see the effects of the buffered
+ * records, i.e. before it forwards watermarks, before it fires timers, before checkpoint barriers and when
+ * it is closed. To bound the latency which the buffering adds, the buffer registers a processing time timer
+ * with the given flush callback once the first record is buffered, which fires after the maximum delay of
+ * the {@link KeyedStatePrefetcher}, unless the buffer was flushed before.
+ *
+ * @param <K> The type of the keys.
+ * @param <IN> The type of the records.
+ * @param <N> The type of the namespace of the prefetched state.
+ */
+@Internal
+public final class KeyedStatePrefetchBuffer<K, IN, N> {
+
+	/**
+	 * Assigns the namespaces of the state which the processing of a record accesses.
+	 */
+	@FunctionalInterface
+	public interface NamespaceAssigner<IN, N> {
+
+		Collection<N> assignNamespaces(StreamRecord<IN> record) throws Exception;
+	}
+
+	private final KeyedStatePrefetcher<K> prefetcher;
+
+	private final KeySelector<IN, K> keySelector;
+
+	/** Serializer to copy the buffered records, null if the records are not reused by the caller. */
+	@Nullable
+	private final TypeSerializer<IN> copySerializer;
+
+	private final TypeSerializer<N> namespaceSerializer;
+
+	private final NamespaceAssigner<IN, N> namespaceAssigner;
+
+	private final List<StreamRecord<IN>> records;
+
+	private final Set<Tuple2<K, N>> keysAndNamespaces;
+
+	private final ProcessingTimeService processingTimeService;
+
+	/** Flushes the buffer once the first buffered record reached the maximum delay. */
+	private final ProcessingTimeCallback delayedFlush;
+
+	/** The timer of the delayed flush, null if the buffer is empty. */
+	@Nullable
+	private ScheduledFuture<?> delayedFlushTimer;
+
+	KeyedStatePrefetchBuffer(
+			KeyedStatePrefetcher<K> prefetcher,
+			KeySelector<IN, K> keySelector,
+			@Nullable TypeSerializer<IN> copySerializer,
+			TypeSerializer<N> namespaceSerializer,
+			NamespaceAssigner<IN, N> namespaceAssigner,
+			ProcessingTimeService processingTimeService,
+			ProcessingTimeCallback delayedFlush) {
+		this.prefetcher = checkNotNull(prefetcher);
+		this.keySelector = checkNotNull(keySelector);
+		this.copySerializer = copySerializer;
+		this.namespaceSerializer = checkNotNull(namespaceSerializer);
+		this.namespaceAssigner = checkNotNull(namespaceAssigner);
+		this.processingTimeService = checkNotNull(processingTimeService);
+		this.delayedFlush = checkNotNull(delayedFlush);
+		this.records = new ArrayList<>(prefetcher.getPrefetchBatchSize());
+		this.keysAndNamespaces = new HashSet<>();
+	}
+
+	/**
+	 * Returns true, if no record is buffered.
+	 */
+	public boolean isEmpty() {
+		return records.isEmpty();
+	}
+
+	/**
+	 * Adds a record to the buffer.
+	 *
+	 * @return True, if the buffer is full and should be flushed.
+	 */
+	public boolean add(StreamRecord<IN> record) throws Exception {
+		final StreamRecord<IN> bufferedRecord = copySerializer == null ?
+			record : record.copy(copySerializer.copy(record.getValue()));
+
+		final K key = keySelector.getKey(bufferedRecord.getValue());
+		for (N namespace : namespaceAssigner.assignNamespaces(bufferedRecord)) {
+			keysAndNamespaces.add(Tuple2.of(key, namespace));
+		}
+		records.add(bufferedRecord);
+
+		final boolean isFull = records.size() >= prefetcher.getPrefetchBatchSize();
+		if (!isFull && delayedFlushTimer == null) {
+			delayedFlushTimer = processingTimeService.registerTimer(
+				processingTimeService.getCurrentProcessingTime() + prefetcher.getPrefetchMaxDelay(),
+				delayedFlush);
+		}
+		return isFull;
+	}
+
+	/**
+	 * Prefetches the state of the buffered records and processes them in the order of their arrival. The
+	 * processor has to set the key context of the records.
+	 */
+	public void flush(ThrowingConsumer<StreamRecord<IN>, Exception> processor) throws Exception {
+		if (records.isEmpty()) {
+			return;
+		}
+
+		try {
+			prefetcher.prefetch(keysAndNamespaces, namespaceSerializer).get();
+
+			for (StreamRecord<IN> record : records) {
+				processor.accept(record);
+			}
+		} finally {
+			prefetcher.releasePrefetched();
+			records.clear();
+			keysAndNamespaces.clear();
+
+			if (delayedFlushTimer != null) {
+				delayedFlushTimer.cancel(false);
+				delayedFlushTimer = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+/**
+ * A {@link StreamOperator} that pre-reduces the records of a
+ * {@link org.apache.flink.streaming.api.datastream.KeyedStream} per key before they are shuffled. The
+ * records are reduced in an in-memory bundle that is flushed on a count or time trigger, on watermarks
+ * and before checkpoint barriers, so the operator does not have any state. It reduces the number of
+ * records that are sent to the keyed operator, in particular for skewed keys.
+ *
+ * @param <K> The type of the keys.
+ * @param <IN> The type of the records.
+ */
+@Internal
+public class LocalReduceOperator<K, IN> extends AbstractUdfStreamOperator<IN, ReduceFunction<IN>>
+		implements OneInputStreamOperator<IN, IN> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final KeySelector<IN, K> keySelector;
+
+	private final TypeSerializer<IN> serializer;
+
+	private final long maxBundleSize;
+
+	private final long bundleInterval;
+
+	private transient MiniBatchReduceBundle<K, IN> bundle;
+
+	private transient boolean copyValues;
+
+	public LocalReduceOperator(
+			ReduceFunction<IN> reducer,
+			KeySelector<IN, K> keySelector,
+			TypeSerializer<IN> serializer,
+			long maxBundleSize,
+			long bundleInterval) {
+		super(reducer);
+		this.keySelector = keySelector;
+		this.serializer = serializer;
+		this.maxBundleSize = maxBundleSize;
+		this.bundleInterval = bundleInterval;
+		this.chainingStrategy = ChainingStrategy.ALWAYS;
+	}
+
+	@Override
+	public void open() throws Exception {
+		super.open();
+		copyValues = getExecutionConfig().isObjectReuseEnabled();
+		bundle = new MiniBatchReduceBundle<>(
+			userFunction,
+			maxBundleSize,
+			bundleInterval,
+			getProcessingTimeService(),
+			(key, reduced) -> output.collect(reduced));
+	}
+
+	@Override
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		if (copyValues) {
+			element.replace(serializer.copy(element.getValue()));
+		}
+		bundle.add(keySelector.getKey(element.getValue()), element);
+	}
+
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		bundle.flush();
+		super.processWatermark(mark);
+	}
+
+	@Override
+	public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+		super.prepareSnapshotPreBarrier(checkpointId);
+		bundle.flush();
+	}
+
+	@Override
+	public void close() throws Exception {
+		bundle.flush();
+		super.close();
+	}
+}
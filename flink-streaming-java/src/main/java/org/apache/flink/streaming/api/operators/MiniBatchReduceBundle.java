@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeCallback;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
+import org.apache.flink.util.function.BiConsumerWithException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A bundle of records that are pre-reduced per key in memory, so that an operator only handles one record
+ * per key and bundle instead of every record. The bundle is flushed when it contains a given number of
+ * records and, optionally, after a given processing time interval since its first record arrived. The
+ * reduced record of a key carries the highest timestamp of the records that were reduced into it.
+ *
+ * <p>The operator must flush the bundle before everything which has to see the effects of the bundled
+ * records, i.e. before it forwards watermarks, before checkpoint barriers and when it is closed.
+ *
+ * @param <K> The type of the keys.
+ * @param <T> The type of the records.
+ */
+@Internal
+final class MiniBatchReduceBundle<K, T> implements ProcessingTimeCallback {
+
+	private final ReduceFunction<T> reducer;
+
+	private final long maxBundleSize;
+
+	/** The maximum time in milliseconds that a record stays in the bundle, 0 if there is no time trigger. */
+	private final long bundleInterval;
+
+	private final ProcessingTimeService processingTimeService;
+
+	/** Receives the reduced record of every key when the bundle is flushed. */
+	private final BiConsumerWithException<K, StreamRecord<T>, Exception> flushConsumer;
+
+	private final Map<K, StreamRecord<T>> bundle;
+
+	private long numElements;
+
+	/** The processing time at which the current bundle is flushed, if there is a time trigger. */
+	private long flushTime;
+
+	MiniBatchReduceBundle(
+			ReduceFunction<T> reducer,
+			long maxBundleSize,
+			long bundleInterval,
+			ProcessingTimeService processingTimeService,
+			BiConsumerWithException<K, StreamRecord<T>, Exception> flushConsumer) {
+
+		checkArgument(maxBundleSize > 0, "The maximum bundle size must be greater than zero.");
+		checkArgument(bundleInterval >= 0, "The bundle interval must not be negative.");
+
+		this.reducer = checkNotNull(reducer);
+		this.maxBundleSize = maxBundleSize;
+		this.bundleInterval = bundleInterval;
+		this.processingTimeService = checkNotNull(processingTimeService);
+		this.flushConsumer = checkNotNull(flushConsumer);
+		this.bundle = new LinkedHashMap<>();
+		this.numElements = 0L;
+		this.flushTime = Long.MIN_VALUE;
+	}
+
+	/**
+	 * Reduces the record into the bundled record of the given key. The record must not be reused by the
+	 * caller afterwards.
+	 */
+	void add(K key, StreamRecord<T> record) throws Exception {
+		final StreamRecord<T> bundled = bundle.get(key);
+
+		if (bundled == null) {
+			bundle.put(key, record.hasTimestamp() ?
+				new StreamRecord<>(record.getValue(), record.getTimestamp()) :
+				new StreamRecord<>(record.getValue()));
+		} else {
+			final T reduced = reducer.reduce(bundled.getValue(), record.getValue());
+			if (record.hasTimestamp() && (!bundled.hasTimestamp() || record.getTimestamp() > bundled.getTimestamp())) {
+				bundled.replace(reduced, record.getTimestamp());
+			} else {
+				bundled.replace(reduced);
+			}
+		}
+
+		if (++numElements == 1L && bundleInterval > 0L) {
+			flushTime = processingTimeService.getCurrentProcessingTime() + bundleInterval;
+			processingTimeService.registerTimer(flushTime, this);
+		}
+
+		if (numElements >= maxBundleSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Hands the reduced record of every key in the bundle to the flush consumer and empties the bundle.
+	 */
+	void flush() throws Exception {
+		if (numElements == 0L) {
+			return;
+		}
+
+		numElements = 0L;
+		for (Map.Entry<K, StreamRecord<T>> entry : bundle.entrySet()) {
+			flushConsumer.accept(entry.getKey(), entry.getValue());
+		}
+		bundle.clear();
+	}
+
+	@Override
+	public void onProcessingTime(long timestamp) throws Exception {
+		// timers of bundles that were already flushed by the count trigger are ignored
+		if (timestamp >= flushTime) {
+			flush();
+		}
+	}
+}
@@ -23,6 +23,7 @@ import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStateHandle;
 import org.apache.flink.runtime.state.SnapshotResult;
 import org.apache.flink.runtime.state.StateUtil;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.util.ExceptionUtils;
 
 import javax.annotation.Nonnull;
@@ -46,6 +47,9 @@ public class OperatorSnapshotFutures {
 	@Nonnull
 	private RunnableFuture<SnapshotResult<OperatorStateHandle>> operatorStateRawFuture;
 
+	@Nonnull
+	private RunnableFuture<SnapshotResult<StreamStateHandle>> inputChannelStateFuture = DoneFuture.of(SnapshotResult.empty());
+
 	public OperatorSnapshotFutures() {
 		this(
 			DoneFuture.of(SnapshotResult.empty()),
@@ -105,6 +109,16 @@ public class OperatorSnapshotFutures {
 		this.operatorStateRawFuture = operatorStateRawFuture;
 	}
 
+	@Nonnull
+	public RunnableFuture<SnapshotResult<StreamStateHandle>> getInputChannelStateFuture() {
+		return inputChannelStateFuture;
+	}
+
+	public void setInputChannelStateFuture(
+		@Nonnull RunnableFuture<SnapshotResult<StreamStateHandle>> inputChannelStateFuture) {
+		this.inputChannelStateFuture = inputChannelStateFuture;
+	}
+
 	public void cancel() throws Exception {
 		Exception exception = null;
 
@@ -138,6 +152,14 @@ public class OperatorSnapshotFutures {
 				exception);
 		}
 
+		try {
+			StateUtil.discardStateFuture(getInputChannelStateFuture());
+		} catch (Exception e) {
+			exception = ExceptionUtils.firstOrSuppressed(
+				new Exception("Could not properly cancel input channel state future.", e),
+				exception);
+		}
+
 		if (exception != null) {
 			throw exception;
 		}
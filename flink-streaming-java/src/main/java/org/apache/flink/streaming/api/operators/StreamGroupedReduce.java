@@ -22,11 +22,17 @@ import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 /**
  * A {@link StreamOperator} for executing a {@link ReduceFunction} on a
  * {@link org.apache.flink.streaming.api.datastream.KeyedStream}.
+ *
+ * <p>In mini-batch mode, the operator pre-reduces the records per key in memory and applies the bundle
+ * to the state when it is flushed, on a count or time trigger, on watermarks and before checkpoint
+ * barriers. It then reads and writes the state of every key once per bundle and emits one reduced
+ * record per key and bundle, instead of one record for every input record.
  */
 
 @Internal
@@ -41,9 +47,29 @@ public class StreamGroupedReduce<IN> extends AbstractUdfStreamOperator<IN, Reduc
 
 	private TypeSerializer<IN> serializer;
 
+	/** The maximum number of records in a bundle, 0 if mini-batch mode is disabled. */
+	private final long maxBundleSize;
+
+	/** The maximum time in milliseconds that a record stays in a bundle, 0 if there is no time trigger. */
+	private final long bundleInterval;
+
+	private transient MiniBatchReduceBundle<Object, IN> bundle;
+
+	private transient boolean copyValues;
+
 	public StreamGroupedReduce(ReduceFunction<IN> reducer, TypeSerializer<IN> serializer) {
+		this(reducer, serializer, 0L, 0L);
+	}
+
+	public StreamGroupedReduce(
+			ReduceFunction<IN> reducer,
+			TypeSerializer<IN> serializer,
+			long maxBundleSize,
+			long bundleInterval) {
 		super(reducer);
 		this.serializer = serializer;
+		this.maxBundleSize = maxBundleSize;
+		this.bundleInterval = bundleInterval;
 	}
 
 	@Override
@@ -51,10 +77,28 @@ public class StreamGroupedReduce<IN> extends AbstractUdfStreamOperator<IN, Reduc
 		super.open();
 		ValueStateDescriptor<IN> stateId = new ValueStateDescriptor<>(STATE_NAME, serializer);
 		values = getPartitionedState(stateId);
+
+		if (maxBundleSize > 0) {
+			copyValues = getExecutionConfig().isObjectReuseEnabled();
+			bundle = new MiniBatchReduceBundle<>(
+				userFunction,
+				maxBundleSize,
+				bundleInterval,
+				getProcessingTimeService(),
+				this::reduceBundled);
+		}
 	}
 
 	@Override
 	public void processElement(StreamRecord<IN> element) throws Exception {
+		if (bundle != null) {
+			if (copyValues) {
+				element.replace(serializer.copy(element.getValue()));
+			}
+			bundle.add(getCurrentKey(), element);
+			return;
+		}
+
 		IN value = element.getValue();
 		IN currentValue = values.value();
 
@@ -67,4 +111,36 @@ public class StreamGroupedReduce<IN> extends AbstractUdfStreamOperator<IN, Reduc
 			output.collect(element.replace(value));
 		}
 	}
+
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		if (bundle != null) {
+			bundle.flush();
+		}
+		super.processWatermark(mark);
+	}
+
+	@Override
+	public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+		super.prepareSnapshotPreBarrier(checkpointId);
+		if (bundle != null) {
+			bundle.flush();
+		}
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (bundle != null) {
+			bundle.flush();
+		}
+		super.close();
+	}
+
+	private void reduceBundled(Object key, StreamRecord<IN> bundled) throws Exception {
+		setCurrentKey(key);
+		IN currentValue = values.value();
+		IN reduced = currentValue != null ? userFunction.reduce(currentValue, bundled.getValue()) : bundled.getValue();
+		values.update(reduced);
+		output.collect(bundled.replace(reduced));
+	}
 }
@@ -24,6 +24,7 @@ import org.apache.flink.configuration.NetworkEnvironmentOptions;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.streaming.api.CheckpointingMode;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
 
@@ -52,7 +53,9 @@ public class InputProcessorUtil {
 					+ " must be positive or -1 (infinite)");
 			}
 
-			if (taskManagerConfig.getBoolean(NetworkEnvironmentOptions.NETWORK_CREDIT_MODEL)) {
+			if (checkpointedTask != null && checkpointedTask.getConfiguration().isUnalignedCheckpointsEnabled()) {
+				barrierHandler = new UnalignedBarrierHandler(inputGate, ioManager, maxAlign);
+			} else if (taskManagerConfig.getBoolean(NetworkEnvironmentOptions.NETWORK_CREDIT_MODEL)) {
 				barrierHandler = new BarrierBuffer(inputGate, new CachedBufferBlocker(inputGate.getPageSize()), maxAlign);
 			} else {
 				barrierHandler = new BarrierBuffer(inputGate, new BufferSpiller(ioManager, inputGate.getPageSize()), maxAlign);
@@ -69,4 +72,29 @@ public class InputProcessorUtil {
 
 		return barrierHandler;
 	}
+
+	/**
+	 * Lets the local input channels of the given gates receive the records of co-located producers
+	 * as objects instead of serialized buffers, if this is enabled in the configuration. The object
+	 * batches are not supported by the {@link BufferSpiller}, so they are not used without credit-based
+	 * flow control.
+	 */
+	public static void enableLocalObjectHandover(Iterable<InputGate> inputGates, Configuration taskManagerConfig) {
+		if (!taskManagerConfig.getBoolean(NetworkEnvironmentOptions.NETWORK_LOCAL_OBJECT_HANDOVER_ENABLED)
+				|| !taskManagerConfig.getBoolean(NetworkEnvironmentOptions.NETWORK_CREDIT_MODEL)) {
+			return;
+		}
+
+		int capacity = taskManagerConfig.getInteger(NetworkEnvironmentOptions.NETWORK_LOCAL_OBJECT_HANDOVER_QUEUE_CAPACITY);
+		if (capacity <= 0) {
+			throw new IllegalConfigurationException(
+				NetworkEnvironmentOptions.NETWORK_LOCAL_OBJECT_HANDOVER_QUEUE_CAPACITY.key() + " must be positive");
+		}
+
+		for (InputGate inputGate : inputGates) {
+			if (inputGate instanceof SingleInputGate) {
+				((SingleInputGate) inputGate).enableLocalObjectHandover(capacity);
+			}
+		}
+	}
 }
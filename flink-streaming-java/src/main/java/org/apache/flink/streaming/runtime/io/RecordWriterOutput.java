@@ -49,6 +49,8 @@ public class RecordWriterOutput<OUT> implements OperatorChain.WatermarkGaugeExpo
 
 	private SerializationDelegate<StreamElement> serializationDelegate;
 
+	private TypeSerializer<StreamElement> outRecordSerializer;
+
 	private final StreamStatusProvider streamStatusProvider;
 
 	private final OutputTag outputTag;
@@ -69,16 +71,36 @@ public class RecordWriterOutput<OUT> implements OperatorChain.WatermarkGaugeExpo
 		this.recordWriter = (RecordWriter<SerializationDelegate<StreamElement>>)
 				(RecordWriter<?>) recordWriter;
 
-		TypeSerializer<StreamElement> outRecordSerializer =
-				new StreamElementSerializer<>(outSerializer);
-
 		if (outSerializer != null) {
+			outRecordSerializer = new StreamElementSerializer<>(outSerializer);
 			serializationDelegate = new SerializationDelegate<StreamElement>(outRecordSerializer);
 		}
 
 		this.streamStatusProvider = checkNotNull(streamStatusProvider);
 	}
 
+	/**
+	 * Lets the record writer hand over the records to co-located consumers as objects, if the handover
+	 * is enabled for it. The records are always handed over as deep copies, also with object reuse,
+	 * because the consumer runs in another thread while the emitting operators may modify or reuse the
+	 * emitted values.
+	 */
+	public void enableObjectHandover() {
+		if (outRecordSerializer == null) {
+			return;
+		}
+
+		recordWriter.setObjectCopier(delegate -> {
+			StreamElement element = delegate.getInstance();
+			if (!element.isRecord()) {
+				// watermarks, stream status and latency markers are immutable
+				return element;
+			}
+
+			return outRecordSerializer.copy(element);
+		});
+	}
+
 	@Override
 	public void collect(StreamRecord<OUT> record) {
 		if (this.outputTag != null) {
@@ -21,6 +21,7 @@ package org.apache.flink.streaming.runtime.io;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.event.AbstractEvent;
@@ -36,6 +37,10 @@ import org.apache.flink.runtime.metrics.groups.OperatorMetricGroup;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.streaming.api.CheckpointingMode;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
@@ -51,7 +56,12 @@ import org.apache.flink.streaming.runtime.tasks.StreamTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.RunnableFuture;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -82,6 +92,12 @@ public class StreamInputProcessor<IN> {
 
 	private final CheckpointBarrierHandler barrierHandler;
 
+	/** The barrier handler if this processor records in-flight data for unaligned checkpoints, null otherwise. */
+	@Nullable
+	private final UnalignedBarrierHandler unalignedBarrierHandler;
+
+	private final StreamElementSerializer<IN> elementSerializer;
+
 	private final Object lock;
 
 	// ---------------- Status and Watermark Valve ------------------
@@ -123,15 +139,20 @@ public class StreamInputProcessor<IN> {
 			TaskIOMetricGroup metrics,
 			WatermarkGauge watermarkGauge) throws IOException {
 
+		InputProcessorUtil.enableLocalObjectHandover(Arrays.asList(inputGates), taskManagerConfig);
 		InputGate inputGate = InputGateUtil.createInputGate(inputGates);
 
 		this.barrierHandler = InputProcessorUtil.createCheckpointBarrierHandler(
 			checkpointedTask, checkpointMode, ioManager, inputGate, taskManagerConfig);
 
+		this.unalignedBarrierHandler = barrierHandler instanceof UnalignedBarrierHandler
+			? (UnalignedBarrierHandler) barrierHandler
+			: null;
+
 		this.lock = checkNotNull(lock);
 
-		StreamElementSerializer<IN> ser = new StreamElementSerializer<>(inputSerializer);
-		this.deserializationDelegate = new NonReusingDeserializationDelegate<>(ser);
+		this.elementSerializer = new StreamElementSerializer<>(inputSerializer);
+		this.deserializationDelegate = new NonReusingDeserializationDelegate<>(elementSerializer);
 
 		// Initialize one deserializer per input channel
 		this.recordDeserializers = new SpillingAdaptiveSpanningRecordDeserializer[inputGate.getNumberOfInputChannels()];
@@ -196,6 +217,7 @@ public class StreamInputProcessor<IN> {
 					} else {
 						// now we can do the actual processing
 						StreamRecord<IN> record = recordOrMark.asRecord();
+						recordIfInFlight(record);
 						synchronized (lock) {
 							numRecordsIn.inc();
 							streamOperator.setKeyContextElement1(record);
@@ -231,6 +253,41 @@ public class StreamInputProcessor<IN> {
 		}
 	}
 
+	private void recordIfInFlight(StreamRecord<IN> record) throws Exception {
+		if (unalignedBarrierHandler != null) {
+			DataOutputView inFlightOutput = unalignedBarrierHandler.getInFlightRecordOutput(currentChannel);
+			if (inFlightOutput != null) {
+				elementSerializer.serialize(record, inFlightOutput);
+			}
+		}
+	}
+
+	/**
+	 * Returns the future for the in-flight records of the given unaligned checkpoint.
+	 */
+	public RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotInFlightData(
+			long checkpointId,
+			CheckpointStreamFactory streamFactory) {
+
+		if (unalignedBarrierHandler == null) {
+			return DoneFuture.of(SnapshotResult.empty());
+		}
+		return unalignedBarrierHandler.snapshotInFlightData(checkpointId, streamFactory);
+	}
+
+	/**
+	 * Processes the in-flight records of an unaligned checkpoint before any new input is read.
+	 */
+	public void restoreInFlightData(Collection<StreamStateHandle> stateHandles) throws Exception {
+		UnalignedBarrierHandler.readInFlightRecords(stateHandles, inView -> {
+			StreamRecord<IN> record = elementSerializer.deserialize(inView).asRecord();
+			synchronized (lock) {
+				streamOperator.setKeyContextElement1(record);
+				streamOperator.processElement(record);
+			}
+		});
+	}
+
 	public void cleanup() throws IOException {
 		// clear the buffers first. this part should not ever fail
 		for (RecordDeserializer<?> deserializer : recordDeserializers) {
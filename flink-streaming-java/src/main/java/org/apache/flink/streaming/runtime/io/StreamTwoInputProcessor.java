@@ -21,6 +21,7 @@ package org.apache.flink.streaming.runtime.io;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.event.AbstractEvent;
@@ -36,6 +37,10 @@ import org.apache.flink.runtime.metrics.groups.OperatorMetricGroup;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.streaming.api.CheckpointingMode;
 import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
@@ -51,8 +56,11 @@ import org.apache.flink.streaming.runtime.tasks.TwoInputStreamTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.RunnableFuture;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -85,6 +93,13 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 
 	private final CheckpointBarrierHandler barrierHandler;
 
+	/** The barrier handler if this processor records in-flight data for unaligned checkpoints, null otherwise. */
+	@Nullable
+	private final UnalignedBarrierHandler unalignedBarrierHandler;
+
+	private final StreamElementSerializer<IN1> elementSerializer1;
+	private final StreamElementSerializer<IN2> elementSerializer2;
+
 	private final Object lock;
 
 	// ---------------- Status and Watermark Valves ------------------
@@ -142,18 +157,24 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 			WatermarkGauge input1WatermarkGauge,
 			WatermarkGauge input2WatermarkGauge) throws IOException {
 
+		InputProcessorUtil.enableLocalObjectHandover(inputGates1, taskManagerConfig);
+		InputProcessorUtil.enableLocalObjectHandover(inputGates2, taskManagerConfig);
 		final InputGate inputGate = InputGateUtil.createInputGate(inputGates1, inputGates2);
 
 		this.barrierHandler = InputProcessorUtil.createCheckpointBarrierHandler(
 			checkpointedTask, checkpointMode, ioManager, inputGate, taskManagerConfig);
 
+		this.unalignedBarrierHandler = barrierHandler instanceof UnalignedBarrierHandler
+			? (UnalignedBarrierHandler) barrierHandler
+			: null;
+
 		this.lock = checkNotNull(lock);
 
-		StreamElementSerializer<IN1> ser1 = new StreamElementSerializer<>(inputSerializer1);
-		this.deserializationDelegate1 = new NonReusingDeserializationDelegate<>(ser1);
+		this.elementSerializer1 = new StreamElementSerializer<>(inputSerializer1);
+		this.deserializationDelegate1 = new NonReusingDeserializationDelegate<>(elementSerializer1);
 
-		StreamElementSerializer<IN2> ser2 = new StreamElementSerializer<>(inputSerializer2);
-		this.deserializationDelegate2 = new NonReusingDeserializationDelegate<>(ser2);
+		this.elementSerializer2 = new StreamElementSerializer<>(inputSerializer2);
+		this.deserializationDelegate2 = new NonReusingDeserializationDelegate<>(elementSerializer2);
 
 		// Initialize one deserializer per input channel
 		this.recordDeserializers = new SpillingAdaptiveSpanningRecordDeserializer[inputGate.getNumberOfInputChannels()];
@@ -232,6 +253,7 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 						}
 						else {
 							StreamRecord<IN1> record = recordOrWatermark.asRecord();
+							recordIfInFlight(record, elementSerializer1, 1);
 							synchronized (lock) {
 								numRecordsIn.inc();
 								streamOperator.setKeyContextElement1(record);
@@ -259,6 +281,7 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 						}
 						else {
 							StreamRecord<IN2> record = recordOrWatermark.asRecord();
+							recordIfInFlight(record, elementSerializer2, 2);
 							synchronized (lock) {
 								numRecordsIn.inc();
 								streamOperator.setKeyContextElement2(record);
@@ -296,6 +319,57 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		}
 	}
 
+	private <T> void recordIfInFlight(
+			StreamRecord<T> record,
+			StreamElementSerializer<T> elementSerializer,
+			int inputNumber) throws Exception {
+
+		if (unalignedBarrierHandler != null) {
+			DataOutputView inFlightOutput = unalignedBarrierHandler.getInFlightRecordOutput(currentChannel);
+			if (inFlightOutput != null) {
+				inFlightOutput.writeByte(inputNumber);
+				elementSerializer.serialize(record, inFlightOutput);
+			}
+		}
+	}
+
+	/**
+	 * Returns the future for the in-flight records of the given unaligned checkpoint.
+	 */
+	public RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotInFlightData(
+			long checkpointId,
+			CheckpointStreamFactory streamFactory) {
+
+		if (unalignedBarrierHandler == null) {
+			return DoneFuture.of(SnapshotResult.empty());
+		}
+		return unalignedBarrierHandler.snapshotInFlightData(checkpointId, streamFactory);
+	}
+
+	/**
+	 * Processes the in-flight records of an unaligned checkpoint before any new input is read.
+	 */
+	public void restoreInFlightData(Collection<StreamStateHandle> stateHandles) throws Exception {
+		UnalignedBarrierHandler.readInFlightRecords(stateHandles, inView -> {
+			int inputNumber = inView.readByte();
+			if (inputNumber == 1) {
+				StreamRecord<IN1> record = elementSerializer1.deserialize(inView).asRecord();
+				synchronized (lock) {
+					streamOperator.setKeyContextElement1(record);
+					streamOperator.processElement1(record);
+				}
+			} else if (inputNumber == 2) {
+				StreamRecord<IN2> record = elementSerializer2.deserialize(inView).asRecord();
+				synchronized (lock) {
+					streamOperator.setKeyContextElement2(record);
+					streamOperator.processElement2(record);
+				}
+			} else {
+				throw new IOException("Corrupt in-flight data: unknown input " + inputNumber);
+			}
+		});
+	}
+
 	public void cleanup() throws IOException {
 		// clear the buffers first. this part should not ever fail
 		for (RecordDeserializer<?> deserializer : recordDeserializers) {
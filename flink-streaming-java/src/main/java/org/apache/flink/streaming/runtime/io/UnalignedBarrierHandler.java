@@ -0,0 +1,691 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
+import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
+import org.apache.flink.runtime.checkpoint.decline.AlignmentLimitExceededException;
+import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineException;
+import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineOnCancellationBarrierException;
+import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineSubsumedException;
+import org.apache.flink.runtime.checkpoint.decline.InputEndOfStreamException;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
+import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The unaligned barrier handler is a {@link CheckpointBarrierHandler} for exactly-once checkpoints that
+ * never blocks an input channel.
+ *
+ * <p>The task is notified to take its checkpoint as soon as the first barrier of a checkpoint arrives,
+ * without waiting for the data that is still queued in the other input channels. All records that
+ * are received on a channel after the snapshot and before the barrier of that channel are in flight with
+ * respect to the checkpoint: they are not reflected in the operator state, and the upstream task will not
+ * emit them again after a restore. The input processors therefore hand these records to the handler
+ * (see {@link #getInFlightRecordOutput(int)}), which persists them together with the operator state once
+ * the barriers of all channels have been received. On restore, the records are replayed before any new
+ * input is read (see {@link #readInFlightRecords(Collection, InFlightRecordReader)}).
+ *
+ * <p>As a consequence, no channel is blocked while waiting for the barriers of the other channels.
+ * Barriers do not overtake the buffers that are queued in front of them in their channel though, so
+ * the checkpoint is only complete once the barriers of all channels have been received, and its
+ * duration still depends on the backpressure of the job.
+ *
+ * <p>The in-flight records are kept in memory only up to {@link #IN_MEMORY_BYTES_THRESHOLD} bytes, larger
+ * amounts are spilled to a file in one of the I/O manager's temp directories. If the in-flight records of a
+ * checkpoint exceed the configured maximum, the checkpoint is declined, the same way as the
+ * {@link BarrierBuffer} declines checkpoints whose alignment buffers too much data.
+ */
+@Internal
+public class UnalignedBarrierHandler implements CheckpointBarrierHandler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(UnalignedBarrierHandler.class);
+
+	/** The number of bytes of in-flight records that are kept in memory before they are spilled. */
+	static final int IN_MEMORY_BYTES_THRESHOLD = 1024 * 1024;
+
+	/** The gate that the handler draws its input from. */
+	private final InputGate inputGate;
+
+	/** The I/O manager that provides the temp directories for spilling in-flight records. */
+	private final IOManager ioManager;
+
+	/** The maximum number of bytes of in-flight records of one checkpoint, or -1 for no limit. */
+	private final long maxInFlightBytes;
+
+	/** The total number of channels that this handler handles data from. */
+	private final int totalNumberOfInputChannels;
+
+	/** Flags that indicate whether the data of a channel is in flight for the current checkpoint. */
+	private final boolean[] pendingChannels;
+
+	/** Flags that indicate whether a channel has reached the end of its partition. */
+	private final boolean[] closedChannels;
+
+	/** Handler that receives the checkpoint notifications. */
+	private AbstractInvokable toNotifyOnCheckpoint;
+
+	/** The ID of the checkpoint for which we expect barriers. */
+	private long currentCheckpointId = -1L;
+
+	/** The number of channels that have not yet delivered the barrier of the current checkpoint. */
+	private int numPendingChannels;
+
+	/** The in-flight data of the current checkpoint, or null if no checkpoint is in progress. */
+	@Nullable
+	private InFlightData pendingInFlightData;
+
+	/** The timestamp as in {@link System#nanoTime()} at which the recording of in-flight data started. */
+	private long startOfRecordingTimestamp;
+
+	/** The time (in nanoseconds) that the latest recording of in-flight data took. */
+	private long latestRecordingDurationNanos;
+
+	/**
+	 * Creates a new unaligned barrier handler.
+	 *
+	 * @param inputGate The input gate to draw the buffers and events from.
+	 * @param ioManager The I/O manager that provides the temp directories for spilling in-flight records.
+	 * @param maxInFlightBytes The maximum number of bytes of in-flight records of one checkpoint, or -1 for no limit.
+	 */
+	public UnalignedBarrierHandler(InputGate inputGate, IOManager ioManager, long maxInFlightBytes) {
+		checkArgument(maxInFlightBytes == -1 || maxInFlightBytes > 0);
+
+		this.inputGate = inputGate;
+		this.ioManager = checkNotNull(ioManager);
+		this.maxInFlightBytes = maxInFlightBytes;
+		this.totalNumberOfInputChannels = inputGate.getNumberOfInputChannels();
+		this.pendingChannels = new boolean[totalNumberOfInputChannels];
+		this.closedChannels = new boolean[totalNumberOfInputChannels];
+	}
+
+	// ------------------------------------------------------------------------
+	//  Buffer and barrier handling
+	// ------------------------------------------------------------------------
+
+	@Override
+	public BufferOrEvent getNextNonBlocked() throws Exception {
+		while (true) {
+			Optional<BufferOrEvent> next = inputGate.getNextBufferOrEvent();
+			if (!next.isPresent()) {
+				// buffer or input exhausted
+				return null;
+			}
+
+			BufferOrEvent bufferOrEvent = next.get();
+			if (bufferOrEvent.isBuffer()) {
+				return bufferOrEvent;
+			}
+			else if (bufferOrEvent.getEvent().getClass() == CheckpointBarrier.class) {
+				processBarrier((CheckpointBarrier) bufferOrEvent.getEvent(), bufferOrEvent.getChannelIndex());
+			}
+			else if (bufferOrEvent.getEvent().getClass() == CancelCheckpointMarker.class) {
+				processCancellationBarrier((CancelCheckpointMarker) bufferOrEvent.getEvent());
+			}
+			else {
+				if (bufferOrEvent.getEvent().getClass() == EndOfPartitionEvent.class) {
+					processEndOfPartition(bufferOrEvent.getChannelIndex());
+				}
+				return bufferOrEvent;
+			}
+		}
+	}
+
+	private void processBarrier(CheckpointBarrier receivedBarrier, int channelIndex) throws Exception {
+		final long barrierId = receivedBarrier.getId();
+
+		// fast path for single channel cases, there is never any data in flight
+		if (totalNumberOfInputChannels == 1) {
+			if (barrierId > currentCheckpointId) {
+				currentCheckpointId = barrierId;
+				notifyCheckpoint(receivedBarrier);
+			}
+			return;
+		}
+
+		if (numPendingChannels > 0) {
+			if (barrierId == currentCheckpointId) {
+				// regular case
+				onBarrier(channelIndex);
+			}
+			else if (barrierId > currentCheckpointId) {
+				// we did not receive all barriers of the current checkpoint, another started before
+				LOG.warn("{}: Received checkpoint barrier for checkpoint {} before completing current checkpoint {}. " +
+						"Skipping current checkpoint.",
+					inputGate.getOwningTaskName(),
+					barrierId,
+					currentCheckpointId);
+
+				CheckpointDeclineException cause = new CheckpointDeclineSubsumedException(barrierId);
+				notifyAbort(currentCheckpointId, cause);
+				abortInFlightRecording(cause);
+
+				beginNewCheckpoint(receivedBarrier, channelIndex);
+			}
+			// else: ignore trailing barrier from an earlier checkpoint (obsolete now)
+		}
+		else if (barrierId > currentCheckpointId) {
+			// first barrier of a new checkpoint
+			beginNewCheckpoint(receivedBarrier, channelIndex);
+		}
+		// else: either the current checkpoint was canceled or completed, or
+		// this barrier is from an old subsumed checkpoint
+	}
+
+	private void processCancellationBarrier(CancelCheckpointMarker cancelBarrier) throws Exception {
+		final long barrierId = cancelBarrier.getCheckpointId();
+
+		// fast path for single channel cases
+		if (totalNumberOfInputChannels == 1) {
+			if (barrierId > currentCheckpointId) {
+				currentCheckpointId = barrierId;
+				notifyAbortOnCancellationBarrier(barrierId);
+			}
+			return;
+		}
+
+		if (numPendingChannels > 0) {
+			if (barrierId == currentCheckpointId) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("{}: Checkpoint {} canceled, discarding in-flight data.",
+						inputGate.getOwningTaskName(),
+						barrierId);
+				}
+
+				CheckpointDeclineException cause = new CheckpointDeclineOnCancellationBarrierException();
+				abortInFlightRecording(cause);
+				notifyAbort(barrierId, cause);
+			}
+			else if (barrierId > currentCheckpointId) {
+				// we canceled the next which also cancels the current
+				LOG.warn("{}: Received cancellation barrier for checkpoint {} before completing current checkpoint {}. " +
+						"Skipping current checkpoint.",
+					inputGate.getOwningTaskName(),
+					barrierId,
+					currentCheckpointId);
+
+				CheckpointDeclineException cause = new CheckpointDeclineSubsumedException(barrierId);
+				notifyAbort(currentCheckpointId, cause);
+				abortInFlightRecording(cause);
+
+				// the next checkpoint starts as canceled
+				currentCheckpointId = barrierId;
+				notifyAbortOnCancellationBarrier(barrierId);
+			}
+			// else: ignore trailing (cancellation) barrier from an earlier checkpoint (obsolete now)
+		}
+		else if (barrierId > currentCheckpointId) {
+			// first barrier of a new checkpoint is directly a cancellation
+			currentCheckpointId = barrierId;
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("{}: Checkpoint {} canceled, skipping snapshot.",
+					inputGate.getOwningTaskName(),
+					barrierId);
+			}
+
+			notifyAbortOnCancellationBarrier(barrierId);
+		}
+		// else: trailing barrier from either
+		//   - a previous (subsumed) checkpoint
+		//   - the current checkpoint if it was already canceled or completed
+	}
+
+	private void processEndOfPartition(int channelIndex) throws Exception {
+		closedChannels[channelIndex] = true;
+
+		if (pendingChannels[channelIndex]) {
+			// the barrier of this channel will never arrive
+			CheckpointDeclineException cause = new InputEndOfStreamException();
+			notifyAbort(currentCheckpointId, cause);
+			abortInFlightRecording(cause);
+		}
+	}
+
+	private void beginNewCheckpoint(CheckpointBarrier receivedBarrier, int channelIndex) throws Exception {
+		currentCheckpointId = receivedBarrier.getId();
+
+		numPendingChannels = 0;
+		for (int i = 0; i < totalNumberOfInputChannels; i++) {
+			pendingChannels[i] = i != channelIndex && !closedChannels[i];
+			if (pendingChannels[i]) {
+				numPendingChannels++;
+			}
+		}
+
+		if (numPendingChannels > 0) {
+			pendingInFlightData = new InFlightData(currentCheckpointId);
+			startOfRecordingTimestamp = System.nanoTime();
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("{}: Triggering checkpoint {} on first barrier, recording in-flight data of {} channels.",
+					inputGate.getOwningTaskName(),
+					currentCheckpointId,
+					numPendingChannels);
+			}
+		}
+
+		// the in-flight data must be registered before the task takes its snapshot,
+		// see #snapshotInFlightData(long, CheckpointStreamFactory)
+		notifyCheckpoint(receivedBarrier);
+	}
+
+	private void onBarrier(int channelIndex) throws IOException {
+		if (pendingChannels[channelIndex]) {
+			pendingChannels[channelIndex] = false;
+			numPendingChannels--;
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("{}: Received barrier from channel {}.",
+					inputGate.getOwningTaskName(),
+					channelIndex);
+			}
+
+			if (numPendingChannels == 0) {
+				completeInFlightRecording();
+			}
+		}
+		else {
+			throw new IOException("Stream corrupt: Repeated barrier for same checkpoint on input " + channelIndex);
+		}
+	}
+
+	private void completeInFlightRecording() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("{}: Received all barriers of checkpoint {}, recorded {} in-flight records ({} bytes).",
+				inputGate.getOwningTaskName(),
+				currentCheckpointId,
+				pendingInFlightData.numRecords,
+				pendingInFlightData.getSize());
+		}
+
+		pendingInFlightData.recordingFuture.complete(null);
+		pendingInFlightData = null;
+		resetRecordingTimestamp();
+	}
+
+	/**
+	 * Aborts the recording of the in-flight data of the current checkpoint. The snapshot of the in-flight
+	 * data fails with the given cause, so that the checkpoint is never acknowledged without its in-flight
+	 * records.
+	 */
+	private void abortInFlightRecording(Throwable cause) {
+		Arrays.fill(pendingChannels, false);
+		numPendingChannels = 0;
+
+		if (pendingInFlightData != null) {
+			pendingInFlightData.recordingFuture.completeExceptionally(cause);
+			pendingInFlightData.discard();
+			pendingInFlightData = null;
+		}
+		resetRecordingTimestamp();
+	}
+
+	private void resetRecordingTimestamp() {
+		if (startOfRecordingTimestamp > 0) {
+			latestRecordingDurationNanos = System.nanoTime() - startOfRecordingTimestamp;
+			startOfRecordingTimestamp = 0;
+		}
+	}
+
+	private void notifyCheckpoint(CheckpointBarrier checkpointBarrier) throws Exception {
+		if (toNotifyOnCheckpoint != null) {
+			CheckpointMetaData checkpointMetaData =
+				new CheckpointMetaData(checkpointBarrier.getId(), checkpointBarrier.getTimestamp());
+
+			// there is no alignment, the snapshot is taken when the first barrier arrives
+			CheckpointMetrics checkpointMetrics = new CheckpointMetrics()
+				.setBytesBufferedInAlignment(0L)
+				.setAlignmentDurationNanos(0L);
+
+			toNotifyOnCheckpoint.triggerCheckpointOnBarrier(
+				checkpointMetaData,
+				checkpointBarrier.getCheckpointOptions(),
+				checkpointMetrics);
+		}
+	}
+
+	private void notifyAbortOnCancellationBarrier(long checkpointId) throws Exception {
+		notifyAbort(checkpointId, new CheckpointDeclineOnCancellationBarrierException());
+	}
+
+	private void notifyAbort(long checkpointId, CheckpointDeclineException cause) throws Exception {
+		if (toNotifyOnCheckpoint != null) {
+			toNotifyOnCheckpoint.abortCheckpointOnBarrier(checkpointId, cause);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  In-flight data
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the output to which the next record of the given channel must be written, if the record is
+	 * in flight for the current checkpoint. The caller must write exactly one record to the returned view.
+	 *
+	 * @param channelIndex The channel from which the record was received.
+	 * @return The output view for the record, or {@code null} if the record is not in flight.
+	 */
+	@Nullable
+	public DataOutputView getInFlightRecordOutput(int channelIndex) throws Exception {
+		if (pendingChannels[channelIndex]) {
+			// the previous record is completely written, spill it or decline the checkpoint if too much is in flight
+			if (maxInFlightBytes > 0 && pendingInFlightData.getSize() > maxInFlightBytes) {
+				LOG.info("{}: Checkpoint {} aborted because the in-flight data exceeded the maximum of {} bytes.",
+					inputGate.getOwningTaskName(),
+					currentCheckpointId,
+					maxInFlightBytes);
+
+				CheckpointDeclineException cause = new AlignmentLimitExceededException(maxInFlightBytes);
+				abortInFlightRecording(cause);
+				notifyAbort(currentCheckpointId, cause);
+				return null;
+			}
+			pendingInFlightData.spillIfNeeded(ioManager);
+
+			pendingInFlightData.numRecords++;
+			return pendingInFlightData.serializedRecords;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a future that persists the in-flight records of the given checkpoint. The future can only be
+	 * completed after the barriers of all channels have been received, so it must be run by the asynchronous
+	 * part of the checkpoint.
+	 *
+	 * @param checkpointId The checkpoint that is currently snapshotted by the task.
+	 * @param streamFactory The factory for the checkpoint stream to write the in-flight records to.
+	 * @return The future for the handle to the in-flight records.
+	 */
+	public RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotInFlightData(
+			long checkpointId,
+			CheckpointStreamFactory streamFactory) {
+
+		final InFlightData inFlightData = pendingInFlightData;
+		if (inFlightData == null || inFlightData.checkpointId != checkpointId) {
+			return DoneFuture.of(SnapshotResult.empty());
+		}
+
+		return new FutureTask<>(() -> writeInFlightData(inFlightData, streamFactory));
+	}
+
+	private static SnapshotResult<StreamStateHandle> writeInFlightData(
+			InFlightData inFlightData,
+			CheckpointStreamFactory streamFactory) throws Exception {
+
+		// blocks until the barriers of all pending channels have been received, fails if the checkpoint was aborted
+		inFlightData.recordingFuture.get();
+
+		try {
+			if (inFlightData.numRecords == 0) {
+				return SnapshotResult.empty();
+			}
+
+			try (CheckpointStreamFactory.CheckpointStateOutputStream out =
+					streamFactory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE)) {
+
+				DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(out);
+				outView.writeInt(inFlightData.numRecords);
+				inFlightData.writeRecordsTo(out);
+
+				return SnapshotResult.of(out.closeAndGetHandle());
+			}
+		} finally {
+			inFlightData.discard();
+		}
+	}
+
+	/**
+	 * Reads the in-flight records that were persisted by an unaligned checkpoint, in the order in which
+	 * they were received.
+	 *
+	 * @param stateHandles The handles to the in-flight records.
+	 * @param reader The reader that deserializes and processes a single record.
+	 */
+	public static void readInFlightRecords(
+			Collection<StreamStateHandle> stateHandles,
+			InFlightRecordReader reader) throws Exception {
+
+		for (StreamStateHandle stateHandle : stateHandles) {
+			try (DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(stateHandle.openInputStream())) {
+				int numRecords = inView.readInt();
+				for (int i = 0; i < numRecords; i++) {
+					reader.accept(inView);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a single in-flight record from the given input view and processes it.
+	 */
+	public interface InFlightRecordReader extends ThrowingConsumer<DataInputView, Exception> {}
+
+	@Override
+	public void registerCheckpointEventHandler(AbstractInvokable toNotifyOnCheckpoint) {
+		if (this.toNotifyOnCheckpoint == null) {
+			this.toNotifyOnCheckpoint = toNotifyOnCheckpoint;
+		}
+		else {
+			throw new IllegalStateException("UnalignedBarrierHandler already has a registered checkpoint notifyee");
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		// records are never held back
+		return true;
+	}
+
+	@Override
+	public void cleanup() {
+		abortInFlightRecording(new IllegalStateException("The barrier handler was closed before all barriers were received."));
+	}
+
+	/**
+	 * Gets the time that the latest recording of in-flight data took, i.e., the time between the first
+	 * and the last barrier of a checkpoint. The task is never blocked during that time.
+	 */
+	@Override
+	public long getAlignmentDurationNanos() {
+		long start = this.startOfRecordingTimestamp;
+		if (start <= 0) {
+			return latestRecordingDurationNanos;
+		} else {
+			return System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Gets the ID defining the current pending, or just completed, checkpoint.
+	 *
+	 * @return The ID of the pending of completed checkpoint.
+	 */
+	public long getCurrentCheckpointId() {
+		return currentCheckpointId;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: last checkpoint: %d, pending channels: %d, closed channels: %d",
+			inputGate.getOwningTaskName(),
+			currentCheckpointId,
+			numPendingChannels,
+			countClosedChannels());
+	}
+
+	private int countClosedChannels() {
+		int count = 0;
+		for (boolean closed : closedChannels) {
+			if (closed) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The serialized in-flight records of one checkpoint. The records are written by the task thread,
+	 * and read by the asynchronous checkpoint thread after the recording future completed. Only the
+	 * latest records are kept in memory, the older ones are spilled to a file.
+	 *
+	 * <p>The data may be discarded by the task thread (when the checkpoint is aborted) and by the
+	 * asynchronous checkpoint thread (after it was written), so all accesses to the spill file are
+	 * guarded by the lock of the instance, and discarding is idempotent.
+	 */
+	private static final class InFlightData {
+
+		private final long checkpointId;
+
+		private final DataOutputSerializer serializedRecords = new DataOutputSerializer(1024);
+
+		private final CompletableFuture<Void> recordingFuture = new CompletableFuture<>();
+
+		private int numRecords;
+
+		/** The file with the spilled records, or null if nothing was spilled. */
+		@Nullable
+		private File spillFile;
+
+		@Nullable
+		private FileChannel spillChannel;
+
+		private long numSpilledBytes;
+
+		/** Whether the data was discarded, guarded by the lock of the instance. */
+		private boolean discarded;
+
+		InFlightData(long checkpointId) {
+			this.checkpointId = checkpointId;
+		}
+
+		long getSize() {
+			return numSpilledBytes + serializedRecords.length();
+		}
+
+		/**
+		 * Spills the records that are kept in memory, if they exceed the {@link #IN_MEMORY_BYTES_THRESHOLD}.
+		 */
+		@SuppressWarnings("resource")
+		void spillIfNeeded(IOManager ioManager) throws IOException {
+			if (serializedRecords.length() < IN_MEMORY_BYTES_THRESHOLD) {
+				return;
+			}
+
+			synchronized (this) {
+				checkNotDiscarded();
+
+				if (spillChannel == null) {
+					spillFile = ioManager.createChannel().getPathFile();
+					spillChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+				}
+
+				ByteBuffer contents = ByteBuffer.wrap(serializedRecords.getSharedBuffer(), 0, serializedRecords.length());
+				while (contents.hasRemaining()) {
+					spillChannel.write(contents);
+				}
+				numSpilledBytes += serializedRecords.length();
+				serializedRecords.clear();
+			}
+		}
+
+		/**
+		 * Writes all records, the spilled ones followed by the ones in memory, to the given stream.
+		 */
+		synchronized void writeRecordsTo(CheckpointStreamFactory.CheckpointStateOutputStream out) throws IOException {
+			checkNotDiscarded();
+
+			if (spillChannel != null) {
+				WritableByteChannel target = Channels.newChannel(out);
+				long position = 0;
+				while (position < numSpilledBytes) {
+					position += spillChannel.transferTo(position, numSpilledBytes - position, target);
+				}
+			}
+			out.write(serializedRecords.getSharedBuffer(), 0, serializedRecords.length());
+		}
+
+		private void checkNotDiscarded() throws IOException {
+			if (discarded) {
+				throw new IOException("The in-flight records of checkpoint " + checkpointId + " were discarded.");
+			}
+		}
+
+		/**
+		 * Releases the memory and deletes the spill file of the records. Repeated calls have no effect.
+		 */
+		synchronized void discard() {
+			if (discarded) {
+				return;
+			}
+			discarded = true;
+
+			serializedRecords.clear();
+			if (spillChannel != null) {
+				IOUtils.closeQuietly(spillChannel);
+				if (!spillFile.delete()) {
+					LOG.warn("Could not delete the spill file {} of the in-flight records.", spillFile);
+				}
+				spillChannel = null;
+				spillFile = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.AppendingState;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.runtime.state.internal.InternalAppendingState;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingProcessingTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.triggers.ProcessingTimeTrigger;
+import org.apache.flink.streaming.api.windowing.triggers.Trigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.util.OutputTag;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A {@link WindowOperator} for sliding time windows that shares the pre-aggregated state between
+ * overlapping windows.
+ *
+ * <p>The time axis is cut into non-overlapping panes whose length is the greatest common divisor of
+ * the window size and slide. Each element is only added to the state of its pane, and only one timer
+ * is registered for the first window that contains the pane. When a window fires, the states of its
+ * panes are merged and the result is passed to the {@code InternalWindowFunction}. Afterwards, the
+ * panes that are not part of any later window are dropped and a timer for the next window is
+ * registered if any of the remaining panes holds data. Compared to the {@code WindowOperator}, this
+ * divides the state size and the per-element state accesses by {@code size / slide}.
+ *
+ * <p>The window contents must be kept in a {@link ReducingStateDescriptor reducing} or an
+ * {@link AggregatingStateDescriptor aggregating} state, because those are the functions that can
+ * combine the panes. Only the default trigger of the sliding assigners and no allowed lateness are
+ * supported, since any other trigger may fire windows in an order that does not work with shared
+ * panes.
+ *
+ * @param <K> The type of key returned by the {@code KeySelector}.
+ * @param <IN> The type of the incoming elements.
+ * @param <ACC> The type of the window contents that are passed to the {@code InternalWindowFunction}.
+ * @param <OUT> The type of elements emitted by the {@code InternalWindowFunction}.
+ */
+@Internal
+public class SlidingPaneWindowOperator<K, IN, ACC, OUT>
+		extends WindowOperator<K, IN, ACC, OUT, TimeWindow> {
+
+	private static final long serialVersionUID = 1L;
+
+	// ------------------------------------------------------------------------
+	// these fields are set by the API stream graph builder to configure the operator
+
+	private final long size;
+
+	private final long slide;
+
+	private final long offset;
+
+	/** The length of the panes, the greatest common divisor of size and slide. */
+	private final long paneSize;
+
+	// ------------------------------------------------------------------------
+	// the fields below are instantiated once the operator runs in the runtime
+
+	/** The state of the panes, the window state of the {@code WindowOperator} with panes as namespaces. */
+	private transient InternalAppendingState<K, TimeWindow, IN, Object, ACC> paneState;
+
+	private transient PaneCombiner<Object, ACC> paneCombiner;
+
+	private transient TypeSerializer<Object> paneContentsSerializer;
+
+	// ------------------------------------------------------------------------
+
+	public SlidingPaneWindowOperator(
+			WindowAssigner<? super IN, TimeWindow> windowAssigner,
+			TypeSerializer<TimeWindow> windowSerializer,
+			KeySelector<IN, K> keySelector,
+			TypeSerializer<K> keySerializer,
+			StateDescriptor<? extends AppendingState<IN, ACC>, ?> windowStateDescriptor,
+			InternalWindowFunction<ACC, OUT, K, TimeWindow> windowFunction,
+			Trigger<? super IN, ? super TimeWindow> trigger,
+			OutputTag<IN> lateDataOutputTag) {
+
+		super(windowAssigner, windowSerializer, keySelector,
+			keySerializer, windowStateDescriptor, windowFunction, trigger, 0L, lateDataOutputTag);
+
+		checkArgument(isSupportedAssigner(windowAssigner),
+			"Pane sharing is only supported for sliding time windows, but found " + windowAssigner + ".");
+		checkArgument(isSupportedTrigger(windowAssigner, trigger),
+			"Pane sharing is only supported with the default trigger of the window assigner, but found " + trigger + ".");
+		checkArgument(windowStateDescriptor instanceof ReducingStateDescriptor ||
+				windowStateDescriptor instanceof AggregatingStateDescriptor,
+			"Pane sharing requires a reducing or an aggregating window state.");
+
+		if (windowAssigner instanceof SlidingEventTimeWindows) {
+			SlidingEventTimeWindows assigner = (SlidingEventTimeWindows) windowAssigner;
+			this.size = assigner.getSize();
+			this.slide = assigner.getSlide();
+			this.offset = assigner.getOffset();
+		} else {
+			SlidingProcessingTimeWindows assigner = (SlidingProcessingTimeWindows) windowAssigner;
+			this.size = assigner.getSize();
+			this.slide = assigner.getSlide();
+			this.offset = assigner.getOffset();
+		}
+
+		this.paneSize = greatestCommonDivisor(size, slide);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void open() throws Exception {
+		super.open();
+
+		StateDescriptor<? extends AppendingState<IN, ACC>, ?> stateDescriptor = getStateDescriptor();
+		paneState = (InternalAppendingState<K, TimeWindow, IN, Object, ACC>) getOrCreateKeyedState(windowSerializer, stateDescriptor);
+		paneContentsSerializer = (TypeSerializer<Object>) stateDescriptor.getSerializer().duplicate();
+
+		if (stateDescriptor instanceof ReducingStateDescriptor) {
+			paneCombiner = (PaneCombiner<Object, ACC>) new ReducingPaneCombiner<>(
+				((ReducingStateDescriptor<IN>) stateDescriptor).getReduceFunction());
+		} else {
+			paneCombiner = (PaneCombiner<Object, ACC>) new AggregatingPaneCombiner<>(
+				((AggregatingStateDescriptor<IN, Object, ACC>) stateDescriptor).getAggregateFunction());
+		}
+	}
+
+	@Override
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		final long timestamp;
+		if (windowAssigner.isEventTime()) {
+			timestamp = element.getTimestamp();
+			if (timestamp == Long.MIN_VALUE) {
+				throw new RuntimeException("Record has Long.MIN_VALUE timestamp (= no timestamp marker). " +
+					"Is the time characteristic set to 'ProcessingTime', or did you forget to call " +
+					"'DataStream.assignTimestampsAndWatermarks(...)'?");
+			}
+		} else {
+			timestamp = internalTimerService.currentProcessingTime();
+		}
+
+		final long paneStart = TimeWindow.getWindowStartWithOffset(timestamp, offset, paneSize);
+
+		// the windows that contain the pane end in [firstWindowEnd, lastWindowEnd]
+		long windowEnd = getLastWindowEndAtOrBefore(paneStart + paneSize - 1) + slide;
+		final long lastWindowEnd = getLastWindowEndAtOrBefore(paneStart + size);
+
+		while (windowEnd <= lastWindowEnd && isWindowLate(new TimeWindow(windowEnd - size, windowEnd))) {
+			windowEnd += slide;
+		}
+
+		if (windowEnd > lastWindowEnd) {
+			// the element is handled by none of its windows
+			if (isElementLate(element)) {
+				if (lateDataOutputTag != null) {
+					sideOutput(element);
+				} else {
+					this.numLateRecordsDropped.inc();
+				}
+			}
+			return;
+		}
+
+		paneState.setCurrentNamespace(new TimeWindow(paneStart, paneStart + paneSize));
+		paneState.add(element.getValue());
+
+		registerWindowTimer(new TimeWindow(windowEnd - size, windowEnd));
+	}
+
+	@Override
+	public void onEventTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+		if (windowAssigner.isEventTime()) {
+			fireWindow(timer.getKey(), timer.getNamespace());
+		}
+	}
+
+	@Override
+	public void onProcessingTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+		if (!windowAssigner.isEventTime()) {
+			fireWindow(timer.getKey(), timer.getNamespace());
+		}
+	}
+
+	/**
+	 * Merges the panes of the given window and emits the result. The panes that do not belong to the
+	 * next window are dropped, the others are retained and keep the timer chain for the next window
+	 * alive.
+	 *
+	 * <p>The caller must ensure that the correct key is set in the state backend.
+	 */
+	private void fireWindow(K key, TimeWindow window) throws Exception {
+		final long firstRetainedPaneStart = window.getStart() + slide;
+
+		Object mergedContents = null;
+		boolean hasRetainedPanes = false;
+
+		for (long paneStart = window.getStart(); paneStart < window.getEnd(); paneStart += paneSize) {
+			paneState.setCurrentNamespace(new TimeWindow(paneStart, paneStart + paneSize));
+
+			Object paneContents = paneState.getInternal();
+			if (paneContents == null) {
+				continue;
+			}
+
+			if (paneStart < firstRetainedPaneStart) {
+				paneState.clear();
+			} else {
+				// the combine functions may reuse their arguments, so retained panes must not be handed out
+				paneContents = paneContentsSerializer.copy(paneContents);
+				hasRetainedPanes = true;
+			}
+
+			mergedContents = mergedContents == null ? paneContents : paneCombiner.merge(mergedContents, paneContents);
+		}
+
+		if (mergedContents != null) {
+			timestampedCollector.setAbsoluteTimestamp(window.maxTimestamp());
+			processContext.window = window;
+			userFunction.process(key, window, processContext, paneCombiner.getResult(mergedContents), timestampedCollector);
+			processContext.clear();
+		}
+
+		if (hasRetainedPanes) {
+			registerWindowTimer(new TimeWindow(window.getStart() + slide, window.getEnd() + slide));
+		}
+	}
+
+	private void registerWindowTimer(TimeWindow window) {
+		if (windowAssigner.isEventTime()) {
+			internalTimerService.registerEventTimeTimer(window, window.maxTimestamp());
+		} else {
+			internalTimerService.registerProcessingTimeTimer(window, window.maxTimestamp());
+		}
+	}
+
+	/**
+	 * Returns the end of the latest window that ends at or before the given timestamp.
+	 */
+	private long getLastWindowEndAtOrBefore(long timestamp) {
+		return TimeWindow.getWindowStartWithOffset(timestamp, (offset + size) % slide, slide);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Utilities
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Checks whether the given assigner produces windows that this operator can evaluate.
+	 */
+	public static boolean isSupportedAssigner(WindowAssigner<?, ?> windowAssigner) {
+		return windowAssigner instanceof SlidingEventTimeWindows ||
+			windowAssigner instanceof SlidingProcessingTimeWindows;
+	}
+
+	/**
+	 * Checks whether the given trigger fires exactly at the end of each window of the given assigner.
+	 */
+	public static boolean isSupportedTrigger(WindowAssigner<?, ?> windowAssigner, Trigger<?, ?> trigger) {
+		return windowAssigner.isEventTime() ?
+			trigger instanceof EventTimeTrigger :
+			trigger instanceof ProcessingTimeTrigger;
+	}
+
+	private static long greatestCommonDivisor(long a, long b) {
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Combines the contents of two panes and turns the combined contents into the window result.
+	 */
+	private interface PaneCombiner<SV, ACC> {
+
+		SV merge(SV first, SV second) throws Exception;
+
+		ACC getResult(SV contents);
+	}
+
+	private static final class ReducingPaneCombiner<T> implements PaneCombiner<T, T> {
+
+		private final ReduceFunction<T> reduceFunction;
+
+		private ReducingPaneCombiner(ReduceFunction<T> reduceFunction) {
+			this.reduceFunction = reduceFunction;
+		}
+
+		@Override
+		public T merge(T first, T second) throws Exception {
+			return reduceFunction.reduce(first, second);
+		}
+
+		@Override
+		public T getResult(T contents) {
+			return contents;
+		}
+	}
+
+	private static final class AggregatingPaneCombiner<IN, PACC, ACC> implements PaneCombiner<PACC, ACC> {
+
+		private final AggregateFunction<IN, PACC, ACC> aggregateFunction;
+
+		private AggregatingPaneCombiner(AggregateFunction<IN, PACC, ACC> aggregateFunction) {
+			this.aggregateFunction = aggregateFunction;
+		}
+
+		@Override
+		public PACC merge(PACC first, PACC second) {
+			return aggregateFunction.merge(first, second);
+		}
+
+		@Override
+		public ACC getResult(PACC contents) {
+			return aggregateFunction.getResult(contents);
+		}
+	}
+}
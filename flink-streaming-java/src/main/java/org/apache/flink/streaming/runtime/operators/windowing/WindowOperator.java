@@ -34,6 +34,8 @@ import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.MergingState;
 import org.apache.flink.api.common.state.ReducingState;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.state.ValueState;
@@ -57,9 +59,11 @@ import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
 import org.apache.flink.streaming.api.operators.ChainingStrategy;
 import org.apache.flink.streaming.api.operators.InternalTimer;
 import org.apache.flink.streaming.api.operators.InternalTimerService;
+import org.apache.flink.streaming.api.operators.KeyedStatePrefetchBuffer;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.operators.TimestampedCollector;
 import org.apache.flink.streaming.api.operators.Triggerable;
+import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.api.windowing.assigners.BaseAlignedWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.MergingWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
@@ -170,6 +174,14 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 	protected transient WindowAssigner.WindowAssignerContext windowAssignerContext;
 
+	/**
+	 * Buffers the elements if the keyed state backend prefetches the state of their windows, null otherwise.
+	 * The state of merging windows is not prefetched, because it is not known before the windows are merged.
+	 * Neither is the state of processing time windows, because the windows of an element are only known
+	 * when it is processed.
+	 */
+	private transient KeyedStatePrefetchBuffer<?, IN, W> prefetchBuffer;
+
 	// ------------------------------------------------------------------------
 	// State that needs to be checkpointed
 	// ------------------------------------------------------------------------
@@ -269,11 +281,18 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 			mergingSetsState = (InternalListState<K, VoidNamespace, Tuple2<W, W>>)
 					getOrCreateKeyedState(VoidNamespaceSerializer.INSTANCE, mergingSetsStateDescriptor);
 			mergingSetsState.setCurrentNamespace(VoidNamespace.INSTANCE);
+		} else if (windowStateDescriptor != null && windowAssigner.isEventTime()) {
+			prefetchBuffer = createKeyedStatePrefetchBuffer(
+				windowSerializer,
+				element -> windowAssigner.assignWindows(
+					element.getValue(), element.getTimestamp(), windowAssignerContext),
+				timestamp -> flushPrefetchBuffer());
 		}
 	}
 
 	@Override
 	public void close() throws Exception {
+		flushPrefetchBuffer();
 		super.close();
 		timestampedCollector = null;
 		triggerContext = null;
@@ -290,8 +309,48 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 		windowAssignerContext = null;
 	}
 
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		flushPrefetchBuffer();
+		super.processWatermark(mark);
+	}
+
+	@Override
+	public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+		flushPrefetchBuffer();
+		super.prepareSnapshotPreBarrier(checkpointId);
+	}
+
 	@Override
 	public void processElement(StreamRecord<IN> element) throws Exception {
+		if (prefetchBuffer == null) {
+			processElementInWindows(element);
+		} else if (prefetchBuffer.add(element)) {
+			flushPrefetchBuffer();
+		}
+	}
+
+	private void flushPrefetchBuffer() throws Exception {
+		if (prefetchBuffer != null) {
+			prefetchBuffer.flush(element -> {
+				setKeyContextElement1(element);
+				processElementInWindows(element);
+			});
+		}
+	}
+
+	/**
+	 * Processes the buffered elements before a timer fires, so that the timer sees their state.
+	 */
+	private void flushPrefetchBufferBeforeTimer(InternalTimer<K, W> timer) throws Exception {
+		if (prefetchBuffer != null && !prefetchBuffer.isEmpty()) {
+			flushPrefetchBuffer();
+			// the buffered elements changed the key context
+			setCurrentKey(timer.getKey());
+		}
+	}
+
+	private void processElementInWindows(StreamRecord<IN> element) throws Exception {
 		final Collection<W> elementWindows = windowAssigner.assignWindows(
 			element.getValue(), element.getTimestamp(), windowAssignerContext);
 
@@ -425,6 +484,8 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 	@Override
 	public void onEventTime(InternalTimer<K, W> timer) throws Exception {
+		flushPrefetchBufferBeforeTimer(timer);
+
 		triggerContext.key = timer.getKey();
 		triggerContext.window = timer.getNamespace();
 
@@ -471,6 +532,8 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 	@Override
 	public void onProcessingTime(InternalTimer<K, W> timer) throws Exception {
+		flushPrefetchBufferBeforeTimer(timer);
+
 		triggerContext.key = timer.getKey();
 		triggerContext.window = timer.getNamespace();
 
@@ -702,6 +765,11 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 		public <UK, UV> MapState<UK, UV> getMapState(MapStateDescriptor<UK, UV> stateProperties) {
 			throw new UnsupportedOperationException("Per-window state is not allowed when using merging windows.");
 		}
+
+		@Override
+		public <UK, UV> SortedMapState<UK, UV> getSortedMapState(SortedMapStateDescriptor<UK, UV> stateProperties) {
+			throw new UnsupportedOperationException("Per-window state is not allowed when using merging windows.");
+		}
 	}
 
 	/**
@@ -24,6 +24,9 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.metrics.MetricNames;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.runtime.io.StreamInputProcessor;
@@ -31,6 +34,9 @@ import org.apache.flink.streaming.runtime.metrics.WatermarkGauge;
 
 import javax.annotation.Nullable;
 
+import java.util.Collection;
+import java.util.concurrent.RunnableFuture;
+
 /**
  * A {@link StreamTask} for executing a {@link OneInputStreamOperator}.
  */
@@ -109,6 +115,21 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
 		}
 	}
 
+	@Override
+	protected void restoreInFlightData(Collection<StreamStateHandle> stateHandles) throws Exception {
+		inputProcessor.restoreInFlightData(stateHandles);
+	}
+
+	@Override
+	protected RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotInFlightData(
+			long checkpointId,
+			CheckpointStreamFactory storageLocation) {
+		if (inputProcessor == null) {
+			return super.snapshotInFlightData(checkpointId, storageLocation);
+		}
+		return inputProcessor.snapshotInFlightData(checkpointId, storageLocation);
+	}
+
 	@Override
 	protected void cancelTask() {
 	}
@@ -410,7 +410,9 @@ public class OperatorChain<OUT, OP extends StreamOperator<OUT>> implements Strea
 			outSerializer = upStreamConfig.getTypeSerializerOut(taskEnvironment.getUserClassLoader());
 		}
 
-		return new RecordWriterOutput<>(recordWriter, outSerializer, sideOutputTag, this);
+		RecordWriterOutput<OUT> output = new RecordWriterOutput<>(recordWriter, outSerializer, sideOutputTag, this);
+		output.enableObjectHandover();
+		return output;
 	}
 
 	// ------------------------------------------------------------------------
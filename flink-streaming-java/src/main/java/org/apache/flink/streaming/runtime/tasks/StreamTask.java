@@ -20,12 +20,20 @@ package org.apache.flink.streaming.runtime.tasks;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.accumulators.Accumulator;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.NetworkEnvironmentOptions;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FileSystemSafetyNet;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.PrioritizedOperatorSubtaskState;
+import org.apache.flink.runtime.checkpoint.StateObjectCollection;
 import org.apache.flink.runtime.checkpoint.TaskStateSnapshot;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.execution.Environment;
@@ -35,11 +43,16 @@ import org.apache.flink.runtime.io.network.api.writer.RecordWriterBuilder;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.jobgraph.OperatorID;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.metrics.MetricNames;
+import org.apache.flink.runtime.metrics.groups.TaskMetricGroup;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
 import org.apache.flink.runtime.state.CheckpointStorageWorkerView;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.SnapshotResult;
 import org.apache.flink.runtime.state.StateBackend;
 import org.apache.flink.runtime.state.StateBackendLoader;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.TaskStateManager;
 import org.apache.flink.runtime.taskmanager.DispatcherThreadFactory;
 import org.apache.flink.streaming.api.TimeCharacteristic;
@@ -55,8 +68,8 @@ import org.apache.flink.streaming.runtime.partitioner.ConfigurableStreamPartitio
 import org.apache.flink.streaming.runtime.partitioner.StreamPartitioner;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatusMaintainer;
+import org.apache.flink.streaming.runtime.tasks.mailbox.LockFreeMailboxImpl;
 import org.apache.flink.streaming.runtime.tasks.mailbox.Mailbox;
-import org.apache.flink.streaming.runtime.tasks.mailbox.MailboxImpl;
 import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.Preconditions;
 import org.apache.flink.util.function.ThrowingRunnable;
@@ -68,12 +81,13 @@ import javax.annotation.Nullable;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -194,6 +208,9 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 
 	protected final Mailbox mailbox;
 
+	/** Number of letters that were taken from the mailbox and run by the mailbox loop. */
+	private final Counter numMailboxLetters = new SimpleCounter();
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -226,7 +243,7 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		this.accumulatorMap = getEnvironment().getAccumulatorRegistry().getUserMap();
 		this.recordWriters = createRecordWriters(configuration, environment);
 		this.syncSavepointLatch = new SynchronousSavepointLatch();
-		this.mailbox = new MailboxImpl();
+		this.mailbox = new LockFreeMailboxImpl();
 	}
 
 	// ------------------------------------------------------------------------
@@ -253,22 +270,38 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 	 */
 	private void run() throws Exception {
 		final ActionContext actionContext = new ActionContext();
+		final List<Runnable> letters = new ArrayList<>();
 		while (true) {
-			if (mailbox.hasMail()) {
-				Optional<Runnable> maybeLetter;
-				while ((maybeLetter = mailbox.tryTakeMail()).isPresent()) {
-					Runnable letter = maybeLetter.get();
+			while (mailbox.hasMail()) {
+				// take all pending letters at once instead of one by one
+				mailbox.drainMail(letters);
+				final int numLetters = letters.size();
+				for (int i = 0; i < numLetters; ++i) {
+					Runnable letter = letters.get(i);
 					if (letter == POISON_LETTER) {
 						return;
 					}
+					// the letters that follow in the batch are mail that the wait would return on
+					if (letter == actionContext.actionUnavailableLetter && i < numLetters - 1) {
+						continue;
+					}
 					letter.run();
 				}
+				numMailboxLetters.inc(numLetters);
+				letters.clear();
 			}
 
 			performDefaultAction(actionContext);
 		}
 	}
 
+	private void registerMailboxMetrics() {
+		TaskMetricGroup metricGroup = getEnvironment().getMetricGroup();
+		metricGroup.counter(MetricNames.MAILBOX_NUM_LETTERS, numMailboxLetters);
+		metricGroup.meter(MetricNames.MAILBOX_NUM_LETTERS_RATE, new MeterView(numMailboxLetters, 60));
+		metricGroup.gauge(MetricNames.MAILBOX_SIZE, mailbox::size);
+	}
+
 	/**
 	 * Emits the {@link org.apache.flink.streaming.api.watermark.Watermark#MAX_WATERMARK MAX_WATERMARK}
 	 * so that all registered timers are fired.
@@ -366,11 +399,16 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 				openAllOperators();
 			}
 
+			// in-flight input data of an unaligned checkpoint must be processed before any new input
+			restoreInputChannelState();
+
 			// final check to exit early before starting to run
 			if (canceled) {
 				throw new CancelTaskException();
 			}
 
+			registerMailboxMetrics();
+
 			// let the task do its work
 			isRunning = true;
 			run();
@@ -848,6 +886,46 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		}
 	}
 
+	private void restoreInputChannelState() throws Exception {
+		// the in-flight data of a restored unaligned checkpoint must be replayed even if unaligned
+		// checkpoints are disabled now, otherwise the records would be lost
+		if (headOperator == null) {
+			return;
+		}
+
+		PrioritizedOperatorSubtaskState headOperatorState =
+			getEnvironment().getTaskStateManager().prioritizedOperatorState(headOperator.getOperatorID());
+
+		StateObjectCollection<StreamStateHandle> inputChannelState = headOperatorState.getJobManagerInputChannelState();
+		if (inputChannelState.hasState()) {
+			LOG.debug("Restoring in-flight input data of {} from {}.", getName(), inputChannelState);
+			restoreInFlightData(inputChannelState);
+		}
+	}
+
+	/**
+	 * Processes the in-flight input data that was persisted by an unaligned checkpoint. This is called after
+	 * the operators were opened and before the first input is read.
+	 *
+	 * @param stateHandles The handles to the in-flight input data of the head operator.
+	 */
+	protected void restoreInFlightData(Collection<StreamStateHandle> stateHandles) throws Exception {
+		throw new IllegalStateException("Task " + getName() + " does not support restoring in-flight input data.");
+	}
+
+	/**
+	 * Returns the future for the in-flight input data of the given checkpoint, which is part of the state
+	 * of the head operator. Tasks without inputs, or without unaligned checkpoints, have no in-flight data.
+	 *
+	 * @param checkpointId The checkpoint that is currently being taken.
+	 * @param storageLocation The stream factory for the checkpoint.
+	 */
+	protected RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotInFlightData(
+			long checkpointId,
+			CheckpointStreamFactory storageLocation) {
+		return DoneFuture.of(SnapshotResult.empty());
+	}
+
 	// ------------------------------------------------------------------------
 	//  State backend
 	// ------------------------------------------------------------------------
@@ -1231,6 +1309,12 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 						checkpointMetaData.getTimestamp(),
 						checkpointOptions,
 						storageLocation);
+
+				if (op == owner.headOperator) {
+					snapshotInProgress.setInputChannelStateFuture(
+						owner.snapshotInFlightData(checkpointMetaData.getCheckpointId(), storageLocation));
+				}
+
 				operatorSnapshotsInProgress.put(op.getOperatorID(), snapshotInProgress);
 			}
 		}
@@ -1279,6 +1363,9 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		List<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>> recordWriters = new ArrayList<>();
 		List<StreamEdge> outEdgesInOrder = configuration.getOutEdgesInOrder(environment.getUserClassLoader());
 		Map<Integer, StreamConfig> chainedConfigs = configuration.getTransitiveChainedTaskConfigsWithSelf(environment.getUserClassLoader());
+		Configuration taskManagerConfig = environment.getTaskManagerInfo().getConfiguration();
+		long idleTimeout = taskManagerConfig.getLong(NetworkEnvironmentOptions.NETWORK_OUTPUT_FLUSH_IDLE_TIMEOUT);
+		int objectHandoverBatchSize = getObjectHandoverBatchSize(taskManagerConfig);
 
 		for (int i = 0; i < outEdgesInOrder.size(); i++) {
 			StreamEdge edge = outEdgesInOrder.get(i);
@@ -1288,17 +1375,34 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 					i,
 					environment,
 					environment.getTaskInfo().getTaskName(),
-					chainedConfigs.get(edge.getSourceId()).getBufferTimeout()));
+					chainedConfigs.get(edge.getSourceId()).getBufferTimeout(),
+					idleTimeout,
+					objectHandoverBatchSize));
 		}
 		return recordWriters;
 	}
 
+	private static int getObjectHandoverBatchSize(Configuration taskManagerConfig) {
+		if (!taskManagerConfig.getBoolean(NetworkEnvironmentOptions.NETWORK_LOCAL_OBJECT_HANDOVER_ENABLED)) {
+			return 0;
+		}
+
+		int batchSize = taskManagerConfig.getInteger(NetworkEnvironmentOptions.NETWORK_LOCAL_OBJECT_HANDOVER_BATCH_SIZE);
+		if (batchSize <= 0) {
+			throw new IllegalConfigurationException(
+				NetworkEnvironmentOptions.NETWORK_LOCAL_OBJECT_HANDOVER_BATCH_SIZE.key() + " must be positive, but is " + batchSize);
+		}
+		return batchSize;
+	}
+
 	private static <OUT> RecordWriter<SerializationDelegate<StreamRecord<OUT>>> createRecordWriter(
 			StreamEdge edge,
 			int outputIndex,
 			Environment environment,
 			String taskName,
-			long bufferTimeout) {
+			long bufferTimeout,
+			long idleTimeout,
+			int objectHandoverBatchSize) {
 		@SuppressWarnings("unchecked")
 		StreamPartitioner<OUT> outputPartitioner = (StreamPartitioner<OUT>) edge.getPartitioner();
 
@@ -1317,6 +1421,8 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output = new RecordWriterBuilder()
 			.setChannelSelector(outputPartitioner)
 			.setTimeout(bufferTimeout)
+			.setIdleTimeout(idleTimeout)
+			.setObjectHandoverBatchSize(objectHandoverBatchSize)
 			.setTaskName(taskName)
 			.build(bufferWriter);
 		output.setMetricGroup(environment.getMetricGroup().getIOMetricGroup());
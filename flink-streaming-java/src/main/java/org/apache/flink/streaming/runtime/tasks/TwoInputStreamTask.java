@@ -22,6 +22,9 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.metrics.MetricNames;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.graph.StreamEdge;
 import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
@@ -30,7 +33,9 @@ import org.apache.flink.streaming.runtime.metrics.MinWatermarkGauge;
 import org.apache.flink.streaming.runtime.metrics.WatermarkGauge;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.RunnableFuture;
 
 /**
  * A {@link StreamTask} for executing a {@link TwoInputStreamOperator}.
@@ -121,6 +126,18 @@ public class TwoInputStreamTask<IN1, IN2, OUT> extends StreamTask<OUT, TwoInputS
 		}
 	}
 
+	@Override
+	protected void restoreInFlightData(Collection<StreamStateHandle> stateHandles) throws Exception {
+		inputProcessor.restoreInFlightData(stateHandles);
+	}
+
+	@Override
+	protected RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotInFlightData(
+			long checkpointId,
+			CheckpointStreamFactory storageLocation) {
+		return inputProcessor.snapshotInFlightData(checkpointId, storageLocation);
+	}
+
 	@Override
 	protected void cancelTask() {
 
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks.mailbox;
+
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock-free implementation of {@link Mailbox} for multiple writers and a single reader, based on a bounded ring
+ * buffer in which every slot carries a sequence number (in the style of Dmitry Vyukov's bounded queue).
+ *
+ * <p>Writers claim a slot by a CAS on {@link #tailSequence} and publish the letter by advancing the sequence number
+ * of the slot. The reader owns {@link #headSequence} and frees a slot by advancing its sequence number by the
+ * capacity. Neither puts nor takes acquire a lock. The {@link #lock} is only used to block the reader on an empty
+ * mailbox or writers on a full mailbox, and the other side only takes it to signal if somebody actually waits.
+ *
+ * <p>Letters enqueued via {@link #clearAndPut(Runnable)} bypass the ring buffer and are taken before all other
+ * letters. The pending letters are dropped by the reader when it takes such a priority letter, so that the writer
+ * of the priority letter never has to modify the ring buffer. Consequently, also letters that are enqueued after
+ * the priority letter, but before the reader took it, are dropped. A priority letter replaces a previous priority
+ * letter that was not yet taken.
+ */
+@ThreadSafe
+public class LockFreeMailboxImpl implements Mailbox {
+
+	/**
+	 * The enqueued letters. A slot may only be accessed by the thread that claimed it via its sequence number.
+	 */
+	private final Runnable[] ringBuffer;
+
+	/**
+	 * The sequence numbers of the slots. A slot with index i is free for the writer of sequence s (s & mask == i)
+	 * if its sequence number is s, and holds the letter of sequence s if its sequence number is s + 1.
+	 */
+	private final AtomicLongArray slotSequences;
+
+	/**
+	 * The sequence of the next slot to claim by a writer.
+	 */
+	private final AtomicLong tailSequence;
+
+	/**
+	 * The sequence of the next slot to read, only written by the reader.
+	 */
+	private volatile long headSequence;
+
+	/**
+	 * A letter enqueued by {@link #clearAndPut(Runnable)} that was not yet taken.
+	 */
+	private final AtomicReference<Runnable> priorityLetter;
+
+	/**
+	 * Lock to wait on an empty or full mailbox.
+	 */
+	private final ReentrantLock lock;
+
+	/**
+	 * Condition that is triggered when the buffer is no longer empty.
+	 */
+	@GuardedBy("lock")
+	private final Condition notEmpty;
+
+	/**
+	 * Condition that is triggered when the buffer is no longer full.
+	 */
+	@GuardedBy("lock")
+	private final Condition notFull;
+
+	/**
+	 * Flag if the reader waits for mail, the writers only signal {@link #notEmpty} if it is set.
+	 */
+	private volatile boolean readerWaiting;
+
+	/**
+	 * Number of writers that wait for capacity, the reader only signals {@link #notFull} if it is positive.
+	 */
+	@GuardedBy("lock")
+	private volatile int numWaitingWriters;
+
+	/**
+	 * A mask to wrap around the sequences to indexes of the ring buffer.
+	 */
+	private final int moduloMask;
+
+	public LockFreeMailboxImpl() {
+		this(6); // 2^6 = 64
+	}
+
+	public LockFreeMailboxImpl(int capacityPow2) {
+		final int capacity = 1 << capacityPow2;
+		Preconditions.checkState(capacity > 0);
+		this.moduloMask = capacity - 1;
+		this.ringBuffer = new Runnable[capacity];
+		this.slotSequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; ++i) {
+			slotSequences.lazySet(i, i);
+		}
+		this.tailSequence = new AtomicLong();
+		this.priorityLetter = new AtomicReference<>();
+		this.lock = new ReentrantLock();
+		this.notEmpty = lock.newCondition();
+		this.notFull = lock.newCondition();
+	}
+
+	@Override
+	public boolean hasMail() {
+		return priorityLetter.get() != null || isPublished(headSequence);
+	}
+
+	@Override
+	public Optional<Runnable> tryTakeMail() {
+		return Optional.ofNullable(takeInternal());
+	}
+
+	@Nonnull
+	@Override
+	public Runnable takeMail() throws InterruptedException {
+		Runnable letter;
+		while ((letter = takeInternal()) == null) {
+			waitUntilHasMail();
+		}
+		return letter;
+	}
+
+	@Override
+	public int drainMail(@Nonnull Collection<Runnable> target) {
+		final Runnable priority = takePriorityLetter();
+		if (priority != null) {
+			target.add(priority);
+			return 1;
+		}
+
+		int drained = 0;
+		Runnable letter;
+		while (drained < ringBuffer.length && (letter = takeFromRingBuffer()) != null) {
+			target.add(letter);
+			++drained;
+		}
+
+		if (drained > 0) {
+			signalNotFull();
+		}
+		return drained;
+	}
+
+	@Override
+	public int size() {
+		final long size = tailSequence.get() - headSequence;
+		return (int) Math.max(0L, Math.min(size, ringBuffer.length));
+	}
+
+	@Override
+	public void waitUntilHasMail() throws InterruptedException {
+		if (hasMail()) {
+			return;
+		}
+
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		try {
+			// the flag is set before the check, so that a writer either sees the flag or we see its letter
+			readerWaiting = true;
+			while (!hasMail()) {
+				notEmpty.await();
+			}
+		} finally {
+			readerWaiting = false;
+			lock.unlock();
+		}
+	}
+
+	//------------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public boolean tryPutMail(@Nonnull Runnable letter) {
+		long sequence;
+		int index;
+		while (true) {
+			sequence = tailSequence.get();
+			index = toIndex(sequence);
+			final long difference = slotSequences.get(index) - sequence;
+			if (difference == 0L) {
+				if (tailSequence.compareAndSet(sequence, sequence + 1)) {
+					break;
+				}
+			} else if (difference < 0L) {
+				// the slot still holds the letter of the previous round
+				return false;
+			}
+			// else another writer claimed the slot, try again with the next one
+		}
+
+		ringBuffer[index] = letter;
+		slotSequences.set(index, sequence + 1);
+		signalNotEmpty();
+		return true;
+	}
+
+	@Override
+	public void putMail(@Nonnull Runnable letter) throws InterruptedException {
+		while (!tryPutMail(letter)) {
+			waitUntilHasCapacity();
+		}
+	}
+
+	@Override
+	public void waitUntilHasCapacity() throws InterruptedException {
+		if (!isFull()) {
+			return;
+		}
+
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		try {
+			// the counter is increased before the check, so that the reader either sees it or we see the free slot
+			++numWaitingWriters;
+			try {
+				while (isFull()) {
+					notFull.await();
+				}
+			} finally {
+				--numWaitingWriters;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void clearAndPut(@Nonnull Runnable priorityAction) {
+		priorityLetter.set(priorityAction);
+		signalNotEmpty();
+	}
+
+	//------------------------------------------------------------------------------------------------------------------
+
+	@Nullable
+	private Runnable takeInternal() {
+		Runnable letter = takePriorityLetter();
+		if (letter == null) {
+			letter = takeFromRingBuffer();
+			if (letter != null) {
+				signalNotFull();
+			}
+		}
+		return letter;
+	}
+
+	/**
+	 * Takes the priority letter, if there is any, and drops the pending letters of the ring buffer.
+	 */
+	@Nullable
+	private Runnable takePriorityLetter() {
+		if (priorityLetter.get() == null) {
+			return null;
+		}
+
+		final Runnable letter = priorityLetter.getAndSet(null);
+		int dropped = 0;
+		while (dropped < ringBuffer.length && takeFromRingBuffer() != null) {
+			++dropped;
+		}
+		if (dropped > 0) {
+			signalNotFull();
+		}
+		return letter;
+	}
+
+	/**
+	 * Takes the oldest letter from the ring buffer without signalling waiting writers. Must only be called by the
+	 * reader.
+	 */
+	@Nullable
+	private Runnable takeFromRingBuffer() {
+		final long sequence = headSequence;
+		if (!isPublished(sequence)) {
+			return null;
+		}
+
+		final int index = toIndex(sequence);
+		final Runnable letter = ringBuffer[index];
+		ringBuffer[index] = null;
+		slotSequences.set(index, sequence + ringBuffer.length);
+		headSequence = sequence + 1;
+		return letter;
+	}
+
+	private void signalNotEmpty() {
+		if (readerWaiting) {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void signalNotFull() {
+		if (numWaitingWriters > 0) {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private boolean isPublished(long sequence) {
+		return slotSequences.get(toIndex(sequence)) == sequence + 1;
+	}
+
+	private boolean isFull() {
+		return tailSequence.get() - headSequence >= ringBuffer.length;
+	}
+
+	private int toIndex(long sequence) {
+		return (int) sequence & moduloMask;
+	}
+}
@@ -24,6 +24,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -126,6 +127,27 @@ public class MailboxImpl implements Mailbox {
 		}
 	}
 
+	@Override
+	public int drainMail(@Nonnull Collection<Runnable> target) {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			int drained = 0;
+			while (!isEmpty()) {
+				target.add(takeInternal());
+				++drained;
+			}
+			return drained;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
 	@Override
 	public void waitUntilHasMail() throws InterruptedException {
 		final ReentrantLock lock = this.lock;
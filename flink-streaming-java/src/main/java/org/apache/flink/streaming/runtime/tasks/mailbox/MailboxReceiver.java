@@ -20,6 +20,7 @@ package org.apache.flink.streaming.runtime.tasks.mailbox;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -51,6 +52,22 @@ public interface MailboxReceiver {
 	@Nonnull
 	Runnable takeMail() throws InterruptedException;
 
+	/**
+	 * Moves all letters that are currently in the mailbox, but at most as many as the capacity of the mailbox, to the
+	 * given collection in the order of the mailbox. This method does not block and takes all those letters at once,
+	 * which is cheaper than taking them one by one.
+	 *
+	 * @param target the collection to which the letters are added.
+	 * @return the number of letters that were added to the collection.
+	 */
+	int drainMail(@Nonnull Collection<Runnable> target);
+
+	/**
+	 * Returns the number of letters in the mailbox. The value is only a snapshot and can be outdated by the time it
+	 * is returned, which is good enough for monitoring.
+	 */
+	int size();
+
 	/**
 	 * This method blocks if the mailbox is empty until mail becomes available.
 	 * @throws InterruptedException on interruption.
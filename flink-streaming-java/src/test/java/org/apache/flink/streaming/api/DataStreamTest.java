@@ -24,6 +24,7 @@ import org.apache.flink.api.common.functions.FoldFunction;
 import org.apache.flink.api.common.functions.Function;
 import org.apache.flink.api.common.functions.MapFunction;
 import org.apache.flink.api.common.functions.Partitioner;
+import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.common.operators.ResourceSpec;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.typeinfo.BasicArrayTypeInfo;
@@ -44,6 +45,7 @@ import org.apache.flink.streaming.api.datastream.ConnectedStreams;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.datastream.DataStreamSink;
 import org.apache.flink.streaming.api.datastream.DataStreamSource;
+import org.apache.flink.streaming.api.datastream.DataStreamUtils;
 import org.apache.flink.streaming.api.datastream.KeyedStream;
 import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
 import org.apache.flink.streaming.api.datastream.SplitStream;
@@ -63,10 +65,15 @@ import org.apache.flink.streaming.api.graph.StreamGraph;
 import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
 import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
 import org.apache.flink.streaming.api.operators.LegacyKeyedProcessOperator;
+import org.apache.flink.streaming.api.operators.LocalReduceOperator;
 import org.apache.flink.streaming.api.operators.ProcessOperator;
 import org.apache.flink.streaming.api.operators.StreamOperator;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.streaming.api.transformations.PartitionTransformation;
+import org.apache.flink.streaming.api.transformations.StreamTransformation;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.api.windowing.assigners.GlobalWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
 import org.apache.flink.streaming.api.windowing.triggers.CountTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.PurgingTrigger;
 import org.apache.flink.streaming.api.windowing.windows.GlobalWindow;
@@ -762,6 +769,46 @@ public class DataStreamTest extends TestLogger {
 		assertTrue(getOperatorForDataStream(processed) instanceof KeyedProcessOperator);
 	}
 
+	/**
+	 * Verify that a {@link KeyedStream#localReduce(ReduceFunction, long, Time)} call is translated to an
+	 * operator that runs before the shuffle of the keyed stream.
+	 */
+	@Test
+	public void testLocalReduceTranslation() {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		DataStreamSource<Long> src = env.generateSequence(0, 0);
+
+		KeyedStream<Long, Long> localReduced = src
+				.keyBy(new IdentityKeySelector<Long>())
+				.localReduce(new SumReducer(), 10, Time.milliseconds(10));
+
+		assertTrue(localReduced.getTransformation() instanceof PartitionTransformation);
+		StreamTransformation<Long> localReduceTransformation =
+				((PartitionTransformation<Long>) localReduced.getTransformation()).getInput();
+		assertTrue(localReduceTransformation instanceof OneInputTransformation);
+		assertTrue(((OneInputTransformation<Long, Long>) localReduceTransformation).getOperator()
+				instanceof LocalReduceOperator);
+		assertEquals(src.getTransformation(), ((OneInputTransformation<Long, Long>) localReduceTransformation).getInput());
+		assertEquals(src.getParallelism(), localReduceTransformation.getParallelism());
+	}
+
+	/**
+	 * Verify that a {@link KeyedStream#localReduce(ReduceFunction, long, Time)} call is rejected for a stream
+	 * that is not shuffled by key.
+	 */
+	@Test
+	public void testLocalReduceRejectionOnReinterpretedKeyedStream() {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		DataStreamSource<Long> src = env.generateSequence(0, 0);
+
+		KeyedStream<Long, Long> keyed = DataStreamUtils.reinterpretAsKeyedStream(
+				src, new IdentityKeySelector<Long>(), BasicTypeInfo.LONG_TYPE_INFO);
+
+		expectedException.expect(UnsupportedOperationException.class);
+		expectedException.expectMessage("only supported for streams that are partitioned by keyBy()");
+		keyed.localReduce(new SumReducer(), 10, Time.milliseconds(10));
+	}
+
 	/**
 	 * Verify that a {@link DataStream#process(ProcessFunction)} call is correctly translated to an operator.
 	 */
@@ -1476,6 +1523,15 @@ public class DataStreamTest extends TestLogger {
 		}
 	}
 
+	private static class SumReducer implements ReduceFunction<Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long reduce(Long value1, Long value2) throws Exception {
+			return value1 + value2;
+		}
+	}
+
 	private static class IdentityKeySelector<T> implements KeySelector<T, T> {
 		private static final long serialVersionUID = 1L;
 
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.KeyedStatePrefetcher;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.TestProcessingTimeService;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link KeyedStatePrefetchBuffer}.
+ */
+public class KeyedStatePrefetchBufferTest extends TestLogger {
+
+	@Test
+	public void testPrefetchesBeforeProcessingInOrder() throws Exception {
+		TestingPrefetcher prefetcher = new TestingPrefetcher(3);
+		KeyedStatePrefetchBuffer<String, String, String> buffer = new KeyedStatePrefetchBuffer<>(
+			prefetcher,
+			value -> value.substring(0, 1),
+			null,
+			StringSerializer.INSTANCE,
+			record -> Arrays.asList("x", "y"),
+			new TestProcessingTimeService(),
+			timestamp -> {});
+
+		assertFalse(buffer.add(new StreamRecord<>("a1")));
+		assertFalse(buffer.add(new StreamRecord<>("b1")));
+		assertTrue(buffer.add(new StreamRecord<>("a2")));
+
+		List<String> processed = new ArrayList<>();
+		buffer.flush(record -> {
+			assertTrue(prefetcher.prefetched);
+			processed.add(record.getValue());
+		});
+
+		assertEquals(Arrays.asList("a1", "b1", "a2"), processed);
+		assertEquals(
+			new HashSet<>(Arrays.asList(
+				Tuple2.of("a", "x"), Tuple2.of("a", "y"), Tuple2.of("b", "x"), Tuple2.of("b", "y"))),
+			new HashSet<>(prefetcher.lastKeysAndNamespaces));
+		assertFalse(prefetcher.prefetched);
+
+		// an empty buffer does not prefetch
+		buffer.flush(record -> processed.add(record.getValue()));
+		assertEquals(1, prefetcher.numPrefetches);
+		assertEquals(3, processed.size());
+	}
+
+	@Test
+	public void testCopiesReusedRecords() throws Exception {
+		TestingPrefetcher prefetcher = new TestingPrefetcher(10);
+		KeyedStatePrefetchBuffer<String, String, String> buffer = new KeyedStatePrefetchBuffer<>(
+			prefetcher,
+			value -> value,
+			StringSerializer.INSTANCE,
+			StringSerializer.INSTANCE,
+			record -> Arrays.asList("x"),
+			new TestProcessingTimeService(),
+			timestamp -> {});
+
+		StreamRecord<String> record = new StreamRecord<>("a", 1L);
+		buffer.add(record);
+		record.replace("b", 2L);
+		buffer.add(record);
+
+		List<StreamRecord<String>> processed = new ArrayList<>();
+		buffer.flush(processed::add);
+
+		assertEquals(Arrays.asList(new StreamRecord<>("a", 1L), new StreamRecord<>("b", 2L)), processed);
+		assertNotSame(record, processed.get(1));
+	}
+
+	@Test
+	public void testFlushesAfterMaxDelay() throws Exception {
+		TestingPrefetcher prefetcher = new TestingPrefetcher(10);
+		TestProcessingTimeService processingTimeService = new TestProcessingTimeService();
+		List<String> processed = new ArrayList<>();
+		AtomicReference<KeyedStatePrefetchBuffer<String, String, String>> bufferRef = new AtomicReference<>();
+		KeyedStatePrefetchBuffer<String, String, String> buffer = new KeyedStatePrefetchBuffer<>(
+			prefetcher,
+			value -> value,
+			null,
+			StringSerializer.INSTANCE,
+			record -> Arrays.asList("x"),
+			processingTimeService,
+			timestamp -> bufferRef.get().flush(record -> processed.add(record.getValue())));
+		bufferRef.set(buffer);
+
+		buffer.add(new StreamRecord<>("a"));
+		processingTimeService.setCurrentTime(TestingPrefetcher.MAX_DELAY / 2);
+		buffer.add(new StreamRecord<>("b"));
+		assertEquals(1, processingTimeService.getNumActiveTimers());
+
+		processingTimeService.setCurrentTime(TestingPrefetcher.MAX_DELAY);
+		assertEquals(Arrays.asList("a", "b"), processed);
+		assertTrue(buffer.isEmpty());
+		assertEquals(0, processingTimeService.getNumActiveTimers());
+
+		// an explicit flush cancels the delayed flush
+		buffer.add(new StreamRecord<>("c"));
+		assertEquals(1, processingTimeService.getNumActiveTimers());
+		buffer.flush(record -> processed.add(record.getValue()));
+		assertEquals(0, processingTimeService.getNumActiveTimers());
+		assertEquals(2, prefetcher.numPrefetches);
+	}
+
+	private static final class TestingPrefetcher implements KeyedStatePrefetcher<String> {
+
+		private static final long MAX_DELAY = 100L;
+
+		private final int batchSize;
+
+		private boolean prefetched;
+
+		private int numPrefetches;
+
+		private List<Tuple2<String, ?>> lastKeysAndNamespaces;
+
+		TestingPrefetcher(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public int getPrefetchBatchSize() {
+			return batchSize;
+		}
+
+		@Override
+		public long getPrefetchMaxDelay() {
+			return MAX_DELAY;
+		}
+
+		@Nonnull
+		@Override
+		public <N> CompletableFuture<Void> prefetch(
+			@Nonnull Collection<Tuple2<String, N>> keysAndNamespaces,
+			@Nonnull TypeSerializer<N> namespaceSerializer) {
+			prefetched = true;
+			numPrefetches++;
+			lastKeysAndNamespaces = new ArrayList<>(keysAndNamespaces);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@Override
+		public void releasePrefetched() {
+			prefetched = false;
+		}
+	}
+}
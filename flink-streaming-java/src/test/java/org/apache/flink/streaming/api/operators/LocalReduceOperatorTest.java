@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.TestHarnessUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Tests for {@link LocalReduceOperator}.
+ */
+public class LocalReduceOperatorTest {
+
+	@Test
+	public void testLocalReduce() throws Exception {
+		LocalReduceOperator<Integer, Integer> operator =
+			new LocalReduceOperator<>(new SumReducer(), new ModuloKeySelector(), IntSerializer.INSTANCE, 4L, 0L);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+			new OneInputStreamOperatorTestHarness<>(operator);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		testHarness.open();
+
+		testHarness.processElement(new StreamRecord<>(1, 1L));
+		testHarness.processElement(new StreamRecord<>(2, 2L));
+		testHarness.processElement(new StreamRecord<>(3, 3L));
+		Assert.assertTrue(testHarness.getOutput().isEmpty());
+
+		// the count trigger flushes the fourth record, keys are emitted in the order of their first record
+		testHarness.processElement(new StreamRecord<>(5, 4L));
+
+		expectedOutput.add(new StreamRecord<>(9, 4L));
+		expectedOutput.add(new StreamRecord<>(2, 2L));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		// watermarks must not overtake the bundled records
+		testHarness.processElement(new StreamRecord<>(4, 5L));
+		testHarness.processElement(new StreamRecord<>(6, 6L));
+		testHarness.processWatermark(new Watermark(6L));
+
+		expectedOutput.add(new StreamRecord<>(10, 6L));
+		expectedOutput.add(new Watermark(6L));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		// checkpoint barriers must not overtake the bundled records
+		testHarness.processElement(new StreamRecord<>(7, 7L));
+		operator.prepareSnapshotPreBarrier(1L);
+
+		expectedOutput.add(new StreamRecord<>(7, 7L));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		testHarness.close();
+	}
+
+	private static class SumReducer implements ReduceFunction<Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Integer reduce(Integer value1, Integer value2) throws Exception {
+			return value1 + value2;
+		}
+	}
+
+	private static class ModuloKeySelector implements KeySelector<Integer, Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Integer getKey(Integer value) throws Exception {
+			return value % 2;
+		}
+	}
+}
@@ -42,6 +42,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  *     <li>RichFunction methods are called correctly</li>
  *     <li>Timestamps of processed elements match the input timestamp</li>
  *     <li>Watermarks are correctly forwarded</li>
+ *     <li>Bundles are flushed in mini-batch mode</li>
  * </ul>
  */
 
@@ -79,6 +80,91 @@ public class StreamGroupedReduceTest {
 		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
 	}
 
+	@Test
+	public void testMiniBatchGroupedReduce() throws Exception {
+
+		KeySelector<Integer, Integer> keySelector = new IntegerKeySelector();
+
+		StreamGroupedReduce<Integer> operator =
+				new StreamGroupedReduce<>(new MyReducer(), IntSerializer.INSTANCE, 10L, 0L);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+				new KeyedOneInputStreamOperatorTestHarness<>(operator, keySelector, BasicTypeInfo.INT_TYPE_INFO);
+
+		long initialTime = 0L;
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		testHarness.open();
+
+		testHarness.processElement(new StreamRecord<>(1, initialTime + 1));
+		testHarness.processElement(new StreamRecord<>(2, initialTime + 3));
+		testHarness.processElement(new StreamRecord<>(1, initialTime + 2));
+		testHarness.processElement(new StreamRecord<>(2, initialTime + 4));
+		testHarness.processElement(new StreamRecord<>(3, initialTime + 5));
+		Assert.assertTrue(testHarness.getOutput().isEmpty());
+
+		// the watermark flushes one record per key with the highest timestamp of the key
+		testHarness.processWatermark(new Watermark(initialTime + 5));
+
+		expectedOutput.add(new StreamRecord<>(2, initialTime + 2));
+		expectedOutput.add(new StreamRecord<>(4, initialTime + 4));
+		expectedOutput.add(new StreamRecord<>(3, initialTime + 5));
+		expectedOutput.add(new Watermark(initialTime + 5));
+
+		// the bundle is combined with the state of the previous bundles
+		testHarness.processElement(new StreamRecord<>(1, initialTime + 6));
+		testHarness.processElement(new StreamRecord<>(1, initialTime + 7));
+		operator.prepareSnapshotPreBarrier(1L);
+
+		expectedOutput.add(new StreamRecord<>(4, initialTime + 7));
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		testHarness.close();
+	}
+
+	@Test
+	public void testMiniBatchGroupedReduceTriggers() throws Exception {
+
+		KeySelector<Integer, Integer> keySelector = new IntegerKeySelector();
+
+		StreamGroupedReduce<Integer> operator =
+				new StreamGroupedReduce<>(new MyReducer(), IntSerializer.INSTANCE, 3L, 100L);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+				new KeyedOneInputStreamOperatorTestHarness<>(operator, keySelector, BasicTypeInfo.INT_TYPE_INFO);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		testHarness.open();
+		testHarness.setProcessingTime(0L);
+
+		// the count trigger flushes the third record
+		testHarness.processElement(new StreamRecord<>(5));
+		testHarness.processElement(new StreamRecord<>(5));
+		testHarness.processElement(new StreamRecord<>(7));
+
+		expectedOutput.add(new StreamRecord<>(10));
+		expectedOutput.add(new StreamRecord<>(7));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		// the time trigger flushes the bundle 100 ms after its first record
+		testHarness.setProcessingTime(50L);
+		testHarness.processElement(new StreamRecord<>(5));
+		testHarness.setProcessingTime(120L);
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		testHarness.setProcessingTime(150L);
+		expectedOutput.add(new StreamRecord<>(15));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		// closing flushes the remaining records
+		testHarness.processElement(new StreamRecord<>(7));
+		testHarness.close();
+		expectedOutput.add(new StreamRecord<>(14));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+	}
+
 	@Test
 	public void testOpenClose() throws Exception {
 
@@ -18,12 +18,33 @@
 
 package org.apache.flink.streaming.runtime.io;
 
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.io.network.ConnectionManager;
+import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGateBuilder;
+
+import org.junit.Test;
 
 import java.io.IOException;
 
+import static org.apache.flink.runtime.io.network.partition.InputChannelTestUtils.createDummyConnectionManager;
+import static org.apache.flink.runtime.io.network.partition.InputChannelTestUtils.createRemoteInputChannel;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for the behaviors of the {@link BarrierBuffer} with {@link CachedBufferBlocker}.
@@ -46,4 +67,86 @@ public class CreditBasedBarrierBufferTest extends BarrierBufferTestBase {
 
 		assertEquals("Wrong alignment buffered bytes", actualBytesBuffered, expectedBuffered);
 	}
+
+	/**
+	 * Compressed buffers are decompressed by the input gate. The buffers blocked during the
+	 * alignment must keep their data while the following buffers are decompressed.
+	 */
+	@Test
+	public void testBlockedCompressedBuffersKeepTheirData() throws Exception {
+		final int bufferSize = 4 * 1024;
+		final int numBlockedBuffers = 3;
+		final BufferCompressor compressor = new BufferCompressor(bufferSize, "LZ4");
+
+		final SingleInputGate gate = new SingleInputGateBuilder()
+			.setNumberOfChannels(2)
+			.setBufferDecompressor(new BufferDecompressor(bufferSize, "LZ4"))
+			.build();
+		final ConnectionManager connectionManager = createDummyConnectionManager();
+		final RemoteInputChannel blockedChannel = createRemoteInputChannel(gate, 0, connectionManager);
+		final RemoteInputChannel otherChannel = createRemoteInputChannel(gate, 1, connectionManager);
+
+		// channel 0 is blocked by the barrier, while the buffers of channel 1 (with other data) are
+		// decompressed in between
+		final CheckpointBarrier barrier =
+			new CheckpointBarrier(1L, 1L, CheckpointOptions.forCheckpointWithDefaultLocation());
+		blockedChannel.onBuffer(EventSerializer.toBuffer(barrier), 0, -1);
+		for (int i = 0; i < numBlockedBuffers; i++) {
+			blockedChannel.onBuffer(createCompressedBuffer(compressor, bufferSize, i), i + 1, -1);
+			otherChannel.onBuffer(createCompressedBuffer(compressor, bufferSize, 100 + i), i, -1);
+		}
+		otherChannel.onBuffer(EventSerializer.toBuffer(barrier), numBlockedBuffers, -1);
+
+		final BarrierBuffer barrierBuffer = createBarrierHandler(gate);
+
+		for (int i = 0; i < numBlockedBuffers; i++) {
+			BufferOrEvent boe = barrierBuffer.getNextNonBlocked();
+			assertNotNull(boe);
+			assertEquals(1, boe.getChannelIndex());
+			verifyBufferData(boe.getBuffer(), bufferSize, 100 + i);
+			boe.getBuffer().recycleBuffer();
+		}
+
+		// the alignment is complete, the blocked buffers of channel 0 are returned
+		for (int i = 0; i < numBlockedBuffers; i++) {
+			BufferOrEvent boe = barrierBuffer.getNextNonBlocked();
+			assertNotNull(boe);
+			assertEquals(0, boe.getChannelIndex());
+			verifyBufferData(boe.getBuffer(), bufferSize, i);
+			boe.getBuffer().recycleBuffer();
+		}
+
+		barrierBuffer.cleanup();
+		gate.close();
+	}
+
+	private static Buffer createCompressedBuffer(BufferCompressor compressor, int bufferSize, int value) {
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(bufferSize);
+		for (int i = 0; i < bufferSize; i += 4) {
+			segment.putInt(i, value);
+		}
+		final Buffer buffer = new NetworkBuffer(segment, FreeingBufferRecycler.INSTANCE, true, bufferSize);
+
+		// like the buffers received from the network, the compressed data lives in a segment of its own
+		final Buffer compressed = compressor.compressToIntermediateBuffer(buffer);
+		assertTrue(compressed.isCompressed());
+		final MemorySegment receivedSegment = MemorySegmentFactory.allocateUnpooledSegment(bufferSize);
+		compressed.getMemorySegment().copyTo(
+			compressed.getMemorySegmentOffset(), receivedSegment, 0, compressed.readableBytes());
+		final Buffer received = new NetworkBuffer(
+			receivedSegment, FreeingBufferRecycler.INSTANCE, true, compressed.readableBytes());
+		received.setCompressed(true);
+
+		compressed.recycleBuffer();
+		buffer.recycleBuffer();
+		return received;
+	}
+
+	private static void verifyBufferData(Buffer buffer, int bufferSize, int value) {
+		assertFalse(buffer.isCompressed());
+		assertEquals(bufferSize, buffer.readableBytes());
+		for (int i = 0; i < bufferSize; i += 4) {
+			assertEquals(value, buffer.getMemorySegment().getInt(buffer.getMemorySegmentOffset() + i));
+		}
+	}
 }
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.api.java.typeutils.runtime.ValueSerializer;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.streamstatus.StreamStatus;
+import org.apache.flink.types.IntValue;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link RecordWriterOutput}.
+ */
+public class RecordWriterOutputTest extends TestLogger {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testObjectHandoverCopiesReusedObjects() throws Exception {
+		RecordWriter<SerializationDelegate<StreamRecord<IntValue>>> recordWriter = mock(RecordWriter.class);
+		RecordWriterOutput<IntValue> output = new RecordWriterOutput<>(
+			recordWriter,
+			new ValueSerializer<>(IntValue.class),
+			null,
+			() -> StreamStatus.ACTIVE);
+
+		output.enableObjectHandover();
+
+		ArgumentCaptor<Function> copierCaptor = ArgumentCaptor.forClass(Function.class);
+		verify(recordWriter).setObjectCopier(copierCaptor.capture());
+		Function<SerializationDelegate<StreamElement>, Object> copier = copierCaptor.getValue();
+
+		// the record writer hands over a copy of every emitted record
+		List<Object> handedOver = new ArrayList<>();
+		doAnswer(invocation -> handedOver.add(copier.apply(invocation.getArgument(0))))
+			.when(recordWriter).emit(any());
+
+		// with object reuse, the producer modifies both the record and the value after emitting them
+		IntValue value = new IntValue(1);
+		StreamRecord<IntValue> record = new StreamRecord<>(value, 1L);
+		output.collect(record);
+
+		value.setValue(2);
+		record.replace(value, 2L);
+		output.collect(record);
+
+		value.setValue(3);
+		record.replace(value, 3L);
+
+		assertEquals(
+			Arrays.asList(new StreamRecord<>(new IntValue(1), 1L), new StreamRecord<>(new IntValue(2), 2L)),
+			handedOver);
+	}
+}
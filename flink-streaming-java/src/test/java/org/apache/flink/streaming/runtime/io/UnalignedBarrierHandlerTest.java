@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
+import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.decline.AlignmentLimitExceededException;
+import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineOnCancellationBarrierException;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
+import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RunnableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the behavior of the {@link UnalignedBarrierHandler}.
+ */
+public class UnalignedBarrierHandlerTest {
+
+	private static final int PAGE_SIZE = 512;
+
+	private static IOManager ioManager;
+
+	@BeforeClass
+	public static void setup() {
+		ioManager = new IOManagerAsync();
+	}
+
+	@AfterClass
+	public static void shutdownIOManager() {
+		ioManager.shutdown();
+	}
+
+	@Test
+	public void testTriggerOnFirstBarrierWithoutBlocking() throws Exception {
+		BufferOrEvent[] sequence = {
+			createBuffer(0), createBuffer(1), createBuffer(2),
+			createBarrier(1, 1),
+			createBuffer(0), createBuffer(1), createBuffer(2),
+			createBarrier(1, 0),
+			createBuffer(0), createBuffer(2),
+			createBarrier(1, 2),
+			createBuffer(0), createBuffer(1), createBuffer(2)
+		};
+
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 3, Arrays.asList(sequence));
+		UnalignedBarrierHandler handler = new UnalignedBarrierHandler(gate, ioManager, -1L);
+
+		CheckpointSequenceValidator validator = new CheckpointSequenceValidator(1L);
+		handler.registerCheckpointEventHandler(validator);
+
+		// all buffers are passed through in order, the checkpoint is triggered by the first barrier
+		for (BufferOrEvent boe : sequence) {
+			if (boe.isBuffer()) {
+				assertEquals(boe, handler.getNextNonBlocked());
+			}
+		}
+		assertEquals(1, validator.i);
+		assertNull(handler.getNextNonBlocked());
+		assertTrue(handler.isEmpty());
+	}
+
+	@Test
+	public void testRecordsInFlightArePersisted() throws Exception {
+		BufferOrEvent[] sequence = {
+			createBarrier(1, 0),
+			createBuffer(0), createBuffer(1),
+			createBarrier(1, 1),
+			createBuffer(0), createBuffer(1)
+		};
+
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		UnalignedBarrierHandler handler = new UnalignedBarrierHandler(gate, ioManager, -1L);
+		handler.registerCheckpointEventHandler(new CheckpointSequenceValidator(1L));
+
+		// the first barrier triggers the checkpoint, only channel 1 is in flight
+		BufferOrEvent next = handler.getNextNonBlocked();
+		assertEquals(0, next.getChannelIndex());
+		assertNull(handler.getInFlightRecordOutput(0));
+
+		RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotFuture =
+			handler.snapshotInFlightData(1L, new MemCheckpointStreamFactory(PAGE_SIZE));
+		assertFalse(snapshotFuture.isDone());
+
+		next = handler.getNextNonBlocked();
+		assertEquals(1, next.getChannelIndex());
+		DataOutputView inFlightOutput = handler.getInFlightRecordOutput(1);
+		assertNotNull(inFlightOutput);
+		inFlightOutput.writeLong(42L);
+
+		// the barrier of channel 1 completes the recording, subsequent records are not in flight
+		next = handler.getNextNonBlocked();
+		assertEquals(0, next.getChannelIndex());
+		assertNull(handler.getInFlightRecordOutput(0));
+		assertEquals(1, handler.getNextNonBlocked().getChannelIndex());
+		assertNull(handler.getInFlightRecordOutput(1));
+
+		snapshotFuture.run();
+		StreamStateHandle stateHandle = snapshotFuture.get().getJobManagerOwnedSnapshot();
+		assertNotNull(stateHandle);
+
+		List<Long> restored = new ArrayList<>();
+		UnalignedBarrierHandler.readInFlightRecords(
+			Collections.singletonList(stateHandle),
+			in -> restored.add(in.readLong()));
+		assertEquals(Collections.singletonList(42L), restored);
+	}
+
+	@Test
+	public void testCancellationAbortsRecording() throws Exception {
+		BufferOrEvent[] sequence = {
+			createBarrier(1, 0),
+			createBuffer(1),
+			createCancellationBarrier(1, 1),
+			createBuffer(1)
+		};
+
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		UnalignedBarrierHandler handler = new UnalignedBarrierHandler(gate, ioManager, -1L);
+		handler.registerCheckpointEventHandler(new CheckpointSequenceValidator(1L, -1L));
+
+		assertEquals(1, handler.getNextNonBlocked().getChannelIndex());
+		RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotFuture =
+			handler.snapshotInFlightData(1L, new MemCheckpointStreamFactory(PAGE_SIZE));
+		handler.getInFlightRecordOutput(1).writeLong(42L);
+
+		// the cancellation barrier discards the in-flight data
+		assertEquals(1, handler.getNextNonBlocked().getChannelIndex());
+		assertNull(handler.getInFlightRecordOutput(1));
+
+		// the snapshot must not be acknowledged without its in-flight data
+		snapshotFuture.run();
+		try {
+			snapshotFuture.get();
+			fail("The snapshot of aborted in-flight data should fail.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof CheckpointDeclineOnCancellationBarrierException);
+		}
+	}
+
+	@Test
+	public void testInFlightRecordsAreSpilled() throws Exception {
+		BufferOrEvent[] sequence = {
+			createBarrier(1, 0),
+			createBarrier(1, 1)
+		};
+
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		UnalignedBarrierHandler handler = new UnalignedBarrierHandler(gate, ioManager, -1L);
+		handler.registerCheckpointEventHandler(new CheckpointSequenceValidator(1L));
+
+		// the first barrier triggers the checkpoint, the second one completes the recording
+		handler.getNextNonBlocked();
+		RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotFuture =
+			handler.snapshotInFlightData(1L, new MemCheckpointStreamFactory(64 * 1024 * 1024));
+
+		// write more records than are kept in memory
+		int numRecords = 3 * UnalignedBarrierHandler.IN_MEMORY_BYTES_THRESHOLD / 1024;
+		byte[] record = new byte[1024];
+		for (int i = 0; i < numRecords; i++) {
+			DataOutputView inFlightOutput = handler.getInFlightRecordOutput(1);
+			inFlightOutput.writeInt(i);
+			inFlightOutput.write(record);
+		}
+		assertEquals(1, countSpillFiles());
+
+		assertNull(handler.getNextNonBlocked());
+		snapshotFuture.run();
+		StreamStateHandle stateHandle = snapshotFuture.get().getJobManagerOwnedSnapshot();
+		assertEquals(0, countSpillFiles());
+
+		List<Integer> restored = new ArrayList<>();
+		UnalignedBarrierHandler.readInFlightRecords(
+			Collections.singletonList(stateHandle),
+			in -> {
+				restored.add(in.readInt());
+				in.skipBytesToRead(record.length);
+			});
+		assertEquals(numRecords, restored.size());
+		for (int i = 0; i < numRecords; i++) {
+			assertEquals(i, (int) restored.get(i));
+		}
+	}
+
+	@Test
+	public void testCheckpointIsDeclinedIfInFlightDataExceedsLimit() throws Exception {
+		BufferOrEvent[] sequence = {
+			createBarrier(1, 0),
+			createBarrier(1, 1)
+		};
+
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		UnalignedBarrierHandler handler = new UnalignedBarrierHandler(gate, ioManager, 100L);
+		CheckpointSequenceValidator validator = new CheckpointSequenceValidator(1L, -1L);
+		handler.registerCheckpointEventHandler(validator);
+
+		handler.getNextNonBlocked();
+		RunnableFuture<SnapshotResult<StreamStateHandle>> snapshotFuture =
+			handler.snapshotInFlightData(1L, new MemCheckpointStreamFactory(PAGE_SIZE));
+
+		handler.getInFlightRecordOutput(1).write(new byte[101]);
+		// the limit is exceeded, the checkpoint is declined and no more records are in flight
+		assertNull(handler.getInFlightRecordOutput(1));
+		assertEquals(2, validator.i);
+
+		snapshotFuture.run();
+		try {
+			snapshotFuture.get();
+			fail("The snapshot of aborted in-flight data should fail.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof AlignmentLimitExceededException);
+		}
+	}
+
+	@Test
+	public void testSubsumedCheckpointIsAborted() throws Exception {
+		BufferOrEvent[] sequence = {
+			createBarrier(1, 0),
+			createBuffer(1),
+			createBarrier(2, 0),
+			createBarrier(2, 1),
+			createBuffer(1)
+		};
+
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		UnalignedBarrierHandler handler = new UnalignedBarrierHandler(gate, ioManager, -1L);
+		CheckpointSequenceValidator validator = new CheckpointSequenceValidator(1L, -1L, 2L);
+		handler.registerCheckpointEventHandler(validator);
+
+		assertEquals(1, handler.getNextNonBlocked().getChannelIndex());
+		assertEquals(1, handler.getNextNonBlocked().getChannelIndex());
+		assertNull(handler.getInFlightRecordOutput(1));
+		assertEquals(3, validator.i);
+		assertEquals(2L, handler.getCurrentCheckpointId());
+	}
+
+	// ------------------------------------------------------------------------
+	//  Utils
+	// ------------------------------------------------------------------------
+
+	private static int countSpillFiles() {
+		int count = 0;
+		for (File dir : ioManager.getSpillingDirectories()) {
+			File[] files = dir.listFiles();
+			count += files == null ? 0 : files.length;
+		}
+		return count;
+	}
+
+	private static BufferOrEvent createBarrier(long id, int channel) {
+		return new BufferOrEvent(new CheckpointBarrier(id, System.currentTimeMillis(), CheckpointOptions.forCheckpointWithDefaultLocation()), channel);
+	}
+
+	private static BufferOrEvent createCancellationBarrier(long id, int channel) {
+		return new BufferOrEvent(new CancelCheckpointMarker(id), channel);
+	}
+
+	private static BufferOrEvent createBuffer(int channel) {
+		return new BufferOrEvent(
+				new NetworkBuffer(MemorySegmentFactory.wrap(new byte[]{1, 2}), FreeingBufferRecycler.INSTANCE), channel);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Testing Mocks
+	// ------------------------------------------------------------------------
+
+	private static class CheckpointSequenceValidator extends AbstractInvokable {
+
+		private final long[] checkpointIDs;
+
+		private int i = 0;
+
+		private CheckpointSequenceValidator(long... checkpointIDs) {
+			super(new DummyEnvironment("test", 1, 0));
+			this.checkpointIDs = checkpointIDs;
+		}
+
+		@Override
+		public void invoke() {
+			throw new UnsupportedOperationException("should never be called");
+		}
+
+		@Override
+		public boolean triggerCheckpoint(CheckpointMetaData checkpointMetaData, CheckpointOptions checkpointOptions, boolean advanceToEndOfEventTime) throws Exception {
+			throw new UnsupportedOperationException("should never be called");
+		}
+
+		@Override
+		public void triggerCheckpointOnBarrier(CheckpointMetaData checkpointMetaData, CheckpointOptions checkpointOptions, CheckpointMetrics checkpointMetrics) throws Exception {
+			assertTrue("More checkpoints than expected", i < checkpointIDs.length);
+
+			final long expectedId = checkpointIDs[i++];
+			if (expectedId >= 0) {
+				assertEquals("wrong checkpoint id", expectedId, checkpointMetaData.getCheckpointId());
+				assertEquals(0L, checkpointMetrics.getAlignmentDurationNanos());
+			} else {
+				fail("got 'triggerCheckpointOnBarrier()' when expecting an 'abortCheckpointOnBarrier()'");
+			}
+		}
+
+		@Override
+		public void abortCheckpointOnBarrier(long checkpointId, Throwable cause) {
+			assertTrue("More checkpoints than expected", i < checkpointIDs.length);
+
+			final long expectedId = checkpointIDs[i++];
+			if (expectedId < 0) {
+				assertEquals("wrong checkpoint id for checkpoint abort", -expectedId, checkpointId);
+			} else {
+				fail("got 'abortCheckpointOnBarrier()' when expecting an 'triggerCheckpointOnBarrier()'");
+			}
+		}
+
+		@Override
+		public void notifyCheckpointComplete(long checkpointId) throws Exception {
+			throw new UnsupportedOperationException("should never be called");
+		}
+	}
+}
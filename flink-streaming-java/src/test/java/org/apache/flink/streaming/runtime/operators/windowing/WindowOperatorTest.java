@@ -19,8 +19,10 @@
 package org.apache.flink.streaming.runtime.operators.windowing;
 
 import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.AggregateFunction;
 import org.apache.flink.api.common.functions.FoldFunction;
 import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
 import org.apache.flink.api.common.state.FoldingStateDescriptor;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
@@ -236,6 +238,111 @@ public class WindowOperatorTest extends TestLogger {
 		Assert.assertEquals("Close was not called.", 2, closeCalled.get());
 	}
 
+	@Test
+	public void testSlidingEventTimeWindowsReduceWithPaneSharing() throws Exception {
+		final int windowSize = 3;
+		final int windowSlide = 1;
+
+		ReducingStateDescriptor<Tuple2<String, Integer>> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				new SumReducer(),
+				STRING_INT_TUPLE.createSerializer(new ExecutionConfig()));
+
+		SlidingPaneWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> operator = new SlidingPaneWindowOperator<>(
+				SlidingEventTimeWindows.of(Time.of(windowSize, TimeUnit.SECONDS), Time.of(windowSlide, TimeUnit.SECONDS)),
+				new TimeWindow.Serializer(),
+				new TupleKeySelector(),
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+				stateDesc,
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+				EventTimeTrigger.create(),
+				null /* late data output tag */);
+
+		testSlidingEventTimeWindows(operator);
+	}
+
+	@Test
+	public void testSlidingEventTimeWindowsAggregateWithPaneSharing() throws Exception {
+		final int windowSize = 3;
+		final int windowSlide = 1;
+
+		// the aggregator merges into its first accumulator, which must not be the state of a retained pane
+		AggregatingStateDescriptor<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> stateDesc =
+				new AggregatingStateDescriptor<>("window-contents",
+					new MutableSumAggregator(),
+					STRING_INT_TUPLE.createSerializer(new ExecutionConfig()));
+
+		SlidingPaneWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> operator = new SlidingPaneWindowOperator<>(
+				SlidingEventTimeWindows.of(Time.of(windowSize, TimeUnit.SECONDS), Time.of(windowSlide, TimeUnit.SECONDS)),
+				new TimeWindow.Serializer(),
+				new TupleKeySelector(),
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+				stateDesc,
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+				EventTimeTrigger.create(),
+				null /* late data output tag */);
+
+		testSlidingEventTimeWindows(operator);
+	}
+
+	@Test
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void testSlidingEventTimeWindowsWithPaneSharingSideOutputsLateElements() throws Exception {
+		final int windowSize = 3;
+		final int windowSlide = 1;
+
+		ReducingStateDescriptor<Tuple2<String, Integer>> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				new SumReducer(),
+				STRING_INT_TUPLE.createSerializer(new ExecutionConfig()));
+
+		SlidingPaneWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> operator = new SlidingPaneWindowOperator<>(
+				SlidingEventTimeWindows.of(Time.of(windowSize, TimeUnit.SECONDS), Time.of(windowSlide, TimeUnit.SECONDS)),
+				new TimeWindow.Serializer(),
+				new TupleKeySelector(),
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+				stateDesc,
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+				EventTimeTrigger.create(),
+				lateOutputTag);
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+			createTestHarness(operator);
+
+		testHarness.open();
+
+		ConcurrentLinkedQueue<Object> expected = new ConcurrentLinkedQueue<>();
+		ConcurrentLinkedQueue<Object> lateExpected = new ConcurrentLinkedQueue<>();
+
+		testHarness.processWatermark(new Watermark(2999));
+		expected.add(new Watermark(2999));
+
+		// all windows of this element are late
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 500));
+		lateExpected.add(new StreamRecord<>(new Tuple2<>("key1", 1), 500));
+
+		// only the last window of this element, [1000, 4000), is not late
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 1500));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 3500));
+
+		testHarness.processWatermark(new Watermark(3999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key1", 2), 3999));
+		expected.add(new Watermark(3999));
+
+		testHarness.processWatermark(new Watermark(6999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key1", 1), 4999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key1", 1), 5999));
+		expected.add(new Watermark(6999));
+
+		TestHarnessUtil.assertOutputEqualsSorted("Output was not correct.", expected, testHarness.getOutput(), new Tuple2ResultSortComparator());
+
+		TestHarnessUtil.assertOutputEqualsSorted(
+				"SideOutput was not correct.",
+				lateExpected,
+				(Iterable) testHarness.getSideOutput(lateOutputTag),
+				new Tuple2ResultSortComparator());
+
+		testHarness.close();
+	}
+
 	private void testTumblingEventTimeWindows(OneInputStreamOperator<Tuple2<String, Integer>, Tuple2<String, Integer>> operator) throws Exception {
 		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
 			createTestHarness(operator);
@@ -2564,6 +2671,33 @@ public class WindowOperatorTest extends TestLogger {
 		}
 	}
 
+	private static class MutableSumAggregator implements AggregateFunction<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Tuple2<String, Integer> createAccumulator() {
+			return new Tuple2<>("", 0);
+		}
+
+		@Override
+		public Tuple2<String, Integer> add(Tuple2<String, Integer> value, Tuple2<String, Integer> accumulator) {
+			accumulator.f0 = value.f0;
+			accumulator.f1 += value.f1;
+			return accumulator;
+		}
+
+		@Override
+		public Tuple2<String, Integer> getResult(Tuple2<String, Integer> accumulator) {
+			return new Tuple2<>(accumulator.f0, accumulator.f1);
+		}
+
+		@Override
+		public Tuple2<String, Integer> merge(Tuple2<String, Integer> a, Tuple2<String, Integer> b) {
+			a.f1 += b.f1;
+			return a;
+		}
+	}
+
 	private static class RichSumReducer<W extends Window> extends RichWindowFunction<Tuple2<String, Integer>, Tuple2<String, Integer>, String, W> {
 		private static final long serialVersionUID = 1L;
 
@@ -28,11 +28,14 @@ import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.api.common.typeutils.base.StringSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
 import org.apache.flink.runtime.checkpoint.TaskStateSnapshot;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
@@ -48,6 +51,7 @@ import org.apache.flink.runtime.operators.testutils.MockInputSplitProvider;
 import org.apache.flink.runtime.state.StateInitializationContext;
 import org.apache.flink.runtime.state.StateSnapshotContext;
 import org.apache.flink.runtime.state.TestTaskStateManager;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.graph.StreamEdge;
 import org.apache.flink.streaming.api.graph.StreamNode;
@@ -56,6 +60,7 @@ import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.operators.StreamMap;
 import org.apache.flink.streaming.api.operators.StreamOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatus;
 import org.apache.flink.streaming.util.TestHarnessUtil;
@@ -80,6 +85,7 @@ import scala.concurrent.duration.Deadline;
 import scala.concurrent.duration.FiniteDuration;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -570,6 +576,55 @@ public class OneInputStreamTaskTest extends TestLogger {
 		TestingStreamOperator.numberSnapshotCalls = 0;
 	}
 
+	/**
+	 * Tests that the in-flight records of a restored unaligned checkpoint are replayed even if
+	 * unaligned checkpoints are disabled for the restored job.
+	 */
+	@Test
+	public void testRestoringInFlightDataWithUnalignedCheckpointsDisabled() throws Exception {
+		final OneInputStreamTaskTestHarness<String, String> testHarness = new OneInputStreamTaskTestHarness<>(
+				OneInputStreamTask::new, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+
+		testHarness.setupOutputForSingletonOperatorChain();
+
+		OperatorID operatorId = new OperatorID();
+		StreamConfig streamConfig = testHarness.getStreamConfig();
+		streamConfig.setStreamOperator(new StreamMap<>(new IdentityMap()));
+		streamConfig.setOperatorID(operatorId);
+		assertFalse(streamConfig.isUnalignedCheckpointsEnabled());
+
+		StreamElementSerializer<String> elementSerializer = new StreamElementSerializer<>(StringSerializer.INSTANCE);
+		ByteArrayOutputStreamWithPos bytes = new ByteArrayOutputStreamWithPos();
+		DataOutputViewStreamWrapper out = new DataOutputViewStreamWrapper(bytes);
+		out.writeInt(2);
+		elementSerializer.serialize(new StreamRecord<>("Hello", 1L), out);
+		elementSerializer.serialize(new StreamRecord<>("Ciao", 2L), out);
+
+		TaskStateSnapshot taskStateSnapshot = new TaskStateSnapshot();
+		taskStateSnapshot.putSubtaskStateByOperatorID(
+			operatorId,
+			new OperatorSubtaskState(null, null, null, null, new ByteStreamStateHandle("in-flight", bytes.toByteArray())));
+		testHarness.setTaskStateSnapshot(1L, taskStateSnapshot);
+
+		testHarness.invoke();
+		testHarness.waitForTaskRunning();
+
+		testHarness.processElement(new StreamRecord<>("Hola", 3L));
+		testHarness.waitForInputProcessing();
+
+		testHarness.endInput();
+		testHarness.waitForTaskCompletion();
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+		expectedOutput.add(new StreamRecord<>("Hello", 1L));
+		expectedOutput.add(new StreamRecord<>("Ciao", 2L));
+		expectedOutput.add(new StreamRecord<>("Hola", 3L));
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.",
+			expectedOutput,
+			testHarness.getOutput());
+	}
+
 	@Test
 	public void testQuiesceTimerServiceAfterOpClose() throws Exception {
 
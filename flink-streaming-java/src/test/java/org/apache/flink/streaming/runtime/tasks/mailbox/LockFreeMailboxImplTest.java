@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks.mailbox;
+
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link LockFreeMailboxImpl}, in addition to the contract tests of {@link MailboxImplTest}.
+ */
+public class LockFreeMailboxImplTest extends MailboxImplTest {
+
+	@Override
+	Mailbox createMailbox(int capacityPow2) {
+		return new LockFreeMailboxImpl(capacityPow2);
+	}
+
+	/**
+	 * A priority letter must be taken before all other letters, also when draining the mailbox.
+	 */
+	@Test
+	public void testDrainMailAfterClearAndPut() {
+		for (int i = 0; i < CAPACITY; ++i) {
+			Assert.assertTrue(mailbox.tryPutMail(() -> {}));
+		}
+
+		mailbox.clearAndPut(POISON_LETTER);
+
+		List<Runnable> drained = new ArrayList<>();
+		Assert.assertEquals(1, mailbox.drainMail(drained));
+		Assert.assertEquals(Collections.singletonList(POISON_LETTER), drained);
+		Assert.assertFalse(mailbox.hasMail());
+		Assert.assertEquals(0, mailbox.size());
+	}
+
+	/**
+	 * A reader that waits for mail must be woken up by a priority letter, and writers that wait for capacity must be
+	 * woken up when the reader drops the pending letters.
+	 */
+	@Test
+	public void testClearAndPutWakesUpWaitingThreads() throws Exception {
+		Thread waitingReader = new Thread(ThrowingRunnable.unchecked(() -> mailbox.waitUntilHasMail()));
+		waitingReader.start();
+		Thread.sleep(1);
+		Assert.assertTrue(waitingReader.isAlive());
+		mailbox.clearAndPut(POISON_LETTER);
+		waitingReader.join();
+
+		Assert.assertEquals(POISON_LETTER, mailbox.takeMail());
+
+		while (mailbox.tryPutMail(() -> {})) {}
+
+		Thread waitingWriter = new Thread(ThrowingRunnable.unchecked(() -> mailbox.putMail(() -> {})));
+		waitingWriter.start();
+		Thread.sleep(1);
+		Assert.assertTrue(waitingWriter.isAlive());
+		mailbox.clearAndPut(POISON_LETTER);
+		Assert.assertEquals(POISON_LETTER, mailbox.takeMail());
+		waitingWriter.join();
+	}
+}
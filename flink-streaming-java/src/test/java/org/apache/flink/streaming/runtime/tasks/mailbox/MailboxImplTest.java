@@ -26,7 +26,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 
 /**
@@ -34,18 +36,22 @@ import java.util.Queue;
  */
 public class MailboxImplTest {
 
-	private static final Runnable POISON_LETTER = () -> {};
-	private static final int CAPACITY_POW_2 = 1;
-	private static final int CAPACITY = 1 << CAPACITY_POW_2;
+	static final Runnable POISON_LETTER = () -> {};
+	static final int CAPACITY_POW_2 = 1;
+	static final int CAPACITY = 1 << CAPACITY_POW_2;
 
 	/**
 	 * Object under test.
 	 */
-	private Mailbox mailbox;
+	Mailbox mailbox;
 
 	@Before
 	public void setUp() throws Exception {
-		mailbox = new MailboxImpl(CAPACITY_POW_2);
+		mailbox = createMailbox(CAPACITY_POW_2);
+	}
+
+	Mailbox createMailbox(int capacityPow2) {
+		return new MailboxImpl(capacityPow2);
 	}
 
 	/**
@@ -101,6 +107,32 @@ public class MailboxImplTest {
 		waitingWriter.join();
 	}
 
+	@Test
+	public void testDrainMail() throws Exception {
+		final List<Runnable> testObjects = new ArrayList<>();
+		final List<Runnable> drained = new ArrayList<>();
+
+		Assert.assertEquals(0, mailbox.drainMail(drained));
+		Assert.assertEquals(0, mailbox.size());
+
+		for (int i = 0; i < CAPACITY; ++i) {
+			Runnable letter = () -> {};
+			testObjects.add(letter);
+			mailbox.putMail(letter);
+		}
+		Assert.assertEquals(CAPACITY, mailbox.size());
+
+		Assert.assertEquals(CAPACITY, mailbox.drainMail(drained));
+		Assert.assertEquals(testObjects, drained);
+		Assert.assertFalse(mailbox.hasMail());
+		Assert.assertEquals(0, mailbox.size());
+
+		// the mailbox can be filled up again after draining
+		for (int i = 0; i < CAPACITY; ++i) {
+			Assert.assertTrue(mailbox.tryPutMail(() -> {}));
+		}
+	}
+
 	/**
 	 * Test the producer-consumer pattern using the blocking methods on the mailbox.
 	 */
@@ -125,6 +157,22 @@ public class MailboxImplTest {
 			}));
 	}
 
+	/**
+	 * Test the producer-consumer pattern using the batched draining of the mailbox.
+	 */
+	@Test
+	public void testConcurrentPutDrain() throws Exception {
+		final Queue<Runnable> drained = new LinkedList<>();
+		testPutTake(mailbox -> {
+				if (drained.isEmpty()) {
+					mailbox.waitUntilHasMail();
+					mailbox.drainMail(drained);
+				}
+				return drained.remove();
+			},
+			MailboxSender::putMail);
+	}
+
 	/**
 	 * Test producer-consumer pattern through the mailbox in a concurrent setting (n-writer / 1-reader).
 	 */
@@ -68,6 +68,10 @@ public class KeyedOneInputStreamOperatorTestHarness<K, IN, OUT>
 		config.setStateKeySerializer(keyType.createSerializer(executionConfig));
 	}
 
+	public KeyedStateBackend<K> getKeyedStateBackend() {
+		return ((AbstractStreamOperator<?>) operator).getKeyedStateBackend();
+	}
+
 	public int numKeyedStateEntries() {
 		AbstractStreamOperator<?> abstractStreamOperator = (AbstractStreamOperator<?>) operator;
 		KeyedStateBackend<Object> keyedStateBackend = abstractStreamOperator.getKeyedStateBackend();
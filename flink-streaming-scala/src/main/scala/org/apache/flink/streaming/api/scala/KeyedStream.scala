@@ -317,6 +317,38 @@ class KeyedStream[T, K](javaStream: KeyedJavaStream[T, K]) extends DataStream[T]
     reduce(reducer)
   }
 
+  /**
+   * Creates a new [[DataStream]] by reducing the elements of this DataStream in mini-batch mode.
+   * The elements are pre-reduced per key in memory and the bundle is applied to the state when it
+   * holds `maxBundleSize` elements, when `maxBundleLatency` passed since its first element, on
+   * watermarks and before checkpoint barriers. One reduced element is emitted per key and bundle.
+   */
+  @PublicEvolving
+  def reduce(reducer: ReduceFunction[T], maxBundleSize: Long, maxBundleLatency: Time)
+      : DataStream[T] = {
+    if (reducer == null) {
+      throw new NullPointerException("Reduce function must not be null.")
+    }
+
+    asScalaStream(javaStream.reduce(reducer, maxBundleSize, maxBundleLatency))
+  }
+
+  /**
+   * Pre-reduces the elements per key with an associative reduce function before they are shuffled
+   * to the keyed operators. The reduced element of every key is emitted when the in-memory bundle
+   * holds `maxBundleSize` elements, when `maxBundleLatency` passed since its first element, on
+   * watermarks and before checkpoint barriers. The result is keyed in the same way as this stream.
+   */
+  @PublicEvolving
+  def localReduce(reducer: ReduceFunction[T], maxBundleSize: Long, maxBundleLatency: Time)
+      : KeyedStream[T, K] = {
+    if (reducer == null) {
+      throw new NullPointerException("Reduce function must not be null.")
+    }
+
+    new KeyedStream[T, K](javaStream.localReduce(reducer, maxBundleSize, maxBundleLatency))
+  }
+
   /**
    * Creates a new [[DataStream]] by folding the elements of this DataStream
    * using an associative fold function and an initial value. An independent 
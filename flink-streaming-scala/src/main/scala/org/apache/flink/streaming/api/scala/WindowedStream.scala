@@ -108,6 +108,19 @@ class WindowedStream[T, K, W <: Window](javaStream: JavaWStream[T, K, W]) {
     this
   }
 
+  /**
+   * Lets overlapping sliding time windows share their pre-aggregated state. Each element only
+   * updates the state of its pane and the panes are merged when a window fires.
+   *
+   * Pane sharing can only be used with sliding time windows, their default trigger, no evictor,
+   * no allowed lateness and one of the `reduce()` or `aggregate()` operations.
+   */
+  @PublicEvolving
+  def enablePaneSharing(): WindowedStream[T, K, W] = {
+    javaStream.enablePaneSharing()
+    this
+  }
+
   // ------------------------------------------------------------------------
   //  Operations on the keyed windows
   // ------------------------------------------------------------------------
@@ -30,15 +30,30 @@ public class LookupConfig {
 	private static final boolean DEFAULT_ASYNC_ENABLED = false;
 	private static final long DEFAULT_ASYNC_TIMEOUT_MS = 180_000;
 	private static final int DEFAULT_ASYNC_BUFFER_CAPACITY = 100;
+	private static final int DEFAULT_CACHE_MAX_SIZE = 0;
+	private static final long DEFAULT_CACHE_EXPIRE_AFTER_WRITE_MS = 0;
+	private static final boolean DEFAULT_CACHE_EMPTY_RESULT = false;
 
 	private final boolean asyncEnabled;
 	private final long asyncTimeoutMs;
 	private final int asyncBufferCapacity;
-
-	private LookupConfig(boolean asyncEnabled, long asyncTimeoutMs, int asyncBufferCapacity) {
+	private final int cacheMaxSize;
+	private final long cacheExpireAfterWriteMs;
+	private final boolean cacheEmptyResult;
+
+	private LookupConfig(
+			boolean asyncEnabled,
+			long asyncTimeoutMs,
+			int asyncBufferCapacity,
+			int cacheMaxSize,
+			long cacheExpireAfterWriteMs,
+			boolean cacheEmptyResult) {
 		this.asyncEnabled = asyncEnabled;
 		this.asyncTimeoutMs = asyncTimeoutMs;
 		this.asyncBufferCapacity = asyncBufferCapacity;
+		this.cacheMaxSize = cacheMaxSize;
+		this.cacheExpireAfterWriteMs = cacheExpireAfterWriteMs;
+		this.cacheEmptyResult = cacheEmptyResult;
 	}
 
 	/**
@@ -62,6 +77,35 @@ public class LookupConfig {
 		return asyncBufferCapacity;
 	}
 
+	/**
+	 * Returns true if the lookup results are cached.
+	 */
+	public boolean isCacheEnabled() {
+		return cacheMaxSize > 0;
+	}
+
+	/**
+	 * Returns the max number of lookup keys whose results are cached, 0 if caching is disabled.
+	 * The least recently used keys are evicted when the cache is full.
+	 */
+	public int getCacheMaxSize() {
+		return cacheMaxSize;
+	}
+
+	/**
+	 * Returns the millisecond after which a cached lookup result expires, 0 if it never expires.
+	 */
+	public long getCacheExpireAfterWriteMs() {
+		return cacheExpireAfterWriteMs;
+	}
+
+	/**
+	 * Returns true if lookup keys without matching rows are cached as well.
+	 */
+	public boolean isCacheEmptyResult() {
+		return cacheEmptyResult;
+	}
+
 	/**
 	 * Returns a new builder that builds a {@link LookupConfig}.
 	 *
@@ -72,6 +116,8 @@ public class LookupConfig {
 	 *       .setAsyncEnabled(true)
 	 *       .setAsyncBufferCapacity(1000)
 	 *       .setAsyncTimeoutMs(30000)
+	 *       .setCacheMaxSize(10000)
+	 *       .setCacheExpireAfterWriteMs(60000)
 	 *       .build();
 	 * </pre>
 	 */
@@ -87,6 +133,9 @@ public class LookupConfig {
 		private boolean asyncEnabled = DEFAULT_ASYNC_ENABLED;
 		private long asyncTimeoutMs = DEFAULT_ASYNC_TIMEOUT_MS;
 		private int asyncBufferCapacity = DEFAULT_ASYNC_BUFFER_CAPACITY;
+		private int cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+		private long cacheExpireAfterWriteMs = DEFAULT_CACHE_EXPIRE_AFTER_WRITE_MS;
+		private boolean cacheEmptyResult = DEFAULT_CACHE_EMPTY_RESULT;
 
 		public Builder setAsyncEnabled(boolean asyncEnabled) {
 			this.asyncEnabled = asyncEnabled;
@@ -103,8 +152,29 @@ public class LookupConfig {
 			return this;
 		}
 
+		public Builder setCacheMaxSize(int cacheMaxSize) {
+			this.cacheMaxSize = cacheMaxSize;
+			return this;
+		}
+
+		public Builder setCacheExpireAfterWriteMs(long expireAfterWriteMs) {
+			this.cacheExpireAfterWriteMs = expireAfterWriteMs;
+			return this;
+		}
+
+		public Builder setCacheEmptyResult(boolean cacheEmptyResult) {
+			this.cacheEmptyResult = cacheEmptyResult;
+			return this;
+		}
+
 		public LookupConfig build() {
-			return new LookupConfig(asyncEnabled, asyncTimeoutMs, asyncBufferCapacity);
+			return new LookupConfig(
+				asyncEnabled,
+				asyncTimeoutMs,
+				asyncBufferCapacity,
+				cacheMaxSize,
+				cacheExpireAfterWriteMs,
+				cacheEmptyResult);
 		}
 
 	}
@@ -40,7 +40,7 @@ import org.apache.flink.table.`type`._
 import org.apache.flink.table.api.{TableConfig, TableException, TableSchema}
 import org.apache.flink.table.calcite.FlinkTypeFactory
 import org.apache.flink.table.codegen.LookupJoinCodeGenerator._
-import org.apache.flink.table.codegen.{CodeGeneratorContext, LookupJoinCodeGenerator}
+import org.apache.flink.table.codegen.{CodeGeneratorContext, LookupJoinCodeGenerator, ProjectionCodeGenerator}
 import org.apache.flink.table.dataformat.BaseRow
 import org.apache.flink.table.functions.utils.UserDefinedFunctionUtils.{getParamClassesConsiderVarArgs, getUserDefinedMethod, signatureToString, signaturesToString}
 import org.apache.flink.table.functions.{AsyncTableFunction, TableFunction, UserDefinedFunction}
@@ -48,7 +48,7 @@ import org.apache.flink.table.plan.nodes.FlinkRelNode
 import org.apache.flink.table.plan.schema.TimeIndicatorRelDataType
 import org.apache.flink.table.plan.util.{JoinTypeUtil, RelExplainUtil}
 import org.apache.flink.table.plan.util.LookupJoinUtil._
-import org.apache.flink.table.runtime.join.lookup.{AsyncLookupJoinRunner, LookupJoinRunner, AsyncLookupJoinWithCalcRunner, LookupJoinWithCalcRunner}
+import org.apache.flink.table.runtime.join.lookup.{AsyncLookupJoinRunner, LookupCache, LookupJoinRunner, AsyncLookupJoinWithCalcRunner, LookupJoinWithCalcRunner}
 import org.apache.flink.table.sources.TableIndex.IndexType
 import org.apache.flink.table.sources.{LookupConfig, LookupableTableSource, TableIndex, TableSource}
 import org.apache.flink.table.typeutils.BaseRowTypeInfo
@@ -186,6 +186,12 @@ abstract class CommonLookupJoin(
     val lookupableTableSource = tableSource.asInstanceOf[LookupableTableSource[_]]
     val lookupConfig = getLookupConfig(lookupableTableSource)
     val leftOuterJoin = joinType == JoinRelType.LEFT
+    val lookupCache = createLookupCache(
+      config,
+      lookupConfig,
+      inputRowType,
+      tableSourceRowType,
+      lookupFieldsInOrder).orNull
 
     val operator = if (lookupConfig.isAsyncEnabled) {
       val asyncBufferCapacity= lookupConfig.getAsyncBufferCapacity
@@ -243,7 +249,8 @@ abstract class CommonLookupJoin(
           tableSource.getReturnType,
           rightRowType.toTypeInfo,
           leftOuterJoin,
-          lookupConfig.getAsyncBufferCapacity)
+          lookupConfig.getAsyncBufferCapacity,
+          lookupCache)
       } else {
         // right type is the same as table source row type, because no calc after temporal table
         val rightRowType = tableSourceRowType
@@ -259,7 +266,8 @@ abstract class CommonLookupJoin(
           tableSource.getReturnType,
           rightRowType.toTypeInfo,
           leftOuterJoin,
-          asyncBufferCapacity)
+          asyncBufferCapacity,
+          lookupCache)
       }
 
       // force ORDERED output mode currently, optimize it to UNORDERED
@@ -318,7 +326,8 @@ abstract class CommonLookupJoin(
           generatedCalc,
           generatedCollector,
           leftOuterJoin,
-          rightRowType.getArity)
+          rightRowType.getArity,
+          lookupCache)
       } else {
         // right type is the same as table source row type, because no calc after temporal table
         val rightRowType = tableSourceRowType
@@ -333,7 +342,8 @@ abstract class CommonLookupJoin(
           generatedFetcher,
           generatedCollector,
           leftOuterJoin,
-          rightRowType.getArity)
+          rightRowType.getArity,
+          lookupCache)
       }
       new ProcessOperator(processFunc)
     }
@@ -354,6 +364,44 @@ abstract class CommonLookupJoin(
     }
   }
 
+  /**
+    * Creates the cache of the lookup results if it is enabled in the [[LookupConfig]].
+    *
+    * The results are cached per input fields referenced by the lookup keys, as the constant
+    * lookup keys are the same for all input rows. The cached rows are the rows of the table
+    * source, so that they can be shared by any calc and join condition after the lookup.
+    */
+  private def createLookupCache(
+      config: TableConfig,
+      lookupConfig: LookupConfig,
+      inputRowType: RowType,
+      tableSourceRowType: RowType,
+      lookupFieldsInOrder: Array[Int]): Option[LookupCache] = {
+    if (lookupConfig.isCacheEnabled) {
+      val keyMapping = lookupFieldsInOrder.flatMap { field =>
+        allLookupKeys(field) match {
+          case FieldRefLookupKey(index) => Some(index)
+          case _: ConstantLookupKey => None
+        }
+      }
+      val keyRowType = new RowType(keyMapping.map(inputRowType.getTypeAt): _*)
+      val keyProjection = ProjectionCodeGenerator.generateProjection(
+        CodeGeneratorContext(config),
+        "LookupCacheKeyProjection",
+        inputRowType,
+        keyRowType,
+        keyMapping)
+      Some(new LookupCache(
+        keyProjection,
+        tableSourceRowType.toTypeInfo,
+        lookupConfig.getCacheMaxSize,
+        lookupConfig.getCacheExpireAfterWriteMs,
+        lookupConfig.isCacheEmptyResult))
+    } else {
+      None
+    }
+  }
+
   private def rowTypeEquals(expected: TypeInformation[_], actual: TypeInformation[_]): Boolean = {
     // check internal and external type, cause we will auto convert external class to internal
     // class (eg: Row => BaseRow).
@@ -167,7 +167,8 @@ class StreamExecGlobalGroupAggregate(
         recordEqualiser,
         globalAccTypes,
         indexOfCountStar,
-        generateRetraction)
+        generateRetraction,
+        tableConfig.getConf.getBoolean(TableConfigOptions.SQL_EXEC_AGG_OFF_HEAP_STATE_ENABLED))
 
       new KeyedMapBundleOperator(
         aggFunction,
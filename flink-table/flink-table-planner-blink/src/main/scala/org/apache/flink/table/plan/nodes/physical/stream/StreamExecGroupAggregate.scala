@@ -30,6 +30,7 @@ import org.apache.flink.table.plan.metadata.FlinkRelMetadataQuery
 import org.apache.flink.table.plan.nodes.exec.{ExecNode, StreamExecNode}
 import org.apache.flink.table.plan.rules.physical.stream.StreamExecRetractionRules
 import org.apache.flink.table.plan.util.{AggregateInfoList, AggregateUtil, RelExplainUtil, _}
+import org.apache.flink.table.runtime.KeyedProcessOperatorWithBinaryRowState
 import org.apache.flink.table.runtime.aggregate.{GroupAggFunction, MiniBatchGroupAggFunction}
 import org.apache.flink.table.runtime.bundle.KeyedMapBundleOperator
 
@@ -166,6 +167,8 @@ class StreamExecGroupAggregate(
 
     val isMiniBatchEnabled = tableConfig.getConf.contains(
       TableConfigOptions.SQL_EXEC_MINIBATCH_ALLOW_LATENCY)
+    val useBinaryRowState = tableConfig.getConf.getBoolean(
+      TableConfigOptions.SQL_EXEC_AGG_OFF_HEAP_STATE_ENABLED)
 
     val operator = if (isMiniBatchEnabled) {
       val aggFunction = new MiniBatchGroupAggFunction(
@@ -174,7 +177,8 @@ class StreamExecGroupAggregate(
         accTypes,
         inputRowType,
         inputCountIndex,
-        generateRetraction)
+        generateRetraction,
+        useBinaryRowState)
 
       new KeyedMapBundleOperator(
         aggFunction,
@@ -187,10 +191,14 @@ class StreamExecGroupAggregate(
         recordEqualiser,
         accTypes,
         inputCountIndex,
-        generateRetraction)
-
-      val operator = new KeyedProcessOperator[BaseRow, BaseRow, BaseRow](aggFunction)
-      operator
+        generateRetraction,
+        useBinaryRowState)
+
+      if (useBinaryRowState) {
+        new KeyedProcessOperatorWithBinaryRowState[BaseRow](aggFunction)
+      } else {
+        new KeyedProcessOperator[BaseRow, BaseRow, BaseRow](aggFunction)
+      }
     }
 
     val selector = KeySelectorUtil.getBaseRowSelector(grouping, inputRowType.toTypeInfo)
@@ -18,12 +18,22 @@
 
 package org.apache.flink.table.plan.nodes.physical.stream
 
-import org.apache.flink.streaming.api.transformations.StreamTransformation
-import org.apache.flink.table.api.{StreamTableEnvironment, TableException}
+import org.apache.flink.streaming.api.operators.TwoInputStreamOperator
+import org.apache.flink.streaming.api.operators.co.KeyedCoProcessOperator
+import org.apache.flink.streaming.api.transformations.{StreamTransformation, TwoInputTransformation}
+import org.apache.flink.table.`type`.RowType
+import org.apache.flink.table.api.{StreamTableEnvironment, TableConfig}
+import org.apache.flink.table.calcite.FlinkTypeFactory
+import org.apache.flink.table.codegen.{CodeGeneratorContext, ExprCodeGenerator, FunctionCodeGenerator}
 import org.apache.flink.table.dataformat.BaseRow
+import org.apache.flink.table.generated.GeneratedJoinCondition
 import org.apache.flink.table.plan.nodes.common.CommonPhysicalJoin
 import org.apache.flink.table.plan.nodes.exec.{ExecNode, StreamExecNode}
+import org.apache.flink.table.plan.util.{KeySelectorUtil, RelExplainUtil}
 import org.apache.flink.table.runtime.join.FlinkJoinType
+import org.apache.flink.table.runtime.join.stream.state.JoinInputSideSpec
+import org.apache.flink.table.runtime.join.stream.{AbstractStreamingJoin, StreamingJoin, StreamingSemiAntiJoin}
+import org.apache.flink.table.typeutils.BaseRowTypeInfo
 
 import org.apache.calcite.plan._
 import org.apache.calcite.plan.hep.HepRelVertex
@@ -123,7 +133,144 @@ class StreamExecJoin(
 
   override protected def translateToPlanInternal(
       tableEnv: StreamTableEnvironment): StreamTransformation[BaseRow] = {
-    throw new TableException("Implements this")
+    val tableConfig = tableEnv.getConfig
+
+    val leftTransform = getInputNodes.get(0).translateToPlan(tableEnv)
+      .asInstanceOf[StreamTransformation[BaseRow]]
+    val rightTransform = getInputNodes.get(1).translateToPlan(tableEnv)
+      .asInstanceOf[StreamTransformation[BaseRow]]
+
+    val leftRowType = FlinkTypeFactory.toInternalRowType(getLeft.getRowType)
+    val rightRowType = FlinkTypeFactory.toInternalRowType(getRight.getRowType)
+    val leftTypeInfo = leftRowType.toTypeInfo
+    val rightTypeInfo = rightRowType.toTypeInfo
+    val returnTypeInfo = FlinkTypeFactory.toInternalRowType(getRowType).toTypeInfo
+
+    val leftJoinKeys = keyPairs.map(_.source).toArray
+    val rightJoinKeys = keyPairs.map(_.target).toArray
+    val leftSelect = KeySelectorUtil.getBaseRowSelector(leftJoinKeys, leftTypeInfo)
+    val rightSelect = KeySelectorUtil.getBaseRowSelector(rightJoinKeys, rightTypeInfo)
+
+    val leftInputSpec = analyzeJoinInput(getLeft, leftTypeInfo, leftJoinKeys)
+    val rightInputSpec = analyzeJoinInput(getRight, rightTypeInfo, rightJoinKeys)
+
+    val generatedCondition = generateCondition(tableConfig, leftRowType, rightRowType)
+    val minRetentionTime = tableConfig.getMinIdleStateRetentionTime
+    val maxRetentionTime = tableConfig.getMaxIdleStateRetentionTime
+
+    val joinFunction: AbstractStreamingJoin = flinkJoinType match {
+      case FlinkJoinType.SEMI | FlinkJoinType.ANTI =>
+        new StreamingSemiAntiJoin(
+          flinkJoinType == FlinkJoinType.ANTI,
+          leftTypeInfo,
+          rightTypeInfo,
+          generatedCondition,
+          leftInputSpec,
+          rightInputSpec,
+          minRetentionTime,
+          maxRetentionTime)
+      case _ =>
+        val leftIsOuter =
+          flinkJoinType == FlinkJoinType.LEFT || flinkJoinType == FlinkJoinType.FULL
+        val rightIsOuter =
+          flinkJoinType == FlinkJoinType.RIGHT || flinkJoinType == FlinkJoinType.FULL
+        new StreamingJoin(
+          leftTypeInfo,
+          rightTypeInfo,
+          generatedCondition,
+          leftInputSpec,
+          rightInputSpec,
+          leftIsOuter,
+          rightIsOuter,
+          minRetentionTime,
+          maxRetentionTime)
+    }
+
+    val ret = new TwoInputTransformation[BaseRow, BaseRow, BaseRow](
+      leftTransform,
+      rightTransform,
+      getOperatorName,
+      new KeyedCoProcessOperator(joinFunction)
+        .asInstanceOf[TwoInputStreamOperator[BaseRow, BaseRow, BaseRow]],
+      returnTypeInfo,
+      tableEnv.execEnv.getParallelism)
+
+    if (leftJoinKeys.isEmpty) {
+      ret.setParallelism(1)
+      ret.setMaxParallelism(1)
+    }
+
+    // set KeyType and Selector for state
+    ret.setStateKeySelectors(leftSelect, rightSelect)
+    ret.setStateKeyType(leftSelect.getProducedType)
+    ret
+  }
+
+  /**
+    * Generates the join condition which is evaluated on the records with the same join key.
+    * The equi-conditions are included as well, because records with null join keys are
+    * partitioned to the same key but must not be joined.
+    */
+  private def generateCondition(
+      config: TableConfig,
+      leftType: RowType,
+      rightType: RowType): GeneratedJoinCondition = {
+    val ctx = CodeGeneratorContext(config)
+    val exprGenerator = new ExprCodeGenerator(ctx, false)
+      .bindInput(leftType)
+      .bindSecondInput(rightType)
+
+    val condition = exprGenerator.generateExpression(getCondition)
+    val body =
+      s"""
+         |${condition.code}
+         |return ${condition.resultTerm};
+         |""".stripMargin
+
+    FunctionCodeGenerator.generateJoinCondition(
+      ctx,
+      "JoinConditionFunction",
+      body)
+  }
+
+  /**
+    * Analyzes the unique keys of the join input to decide the layout of its join state:
+    * if a unique key is contained by the join keys there is at most one record per join key,
+    * otherwise the records are keyed by the smallest unique key, or counted if the input
+    * hasn't any unique key.
+    */
+  private def analyzeJoinInput(
+      input: RelNode,
+      inputTypeInfo: BaseRowTypeInfo,
+      joinKeys: Array[Int]): JoinInputSideSpec = {
+    val uniqueKeys = getCluster.getMetadataQuery.getUniqueKeys(input)
+    if (uniqueKeys == null || uniqueKeys.isEmpty) {
+      JoinInputSideSpec.withoutUniqueKey()
+    } else {
+      val joinKeySet = joinKeys.toSet
+      val uniqueKeysContainedByJoinKey = uniqueKeys
+        .map(_.toArray)
+        .filter(_.forall(joinKeySet.contains))
+      if (uniqueKeysContainedByJoinKey.nonEmpty) {
+        // join key contains unique key
+        val smallestUniqueKey = uniqueKeysContainedByJoinKey.minBy(_.length)
+        val uniqueKeySelector = KeySelectorUtil.getBaseRowSelector(smallestUniqueKey, inputTypeInfo)
+        JoinInputSideSpec.withUniqueKeyContainedByJoinKey(
+          uniqueKeySelector.getProducedType,
+          uniqueKeySelector)
+      } else {
+        val smallestUniqueKey = uniqueKeys.map(_.toArray).minBy(_.length)
+        val uniqueKeySelector = KeySelectorUtil.getBaseRowSelector(smallestUniqueKey, inputTypeInfo)
+        JoinInputSideSpec.withUniqueKey(
+          uniqueKeySelector.getProducedType,
+          uniqueKeySelector)
+      }
+    }
+  }
+
+  private def getOperatorName: String = {
+    val where = RelExplainUtil.expressionToString(getCondition, inputRowType, getExpressionString)
+    s"$flinkJoinType(where: ($where), select: (${getRowType.getFieldNames.mkString(", ")}))"
   }
 
 }
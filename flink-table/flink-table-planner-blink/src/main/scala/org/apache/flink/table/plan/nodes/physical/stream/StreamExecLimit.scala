@@ -145,6 +145,8 @@ class StreamExecLimit(
         inputRowTypeInfo,
         sortKeyComparator,
         sortKeySelector,
+        Array(),
+        Array(),
         rankType,
         rankRange,
         generatedEqualiser,
@@ -188,6 +188,8 @@ class StreamExecRank(
           inputRowTypeInfo,
           sortKeyComparator,
           sortKeySelector,
+          sortDirections,
+          nullsIsLast,
           rankType,
           rankRange,
           generatedEqualiser,
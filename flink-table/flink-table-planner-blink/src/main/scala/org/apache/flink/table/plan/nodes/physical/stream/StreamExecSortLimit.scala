@@ -198,6 +198,8 @@ class StreamExecSortLimit(
           inputRowTypeInfo,
           sortKeyComparator,
           sortKeySelector,
+          sortDirections,
+          nullsIsLast,
           rankType,
           rankRange,
           generatedEqualiser,
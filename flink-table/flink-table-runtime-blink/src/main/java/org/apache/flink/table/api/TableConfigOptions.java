@@ -202,6 +202,16 @@ public class TableConfigOptions {
 							"State will be cleared and removed if it was not updated for the defined " +
 							"period of time.");
 
+	public static final ConfigOption<Boolean> SQL_EXEC_AGG_OFF_HEAP_STATE_ENABLED =
+			key("sql.exec.agg.off-heap-state.enabled")
+					.defaultValue(false)
+					.withDescription("Whether the group aggregates keep their accumulators in managed memory " +
+							"in the binary row format instead of in the keyed state backend. This avoids " +
+							"serialization and GC overhead with heap state backends, but requires enough " +
+							"managed memory for all accumulators of the task manager, and cannot be used " +
+							"together with RocksDB and heap timers. Savepoints can not be restored after " +
+							"changing this option.");
+
 	// ------------------------------------------------------------------------
 	//  Other Exec Options
 	// ------------------------------------------------------------------------
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime;
+
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateInitializationContext;
+import org.apache.flink.runtime.state.StateSnapshotContextSynchronousImpl;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.runtime.state.BinaryRowStateStore;
+import org.apache.flink.table.runtime.state.BinaryRowStateStoreAware;
+
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * A {@link KeyedProcessOperator} which provides a {@link BinaryRowStateStore} to functions which
+ * are {@link BinaryRowStateStoreAware}, and snapshots and restores the store with the operator.
+ */
+public class KeyedProcessOperatorWithBinaryRowState<OUT> extends KeyedProcessOperator<BaseRow, BaseRow, OUT> {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient BinaryRowStateStore binaryRowStateStore;
+
+	public KeyedProcessOperatorWithBinaryRowState(KeyedProcessFunction<BaseRow, BaseRow, OUT> function) {
+		super(function);
+	}
+
+	@Override
+	public void initializeState(StateInitializationContext context) throws Exception {
+		super.initializeState(context);
+
+		if (userFunction instanceof BinaryRowStateStoreAware &&
+				((BinaryRowStateStoreAware) userFunction).requiresBinaryRowStateStore()) {
+			binaryRowStateStore = BinaryRowStateStore.create(this);
+			binaryRowStateStore.restoreState(context);
+			((BinaryRowStateStoreAware) userFunction).setBinaryRowStateStore(binaryRowStateStore);
+		}
+	}
+
+	@Override
+	protected RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshotRawKeyedState(
+			StateSnapshotContextSynchronousImpl context,
+			CheckpointStreamFactory factory) throws Exception {
+		if (binaryRowStateStore == null) {
+			return super.snapshotRawKeyedState(context, factory);
+		}
+		return binaryRowStateStore.snapshotState(context, factory, getContainingTask().getCancelables());
+	}
+
+	@Override
+	public void dispose() throws Exception {
+		try {
+			super.dispose();
+		} finally {
+			if (binaryRowStateStore != null) {
+				binaryRowStateStore.dispose();
+				binaryRowStateStore = null;
+			}
+		}
+	}
+}
@@ -29,6 +29,8 @@ import org.apache.flink.table.generated.GeneratedAggsHandleFunction;
 import org.apache.flink.table.generated.GeneratedRecordEqualiser;
 import org.apache.flink.table.generated.RecordEqualiser;
 import org.apache.flink.table.runtime.functions.KeyedProcessFunctionWithCleanupState;
+import org.apache.flink.table.runtime.state.BinaryRowStateStore;
+import org.apache.flink.table.runtime.state.BinaryRowStateStoreAware;
 import org.apache.flink.table.type.InternalType;
 import org.apache.flink.table.typeutils.BaseRowTypeInfo;
 import org.apache.flink.util.Collector;
@@ -36,11 +38,13 @@ import org.apache.flink.util.Collector;
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.ACCUMULATE_MSG;
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.RETRACT_MSG;
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.isAccumulateMsg;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * Aggregate Function used for the groupby (without window) aggregate.
  */
-public class GroupAggFunction extends KeyedProcessFunctionWithCleanupState<BaseRow, BaseRow, BaseRow> {
+public class GroupAggFunction extends KeyedProcessFunctionWithCleanupState<BaseRow, BaseRow, BaseRow>
+		implements BinaryRowStateStoreAware {
 
 	private static final long serialVersionUID = -4767158666069797704L;
 
@@ -69,6 +73,11 @@ public class GroupAggFunction extends KeyedProcessFunctionWithCleanupState<BaseR
 	 */
 	private final boolean generateRetraction;
 
+	/**
+	 * Whether the accumulators are kept in the {@link BinaryRowStateStore} of the operator.
+	 */
+	private final boolean useBinaryRowState;
+
 	/**
 	 * Reused output row.
 	 */
@@ -83,6 +92,9 @@ public class GroupAggFunction extends KeyedProcessFunctionWithCleanupState<BaseR
 	// stores the accumulators
 	private transient ValueState<BaseRow> accState = null;
 
+	// the off-heap store of the accumulators, only set if useBinaryRowState is true
+	private transient BinaryRowStateStore binaryRowStateStore = null;
+
 	/**
 	 * Creates a {@link GroupAggFunction}.
 	 *
@@ -95,6 +107,8 @@ public class GroupAggFunction extends KeyedProcessFunctionWithCleanupState<BaseR
 	 *                          -1 when the input doesn't contain COUNT(*), i.e. doesn't contain retraction messages.
 	 *                          We make sure there is a COUNT(*) if input stream contains retraction.
 	 * @param generateRetraction Whether this operator will generate retraction.
+	 * @param useBinaryRowState Whether to keep the accumulators in the {@link BinaryRowStateStore}
+	 *                          of the operator instead of the keyed state backend.
 	 */
 	public GroupAggFunction(
 			long minRetentionTime,
@@ -103,13 +117,25 @@ public class GroupAggFunction extends KeyedProcessFunctionWithCleanupState<BaseR
 			GeneratedRecordEqualiser genRecordEqualiser,
 			InternalType[] accTypes,
 			int indexOfCountStar,
-			boolean generateRetraction) {
+			boolean generateRetraction,
+			boolean useBinaryRowState) {
 		super(minRetentionTime, maxRetentionTime);
 		this.genAggsHandler = genAggsHandler;
 		this.genRecordEqualiser = genRecordEqualiser;
 		this.accTypes = accTypes;
 		this.recordCounter = RecordCounter.of(indexOfCountStar);
 		this.generateRetraction = generateRetraction;
+		this.useBinaryRowState = useBinaryRowState;
+	}
+
+	@Override
+	public boolean requiresBinaryRowStateStore() {
+		return useBinaryRowState;
+	}
+
+	@Override
+	public void setBinaryRowStateStore(BinaryRowStateStore store) {
+		this.binaryRowStateStore = store;
 	}
 
 	@Override
@@ -121,9 +147,16 @@ public class GroupAggFunction extends KeyedProcessFunctionWithCleanupState<BaseR
 		// instantiate equaliser
 		equaliser = genRecordEqualiser.newInstance(getRuntimeContext().getUserCodeClassLoader());
 
-		BaseRowTypeInfo accTypeInfo = new BaseRowTypeInfo(accTypes);
-		ValueStateDescriptor<BaseRow> accDesc = new ValueStateDescriptor<>("accState", accTypeInfo);
-		accState = getRuntimeContext().getState(accDesc);
+		if (useBinaryRowState) {
+			checkState(binaryRowStateStore != null,
+				"The binary row state requires an operator which provides a BinaryRowStateStore.");
+			accState = binaryRowStateStore.getValueState(
+				"accState", accTypes, getRuntimeContext().getExecutionConfig());
+		} else {
+			BaseRowTypeInfo accTypeInfo = new BaseRowTypeInfo(accTypes);
+			ValueStateDescriptor<BaseRow> accDesc = new ValueStateDescriptor<>("accState", accTypeInfo);
+			accState = getRuntimeContext().getState(accDesc);
+		}
 
 		initCleanupTimeState("GroupAggregateCleanupTime");
 
@@ -29,6 +29,8 @@ import org.apache.flink.table.generated.GeneratedRecordEqualiser;
 import org.apache.flink.table.generated.RecordEqualiser;
 import org.apache.flink.table.runtime.bundle.MapBundleFunction;
 import org.apache.flink.table.runtime.context.ExecutionContext;
+import org.apache.flink.table.runtime.state.BinaryRowStateStore;
+import org.apache.flink.table.runtime.state.BinaryRowStateStoreAware;
 import org.apache.flink.table.type.InternalType;
 import org.apache.flink.table.typeutils.BaseRowTypeInfo;
 import org.apache.flink.util.Collector;
@@ -39,11 +41,13 @@ import java.util.Map;
 
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.ACCUMULATE_MSG;
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.RETRACT_MSG;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * Aggregate Function used for the global groupby (without window) aggregate in miniBatch mode.
  */
-public class MiniBatchGlobalGroupAggFunction extends MapBundleFunction<BaseRow, BaseRow, BaseRow, BaseRow> {
+public class MiniBatchGlobalGroupAggFunction extends MapBundleFunction<BaseRow, BaseRow, BaseRow, BaseRow>
+		implements BinaryRowStateStoreAware {
 
 
 	private static final long serialVersionUID = 8349579876002001744L;
@@ -78,6 +82,11 @@ public class MiniBatchGlobalGroupAggFunction extends MapBundleFunction<BaseRow,
 	 */
 	private final boolean generateRetraction;
 
+	/**
+	 * Whether the accumulators are kept in the {@link BinaryRowStateStore} of the operator.
+	 */
+	private final boolean useBinaryRowState;
+
 	/**
 	 * Reused output row.
 	 */
@@ -95,6 +104,9 @@ public class MiniBatchGlobalGroupAggFunction extends MapBundleFunction<BaseRow,
 	// stores the accumulators
 	private transient ValueState<BaseRow> accState = null;
 
+	// the off-heap store of the accumulators, only set if useBinaryRowState is true
+	private transient BinaryRowStateStore binaryRowStateStore = null;
+
 
 	/**
 	 * Creates a {@link MiniBatchGlobalGroupAggFunction}.
@@ -107,6 +119,8 @@ public class MiniBatchGlobalGroupAggFunction extends MapBundleFunction<BaseRow,
 	 *                          -1 when the input doesn't contain COUNT(*), i.e. doesn't contain retraction messages.
 	 *                          We make sure there is a COUNT(*) if input stream contains retraction.
 	 * @param generateRetraction Whether this operator will generate retraction.
+	 * @param useBinaryRowState Whether to keep the accumulators in the {@link BinaryRowStateStore}
+	 *                          of the operator instead of the keyed state backend.
 	 */
 	public MiniBatchGlobalGroupAggFunction(
 			GeneratedAggsHandleFunction genLocalAggsHandler,
@@ -114,13 +128,25 @@ public class MiniBatchGlobalGroupAggFunction extends MapBundleFunction<BaseRow,
 			GeneratedRecordEqualiser genRecordEqualiser,
 			InternalType[] accTypes,
 			int indexOfCountStar,
-			boolean generateRetraction) {
+			boolean generateRetraction,
+			boolean useBinaryRowState) {
 		this.genLocalAggsHandler = genLocalAggsHandler;
 		this.genGlobalAggsHandler = genGlobalAggsHandler;
 		this.genRecordEqualiser = genRecordEqualiser;
 		this.accTypes = accTypes;
 		this.recordCounter = RecordCounter.of(indexOfCountStar);
 		this.generateRetraction = generateRetraction;
+		this.useBinaryRowState = useBinaryRowState;
+	}
+
+	@Override
+	public boolean requiresBinaryRowStateStore() {
+		return useBinaryRowState;
+	}
+
+	@Override
+	public void setBinaryRowStateStore(BinaryRowStateStore store) {
+		this.binaryRowStateStore = store;
 	}
 
 	@Override
@@ -134,9 +160,16 @@ public class MiniBatchGlobalGroupAggFunction extends MapBundleFunction<BaseRow,
 
 		equaliser = genRecordEqualiser.newInstance(ctx.getRuntimeContext().getUserCodeClassLoader());
 
-		BaseRowTypeInfo accTypeInfo = new BaseRowTypeInfo(accTypes);
-		ValueStateDescriptor<BaseRow> accDesc = new ValueStateDescriptor<>("accState", accTypeInfo);
-		accState = ctx.getRuntimeContext().getState(accDesc);
+		if (useBinaryRowState) {
+			checkState(binaryRowStateStore != null,
+				"The binary row state requires an operator which provides a BinaryRowStateStore.");
+			accState = binaryRowStateStore.getValueState(
+				"accState", accTypes, ctx.getRuntimeContext().getExecutionConfig());
+		} else {
+			BaseRowTypeInfo accTypeInfo = new BaseRowTypeInfo(accTypes);
+			ValueStateDescriptor<BaseRow> accDesc = new ValueStateDescriptor<>("accState", accTypeInfo);
+			accState = ctx.getRuntimeContext().getState(accDesc);
+		}
 
 		resultRow = new JoinedRow();
 	}
@@ -31,6 +31,8 @@ import org.apache.flink.table.generated.GeneratedRecordEqualiser;
 import org.apache.flink.table.generated.RecordEqualiser;
 import org.apache.flink.table.runtime.bundle.MapBundleFunction;
 import org.apache.flink.table.runtime.context.ExecutionContext;
+import org.apache.flink.table.runtime.state.BinaryRowStateStore;
+import org.apache.flink.table.runtime.state.BinaryRowStateStoreAware;
 import org.apache.flink.table.type.InternalType;
 import org.apache.flink.table.type.RowType;
 import org.apache.flink.table.type.TypeConverters;
@@ -46,13 +48,15 @@ import java.util.Map;
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.ACCUMULATE_MSG;
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.RETRACT_MSG;
 import static org.apache.flink.table.dataformat.util.BaseRowUtil.isAccumulateMsg;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * Aggregate Function used for the groupby (without window) aggregate in miniBatch mode.
  *
  * <p>This function buffers input row in heap HashMap, and aggregates them when minibatch invoked.
  */
-public class MiniBatchGroupAggFunction extends MapBundleFunction<BaseRow, List<BaseRow>, BaseRow, BaseRow> {
+public class MiniBatchGroupAggFunction extends MapBundleFunction<BaseRow, List<BaseRow>, BaseRow, BaseRow>
+		implements BinaryRowStateStoreAware {
 
 	private static final long serialVersionUID = 7455939331036508477L;
 
@@ -86,6 +90,11 @@ public class MiniBatchGroupAggFunction extends MapBundleFunction<BaseRow, List<B
 	 */
 	private final boolean generateRetraction;
 
+	/**
+	 * Whether the accumulators are kept in the {@link BinaryRowStateStore} of the operator.
+	 */
+	private final boolean useBinaryRowState;
+
 	/**
 	 * Reused output row.
 	 */
@@ -103,6 +112,9 @@ public class MiniBatchGroupAggFunction extends MapBundleFunction<BaseRow, List<B
 	// stores the accumulators
 	private transient ValueState<BaseRow> accState = null;
 
+	// the off-heap store of the accumulators, only set if useBinaryRowState is true
+	private transient BinaryRowStateStore binaryRowStateStore = null;
+
 	/**
 	 * Creates a {@link MiniBatchGroupAggFunction}.
 	 *
@@ -114,6 +126,8 @@ public class MiniBatchGroupAggFunction extends MapBundleFunction<BaseRow, List<B
 	 *                          -1 when the input doesn't contain COUNT(*), i.e. doesn't contain retraction messages.
 	 *                          We make sure there is a COUNT(*) if input stream contains retraction.
 	 * @param generateRetraction Whether this operator will generate retraction.
+	 * @param useBinaryRowState Whether to keep the accumulators in the {@link BinaryRowStateStore}
+	 *                          of the operator instead of the keyed state backend.
 	 */
 	public MiniBatchGroupAggFunction(
 			GeneratedAggsHandleFunction genAggsHandler,
@@ -121,13 +135,25 @@ public class MiniBatchGroupAggFunction extends MapBundleFunction<BaseRow, List<B
 			InternalType[] accTypes,
 			RowType inputType,
 			int indexOfCountStar,
-			boolean generateRetraction) {
+			boolean generateRetraction,
+			boolean useBinaryRowState) {
 		this.genAggsHandler = genAggsHandler;
 		this.genRecordEqualiser = genRecordEqualiser;
 		this.recordCounter = RecordCounter.of(indexOfCountStar);
 		this.accTypes = accTypes;
 		this.inputType = inputType;
 		this.generateRetraction = generateRetraction;
+		this.useBinaryRowState = useBinaryRowState;
+	}
+
+	@Override
+	public boolean requiresBinaryRowStateStore() {
+		return useBinaryRowState;
+	}
+
+	@Override
+	public void setBinaryRowStateStore(BinaryRowStateStore store) {
+		this.binaryRowStateStore = store;
 	}
 
 	@Override
@@ -139,9 +165,16 @@ public class MiniBatchGroupAggFunction extends MapBundleFunction<BaseRow, List<B
 		// instantiate equaliser
 		equaliser = genRecordEqualiser.newInstance(ctx.getRuntimeContext().getUserCodeClassLoader());
 
-		BaseRowTypeInfo accTypeInfo = new BaseRowTypeInfo(accTypes);
-		ValueStateDescriptor<BaseRow> accDesc = new ValueStateDescriptor<>("accState", accTypeInfo);
-		accState = ctx.getRuntimeContext().getState(accDesc);
+		if (useBinaryRowState) {
+			checkState(binaryRowStateStore != null,
+				"The binary row state requires an operator which provides a BinaryRowStateStore.");
+			accState = binaryRowStateStore.getValueState(
+				"accState", accTypes, ctx.getRuntimeContext().getExecutionConfig());
+		} else {
+			BaseRowTypeInfo accTypeInfo = new BaseRowTypeInfo(accTypes);
+			ValueStateDescriptor<BaseRow> accDesc = new ValueStateDescriptor<>("accState", accTypeInfo);
+			accState = ctx.getRuntimeContext().getState(accDesc);
+		}
 
 		//noinspection unchecked
 		TypeInformation<BaseRow> inputTypeInfo = TypeConverters.createInternalTypeInfoFromInternalType(inputType);
@@ -20,6 +20,11 @@ package org.apache.flink.table.runtime.bundle;
 
 import org.apache.flink.api.common.functions.util.FunctionUtils;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateInitializationContext;
+import org.apache.flink.runtime.state.StateSnapshotContextSynchronousImpl;
 import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
 import org.apache.flink.streaming.api.operators.ChainingStrategy;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
@@ -28,11 +33,14 @@ import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.table.runtime.bundle.trigger.BundleTrigger;
 import org.apache.flink.table.runtime.bundle.trigger.BundleTriggerCallback;
 import org.apache.flink.table.runtime.context.ExecutionContextImpl;
+import org.apache.flink.table.runtime.state.BinaryRowStateStore;
+import org.apache.flink.table.runtime.state.BinaryRowStateStoreAware;
 import org.apache.flink.table.runtime.util.StreamRecordCollector;
 import org.apache.flink.util.Collector;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RunnableFuture;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -70,6 +78,9 @@ public abstract class AbstractMapBundleOperator<K, V, IN, OUT>
 
 	private transient int numOfElements = 0;
 
+	/** The store of functions which keep their state as binary rows, see {@link BinaryRowStateStoreAware}. */
+	private transient BinaryRowStateStore binaryRowStateStore;
+
 	AbstractMapBundleOperator(
 			MapBundleFunction<K, V, IN, OUT> function,
 			BundleTrigger<IN> bundleTrigger) {
@@ -78,6 +89,18 @@ public abstract class AbstractMapBundleOperator<K, V, IN, OUT>
 		this.bundleTrigger = checkNotNull(bundleTrigger, "bundleTrigger is null");
 	}
 
+	@Override
+	public void initializeState(StateInitializationContext context) throws Exception {
+		super.initializeState(context);
+
+		if (function instanceof BinaryRowStateStoreAware &&
+				((BinaryRowStateStoreAware) function).requiresBinaryRowStateStore()) {
+			binaryRowStateStore = BinaryRowStateStore.create(this);
+			binaryRowStateStore.restoreState(context);
+			((BinaryRowStateStoreAware) function).setBinaryRowStateStore(binaryRowStateStore);
+		}
+	}
+
 	@Override
 	public void open() throws Exception {
 		super.open();
@@ -147,6 +170,16 @@ public abstract class AbstractMapBundleOperator<K, V, IN, OUT>
 		finishBundle();
 	}
 
+	@Override
+	protected RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshotRawKeyedState(
+			StateSnapshotContextSynchronousImpl context,
+			CheckpointStreamFactory factory) throws Exception {
+		if (binaryRowStateStore == null) {
+			return super.snapshotRawKeyedState(context, factory);
+		}
+		return binaryRowStateStore.snapshotState(context, factory, getContainingTask().getCancelables());
+	}
+
 	@Override
 	public void close() throws Exception {
 		try {
@@ -172,4 +205,16 @@ public abstract class AbstractMapBundleOperator<K, V, IN, OUT>
 			}
 		}
 	}
+
+	@Override
+	public void dispose() throws Exception {
+		try {
+			super.dispose();
+		} finally {
+			if (binaryRowStateStore != null) {
+				binaryRowStateStore.dispose();
+				binaryRowStateStore = null;
+			}
+		}
+	}
 }
@@ -26,6 +26,7 @@ import org.apache.flink.streaming.api.functions.async.AsyncFunction;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
 import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryRow;
 import org.apache.flink.table.dataformat.DataFormatConverters;
 import org.apache.flink.table.dataformat.DataFormatConverters.RowConverter;
 import org.apache.flink.table.dataformat.GenericRow;
@@ -57,6 +58,8 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 	private final int asyncBufferCapacity;
 	private final TypeInformation<?> fetcherReturnType;
 	private final BaseRowTypeInfo rightRowTypeInfo;
+	@Nullable
+	private final LookupCache cache;
 
 	private transient AsyncFunction<BaseRow, Object> fetcher;
 
@@ -80,12 +83,25 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 			BaseRowTypeInfo rightRowTypeInfo,
 			boolean isLeftOuterJoin,
 			int asyncBufferCapacity) {
+		this(generatedFetcher, generatedResultFuture, fetcherReturnType, rightRowTypeInfo,
+			isLeftOuterJoin, asyncBufferCapacity, null);
+	}
+
+	public AsyncLookupJoinRunner(
+			GeneratedFunction<AsyncFunction<BaseRow, Object>> generatedFetcher,
+			GeneratedResultFuture<TableFunctionResultFuture<BaseRow>> generatedResultFuture,
+			TypeInformation<?> fetcherReturnType,
+			BaseRowTypeInfo rightRowTypeInfo,
+			boolean isLeftOuterJoin,
+			int asyncBufferCapacity,
+			@Nullable LookupCache cache) {
 		this.generatedFetcher = generatedFetcher;
 		this.generatedResultFuture = generatedResultFuture;
 		this.isLeftOuterJoin = isLeftOuterJoin;
 		this.asyncBufferCapacity = asyncBufferCapacity;
 		this.fetcherReturnType = fetcherReturnType;
 		this.rightRowTypeInfo = rightRowTypeInfo;
+		this.cache = cache;
 	}
 
 	@Override
@@ -98,6 +114,13 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 		// try to compile the generated ResultFuture, fail fast if the code is corrupt.
 		generatedResultFuture.compile(getRuntimeContext().getUserCodeClassLoader());
 
+		if (cache != null) {
+			cache.open(
+				getRuntimeContext().getUserCodeClassLoader(),
+				getRuntimeContext().getExecutionConfig(),
+				getRuntimeContext().getMetricGroup());
+		}
+
 		// row converter is stateless which is thread-safe
 		RowConverter rowConverter;
 		if (fetcherReturnType instanceof RowTypeInfo) {
@@ -119,7 +142,8 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 				createFetcherResultFuture(parameters),
 				rowConverter,
 				isLeftOuterJoin,
-				rightRowTypeInfo.getArity());
+				rightRowTypeInfo.getArity(),
+				cache);
 			// add will throw exception immediately if the queue is full which should never happen
 			resultFutureBuffer.add(rf);
 			allResultFutures.add(rf);
@@ -129,11 +153,29 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 	@Override
 	public void asyncInvoke(BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
 		JoinedRowResultFuture outResultFuture = resultFutureBuffer.take();
-		// the input row is copied when object reuse in AsyncWaitOperator
-		outResultFuture.reset(input, resultFuture);
 
-		// fetcher has copied the input field when object reuse is enabled
-		fetcher.asyncInvoke(input, outResultFuture);
+		if (cache == null) {
+			// the input row is copied when object reuse in AsyncWaitOperator
+			outResultFuture.reset(input, resultFuture, null, 0L);
+
+			// fetcher has copied the input field when object reuse is enabled
+			fetcher.asyncInvoke(input, outResultFuture);
+			return;
+		}
+
+		final BinaryRow key = cache.getKey(input);
+		final long currentTime = System.currentTimeMillis();
+
+		final Collection<BaseRow> cachedRows = cache.getIfPresent(key, currentTime);
+		if (cachedRows != null) {
+			outResultFuture.reset(input, resultFuture, null, 0L);
+			outResultFuture.completeWithRightRows(cachedRows);
+		} else {
+			// the key is reused by the projection of the next input, so it has to be copied
+			// until the lookup completes and the fetched rows are put into the cache
+			outResultFuture.reset(input, resultFuture, key.copy(), currentTime);
+			fetcher.asyncInvoke(input, outResultFuture);
+		}
 	}
 
 	public TableFunctionResultFuture<BaseRow> createFetcherResultFuture(Configuration parameters) throws Exception {
@@ -153,6 +195,9 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 		for (JoinedRowResultFuture rf : allResultFutures) {
 			rf.close();
 		}
+		if (cache != null) {
+			cache.close();
+		}
 	}
 
 	/**
@@ -178,30 +223,50 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 		private final TableFunctionResultFuture<BaseRow> joinConditionResultFuture;
 		private final RowConverter rowConverter;
 		private final boolean isLeftOuterJoin;
+		@Nullable
+		private final LookupCache cache;
 
 		private final DelegateResultFuture delegate;
 		private final GenericRow nullRow;
 
 		private BaseRow leftRow;
 		private ResultFuture<BaseRow> realOutput;
+		@Nullable
+		private BinaryRow cacheKey;
+		private long loadStartTime;
 
 		private JoinedRowResultFuture(
 				BlockingQueue<JoinedRowResultFuture> resultFutureBuffer,
 				TableFunctionResultFuture<BaseRow> joinConditionResultFuture,
 				@Nullable RowConverter rowConverter,
 				boolean isLeftOuterJoin,
-				int rightArity) {
+				int rightArity,
+				@Nullable LookupCache cache) {
 			this.resultFutureBuffer = resultFutureBuffer;
 			this.joinConditionResultFuture = joinConditionResultFuture;
 			this.rowConverter = rowConverter;
 			this.isLeftOuterJoin = isLeftOuterJoin;
+			this.cache = cache;
 			this.delegate = new DelegateResultFuture();
 			this.nullRow = new GenericRow(rightArity);
 		}
 
-		public void reset(BaseRow row, ResultFuture<BaseRow> realOutput) {
+		/**
+		 * Resets this future for the given input row.
+		 *
+		 * @param cacheKey the lookup keys to cache the fetched rows for, or null if the fetched
+		 *                 rows should not be cached
+		 * @param loadStartTime the time when the lookup of the keys was started
+		 */
+		public void reset(
+				BaseRow row,
+				ResultFuture<BaseRow> realOutput,
+				@Nullable BinaryRow cacheKey,
+				long loadStartTime) {
 			this.realOutput = realOutput;
 			this.leftRow = row;
+			this.cacheKey = cacheKey;
+			this.loadStartTime = loadStartTime;
 			joinConditionResultFuture.setInput(row);
 			joinConditionResultFuture.setResultFuture(delegate);
 			delegate.reset();
@@ -222,6 +287,23 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<BaseRow, BaseRow> {
 				}
 			}
 
+			if (cacheKey != null) {
+				List<BaseRow> copiedRows = new ArrayList<>(baseRows.size());
+				for (BaseRow row : baseRows) {
+					copiedRows.add(cache.copyValue(row));
+				}
+				cache.put(cacheKey, copiedRows, loadStartTime, System.currentTimeMillis());
+				baseRows = copiedRows;
+			}
+
+			completeWithRightRows(baseRows);
+		}
+
+		/**
+		 * Joins the given rows of the dimension table with the input row and completes the
+		 * result future.
+		 */
+		public void completeWithRightRows(Collection<BaseRow> baseRows) {
 			// call condition collector first,
 			// the filtered result will be routed to the delegateCollector
 			try {
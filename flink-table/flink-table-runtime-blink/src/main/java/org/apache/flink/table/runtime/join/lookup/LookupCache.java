@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.lookup;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryRow;
+import org.apache.flink.table.generated.GeneratedProjection;
+import org.apache.flink.table.generated.Projection;
+import org.apache.flink.table.runtime.util.LRUMap;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A cache for the rows fetched from the dimension table by the lookup join runners.
+ *
+ * <p>The cache maps the lookup keys of a probe row to the rows returned by the lookup function
+ * for these keys. It holds at most {@code maxSize} keys and evicts the least recently used key
+ * when it is full. Entries expire after {@code expireAfterWriteMs} milliseconds after they have
+ * been loaded, so that the joined rows reflect updates of the dimension table. Empty lookup
+ * results are only cached if {@code cacheEmptyResult} is set.
+ *
+ * <p>The cached rows are the rows returned by the lookup function, before any calculation on
+ * the temporal table and before the join condition is applied, because both only depend on the
+ * lookup keys and the probe row respectively.
+ *
+ * <p>All accessing methods are synchronized, as the async lookup join runner completes its
+ * lookups in threads of the lookup function.
+ */
+public class LookupCache implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final GeneratedProjection generatedKeyProjection;
+	private final BaseRowTypeInfo valueTypeInfo;
+	private final int maxSize;
+	private final long expireAfterWriteMs;
+	private final boolean cacheEmptyResult;
+
+	private transient Projection<BaseRow, BinaryRow> keyProjection;
+	private transient TypeSerializer<BaseRow> valueSerializer;
+	private transient LRUMap<BinaryRow, CacheEntry> cache;
+
+	private transient Counter hitCounter;
+	private transient Counter missCounter;
+	private transient long loadCount;
+	private transient long totalLoadTimeMs;
+
+	/**
+	 * Creates a new lookup cache.
+	 *
+	 * @param generatedKeyProjection projects a probe row to its lookup keys
+	 * @param valueTypeInfo the type of the rows returned by the lookup function
+	 * @param maxSize the maximum number of cached keys
+	 * @param expireAfterWriteMs the time to live of a cached key, or a non-positive value if the
+	 *                           cached keys should never expire
+	 * @param cacheEmptyResult whether to cache keys which have no matching rows
+	 */
+	public LookupCache(
+			GeneratedProjection generatedKeyProjection,
+			BaseRowTypeInfo valueTypeInfo,
+			int maxSize,
+			long expireAfterWriteMs,
+			boolean cacheEmptyResult) {
+		checkArgument(maxSize > 0, "The maximum size of the lookup cache must be positive.");
+		this.generatedKeyProjection = checkNotNull(generatedKeyProjection);
+		this.valueTypeInfo = checkNotNull(valueTypeInfo);
+		this.maxSize = maxSize;
+		this.expireAfterWriteMs = expireAfterWriteMs;
+		this.cacheEmptyResult = cacheEmptyResult;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void open(ClassLoader classLoader, ExecutionConfig executionConfig, MetricGroup metricGroup) {
+		this.keyProjection = generatedKeyProjection.newInstance(classLoader);
+		this.valueSerializer = valueTypeInfo.createSerializer(executionConfig);
+		this.cache = new LRUMap<>(maxSize);
+
+		this.hitCounter = metricGroup.counter("lookupCacheHits");
+		this.missCounter = metricGroup.counter("lookupCacheMisses");
+		metricGroup.gauge("lookupCacheSize", (Gauge<Integer>) () -> cache.size());
+		metricGroup.gauge("lookupCacheHitRate", (Gauge<Double>) () -> {
+			long hits = hitCounter.getCount();
+			long requests = hits + missCounter.getCount();
+			return requests == 0 ? 0.0 : (double) hits / requests;
+		});
+		metricGroup.gauge("lookupCacheAvgLoadTimeMs", (Gauge<Double>) () ->
+			loadCount == 0 ? 0.0 : (double) totalLoadTimeMs / loadCount);
+	}
+
+	/**
+	 * Projects the given probe row to its lookup keys. The returned row is reused by the next
+	 * call, it is copied when it is put into the cache.
+	 */
+	public BinaryRow getKey(BaseRow input) {
+		return keyProjection.apply(input);
+	}
+
+	/**
+	 * Returns the cached rows of the given key, or null if the key is not cached or has expired.
+	 */
+	@Nullable
+	public synchronized Collection<BaseRow> getIfPresent(BinaryRow key, long currentTimeMs) {
+		CacheEntry entry = cache.get(key);
+		if (entry != null && isExpired(entry, currentTimeMs)) {
+			cache.remove(key);
+			entry = null;
+		}
+
+		if (entry == null) {
+			missCounter.inc();
+			return null;
+		} else {
+			hitCounter.inc();
+			return entry.rows;
+		}
+	}
+
+	/**
+	 * Copies a row returned by the lookup function, as the function may reuse it.
+	 */
+	public BaseRow copyValue(BaseRow row) {
+		return valueSerializer.copy(row);
+	}
+
+	/**
+	 * Caches the rows fetched for the given key.
+	 *
+	 * @param key the lookup keys, copied before they are put into the cache
+	 * @param rows the rows returned by the lookup function, copied by {@link #copyValue(BaseRow)}
+	 * @param loadStartTimeMs the time when the lookup was started
+	 * @param currentTimeMs the time when the lookup was completed
+	 */
+	public synchronized void put(BinaryRow key, Collection<BaseRow> rows, long loadStartTimeMs, long currentTimeMs) {
+		loadCount++;
+		totalLoadTimeMs += currentTimeMs - loadStartTimeMs;
+
+		if (rows.isEmpty() && !cacheEmptyResult) {
+			return;
+		}
+
+		cache.put(key.copy(), new CacheEntry(rows, currentTimeMs));
+	}
+
+	public synchronized void close() {
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	private boolean isExpired(CacheEntry entry, long currentTimeMs) {
+		return expireAfterWriteMs > 0 && currentTimeMs - entry.writeTimeMs >= expireAfterWriteMs;
+	}
+
+	/**
+	 * The cached rows of a key and the time they have been loaded at.
+	 */
+	private static final class CacheEntry {
+
+		private final Collection<BaseRow> rows;
+		private final long writeTimeMs;
+
+		private CacheEntry(Collection<BaseRow> rows, long writeTimeMs) {
+			this.rows = rows;
+			this.writeTimeMs = writeTimeMs;
+		}
+	}
+}
@@ -23,6 +23,7 @@ import org.apache.flink.api.common.functions.util.FunctionUtils;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.functions.ProcessFunction;
 import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryRow;
 import org.apache.flink.table.dataformat.GenericRow;
 import org.apache.flink.table.dataformat.JoinedRow;
 import org.apache.flink.table.generated.GeneratedCollector;
@@ -30,6 +31,12 @@ import org.apache.flink.table.generated.GeneratedFunction;
 import org.apache.flink.table.runtime.collector.TableFunctionCollector;
 import org.apache.flink.util.Collector;
 
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * The join runner to lookup the dimension table.
  */
@@ -40,21 +47,34 @@ public class LookupJoinRunner extends ProcessFunction<BaseRow, BaseRow> {
 	private final GeneratedCollector<TableFunctionCollector<BaseRow>> generatedCollector;
 	private final boolean isLeftOuterJoin;
 	private final int tableFieldsCount;
+	@Nullable
+	private final LookupCache cache;
 
 	private transient FlatMapFunction<BaseRow, BaseRow> fetcher;
 	protected transient TableFunctionCollector<BaseRow> collector;
 	private transient GenericRow nullRow;
 	private transient JoinedRow outRow;
+	private transient CachingCollector cachingCollector;
 
 	public LookupJoinRunner(
 			GeneratedFunction<FlatMapFunction<BaseRow, BaseRow>> generatedFetcher,
 			GeneratedCollector<TableFunctionCollector<BaseRow>> generatedCollector,
 			boolean isLeftOuterJoin,
 			int tableFieldsCount) {
+		this(generatedFetcher, generatedCollector, isLeftOuterJoin, tableFieldsCount, null);
+	}
+
+	public LookupJoinRunner(
+			GeneratedFunction<FlatMapFunction<BaseRow, BaseRow>> generatedFetcher,
+			GeneratedCollector<TableFunctionCollector<BaseRow>> generatedCollector,
+			boolean isLeftOuterJoin,
+			int tableFieldsCount,
+			@Nullable LookupCache cache) {
 		this.generatedFetcher = generatedFetcher;
 		this.generatedCollector = generatedCollector;
 		this.isLeftOuterJoin = isLeftOuterJoin;
 		this.tableFieldsCount = tableFieldsCount;
+		this.cache = cache;
 	}
 
 	@Override
@@ -70,6 +90,14 @@ public class LookupJoinRunner extends ProcessFunction<BaseRow, BaseRow> {
 
 		this.nullRow = new GenericRow(tableFieldsCount);
 		this.outRow = new JoinedRow();
+
+		if (cache != null) {
+			cache.open(
+				getRuntimeContext().getUserCodeClassLoader(),
+				getRuntimeContext().getExecutionConfig(),
+				getRuntimeContext().getMetricGroup());
+			this.cachingCollector = new CachingCollector();
+		}
 	}
 
 	@Override
@@ -78,8 +106,12 @@ public class LookupJoinRunner extends ProcessFunction<BaseRow, BaseRow> {
 		collector.setInput(in);
 		collector.reset();
 
-		// fetcher has copied the input field when object reuse is enabled
-		fetcher.flatMap(in, getFetcherCollector());
+		if (cache == null) {
+			// fetcher has copied the input field when object reuse is enabled
+			fetcher.flatMap(in, getFetcherCollector());
+		} else {
+			lookupWithCache(in);
+		}
 
 		if (isLeftOuterJoin && !collector.isCollected()) {
 			outRow.replace(in, nullRow);
@@ -88,6 +120,23 @@ public class LookupJoinRunner extends ProcessFunction<BaseRow, BaseRow> {
 		}
 	}
 
+	private void lookupWithCache(BaseRow in) throws Exception {
+		final Collector<BaseRow> fetcherCollector = getFetcherCollector();
+		final BinaryRow key = cache.getKey(in);
+		final long currentTime = System.currentTimeMillis();
+
+		final Collection<BaseRow> cachedRows = cache.getIfPresent(key, currentTime);
+		if (cachedRows != null) {
+			for (BaseRow row : cachedRows) {
+				fetcherCollector.collect(row);
+			}
+		} else {
+			cachingCollector.reset(fetcherCollector);
+			fetcher.flatMap(in, cachingCollector);
+			cache.put(key, cachingCollector.rows, currentTime, System.currentTimeMillis());
+		}
+	}
+
 	public Collector<BaseRow> getFetcherCollector() {
 		return collector;
 	}
@@ -101,5 +150,35 @@ public class LookupJoinRunner extends ProcessFunction<BaseRow, BaseRow> {
 		if (collector != null) {
 			FunctionUtils.closeFunction(collector);
 		}
+		if (cache != null) {
+			cache.close();
+		}
+	}
+
+	/**
+	 * Forwards the fetched rows to the fetcher collector and keeps copies of them to be put into
+	 * the {@link LookupCache}.
+	 */
+	private final class CachingCollector implements Collector<BaseRow> {
+
+		private Collector<BaseRow> delegate;
+		private List<BaseRow> rows;
+
+		private void reset(Collector<BaseRow> delegate) {
+			this.delegate = delegate;
+			this.rows = new ArrayList<>();
+		}
+
+		@Override
+		public void collect(BaseRow record) {
+			BaseRow copy = cache.copyValue(record);
+			rows.add(copy);
+			delegate.collect(copy);
+		}
+
+		@Override
+		public void close() {
+			delegate.close();
+		}
 	}
 }
@@ -27,6 +27,8 @@ import org.apache.flink.table.generated.GeneratedFunction;
 import org.apache.flink.table.runtime.collector.TableFunctionCollector;
 import org.apache.flink.util.Collector;
 
+import javax.annotation.Nullable;
+
 /**
  * The join runner with an additional calculate function on the dimension table.
  */
@@ -44,7 +46,17 @@ public class LookupJoinWithCalcRunner extends LookupJoinRunner {
 			GeneratedCollector<TableFunctionCollector<BaseRow>> generatedCollector,
 			boolean isLeftOuterJoin,
 			int tableFieldsCount) {
-		super(generatedFetcher, generatedCollector, isLeftOuterJoin, tableFieldsCount);
+		this(generatedFetcher, generatedCalc, generatedCollector, isLeftOuterJoin, tableFieldsCount, null);
+	}
+
+	public LookupJoinWithCalcRunner(
+			GeneratedFunction<FlatMapFunction<BaseRow, BaseRow>> generatedFetcher,
+			GeneratedFunction<FlatMapFunction<BaseRow, BaseRow>> generatedCalc,
+			GeneratedCollector<TableFunctionCollector<BaseRow>> generatedCollector,
+			boolean isLeftOuterJoin,
+			int tableFieldsCount,
+			@Nullable LookupCache cache) {
+		super(generatedFetcher, generatedCollector, isLeftOuterJoin, tableFieldsCount, cache);
 		this.generatedCalc = generatedCalc;
 	}
 
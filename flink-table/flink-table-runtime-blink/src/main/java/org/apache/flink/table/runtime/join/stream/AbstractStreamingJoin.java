@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.TimeDomain;
+import org.apache.flink.streaming.api.functions.co.CoProcessFunction;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.generated.GeneratedJoinCondition;
+import org.apache.flink.table.generated.JoinCondition;
+import org.apache.flink.table.runtime.functions.CleanupState;
+import org.apache.flink.table.runtime.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.join.stream.state.JoinRecordStateView;
+import org.apache.flink.table.runtime.join.stream.state.OuterJoinRecordStateView;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+import org.apache.flink.util.Collector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class of the streaming (unbounded) joins. The records of both inputs are kept in
+ * {@link JoinRecordStateView}s whose structure is decided by the {@link JoinInputSideSpec}
+ * of the input, i.e. whether the input has a unique key and whether the join key contains it.
+ *
+ * <p>If state retention is configured, a processing time timer is registered per join key
+ * and all the records of the key are removed when the key has been idle for the retention time.
+ */
+public abstract class AbstractStreamingJoin
+		extends CoProcessFunction<BaseRow, BaseRow, BaseRow>
+		implements CleanupState {
+
+	private static final long serialVersionUID = -3135104787758463041L;
+
+	private static final Logger LOG = LoggerFactory.getLogger(AbstractStreamingJoin.class);
+
+	protected static final String LEFT_RECORDS_STATE_NAME = "left-records";
+	protected static final String RIGHT_RECORDS_STATE_NAME = "right-records";
+
+	protected final BaseRowTypeInfo leftType;
+	protected final BaseRowTypeInfo rightType;
+	protected final JoinInputSideSpec leftInputSideSpec;
+	protected final JoinInputSideSpec rightInputSideSpec;
+
+	private final long minRetentionTime;
+	private final long maxRetentionTime;
+	protected final boolean stateCleaningEnabled;
+
+	private GeneratedJoinCondition generatedJoinCondition;
+
+	protected transient JoinCondition joinCondition;
+
+	// holds the latest registered cleanup timer
+	private transient ValueState<Long> cleanupTimeState;
+
+	public AbstractStreamingJoin(
+			BaseRowTypeInfo leftType,
+			BaseRowTypeInfo rightType,
+			GeneratedJoinCondition generatedJoinCondition,
+			JoinInputSideSpec leftInputSideSpec,
+			JoinInputSideSpec rightInputSideSpec,
+			long minRetentionTime,
+			long maxRetentionTime) {
+		this.leftType = leftType;
+		this.rightType = rightType;
+		this.generatedJoinCondition = generatedJoinCondition;
+		this.leftInputSideSpec = leftInputSideSpec;
+		this.rightInputSideSpec = rightInputSideSpec;
+		this.minRetentionTime = minRetentionTime;
+		this.maxRetentionTime = maxRetentionTime;
+		this.stateCleaningEnabled = minRetentionTime > 1;
+	}
+
+	@Override
+	public void open(Configuration parameters) throws Exception {
+		super.open(parameters);
+		LOG.debug("Instantiating JoinCondition: {} \n\n Code:\n{}", generatedJoinCondition.getClassName(),
+			generatedJoinCondition.getCode());
+		joinCondition = generatedJoinCondition.newInstance(getRuntimeContext().getUserCodeClassLoader());
+		generatedJoinCondition = null;
+
+		if (stateCleaningEnabled) {
+			ValueStateDescriptor<Long> cleanupTimeDescriptor = new ValueStateDescriptor<>(
+				"join-cleanup-time", Types.LONG);
+			cleanupTimeState = getRuntimeContext().getState(cleanupTimeDescriptor);
+		}
+	}
+
+	@Override
+	public void processElement1(BaseRow input, Context ctx, Collector<BaseRow> out) throws Exception {
+		registerProcessingCleanupTimer(ctx);
+		processElement(input, true, out);
+	}
+
+	@Override
+	public void processElement2(BaseRow input, Context ctx, Collector<BaseRow> out) throws Exception {
+		registerProcessingCleanupTimer(ctx);
+		processElement(input, false, out);
+	}
+
+	/**
+	 * Processes an input record of the left (inputIsLeft is true) or the right input.
+	 */
+	protected abstract void processElement(BaseRow input, boolean inputIsLeft, Collector<BaseRow> out)
+		throws Exception;
+
+	/**
+	 * Removes all the records of the current join key from the state.
+	 */
+	protected abstract void clearRecordStates();
+
+	@Override
+	public void onTimer(long timestamp, OnTimerContext ctx, Collector<BaseRow> out) throws Exception {
+		if (stateCleaningEnabled && ctx.timeDomain() == TimeDomain.PROCESSING_TIME) {
+			Long cleanupTime = cleanupTimeState.value();
+			// check that the triggered timer is the last registered processing time timer.
+			if (cleanupTime != null && timestamp == cleanupTime) {
+				clearRecordStates();
+				cleanupTimeState.clear();
+			}
+		}
+	}
+
+	private void registerProcessingCleanupTimer(Context ctx) throws Exception {
+		if (stateCleaningEnabled) {
+			registerProcessingCleanupTimer(
+				cleanupTimeState,
+				ctx.timerService().currentProcessingTime(),
+				minRetentionTime,
+				maxRetentionTime,
+				ctx.timerService());
+		}
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * The {@link AssociatedRecords} is the records associated to the input row. It is a wrapper
+	 * of {@code List<OuterRecord>} which provides two helpful methods {@link #getRecords()} and
+	 * {@link #getOuterRecords()}. See the method Javadoc for more details.
+	 */
+	protected static final class AssociatedRecords {
+		private final List<OuterRecord> records;
+
+		private AssociatedRecords(List<OuterRecord> records) {
+			this.records = records;
+		}
+
+		public boolean isEmpty() {
+			return records.isEmpty();
+		}
+
+		public int size() {
+			return records.size();
+		}
+
+		/**
+		 * Gets the iterable of records. This is usually be called when the
+		 * {@link AssociatedRecords} is from inner side.
+		 */
+		public Iterable<BaseRow> getRecords() {
+			List<BaseRow> result = new ArrayList<>(records.size());
+			for (OuterRecord record : records) {
+				result.add(record.record);
+			}
+			return result;
+		}
+
+		/**
+		 * Gets the iterable of {@link OuterRecord} which composites record and numOfAssociations.
+		 * This is usually be called when the {@link AssociatedRecords} is from outer side.
+		 */
+		public Iterable<OuterRecord> getOuterRecords() {
+			return records;
+		}
+
+		/**
+		 * Creates an {@link AssociatedRecords} which represents the records associated to the
+		 * input row from the other side's state view.
+		 *
+		 * @param input the input record to find the associated records
+		 * @param inputIsLeft whether the input record comes from the left side of the join
+		 * @param otherSideStateView the state view of the other side
+		 * @param condition the join condition to evaluate on the input and the other side's records
+		 */
+		public static AssociatedRecords of(
+				BaseRow input,
+				boolean inputIsLeft,
+				JoinRecordStateView otherSideStateView,
+				JoinCondition condition) throws Exception {
+			List<OuterRecord> associations = new ArrayList<>();
+			if (otherSideStateView instanceof OuterJoinRecordStateView) {
+				OuterJoinRecordStateView outerStateView = (OuterJoinRecordStateView) otherSideStateView;
+				Iterable<Tuple2<BaseRow, Integer>> records = outerStateView.getRecordsAndNumOfAssociations();
+				for (Tuple2<BaseRow, Integer> record : records) {
+					boolean matched = inputIsLeft ?
+						condition.apply(input, record.f0) : condition.apply(record.f0, input);
+					if (matched) {
+						associations.add(new OuterRecord(record.f0, record.f1));
+					}
+				}
+			} else {
+				Iterable<BaseRow> records = otherSideStateView.getRecords();
+				for (BaseRow record : records) {
+					boolean matched = inputIsLeft ?
+						condition.apply(input, record) : condition.apply(record, input);
+					if (matched) {
+						// use -1 as the default number of associations
+						associations.add(new OuterRecord(record, -1));
+					}
+				}
+			}
+			return new AssociatedRecords(associations);
+		}
+	}
+
+	/**
+	 * An {@link OuterRecord} is a composite of record and {@code numOfAssociations}. The
+	 * {@code numOfAssociations} represents the number of associated records in the other side.
+	 * It is used when the record is from outer side (e.g. left side in LEFT OUTER JOIN).
+	 * When the {@code numOfAssociations} is ZERO, we need to send a null padding row.
+	 * This is useful to avoid recompute the associated numbers every time.
+	 *
+	 * <p>When the record is from inner side (e.g. right side in LEFT OUTER JOIN), the
+	 * {@code numOfAssociations} will always be -1.
+	 */
+	protected static final class OuterRecord {
+		public final BaseRow record;
+		public final int numOfAssociations;
+
+		private OuterRecord(BaseRow record, int numOfAssociations) {
+			this.record = record;
+			this.numOfAssociations = numOfAssociations;
+		}
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.apache.flink.table.dataformat.JoinedRow;
+import org.apache.flink.table.dataformat.util.BaseRowUtil;
+import org.apache.flink.table.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.join.stream.state.JoinRecordStateView;
+import org.apache.flink.table.runtime.join.stream.state.JoinRecordStateViews;
+import org.apache.flink.table.runtime.join.stream.state.OuterJoinRecordStateView;
+import org.apache.flink.table.runtime.join.stream.state.OuterJoinRecordStateViews;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+import org.apache.flink.util.Collector;
+
+/**
+ * Streaming unbounded Join function which supports INNER/LEFT/RIGHT/FULL JOIN over
+ * changelog inputs, i.e. inputs which may contain retract messages.
+ *
+ * <p>The outer input sides keep the number of associated records of every record in the
+ * state, so that the null padding rows can be sent or retracted without iterating the
+ * other side again.
+ */
+public class StreamingJoin extends AbstractStreamingJoin {
+
+	private static final long serialVersionUID = -6470536958196826262L;
+
+	// whether left side is outer side, e.g. left is outer but right is not when LEFT OUTER JOIN
+	private final boolean leftIsOuter;
+	// whether right side is outer side, e.g. right is outer but left is not when RIGHT OUTER JOIN
+	private final boolean rightIsOuter;
+
+	private transient JoinedRow outRow;
+	private transient BaseRow leftNullRow;
+	private transient BaseRow rightNullRow;
+
+	// left join state
+	private transient JoinRecordStateView leftRecordStateView;
+	// right join state
+	private transient JoinRecordStateView rightRecordStateView;
+
+	public StreamingJoin(
+			BaseRowTypeInfo leftType,
+			BaseRowTypeInfo rightType,
+			GeneratedJoinCondition generatedJoinCondition,
+			JoinInputSideSpec leftInputSideSpec,
+			JoinInputSideSpec rightInputSideSpec,
+			boolean leftIsOuter,
+			boolean rightIsOuter,
+			long minRetentionTime,
+			long maxRetentionTime) {
+		super(leftType, rightType, generatedJoinCondition, leftInputSideSpec, rightInputSideSpec,
+			minRetentionTime, maxRetentionTime);
+		this.leftIsOuter = leftIsOuter;
+		this.rightIsOuter = rightIsOuter;
+	}
+
+	@Override
+	public void open(Configuration parameters) throws Exception {
+		super.open(parameters);
+
+		this.outRow = new JoinedRow();
+		this.leftNullRow = new GenericRow(leftType.getArity());
+		this.rightNullRow = new GenericRow(rightType.getArity());
+
+		// initialize states
+		if (leftIsOuter) {
+			this.leftRecordStateView = OuterJoinRecordStateViews.create(
+				getRuntimeContext(),
+				LEFT_RECORDS_STATE_NAME,
+				leftInputSideSpec,
+				leftType);
+		} else {
+			this.leftRecordStateView = JoinRecordStateViews.create(
+				getRuntimeContext(),
+				LEFT_RECORDS_STATE_NAME,
+				leftInputSideSpec,
+				leftType);
+		}
+
+		if (rightIsOuter) {
+			this.rightRecordStateView = OuterJoinRecordStateViews.create(
+				getRuntimeContext(),
+				RIGHT_RECORDS_STATE_NAME,
+				rightInputSideSpec,
+				rightType);
+		} else {
+			this.rightRecordStateView = JoinRecordStateViews.create(
+				getRuntimeContext(),
+				RIGHT_RECORDS_STATE_NAME,
+				rightInputSideSpec,
+				rightType);
+		}
+	}
+
+	/**
+	 * Process an input element and output incremental joined records, retraction messages will
+	 * be sent in some scenarios.
+	 *
+	 * <p>Following is the pseudo code to describe the core logic of this method. The logic of this
+	 * method is too complex, so we provide the pseudo code to help understand the logic. We should
+	 * keep sync the following pseudo code with the real logic of the method.
+	 *
+	 * <pre>
+	 * if input record is accumulate
+	 * |  if input side is outer
+	 * |  |  if there is no matched rows on the other side, send +[record+null], state.add(record, 0)
+	 * |  |  if there are matched rows on the other side
+	 * |  |  | if other side is outer
+	 * |  |  | |  if the matched num in the matched rows == 0, send -[null+other]
+	 * |  |  | |  if the matched num in the matched rows > 0, skip
+	 * |  |  | |  otherState.update(other, old + 1)
+	 * |  |  | endif
+	 * |  |  | send +[record+other]s, state.add(record, other.size)
+	 * |  |  endif
+	 * |  endif
+	 * |  if input side not outer
+	 * |  |  state.add(record)
+	 * |  |  if there is no matched rows on the other side, skip
+	 * |  |  if there are matched rows on the other side
+	 * |  |  |  if other side is outer
+	 * |  |  |  |  if the matched num in the matched rows == 0, send -[null+other]
+	 * |  |  |  |  if the matched num in the matched rows > 0, skip
+	 * |  |  |  |  otherState.update(other, old + 1)
+	 * |  |  |  endif
+	 * |  |  |  send +[record+other]s
+	 * |  |  endif
+	 * |  endif
+	 * endif
+	 *
+	 * if input record is retract
+	 * |  state.retract(record)
+	 * |  if there is no matched rows on the other side
+	 * |  | if input side is outer, send -[record+null]
+	 * |  endif
+	 * |  if there are matched rows on the other side, send -[record+other]s
+	 * |  |  if other side is outer
+	 * |  |  |  if the matched num in the matched rows == 1, send +[null+other]
+	 * |  |  |  if the matched num in the matched rows > 1, skip
+	 * |  |  |  otherState.update(other, old - 1)
+	 * |  |  endif
+	 * |  endif
+	 * endif
+	 * </pre>
+	 *
+	 * @param input the input element
+	 * @param inputIsLeft whether the input element comes from the left side
+	 * @param out the collector to emit the joined records
+	 */
+	@Override
+	protected void processElement(BaseRow input, boolean inputIsLeft, Collector<BaseRow> out) throws Exception {
+		JoinRecordStateView inputSideStateView = inputIsLeft ? leftRecordStateView : rightRecordStateView;
+		JoinRecordStateView otherSideStateView = inputIsLeft ? rightRecordStateView : leftRecordStateView;
+		boolean inputIsOuter = inputIsLeft ? leftIsOuter : rightIsOuter;
+		boolean otherIsOuter = inputIsLeft ? rightIsOuter : leftIsOuter;
+
+		boolean isAccumulateMsg = BaseRowUtil.isAccumulateMsg(input);
+		// erase the header so that the record can be compared with the records in the state
+		input.setHeader(BaseRowUtil.ACCUMULATE_MSG);
+
+		AssociatedRecords associatedRecords = AssociatedRecords.of(input, inputIsLeft, otherSideStateView, joinCondition);
+		if (isAccumulateMsg) { // record is accumulate
+			if (inputIsOuter) { // input side is outer
+				OuterJoinRecordStateView inputSideOuterStateView = (OuterJoinRecordStateView) inputSideStateView;
+				if (associatedRecords.isEmpty()) { // there is no matched rows on the other side
+					// send +[record+null]
+					outputNullPadding(input, inputIsLeft, true, out);
+					// state.add(record, 0)
+					inputSideOuterStateView.addRecord(input, 0);
+				} else { // there are matched rows on the other side
+					if (otherIsOuter) { // other side is outer
+						OuterJoinRecordStateView otherSideOuterStateView = (OuterJoinRecordStateView) otherSideStateView;
+						for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
+							BaseRow other = outerRecord.record;
+							if (outerRecord.numOfAssociations == 0) {
+								// send -[null+other]
+								outputNullPadding(other, !inputIsLeft, false, out);
+							} // ignore matched number > 0
+							// otherState.update(other, old + 1)
+							otherSideOuterStateView.updateNumOfAssociations(other, outerRecord.numOfAssociations + 1);
+						}
+					}
+					// send +[record+other]s
+					for (BaseRow other : associatedRecords.getRecords()) {
+						output(input, other, inputIsLeft, true, out);
+					}
+					// state.add(record, other.size)
+					inputSideOuterStateView.addRecord(input, associatedRecords.size());
+				}
+			} else { // input side not outer
+				// state.add(record)
+				inputSideStateView.addRecord(input);
+				if (!associatedRecords.isEmpty()) { // if there are matched rows on the other side
+					if (otherIsOuter) { // if other side is outer
+						OuterJoinRecordStateView otherSideOuterStateView = (OuterJoinRecordStateView) otherSideStateView;
+						for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
+							if (outerRecord.numOfAssociations == 0) { // if the matched num in the matched rows == 0
+								// send -[null+other]
+								outputNullPadding(outerRecord.record, !inputIsLeft, false, out);
+							}
+							// otherState.update(other, old + 1)
+							otherSideOuterStateView.updateNumOfAssociations(outerRecord.record, outerRecord.numOfAssociations + 1);
+						}
+					}
+					// send +[record+other]s
+					for (BaseRow other : associatedRecords.getRecords()) {
+						output(input, other, inputIsLeft, true, out);
+					}
+				}
+				// skip when there is no matched rows on the other side
+			}
+		} else { // input record is retract
+			// state.retract(record)
+			inputSideStateView.retractRecord(input);
+			if (associatedRecords.isEmpty()) { // there is no matched rows on the other side
+				if (inputIsOuter) { // input side is outer
+					// send -[record+null]
+					outputNullPadding(input, inputIsLeft, false, out);
+				}
+				// nothing to do when input side is not outer
+			} else { // there are matched rows on the other side
+				// send -[record+other]s
+				for (BaseRow other : associatedRecords.getRecords()) {
+					output(input, other, inputIsLeft, false, out);
+				}
+				if (otherIsOuter) { // if other side is outer
+					OuterJoinRecordStateView otherSideOuterStateView = (OuterJoinRecordStateView) otherSideStateView;
+					for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
+						if (outerRecord.numOfAssociations == 1) {
+							// send +[null+other]
+							outputNullPadding(outerRecord.record, !inputIsLeft, true, out);
+						} // nothing else to do when number of associations > 1
+						// otherState.update(other, old - 1)
+						otherSideOuterStateView.updateNumOfAssociations(outerRecord.record, outerRecord.numOfAssociations - 1);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void clearRecordStates() {
+		leftRecordStateView.clear();
+		rightRecordStateView.clear();
+	}
+
+	// -------------------------------------------------------------------------------------
+
+	private void output(BaseRow inputRow, BaseRow otherRow, boolean inputIsLeft, boolean isAccumulate,
+			Collector<BaseRow> out) {
+		if (inputIsLeft) {
+			outRow.replace(inputRow, otherRow);
+		} else {
+			outRow.replace(otherRow, inputRow);
+		}
+		outRow.setHeader(isAccumulate ? BaseRowUtil.ACCUMULATE_MSG : BaseRowUtil.RETRACT_MSG);
+		out.collect(outRow);
+	}
+
+	private void outputNullPadding(BaseRow row, boolean isLeft, boolean isAccumulate, Collector<BaseRow> out) {
+		if (isLeft) {
+			outRow.replace(row, rightNullRow);
+		} else {
+			outRow.replace(leftNullRow, row);
+		}
+		outRow.setHeader(isAccumulate ? BaseRowUtil.ACCUMULATE_MSG : BaseRowUtil.RETRACT_MSG);
+		out.collect(outRow);
+	}
+}
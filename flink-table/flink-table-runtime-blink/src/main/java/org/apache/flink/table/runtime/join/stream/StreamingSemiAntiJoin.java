@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.util.BaseRowUtil;
+import org.apache.flink.table.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.join.stream.state.JoinRecordStateView;
+import org.apache.flink.table.runtime.join.stream.state.JoinRecordStateViews;
+import org.apache.flink.table.runtime.join.stream.state.OuterJoinRecordStateView;
+import org.apache.flink.table.runtime.join.stream.state.OuterJoinRecordStateViews;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+import org.apache.flink.util.Collector;
+
+/**
+ * Streaming unbounded Join function which supports SEMI/ANTI JOIN over changelog inputs.
+ *
+ * <p>Only the left records are emitted. The left side keeps the number of associated right
+ * records of every left record in the state, so that a left record can be emitted or
+ * retracted as soon as its first association appears or its last association disappears.
+ */
+public class StreamingSemiAntiJoin extends AbstractStreamingJoin {
+
+	private static final long serialVersionUID = -3135772379944924519L;
+
+	// true if it is anti join, otherwise is semi join
+	private final boolean isAntiJoin;
+
+	// left join state
+	private transient OuterJoinRecordStateView leftRecordStateView;
+	// right join state
+	private transient JoinRecordStateView rightRecordStateView;
+
+	public StreamingSemiAntiJoin(
+			boolean isAntiJoin,
+			BaseRowTypeInfo leftType,
+			BaseRowTypeInfo rightType,
+			GeneratedJoinCondition generatedJoinCondition,
+			JoinInputSideSpec leftInputSideSpec,
+			JoinInputSideSpec rightInputSideSpec,
+			long minRetentionTime,
+			long maxRetentionTime) {
+		super(leftType, rightType, generatedJoinCondition, leftInputSideSpec, rightInputSideSpec,
+			minRetentionTime, maxRetentionTime);
+		this.isAntiJoin = isAntiJoin;
+	}
+
+	@Override
+	public void open(Configuration parameters) throws Exception {
+		super.open(parameters);
+
+		this.leftRecordStateView = OuterJoinRecordStateViews.create(
+			getRuntimeContext(),
+			LEFT_RECORDS_STATE_NAME,
+			leftInputSideSpec,
+			leftType);
+
+		this.rightRecordStateView = JoinRecordStateViews.create(
+			getRuntimeContext(),
+			RIGHT_RECORDS_STATE_NAME,
+			rightInputSideSpec,
+			rightType);
+	}
+
+	@Override
+	protected void processElement(BaseRow input, boolean inputIsLeft, Collector<BaseRow> out) throws Exception {
+		if (inputIsLeft) {
+			processLeftElement(input, out);
+		} else {
+			processRightElement(input, out);
+		}
+	}
+
+	/**
+	 * Process an input element from the left side. The left record is emitted with its own
+	 * header if it has associations (SEMI JOIN) or has no association (ANTI JOIN).
+	 *
+	 * <pre>
+	 * if there is no matched rows on the right side
+	 * |  if anti join, send the record
+	 * endif
+	 * if there are matched rows on the right side
+	 * |  if semi join, send the record
+	 * endif
+	 * if the record is accumulate, state.add(record, matched size)
+	 * if the record is retract, state.retract(record)
+	 * </pre>
+	 */
+	private void processLeftElement(BaseRow input, Collector<BaseRow> out) throws Exception {
+		boolean isAccumulateMsg = BaseRowUtil.isAccumulateMsg(input);
+		// erase the header so that the record can be compared with the records in the state
+		input.setHeader(BaseRowUtil.ACCUMULATE_MSG);
+
+		AssociatedRecords associatedRecords = AssociatedRecords.of(input, true, rightRecordStateView, joinCondition);
+		if (associatedRecords.isEmpty() == isAntiJoin) {
+			input.setHeader(isAccumulateMsg ? BaseRowUtil.ACCUMULATE_MSG : BaseRowUtil.RETRACT_MSG);
+			out.collect(input);
+			input.setHeader(BaseRowUtil.ACCUMULATE_MSG);
+		}
+
+		if (isAccumulateMsg) {
+			leftRecordStateView.addRecord(input, associatedRecords.size());
+		} else {
+			leftRecordStateView.retractRecord(input);
+		}
+	}
+
+	/**
+	 * Process an input element from the right side. Left records change their join result
+	 * only when their number of associations changes between zero and one.
+	 *
+	 * <pre>
+	 * if the record is accumulate
+	 * |  state.add(record)
+	 * |  for the matched left records
+	 * |  |  if the matched num of the left record == 0
+	 * |  |  |  if anti join, send -[left], if semi join, send +[left]
+	 * |  |  endif
+	 * |  |  leftState.update(left, old + 1)
+	 * |  endfor
+	 * endif
+	 * if the record is retract
+	 * |  state.retract(record)
+	 * |  for the matched left records
+	 * |  |  if the matched num of the left record == 1
+	 * |  |  |  if anti join, send +[left], if semi join, send -[left]
+	 * |  |  endif
+	 * |  |  leftState.update(left, old - 1)
+	 * |  endfor
+	 * endif
+	 * </pre>
+	 */
+	private void processRightElement(BaseRow input, Collector<BaseRow> out) throws Exception {
+		boolean isAccumulateMsg = BaseRowUtil.isAccumulateMsg(input);
+		// erase the header so that the record can be compared with the records in the state
+		input.setHeader(BaseRowUtil.ACCUMULATE_MSG);
+
+		AssociatedRecords associatedRecords = AssociatedRecords.of(input, false, leftRecordStateView, joinCondition);
+		if (isAccumulateMsg) {
+			rightRecordStateView.addRecord(input);
+			for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
+				BaseRow other = outerRecord.record;
+				if (outerRecord.numOfAssociations == 0) {
+					outputLeft(other, !isAntiJoin, out);
+				}
+				leftRecordStateView.updateNumOfAssociations(other, outerRecord.numOfAssociations + 1);
+			}
+		} else {
+			rightRecordStateView.retractRecord(input);
+			for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
+				BaseRow other = outerRecord.record;
+				if (outerRecord.numOfAssociations == 1) {
+					outputLeft(other, isAntiJoin, out);
+				}
+				leftRecordStateView.updateNumOfAssociations(other, outerRecord.numOfAssociations - 1);
+			}
+		}
+	}
+
+	@Override
+	protected void clearRecordStates() {
+		leftRecordStateView.clear();
+		rightRecordStateView.clear();
+	}
+
+	/**
+	 * Emits the left record with the given header and resets the header of the record,
+	 * because the record is still referenced by the state.
+	 */
+	private void outputLeft(BaseRow left, boolean isAccumulate, Collector<BaseRow> out) {
+		left.setHeader(isAccumulate ? BaseRowUtil.ACCUMULATE_MSG : BaseRowUtil.RETRACT_MSG);
+		out.collect(left);
+		left.setHeader(BaseRowUtil.ACCUMULATE_MSG);
+	}
+}
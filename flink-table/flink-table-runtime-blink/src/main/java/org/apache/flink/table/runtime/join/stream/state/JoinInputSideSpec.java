@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream.state;
+
+import org.apache.flink.table.runtime.keyselector.BaseRowKeySelector;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+
+/**
+ * The {@link JoinInputSideSpec} describes the unique key information of one input of a
+ * streaming join, which decides the layout of the state that keeps the rows of the input.
+ */
+public class JoinInputSideSpec implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final boolean inputSideHasUniqueKey;
+	private final boolean joinKeyContainsUniqueKey;
+	@Nullable
+	private final BaseRowTypeInfo uniqueKeyType;
+	@Nullable
+	private final BaseRowKeySelector uniqueKeySelector;
+
+	private JoinInputSideSpec(
+			boolean joinKeyContainsUniqueKey,
+			@Nullable BaseRowTypeInfo uniqueKeyType,
+			@Nullable BaseRowKeySelector uniqueKeySelector) {
+		this.inputSideHasUniqueKey = uniqueKeyType != null && uniqueKeySelector != null;
+		this.joinKeyContainsUniqueKey = joinKeyContainsUniqueKey;
+		this.uniqueKeyType = uniqueKeyType;
+		this.uniqueKeySelector = uniqueKeySelector;
+	}
+
+	/**
+	 * Returns true if the input has unique key, otherwise false.
+	 */
+	public boolean hasUniqueKey() {
+		return inputSideHasUniqueKey;
+	}
+
+	/**
+	 * Returns true if the join key contains the unique key of the input, i.e. there is at most
+	 * one row per join key.
+	 */
+	public boolean joinKeyContainsUniqueKey() {
+		return joinKeyContainsUniqueKey;
+	}
+
+	/**
+	 * Returns the {@link BaseRowTypeInfo} of the unique key, or null if the input has no unique key.
+	 */
+	@Nullable
+	public BaseRowTypeInfo getUniqueKeyType() {
+		return uniqueKeyType;
+	}
+
+	/**
+	 * Returns the {@link BaseRowKeySelector} to extract the unique key from the input rows,
+	 * or null if the input has no unique key.
+	 */
+	@Nullable
+	public BaseRowKeySelector getUniqueKeySelector() {
+		return uniqueKeySelector;
+	}
+
+	/**
+	 * Creates a {@link JoinInputSideSpec} that the input has a unique key.
+	 *
+	 * @param uniqueKeyType type information of the unique key
+	 * @param uniqueKeySelector key selector to extract unique key from the input row
+	 */
+	public static JoinInputSideSpec withUniqueKey(
+			BaseRowTypeInfo uniqueKeyType,
+			BaseRowKeySelector uniqueKeySelector) {
+		return new JoinInputSideSpec(false, uniqueKeyType, uniqueKeySelector);
+	}
+
+	/**
+	 * Creates a {@link JoinInputSideSpec} that the input has a unique key and the unique key is
+	 * contained by the join key.
+	 *
+	 * @param uniqueKeyType type information of the unique key
+	 * @param uniqueKeySelector key selector to extract unique key from the input row
+	 */
+	public static JoinInputSideSpec withUniqueKeyContainedByJoinKey(
+			BaseRowTypeInfo uniqueKeyType,
+			BaseRowKeySelector uniqueKeySelector) {
+		return new JoinInputSideSpec(true, uniqueKeyType, uniqueKeySelector);
+	}
+
+	/**
+	 * Creates a {@link JoinInputSideSpec} that the input hasn't any unique keys.
+	 */
+	public static JoinInputSideSpec withoutUniqueKey() {
+		return new JoinInputSideSpec(false, null, null);
+	}
+
+	@Override
+	public String toString() {
+		if (inputSideHasUniqueKey) {
+			if (joinKeyContainsUniqueKey) {
+				return "JoinKeyContainsUniqueKey";
+			} else {
+				return "HasUniqueKey";
+			}
+		} else {
+			return "NoUniqueKey";
+		}
+	}
+}
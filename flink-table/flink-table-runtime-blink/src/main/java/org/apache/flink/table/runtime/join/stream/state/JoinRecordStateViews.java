@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream.state;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.runtime.keyselector.BaseRowKeySelector;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+import org.apache.flink.util.IterableIterator;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Utility to create a {@link JoinRecordStateView} depends on {@link JoinInputSideSpec}.
+ */
+public final class JoinRecordStateViews {
+
+	/**
+	 * Creates a {@link JoinRecordStateView} depends on {@link JoinInputSideSpec}.
+	 */
+	public static JoinRecordStateView create(
+			RuntimeContext ctx,
+			String stateName,
+			JoinInputSideSpec inputSideSpec,
+			BaseRowTypeInfo recordType) {
+		if (inputSideSpec.hasUniqueKey()) {
+			if (inputSideSpec.joinKeyContainsUniqueKey()) {
+				return new JoinKeyContainsUniqueKey(ctx, stateName, recordType);
+			} else {
+				return new InputSideHasUniqueKey(
+					ctx,
+					stateName,
+					recordType,
+					inputSideSpec.getUniqueKeyType(),
+					inputSideSpec.getUniqueKeySelector());
+			}
+		} else {
+			return new InputSideHasNoUniqueKey(ctx, stateName, recordType);
+		}
+	}
+
+	private JoinRecordStateViews() {
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * The view of a join input whose join key contains the unique key, so there is at most
+	 * one record per join key and a {@link ValueState} is enough.
+	 */
+	private static final class JoinKeyContainsUniqueKey implements JoinRecordStateView {
+
+		private final ValueState<BaseRow> recordState;
+		private final Iterable<BaseRow> emptyIterable = Collections.emptyList();
+
+		private JoinKeyContainsUniqueKey(RuntimeContext ctx, String stateName, BaseRowTypeInfo recordType) {
+			ValueStateDescriptor<BaseRow> recordStateDesc = new ValueStateDescriptor<>(
+				stateName,
+				recordType);
+			this.recordState = ctx.getState(recordStateDesc);
+		}
+
+		@Override
+		public void addRecord(BaseRow record) throws Exception {
+			recordState.update(record);
+		}
+
+		@Override
+		public void retractRecord(BaseRow record) throws Exception {
+			recordState.clear();
+		}
+
+		@Override
+		public Iterable<BaseRow> getRecords() throws Exception {
+			BaseRow record = recordState.value();
+			return record == null ? emptyIterable : Collections.singletonList(record);
+		}
+
+		@Override
+		public void clear() {
+			recordState.clear();
+		}
+	}
+
+	/**
+	 * The view of a join input which has a unique key that is not contained by the join key.
+	 * The records are kept in a {@link MapState} from the unique key to the record.
+	 */
+	private static final class InputSideHasUniqueKey implements JoinRecordStateView {
+
+		// stores record in the mapping <UK, Record>
+		private final MapState<BaseRow, BaseRow> recordState;
+		private final BaseRowKeySelector uniqueKeySelector;
+
+		private InputSideHasUniqueKey(
+				RuntimeContext ctx,
+				String stateName,
+				BaseRowTypeInfo recordType,
+				BaseRowTypeInfo uniqueKeyType,
+				BaseRowKeySelector uniqueKeySelector) {
+			checkNotNull(uniqueKeyType);
+			checkNotNull(uniqueKeySelector);
+			MapStateDescriptor<BaseRow, BaseRow> recordStateDesc = new MapStateDescriptor<>(
+				stateName,
+				uniqueKeyType,
+				recordType);
+			this.recordState = ctx.getMapState(recordStateDesc);
+			this.uniqueKeySelector = uniqueKeySelector;
+		}
+
+		@Override
+		public void addRecord(BaseRow record) throws Exception {
+			BaseRow uniqueKey = uniqueKeySelector.getKey(record);
+			recordState.put(uniqueKey, record);
+		}
+
+		@Override
+		public void retractRecord(BaseRow record) throws Exception {
+			BaseRow uniqueKey = uniqueKeySelector.getKey(record);
+			recordState.remove(uniqueKey);
+		}
+
+		@Override
+		public Iterable<BaseRow> getRecords() throws Exception {
+			return recordState.values();
+		}
+
+		@Override
+		public void clear() {
+			recordState.clear();
+		}
+	}
+
+	/**
+	 * The view of a join input without unique key. The records are kept in a {@link MapState}
+	 * from the record to the number of its occurrences.
+	 */
+	private static final class InputSideHasNoUniqueKey implements JoinRecordStateView {
+
+		// stores record in the mapping <Record, Count>
+		private final MapState<BaseRow, Integer> recordState;
+
+		private InputSideHasNoUniqueKey(RuntimeContext ctx, String stateName, BaseRowTypeInfo recordType) {
+			MapStateDescriptor<BaseRow, Integer> recordStateDesc = new MapStateDescriptor<>(
+				stateName,
+				recordType,
+				Types.INT);
+			this.recordState = ctx.getMapState(recordStateDesc);
+		}
+
+		@Override
+		public void addRecord(BaseRow record) throws Exception {
+			Integer cnt = recordState.get(record);
+			if (cnt != null) {
+				cnt += 1;
+			} else {
+				cnt = 1;
+			}
+			recordState.put(record, cnt);
+		}
+
+		@Override
+		public void retractRecord(BaseRow record) throws Exception {
+			Integer cnt = recordState.get(record);
+			if (cnt != null) {
+				if (cnt > 1) {
+					recordState.put(record, cnt - 1);
+				} else {
+					recordState.remove(record);
+				}
+			}
+			// ignore cnt == null, which means state may be expired
+		}
+
+		@Override
+		public Iterable<BaseRow> getRecords() throws Exception {
+			return new RecordsIterable(recordState.entries());
+		}
+
+		@Override
+		public void clear() {
+			recordState.clear();
+		}
+	}
+
+	/**
+	 * An {@link IterableIterator} which repeats every record as many times as its count.
+	 */
+	private static final class RecordsIterable implements IterableIterator<BaseRow> {
+
+		private final Iterator<Map.Entry<BaseRow, Integer>> backingIterable;
+		private BaseRow record;
+		private int remainingTimes = 0;
+
+		private RecordsIterable(Iterable<Map.Entry<BaseRow, Integer>> entries) {
+			this.backingIterable = entries == null ?
+				Collections.<Map.Entry<BaseRow, Integer>>emptyIterator() : entries.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return remainingTimes > 0 || backingIterable.hasNext();
+		}
+
+		@Override
+		public BaseRow next() {
+			if (remainingTimes <= 0) {
+				if (!backingIterable.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Map.Entry<BaseRow, Integer> entry = backingIterable.next();
+				record = entry.getKey();
+				remainingTimes = entry.getValue();
+			}
+			remainingTimes--;
+			return record;
+		}
+
+		@Override
+		public Iterator<BaseRow> iterator() {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream.state;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.runtime.keyselector.BaseRowKeySelector;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+import org.apache.flink.util.IterableIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Utility to create a {@link OuterJoinRecordStateView} depends on {@link JoinInputSideSpec}.
+ */
+public final class OuterJoinRecordStateViews {
+
+	/**
+	 * Creates a {@link OuterJoinRecordStateView} depends on {@link JoinInputSideSpec}.
+	 */
+	public static OuterJoinRecordStateView create(
+			RuntimeContext ctx,
+			String stateName,
+			JoinInputSideSpec inputSideSpec,
+			BaseRowTypeInfo recordType) {
+		if (inputSideSpec.hasUniqueKey()) {
+			if (inputSideSpec.joinKeyContainsUniqueKey()) {
+				return new JoinKeyContainsUniqueKey(ctx, stateName, recordType);
+			} else {
+				return new InputSideHasUniqueKey(
+					ctx,
+					stateName,
+					recordType,
+					inputSideSpec.getUniqueKeyType(),
+					inputSideSpec.getUniqueKeySelector());
+			}
+		} else {
+			return new InputSideHasNoUniqueKey(ctx, stateName, recordType);
+		}
+	}
+
+	private OuterJoinRecordStateViews() {
+	}
+
+	// ------------------------------------------------------------------------------------
+
+	/**
+	 * The outer view of a join input whose join key contains the unique key. The only record
+	 * of a join key is kept together with its number of associations in a {@link ValueState}.
+	 */
+	private static final class JoinKeyContainsUniqueKey implements OuterJoinRecordStateView {
+
+		private final ValueState<Tuple2<BaseRow, Integer>> recordState;
+		private final List<BaseRow> reusedRecordList;
+		private final List<Tuple2<BaseRow, Integer>> reusedTupleList;
+
+		private JoinKeyContainsUniqueKey(RuntimeContext ctx, String stateName, BaseRowTypeInfo recordType) {
+			TupleTypeInfo<Tuple2<BaseRow, Integer>> valueTypeInfo = new TupleTypeInfo<>(recordType, Types.INT);
+			ValueStateDescriptor<Tuple2<BaseRow, Integer>> recordStateDesc = new ValueStateDescriptor<>(
+				stateName,
+				valueTypeInfo);
+			this.recordState = ctx.getState(recordStateDesc);
+			this.reusedRecordList = new ArrayList<>(1);
+			this.reusedTupleList = new ArrayList<>(1);
+		}
+
+		@Override
+		public void addRecord(BaseRow record) throws Exception {
+			addRecord(record, -1);
+		}
+
+		@Override
+		public void addRecord(BaseRow record, int numOfAssociations) throws Exception {
+			recordState.update(Tuple2.of(record, numOfAssociations));
+		}
+
+		@Override
+		public void updateNumOfAssociations(BaseRow record, int numOfAssociations) throws Exception {
+			recordState.update(Tuple2.of(record, numOfAssociations));
+		}
+
+		@Override
+		public void retractRecord(BaseRow record) throws Exception {
+			recordState.clear();
+		}
+
+		@Override
+		public Iterable<BaseRow> getRecords() throws Exception {
+			reusedRecordList.clear();
+			Tuple2<BaseRow, Integer> tuple = recordState.value();
+			if (tuple != null) {
+				reusedRecordList.add(tuple.f0);
+			}
+			return reusedRecordList;
+		}
+
+		@Override
+		public Iterable<Tuple2<BaseRow, Integer>> getRecordsAndNumOfAssociations() throws Exception {
+			reusedTupleList.clear();
+			Tuple2<BaseRow, Integer> tuple = recordState.value();
+			if (tuple != null) {
+				reusedTupleList.add(tuple);
+			}
+			return reusedTupleList;
+		}
+
+		@Override
+		public void clear() {
+			recordState.clear();
+		}
+	}
+
+	/**
+	 * The outer view of a join input which has a unique key that is not contained by the join
+	 * key. The records are kept with their number of associations in a {@link MapState} keyed
+	 * by the unique key.
+	 */
+	private static final class InputSideHasUniqueKey implements OuterJoinRecordStateView {
+
+		// stores record in the mapping <UK, <Record, associated-num>>
+		private final MapState<BaseRow, Tuple2<BaseRow, Integer>> recordState;
+		private final BaseRowKeySelector uniqueKeySelector;
+
+		private InputSideHasUniqueKey(
+				RuntimeContext ctx,
+				String stateName,
+				BaseRowTypeInfo recordType,
+				BaseRowTypeInfo uniqueKeyType,
+				BaseRowKeySelector uniqueKeySelector) {
+			checkNotNull(uniqueKeyType);
+			checkNotNull(uniqueKeySelector);
+			TupleTypeInfo<Tuple2<BaseRow, Integer>> valueTypeInfo = new TupleTypeInfo<>(recordType, Types.INT);
+			MapStateDescriptor<BaseRow, Tuple2<BaseRow, Integer>> recordStateDesc = new MapStateDescriptor<>(
+				stateName,
+				uniqueKeyType,
+				valueTypeInfo);
+			this.recordState = ctx.getMapState(recordStateDesc);
+			this.uniqueKeySelector = uniqueKeySelector;
+		}
+
+		@Override
+		public void addRecord(BaseRow record) throws Exception {
+			addRecord(record, -1);
+		}
+
+		@Override
+		public void addRecord(BaseRow record, int numOfAssociations) throws Exception {
+			BaseRow uniqueKey = uniqueKeySelector.getKey(record);
+			recordState.put(uniqueKey, Tuple2.of(record, numOfAssociations));
+		}
+
+		@Override
+		public void updateNumOfAssociations(BaseRow record, int numOfAssociations) throws Exception {
+			BaseRow uniqueKey = uniqueKeySelector.getKey(record);
+			recordState.put(uniqueKey, Tuple2.of(record, numOfAssociations));
+		}
+
+		@Override
+		public void retractRecord(BaseRow record) throws Exception {
+			BaseRow uniqueKey = uniqueKeySelector.getKey(record);
+			recordState.remove(uniqueKey);
+		}
+
+		@Override
+		public Iterable<BaseRow> getRecords() throws Exception {
+			return new RecordsIterable(getRecordsAndNumOfAssociations());
+		}
+
+		@Override
+		public Iterable<Tuple2<BaseRow, Integer>> getRecordsAndNumOfAssociations() throws Exception {
+			Iterable<Tuple2<BaseRow, Integer>> values = recordState.values();
+			return values == null ? Collections.<Tuple2<BaseRow, Integer>>emptyList() : values;
+		}
+
+		@Override
+		public void clear() {
+			recordState.clear();
+		}
+	}
+
+	/**
+	 * The outer view of a join input without unique key. The records are kept in a
+	 * {@link MapState} from the record to its number of occurrences and its number of
+	 * associations. Duplicate records share the same number of associations, because they
+	 * join with exactly the same records of the other side.
+	 */
+	private static final class InputSideHasNoUniqueKey implements OuterJoinRecordStateView {
+
+		// stores record in the mapping <Record, <appear-times, associated-num>>
+		private final MapState<BaseRow, Tuple2<Integer, Integer>> recordState;
+
+		private InputSideHasNoUniqueKey(RuntimeContext ctx, String stateName, BaseRowTypeInfo recordType) {
+			TupleTypeInfo<Tuple2<Integer, Integer>> tupleTypeInfo = new TupleTypeInfo<>(Types.INT, Types.INT);
+			MapStateDescriptor<BaseRow, Tuple2<Integer, Integer>> recordStateDesc = new MapStateDescriptor<>(
+				stateName,
+				recordType,
+				tupleTypeInfo);
+			this.recordState = ctx.getMapState(recordStateDesc);
+		}
+
+		@Override
+		public void addRecord(BaseRow record) throws Exception {
+			addRecord(record, -1);
+		}
+
+		@Override
+		public void addRecord(BaseRow record, int numOfAssociations) throws Exception {
+			Tuple2<Integer, Integer> tuple = recordState.get(record);
+			if (tuple != null) {
+				tuple.f0 = tuple.f0 + 1;
+				tuple.f1 = numOfAssociations;
+			} else {
+				tuple = Tuple2.of(1, numOfAssociations);
+			}
+			recordState.put(record, tuple);
+		}
+
+		@Override
+		public void updateNumOfAssociations(BaseRow record, int numOfAssociations) throws Exception {
+			Tuple2<Integer, Integer> tuple = recordState.get(record);
+			if (tuple != null) {
+				tuple.f1 = numOfAssociations;
+			} else {
+				// compatible for state ttl
+				tuple = Tuple2.of(1, numOfAssociations);
+			}
+			recordState.put(record, tuple);
+		}
+
+		@Override
+		public void retractRecord(BaseRow record) throws Exception {
+			Tuple2<Integer, Integer> tuple = recordState.get(record);
+			if (tuple != null) {
+				if (tuple.f0 > 1) {
+					tuple.f0 = tuple.f0 - 1;
+					recordState.put(record, tuple);
+				} else {
+					recordState.remove(record);
+				}
+			}
+		}
+
+		@Override
+		public Iterable<BaseRow> getRecords() throws Exception {
+			return new RecordsIterable(getRecordsAndNumOfAssociations());
+		}
+
+		@Override
+		public Iterable<Tuple2<BaseRow, Integer>> getRecordsAndNumOfAssociations() throws Exception {
+			return new RecordsAndNumOfAssociationsIterable(recordState.entries());
+		}
+
+		@Override
+		public void clear() {
+			recordState.clear();
+		}
+	}
+
+	/**
+	 * An {@link IterableIterator} which only returns the records of the given
+	 * (record, number of associations) pairs.
+	 */
+	private static final class RecordsIterable implements IterableIterator<BaseRow> {
+
+		private final Iterator<Tuple2<BaseRow, Integer>> tupleIterator;
+
+		private RecordsIterable(Iterable<Tuple2<BaseRow, Integer>> tuples) {
+			this.tupleIterator = tuples.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return tupleIterator.hasNext();
+		}
+
+		@Override
+		public BaseRow next() {
+			return tupleIterator.next().f0;
+		}
+
+		@Override
+		public Iterator<BaseRow> iterator() {
+			return this;
+		}
+	}
+
+	/**
+	 * An {@link IterableIterator} which repeats every (record, number of associations) pair as
+	 * many times as the record occurs.
+	 */
+	private static final class RecordsAndNumOfAssociationsIterable implements IterableIterator<Tuple2<BaseRow, Integer>> {
+
+		private final Iterator<Map.Entry<BaseRow, Tuple2<Integer, Integer>>> backingIterator;
+		private final Tuple2<BaseRow, Integer> reuse = new Tuple2<>();
+		private int remainingTimes = 0;
+
+		private RecordsAndNumOfAssociationsIterable(Iterable<Map.Entry<BaseRow, Tuple2<Integer, Integer>>> entries) {
+			this.backingIterator = entries == null ?
+				Collections.<Map.Entry<BaseRow, Tuple2<Integer, Integer>>>emptyIterator() : entries.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return remainingTimes > 0 || backingIterator.hasNext();
+		}
+
+		@Override
+		public Tuple2<BaseRow, Integer> next() {
+			if (remainingTimes <= 0) {
+				if (!backingIterator.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Map.Entry<BaseRow, Tuple2<Integer, Integer>> entry = backingIterator.next();
+				reuse.f0 = entry.getKey();
+				reuse.f1 = entry.getValue().f1;
+				remainingTimes = entry.getValue().f0;
+			}
+			remainingTimes--;
+			return reuse;
+		}
+
+		@Override
+		public Iterator<Tuple2<BaseRow, Integer>> iterator() {
+			return this;
+		}
+	}
+}
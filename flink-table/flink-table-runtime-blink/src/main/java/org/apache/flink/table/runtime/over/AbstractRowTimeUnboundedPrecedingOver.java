@@ -19,10 +19,9 @@
 package org.apache.flink.table.runtime.over;
 
 import org.apache.flink.api.common.state.MapState;
-import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
-import org.apache.flink.api.common.typeinfo.Types;
 import org.apache.flink.api.java.typeutils.ListTypeInfo;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
@@ -41,9 +40,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
 
 /**
  * A basic implementation to support unbounded event-time over-window.
@@ -61,10 +59,12 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 	protected transient JoinedRow output;
 	// state to hold the accumulators of the aggregations
 	private transient ValueState<BaseRow> accState;
-	// state to hold rows until the next watermark arrives
-	private transient MapState<Long, List<BaseRow>> inputState;
-	// list to sort timestamps to access rows in timestamp order
-	private transient LinkedList<Long> sortedTimestamps;
+	// state to hold rows until the next watermark arrives, ordered by their timestamps
+	private transient SortedMapState<Long, List<BaseRow>> inputState;
+	// state which kept the rows in previous versions, until they are moved to the input state
+	private transient MapState<Long, List<BaseRow>> legacyInputState;
+	// list of the timestamps whose rows have been emitted and can be removed from the state
+	private transient List<Long> emittedTimestamps;
 
 	protected transient AggsHandleFunction function;
 
@@ -89,7 +89,7 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 
 		output = new JoinedRow();
 
-		sortedTimestamps = new LinkedList<Long>();
+		emittedTimestamps = new ArrayList<Long>();
 
 		// initialize accumulator state
 		BaseRowTypeInfo accTypeInfo = new BaseRowTypeInfo(accTypes);
@@ -100,11 +100,8 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 		// input element are all binary row as they are came from network
 		BaseRowTypeInfo inputType = new BaseRowTypeInfo(inputFieldTypes);
 		ListTypeInfo<BaseRow> rowListTypeInfo = new ListTypeInfo<BaseRow>(inputType);
-		MapStateDescriptor<Long, List<BaseRow>> inputStateDesc = new MapStateDescriptor<Long, List<BaseRow>>(
-			"inputState",
-			Types.LONG,
-			rowListTypeInfo);
-		inputState = getRuntimeContext().getMapState(inputStateDesc);
+		inputState = RowTimeOverInputState.getInputState(getRuntimeContext(), rowListTypeInfo);
+		legacyInputState = RowTimeOverInputState.getLegacyInputState(getRuntimeContext(), rowListTypeInfo);
 
 		initCleanupTimeState("RowTimeUnboundedOverCleanupTime");
 	}
@@ -153,6 +150,9 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 			long timestamp,
 			KeyedProcessFunction<K, BaseRow, BaseRow>.OnTimerContext ctx,
 			Collector<BaseRow> out) throws Exception {
+		// move the rows of a restored legacy state before accessing the input state
+		RowTimeOverInputState.migrateLegacyInputState(legacyInputState, inputState);
+
 		if (isProcessingTimeTimer(ctx)) {
 			if (needToCleanupState(timestamp)) {
 
@@ -172,22 +172,11 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 			return;
 		}
 
-		Iterator<Long> keyIterator = inputState.keys().iterator();
-		if (keyIterator.hasNext()) {
+		Iterator<Map.Entry<Long, List<BaseRow>>> entryIterator = inputState.iterator();
+		if (entryIterator.hasNext()) {
 			Long curWatermark = ctx.timerService().currentWatermark();
 			boolean existEarlyRecord = false;
 
-			// sort the record timestamps
-			do {
-				Long recordTime = keyIterator.next();
-				// only take timestamps smaller/equal to the watermark
-				if (recordTime <= curWatermark) {
-					insertToSortedList(recordTime);
-				} else {
-					existEarlyRecord = true;
-				}
-			} while (keyIterator.hasNext());
-
 			// get last accumulator
 			BaseRow lastAccumulator = accState.value();
 			if (lastAccumulator == null) {
@@ -197,10 +186,17 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 			// set accumulator in function context first
 			function.setAccumulators(lastAccumulator);
 
-			// emit the rows in order
-			while (!sortedTimestamps.isEmpty()) {
-				Long curTimestamp = sortedTimestamps.removeFirst();
-				List<BaseRow> curRowList = inputState.get(curTimestamp);
+			// emit the rows in order, the state iterates over the timestamps in ascending order
+			while (entryIterator.hasNext()) {
+				Map.Entry<Long, List<BaseRow>> curEntry = entryIterator.next();
+				Long curTimestamp = curEntry.getKey();
+				// only take timestamps smaller/equal to the watermark
+				if (curTimestamp > curWatermark) {
+					existEarlyRecord = true;
+					break;
+				}
+
+				List<BaseRow> curRowList = curEntry.getValue();
 				if (curRowList != null) {
 					// process the same timestamp datas, the mechanism is different according ROWS or RANGE
 					processElementsWithSameTimestamp(curRowList, out);
@@ -210,9 +206,15 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 						"This will result in incorrect result. " +
 						"You can increase the state ttl to avoid this.");
 				}
-				inputState.remove(curTimestamp);
+				emittedTimestamps.add(curTimestamp);
 			}
 
+			// remove the emitted rows after the iteration to not modify the state while iterating over it
+			for (Long emittedTimestamp : emittedTimestamps) {
+				inputState.remove(emittedTimestamp);
+			}
+			emittedTimestamps.clear();
+
 			// update acc state
 			lastAccumulator = function.getAccumulators();
 			accState.update(lastAccumulator);
@@ -227,28 +229,6 @@ public abstract class AbstractRowTimeUnboundedPrecedingOver<K> extends KeyedProc
 		registerProcessingCleanupTimer(ctx, ctx.timerService().currentProcessingTime());
 	}
 
-	/**
-	 * Inserts timestamps in order into a linked list.
-	 * If timestamps arrive in order (as in case of using the RocksDB state backend) this is just
-	 * an append with O(1).
-	 */
-	private void insertToSortedList(Long recordTimestamp) {
-		ListIterator<Long> listIterator = sortedTimestamps.listIterator(sortedTimestamps.size());
-		boolean isContinue = true;
-		while (listIterator.hasPrevious() && isContinue) {
-			Long timestamp = listIterator.previous();
-			if (recordTimestamp >= timestamp) {
-				listIterator.next();
-				listIterator.add(recordTimestamp);
-				isContinue = false;
-			}
-		}
-
-		if (isContinue) {
-			sortedTimestamps.addFirst(recordTimestamp);
-		}
-	}
-
 	/**
 	 * Process the same timestamp datas, the mechanism is different between
 	 * rows and range window.
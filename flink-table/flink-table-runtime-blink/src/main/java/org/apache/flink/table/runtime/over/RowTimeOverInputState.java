@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.over;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.common.typeutils.base.OrderPreservingLongSerializer;
+import org.apache.flink.api.java.typeutils.ListTypeInfo;
+import org.apache.flink.table.dataformat.BaseRow;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilities for the state of the event-time OVER window functions which keeps the input rows per
+ * time stamp.
+ *
+ * <p>The rows used to be kept in a {@link MapState} named {@link #LEGACY_STATE_NAME}, which is not
+ * ordered by the time stamps. They are now kept in a {@link SortedMapState} under a new name,
+ * because the two states are stored in different formats. The rows of a restored legacy state are
+ * moved into the sorted state key by key, the next time a timer of the key fires.
+ */
+final class RowTimeOverInputState {
+
+	/** The name of the map state which kept the input rows in previous versions. */
+	static final String LEGACY_STATE_NAME = "inputState";
+
+	/** The name of the sorted map state which keeps the input rows. */
+	static final String STATE_NAME = "sortedInputState";
+
+	private RowTimeOverInputState() {
+	}
+
+	/**
+	 * Gets the state which keeps the input rows ordered by their time stamps.
+	 */
+	static SortedMapState<Long, List<BaseRow>> getInputState(
+			RuntimeContext runtimeContext,
+			ListTypeInfo<BaseRow> rowListTypeInfo) {
+
+		// the timestamps are serialized order preserving, so that the state can be scanned by time range
+		SortedMapStateDescriptor<Long, List<BaseRow>> inputStateDesc = new SortedMapStateDescriptor<Long, List<BaseRow>>(
+			STATE_NAME,
+			OrderPreservingLongSerializer.INSTANCE,
+			rowListTypeInfo.createSerializer(runtimeContext.getExecutionConfig()),
+			Comparator.<Long>naturalOrder());
+		return runtimeContext.getSortedMapState(inputStateDesc);
+	}
+
+	/**
+	 * Gets the map state which kept the input rows in previous versions.
+	 */
+	static MapState<Long, List<BaseRow>> getLegacyInputState(
+			RuntimeContext runtimeContext,
+			ListTypeInfo<BaseRow> rowListTypeInfo) {
+
+		MapStateDescriptor<Long, List<BaseRow>> legacyInputStateDesc = new MapStateDescriptor<Long, List<BaseRow>>(
+			LEGACY_STATE_NAME,
+			Types.LONG,
+			rowListTypeInfo);
+		return runtimeContext.getMapState(legacyInputStateDesc);
+	}
+
+	/**
+	 * Moves the rows of the current key from the legacy state into the sorted state. Rows of the
+	 * legacy state are put before rows with the same time stamp which were added to the sorted
+	 * state after the restore.
+	 */
+	static void migrateLegacyInputState(
+			MapState<Long, List<BaseRow>> legacyInputState,
+			SortedMapState<Long, List<BaseRow>> inputState) throws Exception {
+
+		boolean migrated = false;
+		for (Map.Entry<Long, List<BaseRow>> legacyEntry : legacyInputState.entries()) {
+			List<BaseRow> rows = legacyEntry.getValue();
+			List<BaseRow> newerRows = inputState.get(legacyEntry.getKey());
+			if (newerRows != null) {
+				rows.addAll(newerRows);
+			}
+			inputState.put(legacyEntry.getKey(), rows);
+			migrated = true;
+		}
+
+		if (migrated) {
+			legacyInputState.clear();
+		}
+	}
+}
@@ -19,7 +19,7 @@
 package org.apache.flink.table.runtime.over;
 
 import org.apache.flink.api.common.state.MapState;
-import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeinfo.Types;
@@ -43,6 +43,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Process Function for RANGE clause event-time bounded OVER window.
@@ -79,8 +80,10 @@ public class RowTimeRangeBoundedPrecedingFunction<K> extends KeyedProcessFunctio
 	// the state which keeps all the data that are not expired.
 	// The first element (as the mapState key) of the tuple is the time stamp. Per each time stamp,
 	// the second element of tuple is a list that contains the entire data of all the rows belonging
-	// to this time stamp.
-	private transient MapState<Long, List<BaseRow>> inputState;
+	// to this time stamp. The state is ordered by the time stamps.
+	private transient SortedMapState<Long, List<BaseRow>> inputState;
+	// state which kept the rows in previous versions, until they are moved to the input state
+	private transient MapState<Long, List<BaseRow>> legacyInputState;
 
 	private transient AggsHandleFunction function;
 
@@ -120,11 +123,8 @@ public class RowTimeRangeBoundedPrecedingFunction<K> extends KeyedProcessFunctio
 		// input element are all binary row as they are came from network
 		BaseRowTypeInfo inputType = new BaseRowTypeInfo(inputFieldTypes);
 		ListTypeInfo<BaseRow> rowListTypeInfo = new ListTypeInfo<BaseRow>(inputType);
-		MapStateDescriptor<Long, List<BaseRow>> inputStateDesc = new MapStateDescriptor<Long, List<BaseRow>>(
-			"inputState",
-			Types.LONG,
-			rowListTypeInfo);
-		inputState = getRuntimeContext().getMapState(inputStateDesc);
+		inputState = RowTimeOverInputState.getInputState(getRuntimeContext(), rowListTypeInfo);
+		legacyInputState = RowTimeOverInputState.getLegacyInputState(getRuntimeContext(), rowListTypeInfo);
 
 		initCleanupTimeState("RowTimeBoundedRangeOverCleanupTime");
 	}
@@ -166,25 +166,23 @@ public class RowTimeRangeBoundedPrecedingFunction<K> extends KeyedProcessFunctio
 			long timestamp,
 			KeyedProcessFunction<K, BaseRow, BaseRow>.OnTimerContext ctx,
 			Collector<BaseRow> out) throws Exception {
+		// move the rows of a restored legacy state before accessing the input state
+		RowTimeOverInputState.migrateLegacyInputState(legacyInputState, inputState);
+
 		// register state-cleanup timer
 		registerProcessingCleanupTimer(ctx, ctx.timerService().currentProcessingTime());
 
 		if (isProcessingTimeTimer(ctx)) {
 			if (needToCleanupState(timestamp)) {
 
-				Iterator<Long> keysIt = inputState.keys().iterator();
 				Long lastProcessedTime = lastTriggeringTsState.value();
 				if (lastProcessedTime == null) {
 					lastProcessedTime = 0L;
 				}
 
 				// is data left which has not been processed yet?
-				boolean noRecordsToProcess = true;
-				while (keysIt.hasNext() && noRecordsToProcess) {
-					if (keysIt.next() > lastProcessedTime) {
-						noRecordsToProcess = false;
-					}
-				}
+				Map.Entry<Long, List<BaseRow>> lastEntry = inputState.lastEntry();
+				boolean noRecordsToProcess = lastEntry == null || lastEntry.getKey() <= lastProcessedTime;
 
 				if (noRecordsToProcess) {
 					// we clean the state
@@ -218,27 +216,25 @@ public class RowTimeRangeBoundedPrecedingFunction<K> extends KeyedProcessFunctio
 			// keep up timestamps of retract data
 			List<Long> retractTsList = new ArrayList<Long>();
 
-			// do retraction
-			Iterator<Long> dataTimestampIt = inputState.keys().iterator();
-			while (dataTimestampIt.hasNext()) {
-				Long dataTs = dataTimestampIt.next();
-				Long offset = timestamp - dataTs;
-				if (offset > precedingOffset) {
-					List<BaseRow> retractDataList = inputState.get(dataTs);
-					if (retractDataList != null) {
-						dataListIndex = 0;
-						while (dataListIndex < retractDataList.size()) {
-							BaseRow retractRow = retractDataList.get(dataListIndex);
-							function.retract(retractRow);
-							dataListIndex += 1;
-						}
-						retractTsList.add(dataTs);
-					} else {
-						// Does not retract values which are outside of window if the state is cleared already.
-						LOG.warn("The state is cleared because of state ttl. " +
-							"This will result in incorrect result. " +
-							"You can increase the state ttl to avoid this.");
+			// do retraction, only the time stamps which are more than precedingOffset smaller than
+			// the current time stamp are scanned
+			Iterator<Map.Entry<Long, List<BaseRow>>> retractIt = inputState.headIterator(timestamp - precedingOffset);
+			while (retractIt.hasNext()) {
+				Map.Entry<Long, List<BaseRow>> retractEntry = retractIt.next();
+				List<BaseRow> retractDataList = retractEntry.getValue();
+				if (retractDataList != null) {
+					dataListIndex = 0;
+					while (dataListIndex < retractDataList.size()) {
+						BaseRow retractRow = retractDataList.get(dataListIndex);
+						function.retract(retractRow);
+						dataListIndex += 1;
 					}
+					retractTsList.add(retractEntry.getKey());
+				} else {
+					// Does not retract values which are outside of window if the state is cleared already.
+					LOG.warn("The state is cleared because of state ttl. " +
+						"This will result in incorrect result. " +
+						"You can increase the state ttl to avoid this.");
 				}
 			}
 
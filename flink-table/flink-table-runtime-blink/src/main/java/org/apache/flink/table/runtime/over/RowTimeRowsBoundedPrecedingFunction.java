@@ -19,7 +19,7 @@
 package org.apache.flink.table.runtime.over;
 
 import org.apache.flink.api.common.state.MapState;
-import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeinfo.Types;
@@ -41,8 +41,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Process Function for ROWS clause event-time bounded OVER window.
@@ -82,8 +82,10 @@ public class RowTimeRowsBoundedPrecedingFunction<K> extends KeyedProcessFunction
 	// the state which keeps all the data that are not expired.
 	// The first element (as the mapState key) of the tuple is the time stamp. Per each time stamp,
 	// the second element of tuple is a list that contains the entire data of all the rows belonging
-	// to this time stamp.
-	private transient MapState<Long, List<BaseRow>> inputState;
+	// to this time stamp. The state is ordered by the time stamps.
+	private transient SortedMapState<Long, List<BaseRow>> inputState;
+	// state which kept the rows in previous versions, until they are moved to the input state
+	private transient MapState<Long, List<BaseRow>> legacyInputState;
 
 	private transient AggsHandleFunction function;
 
@@ -128,11 +130,8 @@ public class RowTimeRowsBoundedPrecedingFunction<K> extends KeyedProcessFunction
 		// input element are all binary row as they are came from network
 		BaseRowTypeInfo inputType = new BaseRowTypeInfo(inputFieldTypes);
 		ListTypeInfo<BaseRow> rowListTypeInfo = new ListTypeInfo<BaseRow>(inputType);
-		MapStateDescriptor<Long, List<BaseRow>> inputStateDesc = new MapStateDescriptor<Long, List<BaseRow>>(
-			"inputState",
-			Types.LONG,
-			rowListTypeInfo);
-		inputState = getRuntimeContext().getMapState(inputStateDesc);
+		inputState = RowTimeOverInputState.getInputState(getRuntimeContext(), rowListTypeInfo);
+		legacyInputState = RowTimeOverInputState.getLegacyInputState(getRuntimeContext(), rowListTypeInfo);
 
 		initCleanupTimeState("RowTimeBoundedRowsOverCleanupTime");
 	}
@@ -174,22 +173,20 @@ public class RowTimeRowsBoundedPrecedingFunction<K> extends KeyedProcessFunction
 			long timestamp,
 			KeyedProcessFunction<K, BaseRow, BaseRow>.OnTimerContext ctx,
 			Collector<BaseRow> out) throws Exception {
+		// move the rows of a restored legacy state before accessing the input state
+		RowTimeOverInputState.migrateLegacyInputState(legacyInputState, inputState);
+
 		if (isProcessingTimeTimer(ctx)) {
 			if (needToCleanupState(timestamp)) {
 
-				Iterator<Long> keysIt = inputState.keys().iterator();
 				Long lastProcessedTime = lastTriggeringTsState.value();
 				if (lastProcessedTime == null) {
 					lastProcessedTime = 0L;
 				}
 
 				// is data left which has not been processed yet?
-				boolean noRecordsToProcess = true;
-				while (keysIt.hasNext() && noRecordsToProcess) {
-					if (keysIt.next() > lastProcessedTime) {
-						noRecordsToProcess = false;
-					}
-				}
+				Map.Entry<Long, List<BaseRow>> lastEntry = inputState.lastEntry();
+				boolean noRecordsToProcess = lastEntry == null || lastEntry.getKey() <= lastProcessedTime;
 
 				if (noRecordsToProcess) {
 					// We clean the state
@@ -232,14 +229,11 @@ public class RowTimeRowsBoundedPrecedingFunction<K> extends KeyedProcessFunction
 				BaseRow retractRow = null;
 				if (dataCount >= precedingOffset) {
 					if (null == retractList) {
-						// find the smallest timestamp
-						retractTs = Long.MAX_VALUE;
-						for (Long dataTs : inputState.keys()) {
-							if (dataTs < retractTs) {
-								retractTs = dataTs;
-								// get the oldest rows to retract them
-								retractList = inputState.get(dataTs);
-							}
+						// get the oldest rows with the smallest timestamp to retract them
+						Map.Entry<Long, List<BaseRow>> oldestEntry = inputState.firstEntry();
+						if (oldestEntry != null) {
+							retractTs = oldestEntry.getKey();
+							retractList = oldestEntry.getValue();
 						}
 					}
 
@@ -20,9 +20,12 @@ package org.apache.flink.table.runtime.rank;
 
 import org.apache.flink.api.common.state.MapState;
 import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.common.state.SortedMapStateDescriptor;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
 import org.apache.flink.api.java.typeutils.ListTypeInfo;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.table.dataformat.BaseRow;
@@ -31,13 +34,17 @@ import org.apache.flink.table.generated.GeneratedRecordComparator;
 import org.apache.flink.table.generated.GeneratedRecordEqualiser;
 import org.apache.flink.table.generated.RecordEqualiser;
 import org.apache.flink.table.runtime.keyselector.BaseRowKeySelector;
+import org.apache.flink.table.type.InternalType;
 import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+import org.apache.flink.table.typeutils.OrderPreservingBaseRowSerializer;
 import org.apache.flink.table.typeutils.SortedMapTypeInfo;
 import org.apache.flink.util.Collector;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -50,6 +57,12 @@ import java.util.TreeMap;
 
 /**
  * The function could handle retract stream. Input stream could only contain acc, delete or retract record.
+ *
+ * <p>If the sort directions are given and all sort key fields have an order preserving serialized form, the
+ * counts of the sort keys are kept in a {@link SortedMapState}, so that only the sort keys up to the rank end
+ * are read for every record. Otherwise they are kept in a whole {@link SortedMap} in a {@link ValueState}, which
+ * is how they were kept in previous versions. The counts of a restored legacy state are moved into the sorted
+ * state key by key, the next time a record of the key is processed.
  */
 public class RetractableTopNFunction extends AbstractTopNFunction {
 
@@ -69,9 +82,17 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 	// a map state stores mapping from sort key to records list
 	private transient MapState<BaseRow, List<BaseRow>> dataState;
 
-	// a sorted map stores mapping from sort key to records count
+	// a sorted map stores mapping from sort key to records count, used if the sort keys can't be kept
+	// in sorted map state and to restore the state of previous versions
 	private transient ValueState<SortedMap<BaseRow, Long>> treeMap;
 
+	// the serializer of the sort keys in the sorted map state, null if the sort keys are kept in the tree map
+	@Nullable
+	private final OrderPreservingBaseRowSerializer sortKeySerializer;
+
+	// a sorted map state stores mapping from sort key to records count
+	private transient SortedMapState<BaseRow, Long> sortedMapState;
+
 	// The util to compare two BaseRow equals to each other.
 	private GeneratedRecordEqualiser generatedEqualiser;
 	private RecordEqualiser equaliser;
@@ -89,11 +110,41 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 			GeneratedRecordEqualiser generatedEqualiser,
 			boolean generateRetraction,
 			boolean outputRankNumber) {
+		this(minRetentionTime, maxRetentionTime, inputRowType, generatedRecordComparator, sortKeySelector, null,
+				null, rankType, rankRange, generatedEqualiser, generateRetraction, outputRankNumber);
+	}
+
+	/**
+	 * Creates a function which keeps the counts of the sort keys in a {@link SortedMapState} if all sort key
+	 * fields have an order preserving serialized form.
+	 *
+	 * @param sortKeyOrders Whether the sort key fields are sorted ascending, in the order of the comparator.
+	 * @param nullsIsLast Whether null values of the sort key fields are sorted last, in the order of the comparator.
+	 */
+	public RetractableTopNFunction(
+			long minRetentionTime,
+			long maxRetentionTime,
+			BaseRowTypeInfo inputRowType,
+			GeneratedRecordComparator generatedRecordComparator,
+			BaseRowKeySelector sortKeySelector,
+			@Nullable boolean[] sortKeyOrders,
+			@Nullable boolean[] nullsIsLast,
+			RankType rankType,
+			RankRange rankRange,
+			GeneratedRecordEqualiser generatedEqualiser,
+			boolean generateRetraction,
+			boolean outputRankNumber) {
 		super(minRetentionTime, maxRetentionTime, inputRowType, generatedRecordComparator, sortKeySelector, rankType,
 				rankRange, generateRetraction, outputRankNumber);
 		this.sortKeyType = sortKeySelector.getProducedType();
 		this.serializableComparator = new ComparatorWrapper(generatedRecordComparator);
 		this.generatedEqualiser = generatedEqualiser;
+		InternalType[] sortKeyTypes = sortKeyType.getInternalTypes();
+		if (sortKeyOrders != null && nullsIsLast != null && OrderPreservingBaseRowSerializer.isSupported(sortKeyTypes)) {
+			this.sortKeySerializer = new OrderPreservingBaseRowSerializer(sortKeyTypes, sortKeyOrders, nullsIsLast);
+		} else {
+			this.sortKeySerializer = null;
+		}
 	}
 
 	@Override
@@ -113,23 +164,40 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 				"sorted-map",
 				new SortedMapTypeInfo<>(sortKeyType, BasicTypeInfo.LONG_TYPE_INFO, serializableComparator));
 		treeMap = getRuntimeContext().getState(valueStateDescriptor);
+
+		if (sortKeySerializer != null) {
+			// the sort keys are serialized order preserving, so that the state can be scanned up to the rank end
+			SortedMapStateDescriptor<BaseRow, Long> sortedMapStateDescriptor = new SortedMapStateDescriptor<>(
+					"sorted-map-state",
+					sortKeySerializer,
+					LongSerializer.INSTANCE,
+					sortKeySerializer.getOrderComparator());
+			sortedMapState = getRuntimeContext().getSortedMapState(sortedMapStateDescriptor);
+		}
 	}
 
 	@Override
 	public void processElement(BaseRow input, Context ctx, Collector<BaseRow> out) throws Exception {
 		initRankEnd(input);
-		SortedMap<BaseRow, Long> sortedMap = treeMap.value();
-		if (sortedMap == null) {
-			sortedMap = new TreeMap<>(sortKeyComparator);
-		}
 		BaseRow sortKey = sortKeySelector.getKey(input);
+		SortKeyCounts sortedMap;
+		SortedMap<BaseRow, Long> legacySortedMap = null;
+		if (sortKeySerializer != null) {
+			migrateLegacySortedMap();
+			// use the same binary form as the sort keys read from the state, which are also the keys of the data state
+			sortKey = sortKeySerializer.copy(sortKey);
+			sortedMap = new SortedMapStateCounts(sortedMapState);
+		} else {
+			legacySortedMap = treeMap.value();
+			if (legacySortedMap == null) {
+				legacySortedMap = new TreeMap<>(sortKeyComparator);
+			}
+			sortedMap = new SortedMapCounts(legacySortedMap);
+		}
 		if (BaseRowUtil.isAccumulateMsg(input)) {
 			// update sortedMap
-			if (sortedMap.containsKey(sortKey)) {
-				sortedMap.put(sortKey, sortedMap.get(sortKey) + 1);
-			} else {
-				sortedMap.put(sortKey, 1L);
-			}
+			Long count = sortedMap.get(sortKey);
+			sortedMap.put(sortKey, count == null ? 1L : count + 1);
 
 			// emit
 			emitRecordsWithRowNumber(sortedMap, sortKey, input, out);
@@ -147,8 +215,9 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 			retractRecordWithRowNumber(sortedMap, sortKey, input, out);
 
 			// and then update sortedMap
-			if (sortedMap.containsKey(sortKey)) {
-				long count = sortedMap.get(sortKey) - 1;
+			Long prevCount = sortedMap.get(sortKey);
+			if (prevCount != null) {
+				long count = prevCount - 1;
 				if (count == 0) {
 					sortedMap.remove(sortKey);
 				} else {
@@ -168,15 +237,33 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 			}
 
 		}
-		treeMap.update(sortedMap);
+		if (legacySortedMap != null) {
+			treeMap.update(legacySortedMap);
+		}
+	}
+
+	/**
+	 * Moves the counts of the current key from the tree map of previous versions into the sorted map state.
+	 */
+	private void migrateLegacySortedMap() throws Exception {
+		SortedMap<BaseRow, Long> legacySortedMap = treeMap.value();
+		if (legacySortedMap == null) {
+			return;
+		}
+		for (Map.Entry<BaseRow, Long> legacyEntry : legacySortedMap.entrySet()) {
+			BaseRow sortKey = sortKeySerializer.copy(legacyEntry.getKey());
+			Long newerCount = sortedMapState.get(sortKey);
+			sortedMapState.put(sortKey, newerCount == null ? legacyEntry.getValue() : newerCount + legacyEntry.getValue());
+		}
+		treeMap.clear();
 	}
 
 	// ------------- ROW_NUMBER-------------------------------
 
 	private void retractRecordWithRowNumber(
-			SortedMap<BaseRow, Long> sortedMap, BaseRow sortKey, BaseRow inputRow, Collector<BaseRow> out)
+			SortKeyCounts sortedMap, BaseRow sortKey, BaseRow inputRow, Collector<BaseRow> out)
 			throws Exception {
-		Iterator<Map.Entry<BaseRow, Long>> iterator = sortedMap.entrySet().iterator();
+		Iterator<Map.Entry<BaseRow, Long>> iterator = sortedMap.iterator();
 		long curRank = 0L;
 		boolean findsSortKey = false;
 		while (iterator.hasNext() && isInRankEnd(curRank)) {
@@ -229,9 +316,9 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 	}
 
 	private void emitRecordsWithRowNumber(
-			SortedMap<BaseRow, Long> sortedMap, BaseRow sortKey, BaseRow inputRow, Collector<BaseRow> out)
+			SortKeyCounts sortedMap, BaseRow sortKey, BaseRow inputRow, Collector<BaseRow> out)
 			throws Exception {
-		Iterator<Map.Entry<BaseRow, Long>> iterator = sortedMap.entrySet().iterator();
+		Iterator<Map.Entry<BaseRow, Long>> iterator = sortedMap.iterator();
 		long curRank = 0L;
 		boolean findsSortKey = false;
 		while (iterator.hasNext() && isInRankEnd(curRank)) {
@@ -266,6 +353,97 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 		}
 	}
 
+	/**
+	 * The counts of the sort keys of the current key, in the order of the sort keys.
+	 */
+	private interface SortKeyCounts {
+
+		@Nullable
+		Long get(BaseRow sortKey) throws Exception;
+
+		void put(BaseRow sortKey, long count) throws Exception;
+
+		void remove(BaseRow sortKey) throws Exception;
+
+		boolean isEmpty() throws Exception;
+
+		Iterator<Map.Entry<BaseRow, Long>> iterator() throws Exception;
+	}
+
+	/**
+	 * The counts of the sort keys in a {@link SortedMap} which is kept as a whole in a {@link ValueState}.
+	 */
+	private static final class SortedMapCounts implements SortKeyCounts {
+
+		private final SortedMap<BaseRow, Long> sortedMap;
+
+		private SortedMapCounts(SortedMap<BaseRow, Long> sortedMap) {
+			this.sortedMap = sortedMap;
+		}
+
+		@Override
+		public Long get(BaseRow sortKey) {
+			return sortedMap.get(sortKey);
+		}
+
+		@Override
+		public void put(BaseRow sortKey, long count) {
+			sortedMap.put(sortKey, count);
+		}
+
+		@Override
+		public void remove(BaseRow sortKey) {
+			sortedMap.remove(sortKey);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return sortedMap.isEmpty();
+		}
+
+		@Override
+		public Iterator<Map.Entry<BaseRow, Long>> iterator() {
+			return sortedMap.entrySet().iterator();
+		}
+	}
+
+	/**
+	 * The counts of the sort keys in a {@link SortedMapState}, which are read lazily while iterating.
+	 */
+	private static final class SortedMapStateCounts implements SortKeyCounts {
+
+		private final SortedMapState<BaseRow, Long> sortedMapState;
+
+		private SortedMapStateCounts(SortedMapState<BaseRow, Long> sortedMapState) {
+			this.sortedMapState = sortedMapState;
+		}
+
+		@Override
+		public Long get(BaseRow sortKey) throws Exception {
+			return sortedMapState.get(sortKey);
+		}
+
+		@Override
+		public void put(BaseRow sortKey, long count) throws Exception {
+			sortedMapState.put(sortKey, count);
+		}
+
+		@Override
+		public void remove(BaseRow sortKey) throws Exception {
+			sortedMapState.remove(sortKey);
+		}
+
+		@Override
+		public boolean isEmpty() throws Exception {
+			return sortedMapState.firstEntry() == null;
+		}
+
+		@Override
+		public Iterator<Map.Entry<BaseRow, Long>> iterator() throws Exception {
+			return sortedMapState.iterator();
+		}
+	}
+
 	/**
 	 * Note: Because it's impossible to restore a RecordComparator instance generated by GeneratedRecordComparator from
 	 * snapshot, We introduce ComparatorWrapper class to wrap the GeneratedRecordComparator, a ComparatorWrapper
@@ -0,0 +1,636 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.state;
+
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.core.memory.MemorySegmentSource;
+import org.apache.flink.runtime.io.disk.RandomAccessInputView;
+import org.apache.flink.runtime.io.disk.SimpleCollectingOutputView;
+import org.apache.flink.runtime.memory.MemoryAllocationException;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.table.dataformat.BinaryRow;
+import org.apache.flink.table.runtime.aggregate.BytesHashMap;
+import org.apache.flink.table.typeutils.BinaryRowSerializer;
+import org.apache.flink.table.util.SegmentsUtil;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.MathUtils;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Hash map from {@link BinaryRow} keys to {@link BinaryRow} values in managed memory pages, which
+ * is the storage of the states handed out by a {@link BinaryRowStateStore}.
+ *
+ * <p>The memory layout is the one of {@link BytesHashMap}: a bucket area holding a pointer to the
+ * record and the full 32-bit hashcode of the key per bucket, and a record area holding
+ * len(k), key data, len(v), value data per record. In contrast to {@link BytesHashMap}, the map does
+ * not get a fixed memory budget but allocates pages from the {@link MemoryManager} on demand and
+ * returns them as soon as they are not needed any more, and it supports values of variable length
+ * as well as the removal of keys:
+ * <ul>
+ *     <li>A value of the same size as the stored value is overwritten in place. Otherwise a new
+ *     record is appended and the old record becomes garbage.</li>
+ *     <li>Removing a key leaves a tombstone in the bucket area and its record becomes garbage.</li>
+ * </ul>
+ * Tombstones are dropped when the bucket area is rehashed, garbage records are dropped when the
+ * record area is compacted once at least half of it is garbage.
+ *
+ * <p>Rows returned by {@link #get(BinaryRow)} point into the pages of this map and are only valid
+ * until the next modification of the map. This class is not thread-safe.
+ */
+final class BinaryRowStateMap {
+
+	private static final int BUCKET_SIZE = BytesHashMap.BUCKET_SIZE;
+	private static final int BUCKET_SIZE_BITS = 4;
+	private static final int ELEMENT_POINT_LENGTH = 8;
+
+	private static final long END_OF_LIST = Long.MAX_VALUE;
+	private static final long TOMBSTONE = Long.MAX_VALUE - 1;
+	private static final int STEP_INCREMENT = 1;
+
+	private static final double LOAD_FACTOR = 0.75;
+
+	/** The record area is only compacted if it holds at least this many pages. */
+	private static final int MIN_COMPACTION_PAGES = 8;
+
+	private final MemoryManager memoryManager;
+
+	/** The owner of the pages of this map, see {@link MemoryManager#allocatePages(Object, int)}. */
+	private final Object memoryOwner;
+
+	private final int segmentSize;
+	private final int numBucketsPerSegment;
+	private final int numBucketsPerSegmentBits;
+	private final int numBucketsPerSegmentMask;
+	private final int lastBucketPosition;
+
+	private final BinaryRowSerializer keySerializer;
+	private final BinaryRowSerializer valueSerializer;
+
+	/** Used as a reused object when reading keys during lookup. */
+	private BinaryRow reusedKey;
+
+	/** Used as a reused object which is returned by {@link #get(BinaryRow)}. */
+	private BinaryRow reusedValue;
+
+	private List<MemorySegment> bucketSegments;
+	private RecordArea recordArea;
+
+	private int numElements;
+	private int numTombstones;
+	private int numBucketsMask;
+	private int log2NumBuckets;
+	private int numBucketsMask2;
+
+	/** The bucket area is rehashed once the number of elements and tombstones exceeds this threshold. */
+	private int growthThreshold;
+
+	/** The number of bytes of records in the record area which are not referenced any more. */
+	private long numGarbageBytes;
+
+	// the result of the last lookup
+	private int lookupHashCode;
+	private int lookupBucketSegmentIndex;
+	private int lookupBucketOffset;
+	private long lookupRecordSize;
+
+	BinaryRowStateMap(int keyArity, int valueArity, MemoryManager memoryManager, Object memoryOwner) {
+		checkArgument(keyArity > 0);
+		final int segmentSize = memoryManager.getPageSize();
+		checkArgument(segmentSize >= BUCKET_SIZE && MathUtils.isPowerOf2(segmentSize));
+
+		this.memoryManager = memoryManager;
+		this.memoryOwner = checkNotNull(memoryOwner);
+		this.segmentSize = segmentSize;
+		this.numBucketsPerSegment = segmentSize / BUCKET_SIZE;
+		this.numBucketsPerSegmentBits = MathUtils.log2strict(numBucketsPerSegment);
+		this.numBucketsPerSegmentMask = (1 << numBucketsPerSegmentBits) - 1;
+		this.lastBucketPosition = (numBucketsPerSegment - 1) * BUCKET_SIZE;
+
+		this.keySerializer = new BinaryRowSerializer(keyArity);
+		this.valueSerializer = new BinaryRowSerializer(valueArity);
+		this.reusedKey = keySerializer.createInstance();
+		this.reusedValue = valueSerializer.createInstance();
+
+		this.bucketSegments = initBucketSegments(1);
+		this.recordArea = new RecordArea();
+	}
+
+	// ----------------------- Public interface -----------------------
+
+	/**
+	 * Returns the value of the given key, or null if the map does not contain the key. The returned
+	 * row is only valid until the next modification of this map.
+	 */
+	@Nullable
+	BinaryRow get(BinaryRow key) {
+		return lookup(key) ? reusedValue : null;
+	}
+
+	/**
+	 * Associates the given value with the given key. Both rows are copied into the map.
+	 */
+	void put(BinaryRow key, BinaryRow value) {
+		if (lookup(key)) {
+			final int sizeInBytes = value.getSizeInBytes();
+			if (sizeInBytes == reusedValue.getSizeInBytes()) {
+				// overwrite the value in place
+				if (value.getSegments().length == 1 && reusedValue.getSegments().length == 1) {
+					value.getSegments()[0].copyTo(
+						value.getOffset(), reusedValue.getSegments()[0], reusedValue.getOffset(), sizeInBytes);
+				} else {
+					byte[] bytes = SegmentsUtil.copyToBytes(value.getSegments(), value.getOffset(), sizeInBytes);
+					SegmentsUtil.copyFromBytes(
+						reusedValue.getSegments(), reusedValue.getOffset(), bytes, 0, sizeInBytes);
+				}
+			} else {
+				numGarbageBytes += lookupRecordSize;
+				setBucket(recordArea.appendRecord(key, value));
+				compactIfNeeded();
+			}
+		} else {
+			if (numElements + numTombstones >= growthThreshold) {
+				growAndRehash();
+				// update the position of the bucket
+				lookup(key);
+			}
+
+			if (getBucketPointer() == TOMBSTONE) {
+				numTombstones--;
+			}
+			setBucket(recordArea.appendRecord(key, value));
+			numElements++;
+		}
+	}
+
+	/**
+	 * Removes the given key from the map.
+	 *
+	 * @return true if the map contained the key.
+	 */
+	boolean remove(BinaryRow key) {
+		if (!lookup(key)) {
+			return false;
+		}
+
+		numElements--;
+		if (numElements == 0) {
+			// all data is garbage now, start over without any copying
+			clear();
+		} else {
+			bucketSegments.get(lookupBucketSegmentIndex).putLong(lookupBucketOffset, TOMBSTONE);
+			numTombstones++;
+			numGarbageBytes += lookupRecordSize;
+			compactIfNeeded();
+		}
+		return true;
+	}
+
+	int size() {
+		return numElements;
+	}
+
+	int getValueArity() {
+		return valueSerializer.getArity();
+	}
+
+	long getUsedMemoryInBytes() {
+		return (bucketSegments.size() + recordArea.segments.size()) * ((long) segmentSize);
+	}
+
+	/**
+	 * Removes all entries and releases all but one bucket page and one record page.
+	 */
+	void clear() {
+		freeSegments(bucketSegments);
+		recordArea.release();
+
+		bucketSegments = initBucketSegments(1);
+		recordArea = new RecordArea();
+		numElements = 0;
+		numTombstones = 0;
+		numGarbageBytes = 0;
+	}
+
+	/**
+	 * Returns all memory of this map to the memory manager. The map must not be used afterwards.
+	 */
+	void free() {
+		freeSegments(bucketSegments);
+		bucketSegments.clear();
+		recordArea.release();
+		numElements = 0;
+	}
+
+	/**
+	 * Partitions the entries of this map by key group, so that they can be written to a checkpoint
+	 * one key group after the other. Keys are assigned to key groups via their hashcode, just like
+	 * {@link KeyGroupRangeAssignment#assignToKeyGroup(Object, int)} does for the keys of the stream.
+	 *
+	 * <p>The snapshot holds a heap copy of the record area, so it stays valid when this map is
+	 * modified or freed afterwards and can be written while the map is in use.
+	 */
+	KeyGroupPartitionedSnapshot partitionByKeyGroup(KeyGroupRange keyGroupRange, int totalKeyGroups) {
+		final int firstKeyGroup = keyGroupRange.getStartKeyGroup();
+		final int[] keyGroupOffsets = new int[keyGroupRange.getNumberOfKeyGroups() + 1];
+		final long[] pointers = new long[numElements];
+		final int[] keyGroups = new int[numElements];
+
+		// first pass: compute the key group of all entries and count the entries per key group
+		int numEntries = 0;
+		for (MemorySegment segment : bucketSegments) {
+			for (int offset = 0; offset <= lastBucketPosition; offset += BUCKET_SIZE) {
+				final long pointer = segment.getLong(offset);
+				if (pointer != END_OF_LIST && pointer != TOMBSTONE) {
+					final int keyGroup = KeyGroupRangeAssignment.computeKeyGroupForKeyHash(
+						segment.getInt(offset + ELEMENT_POINT_LENGTH), totalKeyGroups);
+					if (!keyGroupRange.contains(keyGroup)) {
+						throw new IllegalStateException("Key group " + keyGroup +
+							" of a stored key is not in the key group range " + keyGroupRange + '.');
+					}
+					pointers[numEntries] = pointer;
+					keyGroups[numEntries] = keyGroup - firstKeyGroup;
+					keyGroupOffsets[keyGroup - firstKeyGroup + 1]++;
+					numEntries++;
+				}
+			}
+		}
+
+		// second pass: counting sort of the pointers by key group
+		for (int i = 1; i < keyGroupOffsets.length; i++) {
+			keyGroupOffsets[i] += keyGroupOffsets[i - 1];
+		}
+		final int[] writePositions = new int[keyGroupOffsets.length - 1];
+		System.arraycopy(keyGroupOffsets, 0, writePositions, 0, writePositions.length);
+		final long[] partitionedPointers = new long[numEntries];
+		for (int i = 0; i < numEntries; i++) {
+			partitionedPointers[writePositions[keyGroups[i]]++] = pointers[i];
+		}
+
+		return new KeyGroupPartitionedSnapshot(
+			firstKeyGroup,
+			keyGroupOffsets,
+			partitionedPointers,
+			recordArea.copySegments(),
+			segmentSize,
+			keySerializer.getArity(),
+			valueSerializer.getArity());
+	}
+
+	// ----------------------- Internals -----------------------
+
+	/**
+	 * Looks up the given key. If the key is found, the value is mapped to {@link #reusedValue} and
+	 * the bucket of the key is remembered. Otherwise the bucket to insert the key into is remembered,
+	 * which is the first tombstone on the probing path if there is one.
+	 */
+	private boolean lookup(BinaryRow key) {
+		final int hashCode1 = key.hashCode();
+		int newPos = hashCode1 & numBucketsMask;
+		// which segment contains the bucket
+		int bucketSegmentIndex = newPos >>> numBucketsPerSegmentBits;
+		// offset of the bucket in the segment
+		int bucketOffset = (newPos & numBucketsPerSegmentMask) << BUCKET_SIZE_BITS;
+
+		int tombstoneSegmentIndex = -1;
+		int tombstoneOffset = -1;
+		int step = STEP_INCREMENT;
+		long hashCode2 = 0;
+		try {
+			do {
+				final MemorySegment bucketSegment = bucketSegments.get(bucketSegmentIndex);
+				final long findElementPtr = bucketSegment.getLong(bucketOffset);
+				if (findElementPtr == END_OF_LIST) {
+					// This is a new key.
+					break;
+				} else if (findElementPtr == TOMBSTONE) {
+					if (tombstoneSegmentIndex < 0) {
+						tombstoneSegmentIndex = bucketSegmentIndex;
+						tombstoneOffset = bucketOffset;
+					}
+				} else if (hashCode1 == bucketSegment.getInt(bucketOffset + ELEMENT_POINT_LENGTH)) {
+					recordArea.setReadPosition(findElementPtr);
+					if (recordArea.readKeyAndEquals(key)) {
+						// we found an element with a matching key, and not just a hash collision
+						reusedValue = recordArea.readValue(reusedValue);
+						setLookupResult(hashCode1, bucketSegmentIndex, bucketOffset);
+						lookupRecordSize = reusedKey.getSizeInBytes() + reusedValue.getSizeInBytes() +
+							BytesHashMap.RECORD_EXTRA_LENGTH;
+						return true;
+					}
+				}
+				if (step == 1) {
+					hashCode2 = calcSecondHashCode(hashCode1);
+				}
+				newPos = (int) ((hashCode1 + step * hashCode2) & numBucketsMask);
+				bucketSegmentIndex = newPos >>> numBucketsPerSegmentBits;
+				bucketOffset = (newPos & numBucketsPerSegmentMask) << BUCKET_SIZE_BITS;
+				step += STEP_INCREMENT;
+			} while (true);
+		} catch (IOException ex) {
+			throw new RuntimeException(
+				"Error reading record from the binary row state: " + ex.getMessage(), ex);
+		}
+
+		if (tombstoneSegmentIndex >= 0) {
+			setLookupResult(hashCode1, tombstoneSegmentIndex, tombstoneOffset);
+		} else {
+			setLookupResult(hashCode1, bucketSegmentIndex, bucketOffset);
+		}
+		lookupRecordSize = 0;
+		return false;
+	}
+
+	private void setLookupResult(int hashCode, int bucketSegmentIndex, int bucketOffset) {
+		this.lookupHashCode = hashCode;
+		this.lookupBucketSegmentIndex = bucketSegmentIndex;
+		this.lookupBucketOffset = bucketOffset;
+	}
+
+	private long getBucketPointer() {
+		return bucketSegments.get(lookupBucketSegmentIndex).getLong(lookupBucketOffset);
+	}
+
+	private void setBucket(long pointer) {
+		final MemorySegment bucketSegment = bucketSegments.get(lookupBucketSegmentIndex);
+		bucketSegment.putLong(lookupBucketOffset, pointer);
+		bucketSegment.putInt(lookupBucketOffset + ELEMENT_POINT_LENGTH, lookupHashCode);
+	}
+
+	// M(the num of buckets) is the nth power of 2,  so the second hash code must be odd, and always is
+	// H2(K) = 1 + 2 * ((H1(K)/M) mod (M-1))
+	private long calcSecondHashCode(final int firstHashCode) {
+		return ((((long) (firstHashCode >> log2NumBuckets)) & numBucketsMask2) << 1) + 1L;
+	}
+
+	private List<MemorySegment> initBucketSegments(int numBucketSegments) {
+		List<MemorySegment> segments = new ArrayList<>(numBucketSegments);
+		for (int i = 0; i < numBucketSegments; i++) {
+			MemorySegment segment = allocateSegment();
+			for (int j = 0; j <= lastBucketPosition; j += BUCKET_SIZE) {
+				segment.putLong(j, END_OF_LIST);
+			}
+			segments.add(segment);
+		}
+
+		int numBuckets = numBucketSegments * numBucketsPerSegment;
+		this.log2NumBuckets = MathUtils.log2strict(numBuckets);
+		this.numBucketsMask = (1 << MathUtils.log2strict(numBuckets)) - 1;
+		this.numBucketsMask2 = numBuckets > 1 ? (1 << MathUtils.log2strict(numBuckets >> 1)) - 1 : 0;
+		this.growthThreshold = (int) (numBuckets * LOAD_FACTOR);
+		return segments;
+	}
+
+	/**
+	 * Rehashes all elements into a new bucket area. The bucket area is doubled if the elements alone
+	 * exceed half of the growth threshold, otherwise it only gets rid of the tombstones.
+	 */
+	private void growAndRehash() {
+		final int required = numElements >= growthThreshold / 2 ?
+			2 * bucketSegments.size() : bucketSegments.size();
+		if ((long) required * numBucketsPerSegment > Integer.MAX_VALUE) {
+			throw new IllegalStateException(
+				"The binary row state can't handle more than Integer.MAX_VALUE buckets.");
+		}
+
+		final List<MemorySegment> oldBucketSegments = bucketSegments;
+		bucketSegments = initBucketSegments(required);
+		numTombstones = 0;
+
+		// Re-mask (we don't recompute the hashcode because we stored all 32 bits of it)
+		for (MemorySegment memorySegment : oldBucketSegments) {
+			for (int j = 0; j < numBucketsPerSegment; j++) {
+				final long recordPointer = memorySegment.getLong(j * BUCKET_SIZE);
+				if (recordPointer != END_OF_LIST && recordPointer != TOMBSTONE) {
+					insertIntoBuckets(recordPointer, memorySegment.getInt(j * BUCKET_SIZE + ELEMENT_POINT_LENGTH));
+				}
+			}
+		}
+		freeSegments(oldBucketSegments);
+	}
+
+	/**
+	 * Inserts a pointer into the bucket area, which must not contain any tombstones nor the key.
+	 */
+	private void insertIntoBuckets(long recordPointer, int hashCode1) {
+		int newPos = hashCode1 & numBucketsMask;
+		int bucketSegmentIndex = newPos >>> numBucketsPerSegmentBits;
+		int bucketOffset = (newPos & numBucketsPerSegmentMask) << BUCKET_SIZE_BITS;
+		int step = STEP_INCREMENT;
+		long hashCode2 = 0;
+		while (bucketSegments.get(bucketSegmentIndex).getLong(bucketOffset) != END_OF_LIST) {
+			if (step == 1) {
+				hashCode2 = calcSecondHashCode(hashCode1);
+			}
+			newPos = (int) ((hashCode1 + step * hashCode2) & numBucketsMask);
+			bucketSegmentIndex = newPos >>> numBucketsPerSegmentBits;
+			bucketOffset = (newPos & numBucketsPerSegmentMask) << BUCKET_SIZE_BITS;
+			step += STEP_INCREMENT;
+		}
+		bucketSegments.get(bucketSegmentIndex).putLong(bucketOffset, recordPointer);
+		bucketSegments.get(bucketSegmentIndex).putInt(bucketOffset + ELEMENT_POINT_LENGTH, hashCode1);
+	}
+
+	/**
+	 * Copies all live records into a new record area once at least half of the record area is garbage.
+	 */
+	private void compactIfNeeded() {
+		final int numRecordPages = recordArea.segments.size();
+		if (numRecordPages < MIN_COMPACTION_PAGES || numGarbageBytes * 2 < (long) numRecordPages * segmentSize) {
+			return;
+		}
+
+		final RecordArea oldRecordArea = recordArea;
+		final RecordArea newRecordArea = new RecordArea();
+		try {
+			for (MemorySegment segment : bucketSegments) {
+				for (int offset = 0; offset <= lastBucketPosition; offset += BUCKET_SIZE) {
+					final long pointer = segment.getLong(offset);
+					if (pointer != END_OF_LIST && pointer != TOMBSTONE) {
+						oldRecordArea.setReadPosition(pointer);
+						reusedKey = oldRecordArea.readKey(reusedKey);
+						reusedValue = oldRecordArea.readValue(reusedValue);
+						segment.putLong(offset, newRecordArea.appendRecord(reusedKey, reusedValue));
+					}
+				}
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException(
+				"Error reading record from the binary row state: " + ex.getMessage(), ex);
+		}
+
+		recordArea = newRecordArea;
+		oldRecordArea.release();
+		numGarbageBytes = 0;
+	}
+
+	private MemorySegment allocateSegment() {
+		try {
+			return memoryManager.allocatePages(memoryOwner, 1).get(0);
+		} catch (MemoryAllocationException e) {
+			throw new FlinkRuntimeException("Could not allocate a page for the binary row state. " +
+				"The managed memory of the task manager is exhausted.", e);
+		}
+	}
+
+	private void freeSegments(List<MemorySegment> segments) {
+		memoryManager.release(segments);
+	}
+
+	// ----------------------- Record Area -----------------------
+
+	private final class RecordArea implements MemorySegmentSource {
+
+		private final ArrayList<MemorySegment> segments = new ArrayList<>();
+
+		private final RandomAccessInputView inView;
+		private final SimpleCollectingOutputView outView;
+
+		RecordArea() {
+			this.outView = new SimpleCollectingOutputView(segments, this, segmentSize);
+			this.inView = new RandomAccessInputView(segments, segmentSize);
+		}
+
+		@Override
+		public MemorySegment nextSegment() {
+			return allocateSegment();
+		}
+
+		void release() {
+			freeSegments(segments);
+			segments.clear();
+		}
+
+		/**
+		 * Copies the pages of this record area into heap memory.
+		 */
+		ArrayList<MemorySegment> copySegments() {
+			final ArrayList<MemorySegment> copies = new ArrayList<>(segments.size());
+			for (MemorySegment segment : segments) {
+				final MemorySegment copy = MemorySegmentFactory.allocateUnpooledSegment(segmentSize);
+				segment.copyTo(0, copy, 0, segmentSize);
+				copies.add(copy);
+			}
+			return copies;
+		}
+
+		long appendRecord(BinaryRow key, BinaryRow value) {
+			try {
+				final long oldLastPosition = outView.getCurrentOffset();
+				// serialize the key into the record area
+				int skip = keySerializer.serializeToPages(key, outView);
+
+				// serialize the value into the record area
+				valueSerializer.serializeToPages(value, outView);
+				return oldLastPosition + skip;
+			} catch (IOException ex) {
+				// the record area allocates new pages on demand, so this can not happen
+				throw new RuntimeException(
+					"Error writing record to the binary row state: " + ex.getMessage(), ex);
+			}
+		}
+
+		void setReadPosition(long position) {
+			inView.setReadPosition(position);
+		}
+
+		boolean readKeyAndEquals(BinaryRow lookup) throws IOException {
+			reusedKey = keySerializer.mapFromPages(reusedKey, inView);
+			return lookup.equals(reusedKey);
+		}
+
+		BinaryRow readKey(BinaryRow reuse) throws IOException {
+			return keySerializer.mapFromPages(reuse, inView);
+		}
+
+		BinaryRow readValue(BinaryRow reuse) throws IOException {
+			// depends on BinaryRowSerializer to check writing skip
+			// and to find the real start offset of the data
+			return valueSerializer.mapFromPages(reuse, inView);
+		}
+	}
+
+	// ----------------------- Snapshot -----------------------
+
+	/**
+	 * The entries of a {@link BinaryRowStateMap} partitioned by key group, see
+	 * {@link #partitionByKeyGroup(KeyGroupRange, int)}.
+	 */
+	static final class KeyGroupPartitionedSnapshot {
+
+		private final int firstKeyGroup;
+
+		/** The entries of key group (firstKeyGroup + i) are at [offsets[i], offsets[i + 1]). */
+		private final int[] keyGroupOffsets;
+
+		/** The pointers to the records, into the copied record area. */
+		private final long[] pointers;
+
+		private final RandomAccessInputView recordView;
+
+		private final BinaryRowSerializer keySerializer;
+		private final BinaryRowSerializer valueSerializer;
+
+		KeyGroupPartitionedSnapshot(
+				int firstKeyGroup,
+				int[] keyGroupOffsets,
+				long[] pointers,
+				ArrayList<MemorySegment> recordSegments,
+				int segmentSize,
+				int keyArity,
+				int valueArity) {
+			this.firstKeyGroup = firstKeyGroup;
+			this.keyGroupOffsets = keyGroupOffsets;
+			this.pointers = pointers;
+			this.recordView = new RandomAccessInputView(recordSegments, segmentSize);
+			this.keySerializer = new BinaryRowSerializer(keyArity);
+			this.valueSerializer = new BinaryRowSerializer(valueArity);
+		}
+
+		int getValueArity() {
+			return valueSerializer.getArity();
+		}
+
+		/**
+		 * Writes the number of entries of the given key group followed by the serialized keys and
+		 * values, see {@link BinaryRowSerializer#serialize(BinaryRow, DataOutputView)}.
+		 */
+		void writeKeyGroup(int keyGroup, DataOutputView out) throws IOException {
+			final int start = keyGroupOffsets[keyGroup - firstKeyGroup];
+			final int end = keyGroupOffsets[keyGroup - firstKeyGroup + 1];
+			out.writeInt(end - start);
+			for (int i = start; i < end; i++) {
+				recordView.setReadPosition(pointers[i]);
+				keySerializer.copyFromPagesToView(recordView, out);
+				valueSerializer.copyFromPagesToView(recordView, out);
+			}
+		}
+	}
+}
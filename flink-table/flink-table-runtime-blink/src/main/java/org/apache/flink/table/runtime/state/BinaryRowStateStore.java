@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AsyncSnapshotCallable;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
+import org.apache.flink.runtime.state.KeyGroupStatePartitionStreamProvider;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateInitializationContext;
+import org.apache.flink.runtime.state.StateSnapshotContextSynchronousImpl;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.KeyContext;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryRow;
+import org.apache.flink.table.type.InternalType;
+import org.apache.flink.table.typeutils.AbstractRowSerializer;
+import org.apache.flink.table.typeutils.BaseRowSerializer;
+import org.apache.flink.table.typeutils.BinaryRowSerializer;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RunnableFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Stores keyed states of {@link BaseRow} values as {@link BinaryRow} in pages of managed memory,
+ * instead of keeping them as objects in the keyed state backend. This saves the garbage collection
+ * of the state objects and their (de)serialization for every access, see {@link BinaryRowStateMap}.
+ * The pages are allocated from the {@link MemoryManager} of the task manager on behalf of the task,
+ * and are returned when the store is disposed.
+ *
+ * <p>The store belongs to a keyed operator whose keys are {@link BinaryRow}s. The operator
+ * restores the store in {@link AbstractStreamOperator#initializeState(StateInitializationContext)}
+ * and snapshots it in {@link AbstractStreamOperator#snapshotRawKeyedState(StateSnapshotContextSynchronousImpl,
+ * CheckpointStreamFactory)}. The synchronous part of the snapshot only copies the pages of the states,
+ * which are written to the raw keyed state of the operator in the asynchronous part, one key group
+ * after the other, so they are redistributed like any other keyed state when the job is rescaled.
+ *
+ * <p>As the store takes over the raw keyed state of the operator, it can not be used with state
+ * backends which still write timers to the raw keyed state, see
+ * {@link AbstractKeyedStateBackend#requiresLegacySynchronousTimerSnapshots()}.
+ */
+public class BinaryRowStateStore {
+
+	private final KeyContext keyContext;
+
+	private final KeyGroupRange keyGroupRange;
+
+	private final int totalKeyGroups;
+
+	private final int keyArity;
+
+	private final MemoryManager memoryManager;
+
+	/** The owner of the managed memory of the states, which is the task of the operator. */
+	private final Object memoryOwner;
+
+	/** All states of this store by name, including the restored ones. */
+	private final Map<String, BinaryRowStateMap> states = new LinkedHashMap<>();
+
+	public BinaryRowStateStore(
+			KeyContext keyContext,
+			KeyGroupRange keyGroupRange,
+			int totalKeyGroups,
+			int keyArity,
+			MemoryManager memoryManager,
+			Object memoryOwner) {
+		this.keyContext = checkNotNull(keyContext);
+		this.keyGroupRange = checkNotNull(keyGroupRange);
+		this.totalKeyGroups = totalKeyGroups;
+		this.keyArity = keyArity;
+		this.memoryManager = checkNotNull(memoryManager);
+		this.memoryOwner = checkNotNull(memoryOwner);
+	}
+
+	/**
+	 * Creates a store for the keys of the given operator.
+	 */
+	public static BinaryRowStateStore create(AbstractStreamOperator<?> operator) {
+		final KeyedStateBackend<?> keyedStateBackend = operator.getKeyedStateBackend();
+		Preconditions.checkState(keyedStateBackend instanceof AbstractKeyedStateBackend,
+			"The binary row state can only be used by keyed operators.");
+
+		final AbstractKeyedStateBackend<?> backend = (AbstractKeyedStateBackend<?>) keyedStateBackend;
+		if (backend.requiresLegacySynchronousTimerSnapshots()) {
+			throw new UnsupportedOperationException("The binary row state can not be used with a state " +
+				"backend which writes timers to the raw keyed state, e.g. the RocksDB state backend with " +
+				"heap timers.");
+		}
+
+		final TypeSerializer<?> keySerializer = backend.getKeySerializer();
+		Preconditions.checkState(keySerializer instanceof AbstractRowSerializer,
+			"The binary row state requires row keys, but the key serializer is %s.", keySerializer);
+
+		return new BinaryRowStateStore(
+			operator,
+			backend.getKeyGroupRange(),
+			backend.getNumberOfKeyGroups(),
+			((AbstractRowSerializer<?>) keySerializer).getArity(),
+			operator.getContainingTask().getEnvironment().getMemoryManager(),
+			operator.getContainingTask());
+	}
+
+	/**
+	 * Returns the {@link ValueState} with the given name, which is scoped to the current key of the
+	 * operator. The values returned by the state are copies, so they stay valid when the state is
+	 * modified afterwards.
+	 */
+	public ValueState<BaseRow> getValueState(String name, InternalType[] valueTypes, ExecutionConfig config) {
+		final BinaryRowStateMap stateMap = getOrCreateStateMap(name, valueTypes.length);
+		return new BinaryRowValueState(keyContext, stateMap, new BaseRowSerializer(config, valueTypes));
+	}
+
+	private BinaryRowStateMap getOrCreateStateMap(String name, int valueArity) {
+		BinaryRowStateMap stateMap = states.get(name);
+		if (stateMap == null) {
+			stateMap = new BinaryRowStateMap(keyArity, valueArity, memoryManager, memoryOwner);
+			states.put(name, stateMap);
+		} else if (stateMap.getValueArity() != valueArity) {
+			throw new IllegalStateException("The binary row state " + name + " has values of arity " +
+				stateMap.getValueArity() + " which is incompatible with the requested arity " + valueArity + '.');
+		}
+		return stateMap;
+	}
+
+	public boolean isEmpty() {
+		return states.isEmpty();
+	}
+
+	/**
+	 * Returns the managed memory used by all states of this store.
+	 */
+	public long getUsedMemoryInBytes() {
+		long usedMemory = 0;
+		for (BinaryRowStateMap stateMap : states.values()) {
+			usedMemory += stateMap.getUsedMemoryInBytes();
+		}
+		return usedMemory;
+	}
+
+	// ------------------------------------------------------------------------
+	//  snapshot and restore
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Takes a snapshot of all states and returns the future which writes it to the raw keyed state
+	 * of the operator. If the store has no states, the raw keyed state written synchronously to the
+	 * given context is returned instead.
+	 *
+	 * @param context context of the snapshot, to which the store does not write
+	 * @param streamFactory factory for the stream to write the raw keyed state to
+	 * @param cancelStreamRegistry registry of the task, which closes the stream on cancellation
+	 */
+	public RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshotState(
+			StateSnapshotContextSynchronousImpl context,
+			CheckpointStreamFactory streamFactory,
+			CloseableRegistry cancelStreamRegistry) throws Exception {
+
+		final RunnableFuture<SnapshotResult<KeyedStateHandle>> rawKeyedState = context.getKeyedStateStreamFuture();
+		if (states.isEmpty()) {
+			return rawKeyedState;
+		}
+
+		final SnapshotResult<KeyedStateHandle> otherRawKeyedState = FutureUtils.runIfNotDoneAndGet(rawKeyedState);
+		Preconditions.checkState(otherRawKeyedState == null || otherRawKeyedState.getJobManagerOwnedSnapshot() == null,
+			"The raw keyed state of an operator with binary row states must not be written otherwise.");
+
+		// synchronous part: partition the entries by key group and copy the pages of all states
+		final String[] names = new String[states.size()];
+		final BinaryRowStateMap.KeyGroupPartitionedSnapshot[] snapshots =
+			new BinaryRowStateMap.KeyGroupPartitionedSnapshot[states.size()];
+		int i = 0;
+		for (Map.Entry<String, BinaryRowStateMap> entry : states.entrySet()) {
+			names[i] = entry.getKey();
+			snapshots[i] = entry.getValue().partitionByKeyGroup(keyGroupRange, totalKeyGroups);
+			i++;
+		}
+
+		final AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>> asyncSnapshotCallable =
+			new AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>>() {
+
+				@Override
+				protected SnapshotResult<KeyedStateHandle> callInternal() throws Exception {
+					final CheckpointStreamFactory.CheckpointStateOutputStream stream =
+						streamFactory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE);
+					snapshotCloseableRegistry.registerCloseable(stream);
+
+					// the same layout as the raw keyed state written via a KeyedStateCheckpointOutputStream
+					final KeyGroupRangeOffsets keyGroupRangeOffsets = new KeyGroupRangeOffsets(keyGroupRange);
+					final DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(stream);
+					for (int keyGroup : keyGroupRange) {
+						keyGroupRangeOffsets.setKeyGroupOffset(keyGroup, stream.getPos());
+						outView.writeInt(names.length);
+						for (int j = 0; j < names.length; j++) {
+							outView.writeUTF(names[j]);
+							outView.writeInt(snapshots[j].getValueArity());
+							snapshots[j].writeKeyGroup(keyGroup, outView);
+						}
+					}
+
+					if (snapshotCloseableRegistry.unregisterCloseable(stream)) {
+						final StreamStateHandle streamStateHandle = stream.closeAndGetHandle();
+						return streamStateHandle != null ?
+							SnapshotResult.of(new KeyGroupsStateHandle(keyGroupRangeOffsets, streamStateHandle)) :
+							SnapshotResult.empty();
+					} else {
+						throw new IOException("Stream already closed and cannot return a handle.");
+					}
+				}
+
+				@Override
+				protected void cleanupProvidedResources() {
+					// nothing to release, the copied pages are on the heap
+				}
+			};
+
+		return asyncSnapshotCallable.toAsyncSnapshotFutureTask(cancelStreamRegistry);
+	}
+
+	/**
+	 * Restores all states from the raw keyed state of the operator.
+	 */
+	public void restoreState(StateInitializationContext context) throws Exception {
+		if (!context.isRestored()) {
+			return;
+		}
+
+		for (KeyGroupStatePartitionStreamProvider streamProvider : context.getRawKeyedStateInputs()) {
+			try (InputStream in = streamProvider.getStream()) {
+				restoreKeyGroup(new DataInputViewStreamWrapper(in));
+			}
+		}
+	}
+
+	private void restoreKeyGroup(DataInputViewStreamWrapper in) throws IOException {
+		final BinaryRowSerializer keySerializer = new BinaryRowSerializer(keyArity);
+		final int numStates = in.readInt();
+		for (int i = 0; i < numStates; i++) {
+			final String name = in.readUTF();
+			final int valueArity = in.readInt();
+			final BinaryRowStateMap stateMap = getOrCreateStateMap(name, valueArity);
+			final BinaryRowSerializer valueSerializer = new BinaryRowSerializer(valueArity);
+
+			BinaryRow key = keySerializer.createInstance();
+			BinaryRow value = valueSerializer.createInstance();
+			final int numEntries = in.readInt();
+			for (int j = 0; j < numEntries; j++) {
+				key = keySerializer.deserialize(key, in);
+				value = valueSerializer.deserialize(value, in);
+				stateMap.put(key, value);
+			}
+		}
+	}
+
+	/**
+	 * Returns the memory of all states to the memory manager.
+	 */
+	public void dispose() {
+		for (BinaryRowStateMap stateMap : states.values()) {
+			stateMap.free();
+		}
+		states.clear();
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.state;
+
+/**
+ * Interface for functions which can keep their state in a {@link BinaryRowStateStore}. Operators
+ * supporting the store create, restore and snapshot it for the functions which require it, and
+ * hand it over before the function is opened.
+ */
+public interface BinaryRowStateStoreAware {
+
+	/**
+	 * Returns whether the function keeps its state in a {@link BinaryRowStateStore}.
+	 */
+	boolean requiresBinaryRowStateStore();
+
+	/**
+	 * Sets the store of the operator, called before the function is opened.
+	 */
+	void setBinaryRowStateStore(BinaryRowStateStore store);
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.state;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.streaming.api.operators.KeyContext;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryRow;
+import org.apache.flink.table.typeutils.BaseRowSerializer;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link ValueState} which keeps its values as {@link BinaryRow} in a {@link BinaryRowStateMap},
+ * scoped to the current key of the operator.
+ *
+ * <p>The values returned by {@link #value()} are copies on the heap, so they stay valid when the
+ * state is modified afterwards.
+ */
+final class BinaryRowValueState implements ValueState<BaseRow> {
+
+	private final KeyContext keyContext;
+
+	private final BinaryRowStateMap stateMap;
+
+	private final BaseRowSerializer valueSerializer;
+
+	BinaryRowValueState(KeyContext keyContext, BinaryRowStateMap stateMap, BaseRowSerializer valueSerializer) {
+		this.keyContext = checkNotNull(keyContext);
+		this.stateMap = checkNotNull(stateMap);
+		this.valueSerializer = checkNotNull(valueSerializer);
+	}
+
+	@Override
+	public BaseRow value() {
+		BinaryRow value = stateMap.get(getCurrentKey());
+		return value == null ? null : value.copy();
+	}
+
+	@Override
+	public void update(BaseRow value) {
+		if (value == null) {
+			clear();
+		} else {
+			stateMap.put(getCurrentKey(), valueSerializer.baseRowToBinary(value));
+		}
+	}
+
+	@Override
+	public void clear() {
+		stateMap.remove(getCurrentKey());
+	}
+
+	private BinaryRow getCurrentKey() {
+		return (BinaryRow) keyContext.getCurrentKey();
+	}
+}
@@ -0,0 +1,512 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.typeutils;
+
+import org.apache.flink.api.common.typeutils.OrderPreservingSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.java.typeutils.runtime.DataInputViewStream;
+import org.apache.flink.api.java.typeutils.runtime.DataOutputViewStream;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryRow;
+import org.apache.flink.table.dataformat.BinaryRowWriter;
+import org.apache.flink.table.dataformat.BinaryString;
+import org.apache.flink.table.dataformat.Decimal;
+import org.apache.flink.table.type.DateType;
+import org.apache.flink.table.type.DecimalType;
+import org.apache.flink.table.type.InternalType;
+import org.apache.flink.table.type.InternalTypes;
+import org.apache.flink.table.type.TimestampType;
+import org.apache.flink.util.InstantiationUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Serializer for sort key {@link BaseRow}s whose serialized form preserves the order of the rows
+ * when compared lexicographically as unsigned bytes. This makes the serializer suitable as key
+ * serializer of a {@link org.apache.flink.api.common.state.SortedMapStateDescriptor}.
+ *
+ * <p>The fields are written one after another. Each field starts with a null marker that places
+ * null values first or last, followed by the value in a binary comparable form: numeric values
+ * are written big-endian with their sign bit flipped, and strings are written as their UTF-8 bytes
+ * with {@code 0x00} escaped and a {@code 0x00 0x00} terminator. The value bytes of descending
+ * fields are inverted.
+ *
+ * <p>Only fixed-length types, strings and compact decimals are supported, see
+ * {@link #isSupported(InternalType[])}. Rows are deserialized as {@link BinaryRow}s.
+ */
+public final class OrderPreservingBaseRowSerializer extends TypeSerializer<BaseRow>
+		implements OrderPreservingSerializer<BaseRow> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int NULL_FIRST = 0x00;
+	private static final int NOT_NULL = 0x01;
+	private static final int NULL_LAST = 0x02;
+
+	private final InternalType[] types;
+	private final boolean[] orders;
+	private final boolean[] nullsIsLast;
+	private final RowComparator comparator;
+
+	/**
+	 * Creates a serializer for rows of the given field types.
+	 *
+	 * @param types The types of the fields.
+	 * @param orders Whether the fields are sorted ascending.
+	 * @param nullsIsLast Whether null values of the fields are sorted last.
+	 */
+	public OrderPreservingBaseRowSerializer(InternalType[] types, boolean[] orders, boolean[] nullsIsLast) {
+		checkArgument(types.length == orders.length && types.length == nullsIsLast.length,
+				"The types, orders and nulls positions must have the same length.");
+		checkArgument(isSupported(types), "Unsupported sort key types: " + Arrays.toString(types));
+		this.types = types;
+		this.orders = orders;
+		this.nullsIsLast = nullsIsLast;
+		this.comparator = new RowComparator(types, orders, nullsIsLast);
+	}
+
+	/**
+	 * Checks whether rows of the given field types have an order preserving serialized form.
+	 */
+	public static boolean isSupported(InternalType[] types) {
+		for (InternalType type : types) {
+			if (!isSupported(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSupported(InternalType type) {
+		return type.equals(InternalTypes.BOOLEAN) ||
+				type.equals(InternalTypes.BYTE) ||
+				type.equals(InternalTypes.SHORT) ||
+				type.equals(InternalTypes.INT) ||
+				type.equals(InternalTypes.LONG) ||
+				type.equals(InternalTypes.FLOAT) ||
+				type.equals(InternalTypes.DOUBLE) ||
+				type.equals(InternalTypes.STRING) ||
+				type.equals(InternalTypes.TIME) ||
+				type instanceof DateType ||
+				type instanceof TimestampType ||
+				(type instanceof DecimalType && Decimal.isCompact(((DecimalType) type).precision()));
+	}
+
+	@Override
+	public boolean isImmutableType() {
+		return false;
+	}
+
+	@Override
+	public TypeSerializer<BaseRow> duplicate() {
+		return new OrderPreservingBaseRowSerializer(types, orders, nullsIsLast);
+	}
+
+	@Override
+	public BaseRow createInstance() {
+		return new BinaryRow(types.length);
+	}
+
+	/**
+	 * Copies the row into a new {@link BinaryRow}. The copies of rows with equal fields are equal.
+	 */
+	@Override
+	public BaseRow copy(BaseRow from) {
+		BinaryRow row = new BinaryRow(types.length);
+		BinaryRowWriter writer = new BinaryRowWriter(row);
+		for (int i = 0; i < types.length; i++) {
+			if (from.isNullAt(i)) {
+				writer.setNullAt(i);
+			} else {
+				copyField(from, writer, i, types[i]);
+			}
+		}
+		writer.complete();
+		return row;
+	}
+
+	@Override
+	public BaseRow copy(BaseRow from, BaseRow reuse) {
+		return copy(from);
+	}
+
+	@Override
+	public int getLength() {
+		return -1;
+	}
+
+	@Override
+	public void serialize(BaseRow record, DataOutputView target) throws IOException {
+		for (int i = 0; i < types.length; i++) {
+			if (record.isNullAt(i)) {
+				target.writeByte(nullsIsLast[i] ? NULL_LAST : NULL_FIRST);
+			} else {
+				target.writeByte(NOT_NULL);
+				writeField(record, target, i, types[i], orders[i] ? 0 : 0xFF);
+			}
+		}
+	}
+
+	@Override
+	public BaseRow deserialize(DataInputView source) throws IOException {
+		BinaryRow row = new BinaryRow(types.length);
+		BinaryRowWriter writer = new BinaryRowWriter(row);
+		for (int i = 0; i < types.length; i++) {
+			if (source.readUnsignedByte() == NOT_NULL) {
+				readField(source, writer, i, types[i], orders[i] ? 0 : 0xFF);
+			} else {
+				writer.setNullAt(i);
+			}
+		}
+		writer.complete();
+		return row;
+	}
+
+	@Override
+	public BaseRow deserialize(BaseRow reuse, DataInputView source) throws IOException {
+		return deserialize(source);
+	}
+
+	@Override
+	public void copy(DataInputView source, DataOutputView target) throws IOException {
+		serialize(deserialize(source), target);
+	}
+
+	@Override
+	public Comparator<BaseRow> getOrderComparator() {
+		return comparator;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		} else if (obj instanceof OrderPreservingBaseRowSerializer) {
+			OrderPreservingBaseRowSerializer other = (OrderPreservingBaseRowSerializer) obj;
+			return comparator.equals(other.comparator);
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return comparator.hashCode();
+	}
+
+	@Override
+	public TypeSerializerSnapshot<BaseRow> snapshotConfiguration() {
+		return new OrderPreservingBaseRowSerializerSnapshot(types, orders, nullsIsLast);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static void copyField(BaseRow from, BinaryRowWriter writer, int pos, InternalType type) {
+		if (type.equals(InternalTypes.BOOLEAN)) {
+			writer.writeBoolean(pos, from.getBoolean(pos));
+		} else if (type.equals(InternalTypes.BYTE)) {
+			writer.writeByte(pos, from.getByte(pos));
+		} else if (type.equals(InternalTypes.SHORT)) {
+			writer.writeShort(pos, from.getShort(pos));
+		} else if (type.equals(InternalTypes.INT) || type.equals(InternalTypes.TIME) || type instanceof DateType) {
+			writer.writeInt(pos, from.getInt(pos));
+		} else if (type.equals(InternalTypes.LONG) || type instanceof TimestampType) {
+			writer.writeLong(pos, from.getLong(pos));
+		} else if (type.equals(InternalTypes.FLOAT)) {
+			writer.writeFloat(pos, from.getFloat(pos));
+		} else if (type.equals(InternalTypes.DOUBLE)) {
+			writer.writeDouble(pos, from.getDouble(pos));
+		} else if (type.equals(InternalTypes.STRING)) {
+			writer.writeString(pos, from.getString(pos));
+		} else {
+			DecimalType decimalType = (DecimalType) type;
+			Decimal decimal = from.getDecimal(pos, decimalType.precision(), decimalType.scale());
+			writer.writeDecimal(pos, decimal, decimalType.precision());
+		}
+	}
+
+	private static void writeField(BaseRow from, DataOutputView target, int pos, InternalType type, int mask)
+			throws IOException {
+		if (type.equals(InternalTypes.BOOLEAN)) {
+			target.writeByte((from.getBoolean(pos) ? 1 : 0) ^ mask);
+		} else if (type.equals(InternalTypes.BYTE)) {
+			target.writeByte((from.getByte(pos) ^ Byte.MIN_VALUE) ^ mask);
+		} else if (type.equals(InternalTypes.SHORT)) {
+			short value = (short) (from.getShort(pos) ^ Short.MIN_VALUE);
+			target.writeShort(mask == 0 ? value : ~value);
+		} else if (type.equals(InternalTypes.INT) || type.equals(InternalTypes.TIME) || type instanceof DateType) {
+			writeInt(target, from.getInt(pos), mask);
+		} else if (type.equals(InternalTypes.LONG) || type instanceof TimestampType) {
+			writeLong(target, from.getLong(pos), mask);
+		} else if (type.equals(InternalTypes.FLOAT)) {
+			int bits = Float.floatToIntBits(from.getFloat(pos));
+			writeInt(target, bits < 0 ? bits ^ Integer.MAX_VALUE : bits, mask);
+		} else if (type.equals(InternalTypes.DOUBLE)) {
+			long bits = Double.doubleToLongBits(from.getDouble(pos));
+			writeLong(target, bits < 0 ? bits ^ Long.MAX_VALUE : bits, mask);
+		} else if (type.equals(InternalTypes.STRING)) {
+			for (byte b : from.getString(pos).getBytes()) {
+				target.writeByte(b ^ mask);
+				if (b == 0) {
+					target.writeByte(0xFF ^ mask);
+				}
+			}
+			target.writeByte(mask);
+			target.writeByte(mask);
+		} else {
+			DecimalType decimalType = (DecimalType) type;
+			writeLong(target, from.getDecimal(pos, decimalType.precision(), decimalType.scale()).toUnscaledLong(), mask);
+		}
+	}
+
+	private static void readField(DataInputView source, BinaryRowWriter writer, int pos, InternalType type, int mask)
+			throws IOException {
+		if (type.equals(InternalTypes.BOOLEAN)) {
+			writer.writeBoolean(pos, (source.readUnsignedByte() ^ mask) != 0);
+		} else if (type.equals(InternalTypes.BYTE)) {
+			writer.writeByte(pos, (byte) (source.readByte() ^ mask ^ Byte.MIN_VALUE));
+		} else if (type.equals(InternalTypes.SHORT)) {
+			short value = source.readShort();
+			writer.writeShort(pos, (short) ((mask == 0 ? value : ~value) ^ Short.MIN_VALUE));
+		} else if (type.equals(InternalTypes.INT) || type.equals(InternalTypes.TIME) || type instanceof DateType) {
+			writer.writeInt(pos, readInt(source, mask));
+		} else if (type.equals(InternalTypes.LONG) || type instanceof TimestampType) {
+			writer.writeLong(pos, readLong(source, mask));
+		} else if (type.equals(InternalTypes.FLOAT)) {
+			int bits = readInt(source, mask);
+			writer.writeFloat(pos, Float.intBitsToFloat(bits < 0 ? bits ^ Integer.MAX_VALUE : bits));
+		} else if (type.equals(InternalTypes.DOUBLE)) {
+			long bits = readLong(source, mask);
+			writer.writeDouble(pos, Double.longBitsToDouble(bits < 0 ? bits ^ Long.MAX_VALUE : bits));
+		} else if (type.equals(InternalTypes.STRING)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			while (true) {
+				int b = source.readUnsignedByte() ^ mask;
+				if (b == 0) {
+					if ((source.readUnsignedByte() ^ mask) == 0) {
+						break;
+					}
+				}
+				bytes.write(b);
+			}
+			writer.writeString(pos, BinaryString.fromBytes(bytes.toByteArray()));
+		} else {
+			DecimalType decimalType = (DecimalType) type;
+			Decimal decimal = Decimal.fromUnscaledLong(decimalType.precision(), decimalType.scale(), readLong(source, mask));
+			writer.writeDecimal(pos, decimal, decimalType.precision());
+		}
+	}
+
+	private static void writeInt(DataOutputView target, int value, int mask) throws IOException {
+		target.writeInt(mask == 0 ? value ^ Integer.MIN_VALUE : ~(value ^ Integer.MIN_VALUE));
+	}
+
+	private static void writeLong(DataOutputView target, long value, int mask) throws IOException {
+		target.writeLong(mask == 0 ? value ^ Long.MIN_VALUE : ~(value ^ Long.MIN_VALUE));
+	}
+
+	private static int readInt(DataInputView source, int mask) throws IOException {
+		int value = source.readInt();
+		return (mask == 0 ? value : ~value) ^ Integer.MIN_VALUE;
+	}
+
+	private static long readLong(DataInputView source, int mask) throws IOException {
+		long value = source.readLong();
+		return (mask == 0 ? value : ~value) ^ Long.MIN_VALUE;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The comparator that defines the order preserved by the serialized form.
+	 */
+	private static final class RowComparator implements Comparator<BaseRow>, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final InternalType[] types;
+		private final boolean[] orders;
+		private final boolean[] nullsIsLast;
+
+		private RowComparator(InternalType[] types, boolean[] orders, boolean[] nullsIsLast) {
+			this.types = types;
+			this.orders = orders;
+			this.nullsIsLast = nullsIsLast;
+		}
+
+		@Override
+		public int compare(BaseRow o1, BaseRow o2) {
+			for (int i = 0; i < types.length; i++) {
+				boolean null1 = o1.isNullAt(i);
+				boolean null2 = o2.isNullAt(i);
+				if (null1 || null2) {
+					if (null1 && null2) {
+						continue;
+					}
+					// null values are placed independently of the sort direction
+					return null1 == nullsIsLast[i] ? 1 : -1;
+				}
+				int result = compareField(o1, o2, i, types[i]);
+				if (result != 0) {
+					return orders[i] ? result : -result;
+				}
+			}
+			return 0;
+		}
+
+		private static int compareField(BaseRow o1, BaseRow o2, int pos, InternalType type) {
+			if (type.equals(InternalTypes.BOOLEAN)) {
+				return Boolean.compare(o1.getBoolean(pos), o2.getBoolean(pos));
+			} else if (type.equals(InternalTypes.BYTE)) {
+				return Byte.compare(o1.getByte(pos), o2.getByte(pos));
+			} else if (type.equals(InternalTypes.SHORT)) {
+				return Short.compare(o1.getShort(pos), o2.getShort(pos));
+			} else if (type.equals(InternalTypes.INT) || type.equals(InternalTypes.TIME) || type instanceof DateType) {
+				return Integer.compare(o1.getInt(pos), o2.getInt(pos));
+			} else if (type.equals(InternalTypes.LONG) || type instanceof TimestampType) {
+				return Long.compare(o1.getLong(pos), o2.getLong(pos));
+			} else if (type.equals(InternalTypes.FLOAT)) {
+				return Float.compare(o1.getFloat(pos), o2.getFloat(pos));
+			} else if (type.equals(InternalTypes.DOUBLE)) {
+				return Double.compare(o1.getDouble(pos), o2.getDouble(pos));
+			} else if (type.equals(InternalTypes.STRING)) {
+				// compares the UTF-8 bytes like the serialized form, not the UTF-16 chars
+				byte[] bytes1 = o1.getString(pos).getBytes();
+				byte[] bytes2 = o2.getString(pos).getBytes();
+				for (int i = 0; i < Math.min(bytes1.length, bytes2.length); i++) {
+					int diff = (bytes1[i] & 0xFF) - (bytes2[i] & 0xFF);
+					if (diff != 0) {
+						return diff;
+					}
+				}
+				return bytes1.length - bytes2.length;
+			} else {
+				DecimalType decimalType = (DecimalType) type;
+				return Long.compare(
+						o1.getDecimal(pos, decimalType.precision(), decimalType.scale()).toUnscaledLong(),
+						o2.getDecimal(pos, decimalType.precision(), decimalType.scale()).toUnscaledLong());
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			} else if (obj instanceof RowComparator) {
+				RowComparator other = (RowComparator) obj;
+				return Arrays.equals(types, other.types) &&
+						Arrays.equals(orders, other.orders) &&
+						Arrays.equals(nullsIsLast, other.nullsIsLast);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			int result = Arrays.hashCode(types);
+			result = 31 * result + Arrays.hashCode(orders);
+			result = 31 * result + Arrays.hashCode(nullsIsLast);
+			return result;
+		}
+	}
+
+	/**
+	 * {@link TypeSerializerSnapshot} for {@link OrderPreservingBaseRowSerializer}.
+	 */
+	public static final class OrderPreservingBaseRowSerializerSnapshot implements TypeSerializerSnapshot<BaseRow> {
+
+		private static final int CURRENT_VERSION = 1;
+
+		private InternalType[] previousTypes;
+		private boolean[] previousOrders;
+		private boolean[] previousNullsIsLast;
+
+		@SuppressWarnings("unused")
+		public OrderPreservingBaseRowSerializerSnapshot() {
+			// this constructor is used when restoring from a checkpoint/savepoint.
+		}
+
+		OrderPreservingBaseRowSerializerSnapshot(InternalType[] types, boolean[] orders, boolean[] nullsIsLast) {
+			this.previousTypes = types;
+			this.previousOrders = orders;
+			this.previousNullsIsLast = nullsIsLast;
+		}
+
+		@Override
+		public int getCurrentVersion() {
+			return CURRENT_VERSION;
+		}
+
+		@Override
+		public void writeSnapshot(DataOutputView out) throws IOException {
+			out.writeInt(previousTypes.length);
+			DataOutputViewStream stream = new DataOutputViewStream(out);
+			for (int i = 0; i < previousTypes.length; i++) {
+				InstantiationUtil.serializeObject(stream, previousTypes[i]);
+				out.writeBoolean(previousOrders[i]);
+				out.writeBoolean(previousNullsIsLast[i]);
+			}
+		}
+
+		@Override
+		public void readSnapshot(int readVersion, DataInputView in, ClassLoader userCodeClassLoader)
+				throws IOException {
+			int length = in.readInt();
+			DataInputViewStream stream = new DataInputViewStream(in);
+			previousTypes = new InternalType[length];
+			previousOrders = new boolean[length];
+			previousNullsIsLast = new boolean[length];
+			for (int i = 0; i < length; i++) {
+				try {
+					previousTypes[i] = InstantiationUtil.deserializeObject(stream, userCodeClassLoader);
+				} catch (ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+				previousOrders[i] = in.readBoolean();
+				previousNullsIsLast[i] = in.readBoolean();
+			}
+		}
+
+		@Override
+		public TypeSerializer<BaseRow> restoreSerializer() {
+			return new OrderPreservingBaseRowSerializer(previousTypes, previousOrders, previousNullsIsLast);
+		}
+
+		@Override
+		public TypeSerializerSchemaCompatibility<BaseRow> resolveSchemaCompatibility(TypeSerializer<BaseRow> newSerializer) {
+			// the serialized form defines the order of the keys, so it must not change
+			if (newSerializer.equals(restoreSerializer())) {
+				return TypeSerializerSchemaCompatibility.compatibleAsIs();
+			} else {
+				return TypeSerializerSchemaCompatibility.incompatible();
+			}
+		}
+	}
+}
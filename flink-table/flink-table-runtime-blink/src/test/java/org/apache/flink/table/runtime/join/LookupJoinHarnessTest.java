@@ -27,17 +27,23 @@ import org.apache.flink.streaming.api.functions.ProcessFunction;
 import org.apache.flink.streaming.api.operators.ProcessOperator;
 import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
 import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryRow;
+import org.apache.flink.table.dataformat.BinaryRowWriter;
 import org.apache.flink.table.dataformat.BinaryString;
 import org.apache.flink.table.dataformat.GenericRow;
 import org.apache.flink.table.dataformat.JoinedRow;
 import org.apache.flink.table.generated.GeneratedCollectorWrapper;
 import org.apache.flink.table.generated.GeneratedFunctionWrapper;
+import org.apache.flink.table.generated.GeneratedProjection;
+import org.apache.flink.table.generated.Projection;
 import org.apache.flink.table.runtime.collector.TableFunctionCollector;
+import org.apache.flink.table.runtime.join.lookup.LookupCache;
 import org.apache.flink.table.runtime.join.lookup.LookupJoinRunner;
 import org.apache.flink.table.runtime.join.lookup.LookupJoinWithCalcRunner;
 import org.apache.flink.table.runtime.util.BaseRowHarnessAssertor;
 import org.apache.flink.table.type.InternalTypes;
 import org.apache.flink.table.typeutils.BaseRowSerializer;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
 import org.apache.flink.util.Collector;
 
 import org.junit.Test;
@@ -48,9 +54,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.flink.table.dataformat.BinaryString.fromString;
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.record;
+import static org.junit.Assert.assertEquals;
 
 /**
  * Harness tests for {@link LookupJoinRunner} and {@link LookupJoinWithCalcRunner}.
@@ -167,12 +175,76 @@ public class LookupJoinHarnessTest {
 		testHarness.close();
 	}
 
+	@Test
+	public void testTemporalLeftJoinWithCache() throws Exception {
+		OneInputStreamOperatorTestHarness<BaseRow, BaseRow> testHarness = createHarness(
+			JoinType.LEFT_JOIN,
+			FilterOnTable.WITH_FILTER,
+			new LookupCache(new TestingKeyProjection(), RIGHT_TYPE_INFO, 10, 0, false));
+
+		testHarness.open();
+		TestingFetcherFunction.NUM_FETCHES.set(0);
+
+		testHarness.processElement(record(3, "a"));
+		testHarness.processElement(record(3, "b"));
+		testHarness.processElement(record(2, "c"));
+		testHarness.processElement(record(2, "d"));
+		testHarness.processElement(record(3, "e"));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(3, "a", 3, "Jackson"));
+		expectedOutput.add(record(3, "b", 3, "Jackson"));
+		expectedOutput.add(record(2, "c", null, null));
+		expectedOutput.add(record(2, "d", null, null));
+		expectedOutput.add(record(3, "e", 3, "Jackson"));
+
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		// empty results are not cached, so key 2 is fetched twice
+		assertEquals(3, TestingFetcherFunction.NUM_FETCHES.get());
+		testHarness.close();
+	}
+
+	@Test
+	public void testTemporalInnerJoinWithEmptyResultCache() throws Exception {
+		OneInputStreamOperatorTestHarness<BaseRow, BaseRow> testHarness = createHarness(
+			JoinType.INNER_JOIN,
+			FilterOnTable.WITHOUT_FILTER,
+			new LookupCache(new TestingKeyProjection(), RIGHT_TYPE_INFO, 10, 0, true));
+
+		testHarness.open();
+		TestingFetcherFunction.NUM_FETCHES.set(0);
+
+		testHarness.processElement(record(1, "a"));
+		testHarness.processElement(record(2, "b"));
+		testHarness.processElement(record(1, "c"));
+		testHarness.processElement(record(2, "d"));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(1, "a", 1, "Julian"));
+		expectedOutput.add(record(1, "c", 1, "Julian"));
+
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		assertEquals(2, TestingFetcherFunction.NUM_FETCHES.get());
+		testHarness.close();
+	}
+
 	// ---------------------------------------------------------------------------------
 
-	@SuppressWarnings("unchecked")
+	private static final BaseRowTypeInfo RIGHT_TYPE_INFO = new BaseRowTypeInfo(
+		InternalTypes.INT,
+		InternalTypes.STRING);
+
 	private OneInputStreamOperatorTestHarness<BaseRow, BaseRow> createHarness(
 			JoinType joinType,
 			FilterOnTable filterOnTable) throws Exception {
+		return createHarness(joinType, filterOnTable, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private OneInputStreamOperatorTestHarness<BaseRow, BaseRow> createHarness(
+			JoinType joinType,
+			FilterOnTable filterOnTable,
+			LookupCache cache) throws Exception {
 		boolean isLeftJoin = joinType == JoinType.LEFT_JOIN;
 		ProcessFunction<BaseRow, BaseRow> joinRunner;
 		if (filterOnTable == FilterOnTable.WITHOUT_FILTER) {
@@ -180,14 +252,16 @@ public class LookupJoinHarnessTest {
 				new GeneratedFunctionWrapper<>(new TestingFetcherFunction()),
 				new GeneratedCollectorWrapper<>(new TestingFetcherCollector()),
 				isLeftJoin,
-				2);
+				2,
+				cache);
 		} else {
 			joinRunner = new LookupJoinWithCalcRunner(
 				new GeneratedFunctionWrapper<>(new TestingFetcherFunction()),
 				new GeneratedFunctionWrapper<>(new CalculateOnTemporalTable()),
 				new GeneratedCollectorWrapper<>(new TestingFetcherCollector()),
 				isLeftJoin,
-				2);
+				2,
+				cache);
 		}
 
 		ProcessOperator<BaseRow, BaseRow> operator = new ProcessOperator<>(joinRunner);
@@ -224,6 +298,8 @@ public class LookupJoinHarnessTest {
 
 		private static final Map<Integer, List<GenericRow>> data = new HashMap<>();
 
+		private static final AtomicInteger NUM_FETCHES = new AtomicInteger();
+
 		static {
 			data.put(1, Collections.singletonList(
 				GenericRow.of(1, fromString("Julian"))));
@@ -236,6 +312,7 @@ public class LookupJoinHarnessTest {
 
 		@Override
 		public void flatMap(BaseRow value, Collector<BaseRow> out) throws Exception {
+			NUM_FETCHES.incrementAndGet();
 			int id = value.getInt(0);
 			List<GenericRow> rows = data.get(id);
 			if (rows != null) {
@@ -277,4 +354,34 @@ public class LookupJoinHarnessTest {
 			}
 		}
 	}
+
+	/**
+	 * The {@link TestingKeyProjection} projects the integer lookup key of the input into a
+	 * {@link BinaryRow}.
+	 */
+	private static final class TestingKeyProjection extends GeneratedProjection {
+
+		private static final long serialVersionUID = 1L;
+
+		private TestingKeyProjection() {
+			super("TestingKeyProjection", "N/A", new Object[0]);
+		}
+
+		@Override
+		public Projection newInstance(ClassLoader classLoader) {
+			return new Projection<BaseRow, BinaryRow>() {
+
+				private final BinaryRow key = new BinaryRow(1);
+				private final BinaryRowWriter writer = new BinaryRowWriter(key);
+
+				@Override
+				public BinaryRow apply(BaseRow row) {
+					writer.reset();
+					writer.writeInt(0, row.getInt(0));
+					writer.complete();
+					return key;
+				}
+			};
+		}
+	}
 }
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream;
+
+import org.apache.flink.streaming.util.KeyedTwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.runtime.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.util.BaseRowHarnessAssertor;
+import org.apache.flink.table.type.InternalTypes;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.record;
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.retractRecord;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for {@link StreamingJoin}.
+ */
+public class StreamingJoinTest extends StreamingJoinTestBase {
+
+	private BaseRowTypeInfo outputRowType = new BaseRowTypeInfo(InternalTypes.LONG, InternalTypes.STRING,
+			InternalTypes.LONG, InternalTypes.STRING);
+	private BaseRowHarnessAssertor assertor = new BaseRowHarnessAssertor(outputRowType.getFieldTypes());
+
+	@Test
+	public void testInnerJoinWithoutUniqueKey() throws Exception {
+		StreamingJoin joinFunction = createJoinFunction(
+				JoinInputSideSpec.withoutUniqueKey(), JoinInputSideSpec.withoutUniqueKey(), false, false);
+		KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness =
+				createTestHarness(joinFunction);
+		testHarness.open();
+
+		testHarness.processElement1(record(1L, "a1"));
+		testHarness.processElement1(record(1L, "a1"));
+		testHarness.processElement2(record(1L, "b1"));
+		testHarness.processElement2(record(2L, "b2"));
+		testHarness.processElement1(retractRecord(1L, "a1"));
+		testHarness.processElement2(retractRecord(1L, "b1"));
+		testHarness.processElement1(record(1L, "a2"));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(1L, "a1", 1L, "b1"));
+		expectedOutput.add(record(1L, "a1", 1L, "b1"));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b1"));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b1"));
+
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	@Test
+	public void testInnerJoinWithUniqueKey() throws Exception {
+		StreamingJoin joinFunction = createJoinFunction(
+				JoinInputSideSpec.withUniqueKeyContainedByJoinKey(joinKeySelector.getProducedType(), joinKeySelector),
+				JoinInputSideSpec.withUniqueKey(uniqueKeySelector.getProducedType(), uniqueKeySelector),
+				false,
+				false);
+		KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness =
+				createTestHarness(joinFunction);
+		testHarness.open();
+
+		testHarness.processElement2(record(1L, "b1"));
+		testHarness.processElement2(record(1L, "b2"));
+		testHarness.processElement1(record(1L, "a1"));
+		// update the only row of the left key
+		testHarness.processElement1(retractRecord(1L, "a1"));
+		testHarness.processElement1(record(1L, "a2"));
+		testHarness.processElement2(retractRecord(1L, "b1"));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(1L, "a1", 1L, "b1"));
+		expectedOutput.add(record(1L, "a1", 1L, "b2"));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b1"));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b2"));
+		expectedOutput.add(record(1L, "a2", 1L, "b1"));
+		expectedOutput.add(record(1L, "a2", 1L, "b2"));
+		expectedOutput.add(retractRecord(1L, "a2", 1L, "b1"));
+
+		assertor.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	@Test
+	public void testLeftOuterJoin() throws Exception {
+		StreamingJoin joinFunction = createJoinFunction(
+				JoinInputSideSpec.withoutUniqueKey(), JoinInputSideSpec.withoutUniqueKey(), true, false);
+		KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness =
+				createTestHarness(joinFunction);
+		testHarness.open();
+
+		testHarness.processElement1(record(1L, "a1"));
+		testHarness.processElement2(record(1L, "b1"));
+		testHarness.processElement2(record(1L, "b2"));
+		testHarness.processElement1(record(2L, "a2"));
+		testHarness.processElement2(retractRecord(1L, "b1"));
+		testHarness.processElement2(retractRecord(1L, "b2"));
+		testHarness.processElement1(retractRecord(1L, "a1"));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(1L, "a1", null, null));
+		expectedOutput.add(retractRecord(1L, "a1", null, null));
+		expectedOutput.add(record(1L, "a1", 1L, "b1"));
+		expectedOutput.add(record(1L, "a1", 1L, "b2"));
+		expectedOutput.add(record(2L, "a2", null, null));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b1"));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b2"));
+		expectedOutput.add(record(1L, "a1", null, null));
+		expectedOutput.add(retractRecord(1L, "a1", null, null));
+
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	@Test
+	public void testFullOuterJoin() throws Exception {
+		StreamingJoin joinFunction = createJoinFunction(
+				JoinInputSideSpec.withoutUniqueKey(),
+				JoinInputSideSpec.withUniqueKey(uniqueKeySelector.getProducedType(), uniqueKeySelector),
+				true,
+				true);
+		KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness =
+				createTestHarness(joinFunction);
+		testHarness.open();
+
+		testHarness.processElement1(record(1L, "a1"));
+		testHarness.processElement1(record(1L, "a1"));
+		testHarness.processElement2(record(1L, "b1"));
+		testHarness.processElement2(record(2L, "b2"));
+		testHarness.processElement1(retractRecord(1L, "a1"));
+		testHarness.processElement1(retractRecord(1L, "a1"));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(1L, "a1", null, null));
+		expectedOutput.add(record(1L, "a1", null, null));
+		expectedOutput.add(retractRecord(1L, "a1", null, null));
+		expectedOutput.add(retractRecord(1L, "a1", null, null));
+		expectedOutput.add(record(1L, "a1", 1L, "b1"));
+		expectedOutput.add(record(1L, "a1", 1L, "b1"));
+		expectedOutput.add(record(null, null, 2L, "b2"));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b1"));
+		expectedOutput.add(retractRecord(1L, "a1", 1L, "b1"));
+		expectedOutput.add(record(null, null, 1L, "b1"));
+
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	@Test
+	public void testStateCleanup() throws Exception {
+		StreamingJoin joinFunction = new StreamingJoin(
+				rowType,
+				rowType,
+				joinCondition,
+				JoinInputSideSpec.withoutUniqueKey(),
+				JoinInputSideSpec.withoutUniqueKey(),
+				false,
+				false,
+				10,
+				20);
+		KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness =
+				createTestHarness(joinFunction);
+		testHarness.open();
+
+		testHarness.setProcessingTime(1);
+		testHarness.processElement1(record(1L, "a1"));
+		assertEquals(1, testHarness.numProcessingTimeTimers());
+
+		// the cleanup timer is not updated within the min retention time
+		testHarness.setProcessingTime(5);
+		testHarness.processElement1(record(1L, "a2"));
+		assertEquals(1, testHarness.numProcessingTimeTimers());
+
+		// all records of the key are removed by the cleanup timer
+		testHarness.setProcessingTime(21);
+		assertEquals(0, testHarness.numKeyedStateEntries());
+		assertEquals(0, testHarness.numProcessingTimeTimers());
+
+		testHarness.processElement2(record(1L, "b1"));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	private StreamingJoin createJoinFunction(
+			JoinInputSideSpec leftInputSideSpec,
+			JoinInputSideSpec rightInputSideSpec,
+			boolean leftIsOuter,
+			boolean rightIsOuter) {
+		return new StreamingJoin(
+				rowType,
+				rowType,
+				joinCondition,
+				leftInputSideSpec,
+				rightInputSideSpec,
+				leftIsOuter,
+				rightIsOuter,
+				0,
+				0);
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream;
+
+import org.apache.flink.streaming.api.operators.co.KeyedCoProcessOperator;
+import org.apache.flink.streaming.util.KeyedTwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.generated.GeneratedJoinCondition;
+import org.apache.flink.table.generated.JoinCondition;
+import org.apache.flink.table.runtime.util.BinaryRowKeySelector;
+import org.apache.flink.table.type.InternalTypes;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+
+/**
+ * Base Test for all subclass of {@link AbstractStreamingJoin}.
+ */
+abstract class StreamingJoinTestBase {
+
+	BaseRowTypeInfo rowType = new BaseRowTypeInfo(InternalTypes.LONG, InternalTypes.STRING);
+
+	BinaryRowKeySelector joinKeySelector = new BinaryRowKeySelector(new int[] { 0 },
+			rowType.getInternalTypes());
+
+	BinaryRowKeySelector uniqueKeySelector = new BinaryRowKeySelector(new int[] { 1 },
+			rowType.getInternalTypes());
+
+	/** l.key = r.key. **/
+	GeneratedJoinCondition joinCondition = new GeneratedJoinCondition("", "", new Object[0]) {
+		@Override
+		public JoinCondition newInstance(ClassLoader classLoader) {
+			return (in1, in2) -> in1.getLong(0) == in2.getLong(0);
+		}
+	};
+
+	KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> createTestHarness(
+			AbstractStreamingJoin joinFunction) throws Exception {
+		KeyedCoProcessOperator<BaseRow, BaseRow, BaseRow, BaseRow> operator = new KeyedCoProcessOperator<>(
+				joinFunction);
+		return new KeyedTwoInputStreamOperatorTestHarness<>(
+				operator, joinKeySelector, joinKeySelector, joinKeySelector.getProducedType());
+	}
+}
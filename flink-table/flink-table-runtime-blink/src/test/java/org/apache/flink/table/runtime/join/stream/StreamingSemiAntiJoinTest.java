@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.join.stream;
+
+import org.apache.flink.streaming.util.KeyedTwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.runtime.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.util.BaseRowHarnessAssertor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.record;
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.retractRecord;
+
+/**
+ * Test for {@link StreamingSemiAntiJoin}.
+ */
+public class StreamingSemiAntiJoinTest extends StreamingJoinTestBase {
+
+	private BaseRowHarnessAssertor assertor = new BaseRowHarnessAssertor(rowType.getFieldTypes());
+
+	@Test
+	public void testSemiJoin() throws Exception {
+		KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness =
+				createTestHarness(createJoinFunction(false));
+		testHarness.open();
+
+		processElements(testHarness);
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(1L, "a1"));
+		expectedOutput.add(retractRecord(1L, "a1"));
+		expectedOutput.add(record(2L, "a2"));
+
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	@Test
+	public void testAntiJoin() throws Exception {
+		KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness =
+				createTestHarness(createJoinFunction(true));
+		testHarness.open();
+
+		processElements(testHarness);
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(record(1L, "a1"));
+		expectedOutput.add(retractRecord(1L, "a1"));
+		expectedOutput.add(record(1L, "a1"));
+		expectedOutput.add(retractRecord(1L, "a1"));
+
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	private void processElements(
+			KeyedTwoInputStreamOperatorTestHarness<BaseRow, BaseRow, BaseRow, BaseRow> testHarness)
+			throws Exception {
+		testHarness.processElement1(record(1L, "a1"));
+		testHarness.processElement2(record(1L, "b1"));
+		testHarness.processElement2(record(1L, "b2"));
+		testHarness.processElement2(retractRecord(1L, "b1"));
+		testHarness.processElement2(retractRecord(1L, "b2"));
+		testHarness.processElement1(retractRecord(1L, "a1"));
+		testHarness.processElement2(record(2L, "b3"));
+		testHarness.processElement1(record(2L, "a2"));
+	}
+
+	private StreamingSemiAntiJoin createJoinFunction(boolean isAntiJoin) {
+		return new StreamingSemiAntiJoin(
+				isAntiJoin,
+				rowType,
+				rowType,
+				joinCondition,
+				JoinInputSideSpec.withoutUniqueKey(),
+				JoinInputSideSpec.withoutUniqueKey(),
+				0,
+				0);
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.over;
+
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.SortedMapState;
+import org.apache.flink.api.java.typeutils.ListTypeInfo;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.runtime.util.BaseRowHarnessAssertor;
+import org.apache.flink.table.runtime.util.BinaryRowKeySelector;
+import org.apache.flink.table.type.InternalTypes;
+import org.apache.flink.table.typeutils.BaseRowTypeInfo;
+import org.apache.flink.util.Collector;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.record;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for {@link RowTimeOverInputState}.
+ */
+public class RowTimeOverInputStateTest {
+
+	private final BaseRowTypeInfo inputRowType = new BaseRowTypeInfo(
+			InternalTypes.STRING,
+			InternalTypes.LONG,
+			InternalTypes.INT);
+
+	private final BinaryRowKeySelector keySelector = new BinaryRowKeySelector(
+			new int[] {0}, inputRowType.getInternalTypes());
+
+	private final ListTypeInfo<BaseRow> rowListTypeInfo = new ListTypeInfo<>(inputRowType);
+
+	private final BaseRowHarnessAssertor assertor = new BaseRowHarnessAssertor(inputRowType.getFieldTypes());
+
+	@Test
+	public void testMigrateRestoredLegacyInputState() throws Exception {
+		// keep the rows in the unordered map state of previous versions
+		OneInputStreamOperatorTestHarness<BaseRow, BaseRow> testHarness = createTestHarness(new LegacyInputFunction(rowListTypeInfo));
+		testHarness.open();
+		testHarness.processElement(record("a", 3L, 1));
+		testHarness.processElement(record("a", 1L, 2));
+		testHarness.processElement(record("a", 3L, 3));
+		testHarness.processElement(record("b", 2L, 4));
+		OperatorSubtaskState snapshot = testHarness.snapshot(0L, 0);
+		testHarness.close();
+
+		testHarness = createTestHarness(new MigratingInputFunction(rowListTypeInfo));
+		testHarness.setup();
+		testHarness.initializeState(snapshot);
+		testHarness.open();
+		testHarness.processElement(record("a", 3L, 5));
+		testHarness.processElement(record("a", 2L, 6));
+		testHarness.processElement(record("c", 1L, 7));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		// the legacy rows are put before the newer rows with the same time stamp
+		expectedOutput.add(record("a", 1L, 2));
+		expectedOutput.add(record("a", 3L, 1));
+		expectedOutput.add(record("a", 3L, 3));
+		expectedOutput.add(record("a", 3L, 5));
+		// the legacy rows are migrated only once
+		expectedOutput.add(record("a", 1L, 2));
+		expectedOutput.add(record("a", 2L, 6));
+		expectedOutput.add(record("a", 3L, 1));
+		expectedOutput.add(record("a", 3L, 3));
+		expectedOutput.add(record("a", 3L, 5));
+		// keys without legacy rows are not affected
+		expectedOutput.add(record("c", 1L, 7));
+		assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
+	private OneInputStreamOperatorTestHarness<BaseRow, BaseRow> createTestHarness(
+			KeyedProcessFunction<BaseRow, BaseRow, BaseRow> function) throws Exception {
+		KeyedProcessOperator<BaseRow, BaseRow, BaseRow> operator = new KeyedProcessOperator<>(function);
+		return new KeyedOneInputStreamOperatorTestHarness<>(operator, keySelector, keySelector.getProducedType());
+	}
+
+	/**
+	 * Keeps the input rows like the event-time OVER window functions of previous versions.
+	 */
+	private static class LegacyInputFunction extends KeyedProcessFunction<BaseRow, BaseRow, BaseRow> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ListTypeInfo<BaseRow> rowListTypeInfo;
+
+		private transient MapState<Long, List<BaseRow>> legacyInputState;
+
+		private LegacyInputFunction(ListTypeInfo<BaseRow> rowListTypeInfo) {
+			this.rowListTypeInfo = rowListTypeInfo;
+		}
+
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			legacyInputState = RowTimeOverInputState.getLegacyInputState(getRuntimeContext(), rowListTypeInfo);
+		}
+
+		@Override
+		public void processElement(BaseRow input, Context ctx, Collector<BaseRow> out) throws Exception {
+			List<BaseRow> rows = legacyInputState.get(input.getLong(1));
+			if (rows == null) {
+				rows = new ArrayList<>();
+			}
+			rows.add(input);
+			legacyInputState.put(input.getLong(1), rows);
+		}
+	}
+
+	/**
+	 * Migrates the legacy input rows of the key, adds the input row to the sorted state and emits
+	 * all rows of the key in the order of their time stamps.
+	 */
+	private static class MigratingInputFunction extends KeyedProcessFunction<BaseRow, BaseRow, BaseRow> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ListTypeInfo<BaseRow> rowListTypeInfo;
+
+		private transient MapState<Long, List<BaseRow>> legacyInputState;
+		private transient SortedMapState<Long, List<BaseRow>> inputState;
+
+		private MigratingInputFunction(ListTypeInfo<BaseRow> rowListTypeInfo) {
+			this.rowListTypeInfo = rowListTypeInfo;
+		}
+
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			legacyInputState = RowTimeOverInputState.getLegacyInputState(getRuntimeContext(), rowListTypeInfo);
+			inputState = RowTimeOverInputState.getInputState(getRuntimeContext(), rowListTypeInfo);
+		}
+
+		@Override
+		public void processElement(BaseRow input, Context ctx, Collector<BaseRow> out) throws Exception {
+			RowTimeOverInputState.migrateLegacyInputState(legacyInputState, inputState);
+			assertFalse(legacyInputState.iterator().hasNext());
+
+			List<BaseRow> rows = inputState.get(input.getLong(1));
+			if (rows == null) {
+				rows = new ArrayList<>();
+			}
+			rows.add(input);
+			inputState.put(input.getLong(1), rows);
+
+			for (Map.Entry<Long, List<BaseRow>> entry : inputState.entries()) {
+				for (BaseRow row : entry.getValue()) {
+					out.collect(row);
+				}
+			}
+		}
+	}
+}
@@ -39,6 +39,13 @@ public class RetractableTopNFunctionTest extends TopNFunctionTestBase {
 	@Override
 	protected AbstractTopNFunction createFunction(RankType rankType, RankRange rankRange,
 			boolean generateRetraction, boolean outputRankNumber) {
+		return new RetractableTopNFunction(minTime.toMilliseconds(), maxTime.toMilliseconds(),
+				inputRowType, sortKeyComparator, sortKeySelector, new boolean[] {true}, new boolean[] {false},
+				rankType, rankRange, generatedEqualiser, generateRetraction, outputRankNumber);
+	}
+
+	private AbstractTopNFunction createLegacyFunction(RankType rankType, RankRange rankRange,
+			boolean generateRetraction, boolean outputRankNumber) {
 		return new RetractableTopNFunction(minTime.toMilliseconds(), maxTime.toMilliseconds(),
 				inputRowType, sortKeyComparator, sortKeySelector, rankType, rankRange, generatedEqualiser,
 				generateRetraction, outputRankNumber);
@@ -163,6 +170,46 @@ public class RetractableTopNFunctionTest extends TopNFunctionTestBase {
 		testHarness.close();
 	}
 
+	@Test
+	public void testRestoreFromLegacySortedMap() throws Exception {
+		// the counts of the sort keys are kept in a whole sorted map without sort directions
+		AbstractTopNFunction func = createLegacyFunction(RankType.ROW_NUMBER, new ConstantRankRange(1, 2), true,
+				false);
+		OneInputStreamOperatorTestHarness<BaseRow, BaseRow> testHarness = createTestHarness(func);
+		testHarness.open();
+		testHarness.processElement(record("book", 1L, 12));
+		testHarness.processElement(record("book", 2L, 19));
+		testHarness.processElement(record("book", 4L, 11));
+		testHarness.processElement(record("fruit", 4L, 33));
+		testHarness.processElement(record("fruit", 3L, 44));
+		OperatorSubtaskState snapshot = testHarness.snapshot(0L, 0);
+		testHarness.close();
+
+		func = createFunction(RankType.ROW_NUMBER, new ConstantRankRange(1, 2), true, false);
+		testHarness = createTestHarness(func);
+		testHarness.setup();
+		testHarness.initializeState(snapshot);
+		testHarness.open();
+		testHarness.processElement(record("book", 1L, 10));
+		testHarness.processElement(retractRecord("book", 4L, 11));
+		testHarness.processElement(record("fruit", 5L, 22));
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(retractRecord("book", 1L, 12));
+		expectedOutput.add(retractRecord("book", 4L, 11));
+		expectedOutput.add(record("book", 4L, 11));
+		expectedOutput.add(record("book", 1L, 10));
+		expectedOutput.add(retractRecord("book", 4L, 11));
+		expectedOutput.add(record("book", 1L, 12));
+		expectedOutput.add(retractRecord("fruit", 4L, 33));
+		expectedOutput.add(retractRecord("fruit", 3L, 44));
+		expectedOutput.add(record("fruit", 4L, 33));
+		expectedOutput.add(record("fruit", 5L, 22));
+		assertorWithoutRowNumber
+				.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+		testHarness.close();
+	}
+
 	// TODO RetractRankFunction could be sent less retraction message when does not need to retract row_number
 	@Test
 	public void testVariableRankRange() throws Exception {
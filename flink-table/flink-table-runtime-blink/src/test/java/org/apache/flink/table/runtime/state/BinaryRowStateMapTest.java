@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.state;
+
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.table.dataformat.BinaryRow;
+import org.apache.flink.table.dataformat.BinaryRowWriter;
+import org.apache.flink.table.dataformat.BinaryString;
+import org.apache.flink.table.typeutils.BinaryRowSerializer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link BinaryRowStateMap}.
+ */
+public class BinaryRowStateMapTest {
+
+	private static final int PAGE_SIZE = 4 * 1024;
+
+	private static final long MEMORY_SIZE = 32 * 1024 * 1024;
+
+	private final MemoryManager memoryManager = new MemoryManager(MEMORY_SIZE, 1, PAGE_SIZE, MemoryType.HEAP, false);
+
+	private final BinaryRowStateMap map = new BinaryRowStateMap(1, 1, memoryManager, this);
+
+	@After
+	public void after() {
+		map.free();
+		assertTrue("Not all memory was returned to the memory manager.", memoryManager.verifyEmpty());
+		memoryManager.shutdown();
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		for (int i = 0; i < 10000; i++) {
+			map.put(key(i), value("value-" + i));
+		}
+		assertEquals(10000, map.size());
+
+		for (int i = 0; i < 10000; i += 2) {
+			assertTrue(map.remove(key(i)));
+		}
+		assertFalse(map.remove(key(0)));
+		assertEquals(5000, map.size());
+
+		for (int i = 0; i < 10000; i++) {
+			BinaryRow value = map.get(key(i));
+			if (i % 2 == 0) {
+				assertNull(value);
+			} else {
+				assertEquals("value-" + i, value.getString(0).toString());
+			}
+		}
+
+		// the tombstones are reused or dropped on the next growth
+		for (int i = 0; i < 10000; i += 2) {
+			map.put(key(i), value("again-" + i));
+		}
+		assertEquals(10000, map.size());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((i % 2 == 0 ? "again-" : "value-") + i, map.get(key(i)).getString(0).toString());
+		}
+	}
+
+	@Test
+	public void testUpdate() {
+		for (int i = 0; i < 1000; i++) {
+			map.put(key(i), value("a"));
+		}
+		long usedMemory = map.getUsedMemoryInBytes();
+
+		// values of the same size are overwritten in place
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 1000; i++) {
+				map.put(key(i), value(String.valueOf(round)));
+			}
+		}
+		assertEquals(usedMemory, map.getUsedMemoryInBytes());
+
+		// values of a different size are appended and the old records are compacted eventually
+		for (int round = 0; round < 100; round++) {
+			for (int i = 0; i < 1000; i++) {
+				map.put(key(i), value(round % 2 == 0 ? "a long value which does not fit in place" : "short"));
+			}
+		}
+		assertEquals(1000, map.size());
+		assertTrue(map.getUsedMemoryInBytes() < 10 * usedMemory);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("short", map.get(key(i)).getString(0).toString());
+		}
+	}
+
+	@Test
+	public void testClear() {
+		for (int i = 0; i < 1000; i++) {
+			map.put(key(i), value("value-" + i));
+		}
+		map.clear();
+		assertEquals(0, map.size());
+		assertNull(map.get(key(1)));
+
+		map.put(key(1), value("value"));
+		assertEquals("value", map.get(key(1)).getString(0).toString());
+	}
+
+	@Test
+	public void testMemoryIsAllocatedFromMemoryManager() {
+		for (int i = 0; i < 10000; i++) {
+			map.put(key(i), value("value-" + i));
+		}
+		assertFalse(memoryManager.verifyEmpty());
+
+		map.clear();
+		// one bucket page and one record page are left
+		assertEquals(2 * PAGE_SIZE, map.getUsedMemoryInBytes());
+		assertFalse(memoryManager.verifyEmpty());
+	}
+
+	@Test
+	public void testPartitionByKeyGroup() throws Exception {
+		final int totalKeyGroups = 128;
+		final KeyGroupRange keyGroupRange = new KeyGroupRange(0, totalKeyGroups - 1);
+
+		Map<Integer, Integer> expectedCounts = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			BinaryRow key = key(i);
+			map.put(key, value("value-" + i));
+			expectedCounts.merge(KeyGroupRangeAssignment.assignToKeyGroup(key, totalKeyGroups), 1, Integer::sum);
+		}
+
+		BinaryRowStateMap.KeyGroupPartitionedSnapshot snapshot =
+			map.partitionByKeyGroup(keyGroupRange, totalKeyGroups);
+
+		// the snapshot is not affected by later modifications
+		for (int i = 0; i < 1000; i++) {
+			map.put(key(i), value("modified-value-" + i));
+		}
+		map.remove(key(0));
+
+		BinaryRowSerializer keySerializer = new BinaryRowSerializer(1);
+		BinaryRowSerializer valueSerializer = new BinaryRowSerializer(1);
+
+		int numRead = 0;
+		for (int keyGroup : keyGroupRange) {
+			// DataOutputSerializer does not grow when copying from a DataInputView
+			DataOutputSerializer out = new DataOutputSerializer(64 * 1024);
+			snapshot.writeKeyGroup(keyGroup, out);
+
+			DataInputDeserializer in = new DataInputDeserializer(out.getSharedBuffer(), 0, out.length());
+			int count = in.readInt();
+			assertEquals(expectedCounts.getOrDefault(keyGroup, 0).intValue(), count);
+			for (int i = 0; i < count; i++) {
+				BinaryRow key = keySerializer.deserialize(in);
+				BinaryRow value = valueSerializer.deserialize(in);
+				assertEquals(keyGroup, KeyGroupRangeAssignment.assignToKeyGroup(key, totalKeyGroups));
+				assertEquals("value-" + key.getInt(0), value.getString(0).toString());
+			}
+			numRead += count;
+		}
+		assertEquals(1000, numRead);
+
+		try {
+			map.partitionByKeyGroup(new KeyGroupRange(0, 0), totalKeyGroups);
+			fail("Expected an exception for keys outside of the key group range.");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	private static BinaryRow key(int i) {
+		BinaryRow row = new BinaryRow(1);
+		BinaryRowWriter writer = new BinaryRowWriter(row);
+		writer.writeInt(0, i);
+		writer.complete();
+		return row;
+	}
+
+	private static BinaryRow value(String s) {
+		BinaryRow row = new BinaryRow(1);
+		BinaryRowWriter writer = new BinaryRowWriter(row);
+		writer.writeString(0, BinaryString.fromString(s));
+		writer.complete();
+		return row;
+	}
+}
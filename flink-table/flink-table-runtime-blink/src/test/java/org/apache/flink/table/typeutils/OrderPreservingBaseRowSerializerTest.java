@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.typeutils;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.SerializerTestBase;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.Decimal;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.apache.flink.table.type.InternalType;
+import org.apache.flink.table.type.InternalTypes;
+import org.apache.flink.testutils.DeeplyEqualsChecker;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+import static org.apache.flink.table.dataformat.BinaryString.fromString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test for {@link OrderPreservingBaseRowSerializer}.
+ */
+public class OrderPreservingBaseRowSerializerTest extends SerializerTestBase<BaseRow> {
+
+	private static final InternalType[] TYPES = {
+		InternalTypes.INT,
+		InternalTypes.STRING,
+		InternalTypes.DOUBLE,
+		InternalTypes.TIMESTAMP,
+		InternalTypes.createDecimalType(10, 2)};
+
+	private static final boolean[] ORDERS = {true, false, true, false, true};
+
+	private static final boolean[] NULLS_IS_LAST = {false, true, true, false, false};
+
+	private static final BaseRowSerializer ROW_SERIALIZER = new BaseRowSerializer(new ExecutionConfig(), TYPES);
+
+	public OrderPreservingBaseRowSerializerTest() {
+		super(new DeeplyEqualsChecker()
+			.withCustomCheck(
+				(o1, o2) -> o1 instanceof BaseRow && o2 instanceof BaseRow,
+				(o1, o2, checker) -> ROW_SERIALIZER.baseRowToBinary((BaseRow) o1)
+					.equals(ROW_SERIALIZER.baseRowToBinary((BaseRow) o2))));
+	}
+
+	@Override
+	protected TypeSerializer<BaseRow> createSerializer() {
+		return new OrderPreservingBaseRowSerializer(TYPES, ORDERS, NULLS_IS_LAST);
+	}
+
+	@Override
+	protected int getLength() {
+		return -1;
+	}
+
+	@Override
+	protected Class<BaseRow> getTypeClass() {
+		return BaseRow.class;
+	}
+
+	@Override
+	protected BaseRow[] getTestData() {
+		return new BaseRow[] {
+			createRow(null, null, null, null, null),
+			createRow(0, fromString(""), 0.0, 0L, decimal(0L)),
+			createRow(-1, fromString("a"), -0.0, -1L, decimal(-1L)),
+			createRow(1, fromString("a\u0000"), -1.5, 1L, decimal(1L)),
+			createRow(1, fromString("a\u0000b"), Double.NaN, Long.MIN_VALUE, decimal(9999999999L)),
+			createRow(1, fromString("ab"), Double.NEGATIVE_INFINITY, Long.MAX_VALUE, decimal(-12345L)),
+			createRow(1, fromString("ä"), 1.5, null, decimal(12345L)),
+			createRow(Integer.MIN_VALUE, null, Double.POSITIVE_INFINITY, 2L, null),
+			createRow(Integer.MAX_VALUE, fromString("b"), null, 2L, decimal(3L)),
+			createRow(Integer.MAX_VALUE, fromString("b"), 2.0, 2L, decimal(3L))
+		};
+	}
+
+	@Test
+	public void testSerializedFormPreservesOrder() throws IOException {
+		OrderPreservingBaseRowSerializer serializer = new OrderPreservingBaseRowSerializer(
+			TYPES, ORDERS, NULLS_IS_LAST);
+		Comparator<BaseRow> comparator = serializer.getOrderComparator();
+		BaseRow[] rows = getTestData();
+
+		for (BaseRow row1 : rows) {
+			for (BaseRow row2 : rows) {
+				int expected = Integer.signum(comparator.compare(row1, row2));
+				int actual = Integer.signum(compareUnsigned(serialize(serializer, row1), serialize(serializer, row2)));
+				assertEquals(row1 + " compared to " + row2, expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testNullsAreSortedIndependentlyOfTheDirection() {
+		Comparator<BaseRow> comparator = new OrderPreservingBaseRowSerializer(
+			new InternalType[] {InternalTypes.INT, InternalTypes.INT},
+			new boolean[] {false, true},
+			new boolean[] {false, true}).getOrderComparator();
+
+		GenericRow nullFirst = GenericRow.of(null, 1);
+		GenericRow nullLast = GenericRow.of(1, null);
+		GenericRow notNull = GenericRow.of(1, 1);
+		assertEquals(-1, Integer.signum(comparator.compare(nullFirst, notNull)));
+		assertEquals(1, Integer.signum(comparator.compare(nullLast, notNull)));
+	}
+
+	@Test
+	public void testUnsupportedTypes() {
+		assertFalse(OrderPreservingBaseRowSerializer.isSupported(
+			new InternalType[] {InternalTypes.INT, InternalTypes.BINARY}));
+		assertFalse(OrderPreservingBaseRowSerializer.isSupported(
+			new InternalType[] {InternalTypes.SYSTEM_DEFAULT_DECIMAL}));
+	}
+
+	private static GenericRow createRow(Object f0, Object f1, Object f2, Object f3, Object f4) {
+		GenericRow row = new GenericRow(5);
+		row.setField(0, f0);
+		row.setField(1, f1);
+		row.setField(2, f2);
+		row.setField(3, f3);
+		row.setField(4, f4);
+		return row;
+	}
+
+	private static Decimal decimal(long unscaledValue) {
+		return Decimal.fromUnscaledLong(10, 2, unscaledValue);
+	}
+
+	private static byte[] serialize(TypeSerializer<BaseRow> serializer, BaseRow row) throws IOException {
+		DataOutputSerializer out = new DataOutputSerializer(64);
+		serializer.serialize(row, out);
+		return out.getCopyOfBuffer();
+	}
+
+	private static int compareUnsigned(byte[] a, byte[] b) {
+		for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return a.length - b.length;
+	}
+}